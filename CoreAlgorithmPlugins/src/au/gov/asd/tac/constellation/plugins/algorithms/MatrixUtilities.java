@@ -16,11 +16,14 @@
 package au.gov.asd.tac.constellation.plugins.algorithms;
 
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import org.ejml.simple.SimpleMatrix;
 
 /**
  * Utilities for converting a graph into various matrices and performing linear
- * algebra operations.
+ * algebra operations. The dense matrices need memory proportional to the
+ * square of the number of vertices, so large graphs should use the
+ * {@link SparseMatrix} versions instead.
  *
  * @author cygnus_x-1
  */
@@ -87,4 +90,38 @@ public class MatrixUtilities {
         final SimpleMatrix laplacian = laplacian(graph);
         return laplacian.pseudoInverse();
     }
+
+    public static SparseMatrix sparseLaplacian(final GraphReadMethods graph) {
+        final AdjacencySnapshot adjacency = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.ANY, true, true);
+        final int vertexCount = adjacency.getVertexCount();
+        final int[] adjacencyOffsets = adjacency.getOffsets();
+        final int[] neighbours = adjacency.getNeighbours();
+
+        // each row holds its neighbours and the diagonal, kept in column order
+        final int[] offsets = new int[vertexCount + 1];
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            offsets[vertexPosition + 1] = adjacencyOffsets[vertexPosition + 1] + vertexPosition + 1;
+        }
+        final int[] columns = new int[offsets[vertexCount]];
+        final double[] values = new double[offsets[vertexCount]];
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            int entry = offsets[vertexPosition];
+            boolean diagonalAdded = false;
+            for (int neighbourEntry = adjacencyOffsets[vertexPosition]; neighbourEntry < adjacencyOffsets[vertexPosition + 1]; neighbourEntry++) {
+                if (!diagonalAdded && neighbours[neighbourEntry] > vertexPosition) {
+                    columns[entry] = vertexPosition;
+                    values[entry++] = adjacency.getDegree(vertexPosition);
+                    diagonalAdded = true;
+                }
+                columns[entry] = neighbours[neighbourEntry];
+                values[entry++] = -1.0;
+            }
+            if (!diagonalAdded) {
+                columns[entry] = vertexPosition;
+                values[entry] = adjacency.getDegree(vertexPosition);
+            }
+        }
+
+        return new SparseMatrix(vertexCount, offsets, columns, values);
+    }
 }
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.algorithms;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A square matrix held in compressed sparse row form, with iterative solvers
+ * for the symmetric positive semi-definite matrices, such as the Laplacian,
+ * which arise from graphs.
+ * <p>
+ * The entries of row {@code r} are held in {@code columns[offsets[r]]} up to
+ * {@code columns[offsets[r + 1] - 1]}, sorted by column, with the value of
+ * each entry held at the same index of {@code values}. Unlike the dense
+ * matrices built by {@link MatrixUtilities}, the memory used is proportional
+ * to the number of entries rather than the square of the number of rows.
+ *
+ * @author agent
+ */
+public class SparseMatrix {
+
+    private static final double EPSILON = 1E-12;
+
+    private final int size;
+    private final int[] offsets;
+    private final int[] columns;
+    private final double[] values;
+
+    /**
+     * Create a matrix from arrays in compressed sparse row form. The arrays are
+     * not copied.
+     *
+     * @param size the number of rows and columns.
+     * @param offsets the offset of the first entry of each row, with the
+     * number of entries as the last element.
+     * @param columns the column of each entry, sorted within each row.
+     * @param values the value of each entry.
+     */
+    public SparseMatrix(final int size, final int[] offsets, final int[] columns, final double[] values) {
+        this.size = size;
+        this.offsets = offsets;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * The number of rows, which is also the number of columns.
+     *
+     * @return the number of rows.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * The number of entries held by the matrix.
+     *
+     * @return the number of entries.
+     */
+    public int getEntryCount() {
+        return columns.length;
+    }
+
+    /**
+     * The value at the specified row and column, which is 0 if the matrix does
+     * not hold an entry there.
+     *
+     * @param row the row.
+     * @param column the column.
+     * @return the value.
+     */
+    public double get(final int row, final int column) {
+        final int entry = Arrays.binarySearch(columns, offsets[row], offsets[row + 1], column);
+        return entry >= 0 ? values[entry] : 0;
+    }
+
+    /**
+     * Multiply this matrix by a vector, calculating rows in parallel.
+     *
+     * @param x the vector.
+     * @param y the array to write the result to, which must not be x.
+     */
+    public void multiply(final double[] x, final double[] y) {
+        IntStream.range(0, size).parallel().forEach(row -> y[row] = multiplyRow(row, x));
+    }
+
+    private void multiplySequential(final double[] x, final double[] y) {
+        for (int row = 0; row < size; row++) {
+            y[row] = multiplyRow(row, x);
+        }
+    }
+
+    private double multiplyRow(final int row, final double[] x) {
+        double sum = 0;
+        for (int entry = offsets[row]; entry < offsets[row + 1]; entry++) {
+            sum += values[entry] * x[columns[entry]];
+        }
+        return sum;
+    }
+
+    /**
+     * A conjugate gradient solver for systems {@code Ax = b} where A is this
+     * matrix, which must be symmetric and positive semi-definite. The solver
+     * is preconditioned by the diagonal of the matrix.
+     * <p>
+     * A solver keeps the working vectors it needs between solutions so that
+     * solving many systems does not allocate, and runs sequentially so that
+     * several solvers can be used at once from different threads.
+     *
+     * @param tolerance the norm of the residual, relative to the norm of b, at
+     * which a solution is accepted.
+     * @param maxIterations the maximum number of iterations for each solution.
+     * @return a new solver.
+     */
+    public ConjugateGradientSolver createSolver(final double tolerance, final int maxIterations) {
+        return new ConjugateGradientSolver(tolerance, maxIterations);
+    }
+
+    /**
+     * A conjugate gradient solver for systems of this matrix.
+     */
+    public final class ConjugateGradientSolver {
+
+        private final double tolerance;
+        private final int maxIterations;
+        private final double[] inverseDiagonal;
+        private final double[] residual;
+        private final double[] preconditioned;
+        private final double[] direction;
+        private final double[] product;
+
+        private ConjugateGradientSolver(final double tolerance, final int maxIterations) {
+            this.tolerance = tolerance;
+            this.maxIterations = maxIterations;
+            this.inverseDiagonal = new double[size];
+            this.residual = new double[size];
+            this.preconditioned = new double[size];
+            this.direction = new double[size];
+            this.product = new double[size];
+            for (int row = 0; row < size; row++) {
+                final double diagonal = get(row, row);
+                inverseDiagonal[row] = diagonal > 0 ? 1 / diagonal : 1;
+            }
+        }
+
+        /**
+         * Solve {@code Ax = b}. If A is singular, b must lie in its range, as
+         * it does for a Laplacian when b sums to 0 over each component, and
+         * the solution is then only defined up to the null space of A.
+         *
+         * @param b the right hand side.
+         * @param x the initial guess, which is overwritten with the solution.
+         * @return the number of iterations taken.
+         */
+        public int solve(final double[] b, final double[] x) {
+            multiplySequential(x, product);
+            double bNorm = 0;
+            for (int row = 0; row < size; row++) {
+                residual[row] = b[row] - product[row];
+                preconditioned[row] = inverseDiagonal[row] * residual[row];
+                direction[row] = preconditioned[row];
+                bNorm += b[row] * b[row];
+            }
+            final double threshold = tolerance * tolerance * Math.max(bNorm, EPSILON);
+
+            double rz = dot(residual, preconditioned);
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                if (dot(residual, residual) <= threshold) {
+                    return iteration;
+                }
+
+                multiplySequential(direction, product);
+                final double curvature = dot(direction, product);
+                if (curvature <= 0) {
+                    return iteration;
+                }
+
+                final double step = rz / curvature;
+                for (int row = 0; row < size; row++) {
+                    x[row] += step * direction[row];
+                    residual[row] -= step * product[row];
+                    preconditioned[row] = inverseDiagonal[row] * residual[row];
+                }
+
+                final double nextRz = dot(residual, preconditioned);
+                final double beta = nextRz / rz;
+                rz = nextRz;
+                for (int row = 0; row < size; row++) {
+                    direction[row] = preconditioned[row] + beta * direction[row];
+                }
+            }
+
+            return maxIterations;
+        }
+    }
+
+    /**
+     * Find the eigenvectors of the smallest eigenvalues of this matrix, which
+     * must be symmetric, using the thick restart Lanczos method.
+     * <p>
+     * A Krylov basis is grown with full reorthogonalisation until it holds
+     * basisSize vectors. The basis is then restarted from the current
+     * estimates of the wanted eigenvectors, together with the direction in
+     * which the basis was growing, so nothing learnt about the wanted
+     * eigenvectors is lost between restarts.
+     *
+     * @param count the number of eigenvectors to find.
+     * @param basisSize the number of vectors in the basis, which bounds the
+     * memory used to basisSize vectors of the size of the matrix.
+     * @param maxRestarts the maximum number of restarts.
+     * @return the unit eigenvectors, in order of increasing eigenvalue. If the
+     * matrix has fewer than count rows, only that many are returned.
+     */
+    public double[][] getSmallestEigenvectors(final int count, final int basisSize, final int maxRestarts) {
+        final int vectorCount = Math.min(count, size);
+        final int maxBasisSize = Math.min(size, Math.max(basisSize, 2 * vectorCount + 2));
+        final int keptCount = Math.min(maxBasisSize - 1, vectorCount + (maxBasisSize - vectorCount) / 2);
+        final double[][] basis = new double[maxBasisSize][];
+        final double[][] projection = new double[maxBasisSize][maxBasisSize];
+        final double[] ritzValues = new double[maxBasisSize];
+        final double[][] ritzVectors = new double[maxBasisSize][maxBasisSize];
+        final double[] product = new double[size];
+
+        // a fixed seed keeps layouts repeatable
+        final Random random = new Random(size);
+        final double[] start = new double[size];
+        for (int row = 0; row < size; row++) {
+            start[row] = random.nextDouble() - 0.5;
+        }
+        basis[0] = scale(start, 1 / Math.sqrt(dot(start, start)));
+
+        int basisCount = 1;
+        int next = 0;
+        for (int restart = 0; restart <= maxRestarts; restart++) {
+            // grow the basis, recording the projection of the matrix onto it
+            double residualNorm = 0;
+            for (; next < basisCount; next++) {
+                multiply(basis[next], product);
+                for (int previous = 0; previous <= next; previous++) {
+                    projection[previous][next] = projection[next][previous] = dot(basis[previous], product);
+                }
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int previous = 0; previous <= next; previous++) {
+                        final double coefficient = dot(basis[previous], product);
+                        final double[] previousVector = basis[previous];
+                        for (int row = 0; row < size; row++) {
+                            product[row] -= coefficient * previousVector[row];
+                        }
+                    }
+                }
+
+                residualNorm = Math.sqrt(dot(product, product));
+                if (residualNorm < EPSILON * Math.max(1, Math.abs(projection[next][next]))) {
+                    // the basis spans an invariant subspace, so the estimates are exact
+                    residualNorm = 0;
+                    next++;
+                    break;
+                }
+                if (basisCount < maxBasisSize) {
+                    basis[basisCount++] = scale(product, 1 / residualNorm);
+                }
+            }
+            basisCount = next;
+
+            // the eigenvectors of the projection give the estimated eigenvectors of the matrix
+            solveSymmetric(projection, basisCount, ritzValues, ritzVectors);
+            double scaleEstimate = EPSILON;
+            for (int vector = 0; vector < basisCount; vector++) {
+                scaleEstimate = Math.max(scaleEstimate, Math.abs(ritzValues[vector]));
+            }
+            boolean converged = true;
+            for (int vector = 0; vector < Math.min(vectorCount, basisCount); vector++) {
+                if (residualNorm * Math.abs(ritzVectors[basisCount - 1][vector]) > 1E-8 * scaleEstimate) {
+                    converged = false;
+                }
+            }
+
+            final int kept = converged || residualNorm == 0 || restart == maxRestarts ? Math.min(vectorCount, basisCount) : Math.min(keptCount, basisCount);
+            final double[][] estimates = new double[kept][size];
+            for (int vector = 0; vector < kept; vector++) {
+                for (int step = 0; step < basisCount; step++) {
+                    final double weight = ritzVectors[step][vector];
+                    final double[] basisVector = basis[step];
+                    for (int row = 0; row < size; row++) {
+                        estimates[vector][row] += weight * basisVector[row];
+                    }
+                }
+            }
+
+            if (kept < keptCount || converged || residualNorm == 0 || restart == maxRestarts) {
+                return Arrays.copyOf(estimates, Math.min(vectorCount, kept));
+            }
+
+            // restart from the estimates, continuing in the direction the basis was growing
+            for (int vector = 0; vector < kept; vector++) {
+                basis[vector] = estimates[vector];
+                Arrays.fill(projection[vector], 0);
+                projection[vector][vector] = ritzValues[vector];
+            }
+            basis[kept] = scale(product, 1 / residualNorm);
+            basisCount = kept + 1;
+            next = kept;
+        }
+
+        return new double[0][];
+    }
+
+    /**
+     * Find the eigenvalues and eigenvectors of a small dense symmetric matrix
+     * using the cyclic Jacobi method.
+     *
+     * @param matrix the matrix, which is left unchanged.
+     * @param n the number of rows and columns of the matrix to use.
+     * @param values filled with the eigenvalues in ascending order.
+     * @param vectors filled with the unit eigenvectors as columns.
+     */
+    private static void solveSymmetric(final double[][] matrix, final int n, final double[] values, final double[][] vectors) {
+        final double[][] a = new double[n][];
+        double norm = 0;
+        for (int i = 0; i < n; i++) {
+            a[i] = Arrays.copyOf(matrix[i], n);
+            Arrays.fill(vectors[i], 0);
+            vectors[i][i] = 1;
+            for (int j = 0; j < n; j++) {
+                norm += a[i][j] * a[i][j];
+            }
+        }
+
+        for (int sweep = 0; sweep < 100; sweep++) {
+            double offDiagonal = 0;
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    offDiagonal += a[p][q] * a[p][q];
+                }
+            }
+            if (offDiagonal <= EPSILON * EPSILON * norm) {
+                break;
+            }
+
+            for (int p = 0; p < n; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    if (a[p][q] == 0) {
+                        continue;
+                    }
+                    final double theta = (a[q][q] - a[p][p]) / (2 * a[p][q]);
+                    final double t = Math.signum(theta == 0 ? 1 : theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    final double c = 1 / Math.sqrt(t * t + 1);
+                    final double s = t * c;
+                    for (int k = 0; k < n; k++) {
+                        final double kp = a[k][p];
+                        final double kq = a[k][q];
+                        a[k][p] = c * kp - s * kq;
+                        a[k][q] = s * kp + c * kq;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        final double pk = a[p][k];
+                        final double qk = a[q][k];
+                        a[p][k] = c * pk - s * qk;
+                        a[q][k] = s * pk + c * qk;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        final double kp = vectors[k][p];
+                        final double kq = vectors[k][q];
+                        vectors[k][p] = c * kp - s * kq;
+                        vectors[k][q] = s * kp + c * kq;
+                    }
+                }
+            }
+        }
+
+        // sort the eigenvalues, and their eigenvectors, into ascending order
+        for (int i = 0; i < n; i++) {
+            values[i] = a[i][i];
+        }
+        for (int i = 0; i < n - 1; i++) {
+            int k = i;
+            for (int j = i + 1; j < n; j++) {
+                if (values[j] < values[k]) {
+                    k = j;
+                }
+            }
+            if (k != i) {
+                final double value = values[i];
+                values[i] = values[k];
+                values[k] = value;
+                for (int j = 0; j < n; j++) {
+                    final double component = vectors[j][i];
+                    vectors[j][i] = vectors[j][k];
+                    vectors[j][k] = component;
+                }
+            }
+        }
+    }
+
+    private static double dot(final double[] x, final double[] y) {
+        double sum = 0;
+        for (int index = 0; index < x.length; index++) {
+            sum += x[index] * y[index];
+        }
+        return sum;
+    }
+
+    private static double[] scale(final double[] x, final double factor) {
+        final double[] result = new double[x.length];
+        for (int index = 0; index < x.length; index++) {
+            result[index] = x[index] * factor;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.algorithms.paths;
+
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot.Direction;
+import au.gov.asd.tac.constellation.plugins.PluginComputePool;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Finds every shortest path between pairs of vertices of a graph.
+ * <p>
+ * The adjacency of the graph is taken once as an {@link AdjacencySnapshot},
+ * after which each pair is searched with a bidirectional breadth first search
+ * that grows the smaller of the frontiers around the two vertices, one layer at
+ * a time, until they meet. The shortest paths of the pair are then traced from
+ * the meeting vertices back to each end through the distances found by each
+ * search, and the union of the paths of every pair is returned as the
+ * positions of the vertices and the snapshot entries that lie on them.
+ * <p>
+ * Pairs are searched in parallel on the {@link PluginComputePool}, with each
+ * thread reusing its distance and queue arrays from one pair to the next.
+ *
+ * @author agent
+ */
+public class ShortestPathsSearch {
+
+    private final AdjacencySnapshot outgoing;
+    private final AdjacencySnapshot incoming;
+    private final Queue<Search> searches = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Take a snapshot of a graph to search.
+     *
+     * @param graph the graph.
+     * @param followDirection if true, paths only follow directed transactions
+     * from their source to their destination; otherwise paths follow any
+     * transaction in either direction.
+     */
+    public ShortestPathsSearch(final GraphReadMethods graph, final boolean followDirection) {
+        if (followDirection) {
+            outgoing = AdjacencySnapshot.create(graph, Direction.OUTGOING, false, true);
+            incoming = AdjacencySnapshot.create(graph, Direction.INCOMING, false, true);
+        } else {
+            outgoing = AdjacencySnapshot.create(graph, Direction.ANY, true, true);
+            incoming = outgoing;
+        }
+    }
+
+    /**
+     * The snapshot that the entries of the found paths refer to. An entry of
+     * the snapshot leads from the vertex of its row to its neighbour.
+     *
+     * @return the snapshot of the graph.
+     */
+    public AdjacencySnapshot getSnapshot() {
+        return outgoing;
+    }
+
+    /**
+     * Find every shortest path between each pair of vertices. Pairs whose
+     * vertices are the same or are not connected contribute nothing.
+     *
+     * @param sources the position of the first vertex of each pair.
+     * @param destinations the position of the second vertex of each pair.
+     * @return the union of the shortest paths of every pair.
+     * @throws InterruptedException if the search is cancelled.
+     */
+    public Paths search(final int[] sources, final int[] destinations) throws InterruptedException {
+        final int grain = Math.max(1, sources.length / (PluginComputePool.getPool().getParallelism() * 4));
+        return PluginComputePool.reduce(sources.length, grain, Paths::new, (paths, index) -> {
+            Search search = searches.poll();
+            if (search == null) {
+                search = new Search(outgoing.getVertexCount());
+            }
+            try {
+                search.search(sources[index], destinations[index], paths);
+            } finally {
+                searches.offer(search);
+            }
+        }, Paths::add);
+    }
+
+    /**
+     * The vertices and snapshot entries that lie on at least one of the
+     * shortest paths found.
+     */
+    public static final class Paths {
+
+        private final BitSet vertices = new BitSet();
+        private final BitSet entries = new BitSet();
+
+        private Paths add(final Paths other) {
+            vertices.or(other.vertices);
+            entries.or(other.entries);
+            return this;
+        }
+
+        /**
+         * The positions of the vertices on a shortest path.
+         *
+         * @return the positions of the vertices on a shortest path.
+         */
+        public BitSet getVertices() {
+            return vertices;
+        }
+
+        /**
+         * The entries of the snapshot on a shortest path.
+         *
+         * @return the entries of the snapshot on a shortest path.
+         */
+        public BitSet getEntries() {
+            return entries;
+        }
+    }
+
+    /**
+     * The vertices reached from one end of a pair, held in the order they were
+     * reached so that each layer is contiguous and distances never decrease.
+     */
+    private static final class Frontier {
+
+        private final int[] distances;
+        private final int[] queue;
+        private int head;
+        private int tail;
+
+        private Frontier(final int vertexCount) {
+            distances = new int[vertexCount];
+            Arrays.fill(distances, -1);
+            queue = new int[vertexCount];
+        }
+
+        private void start(final int vertex) {
+            distances[vertex] = 0;
+            queue[0] = vertex;
+            head = 0;
+            tail = 1;
+        }
+
+        private boolean isEmpty() {
+            return head == tail;
+        }
+
+        private int size() {
+            return tail - head;
+        }
+
+        /**
+         * Reach the next layer of vertices, marking those already reached by
+         * the other frontier as meeting vertices.
+         */
+        private boolean expand(final AdjacencySnapshot snapshot, final Frontier other, final BitSet meeting) {
+            final int[] offsets = snapshot.getOffsets();
+            final int[] neighbours = snapshot.getNeighbours();
+            final int layerEnd = tail;
+            boolean met = false;
+            for (; head < layerEnd; head++) {
+                final int vertex = queue[head];
+                final int distance = distances[vertex] + 1;
+                for (int entry = offsets[vertex]; entry < offsets[vertex + 1]; entry++) {
+                    final int neighbour = neighbours[entry];
+                    if (distances[neighbour] == -1) {
+                        distances[neighbour] = distance;
+                        queue[tail++] = neighbour;
+                        if (other.distances[neighbour] != -1) {
+                            meeting.set(neighbour);
+                            met = true;
+                        }
+                    }
+                }
+            }
+            return met;
+        }
+
+        private void reset() {
+            for (int index = 0; index < tail; index++) {
+                distances[queue[index]] = -1;
+            }
+        }
+    }
+
+    /**
+     * The working state of a single thread, reused for each pair it searches.
+     */
+    private final class Search {
+
+        private final Frontier forward;
+        private final Frontier backward;
+        private final BitSet onPath = new BitSet();
+
+        private Search(final int vertexCount) {
+            forward = new Frontier(vertexCount);
+            backward = new Frontier(vertexCount);
+        }
+
+        private void search(final int source, final int destination, final Paths paths) {
+            if (source == destination) {
+                return;
+            }
+
+            forward.start(source);
+            backward.start(destination);
+            try {
+                boolean met = false;
+                while (!met && !forward.isEmpty() && !backward.isEmpty()) {
+                    met = forward.size() <= backward.size()
+                            ? forward.expand(outgoing, backward, onPath)
+                            : backward.expand(incoming, forward, onPath);
+                }
+
+                if (met) {
+                    traceForward(paths);
+                    traceBackward(paths);
+                    collect(forward, paths);
+                    collect(backward, paths);
+                }
+            } finally {
+                forward.reset();
+                backward.reset();
+                onPath.clear();
+            }
+        }
+
+        /**
+         * Trace from the meeting vertices back to the source, through each
+         * predecessor one step closer to the source.
+         */
+        private void traceForward(final Paths paths) {
+            final int[] incomingOffsets = incoming.getOffsets();
+            final int[] incomingNeighbours = incoming.getNeighbours();
+            final int[] outgoingOffsets = outgoing.getOffsets();
+            final int[] outgoingNeighbours = outgoing.getNeighbours();
+            for (int index = forward.tail - 1; index > 0; index--) {
+                final int vertex = forward.queue[index];
+                if (onPath.get(vertex)) {
+                    final int distance = forward.distances[vertex] - 1;
+                    for (int entry = incomingOffsets[vertex]; entry < incomingOffsets[vertex + 1]; entry++) {
+                        final int predecessor = incomingNeighbours[entry];
+                        if (forward.distances[predecessor] == distance) {
+                            onPath.set(predecessor);
+                            paths.entries.set(Arrays.binarySearch(outgoingNeighbours, outgoingOffsets[predecessor], outgoingOffsets[predecessor + 1], vertex));
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Trace from the meeting vertices on to the destination, through each
+         * successor one step closer to the destination.
+         */
+        private void traceBackward(final Paths paths) {
+            final int[] outgoingOffsets = outgoing.getOffsets();
+            final int[] outgoingNeighbours = outgoing.getNeighbours();
+            for (int index = backward.tail - 1; index > 0; index--) {
+                final int vertex = backward.queue[index];
+                if (onPath.get(vertex)) {
+                    final int distance = backward.distances[vertex] - 1;
+                    for (int entry = outgoingOffsets[vertex]; entry < outgoingOffsets[vertex + 1]; entry++) {
+                        final int successor = outgoingNeighbours[entry];
+                        if (backward.distances[successor] == distance) {
+                            onPath.set(successor);
+                            paths.entries.set(entry);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void collect(final Frontier frontier, final Paths paths) {
+            for (int index = 0; index < frontier.tail; index++) {
+                final int vertex = frontier.queue[index];
+                if (onPath.get(vertex)) {
+                    paths.vertices.set(vertex);
+                }
+            }
+        }
+    }
+}
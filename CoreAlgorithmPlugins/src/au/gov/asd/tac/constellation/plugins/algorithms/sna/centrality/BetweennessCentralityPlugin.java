@@ -26,10 +26,10 @@ import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
 import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
-import java.util.BitSet;
-import java.util.HashMap;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -56,6 +56,7 @@ public class BetweennessCentralityPlugin extends SimpleEditPlugin {
     public static final String NORMALISE_AVAILABLE_PARAMETER_ID = PluginParameter.buildId(BetweennessCentralityPlugin.class, "normalise_available");
     public static final String NORMALISE_CONNECTED_COMPONENTS_PARAMETER_ID = PluginParameter.buildId(BetweennessCentralityPlugin.class, "normalise_connected_components");
     public static final String SELECTED_ONLY_PARAMETER_ID = PluginParameter.buildId(BetweennessCentralityPlugin.class, "selected_only");
+    public static final String SAMPLE_SIZE_PARAMETER_ID = PluginParameter.buildId(BetweennessCentralityPlugin.class, "sample_size");
 
     @Override
     public PluginParameters createParameters() {
@@ -103,6 +104,13 @@ public class BetweennessCentralityPlugin extends SimpleEditPlugin {
         selectedOnlyParameter.setBooleanValue(false);
         parameters.addParameter(selectedOnlyParameter);
 
+        final PluginParameter<IntegerParameterValue> sampleSizeParameter = IntegerParameterType.build(SAMPLE_SIZE_PARAMETER_ID);
+        sampleSizeParameter.setName("Sample Size");
+        sampleSizeParameter.setDescription("Estimate scores from paths starting at this many randomly chosen vertices, or 0 to use every vertex");
+        sampleSizeParameter.setIntegerValue(0);
+        IntegerParameterType.setMinimum(sampleSizeParameter, 0);
+        parameters.addParameter(sampleSizeParameter);
+
         return parameters;
     }
 
@@ -115,26 +123,24 @@ public class BetweennessCentralityPlugin extends SimpleEditPlugin {
         final boolean normaliseByAvailable = parameters.getBooleanValue(NORMALISE_AVAILABLE_PARAMETER_ID);
         final boolean normaliseConnectedComponents = parameters.getBooleanValue(NORMALISE_CONNECTED_COMPONENTS_PARAMETER_ID);
         final boolean selectedOnly = parameters.getBooleanValue(SELECTED_ONLY_PARAMETER_ID);
+        final int sampleSize = parameters.getIntegerValue(SAMPLE_SIZE_PARAMETER_ID);
 
         assert !normaliseByPossible || !normaliseByAvailable : "You should only select one method of normalisation";
 
         // calculate betweenness scores
-        final Tuple<BitSet[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, ScoreType.BETWEENNESS, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, selectedOnly);
-        final BitSet[] subgraphs = scoreResult.getFirst();
+        final Tuple<int[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, ScoreType.BETWEENNESS, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, selectedOnly, sampleSize);
+        final int[] components = scoreResult.getFirst();
         final float[] betweennesses = scoreResult.getSecond();
+        final int[] componentSizes = PathScoringUtilities.componentSizes(graph, components, false);
 
         // calculate the maximum betweenness
         float maxBetweenness = 0;
-        final HashMap<BitSet, Float> maxBetweennessConnectedComponents = new HashMap<>();
+        final float[] maxBetweennessConnectedComponents = new float[componentSizes.length];
         final int vertexCount = graph.getVertexCount();
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
             final float betweenness = betweennesses[vertexPosition];
-            final BitSet subgraph = subgraphs[vertexPosition];
-            if (!maxBetweennessConnectedComponents.containsKey(subgraph)) {
-                maxBetweennessConnectedComponents.put(subgraph, betweenness);
-            } else {
-                maxBetweennessConnectedComponents.put(subgraph, Math.max(betweenness, maxBetweennessConnectedComponents.get(subgraph)));
-            }
+            final int component = components[vertexPosition];
+            maxBetweennessConnectedComponents[component] = Math.max(betweenness, maxBetweennessConnectedComponents[component]);
             maxBetweenness = Math.max(betweenness, maxBetweenness);
         }
 
@@ -155,14 +161,14 @@ public class BetweennessCentralityPlugin extends SimpleEditPlugin {
             final int vertexId = graph.getVertex(vertexPosition);
             if (normaliseByPossible) {
                 if (normaliseConnectedComponents) {
-                    final float subgraphVertexCount = subgraphs[vertexPosition].cardinality();
+                    final float subgraphVertexCount = componentSizes[components[vertexPosition]];
                     graph.setFloatValue(betweennessAttribute, vertexId, betweennesses[vertexPosition] / (((subgraphVertexCount - 1) * (subgraphVertexCount - 2)) / 2));
                 } else {
                     graph.setFloatValue(betweennessAttribute, vertexId, betweennesses[vertexPosition] / (((vertexCount - 1) * (vertexCount - 2)) / 2f));
                 }
             } else if (normaliseByAvailable && maxBetweenness > 0) {
                 if (normaliseConnectedComponents) {
-                    final float maxBetweennessConnectedComponent = maxBetweennessConnectedComponents.get(subgraphs[vertexPosition]);
+                    final float maxBetweennessConnectedComponent = maxBetweennessConnectedComponents[components[vertexPosition]];
                     graph.setFloatValue(betweennessAttribute, vertexId, betweennesses[vertexPosition] / maxBetweennessConnectedComponent);
                 } else {
                     graph.setFloatValue(betweennessAttribute, vertexId, betweennesses[vertexPosition] / maxBetweenness);
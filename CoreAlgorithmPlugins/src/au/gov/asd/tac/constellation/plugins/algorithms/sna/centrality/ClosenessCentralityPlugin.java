@@ -26,11 +26,10 @@ import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
 import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
-import java.util.BitSet;
-import java.util.HashMap;
-import java.util.Map;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -60,6 +59,7 @@ public class ClosenessCentralityPlugin extends SimpleEditPlugin {
     public static final String NORMALISE_AVAILABLE_PARAMETER_ID = PluginParameter.buildId(ClosenessCentralityPlugin.class, "normalise_available");
     public static final String NORMALISE_CONNECTED_COMPONENTS_PARAMETER_ID = PluginParameter.buildId(ClosenessCentralityPlugin.class, "normalise_connected_components");
     public static final String SELECTED_ONLY_PARAMETER_ID = PluginParameter.buildId(ClosenessCentralityPlugin.class, "selected_only");
+    public static final String SAMPLE_SIZE_PARAMETER_ID = PluginParameter.buildId(ClosenessCentralityPlugin.class, "sample_size");
 
     @Override
     public PluginParameters createParameters() {
@@ -113,6 +113,13 @@ public class ClosenessCentralityPlugin extends SimpleEditPlugin {
         selectedOnlyParameter.setBooleanValue(false);
         parameters.addParameter(selectedOnlyParameter);
 
+        final PluginParameter<IntegerParameterValue> sampleSizeParameter = IntegerParameterType.build(SAMPLE_SIZE_PARAMETER_ID);
+        sampleSizeParameter.setName("Sample Size");
+        sampleSizeParameter.setDescription("Estimate scores from paths to this many randomly chosen vertices, or 0 to use every vertex");
+        sampleSizeParameter.setIntegerValue(0);
+        IntegerParameterType.setMinimum(sampleSizeParameter, 0);
+        parameters.addParameter(sampleSizeParameter);
+
         return parameters;
     }
 
@@ -126,38 +133,31 @@ public class ClosenessCentralityPlugin extends SimpleEditPlugin {
         final boolean normaliseByAvailable = parameters.getBooleanValue(NORMALISE_AVAILABLE_PARAMETER_ID);
         final boolean normaliseConnectedComponents = parameters.getBooleanValue(NORMALISE_CONNECTED_COMPONENTS_PARAMETER_ID);
         final boolean selectedOnly = parameters.getBooleanValue(SELECTED_ONLY_PARAMETER_ID);
+        final int sampleSize = parameters.getIntegerValue(SAMPLE_SIZE_PARAMETER_ID);
 
         final int selectedAttributeId = VisualConcept.VertexAttribute.SELECTED.get(graph);
 
         assert !normaliseByPossible || !normaliseByAvailable : "You should only select one method of normalisation";
 
         // calculate closeness scores
-        final BitSet[] subgraphs;
-        final float[] closenesses;
-        if (harmonic) {
-            final Tuple<BitSet[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.HARMONIC_CLOSENESS, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, selectedOnly);
-            subgraphs = scoreResult.getFirst();
-            closenesses = scoreResult.getSecond();
-        } else {
-            final Tuple<BitSet[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.CLOSENESS, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, selectedOnly);
-            subgraphs = scoreResult.getFirst();
-            closenesses = scoreResult.getSecond();
-        }
+        final PathScoringUtilities.ScoreType scoreType = harmonic ? PathScoringUtilities.ScoreType.HARMONIC_CLOSENESS : PathScoringUtilities.ScoreType.CLOSENESS;
+        final Tuple<int[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, scoreType, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, selectedOnly, sampleSize);
+        final int[] components = scoreResult.getFirst();
+        final float[] closenesses = scoreResult.getSecond();
+        final int[] connectedComponentSizes = PathScoringUtilities.componentSizes(graph, components, selectedOnly);
 
         // calculate the maximum closeness
         float maxCloseness = 0f;
-        final Map<BitSet, Float> maxClosenessConnectedComponents = new HashMap<>();
-        final Map<BitSet, Integer> connectedComponentSize = new HashMap<>();
+        int graphSize = 0;
+        final float[] maxClosenessConnectedComponents = new float[connectedComponentSizes.length];
+        for (int component = 0; component < connectedComponentSizes.length; component++) {
+            graphSize += connectedComponentSizes[component];
+        }
         final int vertexCount = graph.getVertexCount();
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
             final float closeness = closenesses[vertexPosition];
-            final BitSet subgraph = subgraphs[vertexPosition];
-            if (!maxClosenessConnectedComponents.containsKey(subgraph)) {
-                maxClosenessConnectedComponents.put(subgraph, closeness);
-                connectedComponentSize.put(subgraph, PathScoringUtilities.subgraphSize(graph, subgraph, selectedOnly));
-            } else {
-                maxClosenessConnectedComponents.put(subgraph, Math.max(closeness, maxClosenessConnectedComponents.get(subgraph)));
-            }
+            final int component = components[vertexPosition];
+            maxClosenessConnectedComponents[component] = Math.max(closeness, maxClosenessConnectedComponents[component]);
             maxCloseness = Math.max(closeness, maxCloseness);
         }
 
@@ -186,25 +186,19 @@ public class ClosenessCentralityPlugin extends SimpleEditPlugin {
         }
 
         // update the graph with closeness values
-        int graphSize = PathScoringUtilities.subgraphSize(graph, null, selectedOnly);
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
             final int vertexId = graph.getVertex(vertexPosition);
             if (normaliseByPossible) {
-                int subgraphSize = connectedComponentSize.get(subgraphs[vertexPosition]);
-                final boolean vertexSelected = graph.getBooleanValue(selectedAttributeId, vertexId);
-                if (!selectedOnly || vertexSelected) {
-                    subgraphSize -= 1;
-                    graphSize -= 1;
-                }
-
+                // a vertex is not counted among the vertices it can reach
+                final int self = !selectedOnly || graph.getBooleanValue(selectedAttributeId, vertexId) ? 1 : 0;
                 if (normaliseConnectedComponents) {
-                    graph.setFloatValue(closenessAttribute, vertexId, closenesses[vertexPosition] * subgraphSize);
+                    graph.setFloatValue(closenessAttribute, vertexId, closenesses[vertexPosition] * (connectedComponentSizes[components[vertexPosition]] - self));
                 } else {
-                    graph.setFloatValue(closenessAttribute, vertexId, closenesses[vertexPosition] * graphSize);
+                    graph.setFloatValue(closenessAttribute, vertexId, closenesses[vertexPosition] * (graphSize - self));
                 }
             } else if (normaliseByAvailable && maxCloseness > 0) {
                 if (normaliseConnectedComponents) {
-                    final float maxClosenessConnectedComponent = maxClosenessConnectedComponents.get(subgraphs[vertexPosition]);
+                    final float maxClosenessConnectedComponent = maxClosenessConnectedComponents[components[vertexPosition]];
                     graph.setFloatValue(closenessAttribute, vertexId, closenesses[vertexPosition] / maxClosenessConnectedComponent);
                 } else {
                     graph.setFloatValue(closenessAttribute, vertexId, closenesses[vertexPosition] / maxCloseness);
@@ -18,6 +18,7 @@ package au.gov.asd.tac.constellation.plugins.algorithms.sna.centrality;
 import au.gov.asd.tac.constellation.plugins.algorithms.sna.SnaConcept;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginInfo;
 import au.gov.asd.tac.constellation.plugins.PluginInteraction;
@@ -93,31 +94,23 @@ public class EigenvectorCentralityPlugin extends SimpleEditPlugin {
 
         assert !normaliseByPossible || !normaliseByAvailable : "You should only select one method of normalisation";
 
+        // take a snapshot of the distinct neighbours of each vertex
+        final AdjacencySnapshot neighbours = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.ANY, true, true);
+
         // initialise eigenvector values
-        final int vertexCount = graph.getVertexCount();
-        final double[] tempEigenvectors = new double[graph.getVertexCapacity()];
-        final double[] eigenvectors = new double[graph.getVertexCapacity()];
+        final int vertexCount = neighbours.getVertexCount();
+        final double[] tempEigenvectors = new double[vertexCount];
+        final double[] eigenvectors = new double[vertexCount];
         Arrays.fill(eigenvectors, (double) 1 / vertexCount);
 
         // calculate eigenvector for each vertex
         for (int iteration = 0; iteration < iterations; iteration++) {
-            Arrays.fill(tempEigenvectors, 0);
+            neighbours.multiply(eigenvectors, tempEigenvectors);
 
             double sumEigenvector = 0;
             double maxEigenvector = 0;
             double delta = 0;
             for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-                final int vertexId = graph.getVertex(vertexPosition);
-
-                final int neighbourCount = graph.getVertexNeighbourCount(vertexId);
-                for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < neighbourCount; vertexNeighbourPosition++) {
-                    final int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                    final int neighbourPosition = graph.getVertexPosition(neighbourId);
-                    if (vertexId != neighbourId) {
-                        tempEigenvectors[vertexPosition] += eigenvectors[neighbourPosition];
-                    }
-                }
-
                 sumEigenvector += tempEigenvectors[vertexPosition];
                 maxEigenvector = Math.max(tempEigenvectors[vertexPosition], maxEigenvector);
                 delta += Math.abs(eigenvectors[vertexPosition] - tempEigenvectors[vertexPosition]);
@@ -141,8 +134,7 @@ public class EigenvectorCentralityPlugin extends SimpleEditPlugin {
         // update the graph with eigenvector values
         final int eigenvectorAttribute = EIGENVECTOR_ATTRIBUTE.ensure(graph);
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final int vertexId = graph.getVertex(vertexPosition);
-            graph.setFloatValue(eigenvectorAttribute, vertexId, (float) eigenvectors[vertexPosition]);
+            graph.setFloatValue(eigenvectorAttribute, neighbours.getVertex(vertexPosition), (float) eigenvectors[vertexPosition]);
         }
     }
 }
@@ -16,9 +16,9 @@
 package au.gov.asd.tac.constellation.plugins.algorithms.sna.centrality;
 
 import au.gov.asd.tac.constellation.plugins.algorithms.sna.SnaConcept;
-import au.gov.asd.tac.constellation.graph.GraphConstants;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginInfo;
 import au.gov.asd.tac.constellation.plugins.PluginInteraction;
@@ -84,70 +84,23 @@ public class HitsCentralityPlugin extends SimpleEditPlugin {
         final float epsilon = parameters.getFloatValue(EPSILON_PARAMETER_ID);
         final boolean normaliseByAvailable = parameters.getBooleanValue(NORMALISE_AVAILABLE_PARAMETER_ID);
 
-        final double[] authorities = new double[graph.getVertexCapacity()];
+        // take snapshots of the source and destination of each directed transaction of each vertex
+        final AdjacencySnapshot sources = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.INCOMING, false, false);
+        final AdjacencySnapshot destinations = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.OUTGOING, false, false);
+
+        final int vertexCount = sources.getVertexCount();
+        final double[] authorities = new double[vertexCount];
         Arrays.fill(authorities, 1);
-        final double[] hubs = new double[graph.getVertexCapacity()];
+        final double[] hubs = new double[vertexCount];
         Arrays.fill(hubs, 1);
+        final double[] tempScores = new double[vertexCount];
 
-        final int vertexCount = graph.getVertexCount();
         for (int iteration = 0; iteration < iterations; iteration++) {
-            double authorityNorm = 0;
-            double authorityDelta = 0;
-            for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-                final int vertexId = graph.getVertex(vertexPosition);
-                final double previousAuthority = authorities[vertexPosition];
-                authorities[vertexPosition] = 0;
-
-                final int transactionCount = graph.getVertexTransactionCount(vertexId);
-                for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
-                    final int transactionId = graph.getVertexTransaction(vertexId, transactionPosition);
-                    final int sourceVertexId = graph.getTransactionSourceVertex(transactionId);
-                    final int destinationVertexId = graph.getTransactionDestinationVertex(transactionId);
-                    if (sourceVertexId != destinationVertexId) {
-                        final int otherVertexId = vertexId == sourceVertexId ? destinationVertexId : sourceVertexId;
-                        if ((vertexId < otherVertexId && graph.getTransactionDirection(transactionId) == GraphConstants.DOWNHILL)
-                                || (vertexId > otherVertexId && graph.getTransactionDirection(transactionId) == GraphConstants.UPHILL)) {
-                            authorities[vertexPosition] += hubs[otherVertexId];
-                        }
-                    }
-                    authorityDelta += Math.abs(previousAuthority - authorities[vertexPosition]);
-                }
-                authorityNorm += Math.pow(authorities[vertexPosition], 2);
-            }
-            authorityNorm = Math.sqrt(authorityNorm);
-
-            for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-                authorities[vertexPosition] /= authorityNorm;
-            }
-
-            double hubNorm = 0;
-            double hubDelta = 0;
-            for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-                final int vertexId = graph.getVertex(vertexPosition);
-                final double previousHub = hubs[vertexPosition];
-                hubs[vertexPosition] = 0;
-
-                final int transactionCount = graph.getVertexTransactionCount(vertexId);
-                for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
-                    final int transactionId = graph.getVertexTransaction(vertexId, transactionPosition);
-                    final int sourceVertexId = graph.getTransactionSourceVertex(transactionId);
-                    final int destinationVertexId = graph.getTransactionDestinationVertex(transactionId);
-                    if (sourceVertexId != destinationVertexId) {
-                        final int otherVertexId = vertexId == sourceVertexId ? destinationVertexId : sourceVertexId;
-                        if ((vertexId < otherVertexId && graph.getTransactionDirection(transactionId) == GraphConstants.UPHILL)
-                                || (vertexId > otherVertexId && graph.getTransactionDirection(transactionId) == GraphConstants.DOWNHILL)) {
-                            hubs[vertexPosition] += authorities[otherVertexId];
-                        }
-                    }
-                    hubDelta += Math.abs(previousHub - hubs[vertexPosition]);
-                }
-                hubNorm += Math.pow(hubs[vertexPosition], 2);
-            }
-            hubNorm = Math.sqrt(hubNorm);
+            sources.multiply(hubs, tempScores);
+            final double authorityDelta = normalise(tempScores, authorities);
 
-            for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-                hubs[vertexPosition] /= hubNorm;
-            }
+            destinations.multiply(authorities, tempScores);
+            final double hubDelta = normalise(tempScores, hubs);
 
             if (authorityDelta < epsilon || hubDelta < epsilon) {
                 break;
@@ -174,9 +127,33 @@ public class HitsCentralityPlugin extends SimpleEditPlugin {
         final int hitsAuthorityAttribute = HITS_AUTHORITY_ATTRIBUTE.ensure(graph);
         final int hitsHubAttribute = HITS_HUB_ATTRIBUTE.ensure(graph);
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final int vertexId = graph.getVertex(vertexPosition);
+            final int vertexId = sources.getVertex(vertexPosition);
             graph.setFloatValue(hitsAuthorityAttribute, vertexId, (float) authorities[vertexPosition]);
             graph.setFloatValue(hitsHubAttribute, vertexId, (float) hubs[vertexPosition]);
         }
     }
+
+    /**
+     * Normalise new scores to unit length and copy them over the previous
+     * scores.
+     *
+     * @param newScores the new scores.
+     * @param scores the previous scores, which are replaced.
+     * @return the total change in the scores.
+     */
+    private static double normalise(final double[] newScores, final double[] scores) {
+        double norm = 0;
+        for (int vertexPosition = 0; vertexPosition < newScores.length; vertexPosition++) {
+            norm += Math.pow(newScores[vertexPosition], 2);
+        }
+        norm = Math.sqrt(norm);
+
+        double delta = 0;
+        for (int vertexPosition = 0; vertexPosition < newScores.length; vertexPosition++) {
+            final double score = norm > 0 ? newScores[vertexPosition] / norm : 0;
+            delta += Math.abs(scores[vertexPosition] - score);
+            scores[vertexPosition] = score;
+        }
+        return delta;
+    }
 }
@@ -18,6 +18,7 @@ package au.gov.asd.tac.constellation.plugins.algorithms.sna.centrality;
 import au.gov.asd.tac.constellation.plugins.algorithms.sna.SnaConcept;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginInfo;
 import au.gov.asd.tac.constellation.plugins.PluginInteraction;
@@ -108,33 +109,23 @@ public class KatzCentralityPlugin extends SimpleEditPlugin {
 
         assert !normaliseByPossible || !normaliseByAvailable : "You should only select one method of normalisation";
 
+        // take a snapshot of the distinct neighbours of each vertex
+        final AdjacencySnapshot neighbours = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.ANY, true, true);
+
         // initialise katz values
-        final int vertexCount = graph.getVertexCount();
-        final double[] tempKatz = new double[graph.getVertexCapacity()];
-        final double[] katz = new double[graph.getVertexCapacity()];
+        final int vertexCount = neighbours.getVertexCount();
+        final double[] tempKatz = new double[vertexCount];
+        final double[] katz = new double[vertexCount];
         Arrays.fill(katz, 1.0 / vertexCount);
 
         // calculate katz for each vertex
         for (int iteration = 0; iteration < iterations; iteration++) {
-            Arrays.fill(tempKatz, 0);
+            neighbours.multiply(katz, tempKatz);
 
             double sumSquaredKatz = 0;
             double maxKatz = 0;
             double delta = 0;
             for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-                final int vertexId = graph.getVertex(vertexPosition);
-
-                final int neighbourCount = graph.getVertexNeighbourCount(vertexId);
-                for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < neighbourCount; vertexNeighbourPosition++) {
-                    final int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                    final int neighbourPosition = graph.getVertexPosition(neighbourId);
-                    if (vertexId != neighbourId) {
-                        tempKatz[neighbourPosition] += katz[vertexPosition];
-                    }
-                }
-            }
-
-            for (int vertexPosition = 0; vertexPosition < graph.getVertexCount(); vertexPosition++) {
                 tempKatz[vertexPosition] = (alpha * tempKatz[vertexPosition]) + beta;
                 sumSquaredKatz += Math.pow(tempKatz[vertexPosition], 2);
                 maxKatz = Math.max(tempKatz[vertexPosition], maxKatz);
@@ -159,8 +150,7 @@ public class KatzCentralityPlugin extends SimpleEditPlugin {
         // update the graph with katz values
         final int katzAttribute = KATZ_ATTRIBUTE.ensure(graph);
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final int vertexId = graph.getVertex(vertexPosition);
-            graph.setFloatValue(katzAttribute, vertexId, (float) katz[vertexPosition]);
+            graph.setFloatValue(katzAttribute, neighbours.getVertex(vertexPosition), (float) katz[vertexPosition]);
         }
     }
 }
@@ -19,6 +19,7 @@ import au.gov.asd.tac.constellation.plugins.algorithms.sna.SnaConcept;
 import au.gov.asd.tac.constellation.graph.GraphConstants;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginInfo;
 import au.gov.asd.tac.constellation.plugins.PluginInteraction;
@@ -31,12 +32,8 @@ import au.gov.asd.tac.constellation.plugins.parameters.types.FloatParameterType.
 import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
-import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.BitSet;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -104,87 +101,42 @@ public class PagerankCentralityPlugin extends SimpleEditPlugin {
         final float epsilon = parameters.getFloatValue(EPSILON_PARAMETER_ID);
         final boolean normaliseByAvailable = parameters.getBooleanValue(NORMALISE_AVAILABLE_PARAMETER_ID);
 
-        // identify incoming connections and store connected vertices and their outgoing connection count
-        final Set<Integer> verticesWithZeroOutLinks = new HashSet<>();
-        final Map<Integer, Set<Tuple<Integer, Integer>>> vertexInLinks = new HashMap<>();
-        final int vertexCount = graph.getVertexCount();
-        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final int vertexId = graph.getVertex(vertexPosition);
-            vertexInLinks.put(vertexId, new HashSet<>());
-
-            if (graph.getVertexEdgeCount(vertexId, GraphConstants.OUTGOING) == 0) {
-                verticesWithZeroOutLinks.add(vertexId);
-            }
-
-            final int linkCount = graph.getVertexLinkCount(vertexId);
-            for (int linkPosition = 0; linkPosition < linkCount; linkPosition++) {
-                final int linkId = graph.getVertexLink(vertexId, linkPosition);
-                final int linkLowId = graph.getLinkLowVertex(linkId);
-                final int linkHighId = graph.getLinkHighVertex(linkId);
-                if (linkLowId != linkHighId) {
-                    final int neighbourId = vertexId == linkLowId ? linkHighId : linkLowId;
-                    final int edgeCount = graph.getLinkEdgeCount(linkId);
-                    for (int edgePosition = 0; edgePosition < edgeCount; edgePosition++) {
-                        final int edgeId = graph.getLinkEdge(linkId, edgePosition);
-                        final int edgeDirection = graph.getEdgeDirection(edgeId);
-                        if ((treatUndirectedBidirectional && edgeDirection == GraphConstants.FLAT)
-                                || (vertexId < neighbourId && edgeDirection == GraphConstants.DOWNHILL)
-                                || (vertexId > neighbourId && edgeDirection == GraphConstants.UPHILL)) {
-                            int neighbourOutCount = 0;
-                            final int transactionCount = graph.getVertexTransactionCount(neighbourId);
-                            for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
-                                final int transactionId = graph.getVertexTransaction(neighbourId, transactionPosition);
-                                final int transactionDirection = graph.getTransactionDirection(transactionId);
-                                final int transactionSourceId = graph.getTransactionSourceVertex(transactionId);
-                                final int transactionDestinationId = graph.getTransactionDestinationVertex(transactionId);
-                                if (transactionSourceId != transactionDestinationId) {
-                                    final int otherId = neighbourId == transactionSourceId ? transactionDestinationId : transactionSourceId;
-                                    if ((treatUndirectedBidirectional && transactionDirection == GraphConstants.FLAT)
-                                            || (neighbourId < otherId && transactionDirection == GraphConstants.UPHILL)
-                                            || (neighbourId > otherId && transactionDirection == GraphConstants.DOWNHILL)) {
-                                        neighbourOutCount++;
-                                    }
-                                }
-                            }
-
-                            vertexInLinks.get(vertexId).add(Tuple.create(neighbourId, neighbourOutCount));
-                        }
-                    }
-                }
-            }
-        }
+        // take a snapshot of the distinct incoming neighbours of each vertex, and count the outgoing connections of each vertex
+        final AdjacencySnapshot incoming = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.INCOMING, treatUndirectedBidirectional, true);
+        final int[] outgoingCounts = AdjacencySnapshot.countTransactions(graph, AdjacencySnapshot.Direction.OUTGOING, treatUndirectedBidirectional);
+        final int vertexCount = incoming.getVertexCount();
 
-        // handle dangling vertices by linking them to all pages
-        for (final int neighbourId : verticesWithZeroOutLinks) {
-            final int updatedCount = vertexInLinks.size();
-            for (final int vertexId : vertexInLinks.keySet()) {
-                vertexInLinks.get(vertexId).add(Tuple.create(neighbourId, updatedCount));
+        // dangling vertices are handled by linking them to all pages
+        final BitSet verticesWithZeroOutLinks = new BitSet(vertexCount);
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            if (graph.getVertexEdgeCount(incoming.getVertex(vertexPosition), GraphConstants.OUTGOING) == 0) {
+                verticesWithZeroOutLinks.set(vertexPosition);
             }
         }
 
         // initialise pagerank values
-        final double[] tempPageranks = new double[graph.getVertexCapacity()];
-        final double[] pageranks = new double[graph.getVertexCapacity()];
-        Arrays.fill(pageranks, (double) 1 / vertexInLinks.size());
+        final double[] contributions = new double[vertexCount];
+        final double[] neighbourContributions = new double[vertexCount];
+        final double[] tempPageranks = new double[vertexCount];
+        final double[] pageranks = new double[vertexCount];
+        Arrays.fill(pageranks, (double) 1 / vertexCount);
 
         // calculate pagerank for each vertex
         for (int iteration = 0; iteration < iterations; iteration++) {
-            Arrays.fill(tempPageranks, 0);
+            double danglingContribution = 0.0;
+            for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+                contributions[vertexPosition] = outgoingCounts[vertexPosition] == 0 ? 0 : pageranks[vertexPosition] / outgoingCounts[vertexPosition];
+                if (verticesWithZeroOutLinks.get(vertexPosition)) {
+                    danglingContribution += pageranks[vertexPosition] / vertexCount;
+                }
+            }
+            incoming.multiply(contributions, neighbourContributions);
 
             double maxPagerank = 0;
             double delta = 0;
-            for (final int vertexId : vertexInLinks.keySet()) {
-                double neighbourContribution = 0.0;
-                final Set<Tuple<Integer, Integer>> neighbours = vertexInLinks.get(vertexId);
-                for (final Tuple<Integer, Integer> neighbour : neighbours) {
-                    final int neighbourId = neighbour.getFirst();
-                    final int neighbourOutCount = neighbour.getSecond();
-                    final int neighbourPosition = graph.getVertexPosition(neighbourId);
-                    neighbourContribution += (pageranks[neighbourPosition] / neighbourOutCount);
-                }
-
-                final int vertexPosition = graph.getVertexPosition(vertexId);
-                tempPageranks[vertexPosition] = ((1 - dampingFactor) / vertexInLinks.size()) + (dampingFactor * neighbourContribution);
+            for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+                final double neighbourContribution = neighbourContributions[vertexPosition] + danglingContribution;
+                tempPageranks[vertexPosition] = ((1 - dampingFactor) / vertexCount) + (dampingFactor * neighbourContribution);
                 maxPagerank = Math.max(tempPageranks[vertexPosition], maxPagerank);
                 delta += Math.abs(pageranks[vertexPosition] - tempPageranks[vertexPosition]);
             }
@@ -205,8 +157,7 @@ public class PagerankCentralityPlugin extends SimpleEditPlugin {
         // update the graph with pagerank values
         final int pagerankAttribute = PAGERANK_ATTRIBUTE.ensure(graph);
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final int vertexId = graph.getVertex(vertexPosition);
-            graph.setFloatValue(pagerankAttribute, vertexId, (float) pageranks[vertexPosition]);
+            graph.setFloatValue(pagerankAttribute, incoming.getVertex(vertexPosition), (float) pageranks[vertexPosition]);
         }
     }
 }
@@ -18,23 +18,35 @@ package au.gov.asd.tac.constellation.plugins.algorithms.sna.centrality;
 import au.gov.asd.tac.constellation.graph.GraphConstants;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
-import java.util.ArrayList;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
 
 /**
  * Utilities for calculating scores on a graph based on shortest paths. This
- * utility makes use of the parallel breadth first search algorithm to
- * efficiently traverse the graph.
+ * utility runs a breadth first search from each vertex over an
+ * {@link AdjacencySnapshot} of the graph, with the searches spread across all
+ * cores and each worker holding only its own search state and score
+ * accumulators. Betweenness is accumulated using Brandes' algorithm.
+ * <p>
+ * Betweenness, closeness and harmonic closeness can also be estimated from a
+ * random sample of vertices rather than every vertex, which scales the cost
+ * with the sample size rather than the size of the graph.
  *
  * @author canis_majoris
  * @author cygnus_x-1
  */
 public class PathScoringUtilities {
-    
+
     private static final String SCORETYPE_ERROR_FORMAT = "The requested ScoreType, %s, is not supported.";
     private static final String OUT_OF_BOUNDS_EXCEPTION_STRING = "The 'selected' attribute does not exist on the given graph.";
 
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     public enum ScoreType {
 
         AVERAGE_DISTANCE(false),
@@ -56,623 +68,311 @@ public class PathScoringUtilities {
         }
     }
 
-    public static int subgraphSize(final GraphReadMethods graph, final BitSet subgraph, final boolean selectedOnly) {
-        int selectedCount = 0;
+    /**
+     * Count the vertices in each connected component, optionally counting
+     * only selected vertices.
+     *
+     * @param graph the graph the components were calculated on.
+     * @param components the component of each vertex position, as returned by
+     * {@link #calculateScores}. Positions outside of every component are -1.
+     * @param selectedOnly if true, only selected vertices are counted.
+     * @return the number of vertices in each component.
+     */
+    public static int[] componentSizes(final GraphReadMethods graph, final int[] components, final boolean selectedOnly) {
         final int selectedAttributeId = VisualConcept.VertexAttribute.SELECTED.get(graph);
 
-        if (subgraph == null) {
-            final int vertexCount = graph.getVertexCount();
-            for (int vxPosition = 0; vxPosition < vertexCount; vxPosition++) {
-                int vxId = graph.getVertex(vxPosition);
-                if (!selectedOnly || graph.getBooleanValue(selectedAttributeId, vxId)) {
-                    selectedCount++;
-                }
-            }
-        } else {
-            for (int vxPosition = subgraph.nextSetBit(0); vxPosition >= 0; vxPosition = subgraph.nextSetBit(vxPosition + 1)) {
-                int vxId = graph.getVertex(vxPosition);
-                if (!selectedOnly || (graph.getBooleanValue(selectedAttributeId, vxId))) {
-                    selectedCount++;
-                }
+        int componentCount = 0;
+        for (final int component : components) {
+            componentCount = Math.max(componentCount, component + 1);
+        }
+
+        final int[] sizes = new int[componentCount];
+        for (int vxPosition = 0; vxPosition < components.length; vxPosition++) {
+            if (components[vxPosition] >= 0 && (!selectedOnly || graph.getBooleanValue(selectedAttributeId, graph.getVertex(vxPosition)))) {
+                sizes[components[vxPosition]]++;
             }
         }
 
-        return selectedCount;
+        return sizes;
     }
 
-    public static Tuple<BitSet[], float[]> calculateScores(final GraphReadMethods graph, final ScoreType scoreType,
-            final boolean includeConnectionsIn, final boolean includeConnectionsOut, final boolean treatUndirectedBidirectional, final boolean selectedOnly) {
-        if (includeConnectionsIn && includeConnectionsOut) {
-            return scoreType.requiresShortestPaths() ? computeShortestPathsUndirected(graph, scoreType, selectedOnly) : computeAllPathsUndirected(graph, scoreType);
-        } else {
-            return scoreType.requiresShortestPaths() ? computeShortestPathsDirected(graph, scoreType, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, selectedOnly) : computeAllPathsDirected(graph, scoreType, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional);
-        }
+    /**
+     * Take the adjacency snapshot used to find paths on a graph.
+     *
+     * @param graph the graph.
+     * @param includeConnectionsIn whether paths may follow incoming connections.
+     * @param includeConnectionsOut whether paths may follow outgoing
+     * connections.
+     * @param treatUndirectedBidirectional whether paths may follow undirected
+     * connections when only one of incoming or outgoing connections are
+     * included.
+     * @return the adjacency snapshot.
+     */
+    public static AdjacencySnapshot createAdjacency(final GraphReadMethods graph,
+            final boolean includeConnectionsIn, final boolean includeConnectionsOut, final boolean treatUndirectedBidirectional) {
+        return createAdjacency(graph, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, false);
     }
 
-    public static BitSet[] calculateSubgraphPaths(final GraphReadMethods graph, BitSet subgraph,
-            final boolean includeConnectionsIn, final boolean includeConnectionsOut, final boolean treatUndirectedBidirectional) {
+    private static AdjacencySnapshot createAdjacency(final GraphReadMethods graph,
+            final boolean includeConnectionsIn, final boolean includeConnectionsOut, final boolean treatUndirectedBidirectional, final boolean reverse) {
+        final AdjacencySnapshot.Direction direction;
         if (includeConnectionsIn && includeConnectionsOut) {
-            return computeSubgraphPathsUndirected(graph, subgraph);
+            direction = AdjacencySnapshot.Direction.ANY;
+        } else if (includeConnectionsOut) {
+            direction = reverse ? AdjacencySnapshot.Direction.INCOMING : AdjacencySnapshot.Direction.OUTGOING;
+        } else if (includeConnectionsIn) {
+            direction = reverse ? AdjacencySnapshot.Direction.OUTGOING : AdjacencySnapshot.Direction.INCOMING;
         } else {
-            return computeSubgraphPathsDirected(graph, subgraph, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional);
-        }
-    }
-
-    private static BitSet[] computeSubgraphPathsUndirected(final GraphReadMethods graph, final BitSet subgraph) {
-        final int vxCount = graph.getVertexCount();
-        final BitSet[] traversal = new BitSet[vxCount];
-
-        final BitSet update = new BitSet(vxCount);
-        final BitSet[] sendBuffer = new BitSet[vxCount];
-        final BitSet turn = new BitSet(vxCount);
-        final BitSet newUpdate = new BitSet(vxCount);
-
-        // initialising variables
-        for (int vxPosition = 0; vxPosition < vxCount; vxPosition++) {
-            traversal[vxPosition] = new BitSet(vxCount);
-            sendBuffer[vxPosition] = new BitSet(vxCount);
-        }
-        update.or(subgraph);
-
-        while (!update.isEmpty()) {
-
-            // each node with messages needs to update its own information
-            for (int vxPosition = update.nextSetBit(0); vxPosition >= 0; vxPosition = update.nextSetBit(vxPosition + 1)) {
-                traversal[vxPosition].or(sendBuffer[vxPosition]);
-                traversal[vxPosition].set(vxPosition);
-                sendBuffer[vxPosition].clear();
-            }
-
-            // for each neighbour, check if there is any new information it needs to receive
-            for (int sourcePosition = update.nextSetBit(0); sourcePosition >= 0; sourcePosition = update.nextSetBit(sourcePosition + 1)) {
-                int vxId = graph.getVertex(sourcePosition);
-                for (int neighbourPosition = 0; neighbourPosition < graph.getVertexNeighbourCount(vxId); neighbourPosition++) {
-                    int destinationPosition = graph.getVertexPosition(graph.getVertexNeighbour(vxId, neighbourPosition));
-                    if (!subgraph.get(destinationPosition)) {
-                        continue;
-                    }
-                    if (!traversal[sourcePosition].equals(traversal[destinationPosition])) {
-
-                        final BitSet diff = (BitSet) traversal[sourcePosition].clone();
-                        diff.andNot(traversal[destinationPosition]);
-
-                        sendBuffer[destinationPosition].or(diff);
-                        turn.or(sendBuffer[destinationPosition]);
-                        newUpdate.set(destinationPosition);
-                    }
-                }
-            }
-
-            turn.clear();
-
-            update.clear();
-            update.or(newUpdate);
-            newUpdate.clear();
+            direction = AdjacencySnapshot.Direction.NONE;
         }
-
-        return traversal;
+        return AdjacencySnapshot.create(graph, direction, treatUndirectedBidirectional, true);
     }
 
-    private static BitSet[] computeSubgraphPathsDirected(final GraphReadMethods graph, final BitSet subgraph,
-            boolean includeConnectionsIn, boolean includeConnectionsOut, boolean treatUndirectedBidirectional) {
-        final int vertexCount = graph.getVertexCount();
-        final BitSet[] traversal = new BitSet[vertexCount];
-
-        final BitSet update = new BitSet(vertexCount);
-        final BitSet[] sendBuffer = new BitSet[vertexCount];
-        final BitSet newUpdate = new BitSet(vertexCount);
-
-        final BitSet turn = new BitSet(vertexCount);
-
-        // initialising variables
-        for (int vxPosition = 0; vxPosition < vertexCount; vxPosition++) {
-            traversal[vxPosition] = new BitSet(vertexCount);
-            sendBuffer[vxPosition] = new BitSet(vertexCount);
-        }
-        update.or(subgraph);
-
-        while (!update.isEmpty()) {
-
-            // update the information of each node with messages
-            for (int vertexPosition = update.nextSetBit(0); vertexPosition >= 0; vertexPosition = update.nextSetBit(vertexPosition + 1)) {
-                traversal[vertexPosition].or(sendBuffer[vertexPosition]);
-                traversal[vertexPosition].set(vertexPosition);
-                sendBuffer[vertexPosition].clear();
-            }
-
-            // for each neighbour, check if there is any new information it needs to receive
-            for (int vertexPosition = update.nextSetBit(0); vertexPosition >= 0; vertexPosition = update.nextSetBit(vertexPosition + 1)) {
-                int vertexId = graph.getVertex(vertexPosition);
-
-                for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < graph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
-                    int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                    int neighbourPosition = graph.getVertexPosition(neighbourId);
-                    if (!subgraph.get(neighbourPosition)) {
-                        continue;
-                    }
-
-                    boolean isRequestedDirection = false;
-                    int linkId = graph.getLink(vertexId, neighbourId);
-                    for (int linkEdgePosition = 0; linkEdgePosition < graph.getLinkEdgeCount(linkId); linkEdgePosition++) {
-                        final int edgeId = graph.getLinkEdge(linkId, linkEdgePosition);
-                        final int edgeDirection = graph.getEdgeDirection(edgeId);
-                        isRequestedDirection = (treatUndirectedBidirectional && edgeDirection == GraphConstants.UNDIRECTED)
-                                || (includeConnectionsIn && graph.getEdgeSourceVertex(edgeId) == neighbourId)
-                                || (includeConnectionsOut && graph.getEdgeDestinationVertex(edgeId) == neighbourId);
-                        if (isRequestedDirection) {
-                            break;
-                        }
-                    }
-
-                    if (isRequestedDirection && !traversal[vertexPosition].equals(traversal[neighbourPosition])) {
-                        turn.set(neighbourPosition, true);
-
-                        final BitSet diff = (BitSet) traversal[vertexPosition].clone();
-                        diff.andNot(traversal[neighbourPosition]);
-                        sendBuffer[neighbourPosition].or(diff);
-                        newUpdate.set(neighbourPosition);
-                    }
-                }
-            }
-
-            turn.clear();
-
-            update.clear();
-            update.or(newUpdate);
-            newUpdate.clear();
-        }
-
-        return traversal;
+    public static Tuple<int[], float[]> calculateScores(final GraphReadMethods graph, final ScoreType scoreType,
+            final boolean includeConnectionsIn, final boolean includeConnectionsOut, final boolean treatUndirectedBidirectional, final boolean selectedOnly) {
+        return calculateScores(graph, scoreType, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, selectedOnly, 0);
     }
 
-    private static Tuple<BitSet[], float[]> computeAllPathsUndirected(final GraphReadMethods graph, final ScoreType scoreType) {
-        final int vxCount = graph.getVertexCount();
-        final BitSet[] traversal = new BitSet[vxCount];
-        final float[] scores = new float[vxCount];
-        final ArrayList<Float> distances = new ArrayList<>();
-
-        final BitSet update = new BitSet(vxCount);
-        final BitSet[] sendBuffer = new BitSet[vxCount];
-        final BitSet turn = new BitSet(vxCount);
-        final BitSet newUpdate = new BitSet(vxCount);
-
-        // initialising variables
-        for (int vxPosition = 0; vxPosition < vxCount; vxPosition++) {
-            // get the vertex ID at this position
-            final int vxId = graph.getVertex(vxPosition);
-
-            traversal[vxPosition] = new BitSet(vxCount);
-            sendBuffer[vxPosition] = new BitSet(vxCount);
-            scores[vxPosition] = 0;
-
-            // assuming the node has neighbours
-            if (graph.getVertexNeighbourCount(vxId) > 0) {
-                update.set(vxPosition);
-            }
-        }
-
-        while (!update.isEmpty()) {
-
-            // each node with messages needs to update its own information
-            for (int vxPosition = update.nextSetBit(0); vxPosition >= 0; vxPosition = update.nextSetBit(vxPosition + 1)) {
-                traversal[vxPosition].or(sendBuffer[vxPosition]);
-                traversal[vxPosition].set(vxPosition);
-                sendBuffer[vxPosition].clear();
-            }
-
-            // for each neighbour, check if there is any new information it needs to receive
-            for (int sourcePosition = update.nextSetBit(0); sourcePosition >= 0; sourcePosition = update.nextSetBit(sourcePosition + 1)) {
-                int vxId = graph.getVertex(sourcePosition);
-                for (int neighbourPosition = 0; neighbourPosition < graph.getVertexNeighbourCount(vxId); neighbourPosition++) {
-                    int destinationPosition = graph.getVertexPosition(graph.getVertexNeighbour(vxId, neighbourPosition));
-                    if (!traversal[sourcePosition].equals(traversal[destinationPosition])) {
-
-                        final BitSet diff = (BitSet) traversal[sourcePosition].clone();
-                        diff.andNot(traversal[destinationPosition]);
-                        sendBuffer[destinationPosition].or(diff);
-                        turn.or(diff);
-                        newUpdate.set(destinationPosition);
-                    }
-                }
-            }
-            // update scores based on the current traversal state
-            switch (scoreType) {
-                case ECCENTRICITY:
-                    updateEccentricityScoresUndirected(scores, turn);
-                    break;
-                case AVERAGE_DISTANCE:
-                    updateAveragePathScoresUndirected(distances, scores, turn, sendBuffer);
-                    break;
-                default:
-                    throw new IllegalArgumentException(String.format(SCORETYPE_ERROR_FORMAT, scoreType));
-            }
-
-            turn.clear();
-
-            update.clear();
-            update.or(newUpdate);
-            newUpdate.clear();
-        }
-
+    /**
+     * Calculate a path based score for each vertex of a graph.
+     * <p>
+     * For {@link ScoreType#AVERAGE_DISTANCE} the score of a vertex is the sum
+     * of the distances to the vertices it can reach, so that the sum of all
+     * scores divided by the number of pairs of vertices is the average
+     * distance.
+     *
+     * @param graph the graph.
+     * @param scoreType the score to calculate.
+     * @param includeConnectionsIn whether paths may follow incoming connections.
+     * @param includeConnectionsOut whether paths may follow outgoing
+     * connections.
+     * @param treatUndirectedBidirectional whether paths may follow undirected
+     * connections when only one of incoming or outgoing connections are
+     * included.
+     * @param selectedOnly if true, only paths between selected vertices are
+     * scored.
+     * @param sampleSize the number of randomly chosen vertices to estimate
+     * betweenness, closeness or harmonic closeness from, or 0 to calculate
+     * them from every vertex.
+     * @return the connected component of each vertex position, numbered from
+     * 0, and the score of each vertex position.
+     */
+    public static Tuple<int[], float[]> calculateScores(final GraphReadMethods graph, final ScoreType scoreType,
+            final boolean includeConnectionsIn, final boolean includeConnectionsOut, final boolean treatUndirectedBidirectional, final boolean selectedOnly, final int sampleSize) {
+        final AdjacencySnapshot adjacency = createAdjacency(graph, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, false);
+        final int[] components = calculateSubgraphComponents(adjacency, null);
+
+        final float[] scores;
         switch (scoreType) {
             case ECCENTRICITY:
-                return Tuple.create(traversal, scores);
             case AVERAGE_DISTANCE:
-                final float[] distanceArray = new float[distances.size()];
-                for (int i = 0; i < distances.size(); i++) {
-                    distanceArray[i] = distances.get(i);
-                }
-                return Tuple.create(traversal, distanceArray);
+                scores = computeDistanceScores(adjacency, scoreType);
+                break;
+            case BETWEENNESS:
+                scores = computeBetweennessScores(adjacency, getTargets(graph, adjacency, selectedOnly), sampleSize);
+                break;
+            case CLOSENESS:
+            case FARNESS:
+            case HARMONIC_CLOSENESS:
+            case HARMONIC_FARNESS:
+                // a sample is scored by searching back from each pivot, which needs the reverse of a directed adjacency
+                final boolean sampled = sampleSize > 0 && sampleSize < adjacency.getVertexCount();
+                final AdjacencySnapshot reverseAdjacency = !sampled || includeConnectionsIn == includeConnectionsOut ? adjacency
+                        : createAdjacency(graph, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, true);
+                scores = computeClosenessScores(adjacency, reverseAdjacency, includeConnectionsIn && includeConnectionsOut, scoreType, getTargets(graph, adjacency, selectedOnly), sampleSize);
+                break;
             default:
                 throw new IllegalArgumentException(String.format(SCORETYPE_ERROR_FORMAT, scoreType));
         }
-    }
-
-    private static Tuple<BitSet[], float[]> computeAllPathsDirected(final GraphReadMethods graph, final ScoreType scoreType,
-            boolean includeConnectionsIn, boolean includeConnectionsOut, boolean treatUndirectedBidirectional) {
-        final int vertexCount = graph.getVertexCount();
-        final BitSet[] traversal = new BitSet[vertexCount];
-        final float[] scores = new float[vertexCount];
-        final ArrayList<Float> distances = new ArrayList<>();
-
-        final BitSet update = new BitSet(vertexCount);
-        final BitSet[] sendBuffer = new BitSet[vertexCount];
-        final BitSet newUpdate = new BitSet(vertexCount);
 
-        final BitSet turn = new BitSet(vertexCount);
+        return Tuple.create(components, scores);
+    }
 
-        // initialising variables
+    /**
+     * Find the connected components of the vertices in a subgraph, ignoring
+     * the direction of connections.
+     *
+     * @param adjacency the adjacency of the graph, as returned by
+     * {@link #createAdjacency}.
+     * @param subgraph the positions of the vertices in the subgraph, or null
+     * for every vertex.
+     * @return the component of each vertex position, numbered from 0 in order
+     * of position, or -1 for positions outside the subgraph.
+     */
+    public static int[] calculateSubgraphComponents(final AdjacencySnapshot adjacency, final BitSet subgraph) {
+        final int vertexCount = adjacency.getVertexCount();
+        final int[] offsets = adjacency.getOffsets();
+        final int[] neighbours = adjacency.getNeighbours();
+
+        final int[] parents = new int[vertexCount];
         for (int vxPosition = 0; vxPosition < vertexCount; vxPosition++) {
-            // get the vertex ID at this position
-            final int vxId = graph.getVertex(vxPosition);
-
-            traversal[vxPosition] = new BitSet(vertexCount);
-            sendBuffer[vxPosition] = new BitSet(vertexCount);
-
-            scores[vxPosition] = 0;
-
-            // assuming the node has neighbours
-            if (graph.getVertexNeighbourCount(vxId) > 0) {
-                update.set(vxPosition);
-            }
+            parents[vxPosition] = vxPosition;
         }
-
-        while (!update.isEmpty()) {
-
-            // update the information of each node with messages
-            for (int vertexPosition = update.nextSetBit(0); vertexPosition >= 0; vertexPosition = update.nextSetBit(vertexPosition + 1)) {
-                traversal[vertexPosition].or(sendBuffer[vertexPosition]);
-                traversal[vertexPosition].set(vertexPosition);
-                sendBuffer[vertexPosition].clear();
-            }
-
-            // for each neighbour, check if there is any new information it needs to receive
-            for (int vertexPosition = update.nextSetBit(0); vertexPosition >= 0; vertexPosition = update.nextSetBit(vertexPosition + 1)) {
-                int vertexId = graph.getVertex(vertexPosition);
-
-                for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < graph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
-                    int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                    int neighbourPosition = graph.getVertexPosition(neighbourId);
-
-                    boolean isRequestedDirection = false;
-                    int linkId = graph.getLink(vertexId, neighbourId);
-                    for (int linkEdgePosition = 0; linkEdgePosition < graph.getLinkEdgeCount(linkId); linkEdgePosition++) {
-                        final int edgeId = graph.getLinkEdge(linkId, linkEdgePosition);
-                        final int edgeDirection = graph.getEdgeDirection(edgeId);
-                        isRequestedDirection = (treatUndirectedBidirectional && edgeDirection == GraphConstants.UNDIRECTED)
-                                || (includeConnectionsIn && graph.getEdgeSourceVertex(edgeId) == neighbourId)
-                                || (includeConnectionsOut && graph.getEdgeDestinationVertex(edgeId) == neighbourId);
-                        if (isRequestedDirection) {
-                            break;
-                        }
-                    }
-
-                    if (isRequestedDirection && !traversal[vertexPosition].equals(traversal[neighbourPosition])) {
-                        final BitSet diff = (BitSet) traversal[vertexPosition].clone();
-                        diff.andNot(traversal[neighbourPosition]);
-                        turn.or(diff);
-                        sendBuffer[neighbourPosition].or(diff);
-                        newUpdate.set(neighbourPosition);
+        for (int vxPosition = 0; vxPosition < vertexCount; vxPosition++) {
+            if (subgraph == null || subgraph.get(vxPosition)) {
+                for (int entry = offsets[vxPosition]; entry < offsets[vxPosition + 1]; entry++) {
+                    if (subgraph == null || subgraph.get(neighbours[entry])) {
+                        final int root = findRoot(parents, vxPosition);
+                        final int neighbourRoot = findRoot(parents, neighbours[entry]);
+                        parents[Math.max(root, neighbourRoot)] = Math.min(root, neighbourRoot);
                     }
                 }
             }
+        }
 
-            // update scores based on the current traversal state
-            switch (scoreType) {
-                case ECCENTRICITY:
-                    updateEccentricityScoresDirected(scores, turn);
-                    break;
-                case AVERAGE_DISTANCE:
-                    updateAveragePathScoresUndirected(distances, scores, turn, sendBuffer);
-                    break;
-                default:
-                    throw new IllegalArgumentException(String.format(SCORETYPE_ERROR_FORMAT, scoreType));
+        // roots always have a lower position than the rest of their component, so they are numbered first
+        final int[] components = new int[vertexCount];
+        int componentCount = 0;
+        for (int vxPosition = 0; vxPosition < vertexCount; vxPosition++) {
+            if (subgraph != null && !subgraph.get(vxPosition)) {
+                components[vxPosition] = -1;
+            } else {
+                final int root = findRoot(parents, vxPosition);
+                components[vxPosition] = root == vxPosition ? componentCount++ : components[root];
             }
-
-            turn.clear();
-
-            update.clear();
-            update.or(newUpdate);
-            newUpdate.clear();
         }
 
-        switch (scoreType) {
-            case ECCENTRICITY:
-                return Tuple.create(traversal, scores);
-            case AVERAGE_DISTANCE:
-                final float[] distanceArray = new float[distances.size()];
-                for (int i = 0; i < distances.size(); i++) {
-                    distanceArray[i] = distances.get(i);
-                }
-                return Tuple.create(traversal, distanceArray);
-            default:
-                throw new IllegalArgumentException(String.format(SCORETYPE_ERROR_FORMAT, scoreType));
-        }
+        return components;
     }
 
-    private static Tuple<BitSet[], float[]> computeShortestPathsUndirected(final GraphReadMethods graph, final ScoreType scoreType, final boolean selectedOnly) {
-        final int vertexCount = graph.getVertexCount();
-        final BitSet[] traversal = new BitSet[vertexCount];
-        final float[] scores = new float[vertexCount];
-
-        final BitSet update = new BitSet(vertexCount);
-        final BitSet[] sendFails = new BitSet[vertexCount];
-        final BitSet[] sendBuffer = new BitSet[vertexCount];
-        final BitSet[] exclusions = new BitSet[vertexCount];
-        final BitSet newUpdate = new BitSet(vertexCount);
-        final BitSet turn = new BitSet(vertexCount);
-
-        // initialise variables
-        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            traversal[vertexPosition] = new BitSet(vertexCount);
-            scores[vertexPosition] = 0;
-
-            // only update nodes with neighbours
-            final int vxId = graph.getVertex(vertexPosition);
-            if (graph.getVertexNeighbourCount(vxId) > 0) {
-                update.set(vertexPosition);
-            }
-
-            sendFails[vertexPosition] = new BitSet(vertexCount);
-            sendBuffer[vertexPosition] = new BitSet(vertexCount);
-            exclusions[vertexPosition] = new BitSet(vertexCount);
+    private static int findRoot(final int[] parents, int vxPosition) {
+        while (parents[vxPosition] != vxPosition) {
+            parents[vxPosition] = parents[parents[vxPosition]];
+            vxPosition = parents[vxPosition];
         }
+        return vxPosition;
+    }
 
-        while (!update.isEmpty()) {
-            // update the information of each node with messages
-            for (int vertexPosition = update.nextSetBit(0); vertexPosition >= 0; vertexPosition = update.nextSetBit(vertexPosition + 1)) {
-                traversal[vertexPosition].or(sendBuffer[vertexPosition]);
-                traversal[vertexPosition].set(vertexPosition);
-                sendFails[vertexPosition].clear();
-                sendFails[vertexPosition].or(sendBuffer[vertexPosition]);
-                sendBuffer[vertexPosition].clear();
-            }
-
-            // for each neighbour, check if there is any new information it needs to receive
-            for (int vertexPosition = update.nextSetBit(0); vertexPosition >= 0; vertexPosition = update.nextSetBit(vertexPosition + 1)) {
-                int vertexId = graph.getVertex(vertexPosition);
-
-                for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < graph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
-                    int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                    int neighbourPosition = graph.getVertexPosition(neighbourId);
-                    if (!traversal[vertexPosition].equals(traversal[neighbourPosition])) {
-                        turn.set(neighbourPosition, true);
-
-                        final BitSet diff = (BitSet) traversal[vertexPosition].clone();
-                        diff.andNot(traversal[neighbourPosition]);
-                        sendBuffer[neighbourPosition].or(diff);
-                        sendFails[vertexPosition].andNot(diff);
-                        newUpdate.set(neighbourPosition);
-                    }
-                }
-                for (int neighbourPosition = sendFails[vertexPosition].nextSetBit(0); neighbourPosition >= 0; neighbourPosition = sendFails[vertexPosition].nextSetBit(neighbourPosition + 1)) {
-                    exclusions[neighbourPosition].set(vertexPosition, true);
-                }
-            }
-
-            // update scores based on the current traversal state
-            switch (scoreType) {
-                case BETWEENNESS:
-                    updateBetweennessScoresUndirected(graph, traversal, scores, sendBuffer, exclusions, turn, selectedOnly);
-                    break;
-                case CLOSENESS:
-                case FARNESS:
-                    updateFarnessScoresUndirected(graph, traversal, scores, sendBuffer, exclusions, turn, selectedOnly);
-                    break;
-                case HARMONIC_CLOSENESS:
-                case HARMONIC_FARNESS:
-                    updateHarmonicFarnessScoresUndirected(graph, traversal, scores, sendBuffer, exclusions, turn, selectedOnly);
-                    break;
-                default:
-                    throw new IllegalArgumentException(String.format(SCORETYPE_ERROR_FORMAT, scoreType));
-            }
-
-            turn.clear();
-            update.clear();
-            update.or(newUpdate);
-            newUpdate.clear();
+    /**
+     * The vertices that paths may end at, or null if every vertex may be an
+     * end point.
+     */
+    private static BitSet getTargets(final GraphReadMethods graph, final AdjacencySnapshot adjacency, final boolean selectedOnly) {
+        if (!selectedOnly) {
+            return null;
         }
 
-        // convert farness to closeness by taking the inverse of each score
-        if (scoreType == ScoreType.CLOSENESS) {
-            for (int index = 0; index < scores.length; index++) {
-                scores[index] = scores[index] == 0 ? 0 : 1 / scores[index];
-            }
+        final int selectedAttribute = VisualConcept.VertexAttribute.SELECTED.get(graph);
+        if (selectedAttribute == GraphConstants.NOT_FOUND) {
+            throw new ArrayIndexOutOfBoundsException(OUT_OF_BOUNDS_EXCEPTION_STRING);
         }
 
-        // convert harmonic farness to harmonic closeness by normalising each
-        // score by the number of vertices on the graph
-        if (scoreType == ScoreType.HARMONIC_CLOSENESS) {
-            for (int index = 0; index < scores.length; index++) {
-                scores[index] = scores[index] == 0 ? 0 : scores[index] / scores.length;
+        final BitSet targets = new BitSet(adjacency.getVertexCount());
+        for (int vxPosition = 0; vxPosition < adjacency.getVertexCount(); vxPosition++) {
+            if (graph.getBooleanValue(selectedAttribute, adjacency.getVertex(vxPosition))) {
+                targets.set(vxPosition);
             }
         }
-
-        return Tuple.create(traversal, scores);
+        return targets;
     }
 
-    private static Tuple<BitSet[], float[]> computeShortestPathsDirected(final GraphReadMethods graph, final ScoreType scoreType,
-            boolean includeConnectionsIn, boolean includeConnectionsOut, boolean treatUndirectedBidirectional, boolean selectedOnly) {
-
-        final int vertexCount = graph.getVertexCount();
-        final BitSet[] traversalF = new BitSet[vertexCount];
-        final BitSet[] traversalB = new BitSet[vertexCount];
-        final float[] scores = new float[vertexCount];
-
-        final BitSet updateF = new BitSet(vertexCount);
-        final BitSet[] sendFailsF = new BitSet[vertexCount];
-        final BitSet[] sendBufferF = new BitSet[vertexCount];
-        final BitSet[] exclusionsF = new BitSet[vertexCount];
-        final BitSet newUpdateF = new BitSet(vertexCount);
-
-        final BitSet updateB = new BitSet(vertexCount);
-        final BitSet[] sendFailsB = new BitSet[vertexCount];
-        final BitSet[] sendBufferB = new BitSet[vertexCount];
-        final BitSet[] exclusionsB = new BitSet[vertexCount];
-        final BitSet newUpdateB = new BitSet(vertexCount);
-
-        final BitSet turn = new BitSet(vertexCount);
-
-        // initialise variables
-        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            traversalF[vertexPosition] = new BitSet(vertexCount);
-            traversalB[vertexPosition] = new BitSet(vertexCount);
-            scores[vertexPosition] = 0;
-
-            // only update nodes with neighbours
-            final int vxId = graph.getVertex(vertexPosition);
-            if (graph.getVertexNeighbourCount(vxId) > 0) {
-                updateF.set(vertexPosition);
-                updateB.set(vertexPosition);
-            }
-
-            sendFailsF[vertexPosition] = new BitSet(vertexCount);
-            sendBufferF[vertexPosition] = new BitSet(vertexCount);
-            exclusionsF[vertexPosition] = new BitSet(vertexCount);
+    /**
+     * Choose the vertices to search from: every candidate, or a random sample
+     * of them if the sample size is smaller than the number of candidates.
+     */
+    private static int[] choosePivots(final int vertexCount, final BitSet candidates, final int sampleSize) {
+        final int[] pivots = candidates == null ? IntStream.range(0, vertexCount).toArray() : candidates.stream().toArray();
+        if (sampleSize <= 0 || sampleSize >= pivots.length) {
+            return pivots;
+        }
 
-            sendFailsB[vertexPosition] = new BitSet(vertexCount);
-            sendBufferB[vertexPosition] = new BitSet(vertexCount);
-            exclusionsB[vertexPosition] = new BitSet(vertexCount);
+        // partial Fisher-Yates shuffle to bring a random sample to the front
+        for (int index = 0; index < sampleSize; index++) {
+            final int swap = index + RANDOM.nextInt(pivots.length - index);
+            final int pivot = pivots[swap];
+            pivots[swap] = pivots[index];
+            pivots[index] = pivot;
         }
+        return Arrays.copyOf(pivots, sampleSize);
+    }
 
-        while (!updateF.isEmpty() || !updateB.isEmpty()) {
-            // update the information of each node with messages
-            for (int vertexPosition = updateF.nextSetBit(0); vertexPosition >= 0; vertexPosition = updateF.nextSetBit(vertexPosition + 1)) {
-                traversalF[vertexPosition].or(sendBufferF[vertexPosition]);
-                traversalF[vertexPosition].set(vertexPosition);
-                sendFailsF[vertexPosition].clear();
-                sendFailsF[vertexPosition].or(sendBufferF[vertexPosition]);
-                sendBufferF[vertexPosition].clear();
-            }
-            for (int vertexPosition = updateB.nextSetBit(0); vertexPosition >= 0; vertexPosition = updateB.nextSetBit(vertexPosition + 1)) {
-                traversalB[vertexPosition].or(sendBufferB[vertexPosition]);
-                traversalB[vertexPosition].set(vertexPosition);
-                sendFailsB[vertexPosition].clear();
-                sendFailsB[vertexPosition].or(sendBufferB[vertexPosition]);
-                sendBufferB[vertexPosition].clear();
-            }
+    private static float[] toScores(final double[] accumulated, final double scale) {
+        final float[] scores = new float[accumulated.length];
+        for (int vxPosition = 0; vxPosition < accumulated.length; vxPosition++) {
+            scores[vxPosition] = (float) (accumulated[vxPosition] * scale);
+        }
+        return scores;
+    }
 
-            // for each neighbour, check if there is any new information it needs to receive
-            for (int vertexPosition = updateF.nextSetBit(0); vertexPosition >= 0; vertexPosition = updateF.nextSetBit(vertexPosition + 1)) {
-                int vertexId = graph.getVertex(vertexPosition);
-
-                for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < graph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
-                    int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                    int neighbourPosition = graph.getVertexPosition(neighbourId);
-
-                    boolean isRequestedDirection = false;
-                    int linkId = graph.getLink(vertexId, neighbourId);
-                    for (int linkEdgePosition = 0; linkEdgePosition < graph.getLinkEdgeCount(linkId); linkEdgePosition++) {
-                        final int edgeId = graph.getLinkEdge(linkId, linkEdgePosition);
-                        final int edgeDirection = graph.getEdgeDirection(edgeId);
-                        isRequestedDirection = (treatUndirectedBidirectional && edgeDirection == GraphConstants.UNDIRECTED)
-                                || (includeConnectionsIn && graph.getEdgeDestinationVertex(edgeId) == neighbourId)
-                                || (includeConnectionsOut && graph.getEdgeSourceVertex(edgeId) == neighbourId);
-                        if (isRequestedDirection) {
-                            break;
-                        }
-                    }
+    private static PathSearch searchFrom(final AdjacencySnapshot adjacency, final int[] sources, final ObjIntConsumer<PathSearch> action) {
+        return IntStream.range(0, sources.length).parallel().collect(
+                () -> new PathSearch(adjacency),
+                (search, index) -> action.accept(search, sources[index]),
+                PathSearch::merge);
+    }
 
-                    if (isRequestedDirection && !traversalF[vertexPosition].equals(traversalF[neighbourPosition])) {
-                        turn.set(neighbourPosition, true);
+    private static float[] computeDistanceScores(final AdjacencySnapshot adjacency, final ScoreType scoreType) {
+        final int[] sources = choosePivots(adjacency.getVertexCount(), null, 0);
+        final PathSearch result = searchFrom(adjacency, sources, (search, source) -> {
+            search.search(source, false);
+            double score = 0;
+            for (int index = 1; index < search.reached; index++) {
+                final int distance = search.distances[search.queue[index]];
+                score = scoreType == ScoreType.ECCENTRICITY ? Math.max(score, distance) : score + distance;
+            }
+            search.scores[source] = score;
+        });
+        return toScores(result.scores, 1);
+    }
 
-                        final BitSet diff = (BitSet) traversalF[vertexPosition].clone();
-                        diff.andNot(traversalF[neighbourPosition]);
-                        sendBufferF[neighbourPosition].or(diff);
-                        sendFailsF[vertexPosition].andNot(diff);
-                        newUpdateF.set(neighbourPosition);
-                    }
-                }
-                for (int neighbourPosition = sendFailsF[vertexPosition].nextSetBit(0); neighbourPosition >= 0; neighbourPosition = sendFailsF[vertexPosition].nextSetBit(neighbourPosition + 1)) {
-                    exclusionsF[neighbourPosition].set(vertexPosition, true);
-                }
-            }
+    private static float[] computeBetweennessScores(final AdjacencySnapshot adjacency, final BitSet targets, final int sampleSize) {
+        final int[] sources = choosePivots(adjacency.getVertexCount(), targets, sampleSize);
+        final int candidateCount = targets == null ? adjacency.getVertexCount() : targets.cardinality();
+        final PathSearch result = searchFrom(adjacency, sources, (search, source) -> {
+            search.search(source, true);
+            search.accumulateDependencies(source, targets);
+        });
+        return toScores(result.scores, sources.length == 0 ? 1 : (double) candidateCount / sources.length);
+    }
 
-            // for each neighbour, check if there is any new information it needs to receive
-            for (int vertexPosition = updateB.nextSetBit(0); vertexPosition >= 0; vertexPosition = updateB.nextSetBit(vertexPosition + 1)) {
-                int vertexId = graph.getVertex(vertexPosition);
-
-                for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < graph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
-                    int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                    int neighbourPosition = graph.getVertexPosition(neighbourId);
-
-                    boolean isOppositeDirection = false;
-                    int linkId = graph.getLink(vertexId, neighbourId);
-                    for (int linkEdgePosition = 0; linkEdgePosition < graph.getLinkEdgeCount(linkId); linkEdgePosition++) {
-                        final int edgeId = graph.getLinkEdge(linkId, linkEdgePosition);
-                        final int edgeDirection = graph.getEdgeDirection(edgeId);
-                        isOppositeDirection = (treatUndirectedBidirectional && edgeDirection == GraphConstants.UNDIRECTED)
-                                || (includeConnectionsIn && graph.getEdgeSourceVertex(edgeId) == neighbourId)
-                                || (includeConnectionsOut && graph.getEdgeDestinationVertex(edgeId) == neighbourId);
-                        if (isOppositeDirection) {
-                            break;
+    private static float[] computeClosenessScores(final AdjacencySnapshot adjacency, final AdjacencySnapshot reverseAdjacency, final boolean undirected,
+            final ScoreType scoreType, final BitSet targets, final int sampleSize) {
+        final int vertexCount = adjacency.getVertexCount();
+        final boolean harmonic = scoreType == ScoreType.HARMONIC_CLOSENESS || scoreType == ScoreType.HARMONIC_FARNESS;
+
+        final float[] scores;
+        if (sampleSize <= 0 || sampleSize >= vertexCount) {
+            // search out from each vertex, summing in the same order as a level by level traversal
+            final PathSearch result = searchFrom(adjacency, choosePivots(vertexCount, null, 0), (search, source) -> {
+                search.search(source, false);
+                final boolean sourceTarget = targets == null || targets.get(source);
+                float score = 0;
+                for (int index = 1; index < search.reached; index++) {
+                    final int vxPosition = search.queue[index];
+                    final int distance = search.distances[vxPosition];
+                    if (harmonic) {
+                        // in an undirected graph every pair is counted from both of its ends
+                        if (targets == null || targets.get(vxPosition)) {
+                            score += 1.0 / distance;
                         }
-                    }
-
-                    if (isOppositeDirection && !traversalB[vertexPosition].equals(traversalB[neighbourPosition])) {
-                        final BitSet diff = (BitSet) traversalB[vertexPosition].clone();
-                        diff.andNot(traversalB[neighbourPosition]);
-                        sendBufferB[neighbourPosition].or(diff);
-                        sendFailsB[vertexPosition].andNot(diff);
-                        newUpdateB.set(neighbourPosition);
+                        if (undirected && sourceTarget) {
+                            score += 1.0 / distance;
+                        }
+                    } else if (targets == null || targets.get(vxPosition)) {
+                        score += distance;
                     }
                 }
-                for (int neighbourPosition = sendFailsB[vertexPosition].nextSetBit(0); neighbourPosition >= 0; neighbourPosition = sendFailsB[vertexPosition].nextSetBit(neighbourPosition + 1)) {
-                    exclusionsB[neighbourPosition].set(vertexPosition, true);
+                search.scores[source] = score;
+            });
+            scores = toScores(result.scores, 1);
+        } else {
+            // estimate from a sample of pivots by searching back to every vertex that reaches each pivot
+            final int[] pivots = choosePivots(vertexCount, null, sampleSize);
+            final PathSearch result = searchFrom(reverseAdjacency, pivots, (search, pivot) -> {
+                search.search(pivot, false);
+                final boolean pivotTarget = targets == null || targets.get(pivot);
+                for (int index = 1; index < search.reached; index++) {
+                    final int vxPosition = search.queue[index];
+                    final int distance = search.distances[vxPosition];
+                    if (harmonic) {
+                        final int ends = (pivotTarget ? 1 : 0) + (undirected && (targets == null || targets.get(vxPosition)) ? 1 : 0);
+                        search.scores[vxPosition] += (double) ends / distance;
+                    } else if (pivotTarget) {
+                        search.scores[vxPosition] += distance;
+                    }
                 }
-            }
-
-            // update scores based on the current traversal state
-            switch (scoreType) {
-                case BETWEENNESS:
-                    updateBetweennessScoresDirected(graph, traversalF, traversalB, scores, sendBufferF, sendBufferB, exclusionsF, exclusionsB, turn, selectedOnly);
-                    break;
-                case CLOSENESS:
-                case FARNESS:
-                    updateFarnessScoresDirected(graph, traversalF, traversalB, scores, sendBufferF, sendBufferB, exclusionsF, exclusionsB, turn, selectedOnly);
-                    break;
-                case HARMONIC_CLOSENESS:
-                case HARMONIC_FARNESS:
-                    updateHarmonicFarnessScoresDirected(graph, traversalF, traversalB, scores, sendBufferF, sendBufferB, exclusionsF, exclusionsB, turn, selectedOnly);
-                    break;
-                default:
-                    throw new IllegalArgumentException(String.format(SCORETYPE_ERROR_FORMAT, scoreType));
-
-            }
-
-            turn.clear();
-
-            updateF.clear();
-            updateF.or(newUpdateF);
-            newUpdateF.clear();
-
-            updateB.clear();
-            updateB.or(newUpdateB);
-            newUpdateB.clear();
-        }
-
-        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            traversalF[vertexPosition].or(traversalB[vertexPosition]);
+            });
+            scores = toScores(result.scores, (double) vertexCount / pivots.length);
         }
 
         // convert farness to closeness by taking the inverse of each score
@@ -690,216 +390,92 @@ public class PathScoringUtilities {
             }
         }
 
-        return Tuple.create(traversalF, scores);
-    }
-
-    private static void updateEccentricityScoresUndirected(final float[] scores, final BitSet turn) {
-        // for each node that has a message in transit, update its eccentricity
-        for (int vxId = turn.nextSetBit(0); vxId >= 0; vxId = turn.nextSetBit(vxId + 1)) {
-            scores[vxId]++;
-        }
-    }
-
-    private static void updateEccentricityScoresDirected(final float[] scores, final BitSet turn) {
-        // for each node that has a message in transit, update its eccentricity
-        for (int vxId = turn.nextSetBit(0); vxId >= 0; vxId = turn.nextSetBit(vxId + 1)) {
-            scores[vxId]++;
-        }
-    }
-
-    private static void updateAveragePathScoresUndirected(final ArrayList<Float> distances, final float[] scores, final BitSet turn, final BitSet[] sendBuffer) {
-        // for each node that has a message in transit, update its eccentricity
-        for (int vxId = turn.nextSetBit(0); vxId >= 0; vxId = turn.nextSetBit(vxId + 1)) {
-            scores[vxId]++;
-            for (int nxId = sendBuffer[vxId].nextSetBit(0); nxId >= 0; nxId = sendBuffer[vxId].nextSetBit(nxId + 1)) {
-                distances.add(scores[vxId]);
-            }
-        }
-    }
-
-    private static void updateAveragePathScoresScoresDirected(final ArrayList<Float> distances, final float[] scores, final BitSet turn, final BitSet[] sendBuffer) {
-        // for each node that has a message in transit, update its eccentricity
-        for (int vxId = turn.nextSetBit(0); vxId >= 0; vxId = turn.nextSetBit(vxId + 1)) {
-            scores[vxId]++;
-            for (int nxId = sendBuffer[vxId].nextSetBit(0); nxId >= 0; nxId = sendBuffer[vxId].nextSetBit(nxId + 1)) {
-                distances.add(scores[vxId]);
-            }
-        }
+        return scores;
     }
 
-    private static void updateBetweennessScoresUndirected(final GraphReadMethods graph, final BitSet[] traversal, final float[] scores,
-            final BitSet[] sendBuffer, final BitSet[] exclusions, final BitSet turn, final boolean selectedOnly) {
-        final int selectedAttribute = VisualConcept.VertexAttribute.SELECTED.get(graph);
-        if (selectedOnly && selectedAttribute == GraphConstants.NOT_FOUND) {
-            throw new ArrayIndexOutOfBoundsException(OUT_OF_BOUNDS_EXCEPTION_STRING);
-        }
-        for (int vertexPosition = turn.nextSetBit(0); vertexPosition >= 0; vertexPosition = turn.nextSetBit(vertexPosition + 1)) {
-            final BitSet diff = (BitSet) sendBuffer[vertexPosition].clone();
-            diff.andNot(traversal[vertexPosition]);
-            for (int newVertexPosition = diff.nextSetBit(0); newVertexPosition >= 0; newVertexPosition = diff.nextSetBit(newVertexPosition + 1)) {
-                if (sendBuffer[vertexPosition].get(newVertexPosition)) {
-                    final boolean vertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(vertexPosition));
-                    final boolean newVertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(newVertexPosition));
-                    if (!selectedOnly || (vertexSelected && newVertexSelected)) {
-                        final BitSet intersection = (BitSet) traversal[newVertexPosition].clone();
-                        intersection.and(traversal[vertexPosition]);
-                        intersection.andNot(sendBuffer[vertexPosition]);
-                        intersection.andNot(sendBuffer[newVertexPosition]);
-                        for (int index = intersection.nextSetBit(0); index >= 0; index = intersection.nextSetBit(index + 1)) {
-                            if (exclusions[vertexPosition].get(index) && exclusions[newVertexPosition].get(index)) {
-                                continue;
-                            }
-                            scores[index]++;
-                        }
+    /**
+     * The state of a single worker: a breadth first search that can be reused
+     * from one source to the next, and the scores it has accumulated.
+     */
+    private static final class PathSearch {
+
+        private final int[] offsets;
+        private final int[] neighbours;
+        private final int[] distances;
+        private final double[] pathCounts;
+        private final double[] dependencies;
+        private final int[] queue;
+        private final double[] scores;
+        private int reached = 0;
+
+        private PathSearch(final AdjacencySnapshot adjacency) {
+            final int vertexCount = adjacency.getVertexCount();
+            this.offsets = adjacency.getOffsets();
+            this.neighbours = adjacency.getNeighbours();
+            this.distances = new int[vertexCount];
+            this.pathCounts = new double[vertexCount];
+            this.dependencies = new double[vertexCount];
+            this.queue = new int[vertexCount];
+            this.scores = new double[vertexCount];
+            Arrays.fill(distances, -1);
+        }
+
+        /**
+         * Search out from a source, leaving the reached vertices in
+         * {@code queue} in order of distance.
+         */
+        private void search(final int source, final boolean countPaths) {
+            for (int index = 0; index < reached; index++) {
+                distances[queue[index]] = -1;
+            }
+
+            distances[source] = 0;
+            pathCounts[source] = 1;
+            queue[0] = source;
+            reached = 1;
+            for (int head = 0; head < reached; head++) {
+                final int vxPosition = queue[head];
+                final int nextDistance = distances[vxPosition] + 1;
+                for (int entry = offsets[vxPosition]; entry < offsets[vxPosition + 1]; entry++) {
+                    final int neighbour = neighbours[entry];
+                    if (distances[neighbour] < 0) {
+                        distances[neighbour] = nextDistance;
+                        pathCounts[neighbour] = 0;
+                        queue[reached++] = neighbour;
                     }
-                }
-            }
-        }
-    }
-
-    private static void updateBetweennessScoresDirected(final GraphReadMethods graph, final BitSet[] traversalF, final BitSet[] traversalB, final float[] scores,
-            final BitSet[] sendBufferF, final BitSet[] sendBufferB, final BitSet[] exclusionsF, final BitSet[] exclusionsB, final BitSet turn, final boolean selectedOnly) {
-        final int selectedAttribute = VisualConcept.VertexAttribute.SELECTED.get(graph);
-        if (selectedOnly && selectedAttribute == GraphConstants.NOT_FOUND) {
-            throw new ArrayIndexOutOfBoundsException(OUT_OF_BOUNDS_EXCEPTION_STRING);
-        }
-        for (int vertexPosition = turn.nextSetBit(0); vertexPosition >= 0; vertexPosition = turn.nextSetBit(vertexPosition + 1)) {
-            final BitSet diff = (BitSet) sendBufferF[vertexPosition].clone();
-            diff.andNot(traversalF[vertexPosition]);
-            for (int newVertexPosition = diff.nextSetBit(0); newVertexPosition >= 0; newVertexPosition = diff.nextSetBit(newVertexPosition + 1)) {
-                if (sendBufferF[vertexPosition].get(newVertexPosition) && sendBufferB[newVertexPosition].get(vertexPosition)) {
-                    final boolean vertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(vertexPosition));
-                    final boolean newVertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(newVertexPosition));
-                    if (!selectedOnly || (vertexSelected && newVertexSelected)) {
-                        final BitSet intersection = (BitSet) traversalB[newVertexPosition].clone();
-                        intersection.and(traversalF[vertexPosition]);
-                        intersection.andNot(sendBufferF[vertexPosition]);
-                        intersection.andNot(sendBufferB[newVertexPosition]);
-                        for (int index = intersection.nextSetBit(0); index >= 0; index = intersection.nextSetBit(index + 1)) {
-                            if (exclusionsB[vertexPosition].get(index) && exclusionsF[newVertexPosition].get(index)) {
-                                continue;
-                            }
-                            scores[index]++;
-                        }
+                    if (countPaths && distances[neighbour] == nextDistance) {
+                        pathCounts[neighbour] += pathCounts[vxPosition];
                     }
                 }
             }
         }
-    }
 
-    private static void updateFarnessScoresUndirected(final GraphReadMethods graph, final BitSet[] traversal, final float[] scores,
-            final BitSet[] sendBuffer, final BitSet[] exclusions, final BitSet turn, final boolean selectedOnly) {
-        final int selectedAttribute = VisualConcept.VertexAttribute.SELECTED.get(graph);
-        if (selectedOnly && selectedAttribute == GraphConstants.NOT_FOUND) {
-            throw new ArrayIndexOutOfBoundsException(OUT_OF_BOUNDS_EXCEPTION_STRING);
-        }
-        for (int vertexPosition = turn.nextSetBit(0); vertexPosition >= 0; vertexPosition = turn.nextSetBit(vertexPosition + 1)) {
-            final BitSet diff = (BitSet) sendBuffer[vertexPosition].clone();
-            diff.andNot(traversal[vertexPosition]);
-            for (int newVertexPosition = diff.nextSetBit(0); newVertexPosition >= 0; newVertexPosition = diff.nextSetBit(newVertexPosition + 1)) {
-                if (sendBuffer[vertexPosition].get(newVertexPosition)) {
-                    final boolean newVertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(newVertexPosition));
-                    if (!selectedOnly || newVertexSelected) {
-                        final BitSet intersection = (BitSet) traversal[newVertexPosition].clone();
-                        intersection.and(traversal[vertexPosition]);
-                        intersection.andNot(sendBuffer[vertexPosition]);
-                        intersection.andNot(sendBuffer[newVertexPosition]);
-                        for (int index = intersection.nextSetBit(0); index >= 0; index = intersection.nextSetBit(index + 1)) {
-                            if (exclusions[vertexPosition].get(index) && exclusions[newVertexPosition].get(index)) {
-                                intersection.set(index, false);
-                            }
-                        }
-                        scores[vertexPosition] += (intersection.cardinality() + 1);
+        /**
+         * Add the dependency of the last source on each vertex to the
+         * betweenness scores, working back from the furthest vertices.
+         */
+        private void accumulateDependencies(final int source, final BitSet targets) {
+            for (int index = reached - 1; index >= 0; index--) {
+                final int vxPosition = queue[index];
+                final int nextDistance = distances[vxPosition] + 1;
+                double dependency = 0;
+                for (int entry = offsets[vxPosition]; entry < offsets[vxPosition + 1]; entry++) {
+                    final int neighbour = neighbours[entry];
+                    if (distances[neighbour] == nextDistance) {
+                        final double ends = targets == null || targets.get(neighbour) ? 1 : 0;
+                        dependency += (pathCounts[vxPosition] / pathCounts[neighbour]) * (ends + dependencies[neighbour]);
                     }
                 }
-            }
-        }
-    }
-
-    private static void updateFarnessScoresDirected(final GraphReadMethods graph, final BitSet[] traversalF, final BitSet[] traversalB, final float[] scores,
-            final BitSet[] sendBufferF, final BitSet[] sendBufferB, final BitSet[] exclusionsF, final BitSet[] exclusionsB, final BitSet turn, final boolean selectedOnly) {
-        final int selectedAttribute = VisualConcept.VertexAttribute.SELECTED.get(graph);
-        if (selectedOnly && selectedAttribute == GraphConstants.NOT_FOUND) {
-            throw new ArrayIndexOutOfBoundsException(OUT_OF_BOUNDS_EXCEPTION_STRING);
-        }
-        for (int vertexPosition = turn.nextSetBit(0); vertexPosition >= 0; vertexPosition = turn.nextSetBit(vertexPosition + 1)) {
-            final BitSet diff = (BitSet) sendBufferF[vertexPosition].clone();
-            diff.andNot(traversalF[vertexPosition]);
-            for (int newVertexPosition = diff.nextSetBit(0); newVertexPosition >= 0; newVertexPosition = diff.nextSetBit(newVertexPosition + 1)) {
-                if (sendBufferF[vertexPosition].get(newVertexPosition) && sendBufferB[newVertexPosition].get(vertexPosition)) {
-                    final boolean newVertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(newVertexPosition));
-                    if (!selectedOnly || newVertexSelected) {
-                        final BitSet intersection = (BitSet) traversalB[newVertexPosition].clone();
-                        intersection.and(traversalF[vertexPosition]);
-                        intersection.andNot(sendBufferF[vertexPosition]);
-                        intersection.andNot(sendBufferB[newVertexPosition]);
-                        for (int index = intersection.nextSetBit(0); index >= 0; index = intersection.nextSetBit(index + 1)) {
-                            if (exclusionsB[vertexPosition].get(index) && exclusionsF[newVertexPosition].get(index)) {
-                                intersection.set(index, false);
-                            }
-                        }
-                        scores[vertexPosition] += (intersection.cardinality() + 1);
-                    }
-                }
-            }
-        }
-    }
-
-    private static void updateHarmonicFarnessScoresUndirected(final GraphReadMethods graph, final BitSet[] traversal, final float[] scores,
-            final BitSet[] sendBuffer, final BitSet[] exclusions, final BitSet turn, final boolean selectedOnly) {
-        final int selectedAttribute = VisualConcept.VertexAttribute.SELECTED.get(graph);
-        if (selectedOnly && selectedAttribute == GraphConstants.NOT_FOUND) {
-            throw new ArrayIndexOutOfBoundsException(OUT_OF_BOUNDS_EXCEPTION_STRING);
-        }
-        for (int vertexPosition = turn.nextSetBit(0); vertexPosition >= 0; vertexPosition = turn.nextSetBit(vertexPosition + 1)) {
-            final BitSet diff = (BitSet) sendBuffer[vertexPosition].clone();
-            diff.andNot(traversal[vertexPosition]);
-            for (int newVertexPosition = diff.nextSetBit(0); newVertexPosition >= 0; newVertexPosition = diff.nextSetBit(newVertexPosition + 1)) {
-                if (sendBuffer[vertexPosition].get(newVertexPosition)) {
-                    final boolean newVertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(newVertexPosition));
-                    if (!selectedOnly || newVertexSelected) {
-                        final BitSet intersection = (BitSet) traversal[newVertexPosition].clone();
-                        intersection.and(traversal[vertexPosition]);
-                        intersection.andNot(sendBuffer[vertexPosition]);
-                        intersection.andNot(sendBuffer[newVertexPosition]);
-                        for (int index = intersection.nextSetBit(0); index >= 0; index = intersection.nextSetBit(index + 1)) {
-                            if (exclusions[vertexPosition].get(index) && exclusions[newVertexPosition].get(index)) {
-                                intersection.set(index, false);
-                            }
-                        }
-                        scores[vertexPosition] += (1.0 / (intersection.cardinality() + 1));
-                        scores[newVertexPosition] += (1.0 / (intersection.cardinality() + 1));
-                    }
+                dependencies[vxPosition] = dependency;
+                if (vxPosition != source) {
+                    scores[vxPosition] += dependency;
                 }
             }
         }
-    }
 
-    private static void updateHarmonicFarnessScoresDirected(final GraphReadMethods graph, final BitSet[] traversalF, final BitSet[] traversalB, final float[] scores,
-            final BitSet[] sendBufferF, final BitSet[] sendBufferB, final BitSet[] exclusionsF, final BitSet[] exclusionsB, final BitSet turn, final boolean selectedOnly) {
-        final int selectedAttribute = VisualConcept.VertexAttribute.SELECTED.get(graph);
-        if (selectedOnly && selectedAttribute == GraphConstants.NOT_FOUND) {
-            throw new ArrayIndexOutOfBoundsException(OUT_OF_BOUNDS_EXCEPTION_STRING);
-        }
-        for (int vertexPosition = turn.nextSetBit(0); vertexPosition >= 0; vertexPosition = turn.nextSetBit(vertexPosition + 1)) {
-            final BitSet diff = (BitSet) sendBufferF[vertexPosition].clone();
-            diff.andNot(traversalF[vertexPosition]);
-            for (int newVertexPosition = diff.nextSetBit(0); newVertexPosition >= 0; newVertexPosition = diff.nextSetBit(newVertexPosition + 1)) {
-                if (sendBufferF[vertexPosition].get(newVertexPosition) && sendBufferB[newVertexPosition].get(vertexPosition)) {
-                    final boolean newVertexSelected = graph.getBooleanValue(selectedAttribute, graph.getVertex(newVertexPosition));
-                    if (!selectedOnly || newVertexSelected) {
-                        final BitSet intersection = (BitSet) traversalB[newVertexPosition].clone();
-                        intersection.and(traversalF[vertexPosition]);
-                        intersection.andNot(sendBufferF[vertexPosition]);
-                        intersection.andNot(sendBufferB[newVertexPosition]);
-                        for (int index = intersection.nextSetBit(0); index >= 0; index = intersection.nextSetBit(index + 1)) {
-                            if (exclusionsB[vertexPosition].get(index) && exclusionsF[newVertexPosition].get(index)) {
-                                intersection.set(index, false);
-                            }
-                        }
-                        scores[vertexPosition] += (1.0 / (intersection.cardinality() + 1));
-                    }
-                }
+        private void merge(final PathSearch other) {
+            for (int vxPosition = 0; vxPosition < scores.length; vxPosition++) {
+                scores[vxPosition] += other.scores[vxPosition];
             }
         }
     }
@@ -24,9 +24,6 @@ import au.gov.asd.tac.constellation.plugins.PluginInfo;
 import au.gov.asd.tac.constellation.plugins.PluginInteraction;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
-import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
-import java.util.BitSet;
-import java.util.HashSet;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -45,24 +42,9 @@ public class ComponentCountPlugin extends SimpleEditPlugin {
     @Override
     public void edit(final GraphWriteMethods graph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException {
 
-        // calculate eccentricities
-        final Tuple<BitSet[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.ECCENTRICITY, true, true, true, false);
-        final BitSet[] subgraphs = scoreResult.getFirst();
-
-        // calculate the maximum eccentricity
-        final HashSet<BitSet> connectedComponents = new HashSet<>();
-        final int vertexCount = graph.getVertexCount();
-        int numComponents = 0;
-        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final BitSet subgraph = subgraphs[vertexPosition];
-            if (subgraph.cardinality() <= 1) {
-                numComponents += 1;
-            } else {
-                connectedComponents.add(subgraph);
-            }
-        }
-
-        numComponents += connectedComponents.size();
+        // calculate the connected components
+        final int[] components = PathScoringUtilities.calculateSubgraphComponents(PathScoringUtilities.createAdjacency(graph, true, true, true), null);
+        final int numComponents = PathScoringUtilities.componentSizes(graph, components, false).length;
 
         // update the graph with number of components values
         final int componentCountAttributeId = COMPONENT_COUNT.ensure(graph);
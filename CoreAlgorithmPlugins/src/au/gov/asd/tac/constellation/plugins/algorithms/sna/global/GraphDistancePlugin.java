@@ -25,7 +25,6 @@ import au.gov.asd.tac.constellation.plugins.PluginInteraction;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
 import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
-import java.util.BitSet;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -47,8 +46,8 @@ public class GraphDistancePlugin extends SimpleEditPlugin {
     public void edit(final GraphWriteMethods graph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException {
 
         // calculate eccentricities
-        final Tuple<BitSet[], float[]> eccResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.ECCENTRICITY, true, true, true, false);
-        final Tuple<BitSet[], float[]> disResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.AVERAGE_DISTANCE, true, true, true, false);
+        final Tuple<int[], float[]> eccResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.ECCENTRICITY, true, true, true, false);
+        final Tuple<int[], float[]> disResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.AVERAGE_DISTANCE, true, true, true, false);
         final float[] ecc = eccResult.getSecond();
         final float[] dis = disResult.getSecond();
 
@@ -16,6 +16,7 @@
 package au.gov.asd.tac.constellation.plugins.algorithms.sna.metrics;
 
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginInfo;
@@ -29,8 +30,6 @@ import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterTyp
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
 import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.HashSet;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -100,32 +99,27 @@ public class ConnectivityDegreePlugin extends SimpleEditPlugin {
         final boolean normalise = parameters.getBooleanValue(NORMALISE);
 
         // calculate eccentricities
-        final Tuple<BitSet[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.ECCENTRICITY, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, false);
-        final BitSet[] subgraphs = scoreResult.getFirst();
+        final Tuple<int[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.ECCENTRICITY, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, false);
+        final int[] components = scoreResult.getFirst();
         final float[] eccentricities = scoreResult.getSecond();
+        final int[] componentSizes = PathScoringUtilities.componentSizes(graph, components, false);
 
         // calculate the number of connected components
-        float maxEccentricity = 0;
-        final HashMap<BitSet, Float> maxEccentricityConnectedComponents = new HashMap<>();
+        final float[] maxEccentricityConnectedComponents = new float[componentSizes.length];
         final int vertexCount = graph.getVertexCount();
         int numComponents = 0;
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final float eccentricity = eccentricities[vertexPosition];
-            final BitSet subgraph = subgraphs[vertexPosition];
-            if (subgraph.cardinality() <= 1) {
-                if (!ignoreSingletons) {
-                    numComponents += 1;
-                }
-            } else if (!maxEccentricityConnectedComponents.containsKey(subgraph)) {
-                maxEccentricityConnectedComponents.put(subgraph, eccentricity);
-                maxEccentricity = Math.max(eccentricity, maxEccentricity);
-            } else {
-                maxEccentricityConnectedComponents.put(subgraph, Math.max(eccentricity, maxEccentricityConnectedComponents.get(subgraph)));
-                maxEccentricity = Math.max(eccentricity, maxEccentricity);
+            final int component = components[vertexPosition];
+            maxEccentricityConnectedComponents[component] = Math.max(eccentricities[vertexPosition], maxEccentricityConnectedComponents[component]);
+        }
+        for (final int componentSize : componentSizes) {
+            if (componentSize > 1 || !ignoreSingletons) {
+                numComponents += 1;
             }
         }
 
-        numComponents += maxEccentricityConnectedComponents.keySet().size();
+        // the adjacency is shared by the searches for components once each vertex is removed
+        final AdjacencySnapshot adjacency = PathScoringUtilities.createAdjacency(graph, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional);
 
         // update the graph with betweenness values
         final int ccAttribute = CONNECTED_COMPONENTS.ensure(graph);
@@ -134,10 +128,10 @@ public class ConnectivityDegreePlugin extends SimpleEditPlugin {
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
             final int vertexId = graph.getVertex(vertexPosition);
             final float eccentricity = eccentricities[vertexPosition];
-            final BitSet subgraph = subgraphs[vertexPosition];
-            graph.setFloatValue(cSizeAttribute, vertexId, subgraph.cardinality());
+            final int component = components[vertexPosition];
+            graph.setFloatValue(cSizeAttribute, vertexId, componentSizes[component]);
             // singleton or singleton with a loop
-            if (subgraph.cardinality() <= 1) {
+            if (componentSizes[component] <= 1) {
                 if (normalise && ignoreSingletons) {
                     graph.setFloatValue(ccAttribute, vertexId, numComponents);
                 } else if (normalise && !ignoreSingletons) {
@@ -146,7 +140,7 @@ public class ConnectivityDegreePlugin extends SimpleEditPlugin {
                     graph.setFloatValue(ccAttribute, vertexId, 0);
                 }
             } // subgraph just two connected nodes
-            else if (subgraph.cardinality() == 2) {
+            else if (componentSizes[component] == 2) {
                 if (normalise && ignoreSingletons) {
                     graph.setFloatValue(ccAttribute, vertexId, numComponents - 1);
                 } else if (normalise && !ignoreSingletons) {
@@ -155,7 +149,7 @@ public class ConnectivityDegreePlugin extends SimpleEditPlugin {
                     graph.setFloatValue(ccAttribute, vertexId, 0);
                 }
             } // if on outskirts of subnetwork, deleting won't lower the number of components
-            else if (eccentricity == maxEccentricityConnectedComponents.get(subgraph) || graph.getVertexNeighbourCount(vertexId) == 1) {
+            else if (eccentricity == maxEccentricityConnectedComponents[component] || graph.getVertexNeighbourCount(vertexId) == 1) {
                 if (normalise) {
                     graph.setFloatValue(ccAttribute, vertexId, numComponents);
                 } else {
@@ -163,9 +157,12 @@ public class ConnectivityDegreePlugin extends SimpleEditPlugin {
                 }
             } // if not on outskirts, will need to calculate how many subgraphs get created if removed
             else {
-                BitSet temp = new BitSet(vertexCount);
-                temp.or(subgraph);
-                temp.set(vertexPosition, false);
+                final BitSet temp = new BitSet(vertexCount);
+                for (int vxPosition = 0; vxPosition < vertexCount; vxPosition++) {
+                    if (components[vxPosition] == component && vxPosition != vertexPosition) {
+                        temp.set(vxPosition);
+                    }
+                }
                 int numPendantNeighbours = 0;
                 for (int neighbourPosition = 0; neighbourPosition < graph.getVertexNeighbourCount(vertexId); neighbourPosition++) {
                     final int nxId = graph.getVertexNeighbour(vertexId, neighbourPosition);
@@ -186,25 +183,25 @@ public class ConnectivityDegreePlugin extends SimpleEditPlugin {
                         graph.setFloatValue(ccAttribute, vertexId, graph.getVertexNeighbourCount(vertexId));
                     }
                 } else {
-                    final BitSet[] newSubgraphs = PathScoringUtilities.calculateSubgraphPaths(graph, temp, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional);
-                    final HashSet<BitSet> subgraphSet = new HashSet<>();
-                    for (int vxPosition = temp.nextSetBit(0); vxPosition >= 0; vxPosition = temp.nextSetBit(vxPosition + 1)) {
-                        if (newSubgraphs[vxPosition].cardinality() > 1) {
-                            subgraphSet.add(newSubgraphs[vxPosition]);
+                    final int[] newComponentSizes = PathScoringUtilities.componentSizes(graph, PathScoringUtilities.calculateSubgraphComponents(adjacency, temp), false);
+                    int newComponentCount = 0;
+                    for (final int newComponentSize : newComponentSizes) {
+                        if (newComponentSize > 1) {
+                            newComponentCount++;
                         }
                     }
-                    if (ignoreSingletons && subgraphSet.size() <= 1 && normalise) {
+                    if (ignoreSingletons && newComponentCount <= 1 && normalise) {
                         graph.setFloatValue(ccAttribute, vertexId, numComponents);
-                    } else if (ignoreSingletons && subgraphSet.size() <= 1 && !normalise) {
+                    } else if (ignoreSingletons && newComponentCount <= 1 && !normalise) {
                         graph.setFloatValue(ccAttribute, vertexId, 0);
                     } else if (ignoreSingletons && normalise) {
-                        graph.setFloatValue(ccAttribute, vertexId, (subgraphSet.size() + numComponents) - 1);
+                        graph.setFloatValue(ccAttribute, vertexId, (newComponentCount + numComponents) - 1);
                     } else if (ignoreSingletons) {
-                        graph.setFloatValue(ccAttribute, vertexId, subgraphSet.size() - 1);
+                        graph.setFloatValue(ccAttribute, vertexId, newComponentCount - 1);
                     } else if (normalise) {
-                        graph.setFloatValue(ccAttribute, vertexId, subgraphSet.size() + numPendantNeighbours + numComponents);
+                        graph.setFloatValue(ccAttribute, vertexId, newComponentCount + numPendantNeighbours + numComponents);
                     } else {
-                        graph.setFloatValue(ccAttribute, vertexId, subgraphSet.size() + numPendantNeighbours);
+                        graph.setFloatValue(ccAttribute, vertexId, newComponentCount + numPendantNeighbours);
                     }
                 }
             }
@@ -28,8 +28,6 @@ import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterTyp
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
 import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
-import java.util.BitSet;
-import java.util.HashMap;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -98,22 +96,18 @@ public class EccentricityPlugin extends SimpleEditPlugin {
         final boolean normaliseConnectedComponents = parameters.getBooleanValue(NORMALISE_CONNECTED_COMPONENTS_PARAMETER_ID);
 
         // calculate eccentricities
-        final Tuple<BitSet[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.ECCENTRICITY, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, false);
-        final BitSet[] subgraphs = scoreResult.getFirst();
+        final Tuple<int[], float[]> scoreResult = PathScoringUtilities.calculateScores(graph, PathScoringUtilities.ScoreType.ECCENTRICITY, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, false);
+        final int[] components = scoreResult.getFirst();
         final float[] eccentricities = scoreResult.getSecond();
 
         // calculate the maximum eccentricity
         float maxEccentricity = 0;
-        final HashMap<BitSet, Float> maxEccentricityConnectedComponents = new HashMap<>();
+        final float[] maxEccentricityConnectedComponents = new float[PathScoringUtilities.componentSizes(graph, components, false).length];
         final int vertexCount = graph.getVertexCount();
         for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
             final float betweenness = eccentricities[vertexPosition];
-            final BitSet subgraph = subgraphs[vertexPosition];
-            if (!maxEccentricityConnectedComponents.containsKey(subgraph)) {
-                maxEccentricityConnectedComponents.put(subgraph, betweenness);
-            } else {
-                maxEccentricityConnectedComponents.put(subgraph, Math.max(betweenness, maxEccentricityConnectedComponents.get(subgraph)));
-            }
+            final int component = components[vertexPosition];
+            maxEccentricityConnectedComponents[component] = Math.max(betweenness, maxEccentricityConnectedComponents[component]);
             maxEccentricity = Math.max(betweenness, maxEccentricity);
         }
 
@@ -123,7 +117,7 @@ public class EccentricityPlugin extends SimpleEditPlugin {
             final int vertexId = graph.getVertex(vertexPosition);
             if (normaliseByAvailable && maxEccentricity > 0) {
                 if (normaliseConnectedComponents) {
-                    final float maxBetweennessConnectedComponent = maxEccentricityConnectedComponents.get(subgraphs[vertexPosition]);
+                    final float maxBetweennessConnectedComponent = maxEccentricityConnectedComponents[components[vertexPosition]];
                     graph.setFloatValue(betweennessAttribute, vertexId, 1 - (eccentricities[vertexPosition] / maxBetweennessConnectedComponent));
                 } else {
                     graph.setFloatValue(betweennessAttribute, vertexId, 1 - (eccentricities[vertexPosition] / maxEccentricity));
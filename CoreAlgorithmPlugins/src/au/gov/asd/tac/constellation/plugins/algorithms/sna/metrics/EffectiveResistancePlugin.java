@@ -19,6 +19,7 @@ import au.gov.asd.tac.constellation.plugins.algorithms.sna.SnaConcept;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
 import au.gov.asd.tac.constellation.plugins.algorithms.MatrixUtilities;
+import au.gov.asd.tac.constellation.plugins.algorithms.SparseMatrix;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginInfo;
 import au.gov.asd.tac.constellation.plugins.PluginInteraction;
@@ -27,7 +28,8 @@ import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
-import org.ejml.simple.SimpleMatrix;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -43,6 +45,8 @@ import org.openide.util.lookup.ServiceProvider;
 public class EffectiveResistancePlugin extends SimpleEditPlugin {
 
     private static final SchemaAttribute EFFECTIVE_RESISTANCE_ATTRIBUTE = SnaConcept.TransactionAttribute.EFFECTIVE_RESISTANCE;
+    private static final double TOLERANCE = 1E-10;
+    private static final int MINIMUM_ITERATIONS = 100;
 
     public static final String WEIGHTED_PARAMETER_ID = PluginParameter.buildId(EffectiveResistancePlugin.class, "weighted");
     public static final String NORMALISE_AVAILABLE_PARAMETER_ID = PluginParameter.buildId(EffectiveResistancePlugin.class, "normalise_available");
@@ -71,28 +75,26 @@ public class EffectiveResistancePlugin extends SimpleEditPlugin {
         final boolean weighted = parameters.getBooleanValue(WEIGHTED_PARAMETER_ID);
         final boolean normaliseByAvailable = parameters.getBooleanValue(NORMALISE_AVAILABLE_PARAMETER_ID);
 
-        final SimpleMatrix iL = MatrixUtilities.inverseLaplacian(graph);
-
+        // the resistance across each link is found by solving a Laplacian
+        // system for that link, rather than inverting the whole Laplacian
+        final SparseMatrix laplacian = MatrixUtilities.sparseLaplacian(graph);
         final int linkCount = graph.getLinkCount();
         final double[] resistances = new double[linkCount];
+        IntStream.range(0, linkCount).parallel().collect(
+                () -> new ResistanceSolver(laplacian),
+                (solver, linkPosition) -> {
+                    final int linkId = graph.getLink(linkPosition);
+                    final int i = graph.getVertexPosition(graph.getLinkLowVertex(linkId));
+                    final int j = graph.getVertexPosition(graph.getLinkHighVertex(linkId));
+                    final double resistance = i == j ? 0 : solver.solve(i, j);
+                    resistances[linkPosition] = weighted ? graph.getLinkTransactionCount(linkId) * resistance : resistance;
+                },
+                (left, right) -> {
+                });
+
         double maxResistance = 0;
         for (int linkPosition = 0; linkPosition < linkCount; linkPosition++) {
-            final int linkId = graph.getLink(linkPosition);
-            final int lowVertexId = graph.getLinkLowVertex(linkId);
-            final int highVertexId = graph.getLinkHighVertex(linkId);
-
-            final int i = graph.getVertexPosition(lowVertexId);
-            final int j = graph.getVertexPosition(highVertexId);
-            final double resistance;
-            if (weighted) {
-                final int linkTransactionCount = graph.getLinkTransactionCount(linkId);
-                resistance = linkTransactionCount * (iL.get(i, i) + iL.get(j, j) - iL.get(i, j) - iL.get(j, i));
-            } else {
-                resistance = iL.get(i, i) + iL.get(j, j) - iL.get(i, j) - iL.get(j, i);
-            }
-
-            resistances[linkPosition] = resistance;
-            maxResistance = Math.max(resistance, maxResistance);
+            maxResistance = Math.max(resistances[linkPosition], maxResistance);
         }
 
         final int effectiveResistanceAttributeId = EFFECTIVE_RESISTANCE_ATTRIBUTE.ensure(graph);
@@ -106,4 +108,36 @@ public class EffectiveResistancePlugin extends SimpleEditPlugin {
             }
         }
     }
+
+    /**
+     * The state of a single worker: a conjugate gradient solver for the
+     * Laplacian and the vectors it works on.
+     */
+    private static final class ResistanceSolver {
+
+        private final SparseMatrix.ConjugateGradientSolver solver;
+        private final double[] current;
+        private final double[] potentials;
+
+        private ResistanceSolver(final SparseMatrix laplacian) {
+            final int vertexCount = laplacian.getSize();
+            this.solver = laplacian.createSolver(TOLERANCE, Math.max(MINIMUM_ITERATIONS, vertexCount));
+            this.current = new double[vertexCount];
+            this.potentials = new double[vertexCount];
+        }
+
+        /**
+         * The potential difference between two vertices when a unit current
+         * flows from one to the other, which is the resistance between them.
+         */
+        private double solve(final int i, final int j) {
+            Arrays.fill(potentials, 0);
+            current[i] = 1;
+            current[j] = -1;
+            solver.solve(current, potentials);
+            current[i] = 0;
+            current[j] = 0;
+            return potentials[i] - potentials[j];
+        }
+    }
 }
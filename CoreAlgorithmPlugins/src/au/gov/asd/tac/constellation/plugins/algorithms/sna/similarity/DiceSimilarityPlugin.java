@@ -16,11 +16,10 @@
 package au.gov.asd.tac.constellation.plugins.algorithms.sna.similarity;
 
 import au.gov.asd.tac.constellation.plugins.algorithms.sna.SnaConcept;
-import au.gov.asd.tac.constellation.graph.GraphConstants;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
 import au.gov.asd.tac.constellation.graph.schema.visual.VisualSchemaPluginRegistry;
-import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginException;
 import au.gov.asd.tac.constellation.plugins.PluginExecution;
@@ -30,13 +29,12 @@ import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.FloatParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.FloatParameterType.FloatParameterValue;
 import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
-import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
 import java.util.BitSet;
-import java.util.HashMap;
-import java.util.Map;
 import org.openide.util.NbBundle;
 import org.openide.util.lookup.ServiceProvider;
 
@@ -57,6 +55,8 @@ public class DiceSimilarityPlugin extends SimpleEditPlugin {
     public static final String INCLUDE_CONNECTIONS_OUT_PARAMETER_ID = PluginParameter.buildId(DiceSimilarityPlugin.class, "include_connections_out");
     public static final String TREAT_UNDIRECTED_BIDIRECTIONAL_PARAMETER_ID = PluginParameter.buildId(DiceSimilarityPlugin.class, "treat_undirected_bidirectional");
     public static final String MINIMUM_COMMON_FEATURES_PARAMETER_ID = PluginParameter.buildId(DiceSimilarityPlugin.class, "minimum_common_features");
+    public static final String MINIMUM_SCORE_PARAMETER_ID = PluginParameter.buildId(DiceSimilarityPlugin.class, "minimum_score");
+    public static final String TOP_K_PARAMETER_ID = PluginParameter.buildId(DiceSimilarityPlugin.class, "top_k");
     public static final String SELECTED_ONLY_PARAMETER_ID = PluginParameter.buildId(DiceSimilarityPlugin.class, "selected_only");
 
     @Override
@@ -88,6 +88,19 @@ public class DiceSimilarityPlugin extends SimpleEditPlugin {
         IntegerParameterType.setMinimum(minCommonFeatures, 1);
         parameters.addParameter(minCommonFeatures);
 
+        final PluginParameter<FloatParameterValue> minimumScoreParameter = FloatParameterType.build(MINIMUM_SCORE_PARAMETER_ID);
+        minimumScoreParameter.setName("Minimum Score");
+        minimumScoreParameter.setDescription("Only add similarities between nodes that score at least this much");
+        minimumScoreParameter.setFloatValue(0f);
+        parameters.addParameter(minimumScoreParameter);
+
+        final PluginParameter<IntegerParameterValue> topKParameter = IntegerParameterType.build(TOP_K_PARAMETER_ID);
+        topKParameter.setName("Most Similar Per Node");
+        topKParameter.setDescription("Only add similarities between each node and this many of the nodes most similar to it, or 0 to add them all");
+        topKParameter.setIntegerValue(0);
+        IntegerParameterType.setMinimum(topKParameter, 0);
+        parameters.addParameter(topKParameter);
+
         final PluginParameter<BooleanParameterValue> selectedOnlyParameter = BooleanParameterType.build(SELECTED_ONLY_PARAMETER_ID);
         selectedOnlyParameter.setName("Selected Only");
         selectedOnlyParameter.setDescription("Calculate using only selected elements");
@@ -103,75 +116,17 @@ public class DiceSimilarityPlugin extends SimpleEditPlugin {
         final boolean includeConnectionsOut = parameters.getBooleanValue(INCLUDE_CONNECTIONS_OUT_PARAMETER_ID);
         final boolean treatUndirectedBidirectional = parameters.getBooleanValue(TREAT_UNDIRECTED_BIDIRECTIONAL_PARAMETER_ID);
         final int minCommonFeatures = parameters.getParameters().get(MINIMUM_COMMON_FEATURES_PARAMETER_ID).getIntegerValue();
+        final float minimumScore = parameters.getFloatValue(MINIMUM_SCORE_PARAMETER_ID);
+        final int topK = parameters.getIntegerValue(TOP_K_PARAMETER_ID);
         final boolean selectedOnly = parameters.getBooleanValue(SELECTED_ONLY_PARAMETER_ID);
 
-        final int vertexSelectedAttributeId = VisualConcept.VertexAttribute.SELECTED.get(graph);
-
-        // map each vertex to its neighbour count
-        final int vertexCount = graph.getVertexCount();
-        final BitSet[] neighbours = new BitSet[vertexCount];
-        final BitSet update = new BitSet(vertexCount);
-        final BitSet selected = new BitSet(vertexCount);
-        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-            final int vertexId = graph.getVertex(vertexPosition);
-            neighbours[vertexPosition] = new BitSet(vertexCount);
-            for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < graph.getVertexNeighbourCount(vertexId); vertexNeighbourPosition++) {
-                final int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
-                final int neighbourPosition = graph.getVertexPosition(neighbourId);
-
-                if (vertexPosition == neighbourPosition) {
-                    continue;
-                }
-
-                final int linkId = graph.getLink(vertexId, neighbourId);
-                for (int linkEdgePosition = 0; linkEdgePosition < graph.getLinkEdgeCount(linkId); linkEdgePosition++) {
-                    final int edgeId = graph.getLinkEdge(linkId, linkEdgePosition);
-                    final int edgeDirection = graph.getEdgeDirection(edgeId);
-                    final boolean isRequestedDirection = (treatUndirectedBidirectional && edgeDirection == GraphConstants.UNDIRECTED
-                            || includeConnectionsIn && graph.getEdgeDestinationVertex(edgeId) == neighbourId
-                            || includeConnectionsOut && graph.getEdgeSourceVertex(edgeId) == neighbourId);
-                    if (isRequestedDirection) {
-                        if (!SimilarityUtilities.checkEdgeTypes(graph, edgeId)) {
-                            continue;
-                        }
-                        neighbours[vertexPosition].set(neighbourPosition, true);
-                        update.set(vertexPosition, true);
-                    }
-                }
-            }
-            final boolean vertexSelected = graph.getBooleanValue(vertexSelectedAttributeId, vertexId);
-            selected.set(vertexPosition, vertexSelected);
-        }
-
-        // calculate dice similarity for every pair of vertices on the graph
-        final Map<Tuple<Integer, Integer>, Float> diceSimilarities = new HashMap<>();
-        for (int vertexOnePosition = update.nextSetBit(0); vertexOnePosition >= 0; vertexOnePosition = update.nextSetBit(vertexOnePosition + 1)) {
-            for (int vertexTwoPosition = update.nextSetBit(0); vertexTwoPosition >= 0; vertexTwoPosition = update.nextSetBit(vertexTwoPosition + 1)) {
-                if (!selectedOnly || (selected.get(vertexOnePosition) || selected.get(vertexTwoPosition))) {
-                    if (vertexOnePosition >= vertexTwoPosition) {
-                        continue;
-                    }
-
-                    final BitSet intersection = (BitSet) neighbours[vertexOnePosition].clone();
-                    intersection.and(neighbours[vertexTwoPosition]);
-                    intersection.set(vertexOnePosition, false);
-                    intersection.set(vertexTwoPosition, false);
-
-                    if (intersection.cardinality() < minCommonFeatures) {
-                        continue;
-                    }
-
-                    final float halfSumDegree = (neighbours[vertexOnePosition].cardinality()
-                            + neighbours[vertexTwoPosition].cardinality()) / 2f;
-
-                    final int vertexOneId = graph.getVertex(vertexOnePosition);
-                    final int vertexTwoId = graph.getVertex(vertexTwoPosition);
-
-                    final float diceSimilarity = halfSumDegree == 0 ? 0f : (float) intersection.cardinality() / halfSumDegree;
-                    diceSimilarities.put(Tuple.create(vertexOneId, vertexTwoId), diceSimilarity);
-                }
-            }
-        }
+        final BitSet selected = SimilarityUtilities.getSelectedVertices(graph);
+        final AdjacencySnapshot neighbours = SimilarityUtilities.createNeighbourSnapshot(graph, includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, false);
+
+        // calculate dice similarity for every pair of vertices sharing a neighbour
+        final SimilarityScores diceSimilarities = SimilarityUtilities.calculateNeighbourSimilarities(neighbours, NeighbourSimilarityMeasure.dice(neighbours),
+                (vertexOnePosition, vertexTwoPosition) -> !selectedOnly || selected.get(vertexOnePosition) || selected.get(vertexTwoPosition),
+                minCommonFeatures, minimumScore, topK);
 
         // update the graph with dice similarity values
         SimilarityUtilities.addScoresToGraph(graph, diceSimilarities, DICE_SIMILARITY_ATTRIBUTE);
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.algorithms.sna.similarity;
+
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
+import java.util.Arrays;
+
+/**
+ * A similarity measure between two vertices which is calculated from the
+ * neighbours they have in common.
+ * <p>
+ * The measure is evaluated by
+ * {@link SimilarityUtilities#calculateNeighbourSimilarities} which visits the
+ * common neighbours of a pair of vertices in ascending order of position,
+ * summing the contribution of each, before asking the measure for the score of
+ * the pair. Vertices are referred to by their position in the snapshot of
+ * neighbours the similarities are calculated from.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+public interface NeighbourSimilarityMeasure {
+
+    /**
+     * The contribution of a single common neighbour to the sum passed to
+     * {@link #score}.
+     *
+     * @param neighbour the position of the common neighbour.
+     * @param firstWeight the weight of the neighbour to the first vertex.
+     * @param secondWeight the weight of the neighbour to the second vertex.
+     * @return the contribution of the neighbour.
+     */
+    default double contribution(final int neighbour, final float firstWeight, final float secondWeight) {
+        return 0;
+    }
+
+    /**
+     * The similarity score of a pair of vertices.
+     *
+     * @param first the position of the first vertex, which is always lower
+     * than the position of the second vertex.
+     * @param second the position of the second vertex.
+     * @param commonNeighbours the number of neighbours the vertices share.
+     * @param sum the sum of the contributions of the common neighbours.
+     * @return the similarity score.
+     */
+    float score(final int first, final int second, final int commonNeighbours, final float sum);
+
+    /**
+     * The number of common neighbours.
+     *
+     * @return the measure.
+     */
+    static NeighbourSimilarityMeasure commonNeighbours() {
+        return (first, second, commonNeighbours, sum) -> commonNeighbours;
+    }
+
+    /**
+     * The number of common neighbours divided by the number of neighbours of
+     * either vertex, excluding the vertices themselves.
+     *
+     * @param neighbours the neighbours of each vertex.
+     * @return the measure.
+     */
+    static NeighbourSimilarityMeasure jaccard(final AdjacencySnapshot neighbours) {
+        return (first, second, commonNeighbours, sum) -> {
+            final int union = neighbours.getDegree(first) + neighbours.getDegree(second) - commonNeighbours
+                    - (isNeighbour(neighbours, first, second) ? 1 : 0)
+                    - (isNeighbour(neighbours, second, first) ? 1 : 0);
+            return union == 0 ? 0f : (float) commonNeighbours / union;
+        };
+    }
+
+    /**
+     * The number of common neighbours divided by the mean number of neighbours
+     * of the two vertices.
+     *
+     * @param neighbours the neighbours of each vertex.
+     * @return the measure.
+     */
+    static NeighbourSimilarityMeasure dice(final AdjacencySnapshot neighbours) {
+        return (first, second, commonNeighbours, sum) -> {
+            final float halfSumDegree = (neighbours.getDegree(first) + neighbours.getDegree(second)) / 2f;
+            return halfSumDegree == 0 ? 0f : commonNeighbours / halfSumDegree;
+        };
+    }
+
+    /**
+     * The cosine of the angle between the weighted neighbour vectors of the two
+     * vertices.
+     *
+     * @param neighbours the weighted neighbours of each vertex.
+     * @return the measure.
+     */
+    static NeighbourSimilarityMeasure cosine(final AdjacencySnapshot neighbours) {
+        final int[] offsets = neighbours.getOffsets();
+        final float[] weights = neighbours.getWeights();
+        final float[] magnitudes = new float[neighbours.getVertexCount()];
+        for (int position = 0; position < magnitudes.length; position++) {
+            float magnitude = 0;
+            for (int entry = offsets[position]; entry < offsets[position + 1]; entry++) {
+                magnitude += Math.pow(weights == null ? 1 : weights[entry], 2);
+            }
+            magnitudes[position] = (float) Math.sqrt(magnitude);
+        }
+
+        return new NeighbourSimilarityMeasure() {
+            @Override
+            public double contribution(final int neighbour, final float firstWeight, final float secondWeight) {
+                return firstWeight * secondWeight;
+            }
+
+            @Override
+            public float score(final int first, final int second, final int commonNeighbours, final float sum) {
+                final float magnitude = magnitudes[first] * magnitudes[second];
+                return magnitude == 0 ? 0 : sum / magnitude;
+            }
+        };
+    }
+
+    /**
+     * The sum over the common neighbours of the inverse logarithm of the
+     * number of neighbours each has in the graph.
+     *
+     * @param graph the graph the neighbours were taken from.
+     * @return the measure.
+     */
+    static NeighbourSimilarityMeasure adamicAdar(final GraphReadMethods graph) {
+        final double[] contributions = new double[graph.getVertexCount()];
+        for (int position = 0; position < contributions.length; position++) {
+            contributions[position] = 1f / Math.log(graph.getVertexNeighbourCount(graph.getVertex(position)));
+        }
+        return summing(contributions);
+    }
+
+    /**
+     * The sum over the common neighbours of the inverse of the number of
+     * neighbours each has in the graph.
+     *
+     * @param graph the graph the neighbours were taken from.
+     * @return the measure.
+     */
+    static NeighbourSimilarityMeasure resourceAllocation(final GraphReadMethods graph) {
+        final double[] contributions = new double[graph.getVertexCount()];
+        for (int position = 0; position < contributions.length; position++) {
+            contributions[position] = 1f / graph.getVertexNeighbourCount(graph.getVertex(position));
+        }
+        return summing(contributions);
+    }
+
+    private static NeighbourSimilarityMeasure summing(final double[] contributions) {
+        return new NeighbourSimilarityMeasure() {
+            @Override
+            public double contribution(final int neighbour, final float firstWeight, final float secondWeight) {
+                return contributions[neighbour];
+            }
+
+            @Override
+            public float score(final int first, final int second, final int commonNeighbours, final float sum) {
+                return sum;
+            }
+        };
+    }
+
+    private static boolean isNeighbour(final AdjacencySnapshot neighbours, final int vertex, final int neighbour) {
+        final int[] offsets = neighbours.getOffsets();
+        return Arrays.binarySearch(neighbours.getNeighbours(), offsets[vertex], offsets[vertex + 1], neighbour) >= 0;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.algorithms.sna.similarity;
+
+/**
+ * The similarity scores of a set of vertex pairs, held in primitive arrays.
+ *
+ * @author agent
+ */
+public class SimilarityScores {
+
+    private final int[] firstVertices;
+    private final int[] secondVertices;
+    private final float[] scores;
+
+    /**
+     * Create a set of similarity scores. The arrays are not copied.
+     *
+     * @param firstVertices the id of the first vertex of each pair.
+     * @param secondVertices the id of the second vertex of each pair.
+     * @param scores the score of each pair.
+     */
+    public SimilarityScores(final int[] firstVertices, final int[] secondVertices, final float[] scores) {
+        assert firstVertices.length == secondVertices.length && firstVertices.length == scores.length;
+        this.firstVertices = firstVertices;
+        this.secondVertices = secondVertices;
+        this.scores = scores;
+    }
+
+    /**
+     * The number of vertex pairs.
+     *
+     * @return the number of vertex pairs.
+     */
+    public int size() {
+        return scores.length;
+    }
+
+    /**
+     * The id of the first vertex of a pair.
+     *
+     * @param index the index of the pair.
+     * @return the id of the first vertex.
+     */
+    public int getFirstVertex(final int index) {
+        return firstVertices[index];
+    }
+
+    /**
+     * The id of the second vertex of a pair.
+     *
+     * @param index the index of the pair.
+     * @return the id of the second vertex.
+     */
+    public int getSecondVertex(final int index) {
+        return secondVertices[index];
+    }
+
+    /**
+     * The similarity score of a pair.
+     *
+     * @param index the index of the pair.
+     * @return the score.
+     */
+    public float getScore(final int index) {
+        return scores[index];
+    }
+}
@@ -16,16 +16,22 @@
 package au.gov.asd.tac.constellation.plugins.algorithms.sna.similarity;
 
 import au.gov.asd.tac.constellation.graph.GraphConstants;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.schema.attribute.SchemaAttribute;
 import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
 import au.gov.asd.tac.constellation.graph.schema.analytic.concept.AnalyticConcept;
+import au.gov.asd.tac.constellation.graph.utilities.AdjacencySnapshot;
 import au.gov.asd.tac.constellation.utilities.datastructure.Tuple;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
- * Utilities for adding similarity scores between vertex pairs to the graph.
+ * Utilities for calculating similarity scores between vertex pairs and adding
+ * them to the graph.
  *
  * @author canis_majoris
  */
@@ -43,32 +49,49 @@ public class SimilarityUtilities {
         final int uniqueIdAttribute = VisualConcept.TransactionAttribute.IDENTIFIER.ensure(graph);
         final int typeAttribute = AnalyticConcept.TransactionAttribute.TYPE.ensure(graph);
         final int similarityAttribute = schemaSimilarityAttribute.ensure(graph);
-        for (final Tuple<Integer, Integer> vertexPair : scores.keySet()) {
-            final int linkId = graph.getLink(vertexPair.getFirst(), vertexPair.getSecond());
-            if (linkId == GraphConstants.NOT_FOUND) {
-                final int transactionId = graph.addTransaction(vertexPair.getFirst(), vertexPair.getSecond(), false);
-                graph.setStringValue(uniqueIdAttribute, transactionId, String.format("%s == similarity == %s", vertexPair.getFirst(), vertexPair.getSecond()));
-                graph.setObjectValue(typeAttribute, transactionId, AnalyticConcept.TransactionType.SIMILARITY);
-                graph.setFloatValue(similarityAttribute, transactionId, scores.get(vertexPair));
-            } else {
-                int similarityTransactionId = GraphConstants.NOT_FOUND;
-                for (int transactionPosition = 0; transactionPosition < graph.getLinkTransactionCount(linkId); transactionPosition++) {
-                    final int transactionId = graph.getLinkTransaction(linkId, transactionPosition);
-                    if (AnalyticConcept.TransactionType.SIMILARITY.equals(graph.getObjectValue(typeAttribute, transactionId))) {
-                        similarityTransactionId = transactionId;
-                        break;
-                    }
-                }
+        for (final Map.Entry<Tuple<Integer, Integer>, Float> score : scores.entrySet()) {
+            addScore(graph, uniqueIdAttribute, typeAttribute, similarityAttribute, score.getKey().getFirst(), score.getKey().getSecond(), score.getValue());
+        }
+    }
 
-                if (similarityTransactionId == GraphConstants.NOT_FOUND) {
-                    similarityTransactionId = graph.addTransaction(vertexPair.getFirst(), vertexPair.getSecond(), false);
-                    graph.setStringValue(uniqueIdAttribute, similarityTransactionId, String.format("%s == similarity == %s", vertexPair.getFirst(), vertexPair.getSecond()));
-                    graph.setObjectValue(typeAttribute, similarityTransactionId, AnalyticConcept.TransactionType.SIMILARITY);
-                }
+    /**
+     * Adds similarity scores to the graph while ensuring there is only ever a
+     * single similarity transactions between any pair of nodes.
+     *
+     * @param graph - graph to add scores to
+     * @param scores - the scores of each vertex pair
+     * @param schemaSimilarityAttribute - similarity schema attribute to change
+     */
+    public static void addScoresToGraph(final GraphWriteMethods graph, final SimilarityScores scores, final SchemaAttribute schemaSimilarityAttribute) {
+        final int uniqueIdAttribute = VisualConcept.TransactionAttribute.IDENTIFIER.ensure(graph);
+        final int typeAttribute = AnalyticConcept.TransactionAttribute.TYPE.ensure(graph);
+        final int similarityAttribute = schemaSimilarityAttribute.ensure(graph);
+        for (int index = 0; index < scores.size(); index++) {
+            addScore(graph, uniqueIdAttribute, typeAttribute, similarityAttribute, scores.getFirstVertex(index), scores.getSecondVertex(index), scores.getScore(index));
+        }
+    }
 
-                graph.setFloatValue(similarityAttribute, similarityTransactionId, scores.get(vertexPair));
+    private static void addScore(final GraphWriteMethods graph, final int uniqueIdAttribute, final int typeAttribute, final int similarityAttribute,
+            final int vertexOne, final int vertexTwo, final float score) {
+        final int linkId = graph.getLink(vertexOne, vertexTwo);
+        int similarityTransactionId = GraphConstants.NOT_FOUND;
+        if (linkId != GraphConstants.NOT_FOUND) {
+            for (int transactionPosition = 0; transactionPosition < graph.getLinkTransactionCount(linkId); transactionPosition++) {
+                final int transactionId = graph.getLinkTransaction(linkId, transactionPosition);
+                if (AnalyticConcept.TransactionType.SIMILARITY.equals(graph.getObjectValue(typeAttribute, transactionId))) {
+                    similarityTransactionId = transactionId;
+                    break;
+                }
             }
         }
+
+        if (similarityTransactionId == GraphConstants.NOT_FOUND) {
+            similarityTransactionId = graph.addTransaction(vertexOne, vertexTwo, false);
+            graph.setStringValue(uniqueIdAttribute, similarityTransactionId, String.format("%s == similarity == %s", vertexOne, vertexTwo));
+            graph.setObjectValue(typeAttribute, similarityTransactionId, AnalyticConcept.TransactionType.SIMILARITY);
+        }
+
+        graph.setFloatValue(similarityAttribute, similarityTransactionId, score);
     }
 
     /**
@@ -166,4 +189,373 @@ public class SimilarityUtilities {
         }
         return found;
     }
+
+    /**
+     * Decides whether the similarity of a pair of vertices should be
+     * calculated.
+     */
+    @FunctionalInterface
+    public interface VertexPairFilter {
+
+        /**
+         * Whether to calculate the similarity of a pair of vertices.
+         *
+         * @param first the position of the first vertex, which is always lower
+         * than the position of the second vertex.
+         * @param second the position of the second vertex.
+         * @return true if the similarity of the pair should be calculated.
+         */
+        boolean accept(final int first, final int second);
+    }
+
+    /**
+     * Gets the positions of the selected vertices of a graph.
+     *
+     * @param graph the graph
+     * @return the positions of the selected vertices
+     */
+    public static BitSet getSelectedVertices(final GraphReadMethods graph) {
+        final int vertexSelectedAttributeId = VisualConcept.VertexAttribute.SELECTED.get(graph);
+        final BitSet selected = new BitSet(graph.getVertexCount());
+        if (vertexSelectedAttributeId != GraphConstants.NOT_FOUND) {
+            for (int vertexPosition = 0; vertexPosition < graph.getVertexCount(); vertexPosition++) {
+                selected.set(vertexPosition, graph.getBooleanValue(vertexSelectedAttributeId, graph.getVertex(vertexPosition)));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Takes a snapshot of the neighbours of each vertex to calculate similarity
+     * from. A neighbour is included when an edge to it runs in a requested
+     * direction and, unless the snapshot is weighted, carries a transaction
+     * which is not itself a similarity transaction. Loops are never included.
+     *
+     * @param graph the graph
+     * @param includeConnectionsIn whether to include incoming connections
+     * @param includeConnectionsOut whether to include outgoing connections
+     * @param treatUndirectedBidirectional whether to include undirected
+     * connections
+     * @param weighted if true, each neighbour is weighted by the number of
+     * non-similarity transactions leading to it; otherwise the snapshot is
+     * unweighted
+     * @return the neighbours of each vertex
+     */
+    public static AdjacencySnapshot createNeighbourSnapshot(final GraphReadMethods graph, final boolean includeConnectionsIn, final boolean includeConnectionsOut,
+            final boolean treatUndirectedBidirectional, final boolean weighted) {
+        final int typeAttribute = AnalyticConcept.TransactionAttribute.TYPE.get(graph);
+        final int vertexCount = graph.getVertexCount();
+        final int[] vertices = new int[vertexCount];
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            vertices[vertexPosition] = graph.getVertex(vertexPosition);
+        }
+
+        final long[][] rows = new long[vertexCount][];
+        IntStream.range(0, vertexCount).parallel().forEach(vertexPosition -> rows[vertexPosition] = getNeighbourEntries(graph, typeAttribute,
+                vertices[vertexPosition], includeConnectionsIn, includeConnectionsOut, treatUndirectedBidirectional, weighted));
+
+        final int[] offsets = new int[vertexCount + 1];
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            offsets[vertexPosition + 1] = offsets[vertexPosition] + rows[vertexPosition].length;
+        }
+
+        final int[] neighbours = new int[offsets[vertexCount]];
+        final float[] weights = weighted ? new float[neighbours.length] : null;
+        IntStream.range(0, vertexCount).parallel().forEach(vertexPosition -> {
+            final long[] row = rows[vertexPosition];
+            for (int index = 0; index < row.length; index++) {
+                neighbours[offsets[vertexPosition] + index] = (int) (row[index] >>> 32);
+                if (weights != null) {
+                    weights[offsets[vertexPosition] + index] = (int) row[index];
+                }
+            }
+        });
+
+        return new AdjacencySnapshot(vertices, offsets, neighbours, weights);
+    }
+
+    /**
+     * The neighbours of a vertex, each packed with its weight into a long so
+     * that sorting them orders the neighbours by position.
+     */
+    private static long[] getNeighbourEntries(final GraphReadMethods graph, final int typeAttribute, final int vertexId,
+            final boolean includeConnectionsIn, final boolean includeConnectionsOut, final boolean treatUndirectedBidirectional, final boolean weighted) {
+        final int vertexPosition = graph.getVertexPosition(vertexId);
+        final long[] entries = new long[graph.getVertexNeighbourCount(vertexId)];
+        int entryCount = 0;
+        for (int vertexNeighbourPosition = 0; vertexNeighbourPosition < entries.length; vertexNeighbourPosition++) {
+            final int neighbourId = graph.getVertexNeighbour(vertexId, vertexNeighbourPosition);
+            final int neighbourPosition = graph.getVertexPosition(neighbourId);
+
+            if (vertexPosition == neighbourPosition) {
+                continue;
+            }
+
+            boolean isNeighbour = false;
+            int weight = 0;
+            final int linkId = graph.getLink(vertexId, neighbourId);
+            for (int linkEdgePosition = 0; linkEdgePosition < graph.getLinkEdgeCount(linkId); linkEdgePosition++) {
+                final int edgeId = graph.getLinkEdge(linkId, linkEdgePosition);
+                final int edgeDirection = graph.getEdgeDirection(edgeId);
+                final boolean isRequestedDirection = (treatUndirectedBidirectional && edgeDirection == GraphConstants.UNDIRECTED
+                        || includeConnectionsIn && graph.getEdgeDestinationVertex(edgeId) == neighbourId
+                        || includeConnectionsOut && graph.getEdgeSourceVertex(edgeId) == neighbourId);
+                if (isRequestedDirection) {
+                    final int transactionCount = graph.getEdgeTransactionCount(edgeId);
+                    final int similarityCount = countEdgeSimilarityTransactions(graph, typeAttribute, edgeId);
+                    if (weighted) {
+                        weight += transactionCount - similarityCount;
+                        isNeighbour = true;
+                    } else if (similarityCount < transactionCount) {
+                        isNeighbour = true;
+                    }
+                }
+            }
+
+            if (isNeighbour) {
+                entries[entryCount++] = ((long) neighbourPosition << 32) | (weight & 0xFFFFFFFFL);
+            }
+        }
+
+        Arrays.sort(entries, 0, entryCount);
+        return Arrays.copyOf(entries, entryCount);
+    }
+
+    private static int countEdgeSimilarityTransactions(final GraphReadMethods graph, final int typeAttribute, final int edgeId) {
+        if (typeAttribute == GraphConstants.NOT_FOUND) {
+            return 0;
+        }
+        int found = 0;
+        for (int transactionPosition = 0; transactionPosition < graph.getEdgeTransactionCount(edgeId); transactionPosition++) {
+            final int transactionId = graph.getEdgeTransaction(edgeId, transactionPosition);
+            if (AnalyticConcept.TransactionType.SIMILARITY.equals(graph.getObjectValue(typeAttribute, transactionId))) {
+                found += 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Calculates the similarity of every pair of vertices which share at least
+     * one neighbour.
+     * <p>
+     * Rather than comparing every pair of vertices, each vertex walks to its
+     * neighbours and back out to the other vertices they are neighbours of, so
+     * only pairs with a neighbour in common are ever visited. Vertices are
+     * processed in parallel and the results are returned in primitive arrays.
+     * <p>
+     * If topK is positive, only the topK highest scoring partners of each
+     * vertex are kept, and a pair is returned if either vertex is among the
+     * topK partners of the other, which bounds the number of pairs returned to
+     * topK for each vertex.
+     *
+     * @param neighbours the neighbours of each vertex
+     * @param measure the similarity measure
+     * @param filter which pairs of vertices to calculate
+     * @param minCommonNeighbours the number of neighbours a pair of vertices
+     * must share to be scored
+     * @param minimumScore the score a pair of vertices must reach to be
+     * returned
+     * @param topK the number of partners to keep for each vertex, or 0 to keep
+     * them all
+     * @return the scores of each pair of vertices, identified by vertex id
+     */
+    public static SimilarityScores calculateNeighbourSimilarities(final AdjacencySnapshot neighbours, final NeighbourSimilarityMeasure measure, final VertexPairFilter filter,
+            final int minCommonNeighbours, final float minimumScore, final int topK) {
+        final int vertexCount = neighbours.getVertexCount();
+        final AdjacencySnapshot transpose = transpose(neighbours);
+
+        // score the partners of each vertex, which are all partners if keeping
+        // the top k, and otherwise only those with a higher position
+        final int[][] partners = new int[vertexCount][];
+        final float[][] partnerScores = new float[vertexCount][];
+        IntStream.range(0, vertexCount).parallel().collect(
+                () -> new WedgeJoin(neighbours, transpose),
+                (join, vertexPosition) -> join.join(vertexPosition, measure, filter, minCommonNeighbours, minimumScore, topK, partners, partnerScores),
+                (left, right) -> {
+                });
+
+        // each pair is reported once, from its lowest vertex unless only the
+        // highest vertex kept it
+        int pairCount = 0;
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            for (int index = 0; index < partners[vertexPosition].length; index++) {
+                if (isReported(partners, vertexPosition, partners[vertexPosition][index])) {
+                    pairCount++;
+                }
+            }
+        }
+
+        final int[] firstVertices = new int[pairCount];
+        final int[] secondVertices = new int[pairCount];
+        final float[] scores = new float[pairCount];
+        int pair = 0;
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            for (int index = 0; index < partners[vertexPosition].length; index++) {
+                final int partnerPosition = partners[vertexPosition][index];
+                if (isReported(partners, vertexPosition, partnerPosition)) {
+                    firstVertices[pair] = neighbours.getVertex(Math.min(vertexPosition, partnerPosition));
+                    secondVertices[pair] = neighbours.getVertex(Math.max(vertexPosition, partnerPosition));
+                    scores[pair] = partnerScores[vertexPosition][index];
+                    pair++;
+                }
+            }
+        }
+
+        return new SimilarityScores(firstVertices, secondVertices, scores);
+    }
+
+    private static boolean isReported(final int[][] partners, final int vertexPosition, final int partnerPosition) {
+        return vertexPosition < partnerPosition || Arrays.binarySearch(partners[partnerPosition], vertexPosition) < 0;
+    }
+
+    /**
+     * The snapshot in which each vertex lists the vertices it is a neighbour
+     * of, sorted by position.
+     */
+    private static AdjacencySnapshot transpose(final AdjacencySnapshot snapshot) {
+        final int vertexCount = snapshot.getVertexCount();
+        final int[] offsets = snapshot.getOffsets();
+        final int[] neighbours = snapshot.getNeighbours();
+        final float[] weights = snapshot.getWeights();
+
+        final int[] vertices = new int[vertexCount];
+        final int[] transposeOffsets = new int[vertexCount + 1];
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            vertices[vertexPosition] = snapshot.getVertex(vertexPosition);
+        }
+        for (final int neighbour : neighbours) {
+            transposeOffsets[neighbour + 1]++;
+        }
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            transposeOffsets[vertexPosition + 1] += transposeOffsets[vertexPosition];
+        }
+
+        final int[] next = Arrays.copyOf(transposeOffsets, vertexCount);
+        final int[] transposeNeighbours = new int[neighbours.length];
+        final float[] transposeWeights = weights == null ? null : new float[weights.length];
+        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
+            for (int entry = offsets[vertexPosition]; entry < offsets[vertexPosition + 1]; entry++) {
+                final int transposeEntry = next[neighbours[entry]]++;
+                transposeNeighbours[transposeEntry] = vertexPosition;
+                if (weights != null) {
+                    transposeWeights[transposeEntry] = weights[entry];
+                }
+            }
+        }
+
+        return new AdjacencySnapshot(vertices, transposeOffsets, transposeNeighbours, transposeWeights);
+    }
+
+    /**
+     * The state of a single worker: the common neighbour counts and sums of
+     * the partners of the current vertex, and the partners that have been
+     * touched so they can be reset for the next vertex.
+     */
+    private static final class WedgeJoin {
+
+        private final int[] offsets;
+        private final int[] neighbours;
+        private final float[] weights;
+        private final int[] transposeOffsets;
+        private final int[] transposeNeighbours;
+        private final float[] transposeWeights;
+        private final int[] counts;
+        private final float[] sums;
+        private final int[] touched;
+        private final int[] candidates;
+        private final float[] candidateScores;
+
+        private WedgeJoin(final AdjacencySnapshot snapshot, final AdjacencySnapshot transpose) {
+            final int vertexCount = snapshot.getVertexCount();
+            this.offsets = snapshot.getOffsets();
+            this.neighbours = snapshot.getNeighbours();
+            this.weights = snapshot.getWeights();
+            this.transposeOffsets = transpose.getOffsets();
+            this.transposeNeighbours = transpose.getNeighbours();
+            this.transposeWeights = transpose.getWeights();
+            this.counts = new int[vertexCount];
+            this.sums = new float[vertexCount];
+            this.touched = new int[vertexCount];
+            this.candidates = new int[vertexCount];
+            this.candidateScores = new float[vertexCount];
+        }
+
+        private void join(final int vertexPosition, final NeighbourSimilarityMeasure measure, final VertexPairFilter filter,
+                final int minCommonNeighbours, final float minimumScore, final int topK, final int[][] partners, final float[][] partnerScores) {
+            // common neighbours are visited in ascending order, so every sum
+            // is accumulated in the same order regardless of which vertex of
+            // the pair it is calculated from
+            int touchedCount = 0;
+            for (int entry = offsets[vertexPosition]; entry < offsets[vertexPosition + 1]; entry++) {
+                final int neighbour = neighbours[entry];
+                final float weight = weights == null ? 1 : weights[entry];
+                for (int transposeEntry = transposeOffsets[neighbour]; transposeEntry < transposeOffsets[neighbour + 1]; transposeEntry++) {
+                    final int partner = transposeNeighbours[transposeEntry];
+                    if (partner == vertexPosition || topK <= 0 && partner < vertexPosition) {
+                        continue;
+                    }
+
+                    final float partnerWeight = transposeWeights == null ? 1 : transposeWeights[transposeEntry];
+                    final double contribution = vertexPosition < partner
+                            ? measure.contribution(neighbour, weight, partnerWeight)
+                            : measure.contribution(neighbour, partnerWeight, weight);
+                    if (counts[partner] == 0) {
+                        touched[touchedCount++] = partner;
+                    }
+                    counts[partner]++;
+                    sums[partner] = (float) (sums[partner] + contribution);
+                }
+            }
+
+            Arrays.sort(touched, 0, touchedCount);
+            int candidateCount = 0;
+            for (int index = 0; index < touchedCount; index++) {
+                final int partner = touched[index];
+                final int commonNeighbours = counts[partner];
+                final float sum = sums[partner];
+                counts[partner] = 0;
+                sums[partner] = 0;
+
+                final int first = Math.min(vertexPosition, partner);
+                final int second = Math.max(vertexPosition, partner);
+                if (commonNeighbours < minCommonNeighbours || !filter.accept(first, second)) {
+                    continue;
+                }
+
+                final float score = measure.score(first, second, commonNeighbours, sum);
+                if (score >= minimumScore) {
+                    candidates[candidateCount] = partner;
+                    candidateScores[candidateCount] = score;
+                    candidateCount++;
+                }
+            }
+
+            if (topK > 0 && candidateCount > topK) {
+                // rank the candidates by descending score, then by position
+                final long[] ranks = new long[candidateCount];
+                for (int index = 0; index < candidateCount; index++) {
+                    final int bits = Float.floatToIntBits(candidateScores[index]);
+                    ranks[index] = ((long) ~(bits ^ ((bits >> 31) & 0x7FFFFFFF)) << 32) | index;
+                }
+                Arrays.sort(ranks);
+
+                final int[] kept = new int[topK];
+                for (int index = 0; index < topK; index++) {
+                    kept[index] = (int) ranks[index];
+                }
+                Arrays.sort(kept);
+
+                partners[vertexPosition] = new int[topK];
+                partnerScores[vertexPosition] = new float[topK];
+                for (int index = 0; index < topK; index++) {
+                    partners[vertexPosition][index] = candidates[kept[index]];
+                    partnerScores[vertexPosition][index] = candidateScores[kept[index]];
+                }
+            } else {
+                partners[vertexPosition] = Arrays.copyOf(candidates, candidateCount);
+                partnerScores[vertexPosition] = Arrays.copyOf(candidateScores, candidateCount);
+            }
+        }
+    }
 }
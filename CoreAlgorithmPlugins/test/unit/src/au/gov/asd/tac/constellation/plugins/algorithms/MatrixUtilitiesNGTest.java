@@ -21,6 +21,7 @@ import au.gov.asd.tac.constellation.graph.schema.Schema;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactoryUtilities;
 import au.gov.asd.tac.constellation.graph.schema.analytic.AnalyticSchemaFactory;
 import org.ejml.simple.SimpleMatrix;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
@@ -168,6 +169,37 @@ public class MatrixUtilitiesNGTest {
         assertTrue(isEqual(result, expResult, 1E-3));
     }
 
+    /**
+     * Test of sparseLaplacian method, of class MatrixUtilities.
+     */
+    @Test
+    public void testSparseLaplacian() {
+        final SimpleMatrix expResult = MatrixUtilities.laplacian(graph);
+        final SparseMatrix result = MatrixUtilities.sparseLaplacian(graph);
+        assertEquals(result.getSize(), 5);
+        assertEquals(result.getEntryCount(), 15);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                assertEquals(result.get(i, j), expResult.get(i, j), 1E-9);
+            }
+        }
+    }
+
+    /**
+     * Test of the conjugate gradient solver of SparseMatrix, which should agree
+     * with the inverse Laplacian when the potentials sum to zero.
+     */
+    @Test
+    public void testSparseLaplacianSolve() {
+        final SimpleMatrix inverse = MatrixUtilities.inverseLaplacian(graph);
+        final SparseMatrix laplacian = MatrixUtilities.sparseLaplacian(graph);
+        final double[] current = {1, 0, 0, 0, -1};
+        final double[] potentials = new double[5];
+        laplacian.createSolver(1E-10, 100).solve(current, potentials);
+        assertEquals(potentials[0] - potentials[4],
+                inverse.get(0, 0) + inverse.get(4, 4) - 2 * inverse.get(0, 4), 1E-6);
+    }
+
     /**
      * Test of getInverseLaplacianMatrix method, of class MatrixUtilities.
      */
@@ -382,4 +382,111 @@ public class DijkstraServicesNGTest {
         assertFalse(graph.getBooleanValue(selectedTransactionAttr, tx4));
         assertFalse(graph.getBooleanValue(selectedTransactionAttr, tx5));
     }
+
+    /**
+     * Test of queryPaths method, of class DijkstraServices, selects every
+     * shortest path when there is more than one.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testQueryPathsWithNoDirectionMultiplePaths() throws Exception {
+        final int vx0, vx1, vx2, vx3, vx4, tx0, tx1, tx2, tx3, tx4, tx5;
+        final int selectedVertexAttr, selectedTransactionAttr;
+
+        selectedVertexAttr = VisualConcept.VertexAttribute.SELECTED.ensure(graph);
+        selectedTransactionAttr = VisualConcept.TransactionAttribute.SELECTED.ensure(graph);
+
+        // Add 5 vertices
+        vx0 = graph.addVertex();
+        vx1 = graph.addVertex();
+        vx2 = graph.addVertex();
+        vx3 = graph.addVertex();
+        vx4 = graph.addVertex();
+
+        // create two paths of length 2 and one of length 3 between vx0 and vx3
+        tx0 = graph.addTransaction(vx0, vx1, true);
+        tx1 = graph.addTransaction(vx1, vx3, true);
+        tx2 = graph.addTransaction(vx3, vx2, true);
+        tx3 = graph.addTransaction(vx2, vx0, false);
+        tx4 = graph.addTransaction(vx0, vx4, true);
+        tx5 = graph.addTransaction(vx4, vx1, true);
+
+        // make the selection
+        graph.setBooleanValue(selectedVertexAttr, vx0, true);
+        graph.setBooleanValue(selectedVertexAttr, vx3, true);
+
+        final List<Integer> selectedNodes = new ArrayList<>();
+        selectedNodes.add(vx0);
+        selectedNodes.add(vx3);
+
+        boolean deselectCurrent = true;
+        final DijkstraServices instance = new DijkstraServices(graph, selectedNodes, false);
+        instance.queryPaths(deselectCurrent);
+
+        // selected
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx0));
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx1));
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx2));
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx3));
+        assertTrue(graph.getBooleanValue(selectedTransactionAttr, tx0));
+        assertTrue(graph.getBooleanValue(selectedTransactionAttr, tx1));
+        assertTrue(graph.getBooleanValue(selectedTransactionAttr, tx2));
+        assertTrue(graph.getBooleanValue(selectedTransactionAttr, tx3));
+
+        // deselected
+        assertFalse(graph.getBooleanValue(selectedVertexAttr, vx4));
+        assertFalse(graph.getBooleanValue(selectedTransactionAttr, tx4));
+        assertFalse(graph.getBooleanValue(selectedTransactionAttr, tx5));
+    }
+
+    /**
+     * Test of queryPaths method, of class DijkstraServices, finds the paths
+     * between every pair of selected vertices.
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testQueryPathsWithNoDirectionAllPairs() throws Exception {
+        final int vx0, vx1, vx2, vx3, vx4, tx0, tx1, tx2, tx3;
+        final int selectedVertexAttr, selectedTransactionAttr;
+
+        selectedVertexAttr = VisualConcept.VertexAttribute.SELECTED.ensure(graph);
+        selectedTransactionAttr = VisualConcept.TransactionAttribute.SELECTED.ensure(graph);
+
+        // Add 5 vertices
+        vx0 = graph.addVertex();
+        vx1 = graph.addVertex();
+        vx2 = graph.addVertex();
+        vx3 = graph.addVertex();
+        vx4 = graph.addVertex();
+
+        // create a star around vx1 with a spur from vx3 to vx4
+        tx0 = graph.addTransaction(vx0, vx1, true);
+        tx1 = graph.addTransaction(vx2, vx1, true);
+        tx2 = graph.addTransaction(vx1, vx3, true);
+        tx3 = graph.addTransaction(vx3, vx4, true);
+
+        final List<Integer> selectedNodes = new ArrayList<>();
+        selectedNodes.add(vx0);
+        selectedNodes.add(vx2);
+        selectedNodes.add(vx3);
+
+        boolean deselectCurrent = true;
+        final DijkstraServices instance = new DijkstraServices(graph, selectedNodes, false);
+        instance.queryPaths(deselectCurrent);
+
+        // selected
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx0));
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx1));
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx2));
+        assertTrue(graph.getBooleanValue(selectedVertexAttr, vx3));
+        assertTrue(graph.getBooleanValue(selectedTransactionAttr, tx0));
+        assertTrue(graph.getBooleanValue(selectedTransactionAttr, tx1));
+        assertTrue(graph.getBooleanValue(selectedTransactionAttr, tx2));
+
+        // deselected
+        assertFalse(graph.getBooleanValue(selectedVertexAttr, vx4));
+        assertFalse(graph.getBooleanValue(selectedTransactionAttr, tx3));
+    }
 }
@@ -162,4 +162,33 @@ public class BetweennessCentralityPluginNGTest {
         assertEquals(graph.getFloatValue(vertexBetweennessAttribute, vxId3), 6f / 6f);
         assertEquals(graph.getFloatValue(vertexBetweennessAttribute, vxId4), 0f / 6f);
     }
+
+    @Test
+    public void testSampledUndirectedBetweenness() throws Exception {
+        final BetweennessCentralityPlugin instance = new BetweennessCentralityPlugin();
+        final PluginParameters parameters = instance.createParameters();
+        parameters.setBooleanValue(BetweennessCentralityPlugin.INCLUDE_CONNECTIONS_IN_PARAMETER_ID, true);
+        parameters.setBooleanValue(BetweennessCentralityPlugin.INCLUDE_CONNECTIONS_OUT_PARAMETER_ID, true);
+        parameters.setBooleanValue(BetweennessCentralityPlugin.TREAT_UNDIRECTED_BIDIRECTIONAL, true);
+        parameters.setBooleanValue(BetweennessCentralityPlugin.NORMALISE_AVAILABLE_PARAMETER_ID, false);
+        parameters.setBooleanValue(BetweennessCentralityPlugin.NORMALISE_POSSIBLE_PARAMETER_ID, false);
+        parameters.setBooleanValue(BetweennessCentralityPlugin.NORMALISE_CONNECTED_COMPONENTS_PARAMETER_ID, false);
+        parameters.setBooleanValue(BetweennessCentralityPlugin.SELECTED_ONLY_PARAMETER_ID, false);
+        parameters.setIntegerValue(BetweennessCentralityPlugin.SAMPLE_SIZE_PARAMETER_ID, 1);
+        PluginExecution.withPlugin(instance).withParameters(parameters).executeNow(graph);
+
+        // a single pivot is scaled up to the whole graph, so every score is a multiple of the number of vertices
+        final float[] betweennesses = {
+            graph.getFloatValue(vertexBetweennessAttribute, vxId0),
+            graph.getFloatValue(vertexBetweennessAttribute, vxId1),
+            graph.getFloatValue(vertexBetweennessAttribute, vxId2),
+            graph.getFloatValue(vertexBetweennessAttribute, vxId3),
+            graph.getFloatValue(vertexBetweennessAttribute, vxId4)
+        };
+        assertEquals(betweennesses[0], 0f);
+        assertEquals(betweennesses[2], 0f);
+        assertEquals(betweennesses[4], 0f);
+        assertEquals(betweennesses[1] % 5f, 0f);
+        assertEquals(betweennesses[3] % 5f, 0f);
+    }
 }
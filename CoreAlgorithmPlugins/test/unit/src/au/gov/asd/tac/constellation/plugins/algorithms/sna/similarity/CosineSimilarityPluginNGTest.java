@@ -107,8 +107,8 @@ public class CosineSimilarityPluginNGTest {
         parameters.setBooleanValue(CosineSimilarityPlugin.SELECTED_ONLY_PARAMETER_ID, false);
         PluginExecution.withPlugin(instance).withParameters(parameters).executeNow(graph);
 
-        assertEquals(graph.getFloatValue(transactionCosineAttribute, 5), 0.4082483f);
-        assertEquals(graph.getFloatValue(transactionCosineAttribute, 6), 0.70710677f);
-        assertEquals(graph.getFloatValue(transactionCosineAttribute, 7), 0.33333334f);
+        assertEquals(graph.getFloatValue(transactionCosineAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId2, vxId3)), 0.4082483f);
+        assertEquals(graph.getFloatValue(transactionCosineAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId0, vxId2)), 0.70710677f);
+        assertEquals(graph.getFloatValue(transactionCosineAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId1, vxId3)), 0.33333334f);
     }
 }
@@ -106,8 +106,8 @@ public class DiceSimilarityPluginNGTest {
         parameters.setBooleanValue(DiceSimilarityPlugin.SELECTED_ONLY_PARAMETER_ID, false);
         PluginExecution.withPlugin(instance).withParameters(parameters).executeNow(graph);
 
-        assertEquals(graph.getFloatValue(transactionDiceAttribute, 5), 0.4f);
-        assertEquals(graph.getFloatValue(transactionDiceAttribute, 6), 0.66666667f);
-        assertEquals(graph.getFloatValue(transactionDiceAttribute, 7), 0.33333334f);
+        assertEquals(graph.getFloatValue(transactionDiceAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId2, vxId3)), 0.4f);
+        assertEquals(graph.getFloatValue(transactionDiceAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId0, vxId2)), 0.66666667f);
+        assertEquals(graph.getFloatValue(transactionDiceAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId1, vxId3)), 0.33333334f);
     }
 }
@@ -16,6 +16,7 @@
 package au.gov.asd.tac.constellation.plugins.algorithms.sna.similarity;
 
 import au.gov.asd.tac.constellation.plugins.algorithms.sna.SnaConcept;
+import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.StoreGraph;
 import au.gov.asd.tac.constellation.graph.schema.Schema;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactoryUtilities;
@@ -107,8 +108,41 @@ public class JaccardIndexPluginNGTest {
         parameters.setBooleanValue(JaccardIndexPlugin.SELECTED_ONLY_PARAMETER_ID, false);
         PluginExecution.withPlugin(instance).withParameters(parameters).executeNow(graph);
 
-        assertEquals(graph.getFloatValue(transactionJaccardAttribute, 5), 0.5f);
-        assertEquals(graph.getFloatValue(transactionJaccardAttribute, 6), 0.5f);
-        assertEquals(graph.getFloatValue(transactionJaccardAttribute, 7), 0.33333334f);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId2, vxId3)), 0.5f);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId0, vxId2)), 0.5f);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId1, vxId3)), 0.33333334f);
+    }
+
+    @Test
+    public void testMinimumScoreJaccard() throws Exception {
+        final JaccardIndexPlugin instance = new JaccardIndexPlugin();
+        final PluginParameters parameters = instance.createParameters();
+        parameters.setIntegerValue(JaccardIndexPlugin.MINIMUM_COMMON_FEATURES_PARAMETER_ID, 1);
+        parameters.setFloatValue(JaccardIndexPlugin.MINIMUM_SCORE_PARAMETER_ID, 0.5f);
+        PluginExecution.withPlugin(instance).withParameters(parameters).executeNow(graph);
+
+        assertEquals(graph.getTransactionCount(), 9);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId0, vxId2)), 0.5f);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId2, vxId4)), 0.5f);
+        assertEquals(SimilarityTestUtilities.getSimilarityTransaction(graph, vxId0, vxId3), Graph.NOT_FOUND);
+        assertEquals(SimilarityTestUtilities.getSimilarityTransaction(graph, vxId1, vxId3), Graph.NOT_FOUND);
+    }
+
+    @Test
+    public void testTopKJaccard() throws Exception {
+        final JaccardIndexPlugin instance = new JaccardIndexPlugin();
+        final PluginParameters parameters = instance.createParameters();
+        parameters.setIntegerValue(JaccardIndexPlugin.MINIMUM_COMMON_FEATURES_PARAMETER_ID, 1);
+        parameters.setIntegerValue(JaccardIndexPlugin.TOP_K_PARAMETER_ID, 1);
+        PluginExecution.withPlugin(instance).withParameters(parameters).executeNow(graph);
+
+        // vertex 2 is the most similar vertex to every other vertex, and ties
+        // are broken by position, so vertex 2 keeps vertex 0
+        assertEquals(graph.getTransactionCount(), 9);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId0, vxId2)), 0.5f);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId1, vxId2)), 0.5f);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId2, vxId3)), 0.5f);
+        assertEquals(graph.getFloatValue(transactionJaccardAttribute, SimilarityTestUtilities.getSimilarityTransaction(graph, vxId2, vxId4)), 0.5f);
+        assertEquals(SimilarityTestUtilities.getSimilarityTransaction(graph, vxId1, vxId3), Graph.NOT_FOUND);
     }
 }
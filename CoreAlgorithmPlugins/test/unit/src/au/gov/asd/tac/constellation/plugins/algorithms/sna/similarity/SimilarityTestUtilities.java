@@ -0,0 +1,56 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.algorithms.sna.similarity;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.schema.analytic.concept.AnalyticConcept;
+
+/**
+ * Utilities shared by the similarity plugin tests.
+ *
+ * @author agent
+ */
+final class SimilarityTestUtilities {
+
+    private SimilarityTestUtilities() {
+    }
+
+    /**
+     * The similarity transaction between a pair of vertices, as the order in
+     * which similarity transactions are added is not defined.
+     *
+     * @param graph the graph holding the vertices.
+     * @param vxIdA one of the vertices.
+     * @param vxIdB the other vertex.
+     * @return the similarity transaction between the vertices, or
+     * {@link Graph#NOT_FOUND} if there is none.
+     */
+    static int getSimilarityTransaction(final GraphReadMethods graph, final int vxIdA, final int vxIdB) {
+        final int typeAttribute = AnalyticConcept.TransactionAttribute.TYPE.get(graph);
+        final int linkId = graph.getLink(vxIdA, vxIdB);
+        if (linkId == Graph.NOT_FOUND) {
+            return Graph.NOT_FOUND;
+        }
+        for (int transactionPosition = 0; transactionPosition < graph.getLinkTransactionCount(linkId); transactionPosition++) {
+            final int transactionId = graph.getLinkTransaction(linkId, transactionPosition);
+            if (AnalyticConcept.TransactionType.SIMILARITY.equals(graph.getObjectValue(typeAttribute, transactionId))) {
+                return transactionId;
+            }
+        }
+        return Graph.NOT_FOUND;
+    }
+}
@@ -15,12 +15,16 @@
  */
 package au.gov.asd.tac.constellation.plugins.arrangements.proximity;
 
-import au.gov.asd.tac.constellation.plugins.arrangements.Arranger;
 import au.gov.asd.tac.constellation.plugins.arrangements.SelectedInclusionGraph;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.plugins.Plugin;
 import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.FloatParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.FloatParameterType.FloatParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
 import org.openide.util.NbBundle.Messages;
 import org.openide.util.lookup.ServiceProvider;
@@ -34,9 +38,35 @@ import org.openide.util.lookup.ServiceProvider;
 @Messages("ArrangeByProximity3DPlugin=Arrange by Proximity 3D")
 public class ArrangeByProximity3DPlugin extends SimpleEditPlugin {
 
+    public static final String ITERATIONS_PARAMETER_ID = PluginParameter.buildId(ArrangeByProximity3DPlugin.class, "iterations");
+    public static final String THETA_PARAMETER_ID = PluginParameter.buildId(ArrangeByProximity3DPlugin.class, "theta");
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+
+        final PluginParameter<IntegerParameterValue> iterationsParameter = IntegerParameterType.build(ITERATIONS_PARAMETER_ID);
+        iterationsParameter.setName("Iterations");
+        iterationsParameter.setDescription("The number of iterations to run before returning a result");
+        iterationsParameter.setIntegerValue(FR3DArranger.MAX_ITERATIONS);
+        IntegerParameterType.setMinimum(iterationsParameter, 1);
+        parameters.addParameter(iterationsParameter);
+
+        final PluginParameter<FloatParameterValue> thetaParameter = FloatParameterType.build(THETA_PARAMETER_ID);
+        thetaParameter.setName("Theta");
+        thetaParameter.setDescription("The accuracy of the repulsion approximation, where 0 is exact and larger values are faster");
+        thetaParameter.setFloatValue(FRLayout.DEFAULT_THETA);
+        FloatParameterType.setMinimum(thetaParameter, 0);
+        parameters.addParameter(thetaParameter);
+
+        return parameters;
+    }
+
     @Override
     public void edit(final GraphWriteMethods wg, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException {
-        final Arranger arranger = new FR3DArranger(interaction);
+        final FR3DArranger arranger = new FR3DArranger(interaction);
+        arranger.setIterations(parameters.getIntegerValue(ITERATIONS_PARAMETER_ID));
+        arranger.setTheta(parameters.getFloatValue(THETA_PARAMETER_ID));
         final SelectedInclusionGraph selectedGraph = new SelectedInclusionGraph(wg, SelectedInclusionGraph.Connections.LINKS);
         arranger.setMaintainMean(!selectedGraph.isArrangingAll());
         arranger.arrange(selectedGraph.getInclusionGraph());
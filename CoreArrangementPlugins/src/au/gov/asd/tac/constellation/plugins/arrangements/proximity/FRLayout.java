@@ -0,0 +1,405 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.arrangements.proximity;
+
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.plugins.PluginInteraction;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The force calculations shared by the 2D and 3D Fruchterman-Reingold
+ * arrangers.
+ * <p>
+ * Vertices are addressed by their position in the graph and their coordinates
+ * are held in primitive arrays. Each iteration is made up of a repulsion pass,
+ * an attraction pass and a positioning pass. Each pass only writes to the
+ * offset of the vertex it is processing, so the passes are split across the
+ * common ForkJoin pool without any locking.
+ * <p>
+ * Repulsion uses the Barnes-Hut approximation: the vertices are placed in a
+ * quadtree (2D) or octree (3D) and a cell whose width divided by its distance
+ * from a vertex is less than theta is treated as a single body at the cell's
+ * centre of mass. A theta of 0 calculates the exact O(n&sup2;) repulsion.
+ *
+ * @author agent
+ */
+final class FRLayout {
+
+    /**
+     * The default Barnes-Hut opening criterion.
+     */
+    public static final float DEFAULT_THETA = 0.8F;
+
+    private static final double EPSILON = 0.000001;
+
+    // Cells holding this many vertices or less are not subdivided.
+    private static final int LEAF_SIZE = 8;
+
+    // Stop subdividing at this depth so that coincident vertices end up in a leaf.
+    private static final int MAX_DEPTH = 24;
+
+    private final int dimensions;
+    private final int vxCount;
+    private final float[] x;
+    private final float[] y;
+    private final float[] z;
+    private final float[] xOffset;
+    private final float[] yOffset;
+    private final float[] zOffset;
+
+    // The neighbours of each vertex, by position, in compressed sparse row form.
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+
+    // The vertex positions sorted into tree order and the index of each vertex in that order.
+    private final int[] order;
+    private final int[] rank;
+    private final int[] scratch;
+    private final byte[] cells;
+
+    // The tree cells in preorder. A cell's first child immediately follows it,
+    // and cellNext[cell] is the first cell after its subtree.
+    private int cellCount;
+    private float[] cellX = new float[0];
+    private float[] cellY = new float[0];
+    private float[] cellZ = new float[0];
+    private float[] cellWidth = new float[0];
+    private int[] cellLow = new int[0];
+    private int[] cellHigh = new int[0];
+    private int[] cellNext = new int[0];
+    private boolean[] cellLeaf = new boolean[0];
+
+    private double theta = DEFAULT_THETA;
+
+    /**
+     * Create a new layout for the vertices of the specified graph.
+     * <p>
+     * The coordinates are indexed by vertex position and must be initialised
+     * by the caller before {@link #layout} is called.
+     *
+     * @param graph the graph to be laid out.
+     * @param dimensions the number of dimensions, either 2 or 3.
+     */
+    FRLayout(final GraphReadMethods graph, final int dimensions) {
+        this.dimensions = dimensions;
+
+        vxCount = graph.getVertexCount();
+        x = new float[vxCount];
+        y = new float[vxCount];
+        z = new float[vxCount];
+        xOffset = new float[vxCount];
+        yOffset = new float[vxCount];
+        zOffset = new float[vxCount];
+
+        neighbourStart = new int[vxCount + 1];
+        for (int position = 0; position < vxCount; position++) {
+            final int vxId = graph.getVertex(position);
+            neighbourStart[position + 1] = neighbourStart[position] + graph.getVertexNeighbourCount(vxId);
+        }
+        neighbours = new int[neighbourStart[vxCount]];
+        for (int position = 0; position < vxCount; position++) {
+            final int vxId = graph.getVertex(position);
+            final int neighbourCount = graph.getVertexNeighbourCount(vxId);
+            for (int i = 0; i < neighbourCount; i++) {
+                neighbours[neighbourStart[position] + i] = graph.getVertexPosition(graph.getVertexNeighbour(vxId, i));
+            }
+        }
+
+        order = new int[vxCount];
+        rank = new int[vxCount];
+        scratch = new int[vxCount];
+        cells = new byte[vxCount];
+    }
+
+    public float[] getX() {
+        return x;
+    }
+
+    public float[] getY() {
+        return y;
+    }
+
+    public float[] getZ() {
+        return z;
+    }
+
+    /**
+     * Set the Barnes-Hut opening criterion.
+     *
+     * @param theta the opening criterion; 0 calculates exact repulsion.
+     */
+    public void setTheta(final double theta) {
+        this.theta = Math.max(0, theta);
+    }
+
+    /**
+     * Run the layout.
+     *
+     * @param interaction the interaction used to report progress.
+     * @param iterations the number of iterations to run.
+     * @param temperature the initial temperature.
+     * @param attractionConstant the attraction constant.
+     * @param repulsionConstant the repulsion constant.
+     * @param progressMessage the message reported with each iteration.
+     *
+     * @throws InterruptedException if the layout is cancelled.
+     */
+    public void layout(final PluginInteraction interaction, final int iterations, double temperature,
+            final double attractionConstant, final double repulsionConstant, final String progressMessage) throws InterruptedException {
+        final double repulsion = repulsionConstant * repulsionConstant;
+        for (int i = 0; i < iterations; i++) {
+            interaction.setProgress(i + 1, iterations, progressMessage, true);
+
+            buildTree();
+            IntStream.range(0, vxCount).parallel().forEach(position -> repulse(position, repulsion));
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            IntStream.range(0, vxCount).parallel().forEach(position -> attract(position, attractionConstant));
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            final double t = temperature;
+            IntStream.range(0, vxCount).parallel().forEach(position -> position(position, t));
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            temperature += (1.0 - i / (float) iterations);
+        }
+    }
+
+    /**
+     * Repulse a vertex from every other vertex, approximating distant groups
+     * of vertices by their centre of mass.
+     *
+     * @param position the position of the vertex.
+     * @param repulsion the square of the repulsion constant.
+     */
+    private void repulse(final int position, final double repulsion) {
+        final double px = x[position];
+        final double py = y[position];
+        final double pz = z[position];
+        final int index = rank[position];
+        double ox = 0;
+        double oy = 0;
+        double oz = 0;
+
+        int cell = 0;
+        while (cell < cellCount) {
+            final boolean containsSelf = index >= cellLow[cell] && index < cellHigh[cell];
+            if (!containsSelf) {
+                final double xDelta = px - cellX[cell];
+                final double yDelta = py - cellY[cell];
+                final double zDelta = pz - cellZ[cell];
+                final double lenDelta = Math.max(EPSILON, Math.sqrt(xDelta * xDelta + yDelta * yDelta + zDelta * zDelta));
+                if (cellWidth[cell] < theta * lenDelta) {
+                    final double force = (cellHigh[cell] - cellLow[cell]) * repulsion / lenDelta;
+                    ox += (xDelta / lenDelta) * force;
+                    oy += (yDelta / lenDelta) * force;
+                    oz += (zDelta / lenDelta) * force;
+                    cell = cellNext[cell];
+                    continue;
+                }
+            }
+
+            if (cellLeaf[cell]) {
+                for (int i = cellLow[cell]; i < cellHigh[cell]; i++) {
+                    final int other = order[i];
+                    if (other != position) {
+                        final double xDelta = px - x[other];
+                        final double yDelta = py - y[other];
+                        final double zDelta = pz - z[other];
+                        final double lenDelta = Math.max(EPSILON, Math.sqrt(xDelta * xDelta + yDelta * yDelta + zDelta * zDelta));
+                        final double force = repulsion / lenDelta;
+                        ox += (xDelta / lenDelta) * force;
+                        oy += (yDelta / lenDelta) * force;
+                        oz += (zDelta / lenDelta) * force;
+                    }
+                }
+                cell = cellNext[cell];
+            } else {
+                cell++;
+            }
+        }
+
+        if (Double.isNaN(ox) || Double.isNaN(oy) || Double.isNaN(oz)) {
+            throw new IllegalArgumentException("Bad value: isNaN(force)");
+        }
+
+        xOffset[position] = (float) ox;
+        yOffset[position] = (float) oy;
+        zOffset[position] = (float) oz;
+    }
+
+    /**
+     * Attract a vertex towards its neighbours.
+     *
+     * @param position the position of the vertex.
+     * @param attractionConstant the attraction constant.
+     */
+    private void attract(final int position, final double attractionConstant) {
+        final double px = x[position];
+        final double py = y[position];
+        final double pz = z[position];
+        double ox = xOffset[position];
+        double oy = yOffset[position];
+        double oz = zOffset[position];
+
+        for (int i = neighbourStart[position]; i < neighbourStart[position + 1]; i++) {
+            final int other = neighbours[i];
+            if (other != position) {
+                final double xDelta = px - x[other];
+                final double yDelta = py - y[other];
+                final double zDelta = pz - z[other];
+                final double lenDelta = Math.max(EPSILON, Math.sqrt(xDelta * xDelta + yDelta * yDelta + zDelta * zDelta));
+                final double force = (lenDelta * lenDelta) / attractionConstant;
+                ox -= (xDelta / lenDelta) * force;
+                oy -= (yDelta / lenDelta) * force;
+                oz -= (zDelta / lenDelta) * force;
+            }
+        }
+
+        xOffset[position] = (float) ox;
+        yOffset[position] = (float) oy;
+        zOffset[position] = (float) oz;
+    }
+
+    private void position(final int position, final double temperature) {
+        final double ox = xOffset[position];
+        final double oy = yOffset[position];
+        final double oz = zOffset[position];
+        final double lenDelta = Math.max(EPSILON, Math.sqrt(ox * ox + oy * oy + oz * oz));
+        final double scale = Math.min(lenDelta, temperature) / lenDelta;
+        x[position] += ox * scale;
+        y[position] += oy * scale;
+        z[position] += oz * scale;
+    }
+
+    /**
+     * Build the Barnes-Hut tree from the current coordinates.
+     */
+    private void buildTree() {
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        float maxZ = -Float.MAX_VALUE;
+        for (int position = 0; position < vxCount; position++) {
+            order[position] = position;
+            minX = Math.min(minX, x[position]);
+            minY = Math.min(minY, y[position]);
+            minZ = Math.min(minZ, z[position]);
+            maxX = Math.max(maxX, x[position]);
+            maxY = Math.max(maxY, y[position]);
+            maxZ = Math.max(maxZ, z[position]);
+        }
+
+        final float width = Math.max(Math.max(maxX - minX, maxY - minY), dimensions == 3 ? maxZ - minZ : 0);
+        final float half = width / 2;
+
+        cellCount = 0;
+        buildCell(0, vxCount, minX + half, minY + half, dimensions == 3 ? minZ + half : 0, width, 0);
+
+        for (int i = 0; i < vxCount; i++) {
+            rank[order[i]] = i;
+        }
+    }
+
+    /**
+     * Add a cell containing the vertices in the specified range of the order
+     * array, followed by its children.
+     */
+    private void buildCell(final int low, final int high, final float centreX, final float centreY, final float centreZ, final float width, final int depth) {
+        final int cell = cellCount++;
+        ensureCellCapacity(cellCount);
+
+        double sumX = 0;
+        double sumY = 0;
+        double sumZ = 0;
+        for (int i = low; i < high; i++) {
+            final int position = order[i];
+            sumX += x[position];
+            sumY += y[position];
+            sumZ += z[position];
+        }
+        final int count = high - low;
+        cellX[cell] = (float) (sumX / count);
+        cellY[cell] = (float) (sumY / count);
+        cellZ[cell] = (float) (sumZ / count);
+        cellWidth[cell] = width;
+        cellLow[cell] = low;
+        cellHigh[cell] = high;
+        cellLeaf[cell] = count <= LEAF_SIZE || depth >= MAX_DEPTH;
+
+        if (!cellLeaf[cell]) {
+            // Counting sort the range into the children of this cell.
+            final int childCount = 1 << dimensions;
+            final int[] childStart = new int[childCount + 1];
+            for (int i = low; i < high; i++) {
+                final int position = order[i];
+                int child = (x[position] < centreX ? 0 : 1) | (y[position] < centreY ? 0 : 2);
+                if (dimensions == 3) {
+                    child |= z[position] < centreZ ? 0 : 4;
+                }
+                cells[i] = (byte) child;
+                childStart[child + 1]++;
+            }
+            for (int child = 0; child < childCount; child++) {
+                childStart[child + 1] += childStart[child];
+            }
+            final int[] next = Arrays.copyOf(childStart, childCount);
+            for (int i = low; i < high; i++) {
+                scratch[low + next[cells[i]]++] = order[i];
+            }
+            System.arraycopy(scratch, low, order, low, count);
+
+            final float quarter = width / 4;
+            for (int child = 0; child < childCount; child++) {
+                if (childStart[child + 1] > childStart[child]) {
+                    buildCell(low + childStart[child], low + childStart[child + 1],
+                            centreX + ((child & 1) == 0 ? -quarter : quarter),
+                            centreY + ((child & 2) == 0 ? -quarter : quarter),
+                            dimensions == 3 ? centreZ + ((child & 4) == 0 ? -quarter : quarter) : 0,
+                            width / 2, depth + 1);
+                }
+            }
+        }
+
+        cellNext[cell] = cellCount;
+    }
+
+    private void ensureCellCapacity(final int capacity) {
+        if (capacity > cellNext.length) {
+            final int newCapacity = Math.max(capacity, cellNext.length * 2);
+            cellX = Arrays.copyOf(cellX, newCapacity);
+            cellY = Arrays.copyOf(cellY, newCapacity);
+            cellZ = Arrays.copyOf(cellZ, newCapacity);
+            cellWidth = Arrays.copyOf(cellWidth, newCapacity);
+            cellLow = Arrays.copyOf(cellLow, newCapacity);
+            cellHigh = Arrays.copyOf(cellHigh, newCapacity);
+            cellNext = Arrays.copyOf(cellNext, newCapacity);
+            cellLeaf = Arrays.copyOf(cellLeaf, newCapacity);
+        }
+    }
+}
@@ -16,19 +16,29 @@
 package au.gov.asd.tac.constellation.plugins.arrangements.spectral;
 
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.plugins.algorithms.SparseMatrix;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import org.apache.commons.math3.linear.EigenDecomposition;
-import org.apache.commons.math3.linear.MatrixUtils;
 
 /**
+ * Embeds a set of vertices in the plane using the eigenvectors of the smallest
+ * non-zero eigenvalues of the Laplacian of the subgraph they induce.
+ * <p>
+ * The Laplacian is held as a sparse matrix and its eigenvectors are found
+ * iteratively, so memory grows with the number of links rather than the square
+ * of the number of vertices.
  *
  * @author twilight_sparkle
  */
 public class GraphSpectrumEmbedder {
 
+    // The spacing of vertices relative to the root mean square of the coordinates.
+    private static final double SPACING = 2;
+    private static final int BASIS_SIZE = 40;
+    private static final int MAX_RESTARTS = 500;
+
     public static Map<Integer, double[]> spectralEmbedding(GraphReadMethods rg, final Set<Integer> includedVertices) {
 
         Map<Integer, double[]> vertexPositions = new HashMap<>();
@@ -38,106 +48,63 @@ public class GraphSpectrumEmbedder {
             return vertexPositions;
         }
 
-        GraphMatrix l = GraphMatrix.adjacencyFromGraph(rg, includedVertices, new HashSet<>());
-
-        final EigenDecomposition e = new EigenDecomposition(MatrixUtils.createRealMatrix(l.laplacianMatrix));
-        final int numVectors = e.getRealEigenvalues().length;
-
-        for (int i = 0; i < l.dimension; i++) {
-            double xPos = 0;
-            double yPos = 0;
-            double norm = 0;
-            for (int j = 0; j < numVectors - 1; j++) {
-                xPos += e.getRealEigenvalue(j) * e.getEigenvector(j).getEntry(i);
-                yPos += e.getRealEigenvalue(j) * e.getEigenvector(j).getEntry(i) * (j % 2 == 0 ? -1 : 1);
-                norm += Math.abs(e.getRealEigenvalue(j)) * (Math.pow(e.getEigenvector(j).getEntry(i), 2));
+        final int[] matrixPositionToID = new int[includedVertices.size()];
+        final Map<Integer, Integer> idToMatrixPosition = new HashMap<>();
+        int dimension = 0;
+        for (int i = 0; i < rg.getVertexCount(); i++) {
+            final int vxID = rg.getVertex(i);
+            if (includedVertices.contains(vxID)) {
+                idToMatrixPosition.put(vxID, dimension);
+                matrixPositionToID[dimension++] = vxID;
             }
-            norm = Math.sqrt(norm);
-            vertexPositions.put(l.matrixPositionToID.get(i), new double[]{norm * xPos, norm * yPos});
         }
 
-        return vertexPositions;
-
-    }
-
-    private enum MatrixType {
-
-        ADJACENCY_MATRIX,
-        LAPLACIAN_MATRIX,;
-    }
-
-    private static class GraphMatrix {
-
-        private final Map<Integer, Integer> idToMatrixPosition;
-        private final Map<Integer, Integer> matrixPositionToID;
-        private final double[][] laplacianMatrix;
-        private final int dimension;
-
-        private GraphMatrix(double[][] laplacianMatrix, Map<Integer, Integer> idToMatrixPosition, Map<Integer, Integer> matrixPositionToID) {
-            this.laplacianMatrix = laplacianMatrix;
-            this.idToMatrixPosition = idToMatrixPosition;
-            this.matrixPositionToID = matrixPositionToID;
-            this.dimension = laplacianMatrix.length;
-        }
+        final SparseMatrix laplacian = laplacianFromGraph(rg, idToMatrixPosition, matrixPositionToID);
 
-        public static GraphMatrix adjacencyFromGraph(GraphReadMethods rg, Set<Integer> includedVertices, Set<Integer> excludedLinks) {
-            return matrixFromGraph(rg, includedVertices, excludedLinks, MatrixType.ADJACENCY_MATRIX);
+        // The first eigenvector is constant on each component, so the layout comes from the next two.
+        final double[][] eigenvectors = laplacian.getSmallestEigenvectors(3, BASIS_SIZE, MAX_RESTARTS);
+        if (eigenvectors.length < 3) {
+            return vertexPositions;
         }
 
-        public static GraphMatrix laplacianFromGraph(GraphReadMethods rg, Set<Integer> includedVertices, Set<Integer> excludedLinks) {
-            return matrixFromGraph(rg, includedVertices, excludedLinks, MatrixType.LAPLACIAN_MATRIX);
+        final double scale = SPACING * dimension;
+        for (int i = 0; i < dimension; i++) {
+            vertexPositions.put(matrixPositionToID[i], new double[]{scale * eigenvectors[1][i], scale * eigenvectors[2][i]});
         }
 
-        public static GraphMatrix matrixFromGraph(GraphReadMethods rg, Set<Integer> includedVertices, Set<Integer> excludedLinks, MatrixType type) {
-
-            final int numVertices = includedVertices.size();
-            final double[][] matrixEntries = new double[numVertices][];
-            for (int i = 0; i < numVertices; i++) {
-                matrixEntries[i] = new double[numVertices];
-            }
-            Map<Integer, Integer> idToMatrixPosition = new HashMap<>();
-            Map<Integer, Integer> matrixPositionToID = new HashMap<>();
+        return vertexPositions;
+    }
 
-            int skips = 0;
-            for (int i = 0; i < rg.getVertexCount(); i++) {
-                final int vxID = rg.getVertex(i);
-                if (!includedVertices.contains(vxID)) {
-                    skips++;
-                    continue;
+    private static SparseMatrix laplacianFromGraph(final GraphReadMethods rg, final Map<Integer, Integer> idToMatrixPosition, final int[] matrixPositionToID) {
+        final int dimension = matrixPositionToID.length;
+        final int[][] rows = new int[dimension][];
+        final int[] offsets = new int[dimension + 1];
+        for (int i = 0; i < dimension; i++) {
+            final int vxID = matrixPositionToID[i];
+            final int[] row = new int[rg.getVertexNeighbourCount(vxID) + 1];
+            int rowLength = 0;
+            row[rowLength++] = i;
+            for (int j = 0; j < rg.getVertexNeighbourCount(vxID); j++) {
+                final Integer neighbourPosition = idToMatrixPosition.get(rg.getVertexNeighbour(vxID, j));
+                if (neighbourPosition != null && neighbourPosition != i) {
+                    row[rowLength++] = neighbourPosition;
                 }
-                idToMatrixPosition.put(vxID, i - skips);
-                matrixPositionToID.put(i - skips, vxID);
             }
+            rows[i] = Arrays.copyOf(row, rowLength);
+            Arrays.sort(rows[i]);
+            offsets[i + 1] = offsets[i] + rowLength;
+        }
 
-            for (int i = 0; i < numVertices; i++) {
-                final int vxID = matrixPositionToID.get(i);
-                int neighbourCount = 0;
-                for (int j = 0; j < rg.getVertexNeighbourCount(vxID); j++) {
-                    final int neighbourID = rg.getVertexNeighbour(vxID, j);
-                    if (excludedLinks.contains(rg.getLink(vxID, neighbourID))) {
-                        continue;
-                    } else if (!includedVertices.contains(neighbourID)) {
-                        neighbourCount++;
-                        continue;
-                    } else if (idToMatrixPosition.get(neighbourID) == i) {
-                        continue;
-                    }
-                    neighbourCount++;
-                    if (type == MatrixType.LAPLACIAN_MATRIX) {
-                        matrixEntries[i][idToMatrixPosition.get(neighbourID)] = -1;
-                    } else if (type == MatrixType.ADJACENCY_MATRIX) {
-                        matrixEntries[i][idToMatrixPosition.get(neighbourID)] = 1;
-                    }
-                }
-                if (type == MatrixType.LAPLACIAN_MATRIX) {
-                    matrixEntries[i][i] = neighbourCount;
-                } else if (type == MatrixType.ADJACENCY_MATRIX) {
-                    matrixEntries[i][i] = 0;
-                }
+        final int[] columns = new int[offsets[dimension]];
+        final double[] values = new double[offsets[dimension]];
+        for (int i = 0; i < dimension; i++) {
+            final int degree = rows[i].length - 1;
+            for (int entry = 0; entry < rows[i].length; entry++) {
+                columns[offsets[i] + entry] = rows[i][entry];
+                values[offsets[i] + entry] = rows[i][entry] == i ? degree : -1;
             }
-
-            return new GraphMatrix(matrixEntries, idToMatrixPosition, matrixPositionToID);
         }
-    }
 
+        return new SparseMatrix(dimension, offsets, columns, values);
+    }
 }
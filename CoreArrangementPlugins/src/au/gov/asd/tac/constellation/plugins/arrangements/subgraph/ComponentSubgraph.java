@@ -280,6 +280,16 @@ public class ComponentSubgraph implements GraphWriteMethods {
         return proxy.getValueModificationCounter(attribute);
     }
 
+    @Override
+    public long getValueChangeCounter(final int attribute) {
+        return proxy.getValueChangeCounter(attribute);
+    }
+
+    @Override
+    public int[] getValueChangesSince(final int attribute, final long valueChangeCounter) {
+        return null;
+    }
+
     @Override
     public int getEdgeCapacity() {
         return proxy.getEdgeCapacity();
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.arrangements.proximity;
+
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.plugins.text.TextPluginInteraction;
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ * FR Layout Test.
+ *
+ * @author agent
+ */
+public class FRLayoutNGTest {
+
+    private static final int VERTEX_COUNT = 2000;
+
+    private static StoreGraph createGraph() {
+        final StoreGraph graph = new StoreGraph();
+        final Random random = new Random(1);
+        final int[] vertices = new int[VERTEX_COUNT];
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            vertices[i] = graph.addVertex();
+            if (i > 0) {
+                graph.addTransaction(vertices[i], vertices[random.nextInt(i)], true);
+            }
+        }
+        return graph;
+    }
+
+    private static FRLayout runLayout(final StoreGraph graph, final int dimensions, final double theta) throws InterruptedException {
+        final FRLayout layout = new FRLayout(graph, dimensions);
+        layout.setTheta(theta);
+        final Random random = new Random(2);
+        for (int position = 0; position < VERTEX_COUNT; position++) {
+            layout.getX()[position] = random.nextInt(100);
+            layout.getY()[position] = random.nextInt(100);
+            layout.getZ()[position] = dimensions == 3 ? random.nextInt(100) : 0;
+        }
+        layout.layout(new TextPluginInteraction(), 1, 10, 3, 2, "Arranging...");
+        return layout;
+    }
+
+    /**
+     * The Barnes-Hut approximation should stay close to the exact repulsion.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void approximationTest() throws InterruptedException {
+        final StoreGraph graph = createGraph();
+        for (final int dimensions : new int[]{2, 3}) {
+            final FRLayout exact = runLayout(graph, dimensions, 0);
+            final FRLayout approximate = runLayout(graph, dimensions, FRLayout.DEFAULT_THETA);
+            for (int position = 0; position < VERTEX_COUNT; position++) {
+                assertEquals(approximate.getX()[position], exact.getX()[position], 1);
+                assertEquals(approximate.getY()[position], exact.getY()[position], 1);
+                assertEquals(approximate.getZ()[position], exact.getZ()[position], 1);
+                assertTrue(dimensions == 3 || exact.getZ()[position] == 0);
+            }
+        }
+    }
+}
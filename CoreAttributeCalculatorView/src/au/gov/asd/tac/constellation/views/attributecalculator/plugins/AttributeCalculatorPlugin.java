@@ -46,6 +46,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
@@ -77,6 +78,8 @@ public final class AttributeCalculatorPlugin extends SimpleEditPlugin {
     private final boolean completeWithSchema;
     
     private static final String NON_WORD_OR_SCRIPT_START_PATTERN = "(\\A|\\W)(";
+    private static final String PYTHON_LANGUAGE = "text/python";
+    private static final Object NOT_EDITED = new Object();
 
     private static final Logger LOGGER = Logger.getLogger(AttributeCalculatorPlugin.class.getName());
 
@@ -127,6 +130,35 @@ public final class AttributeCalculatorPlugin extends SimpleEditPlugin {
 
     @Override
     public void edit(final GraphWriteMethods graph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
+        final int selectedAttr = selectedOnly ? graph.getAttribute(elementType, "selected") : Graph.NOT_FOUND;
+
+        // Scripts made up of a single expression the calculator understands are evaluated natively, which avoids
+        // calling into the script engine for every element. Anything else, or any value the native evaluation
+        // cannot reproduce exactly, is left to the script engine.
+        if (PYTHON_LANGUAGE.equals(language)) {
+            final CalculatorExpression expression = CalculatorExpressionCompiler.compile(graph, elementType, script);
+            if (expression != null) {
+                final Object[] editedAttributeValues = evaluateExpression(graph, expression, selectedAttr);
+                if (editedAttributeValues != null) {
+                    final int editAttributeId = getEditAttribute(graph);
+                    for (int i = 0; i < editedAttributeValues.length; i++) {
+                        if (editedAttributeValues[i] != NOT_EDITED) {
+                            final int elementId = elementType == GraphElementType.VERTEX ? graph.getVertex(i) : graph.getTransaction(i);
+                            setEditedValue(graph, editAttributeId, elementId, editedAttributeValues[i]);
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+
+        editWithScriptEngine(graph, selectedAttr);
+    }
+
+    /**
+     * Evaluate the script for each element with the script engine.
+     */
+    void editWithScriptEngine(final GraphWriteMethods graph, final int selectedAttr) throws PluginException {
         final ScriptEngineManager manager = new ScriptEngineManager();
         final ScriptEngine engine = manager.getEngineByMimeType(language);
         final Bindings bindings = engine.getBindings(ScriptContext.ENGINE_SCOPE);
@@ -136,12 +168,7 @@ public final class AttributeCalculatorPlugin extends SimpleEditPlugin {
 
         preprocessScriptAndBindObjects(graph, bindings, calculatorContext);
         LOGGER.log(Level.INFO, "processedScript::{0}", script);
-        int editAttributeId = graph.getAttribute(elementType, editAttribute);
-        if (editAttributeId == Graph.NOT_FOUND) {
-            editAttributeId = graph.addAttribute(elementType, editAttributeType, editAttribute, "", null, null);
-        }
-
-        int selectedAttr = selectedOnly ? graph.getAttribute(elementType, "selected") : Graph.NOT_FOUND;
+        final int editAttributeId = getEditAttribute(graph);
 
         try {
 
@@ -182,18 +209,7 @@ public final class AttributeCalculatorPlugin extends SimpleEditPlugin {
 
             // Edit the actual attribute values for the desired attribute
             for (final Map.Entry<Integer, Object> entry : editedAttributeValues.entrySet()) {
-                graph.setObjectValue(editAttributeId, entry.getKey(), entry.getValue());
-                if (!completeWithSchema) {
-                    // do nothing
-                } else if (elementType == GraphElementType.VERTEX) {
-                    if (graph.getSchema() != null) {
-                        graph.getSchema().completeVertex(graph, entry.getKey());
-                    }
-                } else {
-                    if (graph.getSchema() != null) {
-                        graph.getSchema().completeTransaction(graph, entry.getKey());
-                    }
-                }
+                setEditedValue(graph, editAttributeId, entry.getKey(), entry.getValue());
             }
 
         } catch (ScriptException ex) {
@@ -201,6 +217,50 @@ public final class AttributeCalculatorPlugin extends SimpleEditPlugin {
         }
     }
 
+    /**
+     * Evaluate a compiled expression for each element in parallel.
+     *
+     * @return the value for each element position, with {@link #NOT_EDITED}
+     * for elements which are not selected, or null if the script must be
+     * evaluated by the script engine instead.
+     */
+    private Object[] evaluateExpression(final GraphReadMethods graph, final CalculatorExpression expression, final int selectedAttr) {
+        final int elementCount = elementType == GraphElementType.VERTEX ? graph.getVertexCount() : graph.getTransactionCount();
+        final Object[] editedAttributeValues = new Object[elementCount];
+        try {
+            IntStream.range(0, elementCount).parallel().forEach(i -> {
+                final int elementId = elementType == GraphElementType.VERTEX ? graph.getVertex(i) : graph.getTransaction(i);
+                editedAttributeValues[i] = selectedAttr == Graph.NOT_FOUND || graph.getBooleanValue(selectedAttr, elementId)
+                        ? CalculatorOperators.toGraph(expression.evaluate(elementId)) : NOT_EDITED;
+            });
+        } catch (final RuntimeException ex) {
+            // the script engine will report any error, or compute any value, the expression could not
+            LOGGER.log(Level.FINE, "Script will be evaluated by the script engine: {0}", ex.getMessage());
+            return null;
+        }
+        return editedAttributeValues;
+    }
+
+    private int getEditAttribute(final GraphWriteMethods graph) {
+        final int editAttributeId = graph.getAttribute(elementType, editAttribute);
+        return editAttributeId == Graph.NOT_FOUND ? graph.addAttribute(elementType, editAttributeType, editAttribute, "", null, null) : editAttributeId;
+    }
+
+    private void setEditedValue(final GraphWriteMethods graph, final int editAttributeId, final int elementId, final Object value) {
+        graph.setObjectValue(editAttributeId, elementId, value);
+        if (!completeWithSchema) {
+            // do nothing
+        } else if (elementType == GraphElementType.VERTEX) {
+            if (graph.getSchema() != null) {
+                graph.getSchema().completeVertex(graph, elementId);
+            }
+        } else {
+            if (graph.getSchema() != null) {
+                graph.getSchema().completeTransaction(graph, elementId);
+            }
+        }
+    }
+
     // This is the world's dodgiest method. It preprocesses the python script and converts the lists of method names
     // provided by calculator utility classes from "method_name(query)" to "utility_object_name.method_name(lambda : query)"
     // This is in essence parsing and translating a very simple "domain specific language" for the attribute calculator
@@ -66,7 +66,7 @@ public class CalculatorAttributeValue extends AbstractCalculatorValue {
     // We get all attributes in their object representation, but for the benefit of
     // the user it is easier in python to work with temporal attributes as
     // integer numbers of milliseconds since epoch.
-    private static Object handleSpecialAttributeTypes(Object obj) {
+    static Object handleSpecialAttributeTypes(Object obj) {
         if (obj != null) {
             if (obj instanceof ZonedDateTime) {
                 return ((ZonedDateTime) obj).toEpochSecond() * 1000;
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.attributecalculator.plugins;
+
+/**
+ * An attribute calculator script which has been compiled by
+ * {@link CalculatorExpressionCompiler} into a tree of Java lambdas.
+ * <p>
+ * Expressions read the graph directly and hold no state, so a single
+ * expression may be evaluated for many elements at once from different
+ * threads. Null attribute values are represented by Java null, which behaves
+ * as the obliterator does in scripts, and the python value None by
+ * {@link CalculatorOperators#NONE}.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+interface CalculatorExpression {
+
+    /**
+     * Evaluate the expression for a graph element.
+     *
+     * @param elementId the id of the element.
+     * @return the value of the expression.
+     * @throws CalculatorOperators.UnsupportedOperandException if the
+     * expression uses a value in a way only the script engine can reproduce.
+     */
+    Object evaluate(final int elementId);
+}
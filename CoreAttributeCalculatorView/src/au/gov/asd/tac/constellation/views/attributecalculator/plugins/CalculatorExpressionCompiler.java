@@ -0,0 +1,822 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.attributecalculator.plugins;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compiles attribute calculator scripts into {@link CalculatorExpression}
+ * trees, so that they can be evaluated for every element of a graph in
+ * parallel without the script engine.
+ * <p>
+ * Only single python expressions are compiled, made up of literals, attribute
+ * names, calculator variables, arithmetic, comparisons, boolean operators,
+ * conditional expressions, common math and string functions, and the neighbour
+ * utilities. Attribute names are recognised in the same way
+ * {@link AttributeCalculatorPlugin} rewrites them for the script engine.
+ * Anything else, including any use of a name in a context where the script
+ * engine would report an error, is left to the script engine by returning
+ * null from {@link #compile}.
+ *
+ * @author agent
+ */
+final class CalculatorExpressionCompiler {
+
+    private static final Logger LOGGER = Logger.getLogger(CalculatorExpressionCompiler.class.getName());
+
+    private static final String SOURCE_PREFIX = "source_";
+    private static final String DESTINATION_PREFIX = "dest_";
+    private static final String[] OPERATORS = {"**", "//", "==", "!=", "<=", ">=", "<", ">", "+", "-", "*", "/", "%", "(", ")", "[", "]", ",", "."};
+
+    private static final Map<String, DoubleUnaryOperator> UNARY_MATH_FUNCTIONS = new HashMap<>();
+    private static final Map<String, DoubleBinaryOperator> BINARY_MATH_FUNCTIONS = new HashMap<>();
+    private static final Map<String, Double> MATH_CONSTANTS = new HashMap<>();
+
+    static {
+        UNARY_MATH_FUNCTIONS.put("log", Math::log);
+        UNARY_MATH_FUNCTIONS.put("log10", Math::log10);
+        UNARY_MATH_FUNCTIONS.put("exp", Math::exp);
+        UNARY_MATH_FUNCTIONS.put("sqrt", Math::sqrt);
+        UNARY_MATH_FUNCTIONS.put("floor", Math::floor);
+        UNARY_MATH_FUNCTIONS.put("ceil", Math::ceil);
+        UNARY_MATH_FUNCTIONS.put("fabs", Math::abs);
+        UNARY_MATH_FUNCTIONS.put("sin", Math::sin);
+        UNARY_MATH_FUNCTIONS.put("cos", Math::cos);
+        UNARY_MATH_FUNCTIONS.put("tan", Math::tan);
+        UNARY_MATH_FUNCTIONS.put("atan", Math::atan);
+        UNARY_MATH_FUNCTIONS.put("degrees", Math::toDegrees);
+        UNARY_MATH_FUNCTIONS.put("radians", Math::toRadians);
+        BINARY_MATH_FUNCTIONS.put("log", (x, base) -> Math.log(x) / Math.log(base));
+        BINARY_MATH_FUNCTIONS.put("pow", Math::pow);
+        BINARY_MATH_FUNCTIONS.put("atan2", Math::atan2);
+        BINARY_MATH_FUNCTIONS.put("hypot", Math::hypot);
+        MATH_CONSTANTS.put("pi", Math.PI);
+        MATH_CONSTANTS.put("e", Math.E);
+    }
+
+    /**
+     * Thrown while compiling when a script uses anything that is not compiled.
+     */
+    private static final class UnsupportedExpressionException extends Exception {
+
+        private UnsupportedExpressionException(final String message) {
+            super(message);
+        }
+    }
+
+    private enum TokenType {
+        NUMBER,
+        STRING,
+        NAME,
+        ATTRIBUTE,
+        OPERATOR,
+        END;
+    }
+
+    private static final class Token {
+
+        private final TokenType type;
+        private final String text;
+        private final Object value;
+
+        private Token(final TokenType type, final String text, final Object value) {
+            this.type = type;
+            this.text = text;
+            this.value = value;
+        }
+    }
+
+    /**
+     * An attribute name as it may appear in a script, possibly with a source
+     * or destination prefix.
+     */
+    private static final class AttributeReference {
+
+        private final String text;
+        private final String attributeName;
+        private final String prefix;
+        private final GraphElementType elementType;
+
+        private AttributeReference(final String attributeName, final String prefix, final GraphElementType elementType) {
+            this.text = prefix + attributeName;
+            this.attributeName = attributeName;
+            this.prefix = prefix;
+            this.elementType = elementType;
+        }
+    }
+
+    private final GraphReadMethods graph;
+    private final GraphElementType elementType;
+    private final List<Token> tokens;
+    private int next = 0;
+
+    private CalculatorExpressionCompiler(final GraphReadMethods graph, final GraphElementType elementType, final List<Token> tokens) {
+        this.graph = graph;
+        this.elementType = elementType;
+        this.tokens = tokens;
+    }
+
+    /**
+     * Compile a script for evaluation over the elements of a graph.
+     *
+     * @param graph the graph the script will be evaluated over.
+     * @param elementType the type of element the script will be evaluated for.
+     * @param script the script.
+     * @return the compiled script, or null if the script should be evaluated
+     * by the script engine.
+     */
+    static CalculatorExpression compile(final GraphReadMethods graph, final GraphElementType elementType, final String script) {
+        try {
+            final CalculatorExpressionCompiler compiler = new CalculatorExpressionCompiler(graph, elementType, tokenise(script, getAttributeReferences(graph)));
+            final CalculatorExpression expression = compiler.parseExpression();
+            compiler.expect(TokenType.END, null);
+            return expression;
+        } catch (final UnsupportedExpressionException ex) {
+            LOGGER.log(Level.FINE, "Script will be evaluated by the script engine: {0}", ex.getMessage());
+            return null;
+        }
+    }
+
+    // The attribute names a script may refer to, with the prefixes and element types assigned by AttributeCalculatorPlugin, longest first.
+    private static List<AttributeReference> getAttributeReferences(final GraphReadMethods graph) {
+        final Map<String, GraphElementType> attributeNameElementTypes = new HashMap<>();
+        for (int i = 0; i < graph.getAttributeCount(GraphElementType.VERTEX); i++) {
+            attributeNameElementTypes.put(graph.getAttributeName(graph.getAttribute(GraphElementType.VERTEX, i)), GraphElementType.VERTEX);
+        }
+        for (int i = 0; i < graph.getAttributeCount(GraphElementType.TRANSACTION); i++) {
+            final String attributeName = graph.getAttributeName(graph.getAttribute(GraphElementType.TRANSACTION, i));
+            attributeNameElementTypes.put(attributeName, attributeNameElementTypes.containsKey(attributeName) ? null : GraphElementType.TRANSACTION);
+        }
+
+        final List<AttributeReference> references = new ArrayList<>();
+        for (final Map.Entry<String, GraphElementType> entry : attributeNameElementTypes.entrySet()) {
+            if (entry.getValue() != GraphElementType.TRANSACTION) {
+                references.add(new AttributeReference(entry.getKey(), SOURCE_PREFIX, GraphElementType.TRANSACTION));
+                references.add(new AttributeReference(entry.getKey(), DESTINATION_PREFIX, GraphElementType.TRANSACTION));
+            }
+            references.add(new AttributeReference(entry.getKey(), "", entry.getValue()));
+        }
+        references.sort((o1, o2) -> o1.text.length() == o2.text.length() ? o1.text.compareTo(o2.text) : Integer.compare(o2.text.length(), o1.text.length()));
+        return references;
+    }
+
+    private static boolean isWordCharacter(final char c) {
+        return c == '_' || (c < 128 && Character.isLetterOrDigit(c));
+    }
+
+    private static List<Token> tokenise(final String script, final List<AttributeReference> references) throws UnsupportedExpressionException {
+        if (script == null || script.isEmpty() || Character.isWhitespace(script.charAt(0))) {
+            throw new UnsupportedExpressionException("script is empty or indented");
+        }
+
+        final List<Token> tokens = new ArrayList<>();
+        int depth = 0;
+        int position = 0;
+        tokenLoop:
+        while (position < script.length()) {
+            final char c = script.charAt(position);
+            if (c == ' ' || c == '\t') {
+                position++;
+                continue;
+            } else if (c == '\n' || c == '\r') {
+                // a line break is only part of an expression inside brackets
+                if (depth == 0 && !script.substring(position).isBlank()) {
+                    throw new UnsupportedExpressionException("script has more than one line");
+                }
+                position++;
+                continue;
+            }
+
+            // attribute names take precedence over everything else, as they do when scripts are rewritten for the script engine
+            if (position == 0 || !isWordCharacter(script.charAt(position - 1))) {
+                for (final AttributeReference reference : references) {
+                    final int end = position + reference.text.length();
+                    if (script.startsWith(reference.text, position) && (end == script.length() || !isWordCharacter(script.charAt(end)))) {
+                        tokens.add(new Token(TokenType.ATTRIBUTE, reference.text, reference));
+                        position = end;
+                        continue tokenLoop;
+                    }
+                }
+            }
+
+            if (Character.isDigit(c) || (c == '.' && position + 1 < script.length() && Character.isDigit(script.charAt(position + 1)))) {
+                position = tokeniseNumber(script, position, tokens);
+            } else if (c == '\'' || c == '"') {
+                position = tokeniseString(script, position, tokens);
+            } else if (c < 128 && (Character.isLetter(c) || c == '_')) {
+                final int start = position;
+                while (position < script.length() && isWordCharacter(script.charAt(position))) {
+                    position++;
+                }
+                tokens.add(new Token(TokenType.NAME, script.substring(start, position), null));
+            } else {
+                String operator = null;
+                for (final String candidate : OPERATORS) {
+                    if (script.startsWith(candidate, position)) {
+                        operator = candidate;
+                        break;
+                    }
+                }
+                if (operator == null || script.startsWith("<>", position)) {
+                    throw new UnsupportedExpressionException("unsupported character " + c);
+                }
+                if ("(".equals(operator) || "[".equals(operator)) {
+                    depth++;
+                } else if (")".equals(operator) || "]".equals(operator)) {
+                    depth--;
+                }
+                tokens.add(new Token(TokenType.OPERATOR, operator, null));
+                position += operator.length();
+            }
+        }
+        tokens.add(new Token(TokenType.END, "", null));
+        return tokens;
+    }
+
+    private static int tokeniseNumber(final String script, final int start, final List<Token> tokens) throws UnsupportedExpressionException {
+        int position = start;
+        boolean isFloat = false;
+        while (position < script.length() && Character.isDigit(script.charAt(position))) {
+            position++;
+        }
+        if (position < script.length() && script.charAt(position) == '.') {
+            isFloat = true;
+            position++;
+            while (position < script.length() && Character.isDigit(script.charAt(position))) {
+                position++;
+            }
+        }
+        if (position < script.length() && (script.charAt(position) == 'e' || script.charAt(position) == 'E')) {
+            isFloat = true;
+            position++;
+            if (position < script.length() && (script.charAt(position) == '+' || script.charAt(position) == '-')) {
+                position++;
+            }
+            final int exponentStart = position;
+            while (position < script.length() && Character.isDigit(script.charAt(position))) {
+                position++;
+            }
+            if (position == exponentStart) {
+                throw new UnsupportedExpressionException("malformed number");
+            }
+        }
+
+        // hexadecimal, octal and long literals, and imaginary numbers, are left to the script engine
+        final String text = script.substring(start, position);
+        if ((position < script.length() && isWordCharacter(script.charAt(position))) || (!isFloat && text.length() > 1 && text.charAt(0) == '0')) {
+            throw new UnsupportedExpressionException("unsupported number " + text);
+        }
+
+        final Object value;
+        try {
+            if (isFloat) {
+                value = Double.parseDouble(text);
+            } else {
+                final long longValue = Long.parseLong(text);
+                value = longValue == (int) longValue ? (Object) (int) longValue : (Object) longValue;
+            }
+        } catch (final NumberFormatException ex) {
+            throw new UnsupportedExpressionException("unsupported number " + text);
+        }
+        tokens.add(new Token(TokenType.NUMBER, text, value));
+        return position;
+    }
+
+    private static int tokeniseString(final String script, final int start, final List<Token> tokens) throws UnsupportedExpressionException {
+        final char quote = script.charAt(start);
+        if (script.startsWith(String.valueOf(new char[]{quote, quote, quote}), start)) {
+            throw new UnsupportedExpressionException("triple quoted string");
+        }
+        final StringBuilder value = new StringBuilder();
+        int position = start + 1;
+        while (position < script.length() && script.charAt(position) != quote) {
+            char c = script.charAt(position++);
+            if (c == '\\' && position < script.length()) {
+                switch (script.charAt(position++)) {
+                    case '\\':
+                        c = '\\';
+                        break;
+                    case '\'':
+                        c = '\'';
+                        break;
+                    case '"':
+                        c = '"';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    default:
+                        throw new UnsupportedExpressionException("unsupported escape in string");
+                }
+            } else if (c == '\n' || c >= 128) {
+                throw new UnsupportedExpressionException("unsupported character in string");
+            }
+            value.append(c);
+        }
+        if (position == script.length()) {
+            throw new UnsupportedExpressionException("unterminated string");
+        }
+        tokens.add(new Token(TokenType.STRING, script.substring(start, position + 1), value.toString()));
+        return position + 1;
+    }
+
+    private Token peek() {
+        return tokens.get(next);
+    }
+
+    private boolean accept(final TokenType type, final String text) {
+        final Token token = peek();
+        if (token.type == type && (text == null || text.equals(token.text))) {
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptOperator(final String operator) {
+        return accept(TokenType.OPERATOR, operator);
+    }
+
+    private boolean acceptKeyword(final String keyword) {
+        return accept(TokenType.NAME, keyword);
+    }
+
+    private void expect(final TokenType type, final String text) throws UnsupportedExpressionException {
+        if (!accept(type, text)) {
+            throw new UnsupportedExpressionException("unexpected " + (peek().type == TokenType.END ? "end of script" : peek().text));
+        }
+    }
+
+    private CalculatorExpression parseExpression() throws UnsupportedExpressionException {
+        final CalculatorExpression body = parseDisjunction();
+        if (!acceptKeyword("if")) {
+            return body;
+        }
+        final CalculatorExpression condition = parseDisjunction();
+        expect(TokenType.NAME, "else");
+        final CalculatorExpression orElse = parseExpression();
+        return elementId -> CalculatorOperators.isTrue(condition.evaluate(elementId)) ? body.evaluate(elementId) : orElse.evaluate(elementId);
+    }
+
+    private CalculatorExpression parseDisjunction() throws UnsupportedExpressionException {
+        CalculatorExpression result = parseConjunction();
+        while (acceptKeyword("or")) {
+            final CalculatorExpression left = result;
+            final CalculatorExpression right = parseConjunction();
+            result = elementId -> {
+                final Object value = left.evaluate(elementId);
+                return CalculatorOperators.isTrue(value) ? value : right.evaluate(elementId);
+            };
+        }
+        return result;
+    }
+
+    private CalculatorExpression parseConjunction() throws UnsupportedExpressionException {
+        CalculatorExpression result = parseInversion();
+        while (acceptKeyword("and")) {
+            final CalculatorExpression left = result;
+            final CalculatorExpression right = parseInversion();
+            result = elementId -> {
+                final Object value = left.evaluate(elementId);
+                return CalculatorOperators.isTrue(value) ? right.evaluate(elementId) : value;
+            };
+        }
+        return result;
+    }
+
+    private CalculatorExpression parseInversion() throws UnsupportedExpressionException {
+        if (acceptKeyword("not")) {
+            final CalculatorExpression operand = parseInversion();
+            return elementId -> !CalculatorOperators.isTrue(operand.evaluate(elementId));
+        }
+        return parseComparison();
+    }
+
+    /**
+     * A comparison operator. Chained comparisons evaluate each operand once and
+     * give the first false result, as in python.
+     */
+    @FunctionalInterface
+    private interface Comparison {
+
+        Object compare(final Object left, final Object right);
+    }
+
+    private CalculatorExpression parseComparison() throws UnsupportedExpressionException {
+        final CalculatorExpression first = parseSum();
+        final List<Comparison> comparisons = new ArrayList<>();
+        final List<CalculatorExpression> operands = new ArrayList<>();
+        while (true) {
+            final Comparison comparison;
+            if (acceptOperator("==")) {
+                comparison = CalculatorOperators::equal;
+            } else if (acceptOperator("!=")) {
+                comparison = (left, right) -> !CalculatorOperators.equal(left, right);
+            } else if (acceptOperator("<")) {
+                comparison = CalculatorOperators::lessThan;
+            } else if (acceptOperator("<=")) {
+                comparison = CalculatorOperators::lessThanOrEqual;
+            } else if (acceptOperator(">")) {
+                comparison = CalculatorOperators::greaterThan;
+            } else if (acceptOperator(">=")) {
+                comparison = CalculatorOperators::greaterThanOrEqual;
+            } else if (acceptKeyword("in")) {
+                comparison = (left, right) -> CalculatorOperators.contains(right, left);
+            } else if (peek().type == TokenType.NAME && "not".equals(peek().text) && tokens.get(next + 1).type == TokenType.NAME && "in".equals(tokens.get(next + 1).text)) {
+                next += 2;
+                comparison = (left, right) -> !CalculatorOperators.contains(right, left);
+            } else if (acceptKeyword("is")) {
+                // only comparisons with None are compiled; the obliterator is not None
+                final boolean negated = acceptKeyword("not");
+                if (!acceptKeyword("None")) {
+                    throw new UnsupportedExpressionException("identity comparison");
+                }
+                comparisons.add((left, right) -> (left == CalculatorOperators.NONE) != negated);
+                operands.add(elementId -> CalculatorOperators.NONE);
+                continue;
+            } else {
+                break;
+            }
+            comparisons.add(comparison);
+            operands.add(parseSum());
+        }
+
+        if (comparisons.isEmpty()) {
+            return first;
+        }
+        final Comparison[] comparisonArray = comparisons.toArray(new Comparison[comparisons.size()]);
+        final CalculatorExpression[] operandArray = operands.toArray(new CalculatorExpression[operands.size()]);
+        return elementId -> {
+            Object left = first.evaluate(elementId);
+            Object result = null;
+            for (int i = 0; i < comparisonArray.length; i++) {
+                final Object right = operandArray[i].evaluate(elementId);
+                result = comparisonArray[i].compare(left, right);
+                if (!CalculatorOperators.isTrue(result)) {
+                    return result;
+                }
+                left = right;
+            }
+            return result;
+        };
+    }
+
+    private CalculatorExpression parseSum() throws UnsupportedExpressionException {
+        CalculatorExpression result = parseTerm();
+        while (true) {
+            final CalculatorExpression left = result;
+            if (acceptOperator("+")) {
+                final CalculatorExpression right = parseTerm();
+                result = elementId -> CalculatorOperators.add(left.evaluate(elementId), right.evaluate(elementId));
+            } else if (acceptOperator("-")) {
+                final CalculatorExpression right = parseTerm();
+                result = elementId -> CalculatorOperators.subtract(left.evaluate(elementId), right.evaluate(elementId));
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private CalculatorExpression parseTerm() throws UnsupportedExpressionException {
+        CalculatorExpression result = parseFactor();
+        while (true) {
+            final CalculatorExpression left = result;
+            if (acceptOperator("*")) {
+                final CalculatorExpression right = parseFactor();
+                result = elementId -> CalculatorOperators.multiply(left.evaluate(elementId), right.evaluate(elementId));
+            } else if (acceptOperator("/")) {
+                final CalculatorExpression right = parseFactor();
+                result = elementId -> CalculatorOperators.divide(left.evaluate(elementId), right.evaluate(elementId));
+            } else if (acceptOperator("//")) {
+                final CalculatorExpression right = parseFactor();
+                result = elementId -> CalculatorOperators.floorDivide(left.evaluate(elementId), right.evaluate(elementId));
+            } else if (acceptOperator("%")) {
+                final CalculatorExpression right = parseFactor();
+                result = elementId -> CalculatorOperators.modulo(left.evaluate(elementId), right.evaluate(elementId));
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private CalculatorExpression parseFactor() throws UnsupportedExpressionException {
+        if (acceptOperator("-")) {
+            final CalculatorExpression operand = parseFactor();
+            return elementId -> CalculatorOperators.negate(operand.evaluate(elementId));
+        } else if (acceptOperator("+")) {
+            final CalculatorExpression operand = parseFactor();
+            return elementId -> CalculatorOperators.plus(operand.evaluate(elementId));
+        }
+        final CalculatorExpression base = parsePrimary();
+        if (acceptOperator("**")) {
+            final CalculatorExpression exponent = parseFactor();
+            return elementId -> CalculatorOperators.power(base.evaluate(elementId), exponent.evaluate(elementId));
+        }
+        return base;
+    }
+
+    private CalculatorExpression parsePrimary() throws UnsupportedExpressionException {
+        CalculatorExpression result = parseAtom();
+        while (true) {
+            final CalculatorExpression target = result;
+            if (acceptOperator("[")) {
+                final CalculatorExpression index = parseExpression();
+                expect(TokenType.OPERATOR, "]");
+                result = elementId -> CalculatorOperators.index(target.evaluate(elementId), index.evaluate(elementId));
+            } else if (acceptOperator(".")) {
+                final Token method = peek();
+                expect(TokenType.NAME, null);
+                expect(TokenType.OPERATOR, "(");
+                result = compileMethod(target, method.text, parseArguments());
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private CalculatorExpression parseAtom() throws UnsupportedExpressionException {
+        final Token token = peek();
+        switch (token.type) {
+            case NUMBER:
+            case STRING:
+                next++;
+                return elementId -> token.value;
+            case ATTRIBUTE:
+                next++;
+                if (peek().type == TokenType.OPERATOR && "(".equals(peek().text)) {
+                    throw new UnsupportedExpressionException("call to attribute " + token.text);
+                }
+                return compileAttribute((AttributeReference) token.value);
+            case NAME:
+                next++;
+                if (acceptOperator("(")) {
+                    return compileFunction(token.text, parseArguments());
+                }
+                return compileName(token.text);
+            case OPERATOR:
+                if (acceptOperator("(")) {
+                    final CalculatorExpression result = parseExpression();
+                    expect(TokenType.OPERATOR, ")");
+                    return result;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new UnsupportedExpressionException("unexpected " + (token.type == TokenType.END ? "end of script" : token.text));
+    }
+
+    // Parses the arguments of a call, following its opening parenthesis.
+    private CalculatorExpression[] parseArguments() throws UnsupportedExpressionException {
+        final List<CalculatorExpression> arguments = new ArrayList<>();
+        if (!acceptOperator(")")) {
+            do {
+                arguments.add(parseExpression());
+            } while (acceptOperator(","));
+            expect(TokenType.OPERATOR, ")");
+        }
+        return arguments.toArray(new CalculatorExpression[arguments.size()]);
+    }
+
+    private CalculatorExpression compileAttribute(final AttributeReference reference) throws UnsupportedExpressionException {
+        // using an attribute in the wrong context is an error reported by the script engine
+        if ((reference.elementType == GraphElementType.VERTEX && elementType != GraphElementType.VERTEX)
+                || (reference.elementType == GraphElementType.TRANSACTION && elementType == GraphElementType.VERTEX)) {
+            throw new UnsupportedExpressionException("attribute " + reference.text + " used in the wrong context");
+        }
+
+        final GraphElementType attributeElementType = elementType == GraphElementType.VERTEX || !reference.prefix.isEmpty() ? GraphElementType.VERTEX : GraphElementType.TRANSACTION;
+        final int attributeId = graph.getAttribute(attributeElementType, reference.attributeName);
+        if (attributeId == Graph.NOT_FOUND) {
+            throw new UnsupportedExpressionException("attribute " + reference.text + " not found");
+        }
+
+        switch (reference.prefix) {
+            case SOURCE_PREFIX:
+                return elementId -> readAttribute(attributeId, graph.getTransactionSourceVertex(elementId));
+            case DESTINATION_PREFIX:
+                return elementId -> readAttribute(attributeId, graph.getTransactionDestinationVertex(elementId));
+            default:
+                return elementId -> readAttribute(attributeId, elementId);
+        }
+    }
+
+    private Object readAttribute(final int attributeId, final int elementId) {
+        return CalculatorOperators.fromGraph(CalculatorAttributeValue.handleSpecialAttributeTypes(graph.getObjectValue(attributeId, elementId)));
+    }
+
+    private CalculatorExpression compileName(final String name) throws UnsupportedExpressionException {
+        switch (name) {
+            case "True":
+                return elementId -> Boolean.TRUE;
+            case "False":
+                return elementId -> Boolean.FALSE;
+            case "None":
+                return elementId -> CalculatorOperators.NONE;
+            default:
+                break;
+        }
+
+        for (final CalculatorVariable variable : CalculatorVariable.values()) {
+            if (variable.getVariableName().equals(name)) {
+                if (variable.getElementType() != null && (variable.getElementType() == GraphElementType.VERTEX) != (elementType == GraphElementType.VERTEX)) {
+                    throw new UnsupportedExpressionException("variable " + name + " used in the wrong context");
+                }
+                variable.init(graph);
+                return elementId -> CalculatorOperators.fromGraph(variable.getValue(graph, elementType, elementId));
+            }
+        }
+
+        if (MATH_CONSTANTS.containsKey(name)) {
+            final Double value = MATH_CONSTANTS.get(name);
+            return elementId -> value;
+        }
+
+        throw new UnsupportedExpressionException("unsupported name " + name);
+    }
+
+    private static void checkArgumentCount(final String function, final CalculatorExpression[] arguments, final int... counts) throws UnsupportedExpressionException {
+        for (final int count : counts) {
+            if (arguments.length == count) {
+                return;
+            }
+        }
+        throw new UnsupportedExpressionException(function + " called with " + arguments.length + " arguments");
+    }
+
+    private CalculatorExpression compileFunction(final String function, final CalculatorExpression[] arguments) throws UnsupportedExpressionException {
+        switch (function) {
+            case "has_neighbour":
+            case "count_neighbours":
+            case "for_neighbours":
+                return compileNeighbourFunction(function, arguments);
+            case "abs":
+                checkArgumentCount(function, arguments, 1);
+                return elementId -> CalculatorOperators.abs(arguments[0].evaluate(elementId));
+            case "len":
+                checkArgumentCount(function, arguments, 1);
+                return elementId -> CalculatorOperators.len(arguments[0].evaluate(elementId));
+            case "str":
+                checkArgumentCount(function, arguments, 1);
+                return elementId -> CalculatorOperators.str(arguments[0].evaluate(elementId));
+            case "int":
+                checkArgumentCount(function, arguments, 1);
+                return elementId -> CalculatorOperators.toInt(arguments[0].evaluate(elementId));
+            case "float":
+                checkArgumentCount(function, arguments, 1);
+                return elementId -> CalculatorOperators.toFloat(arguments[0].evaluate(elementId));
+            case "round":
+                checkArgumentCount(function, arguments, 1);
+                return elementId -> CalculatorOperators.round(arguments[0].evaluate(elementId));
+            case "sum":
+                checkArgumentCount(function, arguments, 1);
+                return elementId -> CalculatorOperators.sum(asList(function, arguments[0].evaluate(elementId)));
+            case "min":
+            case "max":
+                if (arguments.length == 0) {
+                    throw new UnsupportedExpressionException(function + " called with no arguments");
+                }
+                final boolean largest = "max".equals(function);
+                return elementId -> CalculatorOperators.extreme(function, arguments.length == 1 ? asList(function, arguments[0].evaluate(elementId)) : evaluateAll(arguments, elementId), largest);
+            default:
+                return compileMathFunction(function, arguments);
+        }
+    }
+
+    private static List<?> asList(final String function, final Object value) {
+        if (!(value instanceof List)) {
+            throw new CalculatorOperators.UnsupportedOperandException(function + " of " + (value == null ? "null" : value.getClass().getSimpleName()));
+        }
+        return (List<?>) value;
+    }
+
+    private static List<Object> evaluateAll(final CalculatorExpression[] expressions, final int elementId) {
+        final Object[] values = new Object[expressions.length];
+        for (int i = 0; i < expressions.length; i++) {
+            values[i] = expressions[i].evaluate(elementId);
+        }
+        return Arrays.asList(values);
+    }
+
+    private static CalculatorExpression compileMathFunction(final String function, final CalculatorExpression[] arguments) throws UnsupportedExpressionException {
+        if (arguments.length == 1 && UNARY_MATH_FUNCTIONS.containsKey(function)) {
+            final DoubleUnaryOperator operator = UNARY_MATH_FUNCTIONS.get(function);
+            return elementId -> {
+                final double x = CalculatorOperators.number(function, arguments[0].evaluate(elementId));
+                return CalculatorOperators.checked(function, operator.applyAsDouble(x), x);
+            };
+        } else if (arguments.length == 2 && BINARY_MATH_FUNCTIONS.containsKey(function)) {
+            final DoubleBinaryOperator operator = BINARY_MATH_FUNCTIONS.get(function);
+            return elementId -> {
+                final double x = CalculatorOperators.number(function, arguments[0].evaluate(elementId));
+                final double y = CalculatorOperators.number(function, arguments[1].evaluate(elementId));
+                return CalculatorOperators.checked(function, operator.applyAsDouble(x, y), x, y);
+            };
+        }
+        throw new UnsupportedExpressionException("unsupported function " + function);
+    }
+
+    /**
+     * The neighbour utilities, whose arguments are evaluated for each neighbour
+     * of a vertex other than the vertex itself.
+     */
+    private CalculatorExpression compileNeighbourFunction(final String function, final CalculatorExpression[] arguments) throws UnsupportedExpressionException {
+        if (elementType != GraphElementType.VERTEX) {
+            throw new UnsupportedExpressionException(function + " used in the wrong context");
+        }
+        switch (function) {
+            case "has_neighbour":
+                checkArgumentCount(function, arguments, 1);
+                return vertexId -> {
+                    final int neighbourCount = graph.getVertexNeighbourCount(vertexId);
+                    for (int i = 0; i < neighbourCount; i++) {
+                        final int neighbourId = graph.getVertexNeighbour(vertexId, i);
+                        if (neighbourId != vertexId && CalculatorOperators.isTrue(arguments[0].evaluate(neighbourId))) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            case "count_neighbours":
+                checkArgumentCount(function, arguments, 1);
+                return vertexId -> {
+                    int count = 0;
+                    final int neighbourCount = graph.getVertexNeighbourCount(vertexId);
+                    for (int i = 0; i < neighbourCount; i++) {
+                        final int neighbourId = graph.getVertexNeighbour(vertexId, i);
+                        if (neighbourId != vertexId && CalculatorOperators.isTrue(arguments[0].evaluate(neighbourId))) {
+                            count++;
+                        }
+                    }
+                    return count;
+                };
+            default:
+                checkArgumentCount(function, arguments, 1, 2);
+                final CalculatorExpression condition = arguments.length == 2 ? arguments[0] : null;
+                final CalculatorExpression computation = arguments[arguments.length - 1];
+                return vertexId -> {
+                    final List<Object> results = new ArrayList<>();
+                    final int neighbourCount = graph.getVertexNeighbourCount(vertexId);
+                    for (int i = 0; i < neighbourCount; i++) {
+                        final int neighbourId = graph.getVertexNeighbour(vertexId, i);
+                        if (neighbourId != vertexId && (condition == null || CalculatorOperators.isTrue(condition.evaluate(neighbourId)))) {
+                            final Object result = computation.evaluate(neighbourId);
+                            if (!CalculatorOperators.isNull(result)) {
+                                results.add(result);
+                            }
+                        }
+                    }
+                    return results;
+                };
+        }
+    }
+
+    private static CalculatorExpression compileMethod(final CalculatorExpression target, final String method, final CalculatorExpression[] arguments) throws UnsupportedExpressionException {
+        switch (method) {
+            case "upper":
+                checkArgumentCount(method, arguments, 0);
+                return elementId -> CalculatorOperators.upper(target.evaluate(elementId));
+            case "lower":
+                checkArgumentCount(method, arguments, 0);
+                return elementId -> CalculatorOperators.lower(target.evaluate(elementId));
+            case "strip":
+                checkArgumentCount(method, arguments, 0);
+                return elementId -> CalculatorOperators.strip(target.evaluate(elementId));
+            case "startswith":
+                checkArgumentCount(method, arguments, 1);
+                return elementId -> CalculatorOperators.startsWith(target.evaluate(elementId), arguments[0].evaluate(elementId));
+            case "endswith":
+                checkArgumentCount(method, arguments, 1);
+                return elementId -> CalculatorOperators.endsWith(target.evaluate(elementId), arguments[0].evaluate(elementId));
+            default:
+                throw new UnsupportedExpressionException("unsupported method " + method);
+        }
+    }
+}
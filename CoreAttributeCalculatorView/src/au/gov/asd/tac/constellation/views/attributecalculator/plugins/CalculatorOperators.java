@@ -0,0 +1,562 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.attributecalculator.plugins;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * The operators and functions available to a {@link CalculatorExpression},
+ * implemented with the semantics of the python 2 script engine.
+ * <p>
+ * Values are Integer, Long, Double, Boolean, String or List, with null standing
+ * in for the obliterator and {@link #NONE} for None. Wherever python would
+ * raise an error, or the result depends on python behaviour which is not
+ * reproduced here, an {@link UnsupportedOperandException} is thrown so that
+ * the script can be handed to the script engine instead.
+ *
+ * @author agent
+ */
+final class CalculatorOperators {
+
+    static final Object NONE = new Object() {
+        @Override
+        public String toString() {
+            return "None";
+        }
+    };
+
+    private static final Pattern FLOAT_PATTERN = Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+    private static final Pattern INT_PATTERN = Pattern.compile("[+-]?\\d+");
+
+    private CalculatorOperators() {
+    }
+
+    /**
+     * Thrown when a value is used in a way which only the script engine can
+     * evaluate faithfully.
+     */
+    static final class UnsupportedOperandException extends RuntimeException {
+
+        UnsupportedOperandException(final String message) {
+            super(message);
+        }
+    }
+
+    private static UnsupportedOperandException unsupported(final String operator, final Object... operands) {
+        final StringBuilder message = new StringBuilder(operator);
+        for (final Object operand : operands) {
+            message.append(' ').append(operand == null ? "null" : operand.getClass().getSimpleName());
+        }
+        return new UnsupportedOperandException(message.toString());
+    }
+
+    /**
+     * Convert a value read from the graph to the representation used by
+     * expressions.
+     */
+    static Object fromGraph(final Object value) {
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        } else if (value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        return value;
+    }
+
+    /**
+     * Convert the value of an expression to the value which is stored in the
+     * graph.
+     */
+    static Object toGraph(final Object value) {
+        if (value == NONE) {
+            return null;
+        } else if (value instanceof List) {
+            throw unsupported("result", value);
+        }
+        return value;
+    }
+
+    static boolean isNull(final Object value) {
+        return value == null || value == NONE;
+    }
+
+    private static boolean isIntegral(final Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Boolean;
+    }
+
+    private static boolean isNumber(final Object value) {
+        return isIntegral(value) || value instanceof Double;
+    }
+
+    private static long longValue(final Object value) {
+        return value instanceof Boolean ? ((Boolean) value ? 1 : 0) : ((Number) value).longValue();
+    }
+
+    private static double doubleValue(final Object value) {
+        return value instanceof Boolean ? ((Boolean) value ? 1 : 0) : ((Number) value).doubleValue();
+    }
+
+    // python promotes int to long on overflow, and long never demotes
+    private static Object integerResult(final long result, final Object left, final Object right) {
+        if (left instanceof Long || right instanceof Long || result != (int) result) {
+            return result;
+        }
+        return (int) result;
+    }
+
+    static boolean isTrue(final Object value) {
+        if (isNull(value)) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (isIntegral(value)) {
+            return longValue(value) != 0;
+        } else if (value instanceof Double) {
+            return (Double) value != 0;
+        } else if (value instanceof String) {
+            return !((String) value).isEmpty();
+        } else if (value instanceof List) {
+            return !((List<?>) value).isEmpty();
+        }
+        throw unsupported("truth", value);
+    }
+
+    static Object add(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return null;
+        } else if (isIntegral(left) && isIntegral(right)) {
+            return integerResult(Math.addExact(longValue(left), longValue(right)), left, right);
+        } else if (isNumber(left) && isNumber(right)) {
+            return doubleValue(left) + doubleValue(right);
+        } else if (left instanceof String && right instanceof String) {
+            return (String) left + right;
+        }
+        throw unsupported("+", left, right);
+    }
+
+    static Object subtract(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return null;
+        } else if (isIntegral(left) && isIntegral(right)) {
+            return integerResult(Math.subtractExact(longValue(left), longValue(right)), left, right);
+        } else if (isNumber(left) && isNumber(right)) {
+            return doubleValue(left) - doubleValue(right);
+        }
+        throw unsupported("-", left, right);
+    }
+
+    static Object multiply(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return null;
+        } else if (isIntegral(left) && isIntegral(right)) {
+            return integerResult(Math.multiplyExact(longValue(left), longValue(right)), left, right);
+        } else if (isNumber(left) && isNumber(right)) {
+            return doubleValue(left) * doubleValue(right);
+        } else if (left instanceof String && isIntegral(right)) {
+            return repeat((String) left, longValue(right));
+        } else if (isIntegral(left) && right instanceof String) {
+            return repeat((String) right, longValue(left));
+        }
+        throw unsupported("*", left, right);
+    }
+
+    private static String repeat(final String value, final long count) {
+        return count <= 0 ? "" : value.repeat(Math.toIntExact(count));
+    }
+
+    /**
+     * Division as in python 2, where dividing two integers floors the result.
+     * The obliterator only defines true division, so python 2 division of or
+     * by it is an error.
+     */
+    static Object divide(final Object left, final Object right) {
+        if (left == null || right == null) {
+            throw unsupported("/", left, right);
+        } else if (isIntegral(left) && isIntegral(right)) {
+            return floorDivide(left, right);
+        } else if (isNumber(left) && isNumber(right)) {
+            final double divisor = doubleValue(right);
+            if (divisor == 0) {
+                throw unsupported("/ by zero", left, right);
+            }
+            return doubleValue(left) / divisor;
+        }
+        throw unsupported("/", left, right);
+    }
+
+    static Object floorDivide(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return null;
+        } else if (isIntegral(left) && isIntegral(right)) {
+            final long divisor = longValue(right);
+            if (divisor == 0 || (divisor == -1 && longValue(left) == Long.MIN_VALUE)) {
+                throw unsupported("// by zero", left, right);
+            }
+            return integerResult(Math.floorDiv(longValue(left), divisor), left, right);
+        } else if (isNumber(left) && isNumber(right)) {
+            final double divisor = doubleValue(right);
+            if (divisor == 0) {
+                throw unsupported("// by zero", left, right);
+            }
+            return Math.floor(doubleValue(left) / divisor);
+        }
+        throw unsupported("//", left, right);
+    }
+
+    /**
+     * The obliterator has no reflected modulo, so only the obliterator modulo
+     * a value gives the obliterator.
+     */
+    static Object modulo(final Object left, final Object right) {
+        if (left == null) {
+            return null;
+        } else if (right == null) {
+            throw unsupported("%", left, right);
+        } else if (isIntegral(left) && isIntegral(right)) {
+            final long divisor = longValue(right);
+            if (divisor == 0) {
+                throw unsupported("% by zero", left, right);
+            }
+            return integerResult(Math.floorMod(longValue(left), divisor), left, right);
+        } else if (isNumber(left) && isNumber(right)) {
+            final double divisor = doubleValue(right);
+            if (divisor == 0) {
+                throw unsupported("% by zero", left, right);
+            }
+            // python gives the remainder the sign of the divisor
+            double remainder = doubleValue(left) % divisor;
+            if (remainder != 0 && (remainder < 0) != (divisor < 0)) {
+                remainder += divisor;
+            }
+            return remainder;
+        }
+        throw unsupported("%", left, right);
+    }
+
+    static Object power(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return null;
+        } else if (isIntegral(left) && isIntegral(right) && longValue(right) >= 0) {
+            final long base = longValue(left);
+            final long exponent = longValue(right);
+            long result = 1;
+            if (base == 0 || base == 1) {
+                result = exponent == 0 ? 1 : base;
+            } else if (base == -1) {
+                result = exponent % 2 == 0 ? 1 : -1;
+            } else {
+                // any other base overflows within 64 multiplications
+                for (long step = 0; step < exponent; step++) {
+                    result = Math.multiplyExact(result, base);
+                }
+            }
+            return integerResult(result, left, right);
+        } else if (isNumber(left) && isNumber(right)) {
+            final double base = doubleValue(left);
+            final double exponent = doubleValue(right);
+            if ((base == 0 && exponent < 0) || (base < 0 && exponent != Math.rint(exponent))) {
+                throw unsupported("**", left, right);
+            }
+            return Math.pow(base, exponent);
+        }
+        throw unsupported("**", left, right);
+    }
+
+    static Object negate(final Object value) {
+        if (isIntegral(value)) {
+            return integerResult(Math.negateExact(longValue(value)), value, value);
+        } else if (value instanceof Double) {
+            return -(Double) value;
+        }
+        throw unsupported("-", value);
+    }
+
+    static Object plus(final Object value) {
+        if (isIntegral(value)) {
+            return integerResult(longValue(value), value, value);
+        } else if (value instanceof Double) {
+            return value;
+        }
+        throw unsupported("+", value);
+    }
+
+    static boolean equal(final Object left, final Object right) {
+        if (isNull(left) || isNull(right)) {
+            // the obliterator is equal to None and to itself, but nothing else
+            return isNull(left) && isNull(right);
+        } else if (isIntegral(left) && isIntegral(right)) {
+            return longValue(left) == longValue(right);
+        } else if (isNumber(left) && isNumber(right)) {
+            return doubleValue(left) == doubleValue(right);
+        } else if (isNumber(left) || isNumber(right)) {
+            return false;
+        }
+        return Objects.equals(left, right);
+    }
+
+    /**
+     * Compare two values for ordering. Python allows any two values to be
+     * ordered, but only numbers and strings are ordered here.
+     */
+    private static int compare(final Object left, final Object right) {
+        if (isIntegral(left) && isIntegral(right)) {
+            return Long.compare(longValue(left), longValue(right));
+        } else if (isNumber(left) && isNumber(right)) {
+            return Double.compare(doubleValue(left), doubleValue(right));
+        } else if (left instanceof String && right instanceof String) {
+            return ((String) left).compareTo((String) right);
+        }
+        throw unsupported("compare", left, right);
+    }
+
+    /**
+     * An ordering comparison. Comparing with the obliterator gives the
+     * obliterator, which is false.
+     */
+    static Object lessThan(final Object left, final Object right) {
+        return left == null || right == null ? null : compare(left, right) < 0;
+    }
+
+    static Object lessThanOrEqual(final Object left, final Object right) {
+        return left == null || right == null ? null : compare(left, right) <= 0;
+    }
+
+    static Object greaterThan(final Object left, final Object right) {
+        return left == null || right == null ? null : compare(left, right) > 0;
+    }
+
+    static Object greaterThanOrEqual(final Object left, final Object right) {
+        return left == null || right == null ? null : compare(left, right) >= 0;
+    }
+
+    static boolean contains(final Object container, final Object item) {
+        if (container == null) {
+            return false;
+        } else if (container instanceof String && item instanceof String) {
+            return ((String) container).contains((String) item);
+        } else if (container instanceof List) {
+            for (final Object element : (List<?>) container) {
+                if (equal(element, item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        throw unsupported("in", container, item);
+    }
+
+    static Object index(final Object sequence, final Object index) {
+        if (sequence == null) {
+            return null;
+        } else if (!isIntegral(index)) {
+            throw unsupported("[]", sequence, index);
+        }
+        final long position = longValue(index);
+        if (sequence instanceof List) {
+            final List<?> list = (List<?>) sequence;
+            return list.get(Math.toIntExact(position < 0 ? list.size() + position : position));
+        } else if (sequence instanceof String) {
+            final String string = (String) sequence;
+            final int offset = Math.toIntExact(position < 0 ? string.length() + position : position);
+            return string.substring(offset, offset + 1);
+        }
+        throw unsupported("[]", sequence, index);
+    }
+
+    static Object abs(final Object value) {
+        if (isIntegral(value)) {
+            final long result = longValue(value);
+            return integerResult(result < 0 ? Math.negateExact(result) : result, value, value);
+        } else if (value instanceof Double) {
+            return Math.abs((Double) value);
+        }
+        throw unsupported("abs", value);
+    }
+
+    static Object len(final Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return ((String) value).codePointCount(0, ((String) value).length());
+        } else if (value instanceof List) {
+            return ((List<?>) value).size();
+        }
+        throw unsupported("len", value);
+    }
+
+    /**
+     * The string form of a value. Floats are formatted differently by python
+     * and are left to the script engine.
+     */
+    static Object str(final Object value) {
+        if (value == null) {
+            return "";
+        } else if (value == NONE) {
+            return "None";
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? "True" : "False";
+        } else if (isIntegral(value) || value instanceof String) {
+            return value.toString();
+        }
+        throw unsupported("str", value);
+    }
+
+    static Object toInt(final Object value) {
+        if (value == null) {
+            return 0;
+        } else if (isIntegral(value)) {
+            return integerResult(longValue(value), value, value);
+        } else if (value instanceof Double) {
+            final double truncated = (Double) value;
+            if (Double.isNaN(truncated) || Math.abs(truncated) >= 0x1p63) {
+                throw unsupported("int", value);
+            }
+            return integerResult((long) truncated, 0, 0);
+        } else if (value instanceof String && INT_PATTERN.matcher(((String) value).trim()).matches()) {
+            try {
+                return integerResult(Long.parseLong(((String) value).trim()), 0, 0);
+            } catch (final NumberFormatException ex) {
+                throw unsupported("int", value);
+            }
+        }
+        throw unsupported("int", value);
+    }
+
+    static Object toFloat(final Object value) {
+        if (isNumber(value)) {
+            return doubleValue(value);
+        } else if (value instanceof String && FLOAT_PATTERN.matcher(((String) value).trim()).matches()) {
+            return Double.parseDouble(((String) value).trim());
+        }
+        throw unsupported("float", value);
+    }
+
+    /**
+     * Round half away from zero to a float, as python 2 does.
+     */
+    static Object round(final Object value) {
+        final double number = number("round", value);
+        final double magnitude = Math.abs(number);
+        double rounded = Math.floor(magnitude);
+        if (magnitude - rounded >= 0.5) {
+            rounded += 1;
+        }
+        return Math.copySign(rounded, number);
+    }
+
+    /**
+     * The largest or smallest of a list of values, taking the first of any
+     * which are equal.
+     */
+    static Object extreme(final String function, final List<?> values, final boolean largest) {
+        if (values.isEmpty()) {
+            throw unsupported(function);
+        }
+        Object result = null;
+        for (final Object value : values) {
+            if (isNull(value)) {
+                throw unsupported(function, value);
+            }
+            if (result == null || (largest ? compare(value, result) > 0 : compare(value, result) < 0)) {
+                result = value;
+            }
+        }
+        return result;
+    }
+
+    static Object sum(final List<?> values) {
+        Object result = 0;
+        for (final Object value : values) {
+            if (!isNumber(value)) {
+                throw unsupported("sum", value);
+            }
+            result = add(result, value);
+        }
+        return result;
+    }
+
+    static Object upper(final Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof String) {
+            return ((String) value).toUpperCase(Locale.ROOT);
+        }
+        throw unsupported("upper", value);
+    }
+
+    static Object lower(final Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof String) {
+            return ((String) value).toLowerCase(Locale.ROOT);
+        }
+        throw unsupported("lower", value);
+    }
+
+    static Object strip(final Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof String) {
+            return ((String) value).strip();
+        }
+        throw unsupported("strip", value);
+    }
+
+    static boolean startsWith(final Object value, final Object prefix) {
+        if (value instanceof String && prefix instanceof String) {
+            return ((String) value).startsWith((String) prefix);
+        }
+        throw unsupported("startswith", value, prefix);
+    }
+
+    static boolean endsWith(final Object value, final Object suffix) {
+        if (value instanceof String && suffix instanceof String) {
+            return ((String) value).endsWith((String) suffix);
+        }
+        throw unsupported("endswith", value, suffix);
+    }
+
+    /**
+     * The value of a numeric argument to a math function, which python
+     * requires to be a number.
+     */
+    static double number(final String function, final Object value) {
+        if (!isNumber(value)) {
+            throw unsupported(function, value);
+        }
+        return doubleValue(value);
+    }
+
+    /**
+     * The result of a math function, failing where python would raise a
+     * domain or range error rather than return a nan or an infinity.
+     */
+    static double checked(final String function, final double result, final double... arguments) {
+        boolean nanArgument = false;
+        boolean infiniteArgument = false;
+        for (final double argument : arguments) {
+            nanArgument |= Double.isNaN(argument);
+            infiniteArgument |= Double.isInfinite(argument);
+        }
+        if ((Double.isNaN(result) && !nanArgument) || (Double.isInfinite(result) && !nanArgument && !infiniteArgument)) {
+            throw unsupported(function);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.attributecalculator.plugins;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.attribute.FloatAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.StringAttributeDescription;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ * Check that the operators and functions evaluated natively by
+ * {@link CalculatorOperators} give the same result as the script engine, or
+ * leave the script to the script engine.
+ *
+ * @author agent
+ */
+public class CalculatorOperatorsNGTest {
+
+    private static final String RESULT = "result";
+    private static final String ERROR = "<error>";
+    private static final String UNSUPPORTED = "<unsupported>";
+
+    // an operand of each kind: integers, floats, strings, the obliterator (a null attribute value) and None
+    private static final String[] OPERANDS = {"a_int", "b_int", "zero_int", "a_float", "b_float", "a_string", "null_string", "None"};
+
+    private static final String[] BINARY_OPERATORS = {"+", "-", "*", "/", "//", "%", "**", "==", "!=", "<", "<=", ">", ">=", "in", "not in", "and", "or"};
+
+    private static final String[] FUNCTIONS = {"-X", "+X", "not X", "abs(X)", "len(X)", "str(X)", "int(X)", "float(X)", "round(X)",
+        "sqrt(X)", "floor(X)", "pow(X, 2)", "max(X, 1)", "min(X, 1)", "X.upper()", "X.lower()", "X.strip()", "X.startswith('a')",
+        "X.endswith('b')", "X[0]", "X[-1]", "1 if X else 0"};
+
+    private static StoreGraph createGraph() {
+        final StoreGraph graph = new StoreGraph();
+        final int aInt = graph.addAttribute(GraphElementType.VERTEX, IntegerAttributeDescription.ATTRIBUTE_NAME, "a_int", null, null, null);
+        final int bInt = graph.addAttribute(GraphElementType.VERTEX, IntegerAttributeDescription.ATTRIBUTE_NAME, "b_int", null, null, null);
+        final int zeroInt = graph.addAttribute(GraphElementType.VERTEX, IntegerAttributeDescription.ATTRIBUTE_NAME, "zero_int", null, null, null);
+        final int aFloat = graph.addAttribute(GraphElementType.VERTEX, FloatAttributeDescription.ATTRIBUTE_NAME, "a_float", null, null, null);
+        final int bFloat = graph.addAttribute(GraphElementType.VERTEX, FloatAttributeDescription.ATTRIBUTE_NAME, "b_float", null, null, null);
+        final int aString = graph.addAttribute(GraphElementType.VERTEX, StringAttributeDescription.ATTRIBUTE_NAME, "a_string", null, null, null);
+        final int nullString = graph.addAttribute(GraphElementType.VERTEX, StringAttributeDescription.ATTRIBUTE_NAME, "null_string", null, null, null);
+        graph.addAttribute(GraphElementType.VERTEX, StringAttributeDescription.ATTRIBUTE_NAME, RESULT, null, null, null);
+
+        final int vxId = graph.addVertex();
+        graph.setIntValue(aInt, vxId, 7);
+        graph.setIntValue(bInt, vxId, -2);
+        graph.setIntValue(zeroInt, vxId, 0);
+        graph.setFloatValue(aFloat, vxId, 2.5F);
+        graph.setFloatValue(bFloat, vxId, -0.5F);
+        graph.setStringValue(aString, vxId, " ab ");
+        graph.setStringValue(nullString, vxId, null);
+
+        return graph;
+    }
+
+    private static AttributeCalculatorPlugin createPlugin(final String script) {
+        return new AttributeCalculatorPlugin(GraphElementType.VERTEX, RESULT, StringAttributeDescription.ATTRIBUTE_NAME, "text/python", script, false, false);
+    }
+
+    private static String getResult(final StoreGraph graph) {
+        return graph.getStringValue(graph.getAttribute(GraphElementType.VERTEX, RESULT), graph.getVertex(0));
+    }
+
+    /**
+     * The value the script engine stores for the script, or {@link #ERROR}.
+     */
+    private static String evaluateWithScriptEngine(final String script) {
+        final StoreGraph graph = createGraph();
+        try {
+            createPlugin(script).editWithScriptEngine(graph, Graph.NOT_FOUND);
+        } catch (final PluginException ex) {
+            return ERROR;
+        }
+        return getResult(graph);
+    }
+
+    /**
+     * The value the native evaluation stores for the script, or
+     * {@link #UNSUPPORTED} if the script is left to the script engine.
+     */
+    private static String evaluateNatively(final String script) {
+        final StoreGraph graph = createGraph();
+        final CalculatorExpression expression = CalculatorExpressionCompiler.compile(graph, GraphElementType.VERTEX, script);
+        if (expression == null) {
+            return UNSUPPORTED;
+        }
+        final int vxId = graph.getVertex(0);
+        try {
+            graph.setObjectValue(graph.getAttribute(GraphElementType.VERTEX, RESULT), vxId, CalculatorOperators.toGraph(expression.evaluate(vxId)));
+        } catch (final CalculatorOperators.UnsupportedOperandException ex) {
+            return UNSUPPORTED;
+        }
+        return getResult(graph);
+    }
+
+    /**
+     * The value the plugin stores for the script, or {@link #ERROR}.
+     */
+    private static String evaluateWithPlugin(final String script) throws InterruptedException {
+        final StoreGraph graph = createGraph();
+        try {
+            createPlugin(script).edit(graph, null, null);
+        } catch (final PluginException ex) {
+            return ERROR;
+        }
+        return getResult(graph);
+    }
+
+    /**
+     * Check a script gives the same result natively as with the script
+     * engine, returning whether it was evaluated natively.
+     */
+    private static boolean checkScript(final String script) throws InterruptedException {
+        final String expected = evaluateWithScriptEngine(script);
+        final String nativeResult = evaluateNatively(script);
+        if (UNSUPPORTED.equals(nativeResult)) {
+            return false;
+        }
+        assertEquals(nativeResult, expected, script);
+        assertEquals(evaluateWithPlugin(script), expected, script);
+        return true;
+    }
+
+    @Test
+    public void binaryOperatorTest() throws InterruptedException {
+        for (final String operator : BINARY_OPERATORS) {
+            int evaluatedNatively = 0;
+            for (final String left : OPERANDS) {
+                for (final String right : OPERANDS) {
+                    if (checkScript(left + " " + operator + " " + right)) {
+                        evaluatedNatively++;
+                    }
+                }
+            }
+            assertTrue(evaluatedNatively > 0, operator);
+        }
+    }
+
+    @Test
+    public void functionTest() throws InterruptedException {
+        for (final String function : FUNCTIONS) {
+            int evaluatedNatively = 0;
+            for (final String operand : OPERANDS) {
+                if (checkScript(function.replace("X", operand))) {
+                    evaluatedNatively++;
+                }
+            }
+            assertTrue(evaluatedNatively > 0, function);
+        }
+    }
+
+    @Test
+    public void obliteratorDivisionTest() throws InterruptedException {
+        // the obliterator only defines true division, so python 2 division by it is an error
+        assertEquals(evaluateWithScriptEngine("null_string / a_int"), ERROR);
+        assertEquals(evaluateWithScriptEngine("a_int / null_string"), ERROR);
+        assertEquals(evaluateNatively("null_string / a_int"), UNSUPPORTED);
+        assertEquals(evaluateNatively("a_int / null_string"), UNSUPPORTED);
+        assertEquals(evaluateWithPlugin("null_string / a_int"), ERROR);
+
+        // and it has no reflected modulo
+        assertNull(evaluateNatively("null_string % a_int"));
+        assertEquals(evaluateNatively("a_int % null_string"), UNSUPPORTED);
+        assertEquals(evaluateWithPlugin("a_int % null_string"), ERROR);
+    }
+}
@@ -69,8 +69,10 @@ public class AdvancedFindPlugin extends SimplePlugin {
 
     @Override
     protected void execute(final PluginGraphs graphs, final PluginInteraction interaction, final PluginParameters params) throws InterruptedException {
+        interaction.setProgress(0, 0, "Finding...", true);
         final QueryServices qs = new QueryServices(graphs.getGraph());
         results = qs.advancedQuery(rules, type, isAnd);
+        interaction.setProgress(1, 0, "Found " + results.size() + " results.", true);
         interaction.notify(PluginNotificationLevel.INFO, Bundle.FindResultNotification() + results.size());
     }
 
@@ -18,19 +18,20 @@ package au.gov.asd.tac.constellation.views.find.advanced;
 import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.GraphAttribute;
 import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphIndexResult;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.plugins.PluginComputePool;
 import au.gov.asd.tac.constellation.utilities.color.ConstellationColor;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
-import org.openide.util.Exceptions;
 
 /**
  * This class contains all of the logic for performing searches on a given
@@ -56,12 +57,9 @@ import org.openide.util.Exceptions;
  */
 public class QueryServices {
 
-    private static final int AVAILABLE_THREADS = Math.max(1, (Runtime.getRuntime().availableProcessors() - 1));
-    private static final int MAX_THRESHOLD = 10000; // The maximum number of items to assign each thread (until we don't have enough threads anyway).
+    private static final int GRAIN_SIZE = 1000; // The number of elements below which a search is no longer split between threads.
     private static final String SELECTED = "selected";
-    private Graph graph;
-    private boolean[] results;
-    private List<FindResult> findResults = new ArrayList<>();
+    private final Graph graph;
 
     /**
      * Constructs a new <code>QueryServices</code>.
@@ -75,9 +73,9 @@ public class QueryServices {
     /**
      * Performs a 'quick query'.
      * <p>
-     * This method determines the maximum number of needed threads, and assigns
-     * a work package to each thread. Upon all child threads completing their
-     * queries, it joins and returns the results.
+     * The elements of the graph are searched in parallel on the plugin compute
+     * pool, one attribute at a time, with the results returned in attribute
+     * and then element order.
      *
      * @param type The <code>GraphElementType</code> to perform a quick query
      * on.
@@ -85,48 +83,37 @@ public class QueryServices {
      * @return List of <code>FindResults</code>, with each
      * <code>FindResult</code> representing an individual positive result to the
      * query.
+     * @throws InterruptedException if the query is cancelled.
      *
      * @see ArrayList
      * @see FindResult
      * @see GraphElementType
      */
-    public List<FindResult> quickQuery(final GraphElementType type, final String content) {
-        ReadableGraph rg = graph.getReadableGraph();
+    public List<FindResult> quickQuery(final GraphElementType type, final String content) throws InterruptedException {
+        final List<FindResult> findResults = new ArrayList<>();
+        final ReadableGraph rg = graph.getReadableGraph();
         try {
             final int sampleSpaceSize = type.getElementCount(rg);
 
-            if (sampleSpaceSize > 0) {
-                final int neededThreads = Math.min(AVAILABLE_THREADS, (int) Math.ceil((double) sampleSpaceSize / (double) MAX_THRESHOLD));
-                final int loadPerThread = (int) Math.ceil((double) sampleSpaceSize / (double) neededThreads);
-
-                final CyclicBarrier barrier = new CyclicBarrier(neededThreads + 1);
-
-                try {
-                    ThreadedFind[] worker = new ThreadedFind[neededThreads];
-
-                    // Create the requisite number of workers:
-                    for (int i = 0; i < neededThreads; i++) {
-                        final int workloadLBound = i * loadPerThread;
-                        final int workloadUBound = Math.min((sampleSpaceSize - 1), ((i + 1) * loadPerThread) - 1);
-
-                        worker[i] = new ThreadedFind(rg, barrier, this, type, content, i, workloadLBound, workloadUBound);
+            for (int i = 0; i < rg.getAttributeCount(type); i++) {
+                final int attrID = rg.getAttribute(type, i);
+                final String recentSearchSuffix = FindResult.SEPARATOR + rg.getAttributeName(attrID);
+                final String searchText = content.contains(recentSearchSuffix) ? content.replace(recentSearchSuffix, "") : content;
 
-                        // Start the worker now that it knows its workload:
-                        Thread t = new Thread(worker[i]);
-                        t.start();
-                    }
-                } finally {
-                    try {
-                        barrier.await();
-                    } catch (InterruptedException ex) {
-                        Exceptions.printStackTrace(ex);
-                        Thread.currentThread().interrupt();
-                    } catch (BrokenBarrierException ex) {
-                        Exceptions.printStackTrace(ex);
+                // Find the positions of matching elements in parallel:
+                final BitSet matches = PluginComputePool.reduce(sampleSpaceSize, GRAIN_SIZE, BitSet::new, (bits, elementPosition) -> {
+                    final String retrieved = rg.getStringValue(attrID, type.getElement(rg, elementPosition));
+                    if (retrieved != null && FindComparisons.StringComparisons.evaluateContains(retrieved, searchText, false)) {
+                        bits.set(elementPosition);
                     }
-                }
+                }, QueryServices::union);
 
-                return findResults; // Successfully found content.
+                final String attributeName = new GraphAttribute(rg, attrID).getName();
+                for (int elementPosition = matches.nextSetBit(0); elementPosition >= 0; elementPosition = matches.nextSetBit(elementPosition + 1)) {
+                    final int elementId = type.getElement(rg, elementPosition);
+                    final long elementUid = type.getUID(rg, elementId);
+                    findResults.add(new FindResult(elementId, elementUid, type, attributeName, rg.getStringValue(attrID, elementId)));
+                }
             }
 
             return findResults;
@@ -138,9 +125,11 @@ public class QueryServices {
     /**
      * Performs an 'advanced query'.
      * <p>
-     * This method determines the maximum number of needed threads, and assigns
-     * a work package to each thread. Upon all child threads completing their
-     * queries, it joins and returns the results.
+     * When the rules can be answered from attribute indices, only the
+     * elements found in the indices are evaluated, and the results are
+     * returned in id order. Otherwise the elements of the graph are evaluated
+     * against all of the rules in parallel on the plugin compute pool, with
+     * the results returned in element order.
      *
      * @param rules List of individual rules to perform queries for.
      * @param type The <code>GraphElementType</code> to perform a quick query
@@ -151,60 +140,41 @@ public class QueryServices {
      * @return List of <code>FindResults</code>, with each
      * <code>FindResult</code> representing an individual positive result to the
      * query.
+     * @throws InterruptedException if the query is cancelled.
      *
      * @see ArrayList
      * @see FindResult
      * @see GraphElementType
      */
-    public List<FindResult> advancedQuery(final ArrayList<FindRule> rules, final GraphElementType type, final boolean isAnd) {
+    public List<FindResult> advancedQuery(final ArrayList<FindRule> rules, final GraphElementType type, final boolean isAnd) throws InterruptedException {
+        final List<FindResult> findResults = new ArrayList<>();
         final ReadableGraph rg = graph.getReadableGraph();
         try {
+            final RuleEvaluator evaluator = new RuleEvaluator(rg);
 
-            results = new boolean[type.getElementCount(rg)];
-            Arrays.fill(results, isAnd);
-
-            final int numThreadsNeeded = Math.min(AVAILABLE_THREADS, rules.size());
-            final CyclicBarrier barrier = new CyclicBarrier(numThreadsNeeded + 1);
-
-            try {
-                // Determine the workpackage for each thread. Each 'package' is comprised of 1 or more FindRules.
-                final List<List<FindRule>> workPackage = new ArrayList<>(numThreadsNeeded);
-                for (int i = 0; i < numThreadsNeeded; i++) {
-                    workPackage.add(new ArrayList<>());
-                }
-                for (int i = 0; i < rules.size(); i++) {
-                    final int allocateTo = i % numThreadsNeeded;
-                    workPackage.get(allocateTo).add(rules.get(i));
+            // Answer the query from attribute indices where possible:
+            final BitSet selection = evaluator.select(rules, isAnd);
+            if (selection != null) {
+                for (int id = selection.nextSetBit(0); id >= 0; id = selection.nextSetBit(id + 1)) {
+                    findResults.add(new FindResult(id, type.getUID(rg, id), type));
                 }
+                return findResults;
+            }
 
-                // Allocate work and start threads:
-                for (int i = 0; i < numThreadsNeeded; i++) {
-                    final ThreadedFind tf = new ThreadedFind(rg, barrier, this, type, workPackage.get(i), isAnd, i);
-                    final Thread t = new Thread(tf);
-                    t.start();
+            // Determine which elements match in parallel:
+            final BitSet results = PluginComputePool.reduce(type.getElementCount(rg), GRAIN_SIZE, BitSet::new, (bits, i) -> {
+                if (evaluator.evaluate(rules, isAnd, type.getElement(rg, i))) {
+                    bits.set(i);
                 }
-
-            } finally {
-                // Await the conclusion of all threads:
-                try {
-                    barrier.await();
-                } catch (InterruptedException ex) {
-                    Exceptions.printStackTrace(ex);
-                    Thread.currentThread().interrupt();
-                } catch (BrokenBarrierException ex) {
-                    Exceptions.printStackTrace(ex);
-                }
-            }
+            }, QueryServices::union);
 
             // Determine the actual results from the bitset:
-            for (int i = 0; i < results.length; i++) {
-                if (results[i]) {
-                    // Construct a new FindResult and store the id and type of the found element.
-                    final int id = type.getElement(rg, i);
-                    final long uid = type.getUID(rg, id);
-                    final FindResult fr = new FindResult(id, uid, type);
-                    findResults.add(fr);
-                }
+            for (int i = results.nextSetBit(0); i >= 0; i = results.nextSetBit(i + 1)) {
+                // Construct a new FindResult and store the id and type of the found element.
+                final int id = type.getElement(rg, i);
+                final long uid = type.getUID(rg, id);
+                final FindResult fr = new FindResult(id, uid, type);
+                findResults.add(fr);
             }
 
             return findResults;
@@ -213,6 +183,11 @@ public class QueryServices {
         }
     }
 
+    private static BitSet union(final BitSet left, final BitSet right) {
+        left.or(right);
+        return left;
+    }
+
     /**
      * Selects each item in the given list on the graph.
      *
@@ -324,254 +299,157 @@ public class QueryServices {
     }
 
     /**
-     * Private class responsible for handling queries in a threaded manner.
+     * Private class responsible for evaluating advanced find rules against
+     * the elements of a graph.
      * <p>
-     * Each thread is assigned an instance of this internal class.
+     * An evaluator only reads the graph, so a single evaluator may be used to
+     * evaluate many elements at once from different threads.
      */
-    private class ThreadedFind implements Runnable {
+    private static class RuleEvaluator {
 
         private final GraphReadMethods rg;
-        private final CyclicBarrier barrier;
-        private final QueryServices parent;
-        private final List<FindRule> rules;
-        private final int threadID;
-        private final boolean simpleMode;
-        private boolean isAnd = false;
-        // Simple mode variables:
-        private int workloadLBound = -1;
-        private int workloadUBound = -1;
-        private final String content;
-        private final GraphElementType type;
 
-        /**
-         * Constructs a new <code>ThreadedFind</code>, and prepares it for a
-         * 'quick query'.
-         * <p>
-         * This constructor should only be used for quick queries.
-         * <p>
-         * This mode works by splitting the graph into roughly equal sections,
-         * with each section being searched by an individual instance of
-         * <code>ThreadedFind</code>. All results are returned in this mode,
-         * with no 'AND' or 'OR' checks occurring.
-         *
-         * @param barrier <code>CyclicBarrier</code> used to handle
-         * multi-threadedness.
-         * @param parent The <code>QueryServices</code> that instantiated this
-         * <code>ThreadedFind</code>.
-         * @param type The <code>GraphElementType</code> to perform the quick
-         * search operation on.
-         * @param content The string to search the graph for instances of.
-         * @param threadID The id of this thread.
-         * @param workloadLBound The lower index of the graph that this instance
-         * of <code>ThreadedFind</code> is responsible for querying.
-         * @param workloadUBound The upper index of the graph that this instance
-         * of <code>ThreadedFind</code> is responsible for querying.
-         *
-         * @see CyclicBarrier
-         * @see QueryServices
-         * @see GraphElementType
-         */
-        public ThreadedFind(final GraphReadMethods rg, final CyclicBarrier barrier, final QueryServices parent,
-                final GraphElementType type, final String content, final int threadID,
-                final int workloadLBound, final int workloadUBound) {
+        public RuleEvaluator(final GraphReadMethods rg) {
             this.rg = rg;
-
-            this.barrier = barrier;
-            this.parent = parent;
-
-            this.type = type;
-            this.content = content;
-
-            this.threadID = threadID;
-
-            this.workloadLBound = workloadLBound;
-            this.workloadUBound = workloadUBound;
-
-            // Disable advancedMode:
-            simpleMode = true;
-            this.rules = null;
         }
 
         /**
-         * Constructs a new <code>ThreadedFind</code>, and prepares it for an
-         * 'advanced query'.
-         * <p>
-         * This constructor should only be used for advanced queries.
-         * <p>
-         * This mode works by assigning an individual thread to each rule, and
-         * updates a central result set with results. The benefit of this mode
-         * is that shorter search durations will progress more quickly, and
-         * complex operations being performed in parallel may not need to check
-         * as many graph items.
-         * <p>
-         * The efficiency of this algorithm should be self balanced.
-         *
-         * @param barrier <code>CyclicBarrier</code> used to handle
-         * multi-threadedness.
-         * @param parent The <code>QueryServices</code> that instantiated this
-         * <code>ThreadedFind</code>.
-         * @param type The <code>GraphElementType</code> to perform the quick
-         * search operation on.
-         * @param rules List of <code>FindRule</code>s that represent the
-         * criteria that should be matched for a positive query result.
-         * @param isAnd <code>true</code> if all <code>FindRule</code> criterion
-         * should be checked as 'AND', <code>false</code> if should be checked
-         * as 'OR'.
-         * @param threadID The id of this thread.
+         * Evaluate all of the rules of an advanced query for a single element.
          *
-         * @see CyclicBarrier
-         * @see ArrayList
-         * @see FindRule
-         * @see QueryServices
-         * @see GraphElementType
+         * @param rules The rules to evaluate.
+         * @param isAnd <code>true</code> if every rule must match,
+         * <code>false</code> if any rule may match.
+         * @param item The id of the element.
+         * @return <code>true</code> if the element matches the rules.
          */
-        public ThreadedFind(final GraphReadMethods rg, final CyclicBarrier barrier, final QueryServices parent,
-                final GraphElementType type, final List<FindRule> rules,
-                final boolean isAnd, final int threadID) {
-            this.rg = rg;
-
-            this.barrier = barrier;
-
-            this.parent = parent;
-            this.rules = rules;
-            this.threadID = threadID;
-
-            // Disable quickSearch mode:
-            simpleMode = false;
-            this.type = type;
-            this.content = null;
-
-            this.isAnd = isAnd;
-        }
-
-        @Override
-        public void run() {
-            try {
-                Thread.currentThread().setName("Find.FindServices.Thread." + threadID);
-
-                if (simpleMode) {
-                    quickFind();
-                } else {
-                    advancedFind();
-                }
-
-            } finally {
-                //System.out.println(Thread.currentThread().getName() + ": lbound: "
-                //        + workloadLBound + " - ubound: " + workloadUBound);
-                // This thread is now done, so wait for all others to finish:
-                try {
-                    barrier.await();
-                } catch (InterruptedException ex) {
-                    Thread.currentThread().interrupt();
-                } catch (BrokenBarrierException ex) {
+        public boolean evaluate(final List<FindRule> rules, final boolean isAnd, final int item) {
+            for (final FindRule rule : rules) {
+                if (evaluate(rule, item) != isAnd) {
+                    return !isAnd;
                 }
             }
+            return isAnd;
         }
 
-        // <editor-fold defaultstate="collapsed" desc="Quick Find Logic">
         /**
-         * Searches the graph for occurrences of the given string.
+         * Find the elements matching the rules of an advanced query using the
+         * indices of the attributes they compare.
          * <p>
-         * Removes the recent search suffix from the search if its found in the
-         * search text. For example if the recent search was "Orange : Name"
-         * then just search for "Orange"
+         * For an 'AND' query one rule that can be answered from an index is
+         * enough, as the elements it finds are then evaluated against the
+         * other rules. An 'OR' query needs every rule to be answered from an
+         * index.
+         *
+         * @param rules The rules to evaluate.
+         * @param isAnd <code>true</code> if every rule must match,
+         * <code>false</code> if any rule may match.
+         * @return the ids of the matching elements, or <code>null</code> if
+         * the rules cannot be answered from indices.
          */
-        private void quickFind() {
-            for (int i = 0; i < rg.getAttributeCount(type); i++) {
-                final int attrID = rg.getAttribute(type, i);
-                final String recentSearchSuffix = FindResult.SEPARATOR + rg.getAttributeName(attrID);
-                final String searchText = content.contains(recentSearchSuffix) ? content.replace(recentSearchSuffix, "") : content;
-
-                for (int elementPosition = workloadLBound; elementPosition <= workloadUBound; elementPosition++) {
-                    final int elementId = type.getElement(rg, elementPosition);
-                    final long elementUid = type.getUID(rg, elementId);
-                    final String retrieved = rg.getStringValue(attrID, elementId);
+        public BitSet select(final List<FindRule> rules, final boolean isAnd) {
+            BitSet selection = null;
+            for (final FindRule rule : rules) {
+                final BitSet matches = select(rule);
+                if (matches == null) {
+                    if (!isAnd) {
+                        return null;
+                    }
+                } else if (selection == null) {
+                    selection = matches;
+                    if (isAnd) {
+                        break;
+                    }
+                } else {
+                    selection.or(matches);
+                }
+            }
 
-                    // Check if we have a match:
-                    if (retrieved != null && FindComparisons.StringComparisons.evaluateContains(retrieved, searchText, false)) {
-                        FindResult fr = new FindResult(elementId, elementUid, type, new GraphAttribute(rg, attrID).getName(), retrieved);
-                        parent.findResults.add(fr);
+            if (isAnd && selection != null) {
+                for (int id = selection.nextSetBit(0); id >= 0; id = selection.nextSetBit(id + 1)) {
+                    if (!evaluate(rules, true, id)) {
+                        selection.clear(id);
                     }
                 }
             }
+            return selection;
         }
-        // </editor-fold>
 
-        // <editor-fold defaultstate="collapsed" desc="Advanced Find Logic">
         /**
-         * Searches the graph for matches to the given <code>FindRule</code>.
+         * Find the elements matching a rule that tests its attribute for a
+         * value, by looking the value up in the index of the attribute.
          *
-         * @see FindRule
+         * @param rule The rule to evaluate.
+         * @return the ids of the matching elements, or <code>null</code> if
+         * the attribute is not indexed or the rule is not an equality test.
          */
-        private void advancedFind() {
-            for (FindRule rule : rules) {
-                for (int i = 0; i < parent.results.length; i++) {
-                    boolean queryResult = false;
-
-                    final int item = type.getElement(rg, i);
-
-                    if ((isAnd && parent.results[i]) || (!isAnd && !parent.results[i])) {
-                        switch (rule.getType()) {
-                            case BOOLEAN:
-                                queryResult = advancedFindBoolean(rule, item);
-                                break;
-                            case COLOR:
-                                queryResult = advancedFindColor(rule, item);
-                                break;
-                            case DATE:
-                                queryResult = advancedFindDate(rule, item);
-                                break;
-                            case DATETIME:
-                                queryResult = advancedFindDateTime(rule, item);
-                                break;
-                            case FLOAT:
-                                queryResult = advancedFindFloat(rule, item);
-                                break;
-                            case INTEGER:
-                                queryResult = advancedFindInt(rule, item);
-                                break;
-                            case ICON:
-                                queryResult = advancedFindIcon(rule, item);
-                                break;
-                            case STRING:
-                                queryResult = advancedFindString(rule, item);
-                                break;
-                            case TIME:
-                                queryResult = advancedFindTime(rule, item);
-                                break;
-                            default:
-                            // Ignore
-                                break;
-                        }
+        private BitSet select(final FindRule rule) {
+            final int attribute = rule.getAttribute().getId();
+            if (rule.getOperator() != FindTypeOperators.Operator.IS || rg.getAttributeIndexType(attribute) == GraphIndexType.NONE) {
+                return null;
+            }
+
+            final List<Object> values = new ArrayList<>();
+            switch (rule.getType()) {
+                case BOOLEAN:
+                    values.add(rule.getBooleanContent());
+                    break;
+                case FLOAT:
+                    values.add(rule.getFloatFirstArg());
+                    break;
+                case INTEGER:
+                    values.add(rule.getIntFirstArg());
+                    break;
+                case STRING:
+                    // the index holds values exactly as they are, so cannot find them regardless of case
+                    if (!rule.getStringCaseSensitivity()) {
+                        return null;
+                    }
+                    if (rule.getStringUsingList()) {
+                        values.addAll(Arrays.asList(rule.getStringContent().split(",")));
+                    } else {
+                        values.add(rule.getStringContent());
+                    }
+                    break;
+                default:
+                    return null;
+            }
 
-                        // Update the bitset:
-                        updateResultSet(i, queryResult);
+            final BitSet matches = new BitSet();
+            for (final Object value : values) {
+                final GraphIndexResult result = rg.getElementsWithAttributeValue(attribute, value);
+                for (int i = result.getCount(); i > 0; i--) {
+                    final int element = result.getNextElement();
+                    if (evaluate(rule, element)) {
+                        matches.set(element);
                     }
                 }
             }
+            return matches;
         }
 
-        /**
-         * Helper function that updates the central result set at the given
-         * index.
-         * <p>
-         * This method, and the result set are atomic, and as such do not need
-         * synchronisation for thread-safety. It is using this technique that we
-         * are able to achieve efficiencies in searching the graph without
-         * needing to synchronise all joins.
-         *
-         * @param index The index of the GraphElement that has been evaluated.
-         * @param queryResult The result of the evaluation of the query.
-         */
-        private void updateResultSet(final int index, final boolean queryResult) {
-            if (isAnd) {
-                if (!queryResult) {
-                    parent.results[index] = false;
-                }
-            } else {
-                if (queryResult) {
-                    parent.results[index] = true;
-                }
+        private boolean evaluate(final FindRule rule, final int item) {
+            switch (rule.getType()) {
+                case BOOLEAN:
+                    return advancedFindBoolean(rule, item);
+                case COLOR:
+                    return advancedFindColor(rule, item);
+                case DATE:
+                    return advancedFindDate(rule, item);
+                case DATETIME:
+                    return advancedFindDateTime(rule, item);
+                case FLOAT:
+                    return advancedFindFloat(rule, item);
+                case INTEGER:
+                    return advancedFindInt(rule, item);
+                case ICON:
+                    return advancedFindIcon(rule, item);
+                case STRING:
+                    return advancedFindString(rule, item);
+                case TIME:
+                    return advancedFindTime(rule, item);
+                default:
+                    // Ignore
+                    return false;
             }
         }
 
@@ -951,6 +829,5 @@ public class QueryServices {
 
             return queryResult;
         }
-        // </editor-fold>
     }
 }
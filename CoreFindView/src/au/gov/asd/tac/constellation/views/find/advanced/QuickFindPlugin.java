@@ -59,8 +59,10 @@ public class QuickFindPlugin extends SimplePlugin {
 
     @Override
     protected void execute(final PluginGraphs graphs, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException {
+        interaction.setProgress(0, 0, "Finding...", true);
         final QueryServices qs = new QueryServices(graphs.getGraph());
         results = qs.quickQuery(type, content);
+        interaction.setProgress(1, 0, "Found " + results.size() + " results.", true);
     }
 
     /**
@@ -0,0 +1,825 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.file.io;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.attribute.io.AbstractGraphIOProvider;
+import au.gov.asd.tac.constellation.graph.attribute.io.GraphByteReader;
+import au.gov.asd.tac.constellation.graph.locking.LockingGraphUtilities;
+import au.gov.asd.tac.constellation.graph.schema.SchemaFactory;
+import au.gov.asd.tac.constellation.graph.schema.SchemaFactoryUtilities;
+import au.gov.asd.tac.constellation.graph.utilities.ImmutableObjectCache;
+import au.gov.asd.tac.constellation.graph.versioning.UpdateProvider;
+import au.gov.asd.tac.constellation.graph.versioning.UpdateProviderManager;
+import au.gov.asd.tac.constellation.utilities.gui.IoProgress;
+import au.gov.asd.tac.constellation.utilities.stream.ExtendedBuffer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+import org.openide.util.Exceptions;
+import org.openide.util.Lookup;
+
+/**
+ * Read a graph in the binary columnar format written by
+ * {@link GraphBinaryWriter}.
+ * <p>
+ * Files are memory mapped rather than read, so the columns are decoded
+ * straight from the file cache. Files are mapped in segments (see
+ * {@link SegmentedBuffer}), so neither a file nor any column in it is limited
+ * to 2GB. The columns of different attributes are
+ * independent of each other and are decoded in parallel, except for the
+ * attributes making up a primary key, which are decoded one at a time because
+ * setting them updates the graph's key index.
+ *
+ * @author agent
+ */
+public final class GraphBinaryReader {
+
+    private static final Logger LOGGER = Logger.getLogger(GraphBinaryReader.class.getName());
+
+    // Track classes that know how to read particular types from JSON.
+    private final Map<String, AbstractGraphIOProvider> providers;
+    private boolean parallel = true;
+
+    /**
+     * Construct a new GraphBinaryReader.
+     */
+    public GraphBinaryReader() {
+        providers = new HashMap<>();
+
+        Lookup.Result<AbstractGraphIOProvider> providerResults = Lookup.getDefault().lookupResult(AbstractGraphIOProvider.class);
+        providerResults.allInstances().forEach(provider -> providers.put(provider.getName(), provider));
+    }
+
+    /**
+     * Is the given file a binary graph file?
+     *
+     * @param buffer The start of the file; at least four bytes are needed.
+     *
+     * @return True if the buffer starts with
+     * {@link GraphFileConstants#BINARY_MAGIC}, false otherwise.
+     */
+    public static boolean isBinaryGraph(final ByteBuffer buffer) {
+        return buffer.remaining() >= 4 && buffer.getInt(buffer.position()) == GraphFileConstants.BINARY_MAGIC;
+    }
+
+    /**
+     * Set whether attribute columns are decoded in parallel.
+     *
+     * @param parallel true to decode attribute columns in parallel.
+     */
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Map a file into memory.
+     *
+     * @param file The file to map.
+     *
+     * @return A read only buffer holding the file's contents.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public static SegmentedBuffer map(final File file) throws IOException {
+        return SegmentedBuffer.map(file);
+    }
+
+    /**
+     * Read a graph from a binary graph file.
+     *
+     * @param graphFile The file to read.
+     * @param progress A progress indicator.
+     *
+     * @return A new Graph.
+     *
+     * @throws IOException If an I/O error occurs.
+     * @throws GraphParseException On graph parsing errors.
+     */
+    public Graph readGraph(final File graphFile, final IoProgress progress) throws IOException, GraphParseException {
+        return readGraph(graphFile.getPath(), map(graphFile), Collections.emptyList(), progress);
+    }
+
+    /**
+     * Read a graph from a binary graph file and bring it up to date with a
+     * sequence of changes.
+     * <p>
+     * Each change is written by
+     * {@link GraphBinaryWriter#writeChange(GraphBinaryWriter.Change, OutputStream, IoProgress)}
+     * and holds the elements that were removed and added, the attributes of
+     * the graph, and the values that changed. Vertices and transactions keep
+     * the ids they were written with, so each change removes and adds elements
+     * and attributes to match the graph it was written from, then overwrites
+     * the values it holds.
+     *
+     * @param graphFile The file to read.
+     * @param changes The changes to apply, oldest first.
+     * @param progress A progress indicator.
+     *
+     * @return A new Graph.
+     *
+     * @throws IOException If an I/O error occurs.
+     * @throws GraphParseException On graph parsing errors.
+     */
+    public Graph readGraph(final File graphFile, final List<SegmentedBuffer> changes, final IoProgress progress) throws IOException, GraphParseException {
+        return readGraph(graphFile.getPath(), map(graphFile), changes, progress);
+    }
+
+    /**
+     * Read a graph from a buffer holding a binary graph file.
+     *
+     * @param name The name of the graph being read.
+     * @param buffer The contents of the file.
+     * @param progress A progress indicator.
+     *
+     * @return A new Graph.
+     *
+     * @throws IOException If an I/O error occurs.
+     * @throws GraphParseException On graph parsing errors.
+     */
+    public Graph readGraph(final String name, final ByteBuffer buffer, final IoProgress progress) throws IOException, GraphParseException {
+        return readGraph(name, SegmentedBuffer.wrap(buffer), Collections.emptyList(), progress);
+    }
+
+    /**
+     * Read a graph from a buffer holding a binary graph file.
+     *
+     * @param name The name of the graph being read.
+     * @param buffer The contents of the file, usually from {@link #map}.
+     * @param progress A progress indicator.
+     *
+     * @return A new Graph.
+     *
+     * @throws IOException If an I/O error occurs.
+     * @throws GraphParseException On graph parsing errors.
+     */
+    public Graph readGraph(final String name, final SegmentedBuffer buffer, final IoProgress progress) throws IOException, GraphParseException {
+        return readGraph(name, buffer, Collections.emptyList(), progress);
+    }
+
+    private Graph readGraph(final String name, final SegmentedBuffer buffer, final List<SegmentedBuffer> changes, final IoProgress progress) throws IOException, GraphParseException {
+        if (progress != null) {
+            progress.start(100);
+            progress.progress("Reading file: " + name);
+        }
+
+        try {
+            Header header = readHeader(name, buffer);
+            if (header.change) {
+                throw new GraphParseException(String.format("%s holds changes to a graph, not a graph", name));
+            }
+
+            SchemaFactory schemaFactory = SchemaFactoryUtilities.getSchemaFactory(header.schemaFactoryName);
+            if (schemaFactory == null) {
+                final SchemaFactory defaultSchemaFactory = SchemaFactoryUtilities.getDefaultSchemaFactory();
+                LOGGER.warning(String.format("Unknown schema factory '%s'; falling back to '%s'", header.schemaFactoryName, defaultSchemaFactory.getName()));
+                schemaFactory = defaultSchemaFactory;
+            }
+
+            final Map<String, Integer> versionedItems = header.versionedItems;
+            final StoreGraph storeGraph = new StoreGraph(schemaFactory.createSchema());
+            UpdateProviderManager.getRegisteredProviders().forEach((item, itemProviders) -> {
+                if (item.appliesToGraph(storeGraph)) {
+                    final int currentVersion = versionedItems.containsKey(item.getName()) ? versionedItems.get(item.getName()) : UpdateProvider.DEFAULT_VERSION;
+                    if (itemProviders.containsKey(currentVersion)) {
+                        itemProviders.get(currentVersion).configure(storeGraph);
+                    }
+                }
+            });
+
+            Map<Integer, Long> attrValCount = readBody(buffer, storeGraph, false, false, progress);
+            for (int i = 0; i < changes.size(); i++) {
+                if (progress != null) {
+                    progress.progress(String.format("Applying change %d of %d", i + 1, changes.size()));
+                }
+                final SegmentedBuffer change = changes.get(i).duplicate();
+                header = readHeader(name, change);
+                attrValCount = readBody(change, storeGraph, true, header.change, progress);
+            }
+
+            storeGraph.setModificationCounters(header.globalModCount, header.structModCount, header.attrModCount);
+            for (final Entry<Integer, Long> e : attrValCount.entrySet()) {
+                storeGraph.setValueModificationCounter(e.getKey(), e.getValue());
+            }
+
+            try {
+                // Allow any relevant version providers to update the graph if necessary.
+                UpdateProviderManager.getRegisteredProviders().forEach((item, itemProviders) -> {
+                    if (item.appliesToGraph(storeGraph)) {
+                        int currentVersion = versionedItems.containsKey(item.getName()) ? versionedItems.get(item.getName()) : UpdateProvider.DEFAULT_VERSION;
+                        while (itemProviders.containsKey(currentVersion)) {
+                            final UpdateProvider provider = itemProviders.get(currentVersion);
+                            provider.update(storeGraph);
+                            currentVersion = provider.getToVersionNumber();
+                        }
+                    }
+                });
+            } catch (Exception ex) {
+                LOGGER.warning("There was an error loading some parts of the graph. The error was " + ex.getLocalizedMessage());
+                Exceptions.printStackTrace(ex);
+            }
+
+            return LockingGraphUtilities.createGraph(schemaFactory.createSchema(), storeGraph);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new GraphParseException(String.format("Error reading binary graph file %s: %s", name, ex), ex);
+        } finally {
+            if (progress != null) {
+                progress.finish();
+            }
+        }
+    }
+
+    private static Header readHeader(final String name, final SegmentedBuffer buffer) throws GraphParseException {
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt(buffer.position()) != GraphFileConstants.BINARY_MAGIC) {
+            throw new GraphParseException(String.format("%s is not a binary graph file", name));
+        }
+        buffer.getInt();
+
+        final int version = buffer.getInt();
+        if (version < 1 || version > GraphBinaryWriter.VERSION) {
+            throw new GraphParseException(String.format("Binary version number %d is unknown.", version));
+        }
+
+        final int jsonVersion = buffer.getInt();
+        if (jsonVersion < 0 || jsonVersion > GraphJsonWriter.VERSION) {
+            throw new GraphParseException(String.format("Version number %d is unknown.", jsonVersion));
+        }
+
+        final Header header = new Header();
+        final int versionedItemCount = buffer.getInt();
+        for (int i = 0; i < versionedItemCount; i++) {
+            final String versionedItem = readString(buffer);
+            header.versionedItems.put(versionedItem, buffer.getInt());
+        }
+
+        header.schemaFactoryName = readString(buffer);
+        header.globalModCount = buffer.getLong();
+        header.structModCount = buffer.getLong();
+        header.attrModCount = buffer.getLong();
+        if (version >= 2) {
+            final byte kind = buffer.get();
+            if (kind != GraphBinaryWriter.FULL_GRAPH && kind != GraphBinaryWriter.GRAPH_CHANGE) {
+                throw new GraphParseException(String.format("Binary file kind %d is unknown.", kind));
+            }
+            header.change = kind == GraphBinaryWriter.GRAPH_CHANGE;
+        }
+
+        return header;
+    }
+
+    /**
+     * Read the elements, attributes and values following the header.
+     *
+     * @param merge True if the file is being applied to the graph it was
+     * derived from.
+     * @param change True if the file holds only the changes to the graph.
+     *
+     * @return The value modification counter of each attribute.
+     */
+    private Map<Integer, Long> readBody(final SegmentedBuffer buffer, final StoreGraph graph, final boolean merge, final boolean change, final IoProgress progress) throws IOException, GraphParseException {
+        // Add the elements and attributes and find the columns.
+        final Map<Integer, Long> attrValCount = new HashMap<>();
+        int[] vertexIds = null;
+        final List<Column> columns = new ArrayList<>();
+        for (final GraphElementType elementType : GraphBinaryWriter.ELEMENT_TYPES_FILE_ORDER) {
+            final int[] ids = change
+                    ? readElementChanges(buffer, graph, elementType)
+                    : readElements(buffer, graph, elementType, merge);
+            readAttributes(buffer, graph, elementType, merge, change ? null : ids, attrValCount, columns);
+            if (merge && !change && elementType == GraphElementType.VERTEX) {
+                // Removing a vertex removes its transactions, so wait until
+                // the transactions that survive have been moved.
+                vertexIds = ids;
+            }
+            if (progress != null) {
+                progress.progress(String.format("Vertices: %d; Transactions %d", graph.getVertexCount(), graph.getTransactionCount()));
+            }
+        }
+        if (vertexIds != null) {
+            removeMissingVertices(graph, vertexIds);
+        }
+
+        // The ancillary files come last, but the IO providers need them to decode the columns.
+        final Map<String, ExtendedBuffer> contents = new HashMap<>();
+        final int fileCount = buffer.getInt();
+        for (int i = 0; i < fileCount; i++) {
+            final String reference = readString(buffer);
+            final byte[] bytes = new byte[(int) buffer.getLong()];
+            buffer.get(bytes);
+            final ExtendedBuffer out = new ExtendedBuffer(1 << 16);
+            try (final OutputStream os = out.getOutputStream()) {
+                os.write(bytes);
+            }
+            contents.put(reference, out);
+        }
+        final GraphByteReader byteReader = new GraphByteReader(contents);
+
+        // Elements keep their ids, so the IO providers' id maps are identities.
+        final Map<Integer, Integer> vertexMap = new HashMap<>();
+        for (int position = 0; position < graph.getVertexCount(); position++) {
+            final int vertex = graph.getVertex(position);
+            vertexMap.put(vertex, vertex);
+        }
+        final Map<Integer, Integer> transactionMap = new HashMap<>();
+        for (int position = 0; position < graph.getTransactionCount(); position++) {
+            final int transaction = graph.getTransaction(position);
+            transactionMap.put(transaction, transaction);
+        }
+
+        if (progress != null) {
+            progress.progress("Decoding attribute values...", 50);
+        }
+        decodeColumns(graph, columns, merge, vertexMap, transactionMap, byteReader);
+
+        return attrValCount;
+    }
+
+    /**
+     * Read the elements of an element type, adding them to the graph.
+     * <p>
+     * When merging, transactions that the graph has but the file does not are
+     * removed from the graph.
+     *
+     * @return The ids of the elements in the file.
+     */
+    private static int[] readElements(final SegmentedBuffer buffer, final StoreGraph graph, final GraphElementType elementType, final boolean merge) throws GraphParseException {
+        final int count = buffer.getInt();
+        final int[] ids;
+        if (elementType == GraphElementType.VERTEX) {
+            ids = readInts(buffer, count);
+            addVertices(graph, ids, merge);
+        } else if (elementType == GraphElementType.TRANSACTION) {
+            ids = readInts(buffer, count);
+            final int[] sources = readInts(buffer, count);
+            final int[] destinations = readInts(buffer, count);
+            final boolean[] directed = new boolean[count];
+            for (int i = 0; i < count; i++) {
+                directed[i] = buffer.get() != 0;
+            }
+            readTransactions(graph, ids, sources, destinations, directed, merge);
+        } else {
+            ids = new int[count];
+        }
+
+        return ids;
+    }
+
+    /**
+     * Read the elements of an element type that were removed and added by a
+     * change, and remove and add them in the graph.
+     *
+     * @return The ids of the elements added.
+     */
+    private static int[] readElementChanges(final SegmentedBuffer buffer, final StoreGraph graph, final GraphElementType elementType) throws GraphParseException {
+        if (elementType != GraphElementType.VERTEX && elementType != GraphElementType.TRANSACTION) {
+            return new int[buffer.getInt()];
+        }
+
+        final int[] removed = readInts(buffer, buffer.getInt());
+        final int[] added = readInts(buffer, buffer.getInt());
+        if (elementType == GraphElementType.VERTEX) {
+            // Removing a vertex also removes its transactions, which the change removes anyway.
+            for (final int vertex : removed) {
+                if (!graph.vertexExists(vertex)) {
+                    throw new GraphParseException(String.format("Removed vertex %d does not exist", vertex));
+                }
+                graph.removeVertex(vertex);
+            }
+            for (final int vertex : added) {
+                if (graph.vertexExists(vertex)) {
+                    throw new GraphParseException(String.format("Added vertex %d already exists", vertex));
+                }
+                graph.addVertex(vertex);
+            }
+        } else {
+            final int[] sources = readInts(buffer, added.length);
+            final int[] destinations = readInts(buffer, added.length);
+            for (final int transaction : removed) {
+                if (graph.transactionExists(transaction)) {
+                    graph.removeTransaction(transaction);
+                }
+            }
+            for (int i = 0; i < added.length; i++) {
+                final boolean directed = buffer.get() != 0;
+                if (graph.transactionExists(added[i])) {
+                    throw new GraphParseException(String.format("Added transaction %d already exists", added[i]));
+                }
+                if (!graph.vertexExists(sources[i]) || !graph.vertexExists(destinations[i])) {
+                    throw new GraphParseException(String.format("Transaction %d refers to a missing vertex", added[i]));
+                }
+                graph.addTransaction(added[i], sources[i], destinations[i], directed);
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Read the attributes of an element type, adding them to the graph, and
+     * record where each attribute's column is.
+     * <p>
+     * When merging, attributes that the graph has but the file does not are
+     * removed from the graph.
+     *
+     * @param ids The ids of the elements in each column, or null if each
+     * column starts with the ids of the elements it holds.
+     */
+    private static void readAttributes(final SegmentedBuffer buffer, final StoreGraph graph, final GraphElementType elementType, final boolean merge, final int[] ids, final Map<Integer, Long> attrValCount, final List<Column> columns) throws GraphParseException {
+        final int attributeCount = buffer.getInt();
+        final Map<String, Integer> attributeIds = new HashMap<>();
+        final Column[] elementColumns = new Column[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            final String attrLabel = readString(buffer);
+            final String attrType = readString(buffer);
+            final String attrDesc = readString(buffer);
+            final Object attrDefault;
+            final byte defaultKind = buffer.get();
+            switch (defaultKind) {
+                case GraphBinaryWriter.NUMBER_DEFAULT:
+                    attrDefault = buffer.getDouble();
+                    break;
+                case GraphBinaryWriter.BOOLEAN_DEFAULT:
+                    attrDefault = buffer.get() != 0;
+                    break;
+                case GraphBinaryWriter.STRING_DEFAULT:
+                    attrDefault = readString(buffer);
+                    break;
+                default:
+                    attrDefault = null;
+                    break;
+            }
+            final String attributeMergerId = readString(buffer);
+            final long modCount = buffer.getLong();
+
+            int attrId = Graph.NOT_FOUND;
+            if (merge) {
+                attrId = graph.getAttribute(elementType, attrLabel);
+                if (attrId != Graph.NOT_FOUND && !graph.getAttributeType(attrId).equals(attrType)) {
+                    graph.removeAttribute(attrId);
+                    attrId = Graph.NOT_FOUND;
+                }
+                if (attrId != Graph.NOT_FOUND) {
+                    if (!Objects.equals(graph.getAttributeDescription(attrId), attrDesc)) {
+                        graph.updateAttributeDescription(attrId, attrDesc);
+                    }
+                    if (!isSameDefault(graph.getAttributeDefaultValue(attrId), attrDefault)) {
+                        graph.updateAttributeDefaultValue(attrId, attrDefault);
+                    }
+                }
+            }
+
+            try {
+                if (attrId == Graph.NOT_FOUND) {
+                    attrId = graph.addAttribute(elementType, attrType, attrLabel, attrDesc, attrDefault, attributeMergerId);
+                }
+                attributeIds.put(attrLabel, attrId);
+                attrValCount.put(attrId, modCount);
+            } catch (IllegalArgumentException ex) {
+                // As for GraphJsonReader, skip META attributes of types that we don't know about.
+                if (elementType != GraphElementType.META) {
+                    throw ex;
+                }
+
+                LOGGER.warning(String.format("While adding %s attribute: %s", elementType, ex.getMessage()));
+            }
+            elementColumns[i] = new Column(attrId, attrLabel, attrType, ids);
+        }
+
+        if (merge) {
+            for (int position = graph.getAttributeCount(elementType) - 1; position >= 0; position--) {
+                final int attribute = graph.getAttribute(elementType, position);
+                if (!attributeIds.containsKey(graph.getAttributeName(attribute))) {
+                    graph.removeAttribute(attribute);
+                }
+            }
+        }
+
+        final int keyCount = buffer.getInt();
+        final int[] keyAttributes = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            final String keyLabel = readString(buffer);
+            if (!attributeIds.containsKey(keyLabel)) {
+                throw new GraphParseException(String.format("Key '%s' is not a valid attribute", keyLabel));
+            }
+            keyAttributes[i] = attributeIds.get(keyLabel);
+        }
+        if (keyCount > 0 || (merge && (elementType == GraphElementType.VERTEX || elementType == GraphElementType.TRANSACTION))) {
+            graph.setPrimaryKey(elementType, keyAttributes);
+        }
+
+        for (final Column column : elementColumns) {
+            column.encoding = buffer.get();
+            final long length = buffer.getLong();
+            column.payload = buffer.slice(length);
+            buffer.position(buffer.position() + length);
+            if (column.attrId != Graph.NOT_FOUND && column.encoding != GraphBinaryWriter.ABSENT_COLUMN) {
+                columns.add(column);
+            }
+        }
+    }
+
+    private static void addVertices(final StoreGraph graph, final int[] ids, final boolean merge) {
+        for (final int id : ids) {
+            if (!merge || !graph.vertexExists(id)) {
+                graph.addVertex(id);
+            }
+        }
+    }
+
+    private static void removeMissingVertices(final StoreGraph graph, final int[] ids) {
+        final BitSet present = new BitSet();
+        for (final int id : ids) {
+            present.set(id);
+        }
+
+        // Removing a vertex moves the last vertex into its position, so work backwards.
+        for (int position = graph.getVertexCount() - 1; position >= 0; position--) {
+            final int vertex = graph.getVertex(position);
+            if (!present.get(vertex)) {
+                graph.removeVertex(vertex);
+            }
+        }
+    }
+
+    private static void readTransactions(final StoreGraph graph, final int[] ids, final int[] sources, final int[] destinations, final boolean[] directed, final boolean merge) throws GraphParseException {
+        if (merge) {
+            final BitSet present = new BitSet();
+            for (final int id : ids) {
+                present.set(id);
+            }
+
+            for (int position = graph.getTransactionCount() - 1; position >= 0; position--) {
+                final int transaction = graph.getTransaction(position);
+                if (!present.get(transaction)) {
+                    graph.removeTransaction(transaction);
+                }
+            }
+
+            // A transaction can't change direction, so one that has must have
+            // been replaced, and the change will hold all of its values.
+            for (int i = 0; i < ids.length; i++) {
+                final int transaction = ids[i];
+                if (graph.transactionExists(transaction)) {
+                    if ((graph.getTransactionDirection(transaction) != Graph.UNDIRECTED) != directed[i]) {
+                        graph.removeTransaction(transaction);
+                    } else {
+                        if (graph.getTransactionSourceVertex(transaction) != sources[i]) {
+                            graph.setTransactionSourceVertex(transaction, sources[i]);
+                        }
+                        if (graph.getTransactionDestinationVertex(transaction) != destinations[i]) {
+                            graph.setTransactionDestinationVertex(transaction, destinations[i]);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < ids.length; i++) {
+            if (!graph.vertexExists(sources[i]) || !graph.vertexExists(destinations[i])) {
+                throw new GraphParseException(String.format("Transaction %d refers to a missing vertex", ids[i]));
+            }
+            if (!merge || !graph.transactionExists(ids[i])) {
+                graph.addTransaction(ids[i], sources[i], destinations[i], directed[i]);
+            }
+        }
+    }
+
+    /**
+     * Is the default value read from a file the same as an attribute's
+     * default value, allowing for the way GraphBinaryWriter writes defaults?
+     */
+    private static boolean isSameDefault(final Object attributeDefault, final Object fileDefault) {
+        if (fileDefault == null || attributeDefault == null) {
+            return fileDefault == attributeDefault;
+        } else if (fileDefault instanceof Number) {
+            return attributeDefault instanceof Number && ((Number) attributeDefault).doubleValue() == ((Number) fileDefault).doubleValue();
+        } else if (fileDefault instanceof Boolean) {
+            return fileDefault.equals(attributeDefault);
+        } else {
+            return fileDefault.equals(attributeDefault.toString());
+        }
+    }
+
+    private void decodeColumns(final GraphWriteMethods graph, final List<Column> columns, final boolean merge, final Map<Integer, Integer> vertexMap, final Map<Integer, Integer> transactionMap, final GraphByteReader byteReader) throws IOException, GraphParseException {
+        final Set<Integer> keyAttributes = new HashSet<>();
+        for (final GraphElementType elementType : new GraphElementType[]{GraphElementType.VERTEX, GraphElementType.TRANSACTION}) {
+            for (final int keyAttribute : graph.getPrimaryKey(elementType)) {
+                keyAttributes.add(keyAttribute);
+            }
+        }
+
+        final List<Column> parallelColumns = new ArrayList<>();
+        final List<Column> serialColumns = new ArrayList<>();
+        for (final Column column : columns) {
+            (parallel && !keyAttributes.contains(column.attrId) ? parallelColumns : serialColumns).add(column);
+        }
+
+        try {
+            parallelColumns.parallelStream().forEach(column -> decodeColumn(graph, column, merge, vertexMap, transactionMap, byteReader));
+            serialColumns.forEach(column -> decodeColumn(graph, column, merge, vertexMap, transactionMap, byteReader));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (IllegalStateException | BufferUnderflowException ex) {
+            throw new GraphParseException(ex.getMessage(), ex);
+        }
+    }
+
+    private void decodeColumn(final GraphWriteMethods graph, final Column column, final boolean merge, final Map<Integer, Integer> vertexMap, final Map<Integer, Integer> transactionMap, final GraphByteReader byteReader) {
+        final SegmentedBuffer payload = column.payload;
+        final int attrId = column.attrId;
+        final int[] ids = column.ids != null ? column.ids : readInts(payload, payload.getInt());
+        switch (column.encoding) {
+            case GraphBinaryWriter.BYTE_COLUMN:
+                for (final int id : ids) {
+                    graph.setByteValue(attrId, id, payload.get());
+                }
+                break;
+            case GraphBinaryWriter.SHORT_COLUMN:
+                for (final int id : ids) {
+                    graph.setShortValue(attrId, id, payload.getShort());
+                }
+                break;
+            case GraphBinaryWriter.INT_COLUMN:
+                for (final int id : ids) {
+                    graph.setIntValue(attrId, id, payload.getInt());
+                }
+                break;
+            case GraphBinaryWriter.LONG_COLUMN:
+                for (final int id : ids) {
+                    graph.setLongValue(attrId, id, payload.getLong());
+                }
+                break;
+            case GraphBinaryWriter.FLOAT_COLUMN:
+                for (final int id : ids) {
+                    graph.setFloatValue(attrId, id, payload.getFloat());
+                }
+                break;
+            case GraphBinaryWriter.DOUBLE_COLUMN:
+                for (final int id : ids) {
+                    graph.setDoubleValue(attrId, id, payload.getDouble());
+                }
+                break;
+            case GraphBinaryWriter.BOOLEAN_COLUMN:
+                for (final int id : ids) {
+                    graph.setBooleanValue(attrId, id, payload.get() != 0);
+                }
+                break;
+            case GraphBinaryWriter.CHAR_COLUMN:
+                for (final int id : ids) {
+                    graph.setCharValue(attrId, id, payload.getChar());
+                }
+                break;
+            case GraphBinaryWriter.STRING_COLUMN: {
+                // Every element with the same value shares the same String.
+                final String[] entries = readDictionary(payload);
+                final int codeWidth = payload.get();
+                for (final int id : ids) {
+                    final int code = readCode(payload, codeWidth);
+                    graph.setStringValue(attrId, id, code == 0 ? null : entries[code - 1]);
+                }
+                break;
+            }
+            case GraphBinaryWriter.JSON_COLUMN: {
+                final AbstractGraphIOProvider ioProvider = providers.get(column.attrType);
+                if (ioProvider == null) {
+                    throw new IllegalStateException("No IO provider found for attribute type: " + column.attrType);
+                }
+
+                // Parse each distinct value once.
+                final ObjectMapper mapper = new ObjectMapper();
+                final String[] entries = readDictionary(payload);
+                final JsonNode[] nodes = new JsonNode[entries.length];
+                try {
+                    for (int i = 0; i < entries.length; i++) {
+                        nodes[i] = mapper.readTree(entries[i]).get(column.label);
+                    }
+
+                    final ImmutableObjectCache cache = new ImmutableObjectCache();
+                    final int codeWidth = payload.get();
+                    for (final int id : ids) {
+                        final int code = readCode(payload, codeWidth);
+                        if (code != 0 && nodes[code - 1] != null) {
+                            ioProvider.readObject(attrId, id, nodes[code - 1], graph, vertexMap, transactionMap, byteReader, cache);
+                        } else if (merge) {
+                            // The value has gone back to the default since the graph was written.
+                            graph.clearValue(attrId, id);
+                        }
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException(String.format("Unknown column encoding %d for attribute %s", column.encoding, column.label));
+        }
+    }
+
+    private static String[] readDictionary(final SegmentedBuffer buffer) {
+        final String[] entries = new String[buffer.getInt()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = readString(buffer);
+        }
+        return entries;
+    }
+
+    private static int readCode(final SegmentedBuffer buffer, final int codeWidth) {
+        switch (codeWidth) {
+            case 1:
+                return buffer.get() & 0xff;
+            case 2:
+                return buffer.getShort() & 0xffff;
+            default:
+                return buffer.getInt();
+        }
+    }
+
+    private static int[] readInts(final SegmentedBuffer buffer, final int count) {
+        final int[] values = new int[count];
+        buffer.getBuffer(Integer.BYTES * count).asIntBuffer().get(values);
+        return values;
+    }
+
+    private static String readString(final SegmentedBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The graph-wide information at the start of a file.
+     */
+    private static class Header {
+
+        final Map<String, Integer> versionedItems = new HashMap<>();
+        String schemaFactoryName;
+        long globalModCount;
+        long structModCount;
+        long attrModCount;
+        boolean change;
+    }
+
+    /**
+     * An attribute's column in the file.
+     */
+    private static class Column {
+
+        final int attrId;
+        final String label;
+        final String attrType;
+        // The ids of the elements in the column, or null if they start the payload.
+        final int[] ids;
+        byte encoding;
+        SegmentedBuffer payload;
+
+        Column(final int attrId, final String label, final String attrType, final int[] ids) {
+            this.attrId = attrId;
+            this.label = label;
+            this.attrType = attrType;
+            this.ids = ids;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Column[id=%d,label=%s,type=%s,encoding=%d]", attrId, label, attrType, encoding);
+        }
+    }
+}
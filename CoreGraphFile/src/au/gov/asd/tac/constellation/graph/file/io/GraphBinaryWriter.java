@@ -0,0 +1,833 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.file.io;
+
+import au.gov.asd.tac.constellation.graph.Attribute;
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphAttribute;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.NativeAttributeType;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.attribute.StringAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.io.AbstractGraphIOProvider;
+import au.gov.asd.tac.constellation.graph.attribute.io.GraphByteWriter;
+import au.gov.asd.tac.constellation.graph.schema.BareSchemaFactory;
+import au.gov.asd.tac.constellation.graph.schema.Schema;
+import au.gov.asd.tac.constellation.graph.versioning.UpdateProviderManager;
+import au.gov.asd.tac.constellation.utilities.gui.IoProgress;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openide.util.Cancellable;
+
+/**
+ * Write a graph in the binary columnar format.
+ * <p>
+ * The binary format holds the same information as a graph written by
+ * {@link GraphJsonWriter}, but instead of a JSON object per element it writes
+ * one column per attribute. Attributes backed by a primitive type are written
+ * as raw typed columns, string attributes are dictionary encoded, and all other
+ * attributes are dictionary encoded using the JSON their
+ * {@link AbstractGraphIOProvider} writes, so any attribute type that can be
+ * saved as JSON round trips without loss. The file is not compressed so that
+ * it can be memory mapped by {@link GraphBinaryReader}, and
+ * {@link GraphJsonReader#readGraphZip(File, IoProgress)} recognises the format
+ * by its leading {@link GraphFileConstants#BINARY_MAGIC}.
+ * <p>
+ * All numbers are big-endian. A string is an int byte count (-1 for null)
+ * followed by its UTF-8 bytes. The file is laid out as:
+ * <pre>
+ * int     BINARY_MAGIC
+ * int     VERSION
+ * int     GraphJsonWriter.VERSION
+ * int     versioned item count, then (string name, int version) per item
+ * string  schema factory name
+ * long    global, structure and attribute modification counters
+ * byte    FULL_GRAPH, or GRAPH_CHANGE for a change (see below)
+ * for each of GRAPH, VERTEX, TRANSACTION and META:
+ *     int     element count
+ *     int[]   vertex or transaction ids (VERTEX and TRANSACTION only)
+ *     int[]   source and destination vertex ids (TRANSACTION only)
+ *     byte[]  1 if directed, 0 otherwise (TRANSACTION only)
+ *     int     attribute count, then per attribute:
+ *                 string label, string type, string description,
+ *                 byte default kind and default, string merger,
+ *                 long value modification counter
+ *     int     key attribute count, then a string label per key attribute
+ *     per attribute, a column:
+ *                 byte encoding, long payload length, payload
+ * int     ancillary file count, then (string reference, long length, bytes)
+ * </pre>
+ * A dictionary encoded payload is an int entry count, the entries as strings,
+ * a byte code width of 1, 2 or 4, and a code per element where 0 is null and
+ * i refers to entry i - 1.
+ * <p>
+ * A change records what has happened to a graph since it was last written,
+ * and is applied by {@link GraphBinaryReader#readGraph(File, List, IoProgress)}
+ * to the graph it was derived from. In a change, the element count and ids of
+ * VERTEX and TRANSACTION are replaced by the elements that have been removed
+ * and added:
+ * <pre>
+ * int     removed element count, then the removed ids
+ * int     added element count, then the added ids
+ * int[]   source and destination vertex ids (TRANSACTION only)
+ * byte[]  1 if directed, 0 otherwise (TRANSACTION only)
+ * </pre>
+ * A transaction whose ends have changed is removed and added again. The
+ * attributes are written in full, but a column only holds the values of the
+ * elements that have changed, so its payload starts with an int element count
+ * and the ids of the elements, and the columns of unchanged attributes are
+ * absent. Changes are captured by {@link #captureChange} while the graph is
+ * locked, copying only the changed values, and written by
+ * {@link #writeChange} once the graph has been released.
+ *
+ * @author agent
+ */
+public final class GraphBinaryWriter implements Cancellable {
+
+    /**
+     * The current binary file format version.
+     */
+    public static final int VERSION = 2;
+
+    // Kinds of file.
+    static final byte FULL_GRAPH = 0;
+    static final byte GRAPH_CHANGE = 1;
+
+    // Column encodings.
+    static final byte ABSENT_COLUMN = 0;
+    static final byte BYTE_COLUMN = 1;
+    static final byte SHORT_COLUMN = 2;
+    static final byte INT_COLUMN = 3;
+    static final byte LONG_COLUMN = 4;
+    static final byte FLOAT_COLUMN = 5;
+    static final byte DOUBLE_COLUMN = 6;
+    static final byte BOOLEAN_COLUMN = 7;
+    static final byte CHAR_COLUMN = 8;
+    static final byte STRING_COLUMN = 9;
+    static final byte JSON_COLUMN = 10;
+
+    // Kinds of attribute default value, matching what GraphJsonWriter writes.
+    static final byte NO_DEFAULT = 0;
+    static final byte NUMBER_DEFAULT = 1;
+    static final byte BOOLEAN_DEFAULT = 2;
+    static final byte STRING_DEFAULT = 3;
+
+    static final List<GraphElementType> ELEMENT_TYPES_FILE_ORDER = Arrays.asList(GraphElementType.GRAPH, GraphElementType.VERTEX, GraphElementType.TRANSACTION, GraphElementType.META);
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private IoProgress progress;
+    private volatile boolean isCancelled;
+    private final GraphByteWriter byteWriter;
+    private final HashMap<String, AbstractGraphIOProvider> graphIoProviders = new HashMap<>();
+
+    /**
+     * Construct a new GraphBinaryWriter.
+     */
+    public GraphBinaryWriter() {
+        byteWriter = new GraphByteWriter();
+        for (AbstractGraphIOProvider agiop : AbstractGraphIOProvider.getProviders()) {
+            graphIoProviders.put(agiop.getName(), agiop);
+        }
+    }
+
+    /**
+     * Serialise a graph to a binary graph file.
+     *
+     * @param graph The graph to serialise.
+     * @param path The path name of the file to write the graph to.
+     * @param progress A progress indicator.
+     *
+     * @return True if the user cancelled the write, false otherwise.
+     *
+     * @throws IOException If there was a problem writing.
+     */
+    public boolean writeGraphFile(final GraphReadMethods graph, final String path, final IoProgress progress) throws IOException {
+        try (OutputStream out = new FileOutputStream(path)) {
+            return writeGraph(graph, out, progress);
+        }
+    }
+
+    /**
+     * Serialise a graph in the binary columnar format to an OutputStream.
+     * <p>
+     * The OutputStream is not closed.
+     *
+     * @param graph The graph to serialise.
+     * @param out The OutputStream to write to.
+     * @param progress A progress indicator.
+     *
+     * @return True if the user cancelled the write, false otherwise.
+     *
+     * @throws IOException If there was a problem writing.
+     */
+    public boolean writeGraph(final GraphReadMethods graph, final OutputStream out, final IoProgress progress) throws IOException {
+        this.progress = progress;
+        isCancelled = false;
+
+        final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        try {
+            if (progress != null) {
+                progress.start(ELEMENT_TYPES_FILE_ORDER.size());
+            }
+
+            final Schema schema = graph.getSchema();
+            writeHeader(dos, schema == null ? new BareSchemaFactory().getName() : schema.getFactory().getName(),
+                    graph.getGlobalModificationCounter(), graph.getStructureModificationCounter(), graph.getAttributeModificationCounter(), FULL_GRAPH);
+
+            int workunit = 0;
+            for (final GraphElementType elementType : ELEMENT_TYPES_FILE_ORDER) {
+                if (isCancelled) {
+                    return true;
+                }
+                writeElements(dos, graph, elementType);
+                if (progress != null) {
+                    progress.progress(++workunit);
+                }
+            }
+
+            writeFiles(dos, byteWriter);
+        } finally {
+            dos.flush();
+            byteWriter.reset();
+            if (progress != null) {
+                progress.finish();
+            }
+        }
+
+        return isCancelled;
+    }
+
+    /**
+     * Capture the changes made to a graph since it was last written.
+     * <p>
+     * This is called while the graph is locked, so it only copies what is
+     * needed to write the change: the removed and added elements, the
+     * attribute definitions and the changed values. The values of vertices
+     * and transactions are copied into a graph of their own and encoded when
+     * the change is written. The values of graph and meta attributes are
+     * encoded straight away, because the IO providers of some meta attributes
+     * read the structure of the graph, and there is only a single value of
+     * each.
+     *
+     * @param graph The graph to capture the changes of.
+     * @param removedVertices The vertices that have been removed.
+     * @param addedVertices The vertices that have been added.
+     * @param removedTransactions The transactions that have been removed,
+     * including those whose ends have changed.
+     * @param addedTransactions The transactions that have been added,
+     * including those whose ends have changed.
+     * @param changedValues The ids of the elements whose values must be
+     * written, keyed by attribute. Attributes that are not present have no
+     * values written.
+     *
+     * @return The change, to be written by {@link #writeChange}.
+     *
+     * @throws IOException If there was a problem encoding a value.
+     */
+    public Change captureChange(final GraphReadMethods graph, final int[] removedVertices, final int[] addedVertices,
+            final int[] removedTransactions, final int[] addedTransactions, final Map<Integer, int[]> changedValues) throws IOException {
+        final Change change = new Change();
+        final Schema schema = graph.getSchema();
+        change.schemaFactoryName = schema == null ? new BareSchemaFactory().getName() : schema.getFactory().getName();
+        change.globalModificationCounter = graph.getGlobalModificationCounter();
+        change.structureModificationCounter = graph.getStructureModificationCounter();
+        change.attributeModificationCounter = graph.getAttributeModificationCounter();
+
+        for (final GraphElementType elementType : ELEMENT_TYPES_FILE_ORDER) {
+            final ElementChange elementChange = new ElementChange();
+            if (elementType == GraphElementType.VERTEX) {
+                elementChange.removed = removedVertices;
+                elementChange.added = addedVertices;
+            } else if (elementType == GraphElementType.TRANSACTION) {
+                elementChange.removed = removedTransactions;
+                elementChange.added = addedTransactions;
+                elementChange.addedSources = new int[addedTransactions.length];
+                elementChange.addedDestinations = new int[addedTransactions.length];
+                elementChange.addedDirected = new boolean[addedTransactions.length];
+                for (int i = 0; i < addedTransactions.length; i++) {
+                    elementChange.addedSources[i] = graph.getTransactionSourceVertex(addedTransactions[i]);
+                    elementChange.addedDestinations[i] = graph.getTransactionDestinationVertex(addedTransactions[i]);
+                    elementChange.addedDirected[i] = graph.getTransactionDirection(addedTransactions[i]) != Graph.UNDIRECTED;
+                }
+            }
+
+            final List<Attribute> attrs = getWrittenAttributes(graph, elementType);
+            final int attributeCount = attrs.size();
+            elementChange.attributes = attrs;
+            elementChange.valueModificationCounters = new long[attributeCount];
+            elementChange.fileIds = new int[attributeCount][];
+            for (int i = 0; i < attributeCount; i++) {
+                elementChange.valueModificationCounters[i] = graph.getValueModificationCounter(attrs.get(i).getId());
+                elementChange.fileIds[i] = changedValues.get(attrs.get(i).getId());
+            }
+
+            final int[] key = elementType == GraphElementType.VERTEX || elementType == GraphElementType.TRANSACTION ? graph.getPrimaryKey(elementType) : new int[0];
+            elementChange.keyLabels = new String[key.length];
+            for (int i = 0; i < key.length; i++) {
+                elementChange.keyLabels[i] = graph.getAttributeName(key[i]);
+            }
+
+            if (elementType == GraphElementType.VERTEX || elementType == GraphElementType.TRANSACTION) {
+                captureValues(graph, elementChange);
+            } else {
+                elementChange.encodedColumns = new byte[attributeCount][];
+                for (int i = 0; i < attributeCount; i++) {
+                    if (elementChange.fileIds[i] != null) {
+                        final ByteArrayOutputStream column = new ByteArrayOutputStream();
+                        try (final DataOutputStream dos = new DataOutputStream(column)) {
+                            writeColumn(dos, graph, attrs.get(i), elementChange.fileIds[i], elementChange.fileIds[i], change.byteWriter);
+                        }
+                        elementChange.encodedColumns[i] = column.toByteArray();
+                    }
+                }
+            }
+
+            change.elementChanges.put(elementType, elementChange);
+        }
+
+        return change;
+    }
+
+    /**
+     * Copy the changed values of vertices or transactions into a graph that
+     * has a vertex standing for each changed element.
+     */
+    private static void captureValues(final GraphReadMethods graph, final ElementChange elementChange) {
+        final BitSet changed = new BitSet();
+        for (final int[] ids : elementChange.fileIds) {
+            if (ids != null) {
+                for (final int id : ids) {
+                    changed.set(id);
+                }
+            }
+        }
+        final int[] elements = changed.stream().toArray();
+
+        final int attributeCount = elementChange.attributes.size();
+        final StoreGraph values = new StoreGraph(elements.length, 0, 0, 0, attributeCount);
+        final int[] valueElements = new int[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            valueElements[i] = values.addVertex();
+        }
+
+        elementChange.values = values;
+        elementChange.valueAttributes = new Attribute[attributeCount];
+        elementChange.valueIds = new int[attributeCount][];
+        for (int i = 0; i < attributeCount; i++) {
+            final int[] ids = elementChange.fileIds[i];
+            if (ids != null) {
+                final Attribute attr = elementChange.attributes.get(i);
+                final int valueAttribute = values.addAttribute(GraphElementType.VERTEX, attr.getAttributeType(), attr.getName(), attr.getDescription(), attr.getDefaultValue(), null);
+                final int[] valueIds = new int[ids.length];
+                for (int j = 0; j < ids.length; j++) {
+                    valueIds[j] = valueElements[Arrays.binarySearch(elements, ids[j])];
+                    values.setObjectValue(valueAttribute, valueIds[j], graph.getObjectValue(attr.getId(), ids[j]));
+                }
+                elementChange.valueAttributes[i] = new GraphAttribute(values, valueAttribute);
+                elementChange.valueIds[i] = valueIds;
+            }
+        }
+    }
+
+    /**
+     * Write a change captured by {@link #captureChange}.
+     * <p>
+     * The OutputStream is not closed.
+     *
+     * @param change The change to write.
+     * @param out The OutputStream to write to.
+     * @param progress A progress indicator.
+     *
+     * @return True if the user cancelled the write, false otherwise.
+     *
+     * @throws IOException If there was a problem writing.
+     */
+    public boolean writeChange(final Change change, final OutputStream out, final IoProgress progress) throws IOException {
+        this.progress = progress;
+        isCancelled = false;
+
+        final DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        try {
+            if (progress != null) {
+                progress.start(ELEMENT_TYPES_FILE_ORDER.size());
+            }
+
+            writeHeader(dos, change.schemaFactoryName, change.globalModificationCounter, change.structureModificationCounter, change.attributeModificationCounter, GRAPH_CHANGE);
+
+            int workunit = 0;
+            for (final GraphElementType elementType : ELEMENT_TYPES_FILE_ORDER) {
+                if (isCancelled) {
+                    return true;
+                }
+                writeElementChange(dos, elementType, change.elementChanges.get(elementType), change.byteWriter);
+                if (progress != null) {
+                    progress.progress(++workunit);
+                }
+            }
+
+            writeFiles(dos, change.byteWriter);
+        } finally {
+            dos.flush();
+            change.byteWriter.reset();
+            if (progress != null) {
+                progress.finish();
+            }
+        }
+
+        return isCancelled;
+    }
+
+    private static void writeHeader(final DataOutputStream dos, final String schemaFactoryName, final long globalModificationCounter,
+            final long structureModificationCounter, final long attributeModificationCounter, final byte kind) throws IOException {
+        dos.writeInt(GraphFileConstants.BINARY_MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(GraphJsonWriter.VERSION);
+
+        final Map<String, Integer> versions = UpdateProviderManager.getLatestVersions();
+        dos.writeInt(versions.size());
+        for (final Map.Entry<String, Integer> itemVersion : versions.entrySet()) {
+            writeString(dos, itemVersion.getKey());
+            dos.writeInt(itemVersion.getValue());
+        }
+
+        writeString(dos, schemaFactoryName);
+
+        dos.writeLong(globalModificationCounter);
+        dos.writeLong(structureModificationCounter);
+        dos.writeLong(attributeModificationCounter);
+        dos.writeByte(kind);
+    }
+
+    private static void writeFiles(final DataOutputStream dos, final GraphByteWriter byteWriter) throws IOException {
+        final Map<String, File> fileMap = byteWriter.getFileMap();
+        dos.writeInt(fileMap.size());
+        for (final Map.Entry<String, File> entry : fileMap.entrySet()) {
+            writeString(dos, entry.getKey());
+            dos.writeLong(entry.getValue().length());
+            try (InputStream in = new FileInputStream(entry.getValue())) {
+                GraphByteWriter.copy(in, dos);
+            }
+        }
+    }
+
+    private void writeElements(final DataOutputStream dos, final GraphReadMethods graph, final GraphElementType elementType) throws IOException {
+        final String elementTypeLabel = IoUtilities.getGraphElementTypeString(elementType);
+        if (progress != null) {
+            progress.progress("Writing " + elementTypeLabel + " elements...");
+        }
+
+        final int[] ids;
+        switch (elementType) {
+            case VERTEX:
+                ids = new int[graph.getVertexCount()];
+                for (int position = 0; position < ids.length; position++) {
+                    ids[position] = graph.getVertex(position);
+                }
+                break;
+            case TRANSACTION:
+                ids = new int[graph.getTransactionCount()];
+                for (int position = 0; position < ids.length; position++) {
+                    ids[position] = graph.getTransaction(position);
+                }
+                break;
+            default:
+                ids = new int[]{0};
+                break;
+        }
+
+        dos.writeInt(ids.length);
+        if (elementType == GraphElementType.VERTEX || elementType == GraphElementType.TRANSACTION) {
+            for (final int id : ids) {
+                dos.writeInt(id);
+            }
+        }
+        if (elementType == GraphElementType.TRANSACTION) {
+            for (final int id : ids) {
+                dos.writeInt(graph.getTransactionSourceVertex(id));
+            }
+            for (final int id : ids) {
+                dos.writeInt(graph.getTransactionDestinationVertex(id));
+            }
+            for (final int id : ids) {
+                dos.writeByte(graph.getTransactionDirection(id) != Graph.UNDIRECTED ? 1 : 0);
+            }
+        }
+
+        final List<Attribute> attrs = getWrittenAttributes(graph, elementType);
+        dos.writeInt(attrs.size());
+        for (final Attribute attr : attrs) {
+            writeAttribute(dos, attr, graph.getValueModificationCounter(attr.getId()));
+        }
+
+        final int[] key = elementType == GraphElementType.VERTEX || elementType == GraphElementType.TRANSACTION ? graph.getPrimaryKey(elementType) : new int[0];
+        dos.writeInt(key.length);
+        for (final int keyAttribute : key) {
+            writeString(dos, graph.getAttributeName(keyAttribute));
+        }
+
+        for (final Attribute attr : attrs) {
+            if (isCancelled) {
+                return;
+            }
+            writeColumn(dos, graph, attr, ids, null, byteWriter);
+        }
+    }
+
+    private void writeElementChange(final DataOutputStream dos, final GraphElementType elementType, final ElementChange elementChange, final GraphByteWriter byteWriter) throws IOException {
+        final String elementTypeLabel = IoUtilities.getGraphElementTypeString(elementType);
+        if (progress != null) {
+            progress.progress("Writing " + elementTypeLabel + " changes...");
+        }
+
+        if (elementType == GraphElementType.VERTEX || elementType == GraphElementType.TRANSACTION) {
+            dos.writeInt(elementChange.removed.length);
+            for (final int id : elementChange.removed) {
+                dos.writeInt(id);
+            }
+            dos.writeInt(elementChange.added.length);
+            for (final int id : elementChange.added) {
+                dos.writeInt(id);
+            }
+        } else {
+            dos.writeInt(1);
+        }
+        if (elementType == GraphElementType.TRANSACTION) {
+            for (final int source : elementChange.addedSources) {
+                dos.writeInt(source);
+            }
+            for (final int destination : elementChange.addedDestinations) {
+                dos.writeInt(destination);
+            }
+            for (final boolean directed : elementChange.addedDirected) {
+                dos.writeByte(directed ? 1 : 0);
+            }
+        }
+
+        final List<Attribute> attrs = elementChange.attributes;
+        dos.writeInt(attrs.size());
+        for (int i = 0; i < attrs.size(); i++) {
+            writeAttribute(dos, attrs.get(i), elementChange.valueModificationCounters[i]);
+        }
+
+        dos.writeInt(elementChange.keyLabels.length);
+        for (final String keyLabel : elementChange.keyLabels) {
+            writeString(dos, keyLabel);
+        }
+
+        for (int i = 0; i < attrs.size(); i++) {
+            if (isCancelled) {
+                return;
+            }
+            if (elementChange.fileIds[i] == null) {
+                writeColumnHeader(dos, ABSENT_COLUMN, 0, null);
+            } else if (elementChange.encodedColumns != null) {
+                dos.write(elementChange.encodedColumns[i]);
+            } else {
+                writeColumn(dos, elementChange.values, elementChange.valueAttributes[i], elementChange.valueIds[i], elementChange.fileIds[i], byteWriter);
+            }
+        }
+    }
+
+    /**
+     * The attributes of an element type that are written.
+     */
+    private List<Attribute> getWrittenAttributes(final GraphReadMethods graph, final GraphElementType elementType) throws IOException {
+        // Don't write non-META object types; we don't know what they are.
+        final List<Attribute> attrs = new ArrayList<>();
+        for (int position = 0; position < graph.getAttributeCount(elementType); position++) {
+            final Attribute attr = new GraphAttribute(graph, graph.getAttribute(elementType, position));
+            if (!attr.getAttributeType().equals("object") || elementType == GraphElementType.META) {
+                if (!graphIoProviders.containsKey(attr.getAttributeType())) {
+                    throw new IOException("No IO provider found for attribute type: " + attr.getAttributeType());
+                }
+                attrs.add(attr);
+            }
+        }
+        return attrs;
+    }
+
+    private static void writeAttribute(final DataOutputStream dos, final Attribute attr, final long valueModificationCounter) throws IOException {
+        writeString(dos, attr.getName());
+        writeString(dos, attr.getAttributeType());
+        writeString(dos, attr.getDescription());
+        writeDefault(dos, attr);
+        writeString(dos, attr.getAttributeMerger() != null ? attr.getAttributeMerger().getId() : null);
+        dos.writeLong(valueModificationCounter);
+    }
+
+    /**
+     * Write the default value the same way that GraphJsonWriter does so that
+     * both formats read back the same default.
+     */
+    private static void writeDefault(final DataOutputStream dos, final Attribute attr) throws IOException {
+        final Object defaultValue = attr.getDefaultValue();
+        final String type = attr.getAttributeType();
+        if (defaultValue == null) {
+            dos.writeByte(NO_DEFAULT);
+        } else if (type.equals("integer") || type.equals("float")) {
+            dos.writeByte(NUMBER_DEFAULT);
+            dos.writeDouble(((Number) defaultValue).doubleValue());
+        } else if (type.equals("boolean")) {
+            dos.writeByte(BOOLEAN_DEFAULT);
+            dos.writeBoolean((Boolean) defaultValue);
+        } else {
+            dos.writeByte(STRING_DEFAULT);
+            writeString(dos, defaultValue.toString());
+        }
+    }
+
+    /**
+     * Write the values of an attribute for the given elements.
+     *
+     * @param ids The ids of the elements in the graph being read from.
+     * @param fileIds The ids of the elements written at the start of the
+     * payload, or null if the column holds every element in order.
+     */
+    private void writeColumn(final DataOutputStream dos, final GraphReadMethods graph, final Attribute attr, final int[] ids, final int[] fileIds, final GraphByteWriter byteWriter) throws IOException {
+        final int attrId = attr.getId();
+        final int n = ids.length;
+        final NativeAttributeType nativeType = graph.getNativeAttributeType(attrId);
+        switch (nativeType) {
+            case BYTE:
+                writeColumnHeader(dos, BYTE_COLUMN, n, fileIds);
+                for (final int id : ids) {
+                    dos.writeByte(graph.getByteValue(attrId, id));
+                }
+                break;
+            case SHORT:
+                writeColumnHeader(dos, SHORT_COLUMN, 2L * n, fileIds);
+                for (final int id : ids) {
+                    dos.writeShort(graph.getShortValue(attrId, id));
+                }
+                break;
+            case INT:
+                writeColumnHeader(dos, INT_COLUMN, 4L * n, fileIds);
+                for (final int id : ids) {
+                    dos.writeInt(graph.getIntValue(attrId, id));
+                }
+                break;
+            case LONG:
+                writeColumnHeader(dos, LONG_COLUMN, 8L * n, fileIds);
+                for (final int id : ids) {
+                    dos.writeLong(graph.getLongValue(attrId, id));
+                }
+                break;
+            case FLOAT:
+                writeColumnHeader(dos, FLOAT_COLUMN, 4L * n, fileIds);
+                for (final int id : ids) {
+                    dos.writeFloat(graph.getFloatValue(attrId, id));
+                }
+                break;
+            case DOUBLE:
+                writeColumnHeader(dos, DOUBLE_COLUMN, 8L * n, fileIds);
+                for (final int id : ids) {
+                    dos.writeDouble(graph.getDoubleValue(attrId, id));
+                }
+                break;
+            case BOOLEAN:
+                writeColumnHeader(dos, BOOLEAN_COLUMN, n, fileIds);
+                for (final int id : ids) {
+                    dos.writeBoolean(graph.getBooleanValue(attrId, id));
+                }
+                break;
+            case CHAR:
+                writeColumnHeader(dos, CHAR_COLUMN, 2L * n, fileIds);
+                for (final int id : ids) {
+                    dos.writeChar(graph.getCharValue(attrId, id));
+                }
+                break;
+            default:
+                if (attr.getAttributeType().equals(StringAttributeDescription.ATTRIBUTE_NAME)) {
+                    final Dictionary dictionary = new Dictionary(n);
+                    for (int i = 0; i < n; i++) {
+                        dictionary.add(i, graph.getStringValue(attrId, ids[i]));
+                    }
+                    dictionary.write(dos, STRING_COLUMN, fileIds);
+                } else {
+                    writeJsonColumn(dos, graph, attr, ids, fileIds, byteWriter);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Dictionary encode the JSON written by the attribute's IO provider.
+     * <p>
+     * Each value is written as a JSON object holding at most the single field
+     * the IO provider writes, so that the reader can hand the field back to
+     * the IO provider exactly as GraphJsonReader would.
+     */
+    private void writeJsonColumn(final DataOutputStream dos, final GraphReadMethods graph, final Attribute attr, final int[] ids, final int[] fileIds, final GraphByteWriter byteWriter) throws IOException {
+        final AbstractGraphIOProvider ioProvider = graphIoProviders.get(attr.getAttributeType());
+        final Dictionary dictionary = new Dictionary(ids.length);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator jg = new JsonFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+            jg.setRootValueSeparator(null);
+            for (int i = 0; i < ids.length; i++) {
+                buffer.reset();
+                jg.writeStartObject();
+                ioProvider.writeObject(attr, ids[i], jg, graph, byteWriter, false);
+                jg.writeEndObject();
+                jg.flush();
+                dictionary.add(i, buffer.toString(StandardCharsets.UTF_8.name()));
+            }
+        }
+        dictionary.write(dos, JSON_COLUMN, fileIds);
+    }
+
+    private static void writeColumnHeader(final DataOutputStream dos, final byte encoding, final long length, final int[] fileIds) throws IOException {
+        dos.writeByte(encoding);
+        if (fileIds == null) {
+            dos.writeLong(length);
+        } else {
+            dos.writeLong(Integer.BYTES + (long) Integer.BYTES * fileIds.length + length);
+            dos.writeInt(fileIds.length);
+            for (final int id : fileIds) {
+                dos.writeInt(id);
+            }
+        }
+    }
+
+    static void writeString(final DataOutputStream dos, final String s) throws IOException {
+        if (s == null) {
+            dos.writeInt(-1);
+        } else {
+            final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            dos.writeInt(bytes.length);
+            dos.write(bytes);
+        }
+    }
+
+    /**
+     * The distinct values of a column and a code per element referring to
+     * them.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codesByValue = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private final int[] codes;
+        private long entryBytes = 0;
+
+        Dictionary(final int size) {
+            codes = new int[size];
+        }
+
+        void add(final int index, final String value) {
+            if (value != null) {
+                Integer code = codesByValue.get(value);
+                if (code == null) {
+                    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    entries.add(bytes);
+                    entryBytes += 4 + bytes.length;
+                    code = entries.size();
+                    codesByValue.put(value, code);
+                }
+                codes[index] = code;
+            }
+        }
+
+        void write(final DataOutputStream dos, final byte encoding, final int[] fileIds) throws IOException {
+            final int codeWidth = entries.size() < 0xff ? 1 : entries.size() < 0xffff ? 2 : 4;
+            writeColumnHeader(dos, encoding, 4 + entryBytes + 1 + (long) codeWidth * codes.length, fileIds);
+            dos.writeInt(entries.size());
+            for (final byte[] entry : entries) {
+                dos.writeInt(entry.length);
+                dos.write(entry);
+            }
+            dos.writeByte(codeWidth);
+            for (final int code : codes) {
+                if (codeWidth == 1) {
+                    dos.writeByte(code);
+                } else if (codeWidth == 2) {
+                    dos.writeShort(code);
+                } else {
+                    dos.writeInt(code);
+                }
+            }
+        }
+    }
+
+    /**
+     * The changes made to a graph since it was last written, captured by
+     * {@link #captureChange} so that they can be written by
+     * {@link #writeChange} after the graph has been released.
+     */
+    public static final class Change {
+
+        private final Map<GraphElementType, ElementChange> elementChanges = new EnumMap<>(GraphElementType.class);
+        private final GraphByteWriter byteWriter = new GraphByteWriter();
+        private String schemaFactoryName;
+        private long globalModificationCounter;
+        private long structureModificationCounter;
+        private long attributeModificationCounter;
+
+        private Change() {
+        }
+    }
+
+    /**
+     * The changes to the elements of a single type.
+     */
+    private static final class ElementChange {
+
+        int[] removed;
+        int[] added;
+        int[] addedSources;
+        int[] addedDestinations;
+        boolean[] addedDirected;
+        List<Attribute> attributes;
+        long[] valueModificationCounters;
+        String[] keyLabels;
+
+        // Per attribute, the ids of the elements whose values are written, or null.
+        int[][] fileIds;
+
+        // The values of vertices or transactions, held by vertices of a graph of their own.
+        StoreGraph values;
+        Attribute[] valueAttributes;
+        int[][] valueIds;
+
+        // The encoded columns of graph or meta attributes.
+        byte[][] encodedColumns;
+    }
+
+    @Override
+    public boolean cancel() {
+        isCancelled = true;
+
+        return true;
+    }
+}
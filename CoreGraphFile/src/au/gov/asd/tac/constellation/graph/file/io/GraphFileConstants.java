@@ -62,4 +62,10 @@ public final class GraphFileConstants {
      * Field indicating whether the transaction is directed or not.
      */
     public static final String DIR = "tx_dir_";
+
+    /**
+     * The first four bytes of a graph file written in the binary columnar
+     * format ("CGBF"), used to tell it apart from a zipped JSON graph file.
+     */
+    public static final int BINARY_MAGIC = 0x43474246;
 }
@@ -24,7 +24,8 @@ import au.gov.asd.tac.constellation.graph.StoreGraph;
 import au.gov.asd.tac.constellation.graph.attribute.ObjectAttributeDescription;
 import au.gov.asd.tac.constellation.graph.attribute.io.AbstractGraphIOProvider;
 import au.gov.asd.tac.constellation.graph.attribute.io.GraphByteReader;
-import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.attribute.io.GraphByteWriter;
+import au.gov.asd.tac.constellation.graph.locking.LockingGraphUtilities;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactory;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactoryUtilities;
 import au.gov.asd.tac.constellation.graph.utilities.ImmutableObjectCache;
@@ -39,15 +40,27 @@ import com.fasterxml.jackson.databind.MappingJsonFactory;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import org.openide.util.Exceptions;
 import org.openide.util.Lookup;
 
@@ -63,6 +76,9 @@ public final class GraphJsonReader {
     // After each interval of this many elements, report to the user.
     private static final int REPORT_INTERVAL = 10000;
 
+    // The number of vertices or transactions read as a block when decoding in parallel.
+    private static final int BLOCK_SIZE = 8192;
+
     // Track classes that know how to read particular types from JSON.
     private final Map<String, AbstractGraphIOProvider> providers;
     private Map<String, Integer> versionedItems;
@@ -74,6 +90,7 @@ public final class GraphJsonReader {
     private long structModCount;
     private final Map<Integer, Long> attrValCount = new HashMap<>();
     private GraphByteReader byteReader;
+    private boolean parallel = true;
     
     private static final String ATTRIBUTE_MOD_COUNT = "attribute_mod_count";
     private static final String GLOBAL_MOD_COUNT = "global_mod_count";
@@ -97,13 +114,111 @@ public final class GraphJsonReader {
         byteReader = null;
     }
 
+    /**
+     * Read a graph from a zipped graph file.
+     * <p>
+     * The graph entry is streamed straight from the file rather than being
+     * buffered in memory first, and any other entries are only read when an
+     * attribute value refers to them.
+     * <p>
+     * Files written by {@link GraphBinaryWriter} are recognised and read by
+     * {@link GraphBinaryReader}.
+     *
+     * @param graphFile The file to read.
+     * @param progress A progress indicator.
+     *
+     * @return A new Graph.
+     *
+     * @throws IOException If an I/O error occurs.
+     * @throws GraphParseException On graph parsing errors.
+     */
     public Graph readGraphZip(final File graphFile, final IoProgress progress) throws IOException, GraphParseException {
-        try (final InputStream in = new BufferedInputStream(new FileInputStream(graphFile))) {
-            return readGraphZip(graphFile.getPath(), in, progress);
+        if (isBinaryGraph(graphFile)) {
+            return new GraphBinaryReader().readGraph(graphFile, progress);
+        }
+
+        progress.start(100);
+        progress.progress("Reading file: " + graphFile.getPath());
+
+        try (final ZipFile zipFile = new ZipFile(graphFile)) {
+            byteReader = new GraphByteReader(zipFile);
+
+            final String graphEntry = "graph" + GraphFileConstants.FILE_EXTENSION;
+            final ZipEntry entry = zipFile.getEntry(graphEntry);
+            if (entry == null) {
+                final String msg = "Entry " + graphEntry + " not found in graph file";
+                throw new GraphParseException(msg);
+            }
+
+            try (final InputStream in = new BufferedInputStream(zipFile.getInputStream(entry))) {
+                graph = readGraph(graphFile.getPath(), in, entry.getSize(), progress);
+            } catch (IllegalStateException ex) {
+                throw new GraphParseException(ex.getMessage(), ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new GraphParseException(ex.getMessage(), ex);
+            }
+        } catch (ZipException ex) {
+            // Not something ZipFile can open; fall back to reading it as a stream.
+            LOGGER.log(Level.FINE, "Reading {0} as a stream: {1}", new Object[]{graphFile.getPath(), ex.getMessage()});
+            try (final InputStream in = new BufferedInputStream(new FileInputStream(graphFile))) {
+                return readGraphZip(graphFile.getPath(), in, progress);
+            }
+        } finally {
+            byteReader = null;
+        }
+
+        return graph;
+    }
+
+    /**
+     * Does the given file start with {@link GraphFileConstants#BINARY_MAGIC}?
+     */
+    private static boolean isBinaryGraph(final File graphFile) throws IOException {
+        try (final InputStream in = new FileInputStream(graphFile)) {
+            final byte[] magic = new byte[Integer.BYTES];
+            return in.read(magic) == magic.length && GraphBinaryReader.isBinaryGraph(ByteBuffer.wrap(magic));
         }
     }
 
+    /**
+     * Set whether vertex and transaction attribute values are decoded in
+     * parallel.
+     * <p>
+     * This is true by default; turning it off reads the graph the way it was
+     * read before parallel decoding was added, which is useful for comparing
+     * the two.
+     *
+     * @param parallel true to decode attribute values in parallel.
+     */
+    public void setParallel(final boolean parallel) {
+        this.parallel = parallel;
+    }
+
     public Graph readGraphZip(final String name, InputStream bin, final IoProgress progress) throws IOException, GraphParseException {
+        if (!bin.markSupported()) {
+            bin = new BufferedInputStream(bin);
+        }
+        bin.mark(Integer.BYTES);
+        final byte[] magic = new byte[Integer.BYTES];
+        final int magicLength = bin.read(magic);
+        bin.reset();
+        if (magicLength == magic.length && GraphBinaryReader.isBinaryGraph(ByteBuffer.wrap(magic))) {
+            // Spool the stream to disk and map it, rather than holding the whole graph on the heap.
+            final File tmpFile = File.createTempFile("graph", ".tmp");
+            try {
+                try (final OutputStream out = new FileOutputStream(tmpFile)) {
+                    GraphByteWriter.copy(bin, out);
+                }
+                return new GraphBinaryReader().readGraph(name, GraphBinaryReader.map(tmpFile), progress);
+            } finally {
+                // A file can't be deleted while it is still mapped on some platforms.
+                if (!tmpFile.delete()) {
+                    tmpFile.deleteOnExit();
+                }
+            }
+        }
+
         progress.start(100);
         progress.progress("Reading file: " + name);
 
@@ -456,7 +571,7 @@ public final class GraphJsonReader {
             Exceptions.printStackTrace(ex);
         }
 
-        graph = new DualGraph(schemaFactory.createSchema(), storeGraph);
+        graph = LockingGraphUtilities.createGraph(schemaFactory.createSchema(), storeGraph);
 
         if (progress != null) {
             progress.finish();
@@ -543,7 +658,7 @@ public final class GraphJsonReader {
                 final boolean isNumber = attrType.equals("integer") || attrType.equals("float");
                 final boolean isBoolean = attrType.equals("boolean");
                 final boolean isObject = ObjectAttributeDescription.class.isAssignableFrom(attr.getDataType());
-                attributes.put(attrLabel, new AttrInfo(attrId, attrType, isNumber, isBoolean, isObject));
+                attributes.put(attrLabel, new AttrInfo(attrId, attrLabel, attrType, isNumber, isBoolean, isObject));
 
                 if (version >= 1) {
                     //get mod count for attribute
@@ -627,82 +742,29 @@ public final class GraphJsonReader {
             throw new GraphParseException(msg);
         }
 
-        while (jp.nextToken() != JsonToken.END_ARRAY) {
-            // Read the object into a tree model.
-            final JsonNode node = jp.readValueAsTree();
-            final int id;
-            if (elementType == GraphElementType.VERTEX) {
-                final JsonNode idNode = node.get(GraphFileConstants.VX_ID);
-                if (idNode == null) {
-                    final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.VX_ID, jp.getCurrentLocation());
-                    throw new GraphParseException(msg);
-                }
-
-                final int jsonId = idNode.intValue();
-                id = graph.addVertex();
-                vertexPositions.put(jsonId, id);
-            } else if (elementType == GraphElementType.TRANSACTION) {
-                final JsonNode idNode = node.get(GraphFileConstants.TX_ID);
-                // We can't test for null and throw an exception here: putting the txId in the file is an afterthought,
-                // so lots of existing graphs won't have it.
-
-                final JsonNode srcNode = node.get(GraphFileConstants.SRC);
-                if (srcNode == null) {
-                    final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.SRC, jp.getCurrentLocation());
-                    throw new GraphParseException(msg);
-                }
-
-                final JsonNode dstNode = node.get(GraphFileConstants.DST);
-                if (dstNode == null) {
-                    final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.DST, jp.getCurrentLocation());
-                    throw new GraphParseException(msg);
-                }
-
-                final JsonNode dirNode = node.get(GraphFileConstants.DIR);
-                if (dirNode == null) {
-                    final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.DIR, jp.getCurrentLocation());
-                    throw new GraphParseException(msg);
-                }
-
-                // Map the ids in the JSON file to the vertex ids in the graph.
-                final int jsonId = idNode != null ? idNode.intValue() : Graph.NOT_FOUND;
-                final int jsonSrc = srcNode.intValue();
-                final int jsonDst = dstNode.intValue();
-
-                final int src = vertexPositions.get(jsonSrc);
-                final int dst = vertexPositions.get(jsonDst);
-                final boolean directed = dirNode.booleanValue();
-                id = graph.addTransaction(src, dst, directed);
-                if (jsonId != Graph.NOT_FOUND) {
-                    transactionPositions.put(jsonId, id);
-                }
-            } else if (elementType == GraphElementType.GRAPH || elementType == GraphElementType.META) {
-                id = 0;
-            } else {
-                id = Graph.NOT_FOUND;
-            }
-
-            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext();) {
-                final Map.Entry<String, JsonNode> entry = it.next();
-                final String label = entry.getKey();
-                final JsonNode jnode = entry.getValue();
-                final AttrInfo ai = attributes.get(label);
-                if (ai != null && providers.containsKey(ai.attrType)) {
-                    AbstractGraphIOProvider ioProvider = providers.get(ai.attrType);
-                    ioProvider.readObject(ai.attrId, id, jnode, graph, vertexPositions, transactionPositions, byteReader, immutableObjectCache);
-                } else if (ai != null) {
-                    throw new Exception("No IO provider found for attribute type: " + ai.attrType);
+        if (parallel && graph instanceof StoreGraph && (elementType == GraphElementType.VERTEX || elementType == GraphElementType.TRANSACTION)) {
+            parseData((StoreGraph) graph, elementType, attributes, vertexPositions, transactionPositions, ph, entrySize);
+        } else {
+            while (jp.nextToken() != JsonToken.END_ARRAY) {
+                // Read the object into a tree model.
+                final JsonNode node = jp.readValueAsTree();
+                final int id = addElement(graph, elementType, node, vertexPositions, transactionPositions);
+
+                for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext();) {
+                    final Map.Entry<String, JsonNode> entry = it.next();
+                    final String label = entry.getKey();
+                    final JsonNode jnode = entry.getValue();
+                    final AttrInfo ai = attributes.get(label);
+                    if (ai != null && providers.containsKey(ai.attrType)) {
+                        AbstractGraphIOProvider ioProvider = providers.get(ai.attrType);
+                        ioProvider.readObject(ai.attrId, id, jnode, graph, vertexPositions, transactionPositions, byteReader, immutableObjectCache);
+                    } else if (ai != null) {
+                        throw new Exception("No IO provider found for attribute type: " + ai.attrType);
+                    }
                 }
-            }
 
-            if (++counter % REPORT_INTERVAL == 0) {
-                final String msg = String.format("Vertices: %d; Transactions %d", graph.getVertexCount(), graph.getTransactionCount());
-                final long charOffset = jp.getCurrentLocation().getByteOffset();
-                if (entrySize != -1 && charOffset != -1 && ph != null) {
-                    final int workunit = (int) (100 * (charOffset / (double) entrySize));
-                    ph.progress(msg, workunit);
-                } else if (ph != null) {
-                    ph.progress(msg);
+                if (++counter % REPORT_INTERVAL == 0) {
+                    reportProgress(graph, ph, entrySize);
                 }
             }
         }
@@ -720,12 +782,190 @@ public final class GraphJsonReader {
         }
     }
 
+    /**
+     * Add the vertex or transaction described by a JSON object to the graph.
+     *
+     * @return the id of the new element.
+     */
+    private int addElement(final GraphWriteMethods graph, final GraphElementType elementType, final JsonNode node, final Map<Integer, Integer> vertexPositions, final Map<Integer, Integer> transactionPositions) throws GraphParseException {
+        final int id;
+        if (elementType == GraphElementType.VERTEX) {
+            final JsonNode idNode = node.get(GraphFileConstants.VX_ID);
+            if (idNode == null) {
+                final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.VX_ID, jp.getCurrentLocation());
+                throw new GraphParseException(msg);
+            }
+
+            final int jsonId = idNode.intValue();
+            id = graph.addVertex();
+            vertexPositions.put(jsonId, id);
+        } else if (elementType == GraphElementType.TRANSACTION) {
+            final JsonNode idNode = node.get(GraphFileConstants.TX_ID);
+            // We can't test for null and throw an exception here: putting the txId in the file is an afterthought,
+            // so lots of existing graphs won't have it.
+
+            final JsonNode srcNode = node.get(GraphFileConstants.SRC);
+            if (srcNode == null) {
+                final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.SRC, jp.getCurrentLocation());
+                throw new GraphParseException(msg);
+            }
+
+            final JsonNode dstNode = node.get(GraphFileConstants.DST);
+            if (dstNode == null) {
+                final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.DST, jp.getCurrentLocation());
+                throw new GraphParseException(msg);
+            }
+
+            final JsonNode dirNode = node.get(GraphFileConstants.DIR);
+            if (dirNode == null) {
+                final String msg = String.format(DID_NOT_FIND_FORMAT, GraphFileConstants.DIR, jp.getCurrentLocation());
+                throw new GraphParseException(msg);
+            }
+
+            // Map the ids in the JSON file to the vertex ids in the graph.
+            final int jsonId = idNode != null ? idNode.intValue() : Graph.NOT_FOUND;
+            final int jsonSrc = srcNode.intValue();
+            final int jsonDst = dstNode.intValue();
+
+            final int src = vertexPositions.get(jsonSrc);
+            final int dst = vertexPositions.get(jsonDst);
+            final boolean directed = dirNode.booleanValue();
+            id = graph.addTransaction(src, dst, directed);
+            if (jsonId != Graph.NOT_FOUND) {
+                transactionPositions.put(jsonId, id);
+            }
+        } else if (elementType == GraphElementType.GRAPH || elementType == GraphElementType.META) {
+            id = 0;
+        } else {
+            id = Graph.NOT_FOUND;
+        }
+
+        return id;
+    }
+
+    /**
+     * Read the vertex or transaction data array a block at a time, decoding
+     * the attribute values of each block in parallel.
+     * <p>
+     * The elements of a block are added to the graph on this thread. The
+     * attribute values are then decoded by the IO providers with one task per
+     * attribute, so that each task only writes to its own attribute, while
+     * this thread reads the next block from the file. Attributes that make up
+     * the primary key are decoded on a single thread because setting them
+     * updates the graph's key index.
+     * <p>
+     * The values are set with the graph loading in bulk, so that setting a
+     * value only touches its own attribute: otherwise every value set would
+     * also read and write the shared layer mask and visibility attributes.
+     * The layer masks are updated once, after the whole array has been read.
+     */
+    private void parseData(final StoreGraph graph, final GraphElementType elementType, final Map<String, AttrInfo> attributes, final Map<Integer, Integer> vertexPositions, final Map<Integer, Integer> transactionPositions, final IoProgress ph, final long entrySize) throws Exception {
+        final Set<Integer> keyAttributes = new HashSet<>();
+        for (final int keyAttribute : graph.getPrimaryKey(elementType)) {
+            keyAttributes.add(keyAttribute);
+        }
+
+        // ImmutableObjectCache is not thread safe so each attribute gets its own.
+        final List<AttrInfo> parallelAttributes = new ArrayList<>();
+        final List<AttrInfo> serialAttributes = new ArrayList<>();
+        final Map<AttrInfo, ImmutableObjectCache> caches = new HashMap<>();
+        attributes.forEach((label, ai) -> {
+            (keyAttributes.contains(ai.attrId) ? serialAttributes : parallelAttributes).add(ai);
+            caches.put(ai, new ImmutableObjectCache());
+        });
+
+        graph.setBulkLoading(true);
+        CompletableFuture<Void> decoding = CompletableFuture.completedFuture(null);
+        try {
+            List<JsonNode> block = readBlock();
+            while (!block.isEmpty()) {
+                // The previous block must be finished before adding elements, which may resize the attribute stores.
+                waitFor(decoding);
+
+                final List<JsonNode> nodes = block;
+                final int[] ids = new int[nodes.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = addElement(graph, elementType, nodes.get(i), vertexPositions, transactionPositions);
+                }
+
+                decoding = CompletableFuture.runAsync(() -> {
+                    parallelAttributes.parallelStream().forEach(ai -> decodeAttribute(graph, ai, nodes, ids, vertexPositions, transactionPositions, caches.get(ai)));
+                    serialAttributes.forEach(ai -> decodeAttribute(graph, ai, nodes, ids, vertexPositions, transactionPositions, caches.get(ai)));
+                });
+
+                reportProgress(graph, ph, entrySize);
+
+                block = readBlock();
+            }
+            waitFor(decoding);
+        } finally {
+            // Never leave the graph loading in bulk, even if decoding failed.
+            decoding.exceptionally(ex -> null).join();
+            graph.setBulkLoading(false);
+        }
+    }
+
+    /**
+     * Read up to BLOCK_SIZE objects from the current data array.
+     */
+    private List<JsonNode> readBlock() throws IOException {
+        final List<JsonNode> block = new ArrayList<>(BLOCK_SIZE);
+        while (block.size() < BLOCK_SIZE && jp.nextToken() != JsonToken.END_ARRAY) {
+            block.add(jp.readValueAsTree());
+        }
+        return block;
+    }
+
+    /**
+     * Decode the values of one attribute for a block of elements.
+     */
+    private void decodeAttribute(final GraphWriteMethods graph, final AttrInfo ai, final List<JsonNode> nodes, final int[] ids, final Map<Integer, Integer> vertexPositions, final Map<Integer, Integer> transactionPositions, final ImmutableObjectCache cache) {
+        final AbstractGraphIOProvider ioProvider = providers.get(ai.attrType);
+        for (int i = 0; i < ids.length; i++) {
+            final JsonNode jnode = nodes.get(i).get(ai.label);
+            if (jnode != null) {
+                if (ioProvider == null) {
+                    throw new IllegalStateException("No IO provider found for attribute type: " + ai.attrType);
+                }
+                try {
+                    ioProvider.readObject(ai.attrId, ids[i], jnode, graph, vertexPositions, transactionPositions, byteReader, cache);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }
+    }
+
+    private static void waitFor(final CompletableFuture<Void> decoding) throws Exception {
+        try {
+            decoding.join();
+        } catch (CompletionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw cause instanceof Exception ? (Exception) cause : ex;
+        }
+    }
+
+    private void reportProgress(final GraphWriteMethods graph, final IoProgress ph, final long entrySize) {
+        final String msg = String.format("Vertices: %d; Transactions %d", graph.getVertexCount(), graph.getTransactionCount());
+        final long charOffset = jp.getCurrentLocation().getByteOffset();
+        if (entrySize != -1 && charOffset != -1 && ph != null) {
+            final int workunit = (int) (100 * (charOffset / (double) entrySize));
+            ph.progress(msg, workunit);
+        } else if (ph != null) {
+            ph.progress(msg);
+        }
+    }
+
     /**
      * Maintain attribute information.
      */
     private static class AttrInfo {
 
         final int attrId;
+        final String label;
         final String attrType;
         final boolean isNumber;
         final boolean isBoolean;
@@ -735,13 +975,15 @@ public final class GraphJsonReader {
          * Construct a new instance.
          *
          * @param attrId Attribute id.
+         * @param label Attribute label.
          * @param attrType Attribute type.
          * @param isNumber Is the attribute a number?
          * @param isBoolean Is the attribute a boolean?
          * @param isObject is the attribute an object?
          */
-        AttrInfo(final int attrId, final String attrType, final boolean isNumber, final boolean isBoolean, final boolean isObject) {
+        AttrInfo(final int attrId, final String label, final String attrType, final boolean isNumber, final boolean isBoolean, final boolean isObject) {
             this.attrId = attrId;
+            this.label = label;
             this.attrType = attrType;
             this.isNumber = isNumber;
             this.isBoolean = isBoolean;
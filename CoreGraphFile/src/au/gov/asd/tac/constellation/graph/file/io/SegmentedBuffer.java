@@ -0,0 +1,256 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.file.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read only buffer holding the contents of a file that may be too large for
+ * a single {@link ByteBuffer}.
+ * <p>
+ * {@link FileChannel#map} can map at most 2GB at a time, so a file is mapped as
+ * a sequence of segments. Each segment overlaps the next by
+ * {@link Long#BYTES}, so any primitive value can be read from the segment it
+ * starts in. A run of bytes that crosses from one segment into the next is
+ * copied when it is read.
+ * <p>
+ * As with a ByteBuffer, the relative get methods read at the current position
+ * and advance it. Values are read big endian, as written by
+ * {@link java.io.DataOutputStream}.
+ *
+ * @author agent
+ */
+public final class SegmentedBuffer {
+
+    // The number of bytes of the file that start in each segment, as a power of two.
+    static final int SEGMENT_SHIFT = 30;
+
+    private final ByteBuffer[] segments;
+    private final int segmentShift;
+    private final long segmentSize;
+    private final long start;
+    private final long limit;
+    private long position = 0;
+
+    private SegmentedBuffer(final ByteBuffer[] segments, final int segmentShift, final long start, final long limit) {
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentSize = 1L << segmentShift;
+        this.start = start;
+        this.limit = limit;
+    }
+
+    /**
+     * Map a file into memory.
+     *
+     * @param file The file to map.
+     *
+     * @return A buffer holding the file's contents.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public static SegmentedBuffer map(final File file) throws IOException {
+        return map(file, SEGMENT_SHIFT);
+    }
+
+    static SegmentedBuffer map(final File file, final int segmentShift) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final long segmentSize = 1L << segmentShift;
+            final int segmentCount = (int) Math.max(1, (size + segmentSize - 1) >>> segmentShift);
+            final ByteBuffer[] segments = new ByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                final long segmentStart = (long) i << segmentShift;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, Math.min(size - segmentStart, segmentSize + Long.BYTES));
+            }
+
+            return new SegmentedBuffer(segments, segmentShift, 0, size);
+        }
+    }
+
+    /**
+     * Wrap the remaining contents of a ByteBuffer.
+     *
+     * @param buffer The buffer to wrap; its position is not changed.
+     *
+     * @return A buffer holding the remaining contents of the ByteBuffer.
+     */
+    public static SegmentedBuffer wrap(final ByteBuffer buffer) {
+        return new SegmentedBuffer(new ByteBuffer[]{buffer.slice()}, Integer.SIZE, 0, buffer.remaining());
+    }
+
+    public long position() {
+        return position;
+    }
+
+    public void position(final long newPosition) {
+        if (newPosition < 0 || newPosition > limit) {
+            throw new IllegalArgumentException(String.format("Position %d is outside the buffer (limit %d)", newPosition, limit));
+        }
+        position = newPosition;
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    public long remaining() {
+        return limit - position;
+    }
+
+    /**
+     * Create a buffer sharing the contents of this buffer, with its own
+     * position.
+     *
+     * @return A new buffer positioned at the start of this buffer's contents.
+     */
+    public SegmentedBuffer duplicate() {
+        return new SegmentedBuffer(segments, segmentShift, start, limit);
+    }
+
+    /**
+     * Create a buffer holding the next bytes of this buffer. The position of
+     * this buffer is not changed.
+     *
+     * @param length The number of bytes in the new buffer.
+     *
+     * @return A new buffer sharing the next length bytes of this buffer.
+     */
+    public SegmentedBuffer slice(final long length) {
+        if (length < 0 || length > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return new SegmentedBuffer(segments, segmentShift, start + position, length);
+    }
+
+    public byte get() {
+        final long index = advance(Byte.BYTES);
+        return segment(index).get(offset(index));
+    }
+
+    public short getShort() {
+        final long index = advance(Short.BYTES);
+        return segment(index).getShort(offset(index));
+    }
+
+    public char getChar() {
+        final long index = advance(Character.BYTES);
+        return segment(index).getChar(offset(index));
+    }
+
+    public int getInt() {
+        final long index = advance(Integer.BYTES);
+        return segment(index).getInt(offset(index));
+    }
+
+    /**
+     * Read an int at the given position without changing the position.
+     *
+     * @param index The position to read from.
+     *
+     * @return The int at the given position.
+     */
+    public int getInt(final long index) {
+        if (index < 0 || index > limit - Integer.BYTES) {
+            throw new IndexOutOfBoundsException();
+        }
+        return segment(start + index).getInt(offset(start + index));
+    }
+
+    public long getLong() {
+        final long index = advance(Long.BYTES);
+        return segment(index).getLong(offset(index));
+    }
+
+    public float getFloat() {
+        final long index = advance(Float.BYTES);
+        return segment(index).getFloat(offset(index));
+    }
+
+    public double getDouble() {
+        final long index = advance(Double.BYTES);
+        return segment(index).getDouble(offset(index));
+    }
+
+    /**
+     * Read bytes into an array, filling it.
+     *
+     * @param bytes The array to read into.
+     */
+    public void get(final byte[] bytes) {
+        long index = advance(bytes.length);
+        int copied = 0;
+        while (copied < bytes.length) {
+            final ByteBuffer segment = segment(index).duplicate();
+            segment.position(offset(index));
+            final int length = (int) Math.min(bytes.length - copied, segmentSize - offset(index));
+            segment.get(bytes, copied, length);
+            copied += length;
+            index += length;
+        }
+    }
+
+    /**
+     * Read the next bytes as a ByteBuffer. The bytes are shared with this
+     * buffer if they lie within one segment, and copied otherwise.
+     *
+     * @param length The number of bytes to read.
+     *
+     * @return A ByteBuffer positioned at the first of the bytes.
+     */
+    public ByteBuffer getBuffer(final int length) {
+        if (length > remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        final long index = start + position;
+        final ByteBuffer segment = segment(index);
+        final int offset = offset(index);
+        if ((long) offset + length <= segment.limit()) {
+            position += length;
+            final ByteBuffer buffer = segment.duplicate();
+            buffer.position(offset);
+            buffer.limit(offset + length);
+            return buffer.slice();
+        }
+
+        final byte[] bytes = new byte[length];
+        get(bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private long advance(final int length) {
+        if (length > remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final long index = start + position;
+        position += length;
+        return index;
+    }
+
+    private ByteBuffer segment(final long index) {
+        return segments[(int) (index >>> segmentShift)];
+    }
+
+    private int offset(final long index) {
+        return (int) (index & (segmentSize - 1));
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.file.save;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.file.GraphDataObject;
+import au.gov.asd.tac.constellation.graph.file.io.GraphBinaryReader;
+import au.gov.asd.tac.constellation.graph.file.io.GraphBinaryWriter;
+import au.gov.asd.tac.constellation.graph.file.io.GraphJsonReader;
+import au.gov.asd.tac.constellation.graph.file.io.GraphParseException;
+import au.gov.asd.tac.constellation.graph.file.io.SegmentedBuffer;
+import au.gov.asd.tac.constellation.utilities.gui.IoProgress;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Autosave a graph as a snapshot followed by a journal of changes.
+ * <p>
+ * The first autosave of a graph writes a complete binary snapshot. Later
+ * autosaves append a change to the journal next to the snapshot: the vertices
+ * and transactions that have been removed and added, the attribute
+ * definitions, and the values that have been modified since the previous
+ * autosave. Vertices and transactions are tracked using their UIDs, so that an
+ * element id that has been reused is written as a removal and an addition.
+ * Values are tracked using each attribute's value change counter, which unlike
+ * its value modification counter is not wound back by an undo, and
+ * {@link GraphReadMethods#getValueChangesSince}, which names the elements that
+ * have changed. When the graph can no longer name them, because there have been
+ * too many changes or the attribute is new, every value of the attribute is
+ * written.
+ * <p>
+ * A change is captured by {@link #captureChanges} while the graph is locked,
+ * which only compares the structure with the previous autosave and copies the
+ * changed values, and written by {@link #writeChanges(GraphBinaryWriter.Change,
+ * IoProgress)} once the graph has been released.
+ * <p>
+ * When the journal becomes larger than the snapshot, a new snapshot is written
+ * and the journal is started again.
+ * <p>
+ * The journal starts with {@link #JOURNAL_MAGIC}, followed by each change as a
+ * long length and a binary graph file. The length is written after the change,
+ * so a change that was interrupted has a length of zero and is ignored, along
+ * with everything after it.
+ *
+ * @author agent
+ */
+public final class AutosaveJournal {
+
+    public static final int JOURNAL_MAGIC = 0x43474a4c; // "CGJL"
+
+    private static final GraphElementType[] ELEMENT_TYPES = {
+        GraphElementType.GRAPH,
+        GraphElementType.VERTEX,
+        GraphElementType.TRANSACTION,
+        GraphElementType.META
+    };
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private long snapshotSize;
+    private long journalSize;
+    private boolean hasSnapshot = false;
+
+    // The state of the graph when it was last written.
+    private final Map<Integer, String> attributeSignatures = new HashMap<>();
+    private final Map<Integer, Long> valueChangeCounters = new HashMap<>();
+    private long[] vertexUids = new long[0];
+    private long[] transactionUids = new long[0];
+    private int[] transactionSources = new int[0];
+    private int[] transactionDestinations = new int[0];
+    private boolean[] transactionDirected = new boolean[0];
+
+    // The change captured most recently, which is the only one that can be written.
+    private GraphBinaryWriter.Change pendingChange = null;
+
+    /**
+     * Create a journal for the given snapshot.
+     *
+     * @param snapshotFile The file that the snapshot is written to; the
+     * journal is written next to it.
+     */
+    public AutosaveJournal(final File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = getJournalFile(snapshotFile);
+    }
+
+    /**
+     * The journal file belonging to a snapshot file.
+     *
+     * @param snapshotFile A snapshot file.
+     *
+     * @return The journal file belonging to the snapshot file.
+     */
+    public static File getJournalFile(final File snapshotFile) {
+        final String path = snapshotFile.getPath();
+        return new File(path.substring(0, path.length() - GraphDataObject.FILE_EXTENSION.length()) + AutosaveUtilities.JOURNAL_EXT);
+    }
+
+    /**
+     * Does the next autosave need to be a snapshot rather than a change?
+     *
+     * @return True if there is no snapshot, or the journal has grown larger
+     * than the snapshot.
+     */
+    public synchronized boolean needsSnapshot() {
+        return !hasSnapshot || !snapshotFile.exists() || journalSize > snapshotSize;
+    }
+
+    /**
+     * Write a snapshot of the graph and start a new journal.
+     * <p>
+     * The snapshot is written to a temporary file, then the old journal is
+     * deleted, then the snapshot is moved into place, so that a crash at any
+     * point leaves a snapshot with a journal that applies to it.
+     *
+     * @param graph The graph to write.
+     * @param progress A progress indicator.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized void writeSnapshot(final GraphReadMethods graph, final IoProgress progress) throws IOException {
+        final File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            if (new GraphBinaryWriter().writeGraphFile(graph, tmpFile.getPath(), progress)) {
+                return;
+            }
+
+            Files.deleteIfExists(journalFile.toPath());
+            Files.move(tmpFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+
+        snapshotSize = snapshotFile.length();
+        journalSize = 0;
+        hasSnapshot = true;
+        pendingChange = null;
+        recordState(graph);
+    }
+
+    /**
+     * Append the changes made to the graph since it was last written to the
+     * journal.
+     * <p>
+     * The caller must hold a read lock on the graph for the duration of the
+     * call. Callers that can release the lock before the changes are written
+     * should use {@link #captureChanges} instead.
+     *
+     * @param graph The graph to write.
+     * @param progress A progress indicator.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized void writeChanges(final GraphReadMethods graph, final IoProgress progress) throws IOException {
+        writeChanges(captureChanges(graph), progress);
+    }
+
+    /**
+     * Capture the changes made to the graph since it was last written, to be
+     * appended to the journal by
+     * {@link #writeChanges(GraphBinaryWriter.Change, IoProgress)}.
+     * <p>
+     * The caller must hold a read lock on the graph for the duration of the
+     * call, but not while the changes are written. Changes must be written in
+     * the order that they were captured; if another change is captured before
+     * this one is written, neither is written and the next autosave writes a
+     * snapshot.
+     *
+     * @param graph The graph to capture the changes of.
+     *
+     * @return The changes made to the graph.
+     *
+     * @throws IOException If a value can't be written.
+     */
+    public synchronized GraphBinaryWriter.Change captureChanges(final GraphReadMethods graph) throws IOException {
+        final BitSet removedVertices = new BitSet();
+        final BitSet addedVertices = new BitSet();
+        for (int vertex = 0; vertex < vertexUids.length; vertex++) {
+            if (vertexUids[vertex] != Graph.NOT_FOUND && (!graph.vertexExists(vertex) || graph.getVertexUID(vertex) != vertexUids[vertex])) {
+                removedVertices.set(vertex);
+            }
+        }
+        for (int position = 0; position < graph.getVertexCount(); position++) {
+            final int vertex = graph.getVertex(position);
+            if (vertex >= vertexUids.length || vertexUids[vertex] != graph.getVertexUID(vertex)) {
+                addedVertices.set(vertex);
+            }
+        }
+
+        // A transaction that has moved or changed direction is removed and
+        // added again, as is one whose vertex id has been reused, because
+        // removing the vertex when the change is read will remove it.
+        final BitSet removedTransactions = new BitSet();
+        final BitSet addedTransactions = new BitSet();
+        for (int transaction = 0; transaction < transactionUids.length; transaction++) {
+            if (transactionUids[transaction] != Graph.NOT_FOUND && (!graph.transactionExists(transaction) || isReplaced(graph, transaction, removedVertices))) {
+                removedTransactions.set(transaction);
+            }
+        }
+        for (int position = 0; position < graph.getTransactionCount(); position++) {
+            final int transaction = graph.getTransaction(position);
+            if (transaction >= transactionUids.length || transactionUids[transaction] == Graph.NOT_FOUND || removedTransactions.get(transaction)) {
+                addedTransactions.set(transaction);
+            }
+        }
+
+        final Map<Integer, int[]> changedValues = new HashMap<>();
+        for (final GraphElementType elementType : ELEMENT_TYPES) {
+            final BitSet added = elementType == GraphElementType.VERTEX ? addedVertices
+                    : elementType == GraphElementType.TRANSACTION ? addedTransactions
+                    : null;
+            for (int position = 0; position < graph.getAttributeCount(elementType); position++) {
+                final int attribute = graph.getAttribute(elementType, position);
+                final int[] ids = getChangedValues(graph, elementType, attribute, added);
+                if (ids != null && ids.length > 0) {
+                    changedValues.put(attribute, ids);
+                }
+            }
+        }
+
+        final GraphBinaryWriter.Change change = new GraphBinaryWriter().captureChange(graph,
+                removedVertices.stream().toArray(), addedVertices.stream().toArray(),
+                removedTransactions.stream().toArray(), addedTransactions.stream().toArray(),
+                changedValues);
+        if (pendingChange != null) {
+            // The previous change was never written, so this one can't follow it.
+            hasSnapshot = false;
+        }
+        pendingChange = change;
+        recordState(graph);
+
+        return change;
+    }
+
+    /**
+     * Append changes captured by {@link #captureChanges} to the journal.
+     * <p>
+     * If the changes can't be written, the next autosave writes a snapshot.
+     *
+     * @param change The changes to write.
+     * @param progress A progress indicator.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized void writeChanges(final GraphBinaryWriter.Change change, final IoProgress progress) throws IOException {
+        if (change != pendingChange || !hasSnapshot) {
+            hasSnapshot = false;
+            return;
+        }
+        pendingChange = null;
+
+        // Until the change has been written, the journal doesn't match the recorded state.
+        hasSnapshot = false;
+        try (final FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() == 0) {
+                final ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).putInt(0, JOURNAL_MAGIC);
+                channel.write(magic, 0);
+            }
+
+            final long start = channel.size();
+            channel.position(start);
+            channel.write(ByteBuffer.allocate(Long.BYTES));
+            final boolean cancelled;
+            try {
+                // The stream must not be closed, because that would close the channel.
+                final OutputStream out = Channels.newOutputStream(channel);
+                cancelled = new GraphBinaryWriter().writeChange(change, out, progress);
+            } catch (final IOException ex) {
+                channel.truncate(start);
+                throw ex;
+            }
+            if (cancelled) {
+                channel.truncate(start);
+                return;
+            }
+
+            final long length = channel.position() - start - Long.BYTES;
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, length), start);
+            journalSize = channel.size();
+        }
+        hasSnapshot = true;
+    }
+
+    /**
+     * Read an autosaved graph, applying any changes in its journal.
+     *
+     * @param snapshotFile The snapshot file.
+     * @param progress A progress indicator.
+     *
+     * @return The graph as it was at the most recent autosave.
+     *
+     * @throws IOException If an I/O error occurs.
+     * @throws GraphParseException If the snapshot or journal can't be parsed.
+     */
+    public static Graph readGraph(final File snapshotFile, final IoProgress progress) throws IOException, GraphParseException {
+        final List<SegmentedBuffer> changes = readChanges(getJournalFile(snapshotFile));
+        if (changes.isEmpty()) {
+            // Snapshots written before journalling was introduced may be JSON.
+            return new GraphJsonReader().readGraphZip(snapshotFile, progress);
+        }
+
+        return new GraphBinaryReader().readGraph(snapshotFile, changes, progress);
+    }
+
+    /**
+     * Copy an autosaved graph to a file, applying any changes in its journal.
+     *
+     * @param snapshotFile The snapshot file.
+     * @param to The file to copy the graph to.
+     * @param progress A progress indicator.
+     *
+     * @throws IOException If an I/O error occurs.
+     * @throws GraphParseException If the snapshot or journal can't be parsed.
+     */
+    public static void copyGraphFile(final File snapshotFile, final File to, final IoProgress progress) throws IOException, GraphParseException {
+        if (readChanges(getJournalFile(snapshotFile)).isEmpty()) {
+            AutosaveUtilities.copyFile(snapshotFile, to);
+            return;
+        }
+
+        final Graph graph = readGraph(snapshotFile, progress);
+        final File tmpFile = new File(snapshotFile.getPath() + ".tmp");
+        try {
+            final ReadableGraph rg = graph.getReadableGraph();
+            try {
+                new GraphBinaryWriter().writeGraphFile(rg, tmpFile.getPath(), progress);
+            } finally {
+                rg.release();
+            }
+            AutosaveUtilities.copyFile(tmpFile, to);
+        } finally {
+            Files.deleteIfExists(tmpFile.toPath());
+        }
+    }
+
+    /**
+     * Read the complete changes from a journal.
+     */
+    private static List<SegmentedBuffer> readChanges(final File journalFile) throws IOException, GraphParseException {
+        final List<SegmentedBuffer> changes = new ArrayList<>();
+        if (!journalFile.exists() || journalFile.length() < Integer.BYTES) {
+            return changes;
+        }
+
+        final SegmentedBuffer journal = GraphBinaryReader.map(journalFile);
+        if (journal.getInt() != JOURNAL_MAGIC) {
+            throw new GraphParseException(String.format("%s is not an autosave journal", journalFile.getPath()));
+        }
+
+        while (journal.remaining() >= Long.BYTES) {
+            final long length = journal.getLong();
+            if (length <= 0 || length > journal.remaining()) {
+                break;
+            }
+
+            changes.add(journal.slice(length));
+            journal.position(journal.position() + length);
+        }
+
+        return changes;
+    }
+
+    /**
+     * Has a transaction that existed when the graph was last written been
+     * replaced, moved, or had its direction changed?
+     */
+    private boolean isReplaced(final GraphReadMethods graph, final int transaction, final BitSet removedVertices) {
+        final int source = graph.getTransactionSourceVertex(transaction);
+        final int destination = graph.getTransactionDestinationVertex(transaction);
+        return graph.getTransactionUID(transaction) != transactionUids[transaction]
+                || source != transactionSources[transaction]
+                || destination != transactionDestinations[transaction]
+                || (graph.getTransactionDirection(transaction) != Graph.UNDIRECTED) != transactionDirected[transaction]
+                || removedVertices.get(source)
+                || removedVertices.get(destination);
+    }
+
+    /**
+     * Find the elements whose values of an attribute must be written to bring
+     * the graph last written up to date.
+     *
+     * @param added The vertices or transactions that have been added, or null
+     * for graph and meta attributes.
+     *
+     * @return The ids of the elements, or null if there are none.
+     */
+    private int[] getChangedValues(final GraphReadMethods graph, final GraphElementType elementType, final int attribute, final BitSet added) {
+        final Long valueChangeCounter = valueChangeCounters.get(attribute);
+        final boolean isNew = valueChangeCounter == null || !getSignature(graph, elementType, attribute).equals(attributeSignatures.get(attribute));
+        if (added == null) {
+            return isNew || valueChangeCounter != graph.getValueChangeCounter(attribute) ? new int[]{0} : null;
+        }
+
+        final int[] changes = isNew ? null
+                : valueChangeCounter == graph.getValueChangeCounter(attribute) ? new int[0]
+                : graph.getValueChangesSince(attribute, valueChangeCounter);
+        if (changes == null) {
+            // The graph can't say which elements have changed, so write them all.
+            final boolean isVertex = elementType == GraphElementType.VERTEX;
+            final int count = isVertex ? graph.getVertexCount() : graph.getTransactionCount();
+            final int[] ids = new int[count];
+            for (int position = 0; position < count; position++) {
+                ids[position] = isVertex ? graph.getVertex(position) : graph.getTransaction(position);
+            }
+            return ids;
+        }
+
+        final BitSet changed = (BitSet) added.clone();
+        for (final int id : changes) {
+            if (elementType == GraphElementType.VERTEX ? graph.vertexExists(id) : graph.transactionExists(id)) {
+                changed.set(id);
+            }
+        }
+        return changed.stream().toArray();
+    }
+
+    private void recordState(final GraphReadMethods graph) {
+        attributeSignatures.clear();
+        valueChangeCounters.clear();
+        for (final GraphElementType elementType : ELEMENT_TYPES) {
+            for (int position = 0; position < graph.getAttributeCount(elementType); position++) {
+                final int attribute = graph.getAttribute(elementType, position);
+                attributeSignatures.put(attribute, getSignature(graph, elementType, attribute));
+                valueChangeCounters.put(attribute, graph.getValueChangeCounter(attribute));
+            }
+        }
+
+        vertexUids = new long[graph.getVertexCapacity()];
+        Arrays.fill(vertexUids, Graph.NOT_FOUND);
+        for (int position = 0; position < graph.getVertexCount(); position++) {
+            final int vertex = graph.getVertex(position);
+            vertexUids[vertex] = graph.getVertexUID(vertex);
+        }
+
+        transactionUids = new long[graph.getTransactionCapacity()];
+        transactionSources = new int[graph.getTransactionCapacity()];
+        transactionDestinations = new int[graph.getTransactionCapacity()];
+        transactionDirected = new boolean[graph.getTransactionCapacity()];
+        Arrays.fill(transactionUids, Graph.NOT_FOUND);
+        for (int position = 0; position < graph.getTransactionCount(); position++) {
+            final int transaction = graph.getTransaction(position);
+            transactionUids[transaction] = graph.getTransactionUID(transaction);
+            transactionSources[transaction] = graph.getTransactionSourceVertex(transaction);
+            transactionDestinations[transaction] = graph.getTransactionDestinationVertex(transaction);
+            transactionDirected[transaction] = graph.getTransactionDirection(transaction) != Graph.UNDIRECTED;
+        }
+    }
+
+    /**
+     * An attribute that has been renamed, or removed and replaced, has a
+     * different signature, so its values are written even if its value
+     * change counter happens to match.
+     */
+    private static String getSignature(final GraphReadMethods graph, final GraphElementType elementType, final int attribute) {
+        return elementType + "|" + graph.getAttributeName(attribute) + "|" + graph.getAttributeType(attribute) + "|" + graph.getAttributeUID(attribute);
+    }
+
+}
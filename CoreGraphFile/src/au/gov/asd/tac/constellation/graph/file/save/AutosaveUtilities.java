@@ -23,7 +23,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
@@ -45,8 +47,10 @@ public final class AutosaveUtilities {
     public static final String UNSAVED = "unsaved";
     public static final String DT = "dt";
     public static final String AUTO_EXT = ".star_auto";
+    public static final String JOURNAL_EXT = ".star_journal";
     private static final Logger LOGGER = Logger.getLogger(AutosaveUtilities.class.getName());
     private static final String AUTOSAVE_DIR = "Autosave";
+    private static final Map<String, AutosaveJournal> JOURNALS = new ConcurrentHashMap<>();
 
     public static File getAutosaveDir() {
         final Preferences prefs = NbPreferences.forModule(ApplicationPreferenceKeys.class);
@@ -64,6 +68,17 @@ public final class AutosaveUtilities {
         return saveDir;
     }
 
+    /**
+     * Return the journal that autosaves the graph with the given id.
+     *
+     * @param id The id of the graph from ReadableGraph.getId().
+     *
+     * @return The journal that autosaves the graph.
+     */
+    public static AutosaveJournal getJournal(final String id) {
+        return JOURNALS.computeIfAbsent(id, k -> new AutosaveJournal(new File(getAutosaveDir(), id + GraphDataObject.FILE_EXTENSION)));
+    }
+
     /**
      * Return an array of files with the given name suffix.
      *
@@ -89,6 +104,7 @@ public final class AutosaveUtilities {
      * @param id The id of the graph from ReadableGraph.getId().
      */
     public static void deleteAutosave(final String id) {
+        JOURNALS.remove(id);
         final File dir = getAutosaveDir();
         final File f = new File(dir, id + AUTO_EXT);
         deleteAutosave(f);
@@ -98,7 +114,7 @@ public final class AutosaveUtilities {
      * Delete a pair of autosave files.
      * <p>
      * If the .star is given, the matching .star_auto will be deleted, and vice
-     * versa.
+     * versa. The journal belonging to the .star is also deleted.
      *
      * @param f A .star or .star_auto to be deleted.
      */
@@ -122,6 +138,14 @@ public final class AutosaveUtilities {
                 //TODO: Handle case where file not successfully deleted
             }
         }
+
+        final File star = path.endsWith(AUTO_EXT) ? f2 : f;
+        if (star != null && star.getPath().endsWith(GraphDataObject.FILE_EXTENSION)) {
+            final File journal = AutosaveJournal.getJournalFile(star);
+            if (journal.exists() && !journal.delete()) {
+                LOGGER.log(Level.WARNING, "Unable to delete autosave journal {0}", journal);
+            }
+        }
     }
 
     /**
@@ -210,9 +234,9 @@ public final class AutosaveUtilities {
     /**
      * Clean up stray files in the autosave directory.
      * <p>
-     * It's possible to have .star files without a corresponding .star_auto, and
-     * vice versa, depending on exactly where a crash happened. This method gets
-     * rid of dangling files.
+     * It's possible to have .star files without a corresponding .star_auto or
+     * .star_journal, and vice versa, depending on exactly where a crash
+     * happened. This method gets rid of dangling files.
      */
     public static void cleanup() {
         // Find .star files aithout a .star_auto.
@@ -226,6 +250,18 @@ public final class AutosaveUtilities {
             }
         }
 
+        // Find .star_journal files without a .star.
+        for (final File journal : getAutosaves(JOURNAL_EXT)) {
+            final String journals = journal.getPath();
+            final File star = new File(journals.substring(0, journals.length() - JOURNAL_EXT.length()) + GraphDataObject.FILE_EXTENSION);
+            if (!star.exists()) {
+                final boolean journalIsDeleted = journal.delete();
+                if (!journalIsDeleted) {
+                    //TODO: Handle case where file not successfully deleted
+                }
+            }
+        }
+
         // Find .star_auto files without a .star.
         for (final File auto : getAutosaves(AUTO_EXT)) {
             final String autos = auto.getPath();
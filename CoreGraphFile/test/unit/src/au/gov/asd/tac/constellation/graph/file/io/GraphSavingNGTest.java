@@ -22,6 +22,8 @@ import au.gov.asd.tac.constellation.graph.ReadableGraph;
 import au.gov.asd.tac.constellation.graph.WritableGraph;
 import au.gov.asd.tac.constellation.graph.locking.DualGraph;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import static org.testng.Assert.fail;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertTrue;
@@ -221,6 +223,35 @@ public class GraphSavingNGTest {
         }
     }
 
+    @Test
+    public void readBinaryGraphStreamTest() throws Exception {
+        final File graphFile = File.createTempFile("tmp1", ".star");
+
+        ReadableGraph rg = graph.getReadableGraph();
+        try {
+            new GraphBinaryWriter().writeGraphFile(rg, graphFile.getPath(), new TextIoProgress(false));
+        } finally {
+            rg.release();
+        }
+
+        // A binary graph read from a stream is spooled to a temporary file
+        final Graph newGraph;
+        try (final InputStream in = new FileInputStream(graphFile)) {
+            newGraph = new GraphJsonReader().readGraphZip(graphFile.getPath(), in, new TextIoProgress(false));
+        }
+        graphFile.delete();
+
+        rg = newGraph.getReadableGraph();
+        try {
+            assertEquals("num nodes", 7, rg.getVertexCount());
+            assertEquals("num transactions", 5, rg.getTransactionCount());
+            assertTrue("nd 'name7' found", nodeFound(rg, "name7"));
+            assertTrue("tx 'name105' found", transactionFound(rg, "name105"));
+        } finally {
+            rg.release();
+        }
+    }
+
     // determine whether the node of the specified name exists in the graph
     private boolean nodeFound(ReadableGraph graph, String base_name) {
         int nameAttrId = graph.getAttribute(GraphElementType.VERTEX, "name");
@@ -25,9 +25,16 @@ import au.gov.asd.tac.constellation.graph.mergers.ConcatenatedSetGraphAttributeM
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
+import java.util.Random;
 import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
@@ -42,6 +49,8 @@ import org.testng.annotations.Test;
  */
 public class IONGTest {
 
+    private static final Logger LOGGER = Logger.getLogger(IONGTest.class.getName());
+
     @BeforeClass
     public static void setUpClass() throws Exception {
     }
@@ -151,4 +160,221 @@ public class IONGTest {
             rg.release();
         }
     }
+
+    /**
+     * Compare the parallel reader with the sequential reader on a larger
+     * graph, checking that both produce the same graph and logging the time
+     * each takes.
+     *
+     * @throws IOException
+     * @throws GraphParseException
+     */
+    @Test
+    public void parallelReadTest() throws IOException, GraphParseException {
+        final File graphFile = File.createTempFile(UUID.randomUUID().toString(), ".star");
+        try {
+            final StoreGraph graph = new StoreGraph();
+            final int nameAttrId = graph.addAttribute(GraphElementType.VERTEX, "string", "name", null, null, null);
+            final int sizeAttrId = graph.addAttribute(GraphElementType.VERTEX, "integer", "size", null, 0, null);
+            final int weightAttrId = graph.addAttribute(GraphElementType.TRANSACTION, "float", "weight", null, 0F, null);
+            graph.setPrimaryKey(GraphElementType.VERTEX, nameAttrId);
+            final Random random = new Random(1);
+            final int[] vertices = new int[20000];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = graph.addVertex();
+                graph.setStringValue(nameAttrId, vertices[i], "vertex" + i);
+                graph.setIntValue(sizeAttrId, vertices[i], i % 100);
+            }
+            for (int i = 0; i < 40000; i++) {
+                final int transaction = graph.addTransaction(vertices[random.nextInt(vertices.length)], vertices[random.nextInt(vertices.length)], true);
+                graph.setFloatValue(weightAttrId, transaction, i / 10F);
+            }
+            new GraphJsonWriter().writeGraphToZip(graph, graphFile.getPath(), new TextIoProgress(false));
+
+            final GraphJsonReader sequentialReader = new GraphJsonReader();
+            sequentialReader.setParallel(false);
+            long start = System.currentTimeMillis();
+            final Graph sequentialGraph = sequentialReader.readGraphZip(graphFile, new TextIoProgress(false));
+            final long sequentialTime = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            final Graph parallelGraph = new GraphJsonReader().readGraphZip(graphFile, new TextIoProgress(false));
+            final long parallelTime = System.currentTimeMillis() - start;
+
+            LOGGER.log(Level.INFO, "Sequential read {0}ms, parallel read {1}ms", new Object[]{sequentialTime, parallelTime});
+
+            assertSameValues(sequentialGraph, parallelGraph);
+        } finally {
+            graphFile.delete();
+        }
+    }
+
+    /**
+     * Setting any value updates the layer mask of its element, so decoding
+     * attributes in parallel must not lose the layer masks saved in the file.
+     *
+     * @throws IOException
+     * @throws GraphParseException
+     */
+    @Test
+    public void parallelReadLayerMaskTest() throws IOException, GraphParseException {
+        final File graphFile = File.createTempFile(UUID.randomUUID().toString(), ".star");
+        try {
+            final StoreGraph graph = new StoreGraph();
+            final int vertexMaskAttrId = graph.addAttribute(GraphElementType.VERTEX, "integer", "layer_mask", null, 1, null);
+            graph.addAttribute(GraphElementType.VERTEX, "float", "layer_visibility", null, 1F, null);
+            final int transactionMaskAttrId = graph.addAttribute(GraphElementType.TRANSACTION, "integer", "layer_mask", null, 1, null);
+            graph.addAttribute(GraphElementType.TRANSACTION, "float", "layer_visibility", null, 1F, null);
+            final int[] vertexAttrIds = new int[8];
+            for (int a = 0; a < vertexAttrIds.length; a++) {
+                vertexAttrIds[a] = graph.addAttribute(GraphElementType.VERTEX, "integer", "attr" + a, null, 0, null);
+            }
+            final int weightAttrId = graph.addAttribute(GraphElementType.TRANSACTION, "float", "weight", null, 0F, null);
+            final int[] vertices = new int[20000];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = graph.addVertex();
+                graph.setIntValue(vertexMaskAttrId, vertices[i], 1 | (i % 2 == 0 ? 0b100 : 0b10));
+                for (final int attrId : vertexAttrIds) {
+                    graph.setIntValue(attrId, vertices[i], i);
+                }
+            }
+            for (int i = 0; i < 20000; i++) {
+                final int transaction = graph.addTransaction(vertices[i], vertices[(i + 1) % vertices.length], true);
+                graph.setIntValue(transactionMaskAttrId, transaction, i % 3 == 0 ? 0b1001 : 1);
+                graph.setFloatValue(weightAttrId, transaction, i);
+            }
+            new GraphJsonWriter().writeGraphToZip(graph, graphFile.getPath(), new TextIoProgress(false));
+
+            final GraphJsonReader sequentialReader = new GraphJsonReader();
+            sequentialReader.setParallel(false);
+            final Graph sequentialGraph = sequentialReader.readGraphZip(graphFile, new TextIoProgress(false));
+
+            for (int load = 0; load < 20; load++) {
+                final Graph parallelGraph = new GraphJsonReader().readGraphZip(graphFile, new TextIoProgress(false));
+                final ReadableGraph rg = parallelGraph.getReadableGraph();
+                try {
+                    final int loadedVertexMaskAttrId = rg.getAttribute(GraphElementType.VERTEX, "layer_mask");
+                    for (int position = 0; position < rg.getVertexCount(); position++) {
+                        Assert.assertEquals(rg.getIntValue(loadedVertexMaskAttrId, rg.getVertex(position)), 1 | (position % 2 == 0 ? 0b100 : 0b10));
+                    }
+                    final int loadedTransactionMaskAttrId = rg.getAttribute(GraphElementType.TRANSACTION, "layer_mask");
+                    for (int position = 0; position < rg.getTransactionCount(); position++) {
+                        Assert.assertEquals(rg.getIntValue(loadedTransactionMaskAttrId, rg.getTransaction(position)), position % 3 == 0 ? 0b1001 : 1);
+                    }
+                } finally {
+                    rg.release();
+                }
+                assertSameValues(sequentialGraph, parallelGraph);
+            }
+        } finally {
+            graphFile.delete();
+        }
+    }
+
+    @Test
+    public void binaryRoundTripTest() throws IOException, GraphParseException {
+        final File starFile = File.createTempFile(UUID.randomUUID().toString(), ".star");
+        final File binaryFile = File.createTempFile(UUID.randomUUID().toString(), ".star");
+        try {
+            final StoreGraph graph = new StoreGraph();
+            final int nameAttrId = graph.addAttribute(GraphElementType.VERTEX, "string", "name", null, null, null);
+            final int typeAttrId = graph.addAttribute(GraphElementType.VERTEX, "string", "type", null, "Unknown", null);
+            final int sizeAttrId = graph.addAttribute(GraphElementType.VERTEX, "integer", "size", null, 0, null);
+            final int selectedAttrId = graph.addAttribute(GraphElementType.VERTEX, "boolean", "selected", null, false, null);
+            final int weightAttrId = graph.addAttribute(GraphElementType.TRANSACTION, "float", "weight", null, 0F, null);
+            final int datetimeAttrId = graph.addAttribute(GraphElementType.TRANSACTION, "datetime", "datetime", null, null, null);
+            final int titleAttrId = graph.addAttribute(GraphElementType.GRAPH, "string", "title", "The title", null, null);
+            graph.setPrimaryKey(GraphElementType.VERTEX, nameAttrId);
+            graph.setStringValue(titleAttrId, 0, "Round trip");
+            final Random random = new Random(1);
+            final int[] vertices = new int[20000];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = graph.addVertex();
+                graph.setStringValue(nameAttrId, vertices[i], "vertex" + i);
+                graph.setStringValue(typeAttrId, vertices[i], i % 3 == 0 ? null : "type" + (i % 7));
+                graph.setIntValue(sizeAttrId, vertices[i], i % 100);
+                graph.setBooleanValue(selectedAttrId, vertices[i], i % 2 == 0);
+            }
+            for (int i = 0; i < 40000; i++) {
+                final int transaction = graph.addTransaction(vertices[random.nextInt(vertices.length)], vertices[random.nextInt(vertices.length)], i % 5 != 0);
+                graph.setFloatValue(weightAttrId, transaction, i / 10F);
+                graph.setObjectValue(datetimeAttrId, transaction, i % 4 == 0 ? null : ZonedDateTime.of(2020, 1, 1 + i % 28, 10, i % 60, 0, 0, ZoneOffset.ofHours(10)));
+            }
+
+            long start = System.currentTimeMillis();
+            new GraphJsonWriter().writeGraphToZip(graph, starFile.getPath(), new TextIoProgress(false));
+            final long jsonWriteTime = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            new GraphBinaryWriter().writeGraphFile(graph, binaryFile.getPath(), new TextIoProgress(false));
+            final long binaryWriteTime = System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            final Graph jsonGraph = new GraphJsonReader().readGraphZip(starFile, new TextIoProgress(false));
+            final long jsonReadTime = System.currentTimeMillis() - start;
+
+            // The binary format is detected automatically.
+            start = System.currentTimeMillis();
+            final Graph binaryGraph = new GraphJsonReader().readGraphZip(binaryFile, new TextIoProgress(false));
+            final long binaryReadTime = System.currentTimeMillis() - start;
+
+            LOGGER.log(Level.INFO, "JSON {0} bytes, write {1}ms, read {2}ms; binary {3} bytes, write {4}ms, read {5}ms",
+                    new Object[]{starFile.length(), jsonWriteTime, jsonReadTime, binaryFile.length(), binaryWriteTime, binaryReadTime});
+
+            assertSameValues(jsonGraph, binaryGraph);
+
+            final Graph streamGraph;
+            try (final InputStream in = new FileInputStream(binaryFile)) {
+                streamGraph = new GraphJsonReader().readGraphZip(binaryFile.getPath(), in, new TextIoProgress(false));
+            }
+            assertSameValues(jsonGraph, streamGraph);
+
+            final ReadableGraph rg = binaryGraph.getReadableGraph();
+            try {
+                Assert.assertEquals(rg.getPrimaryKey(GraphElementType.VERTEX).length, 1);
+                Assert.assertEquals(rg.getAttributeDefaultValue(rg.getAttribute(GraphElementType.VERTEX, "type")), "Unknown");
+                Assert.assertEquals(rg.getAttributeDescription(rg.getAttribute(GraphElementType.GRAPH, "title")), "The title");
+                Assert.assertEquals(rg.getStringValue(rg.getAttribute(GraphElementType.GRAPH, "title"), 0), "Round trip");
+                Assert.assertEquals(rg.getValueModificationCounter(rg.getAttribute(GraphElementType.VERTEX, "size")), graph.getValueModificationCounter(sizeAttrId));
+                Assert.assertEquals(rg.getGlobalModificationCounter(), graph.getGlobalModificationCounter());
+            } finally {
+                rg.release();
+            }
+        } finally {
+            starFile.delete();
+            binaryFile.delete();
+        }
+    }
+
+    private static void assertSameValues(final Graph expectedGraph, final Graph actualGraph) {
+        final ReadableGraph expected = expectedGraph.getReadableGraph();
+        final ReadableGraph actual = actualGraph.getReadableGraph();
+        try {
+            Assert.assertEquals(actual.getVertexCount(), expected.getVertexCount());
+            Assert.assertEquals(actual.getTransactionCount(), expected.getTransactionCount());
+            for (final GraphElementType elementType : new GraphElementType[]{GraphElementType.GRAPH, GraphElementType.VERTEX, GraphElementType.TRANSACTION}) {
+                final int count = elementType == GraphElementType.VERTEX ? expected.getVertexCount() : elementType == GraphElementType.TRANSACTION ? expected.getTransactionCount() : 1;
+                Assert.assertEquals(actual.getAttributeCount(elementType), expected.getAttributeCount(elementType));
+                for (int a = 0; a < expected.getAttributeCount(elementType); a++) {
+                    final int attribute = expected.getAttribute(elementType, a);
+                    final int actualAttribute = actual.getAttribute(elementType, expected.getAttributeName(attribute));
+                    for (int position = 0; position < count; position++) {
+                        final int id = elementType == GraphElementType.VERTEX ? expected.getVertex(position) : elementType == GraphElementType.TRANSACTION ? expected.getTransaction(position) : 0;
+                        final int actualId = elementType == GraphElementType.VERTEX ? actual.getVertex(position) : elementType == GraphElementType.TRANSACTION ? actual.getTransaction(position) : 0;
+                        Assert.assertEquals(actual.getObjectValue(actualAttribute, actualId), expected.getObjectValue(attribute, id));
+                    }
+                }
+            }
+            for (int position = 0; position < expected.getTransactionCount(); position++) {
+                final int transaction = expected.getTransaction(position);
+                final int actualTransaction = actual.getTransaction(position);
+                Assert.assertEquals(actual.getTransactionDirection(actualTransaction), expected.getTransactionDirection(transaction));
+                Assert.assertEquals(actual.getVertexPosition(actual.getTransactionSourceVertex(actualTransaction)), expected.getVertexPosition(expected.getTransactionSourceVertex(transaction)));
+                Assert.assertEquals(actual.getVertexPosition(actual.getTransactionDestinationVertex(actualTransaction)), expected.getVertexPosition(expected.getTransactionDestinationVertex(transaction)));
+            }
+        } finally {
+            actual.release();
+            expected.release();
+        }
+    }
 }
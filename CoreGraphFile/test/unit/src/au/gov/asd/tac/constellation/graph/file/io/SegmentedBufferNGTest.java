@@ -0,0 +1,156 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.file.io;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+/**
+ * Segmented Buffer Test.
+ *
+ * @author agent
+ */
+public class SegmentedBufferNGTest {
+
+    private static File writeFile() throws IOException {
+        final File file = File.createTempFile("segmented", ".bin");
+        try (final DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 100; i++) {
+                out.writeByte(i);
+                out.writeShort(i * 100);
+                out.writeChar('a' + i);
+                out.writeInt(i * 1000);
+                out.writeLong(i * 1000000000L);
+                out.writeFloat(i / 7.0F);
+                out.writeDouble(i / 3.0);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Values that cross the ends of segments should read the same as values
+     * that don't.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void crossSegmentTest() throws IOException {
+        final File file = writeFile();
+        try {
+            for (final int segmentShift : new int[]{0, 1, 2, 3, 6, SegmentedBuffer.SEGMENT_SHIFT}) {
+                final SegmentedBuffer buffer = SegmentedBuffer.map(file, segmentShift);
+                assertEquals(buffer.limit(), file.length());
+                for (int i = 0; i < 100; i++) {
+                    assertEquals(buffer.get(), (byte) i);
+                    assertEquals(buffer.getShort(), (short) (i * 100));
+                    assertEquals(buffer.getChar(), (char) ('a' + i));
+                    assertEquals(buffer.getInt(), i * 1000);
+                    assertEquals(buffer.getLong(), i * 1000000000L);
+                    assertEquals(buffer.getFloat(), i / 7.0F);
+                    assertEquals(buffer.getDouble(), i / 3.0);
+                }
+                assertEquals(buffer.remaining(), 0);
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * Runs of bytes should be read whole whether or not they cross the ends
+     * of segments.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void getBufferTest() throws IOException {
+        final File file = writeFile();
+        try {
+            final byte[] expected = Files.readAllBytes(file.toPath());
+            for (final int segmentShift : new int[]{0, 2, 7, SegmentedBuffer.SEGMENT_SHIFT}) {
+                final SegmentedBuffer buffer = SegmentedBuffer.map(file, segmentShift);
+                buffer.position(3);
+                final ByteBuffer run = buffer.getBuffer(250);
+                assertEquals(buffer.position(), 253);
+                for (int i = 0; i < 250; i++) {
+                    assertEquals(run.get(), expected[i + 3]);
+                }
+
+                final byte[] bytes = new byte[expected.length - 253];
+                buffer.get(bytes);
+                for (int i = 0; i < bytes.length; i++) {
+                    assertEquals(bytes[i], expected[i + 253]);
+                }
+            }
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * A slice should read its own part of the file and stop at its end.
+     *
+     * @throws IOException
+     */
+    @Test(expectedExceptions = BufferUnderflowException.class)
+    public void sliceTest() throws IOException {
+        final File file = writeFile();
+        try {
+            final SegmentedBuffer buffer = SegmentedBuffer.map(file, 3);
+            buffer.position(29);
+            final SegmentedBuffer slice = buffer.slice(29);
+            assertEquals(buffer.position(), 29);
+            assertEquals(slice.limit(), 29);
+            assertEquals(slice.getInt(5), 1000);
+            assertEquals(slice.get(), (byte) 1);
+            assertEquals(slice.getShort(), (short) 100);
+            assertEquals(slice.getChar(), 'b');
+            assertEquals(slice.getInt(), 1000);
+
+            final SegmentedBuffer duplicate = slice.duplicate();
+            assertEquals(duplicate.get(), (byte) 1);
+            assertEquals(slice.getLong(), 1000000000L);
+            assertEquals(slice.getFloat(), 1 / 7.0F);
+            assertEquals(slice.getDouble(), 1 / 3.0);
+            slice.get();
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    /**
+     * A wrapped ByteBuffer should read from its position.
+     */
+    @Test
+    public void wrapTest() {
+        final ByteBuffer bytes = ByteBuffer.allocate(16);
+        bytes.putInt(0, 7).putLong(4, 11L).putInt(12, 13);
+        bytes.position(4);
+        final SegmentedBuffer buffer = SegmentedBuffer.wrap(bytes);
+        assertEquals(buffer.limit(), 12);
+        assertEquals(buffer.getLong(), 11L);
+        assertEquals(buffer.getInt(), 13);
+        assertEquals(bytes.position(), 4);
+    }
+}
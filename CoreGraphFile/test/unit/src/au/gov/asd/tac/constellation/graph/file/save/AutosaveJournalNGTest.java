@@ -0,0 +1,276 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.file.save;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.file.io.GraphBinaryWriter;
+import au.gov.asd.tac.constellation.graph.file.io.GraphParseException;
+import au.gov.asd.tac.constellation.graph.locking.GraphOperationMode;
+import au.gov.asd.tac.constellation.graph.undo.UndoGraphEdit;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ * Autosave Journal Test.
+ *
+ * @author agent
+ */
+public class AutosaveJournalNGTest {
+
+    /**
+     * A snapshot followed by changes should read back as the graph at the
+     * last change.
+     *
+     * @throws IOException
+     * @throws GraphParseException
+     */
+    @Test
+    public void replayTest() throws IOException, GraphParseException {
+        final File dir = Files.createTempDirectory("autosave").toFile();
+        final File snapshotFile = new File(dir, "graph.star");
+        final File journalFile = AutosaveJournal.getJournalFile(snapshotFile);
+        try {
+            final StoreGraph graph = new StoreGraph();
+            final int nameAttrId = graph.addAttribute(GraphElementType.VERTEX, "string", "name", null, null, null);
+            final int sizeAttrId = graph.addAttribute(GraphElementType.VERTEX, "integer", "size", null, 0, null);
+            final int weightAttrId = graph.addAttribute(GraphElementType.TRANSACTION, "float", "weight", null, 0F, null);
+            final int titleAttrId = graph.addAttribute(GraphElementType.GRAPH, "string", "title", null, null, null);
+            graph.setPrimaryKey(GraphElementType.VERTEX, nameAttrId);
+            graph.setStringValue(titleAttrId, 0, "Journal");
+            final Random random = new Random(1);
+            final int[] vertices = new int[1000];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = graph.addVertex();
+                graph.setStringValue(nameAttrId, vertices[i], "vertex" + i);
+                graph.setIntValue(sizeAttrId, vertices[i], i);
+            }
+            for (int i = 0; i < 2000; i++) {
+                final int transaction = graph.addTransaction(vertices[random.nextInt(vertices.length)], vertices[random.nextInt(vertices.length)], i % 3 != 0);
+                graph.setFloatValue(weightAttrId, transaction, i);
+            }
+
+            final AutosaveJournal journal = new AutosaveJournal(snapshotFile);
+            assertTrue(journal.needsSnapshot());
+            journal.writeSnapshot(graph, null);
+            assertFalse(journal.needsSnapshot());
+            assertFalse(journalFile.exists());
+
+            // Change some values only.
+            for (int i = 0; i < 10; i++) {
+                graph.setIntValue(sizeAttrId, vertices[i], -i);
+            }
+            journal.writeChanges(graph, null);
+            assertSameGraph(readGraph(snapshotFile), graph);
+
+            // Change the structure and the attributes.
+            for (int i = 0; i < 20; i++) {
+                graph.removeVertex(vertices[i * 7]);
+            }
+            for (int i = 0; i < 30; i++) {
+                final int vertex = graph.addVertex();
+                graph.setStringValue(nameAttrId, vertex, "new" + i);
+            }
+            final int transaction = graph.getTransaction(0);
+            graph.setTransactionDestinationVertex(transaction, graph.getVertex(1));
+            final int colorAttrId = graph.addAttribute(GraphElementType.VERTEX, "string", "color", "A colour", "red", null);
+            graph.setStringValue(colorAttrId, graph.getVertex(2), "blue");
+            graph.removeAttribute(sizeAttrId);
+            graph.updateAttributeName(weightAttrId, "strength");
+            journal.writeChanges(graph, null);
+            assertSameGraph(readGraph(snapshotFile), graph);
+
+            // An interrupted change is ignored.
+            try (final FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES + 100));
+            }
+            assertSameGraph(readGraph(snapshotFile), graph);
+
+            // A new snapshot starts a new journal.
+            journal.writeSnapshot(graph, null);
+            assertFalse(journalFile.exists());
+            assertSameGraph(readGraph(snapshotFile), graph);
+        } finally {
+            journalFile.delete();
+            snapshotFile.delete();
+            dir.delete();
+        }
+    }
+
+    /**
+     * Undoing a journaled change winds the value modification counter back,
+     * so a different change made after the undo brings the counter back to
+     * the value that was journaled. The new change must still be written.
+     *
+     * @throws IOException
+     * @throws GraphParseException
+     */
+    @Test
+    public void undoThenEditTest() throws IOException, GraphParseException {
+        final File dir = Files.createTempDirectory("autosave").toFile();
+        final File snapshotFile = new File(dir, "graph.star");
+        final File journalFile = AutosaveJournal.getJournalFile(snapshotFile);
+        try {
+            final StoreGraph graph = new StoreGraph();
+            final int sizeAttrId = graph.addAttribute(GraphElementType.VERTEX, "integer", "size", null, 0, null);
+            final int[] vertices = new int[10];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = graph.addVertex();
+                graph.setIntValue(sizeAttrId, vertices[i], i);
+            }
+
+            final AutosaveJournal journal = new AutosaveJournal(snapshotFile);
+            journal.writeSnapshot(graph, null);
+
+            // Make an undoable change the way the locking manager does, and journal it.
+            final UndoGraphEdit edit = new UndoGraphEdit();
+            graph.setGraphEdit(edit);
+            graph.setIntValue(sizeAttrId, vertices[0], 100);
+            graph.setGraphEdit(null);
+            edit.finish();
+            final long journaledCounter = graph.getValueModificationCounter(sizeAttrId);
+            journal.writeChanges(graph, null);
+            assertSameGraph(readGraph(snapshotFile), graph);
+
+            // Undo it, then make a different change before the next autosave.
+            graph.setOperationMode(GraphOperationMode.UNDO);
+            edit.undo(graph);
+            graph.setOperationMode(GraphOperationMode.EXECUTE);
+            assertEquals(graph.getIntValue(sizeAttrId, vertices[0]), 0);
+            graph.setIntValue(sizeAttrId, vertices[1], 200);
+            assertEquals(graph.getValueModificationCounter(sizeAttrId), journaledCounter);
+
+            journal.writeChanges(graph, null);
+            final GraphReadMethods recovered = readGraph(snapshotFile);
+            assertSameGraph(recovered, graph);
+            assertEquals(recovered.getIntValue(recovered.getAttribute(GraphElementType.VERTEX, "size"), vertices[0]), 0);
+            assertEquals(recovered.getIntValue(recovered.getAttribute(GraphElementType.VERTEX, "size"), vertices[1]), 200);
+        } finally {
+            journalFile.delete();
+            snapshotFile.delete();
+            dir.delete();
+        }
+    }
+
+    /**
+     * A change captured while the graph is locked should be written as it was
+     * when it was captured, even if the graph has changed since, and a change
+     * that is overtaken by another capture should cause a snapshot instead.
+     *
+     * @throws IOException
+     * @throws GraphParseException
+     */
+    @Test
+    public void captureThenWriteTest() throws IOException, GraphParseException {
+        final File dir = Files.createTempDirectory("autosave").toFile();
+        final File snapshotFile = new File(dir, "graph.star");
+        final File journalFile = AutosaveJournal.getJournalFile(snapshotFile);
+        try {
+            final StoreGraph graph = new StoreGraph();
+            final int nameAttrId = graph.addAttribute(GraphElementType.VERTEX, "string", "name", null, null, null);
+            final int[] vertices = new int[10];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = graph.addVertex();
+                graph.setStringValue(nameAttrId, vertices[i], "vertex" + i);
+            }
+            final int transaction = graph.addTransaction(vertices[0], vertices[1], true);
+
+            final AutosaveJournal journal = new AutosaveJournal(snapshotFile);
+            journal.writeSnapshot(graph, null);
+
+            // Reuse a vertex id, move the transaction, and set a value back to its default.
+            graph.removeVertex(vertices[2]);
+            graph.addVertex(vertices[2]);
+            graph.setTransactionDestinationVertex(transaction, vertices[2]);
+            graph.setStringValue(nameAttrId, vertices[3], null);
+            final StoreGraph expected = new StoreGraph(graph);
+            final GraphBinaryWriter.Change change = journal.captureChanges(graph);
+
+            graph.setStringValue(nameAttrId, vertices[4], "later");
+            graph.removeVertex(vertices[5]);
+            journal.writeChanges(change, null);
+            assertFalse(journal.needsSnapshot());
+            assertSameGraph(readGraph(snapshotFile), expected);
+
+            // Two captures in a row can't both be written.
+            final GraphBinaryWriter.Change first = journal.captureChanges(graph);
+            final GraphBinaryWriter.Change second = journal.captureChanges(graph);
+            journal.writeChanges(second, null);
+            journal.writeChanges(first, null);
+            assertTrue(journal.needsSnapshot());
+            assertSameGraph(readGraph(snapshotFile), expected);
+        } finally {
+            journalFile.delete();
+            snapshotFile.delete();
+            dir.delete();
+        }
+    }
+
+    private static GraphReadMethods readGraph(final File snapshotFile) throws IOException, GraphParseException {
+        final Graph graph = AutosaveJournal.readGraph(snapshotFile, null);
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            return rg.copy();
+        } finally {
+            rg.release();
+        }
+    }
+
+    private static void assertSameGraph(final GraphReadMethods actual, final GraphReadMethods expected) {
+        assertEquals(actual.getVertexCount(), expected.getVertexCount());
+        assertEquals(actual.getTransactionCount(), expected.getTransactionCount());
+        for (int position = 0; position < expected.getVertexCount(); position++) {
+            assertTrue(actual.vertexExists(expected.getVertex(position)));
+        }
+        for (int position = 0; position < expected.getTransactionCount(); position++) {
+            final int transaction = expected.getTransaction(position);
+            assertTrue(actual.transactionExists(transaction));
+            assertEquals(actual.getTransactionSourceVertex(transaction), expected.getTransactionSourceVertex(transaction));
+            assertEquals(actual.getTransactionDestinationVertex(transaction), expected.getTransactionDestinationVertex(transaction));
+            assertEquals(actual.getTransactionDirection(transaction), expected.getTransactionDirection(transaction));
+        }
+
+        for (final GraphElementType elementType : new GraphElementType[]{GraphElementType.GRAPH, GraphElementType.VERTEX, GraphElementType.TRANSACTION}) {
+            assertEquals(actual.getAttributeCount(elementType), expected.getAttributeCount(elementType));
+            for (int attributePosition = 0; attributePosition < expected.getAttributeCount(elementType); attributePosition++) {
+                final int expectedAttribute = expected.getAttribute(elementType, attributePosition);
+                final int actualAttribute = actual.getAttribute(elementType, expected.getAttributeName(expectedAttribute));
+                assertTrue(actualAttribute != Graph.NOT_FOUND, expected.getAttributeName(expectedAttribute));
+                assertEquals(actual.getAttributeType(actualAttribute), expected.getAttributeType(expectedAttribute));
+                assertEquals(actual.getAttributeDescription(actualAttribute), expected.getAttributeDescription(expectedAttribute));
+                final int count = elementType == GraphElementType.VERTEX ? expected.getVertexCount()
+                        : elementType == GraphElementType.TRANSACTION ? expected.getTransactionCount() : 1;
+                for (int position = 0; position < count; position++) {
+                    final int id = elementType == GraphElementType.VERTEX ? expected.getVertex(position)
+                            : elementType == GraphElementType.TRANSACTION ? expected.getTransaction(position) : 0;
+                    assertEquals(actual.getStringValue(actualAttribute, id), expected.getStringValue(expectedAttribute, id));
+                }
+            }
+        }
+    }
+}
@@ -16,7 +16,9 @@
 package au.gov.asd.tac.constellation.graph;
 
 import au.gov.asd.tac.constellation.graph.attribute.AttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.DateAttributeDescription;
 import au.gov.asd.tac.constellation.graph.schema.Schema;
+import au.gov.asd.tac.constellation.utilities.temporal.TemporalConstants;
 import java.util.stream.IntStream;
 
 /**
@@ -266,6 +268,50 @@ public interface GraphReadMethods extends GraphConstants {
      */
     long getValueModificationCounter(int attribute);
 
+    /**
+     * Returns the change counter for the specified attribute. Like the
+     * modification counter, this counter is increased every time the value of
+     * the attribute is changed for any element, but it is also increased when
+     * a change is undone or redone, so it never returns to an earlier value.
+     * This makes it suitable for detecting whether any value of an attribute
+     * has changed since it was last recorded, for example by an incremental
+     * save, where an undo followed by a different change would otherwise leave
+     * the modification counter where it was.
+     * <p>
+     * Graphs that don't track changes separately return the modification
+     * counter.
+     *
+     * @param attribute the attribute.
+     * @return the change counter for the specified attribute.
+     */
+    default long getValueChangeCounter(final int attribute) {
+        return getValueModificationCounter(attribute);
+    }
+
+    /**
+     * Returns the ids of the elements whose values for the specified attribute
+     * have changed since its change counter had the specified value.
+     * <p>
+     * Each client keeps its own cursor: it records the value of
+     * {@link #getValueChangeCounter} when it has caught up with the values of
+     * an attribute, and later asks for the changes made since that value. The
+     * changes are not consumed, so any number of clients can read them
+     * independently. Only the most recent changes are kept, so a null result
+     * means that the changed elements are not known and every element should
+     * be treated as changed, which is also the case when the values of the
+     * attribute have been replaced as a whole. Changes to elements that have
+     * since been removed may be included, and an attribute that has been
+     * removed and replaced may reuse the same id, so callers should check for
+     * structural and attribute changes as well.
+     *
+     * @param attribute the attribute.
+     * @param valueChangeCounter an earlier value of the change counter of the
+     * attribute.
+     * @return the ids of the elements whose values have changed in ascending
+     * order, or null if they are not known.
+     */
+    int[] getValueChangesSince(int attribute, long valueChangeCounter);
+
     /**
      * Creates a complete deep copy of the graph that has the same id as this
      * graph. The copy is represented by a GraphReadMethods object meaning that
@@ -1763,6 +1809,42 @@ public interface GraphReadMethods extends GraphConstants {
      */
     public GraphIndexResult getElementsWithAttributeValueRange(int attribute, Object start, Object end);
 
+    /**
+     * Returns a GraphIndexResult containing all elements that have a value for
+     * the specified datetime, local datetime or date attribute that falls
+     * within the range of instants defined by the specified start (inclusive)
+     * and end (exclusive) times, given in milliseconds since the epoch. Local
+     * datetimes are compared as if they were in UTC, and dates as midnight UTC
+     * at the start of the day, consistent with their long values. Elements
+     * with a null value are never included.
+     * <p>
+     * An ORDERED index on a temporal attribute keeps its elements in an array
+     * sorted by epoch milliseconds which is kept up to date as values change,
+     * so this query is a pair of binary searches however often it is made.
+     * Callers such as the timeline should set the index type of the attribute
+     * to ORDERED before making this query.
+     *
+     * @param attribute the id of the attribute.
+     * @param start the start of the range in milliseconds since the epoch
+     * (inclusive).
+     * @param end the end of the range in milliseconds since the epoch
+     * (exclusive).
+     * @return a GraphIndexResult containing all elements that have a value for
+     * the specified attribute within the range, or null if the attribute does
+     * not have an ORDERED index.
+     */
+    default GraphIndexResult getElementsWithAttributeTimeRange(final int attribute, final long start, final long end) {
+        // Null values are held as Long.MIN_VALUE, so the range must start after it
+        final long nonNullStart = Math.max(start, Long.MIN_VALUE + 1);
+        if (DateAttributeDescription.ATTRIBUTE_NAME.equals(getAttributeType(attribute))) {
+            // The first whole day at or after each end of the range
+            return getElementsWithAttributeValueRange(attribute,
+                    -Math.floorDiv(-nonNullStart, TemporalConstants.MILLISECONDS_IN_DAY),
+                    -Math.floorDiv(-Math.max(end, nonNullStart), TemporalConstants.MILLISECONDS_IN_DAY));
+        }
+        return getElementsWithAttributeValueRange(attribute, nonNullStart, end);
+    }
+
     /**
      * Returns a stream containing all vertices in the graph.
      *
@@ -0,0 +1,513 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph;
+
+import au.gov.asd.tac.constellation.graph.attribute.AttributeDescription;
+import au.gov.asd.tac.constellation.utilities.query.QueryEvaluator;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A layer query compiled once from its text into a postfix program of
+ * comparisons, ready to be evaluated against every element of a graph.
+ * <p>
+ * The grammar is the one understood by {@link QueryEvaluator}: rules of the
+ * form {@code attribute op value}, where op is one of ==, !=, &lt; or &gt;,
+ * joined by &amp;&amp; and || and grouped with parentheses. Before evaluation
+ * the query is bound to a graph and element type, which resolves each
+ * attribute once and converts each value to the native type of its attribute
+ * so that numbers, dates and times compare by value rather than as text.
+ * Values that an attribute does not accept are compared as strings.
+ * <p>
+ * A bound query is read only, so it may be evaluated for many elements in
+ * parallel.
+ *
+ * @author agent
+ */
+final class LayerQuery {
+
+    private static final String RULE_REGEX = " == | != | < | > ";
+    private static final String AND = "&&";
+    private static final String OR = "||";
+
+    private enum Operator {
+        EQUALS,
+        NOTEQUALS,
+        GREATERTHAN,
+        LESSTHAN,
+        NOTFOUND
+    }
+
+    private enum TermType {
+        AND,
+        OR,
+        RULE,
+        // an operand which is not a rule, and so repeats the previous result
+        CARRY
+    }
+
+    private static final class Term {
+
+        private final TermType type;
+        private final String attributeName;
+        private final Operator operator;
+        private final String value;
+
+        private Term(final TermType type, final String attributeName, final Operator operator, final String value) {
+            this.type = type;
+            this.attributeName = attributeName;
+            this.operator = operator;
+            this.value = value;
+        }
+    }
+
+    private final String query;
+    private final List<Term> terms = new ArrayList<>();
+    private final Binding[] bindings = new Binding[GraphElementType.values().length];
+
+    private LayerQuery(final String query) {
+        this.query = query;
+        for (final String token : QueryEvaluator.convertToPostfix(query)) {
+            terms.add(compileTerm(token));
+        }
+    }
+
+    /**
+     * Compile a layer query.
+     *
+     * @param query the text of the query.
+     * @return the compiled query.
+     */
+    static LayerQuery compile(final String query) {
+        return new LayerQuery(query);
+    }
+
+    /**
+     * Get the text this query was compiled from.
+     *
+     * @return the text of the query.
+     */
+    String getQuery() {
+        return query;
+    }
+
+    /**
+     * Get this query bound to the attributes of a graph for one element type.
+     * <p>
+     * The binding is cached and only rebuilt when attributes have been added
+     * to or removed from the graph since it was made.
+     *
+     * @param graph the graph the query will be evaluated against.
+     * @param elementType the type of element the query will be evaluated for.
+     * @return the bound query.
+     */
+    synchronized Binding bind(final GraphReadMethods graph, final GraphElementType elementType) {
+        Binding binding = bindings[elementType.ordinal()];
+        if (binding == null || binding.graph != graph || binding.attributeModificationCounter != graph.getAttributeModificationCounter()) {
+            binding = new Binding(graph, elementType);
+            bindings[elementType.ordinal()] = binding;
+        }
+        return binding;
+    }
+
+    private static Term compileTerm(final String token) {
+        if (token.equals(AND)) {
+            return new Term(TermType.AND, null, null, null);
+        } else if (token.equals(OR)) {
+            return new Term(TermType.OR, null, null, null);
+        }
+
+        final Operator operator;
+        if (token.contains(" == ")) {
+            operator = Operator.EQUALS;
+        } else if (token.contains(" != ")) {
+            operator = Operator.NOTEQUALS;
+        } else if (token.contains(" > ")) {
+            operator = Operator.GREATERTHAN;
+        } else if (token.contains(" < ")) {
+            operator = Operator.LESSTHAN;
+        } else {
+            operator = Operator.NOTFOUND;
+        }
+
+        final String[] ruleSegments = token.split(RULE_REGEX);
+        if (ruleSegments.length < 2) {
+            return new Term(TermType.CARRY, null, null, null);
+        }
+        return new Term(TermType.RULE, ruleSegments[0], operator, ruleSegments[1]);
+    }
+
+    /**
+     * A {@link LayerQuery} bound to the attributes of a graph for one element
+     * type.
+     */
+    final class Binding {
+
+        private final GraphReadMethods graph;
+        private final long attributeModificationCounter;
+        private final Comparison[] comparisons;
+        private final int[] attributes;
+        private long[] evaluatedCounters = null;
+
+        private Binding(final GraphReadMethods graph, final GraphElementType elementType) {
+            this.graph = graph;
+            this.attributeModificationCounter = graph.getAttributeModificationCounter();
+            comparisons = new Comparison[terms.size()];
+
+            final List<Integer> referencedAttributes = new ArrayList<>();
+            for (int i = 0; i < comparisons.length; i++) {
+                final Term term = terms.get(i);
+                if (term.type == TermType.RULE) {
+                    final int attribute = graph.getAttribute(elementType, term.attributeName);
+                    comparisons[i] = new Comparison(graph, attribute, term.operator, term.value);
+                    if (attribute != Graph.NOT_FOUND && !referencedAttributes.contains(attribute)) {
+                        referencedAttributes.add(attribute);
+                    }
+                }
+            }
+            attributes = referencedAttributes.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * Is the result of this query affected by the value of an attribute?
+         *
+         * @param attribute the attribute id.
+         * @return true if the query compares the value of the attribute.
+         */
+        boolean references(final int attribute) {
+            for (final int referenced : attributes) {
+                if (referenced == attribute) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Have the results of this query been recorded as evaluated for every
+         * element, with nothing they depend on modified since?
+         *
+         * @param maskAttribute the attribute holding the results.
+         * @return true if the recorded results are still current.
+         */
+        synchronized boolean isCurrent(final int maskAttribute) {
+            return evaluatedCounters != null && Arrays.equals(evaluatedCounters, getCounters(maskAttribute));
+        }
+
+        /**
+         * Record that the results of this query have just been written for
+         * every element.
+         *
+         * @param maskAttribute the attribute holding the results.
+         */
+        synchronized void setCurrent(final int maskAttribute) {
+            evaluatedCounters = getCounters(maskAttribute);
+        }
+
+        private long[] getCounters(final int maskAttribute) {
+            final long[] counters = new long[attributes.length + 2];
+            counters[0] = graph.getStructureModificationCounter();
+            counters[1] = graph.getValueModificationCounter(maskAttribute);
+            for (int i = 0; i < attributes.length; i++) {
+                counters[i + 2] = graph.getValueModificationCounter(attributes[i]);
+            }
+            return counters;
+        }
+
+        /**
+         * Find the elements satisfying this query using the indices of the
+         * attributes it compares.
+         * <p>
+         * This is only possible when every rule of the query tests an indexed
+         * attribute for equality, with the rules joined by &amp;&amp; and ||.
+         *
+         * @return the ids of the elements satisfying the query, or null if
+         * the query cannot be answered from indices and must be evaluated for
+         * each element.
+         */
+        BitSet select() {
+            if (comparisons.length == 0) {
+                return null;
+            }
+
+            final BitSet[] stack = new BitSet[comparisons.length];
+            int stackSize = 0;
+            for (int i = 0; i < comparisons.length; i++) {
+                switch (terms.get(i).type) {
+                    case RULE: {
+                        final BitSet matches = comparisons[i].select();
+                        if (matches == null) {
+                            return null;
+                        }
+                        stack[stackSize++] = matches;
+                        break;
+                    }
+                    case AND:
+                        if (stackSize < 2) {
+                            return null;
+                        }
+                        stackSize--;
+                        stack[stackSize - 1].and(stack[stackSize]);
+                        break;
+                    case OR:
+                        if (stackSize < 2) {
+                            return null;
+                        }
+                        stackSize--;
+                        stack[stackSize - 1].or(stack[stackSize]);
+                        break;
+                    default:
+                        return null;
+                }
+            }
+            return stackSize > 0 ? stack[stackSize - 1] : null;
+        }
+
+        /**
+         * Evaluate this query for an element.
+         *
+         * @param elementId the id of the element.
+         * @return true if the element satisfies the query.
+         */
+        boolean evaluate(final int elementId) {
+            // exit condition for show all
+            if (comparisons.length == 0) {
+                return true;
+            }
+
+            final boolean[] stack = new boolean[comparisons.length];
+            int stackSize = 0;
+            boolean result = true;
+            for (int i = 0; i < comparisons.length; i++) {
+                switch (terms.get(i).type) {
+                    case RULE:
+                        result = comparisons[i].evaluate(elementId);
+                        stack[stackSize++] = result;
+                        break;
+                    case CARRY:
+                        stack[stackSize++] = result;
+                        break;
+                    case AND:
+                        if (stackSize < 2) {
+                            return false;
+                        }
+                        stackSize--;
+                        stack[stackSize - 1] = stack[stackSize - 1] && stack[stackSize];
+                        break;
+                    case OR:
+                        if (stackSize < 2) {
+                            return false;
+                        }
+                        stackSize--;
+                        stack[stackSize - 1] = stack[stackSize - 1] || stack[stackSize];
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return stackSize > 0 && stack[stackSize - 1];
+        }
+    }
+
+    /**
+     * A single rule of a query, comparing the value of an attribute with a
+     * constant converted to the native type of that attribute.
+     */
+    private static final class Comparison {
+
+        private enum ValueType {
+            MISSING,
+            INTEGRAL,
+            DECIMAL,
+            BOOLEAN,
+            COMPARABLE,
+            STRING
+        }
+
+        private final GraphReadMethods graph;
+        private final int attribute;
+        private final Operator operator;
+        private final String value;
+        private ValueType valueType;
+        private boolean nullable = false;
+        private long nullValue;
+        private long longValue;
+        private double doubleValue;
+        private boolean booleanValue;
+        private Comparable<Object> objectValue;
+        // the value in the form accepted by the index of the attribute
+        private Object indexValue = null;
+
+        @SuppressWarnings("unchecked") // a value which is comparable is comparable with its own class
+        private Comparison(final GraphReadMethods graph, final int attribute, final Operator operator, final String value) {
+            this.graph = graph;
+            this.attribute = attribute;
+            this.operator = operator;
+            this.value = value;
+
+            if (attribute == Graph.NOT_FOUND || operator == Operator.NOTFOUND) {
+                valueType = ValueType.MISSING;
+                return;
+            }
+
+            valueType = ValueType.STRING;
+            if (graph.acceptsStringValue(attribute, value) != null) {
+                return;
+            }
+
+            // parse the value with a description of the same type as the attribute
+            final AttributeDescription description;
+            try {
+                description = graph.getAttributeDataType(attribute).getDeclaredConstructor().newInstance();
+                description.setGraph(graph);
+                description.setDefault(graph.getAttributeDefaultValue(attribute));
+                description.setCapacity(1);
+            } catch (final IllegalAccessException | IllegalArgumentException
+                    | InstantiationException | NoSuchMethodException
+                    | SecurityException | InvocationTargetException ex) {
+                return;
+            }
+
+            try {
+                switch (description.getNativeType()) {
+                    case BYTE:
+                    case SHORT:
+                    case INT:
+                    case LONG:
+                        // a cleared description holds the null value of types that have one, such as dates
+                        nullable = description.getString(0) == null;
+                        nullValue = description.getLong(0);
+                        description.setString(0, value);
+                        longValue = description.getLong(0);
+                        valueType = ValueType.INTEGRAL;
+                        break;
+                    case FLOAT:
+                    case DOUBLE:
+                        description.setString(0, value);
+                        doubleValue = description.getDouble(0);
+                        valueType = ValueType.DECIMAL;
+                        break;
+                    case BOOLEAN:
+                        description.setString(0, value);
+                        booleanValue = description.getBoolean(0);
+                        valueType = ValueType.BOOLEAN;
+                        break;
+                    case OBJECT:
+                        description.setString(0, value);
+                        final Object object = description.getObject(0);
+                        if (object instanceof Comparable) {
+                            objectValue = (Comparable<Object>) object;
+                            valueType = ValueType.COMPARABLE;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+                if (valueType != ValueType.STRING) {
+                    indexValue = description.getObject(0);
+                }
+            } catch (final IllegalArgumentException ex) {
+                // the value could not be parsed, so compare it as a string
+                valueType = ValueType.STRING;
+            }
+        }
+
+        /**
+         * Find the elements satisfying this rule by looking its value up in
+         * the index of its attribute.
+         *
+         * @return the ids of the elements satisfying this rule, or null if it
+         * is not a test for equality with the value of an indexed attribute.
+         */
+        private BitSet select() {
+            if (valueType == ValueType.MISSING) {
+                return new BitSet();
+            }
+            if (operator != Operator.EQUALS || indexValue == null || graph.getAttributeIndexType(attribute) == GraphIndexType.NONE) {
+                return null;
+            }
+
+            // the index finds equal keys, so check each element by value as evaluate would
+            final BitSet matches = new BitSet();
+            final GraphIndexResult result = graph.getElementsWithAttributeValue(attribute, indexValue);
+            for (int i = result.getCount(); i > 0; i--) {
+                final int elementId = result.getNextElement();
+                if (evaluate(elementId)) {
+                    matches.set(elementId);
+                }
+            }
+            return matches;
+        }
+
+        private boolean evaluate(final int elementId) {
+            final int comparison;
+            switch (valueType) {
+                case MISSING:
+                    return false;
+                case INTEGRAL: {
+                    final long elementValue = graph.getLongValue(attribute, elementId);
+                    if (nullable && elementValue == nullValue) {
+                        return false;
+                    }
+                    comparison = Long.compare(elementValue, longValue);
+                    break;
+                }
+                case DECIMAL:
+                    comparison = Double.compare(graph.getDoubleValue(attribute, elementId), doubleValue);
+                    break;
+                case BOOLEAN:
+                    comparison = Boolean.compare(graph.getBooleanValue(attribute, elementId), booleanValue);
+                    break;
+                case COMPARABLE: {
+                    final Object elementValue = graph.getObjectValue(attribute, elementId);
+                    if (elementValue == null) {
+                        return false;
+                    }
+                    if (elementValue.getClass() != objectValue.getClass()) {
+                        return compare(graph.getStringValue(attribute, elementId));
+                    }
+                    comparison = -Integer.signum(objectValue.compareTo(elementValue));
+                    break;
+                }
+                default:
+                    return compare(graph.getStringValue(attribute, elementId));
+            }
+            return test(comparison);
+        }
+
+        private boolean compare(final String elementValue) {
+            return elementValue != null && test(elementValue.compareTo(value));
+        }
+
+        private boolean test(final int comparison) {
+            switch (operator) {
+                case EQUALS:
+                    return comparison == 0;
+                case NOTEQUALS:
+                    return comparison != 0;
+                case GREATERTHAN:
+                    return comparison > 0;
+                case LESSTHAN:
+                    return comparison < 0;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -28,11 +28,11 @@ import au.gov.asd.tac.constellation.graph.undo.GraphEdit;
 import au.gov.asd.tac.constellation.graph.utilities.MultiValueStore;
 import au.gov.asd.tac.constellation.utilities.camera.Camera;
 import au.gov.asd.tac.constellation.utilities.memory.MemoryManager;
-import au.gov.asd.tac.constellation.utilities.query.QueryEvaluator;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,16 +41,6 @@ import java.util.UUID;
 import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
-enum Operator {
-    EQUALS,
-    NOTEQUALS,
-    GREATERTHAN,
-    LESSTHAN,
-    GREATERTHANOREQ,
-    LESSTHANOREQ,
-    NOTFOUND
-}
-
 /**
  * A StoreGraph is an array-based implementation of GraphWriteMethods designed
  * for performance and memory efficiency. It is currently the default
@@ -107,6 +97,8 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
     private GraphIndex[] attributeIndices;
     private final Map<String, int[]> attributeNames;
     private long[] attributeModificationCounters;
+    private long[] valueChangeCounters;
+    private ValueChangeLog[] valueChanges;
     private AttributeRegistry attributeRegistry;
     private long globalModificationCounter = 0;
     private long attributeModificationCounter = 0;
@@ -141,6 +133,7 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
     // TODO: TEMP VARIABLE to test updates - This will have to be migrated to a graph attribute
     private static int currentVisibleMask = 1;
     private boolean avoidLayerUpdate = false;
+    private boolean bulkLoading = false;
 
     // 0000
     // first two bits are not used XX00
@@ -148,6 +141,7 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
     // last bit on right is whether it is a dynamic layer 000X
     private final List<Byte> layerPrefs = new ArrayList<>();
     private final List<String> layerQueries = new ArrayList<>();
+    private final List<LayerQuery> compiledLayerQueries = new ArrayList<>();
 
     /**
      * Creates a new StoreGraph with the specified capacities.
@@ -201,8 +195,27 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
             }
             count++;
         }
-        layerQueries.clear();
-        layerQueries.addAll(queries);
+
+        // compile each query once, keeping the compiled form of any query that has not changed
+        final List<LayerQuery> compiledQueries = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            final String query = queries.get(i);
+            if (query == null) {
+                compiledQueries.add(null);
+            } else if (i < compiledLayerQueries.size() && compiledLayerQueries.get(i) != null
+                    && compiledLayerQueries.get(i).getQuery().equals(query)) {
+                compiledQueries.add(compiledLayerQueries.get(i));
+            } else {
+                compiledQueries.add(LayerQuery.compile(query));
+            }
+        }
+
+        synchronized (this) {
+            layerQueries.clear();
+            layerQueries.addAll(queries);
+            compiledLayerQueries.clear();
+            compiledLayerQueries.addAll(compiledQueries);
+        }
     }
 
     /**
@@ -260,6 +273,8 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         attributes = new GraphAttribute[attributeCapacity];
         attributeNames = new HashMap<>();
         attributeModificationCounters = new long[attributeCapacity];
+        valueChangeCounters = new long[attributeCapacity];
+        valueChanges = new ValueChangeLog[attributeCapacity];
 
         attributeIndices = new GraphIndex[attributeCapacity];
         Arrays.fill(attributeIndices, AttributeDescription.NULL_GRAPH_INDEX);
@@ -416,6 +431,12 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
             this.attributeNames.put(e.getKey(), Arrays.copyOf(e.getValue(), e.getValue().length));
         }
         this.attributeModificationCounters = Arrays.copyOf(original.attributeModificationCounters, original.attributeModificationCounters.length);
+        this.valueChangeCounters = Arrays.copyOf(original.valueChangeCounters, original.valueChangeCounters.length);
+        this.valueChanges = new ValueChangeLog[original.valueChanges.length];
+        for (int i = 0; i < this.valueChanges.length; i++) {
+            final ValueChangeLog changes = original.valueChanges[i];
+            this.valueChanges[i] = changes != null ? new ValueChangeLog(changes) : null;
+        }
 
         this.primaryKeys = new int[original.primaryKeys.length][];
         for (int i = 0; i < this.primaryKeys.length; i++) {
@@ -485,6 +506,43 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         attributeModificationCounters[attribute] = modificationCounter;
     }
 
+    /**
+     * Start or finish setting attribute values in bulk, as a graph file
+     * reader does.
+     * <p>
+     * While values are being set in bulk, setting a value only changes the
+     * value and the state belonging to its attribute: layer masks are not
+     * updated and the global modification counter is not changed. This allows
+     * the values of different attributes to be set by different threads, as
+     * long as no thread sets the values of an attribute that is part of a
+     * primary key, and no other changes are made to the graph at the same
+     * time.
+     * <p>
+     * Finishing increments the global modification counter once and updates
+     * the layer masks of every element, as setting each value would have.
+     *
+     * @param bulkLoading true to start setting values in bulk, false to
+     * finish.
+     */
+    public void setBulkLoading(final boolean bulkLoading) {
+        final boolean finishing = this.bulkLoading && !bulkLoading;
+        this.bulkLoading = bulkLoading;
+        if (finishing) {
+            globalModificationCounter += operationMode.getModificationIncrement();
+            if (getVertexCount() > 0 || getTransactionCount() > 0) {
+                preloadLayerPrefs();
+                updateElementLayerMasks();
+            }
+        }
+    }
+
+    // the global counter is shared by every attribute, so it is left alone while values are set in bulk
+    private void incrementGlobalModificationCounter() {
+        if (!bulkLoading) {
+            globalModificationCounter += operationMode.getModificationIncrement();
+        }
+    }
+
     @Override
     public long getModificationCounter() {
         return globalModificationCounter;
@@ -659,6 +717,30 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         return attributeModificationCounters[attribute];
     }
 
+    @Override
+    public long getValueChangeCounter(final int attribute) {
+        return valueChangeCounters[attribute];
+    }
+
+    @Override
+    public int[] getValueChangesSince(final int attribute, final long valueChangeCounter) {
+        final ValueChangeLog changes = valueChanges[attribute];
+        if (changes == null) {
+            // nothing has changed since the attribute was added
+            return valueChangeCounter == valueChangeCounters[attribute] ? new int[0] : null;
+        }
+        return changes.getChangesSince(valueChangeCounter);
+    }
+
+    private void recordValueChange(final int attribute, final int id) {
+        ValueChangeLog changes = valueChanges[attribute];
+        if (changes == null) {
+            changes = valueChanges[attribute] = new ValueChangeLog(valueChangeCounters[attribute]);
+        }
+        valueChangeCounters[attribute]++;
+        changes.add(id);
+    }
+
     @Override
     public int getVertexCapacity() {
         return vStore.getCapacity();
@@ -679,6 +761,25 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         return tStore.getCapacity();
     }
 
+    /**
+     * Grow the graph so that it can hold at least the specified number of
+     * vertices and transactions.
+     * <p>
+     * Adding elements one at a time grows the graph, and all of its attribute
+     * columns, each time the capacity is reached. Callers that know how many
+     * elements they are about to add can call this first so that the graph
+     * only grows once.
+     *
+     * @param vertexCapacity the number of vertices the graph should be able to
+     * hold.
+     * @param transactionCapacity the number of transactions the graph should
+     * be able to hold.
+     */
+    public void ensureCapacity(final int vertexCapacity, final int transactionCapacity) {
+        ensureVertexCapacity(vertexCapacity);
+        ensureTransactionCapacity(transactionCapacity);
+    }
+
     @Override
     public int getVertexCount() {
         return vStore.getCount();
@@ -1498,6 +1599,8 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
             attributeDescriptions = Arrays.copyOf(attributeDescriptions, aStore.getCapacity());
             attributes = Arrays.copyOf(attributes, aStore.getCapacity());
             attributeModificationCounters = Arrays.copyOf(attributeModificationCounters, aStore.getCapacity());
+            valueChangeCounters = Arrays.copyOf(valueChangeCounters, aStore.getCapacity());
+            valueChanges = Arrays.copyOf(valueChanges, aStore.getCapacity());
 
             attributeIndices = Arrays.copyOf(attributeIndices, aStore.getCapacity());
             Arrays.fill(attributeIndices, oldAttributeCapacity, aStore.getCapacity(), AttributeDescription.NULL_GRAPH_INDEX);
@@ -1700,6 +1803,7 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         aStore.setUID(attributeId, globalModificationCounter);
 
         attributeModificationCounters[attributeId] = 0;
+        valueChanges[attributeId] = null;
 
         typeAttributes.addElement(elementType.ordinal(), attributeId, 0);
 
@@ -1772,6 +1876,7 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
         attributeIndices[attribute] = AttributeDescription.NULL_GRAPH_INDEX;
         attributeIndexTypes[attribute] = GraphIndexType.NONE;
+        valueChanges[attribute] = null;
 
         attributeNames.get(attributeObject.getName())[attributeObject.getElementType().ordinal()] = NOT_FOUND;
 
@@ -1928,8 +2033,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].clear(id);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -1943,8 +2049,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2006,10 +2113,10 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         }
 
         synchronized (this) {
-            for (int i = 0; i < layerQueries.size(); i++) {
+            for (int i = 0; i < compiledLayerQueries.size(); i++) {
                 // calculate bitmask for dynamic layers that are displayed
-                if (i < layerPrefs.size() && (layerPrefs.get(i) & 0b11) == 3 && layerQueries.get(i) != null) {
-                    bitmask = (evaluateLayerQuery(elementType, elementId, QueryEvaluator.convertToPostfix(layerQueries.get(i)))
+                if (isDisplayedDynamicLayer(i)) {
+                    bitmask = (compiledLayerQueries.get(i).bind(this, elementType).evaluate(elementId)
                             ? bitmask | (1 << i) : bitmask & ~(1 << i)); // set bit to false
                 }
             }
@@ -2017,126 +2124,67 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         return bitmask;
     }
 
-    // TODO: Check other operators for functionality andimplement them
-    // TODO: Implement all other transaction types
-    // TODO: Possibly parse a boolean in as to wether the query is on a vertex or transaction
-    // TODO: Clean up this code and cases
+    private boolean isDisplayedDynamicLayer(final int layer) {
+        return layer < layerPrefs.size() && (layerPrefs.get(layer) & 0b11) == 3 && compiledLayerQueries.get(layer) != null;
+    }
+
     /**
-     * Evaluates a string representation of a query in relation to a single
-     * element on the graph returns true when the node satisfies the condition,
-     * false otherwise.
+     * Recalculate the bitmasks of every element of a type in parallel.
      * <p>
-     * A query should be structured as follows:
-     * vertex_color:<=:0,0,0 vertex_selected:==:true vertex_color:>:255,255,255
+     * A dynamic layer is only evaluated when nothing its query depends on has
+     * been modified since it was last evaluated for every element, otherwise
+     * the bit it already holds in each bitmask is kept. A query that can be
+     * answered from attribute indices is looked up once rather than evaluated
+     * for each element.
      *
-     * @param elementType the type of the element
-     * @param elementId the id of the element
-     * @param query the query expression
-     * @return a boolean determining whether the element satisfied the
-     * constraints.
+     * @param elementType the type of the elements.
+     * @param maskAttribute the attribute holding the bitmasks.
+     * @param elements the ids of the elements.
+     * @return the bitmask of each element, in the same order as the ids.
      */
-    private boolean evaluateLayerQuery(final GraphElementType elementType, final int elementId, final List<String> queries) {
-        // exit condition for show all
-        if (queries.isEmpty()) {
-            return true;
-        }
-
-        // iterate over rules
-        String evaluatedResult = "";
-        Operator currentOperand = Operator.NOTFOUND;
-        boolean finalResult = true;
-        boolean ignoreResult = false;
-        for (final String rule : queries) {
-            String[] ruleSegments = rule.split(" == | != | < | > ");
-            if(rule.contains(" == ")){
-                currentOperand = Operator.EQUALS;
-            }else if(rule.contains(" != ")){
-                currentOperand = Operator.NOTEQUALS;
-            }else if(rule.contains(" > ")){
-                currentOperand = Operator.GREATERTHAN;
-            }else if(rule.contains(" < ")){
-                currentOperand = Operator.LESSTHAN;
-            }
-
-            // iterate over each segment and grab the values
-            AttributeDescription attributeDescription = null;
-            int attributeId = 1;
-            int segmentCount = 0;
-            for (final String ruleSegment : ruleSegments) {
-                segmentCount++;
-                switch (segmentCount) {
-                    case 1: {
-                        attributeId = getAttribute(elementType, ruleSegment);
-                        if (attributeId != Graph.NOT_FOUND) {
-                            attributeDescription = attributeDescriptions[attributeId];
-                        }
-                        break;
-                    }
-                    case 2: {
-                        switch (currentOperand) {
-                            case EQUALS: {
-                                finalResult = (attributeDescription != null && attributeDescription.getString(elementId) != null
-                                        && (attributeDescription.getString(elementId)).equals(ruleSegment));
-                                break;
-                            }
-                            case NOTEQUALS: {
-                                finalResult = (attributeDescription != null && attributeDescription.getString(elementId) != null
-                                        && !(attributeDescription.getString(elementId)).equals(ruleSegment));
-                                break;
-                            }
-                            case GREATERTHAN: {
-                                finalResult = (attributeDescription != null && attributeDescription.getString(elementId) != null
-                                        && (attributeDescription.getString(elementId)).compareTo(ruleSegment) > 0);
-                                break;
-                            }
-                            case LESSTHAN: {
-                                finalResult = (attributeDescription != null && attributeDescription.getString(elementId) != null
-                                        && (attributeDescription.getString(elementId)).compareTo(ruleSegment) < 0);
-                                break;
-                            }
-                            case NOTFOUND: {
-                                finalResult = false;
-                                break;
-                            }
-                        }
-                        break;
+    private int[] recalculateLayerMasks(final GraphElementType elementType, final int maskAttribute, final int[] elements) {
+        final List<Integer> layers = new ArrayList<>();
+        final List<LayerQuery.Binding> bindings = new ArrayList<>();
+        synchronized (this) {
+            for (int i = 0; i < compiledLayerQueries.size(); i++) {
+                if (isDisplayedDynamicLayer(i)) {
+                    final LayerQuery.Binding binding = compiledLayerQueries.get(i).bind(this, elementType);
+                    if (!binding.isCurrent(maskAttribute)) {
+                        layers.add(i);
+                        bindings.add(binding);
                     }
                 }
-
-                // build the string to evaluate
-                if (ruleSegment.equals("&&")) {
-                    evaluatedResult += "&&" + ":";
-                    ignoreResult = true;
-                } else if (ruleSegment.equals("||")) {
-                    evaluatedResult += "||" + ":";
-                    ignoreResult = true;
-                }
-            }
-
-            // when you need to ignore the result and just use an operator || &&
-            if (ignoreResult) {
-                ignoreResult = false;
-            } else {
-                evaluatedResult += finalResult + ":";
             }
         }
 
-        evaluatedResult = evaluatedResult.length() == 0 ? evaluatedResult
-                : evaluatedResult.substring(0, evaluatedResult.length() - 1);
-        final String[] resultComponents = evaluatedResult.split(":");
-
-        String expression = "";
-        for (final String resultComponent : resultComponents) {
-            expression += resultComponent + " ";
-//            System.out.print(resultComponent + " ");
+        final BitSet[] selections = new BitSet[bindings.size()];
+        for (int i = 0; i < selections.length; i++) {
+            selections[i] = bindings.get(i).select();
         }
-        expression = expression.substring(0, expression.length() - 1);
-//        System.out.println("Before evaluation: " + expression);
 
-        final Boolean result = QueryEvaluator.evaluatePostfix(expression);
-//        System.out.println("Result calculated: " + result);
+        final int[] bitmasks = new int[elements.length];
+        IntStream.range(0, elements.length).parallel().forEach(position -> {
+            final int elementId = elements[position];
+            int bitmask = getIntValue(maskAttribute, elementId);
+            for (int i = 0; i < layers.size(); i++) {
+                final int layer = layers.get(i);
+                final boolean matches = selections[i] != null ? selections[i].get(elementId) : bindings.get(i).evaluate(elementId);
+                bitmask = matches ? bitmask | (1 << layer) : bitmask & ~(1 << layer);
+            }
+            bitmasks[position] = bitmask;
+        });
+        return bitmasks;
+    }
 
-        return result == null ? false : result;
+    // record that the bitmasks of every displayed dynamic layer have been written
+    private void setLayerMasksCurrent(final GraphElementType elementType, final int maskAttribute) {
+        synchronized (this) {
+            for (int i = 0; i < compiledLayerQueries.size(); i++) {
+                if (isDisplayedDynamicLayer(i)) {
+                    compiledLayerQueries.get(i).bind(this, elementType).setCurrent(maskAttribute);
+                }
+            }
+        }
     }
 
     // update the layer visibility of an element
@@ -2147,8 +2195,11 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         // TODO: Eventually store a static bitmask, and then append to it any dynamic bits based on rules. For now assume all
         //       entries are dynamic for the sake of calculations
         // avoid recalc of bitmask if it is a static layer
-        final int bitmask = recalculateLayerMask(elementType, elementId);
+        applyLayerMask(attributeId, elementType, elementId, recalculateLayerMask(elementType, elementId));
+    }
 
+    // set the bitmask of an element and update its layer visibility to match
+    private void applyLayerMask(final int attributeId, final GraphElementType elementType, final int elementId, final int bitmask) {
         if (elementType == GraphElementType.VERTEX) {
 
             // when attr ids are found
@@ -2167,6 +2218,7 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
                     if (existingVisibility != 1.0f) {
                         attributeDescriptions[vertexLayerVisibilityAttributeId].setFloat(elementId, 1.0f);
                         attributeIndices[vertexLayerVisibilityAttributeId].updateElement(elementId);
+                        recordValueChange(vertexLayerVisibilityAttributeId, elementId);
                         attributeModificationCounters[vertexLayerVisibilityAttributeId] += operationMode.getModificationIncrement();
                     }
                 } else {
@@ -2174,6 +2226,7 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
                     if (existingVisibility != 0.0f) {
                         attributeDescriptions[vertexLayerVisibilityAttributeId].setFloat(elementId, 0.0f);
                         attributeIndices[vertexLayerVisibilityAttributeId].updateElement(elementId);
+                        recordValueChange(vertexLayerVisibilityAttributeId, elementId);
                         attributeModificationCounters[vertexLayerVisibilityAttributeId] += operationMode.getModificationIncrement();
                     }
                 }
@@ -2190,12 +2243,14 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
                     if (existingVisibility != 1.0f) {
                         attributeDescriptions[transactionLayerVisibilityAttributeId].setFloat(elementId, 1.0f);
                         attributeIndices[transactionLayerVisibilityAttributeId].updateElement(elementId);
+                        recordValueChange(transactionLayerVisibilityAttributeId, elementId);
                         attributeModificationCounters[transactionLayerVisibilityAttributeId] += operationMode.getModificationIncrement();
                     }
                 } else {
                     if (existingVisibility != 0.0f) {
                         attributeDescriptions[transactionLayerVisibilityAttributeId].setFloat(elementId, 0.0f);
                         attributeIndices[transactionLayerVisibilityAttributeId].updateElement(elementId);
+                        recordValueChange(transactionLayerVisibilityAttributeId, elementId);
                         attributeModificationCounters[transactionLayerVisibilityAttributeId] += operationMode.getModificationIncrement();
                     }
                 }
@@ -2205,23 +2260,28 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
     // update the layer visibility for an element when an attribute changes
     private void updateLayerMask(final int attributeId, final int elementid) {
-        if (attributeId != vertexLayerVisibilityAttributeId && attributeId != transactionLayerVisibilityAttributeId) {
+        // the layer masks of every element are updated when a bulk load finishes
+        if (!bulkLoading && attributeId != vertexLayerVisibilityAttributeId && attributeId != transactionLayerVisibilityAttributeId) {
             // get the element type of selected layer mask and recalculate element mask
             final int selectedLayerMask = (layerMaskSelectedAttributeId >= 0)
                     ? getIntValue(layerMaskSelectedAttributeId, 0) : 1;
             final GraphElementType elementType = getAttributeElementType(attributeId);
 
-            // preload layerPrefs jit if it hasn't been instantiated
-            if (layerPrefs.isEmpty()) {
-                for (int i = 0; i < 31; i++) {
-                    layerPrefs.add((byte) 0b0);
-                }
-            }
+            preloadLayerPrefs();
 
             updateLayerMask(attributeId, elementType, elementid, selectedLayerMask);
         }
     }
 
+    // preload layerPrefs jit if it hasn't been instantiated
+    private void preloadLayerPrefs() {
+        if (layerPrefs.isEmpty()) {
+            for (int i = 0; i < 31; i++) {
+                layerPrefs.add((byte) 0b0);
+            }
+        }
+    }
+
     // update the layer visibility of all elements
     private void updateAllLayerMasks() {
         final int selectedLayerMask = (layerMaskSelectedAttributeId >= 0)
@@ -2230,17 +2290,36 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         currentVisibleMask = selectedLayerMask;
         recalculateLayerVisibilities();
 
-        // loop through all vertexes and recalculate masks
-        final int vertexCount = getVertexCount();
-        for (int i = 0; i < vertexCount; i++) {
-            // TODO: attrId -1 should cause an error - what is happening here?
-            updateLayerMask(-1, GraphElementType.VERTEX, vStore.getElement(i), selectedLayerMask);
+        updateElementLayerMasks();
+    }
+
+    // update the layer masks and visibility of every element for the current visible layers
+    private void updateElementLayerMasks() {
+        // recalculate all vertex masks in parallel, then write them
+        if (vertexLayerMaskAttribureId >= 0 && vertexLayerVisibilityAttributeId >= 0) {
+            final int[] vertices = new int[getVertexCount()];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = vStore.getElement(i);
+            }
+            final int[] bitmasks = recalculateLayerMasks(GraphElementType.VERTEX, vertexLayerMaskAttribureId, vertices);
+            for (int i = 0; i < vertices.length; i++) {
+                // TODO: attrId -1 should cause an error - what is happening here?
+                applyLayerMask(-1, GraphElementType.VERTEX, vertices[i], bitmasks[i]);
+            }
+            setLayerMasksCurrent(GraphElementType.VERTEX, vertexLayerMaskAttribureId);
         }
 
-        // loop through all transactions and recalculate masks
-        final int transactionCount = getTransactionCount();
-        for (int i = 0; i < transactionCount; i++) {
-            updateLayerMask(-1, GraphElementType.TRANSACTION, tStore.getElement(i), selectedLayerMask);
+        // recalculate all transaction masks in parallel, then write them
+        if (transactionFilterBitmaskAttrId >= 0 && transactionLayerVisibilityAttributeId >= 0) {
+            final int[] transactions = new int[getTransactionCount()];
+            for (int i = 0; i < transactions.length; i++) {
+                transactions[i] = tStore.getElement(i);
+            }
+            final int[] bitmasks = recalculateLayerMasks(GraphElementType.TRANSACTION, transactionFilterBitmaskAttrId, transactions);
+            for (int i = 0; i < transactions.length; i++) {
+                applyLayerMask(-1, GraphElementType.TRANSACTION, transactions[i], bitmasks[i]);
+            }
+            setLayerMasksCurrent(GraphElementType.TRANSACTION, transactionFilterBitmaskAttrId);
         }
     }
 
@@ -2249,8 +2328,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setByte(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2264,8 +2344,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2280,8 +2361,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setShort(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2295,8 +2377,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2311,8 +2394,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setInt(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2326,8 +2410,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2337,7 +2422,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
         // if selected visible layers has changed then recalculate visibility of all objects, 
         // otherwise check if the change impacts an objects visibility
-        if (attribute == layerMaskSelectedAttributeId && layerMaskSelectedAttributeId >= 0) {
+        if (bulkLoading) {
+            // the layer masks of every element are updated when the bulk load finishes
+        } else if (attribute == layerMaskSelectedAttributeId && layerMaskSelectedAttributeId >= 0) {
             // one node changes, pass to change list then only iterate that?
             // hits here when changing layers only. not on update of elements to layers
             updateAllLayerMasks();
@@ -2352,8 +2439,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setLong(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2367,8 +2455,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2383,8 +2472,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setFloat(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2398,8 +2488,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2420,8 +2511,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setDouble(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2435,8 +2527,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2451,8 +2544,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setBoolean(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2466,8 +2560,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2486,8 +2581,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setChar(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2501,8 +2597,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2517,8 +2614,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setString(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2532,8 +2630,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2548,8 +2647,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         if (graphEdit == null) {
             attributeDescriptions[attribute].setObject(id, value);
             attributeIndices[attribute].updateElement(id);
+            recordValueChange(attribute, id);
             attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-            globalModificationCounter += operationMode.getModificationIncrement();
+            incrementGlobalModificationCounter();
             int keyType = primaryKeyLookup[attribute];
             if (keyType >= 0) {
                 removeFromIndex(keyType, id);
@@ -2563,8 +2663,9 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
             if (nativeType.addEdit(this, graphEdit, attribute, id, oldValue)) {
                 attributeIndices[attribute].updateElement(id);
+                recordValueChange(attribute, id);
                 attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
-                globalModificationCounter += operationMode.getModificationIncrement();
+                incrementGlobalModificationCounter();
                 int keyType = primaryKeyLookup[attribute];
                 if (keyType >= 0) {
                     removeFromIndex(keyType, id);
@@ -2756,6 +2857,8 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
     protected void restore(final int attribute, final int id, final ParameterReadAccess access) {
         attributeDescriptions[attribute].restore(id, access);
+        attributeIndices[attribute].updateElement(id);
+        recordValueChange(attribute, id);
         attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
         globalModificationCounter += operationMode.getModificationIncrement();
     }
@@ -2766,6 +2869,13 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
 
     protected void restoreData(final int attribute, final Object savedData) {
         attributeDescriptions[attribute].restoreData(savedData);
+        if (attributeIndexTypes[attribute] != GraphIndexType.NONE) {
+            attributeIndices[attribute] = createAttributeIndex(attribute, attributeIndexTypes[attribute]);
+        }
+        valueChangeCounters[attribute]++;
+        if (valueChanges[attribute] != null) {
+            valueChanges[attribute].reset(valueChangeCounters[attribute]);
+        }
         attributeModificationCounters[attribute] += operationMode.getModificationIncrement();
         globalModificationCounter += operationMode.getModificationIncrement();
     }
@@ -2804,14 +2914,7 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
             AttributeDescription attributeDescription = attributeDescriptions[attribute];
             if (attributeDescription.supportsIndexType(indexType)) {
                 attributeIndexTypes[attribute] = indexType;
-                GraphIndex index = attributeIndices[attribute] = attributeDescription.createIndex(indexType);
-
-                GraphElementType elementType = attributes[attribute].getElementType();
-                int elementCount = elementType.getElementCount(this);
-                for (int i = 0; i < elementCount; i++) {
-                    int element = elementType.getElement(this, i);
-                    index.addElement(element);
-                }
+                attributeIndices[attribute] = createAttributeIndex(attribute, indexType);
 
                 if (graphEdit != null) {
                     graphEdit.setAttributeIndexType(attribute, oldIndexType, indexType);
@@ -2820,6 +2923,19 @@ public class StoreGraph extends LockingTarget implements GraphWriteMethods, Seri
         }
     }
 
+    private GraphIndex createAttributeIndex(final int attribute, final GraphIndexType indexType) {
+        final GraphIndex index = attributeDescriptions[attribute].createIndex(indexType);
+
+        final GraphElementType elementType = attributes[attribute].getElementType();
+        final int elementCount = elementType.getElementCount(this);
+        for (int i = 0; i < elementCount; i++) {
+            final int element = elementType.getElement(this, i);
+            index.addElement(element);
+        }
+
+        return index;
+    }
+
     public AttributeRegistry getAttributeRegistry() {
         return attributeRegistry;
     }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The ids of the elements whose values of a single attribute have changed, in
+ * the order that they changed.
+ * <p>
+ * Every change to the values of an attribute advances its value change
+ * counter by one, so the log is read from an earlier value of the counter
+ * rather than emptied as it is read. Any number of clients can read the log
+ * independently, and reading it never modifies it. Only the most recent
+ * changes are kept, so a client reading from a value of the counter that is
+ * older than the log gets null and must treat every element as changed.
+ * <p>
+ * When the values of an attribute are changed as a whole, for instance when
+ * they are restored from a saved copy, the individual elements are not known
+ * and the log is emptied, so earlier values of the counter are no longer
+ * covered.
+ *
+ * @author agent
+ */
+final class ValueChangeLog {
+
+    // the largest number of changes held, enough to update a display partially
+    static final int MAX_CHANGES = 1 << 14;
+
+    private int[] ids;
+    private int size;
+
+    // the value of the change counter before the oldest change in the log
+    private long start;
+
+    /**
+     * Create an empty log.
+     *
+     * @param counter the current value of the change counter.
+     */
+    ValueChangeLog(final long counter) {
+        this.ids = new int[16];
+        this.size = 0;
+        this.start = counter;
+    }
+
+    ValueChangeLog(final ValueChangeLog original) {
+        this.ids = Arrays.copyOf(original.ids, original.ids.length);
+        this.size = original.size;
+        this.start = original.start;
+    }
+
+    /**
+     * Record that the value of an element has changed. The change counter
+     * must have been advanced by one for the change.
+     *
+     * @param id the id of the element.
+     */
+    void add(final int id) {
+        if (size == ids.length) {
+            if (size == MAX_CHANGES) {
+                // forget the oldest half
+                final int forgotten = size / 2;
+                System.arraycopy(ids, forgotten, ids, 0, size - forgotten);
+                size -= forgotten;
+                start += forgotten;
+            } else {
+                ids = Arrays.copyOf(ids, Math.min(size * 2, MAX_CHANGES));
+            }
+        }
+        ids[size++] = id;
+    }
+
+    /**
+     * Record that the value of every element may have changed.
+     *
+     * @param counter the value of the change counter after the change.
+     */
+    void reset(final long counter) {
+        size = 0;
+        start = counter;
+    }
+
+    /**
+     * Return the ids of the elements that have changed since the change
+     * counter had the specified value.
+     *
+     * @param counter an earlier value of the change counter.
+     * @return the ids of the changed elements in ascending order, or null if
+     * the log doesn't reach back to the specified value.
+     */
+    int[] getChangesSince(final long counter) {
+        if (counter < start || counter > start + size) {
+            return null;
+        }
+
+        final BitSet changed = new BitSet();
+        for (int i = (int) (counter - start); i < size; i++) {
+            changed.set(ids[i]);
+        }
+        return changed.stream().toArray();
+    }
+}
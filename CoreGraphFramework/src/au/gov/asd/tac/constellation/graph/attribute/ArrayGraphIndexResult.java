@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.attribute;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphIndexResult;
+
+/**
+ * A GraphIndexResult backed by a contiguous range of an int array of element
+ * ids.
+ * <p>
+ * The array is not copied so the index that created this result must not
+ * modify the range after the result has been returned.
+ *
+ * @author agent
+ */
+final class ArrayGraphIndexResult implements GraphIndexResult {
+
+    private final int[] elements;
+    private int position;
+    private int count;
+
+    ArrayGraphIndexResult(final int[] elements, final int position, final int count) {
+        this.elements = elements;
+        this.position = position;
+        this.count = count;
+    }
+
+    @Override
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public int getNextElement() {
+        if (count-- <= 0) {
+            return Graph.NOT_FOUND;
+        }
+        return elements[position++];
+    }
+}
@@ -15,6 +15,8 @@
  */
 package au.gov.asd.tac.constellation.graph.attribute;
 
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.NativeAttributeType;
 import au.gov.asd.tac.constellation.utilities.temporal.TemporalConstants;
@@ -266,4 +268,14 @@ public final class DateAttributeDescription extends AbstractAttributeDescription
     public int getVersion() {
         return DESCRIPTION_VERSION;
     }
+
+    @Override
+    public boolean supportsIndexType(final GraphIndexType indexType) {
+        return true;
+    }
+
+    @Override
+    public GraphIndex createIndex(final GraphIndexType indexType) {
+        return LongGraphIndex.create(indexType, data.length, id -> data[id], value -> parseObject(value));
+    }
 }
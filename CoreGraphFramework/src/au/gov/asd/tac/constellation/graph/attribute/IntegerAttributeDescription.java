@@ -15,6 +15,8 @@
  */
 package au.gov.asd.tac.constellation.graph.attribute;
 
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.NativeAttributeType;
 import au.gov.asd.tac.constellation.graph.locking.ParameterReadAccess;
@@ -278,4 +280,14 @@ public final class IntegerAttributeDescription extends AbstractAttributeDescript
         final int[] sd = (int[]) savedData;
         data = Arrays.copyOf(sd, sd.length);
     }
+
+    @Override
+    public boolean supportsIndexType(final GraphIndexType indexType) {
+        return true;
+    }
+
+    @Override
+    public GraphIndex createIndex(final GraphIndexType indexType) {
+        return LongGraphIndex.create(indexType, data.length, id -> data[id], value -> setObject(value));
+    }
 }
@@ -15,6 +15,8 @@
  */
 package au.gov.asd.tac.constellation.graph.attribute;
 
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.NativeAttributeType;
 import au.gov.asd.tac.constellation.utilities.temporal.TemporalConstants;
@@ -257,4 +259,14 @@ public final class LocalDateTimeAttributeDescription extends AbstractAttributeDe
     public Object convertToNativeValue(Object objectValue) {
         return objectValue == null ? NULL_VALUE : ((LocalDateTime) objectValue).toInstant(ZoneOffset.UTC).toEpochMilli();
     }
+
+    @Override
+    public boolean supportsIndexType(final GraphIndexType indexType) {
+        return true;
+    }
+
+    @Override
+    public GraphIndex createIndex(final GraphIndexType indexType) {
+        return LongGraphIndex.create(indexType, data.length, id -> data[id], value -> parseObject(value));
+    }
 }
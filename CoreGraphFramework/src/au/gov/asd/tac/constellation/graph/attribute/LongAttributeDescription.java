@@ -15,6 +15,8 @@
  */
 package au.gov.asd.tac.constellation.graph.attribute;
 
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.NativeAttributeType;
 import au.gov.asd.tac.constellation.graph.locking.ParameterReadAccess;
@@ -263,4 +265,14 @@ public final class LongAttributeDescription extends AbstractAttributeDescription
         final long[] sd = (long[]) savedData;
         data = Arrays.copyOf(sd, sd.length);
     }
+
+    @Override
+    public boolean supportsIndexType(final GraphIndexType indexType) {
+        return true;
+    }
+
+    @Override
+    public GraphIndex createIndex(final GraphIndexType indexType) {
+        return LongGraphIndex.create(indexType, data.length, id -> data[id], value -> setObject(value));
+    }
 }
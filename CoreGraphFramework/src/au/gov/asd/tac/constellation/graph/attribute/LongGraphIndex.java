@@ -0,0 +1,447 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.attribute;
+
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexResult;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
+import java.util.Arrays;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A LongGraphIndex is a {@link GraphIndex} for attributes whose values can be
+ * mapped onto primitive long keys such that equal values have equal keys and,
+ * for ordered indices, the ordering of the keys matches the ordering of the
+ * values.
+ * <p>
+ * Integer, long, float, date and datetime attributes all use this index, with
+ * float values mapped through {@link #floatKey(float)}. The index holds its keys
+ * in primitive arrays and never boxes them, making it suitable for graphs with
+ * millions of elements. Attributes whose values are objects, such as strings,
+ * use {@link ObjectGraphIndex} instead.
+ * <p>
+ * An {@link GraphIndexType#UNORDERED} index is a hash index that is maintained
+ * eagerly as elements are added, removed and updated. An
+ * {@link GraphIndexType#ORDERED} index keeps its elements in a sorted array
+ * and queues changes, merging them into the sorted array the next time the
+ * index is queried. This means that bulk modifications, such as an import,
+ * cost no more than a single sort when the index is next used.
+ *
+ * @author agent
+ */
+public abstract class LongGraphIndex implements GraphIndex {
+
+    protected final IntToLongFunction elementKey;
+    protected final ToLongFunction<Object> valueKey;
+
+    /**
+     * Create a new LongGraphIndex.
+     *
+     * @param elementKey a function returning the key of the current attribute
+     * value for an element.
+     * @param valueKey a function converting a query value into a key.
+     */
+    protected LongGraphIndex(final IntToLongFunction elementKey, final ToLongFunction<Object> valueKey) {
+        this.elementKey = elementKey;
+        this.valueKey = valueKey;
+    }
+
+    /**
+     * Create a new index of the specified type.
+     *
+     * @param indexType the type of index to create.
+     * @param capacity the initial element capacity of the index.
+     * @param elementKey a function returning the key of the current attribute
+     * value for an element.
+     * @param valueKey a function converting a query value into a key.
+     * @return a new index, or {@link AttributeDescription#NULL_GRAPH_INDEX} if
+     * the index type is {@link GraphIndexType#NONE}.
+     */
+    public static GraphIndex create(final GraphIndexType indexType, final int capacity, final IntToLongFunction elementKey, final ToLongFunction<Object> valueKey) {
+        switch (indexType) {
+            case UNORDERED:
+                return new Hash(capacity, elementKey, valueKey);
+            case ORDERED:
+                return new Sorted(capacity, elementKey, valueKey);
+            default:
+                return AttributeDescription.NULL_GRAPH_INDEX;
+        }
+    }
+
+    /**
+     * Map a float onto a long key whose ordering matches the natural ordering
+     * of floats. Positive and negative zero share the same key, as do all NaN
+     * values.
+     *
+     * @param value the float value.
+     * @return the key for the value.
+     */
+    public static long floatKey(final float value) {
+        final int bits = Float.floatToIntBits(value == 0.0F ? 0.0F : value);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+
+    /**
+     * A hash index that chains the elements in each bucket through primitive
+     * next/previous arrays so that every update is O(1).
+     */
+    private static final class Hash extends LongGraphIndex {
+
+        private static final int END = -1;
+        private static final int ABSENT = -2;
+
+        private long[] keys;
+        private int[] next;
+        private int[] previous;
+        private int[] buckets;
+        private int mask;
+
+        private Hash(final int capacity, final IntToLongFunction elementKey, final ToLongFunction<Object> valueKey) {
+            super(elementKey, valueKey);
+            keys = new long[capacity];
+            next = new int[capacity];
+            previous = new int[capacity];
+            Arrays.fill(previous, ABSENT);
+            createBuckets(capacity);
+        }
+
+        private void createBuckets(final int capacity) {
+            final int bucketCount = Integer.highestOneBit(Math.min(Math.max(capacity, 16), 1 << 30) - 1) << 1;
+            buckets = new int[bucketCount];
+            Arrays.fill(buckets, END);
+            mask = bucketCount - 1;
+        }
+
+        private int bucket(final long key) {
+            int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private void link(final int element) {
+            final int bucket = bucket(keys[element]);
+            final int head = buckets[bucket];
+            next[element] = head;
+            previous[element] = END;
+            if (head != END) {
+                previous[head] = element;
+            }
+            buckets[bucket] = element;
+        }
+
+        private void unlink(final int element) {
+            final int p = previous[element];
+            final int n = next[element];
+            if (p == END) {
+                buckets[bucket(keys[element])] = n;
+            } else {
+                next[p] = n;
+            }
+            if (n != END) {
+                previous[n] = p;
+            }
+            previous[element] = ABSENT;
+        }
+
+        @Override
+        public void addElement(final int element) {
+            if (previous[element] != ABSENT) {
+                unlink(element);
+            }
+            keys[element] = elementKey.applyAsLong(element);
+            link(element);
+        }
+
+        @Override
+        public void removeElement(final int element) {
+            if (previous[element] != ABSENT) {
+                unlink(element);
+            }
+        }
+
+        @Override
+        public void updateElement(final int element) {
+            if (previous[element] != ABSENT) {
+                final long key = elementKey.applyAsLong(element);
+                if (key != keys[element]) {
+                    unlink(element);
+                    keys[element] = key;
+                    link(element);
+                }
+            }
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValue(final Object value) {
+            final long key = valueKey.applyAsLong(value);
+            final int head = buckets[bucket(key)];
+
+            int count = 0;
+            for (int element = head; element != END; element = next[element]) {
+                if (keys[element] == key) {
+                    count++;
+                }
+            }
+
+            final int[] elements = new int[count];
+            int position = 0;
+            for (int element = head; element != END; element = next[element]) {
+                if (keys[element] == key) {
+                    elements[position++] = element;
+                }
+            }
+
+            return new ArrayGraphIndexResult(elements, 0, count);
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValueRange(final Object start, final Object end) {
+            return null;
+        }
+
+        @Override
+        public void expandCapacity(final int newCapacity) {
+            final int oldCapacity = previous.length;
+            if (newCapacity <= oldCapacity) {
+                return;
+            }
+
+            keys = Arrays.copyOf(keys, newCapacity);
+            next = Arrays.copyOf(next, newCapacity);
+            previous = Arrays.copyOf(previous, newCapacity);
+            Arrays.fill(previous, oldCapacity, newCapacity, ABSENT);
+
+            createBuckets(newCapacity);
+            for (int element = 0; element < oldCapacity; element++) {
+                if (previous[element] != ABSENT) {
+                    link(element);
+                }
+            }
+        }
+    }
+
+    /**
+     * A sorted index that holds its elements in primitive arrays ordered by
+     * key. Changes are queued and merged into the sorted arrays lazily.
+     */
+    private static final class Sorted extends LongGraphIndex {
+
+        // The element is currently a member of the index.
+        private static final byte MEMBER = 1;
+        // The element is in the queue of elements waiting to be merged.
+        private static final byte QUEUED = 2;
+        // The entry for the element in the sorted arrays is up to date.
+        private static final byte SORTED = 4;
+
+        private byte[] states;
+        private int[] queue = new int[16];
+        private int queueLength = 0;
+        private boolean stale = false;
+
+        private int[] sortedElements = new int[0];
+        private long[] sortedKeys = new long[0];
+
+        private Sorted(final int capacity, final IntToLongFunction elementKey, final ToLongFunction<Object> valueKey) {
+            super(elementKey, valueKey);
+            states = new byte[capacity];
+        }
+
+        @Override
+        public void addElement(final int element) {
+            int state = states[element];
+            if ((state & SORTED) != 0) {
+                stale = true;
+            }
+            if ((state & QUEUED) == 0) {
+                if (queueLength == queue.length) {
+                    queue = Arrays.copyOf(queue, queueLength << 1);
+                }
+                queue[queueLength++] = element;
+            }
+            states[element] = MEMBER | QUEUED;
+        }
+
+        @Override
+        public void removeElement(final int element) {
+            final int state = states[element];
+            if ((state & SORTED) != 0) {
+                stale = true;
+            }
+            states[element] = (byte) (state & QUEUED);
+        }
+
+        @Override
+        public void updateElement(final int element) {
+            if ((states[element] & MEMBER) != 0) {
+                addElement(element);
+            }
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValue(final Object value) {
+            final long key = valueKey.applyAsLong(value);
+            synchronized (this) {
+                merge();
+                final int start = lowerBound(key);
+                final int end = key == Long.MAX_VALUE ? sortedKeys.length : lowerBound(key + 1);
+                return new ArrayGraphIndexResult(sortedElements, start, end - start);
+            }
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValueRange(final Object start, final Object end) {
+            final long startKey = valueKey.applyAsLong(start);
+            final long endKey = valueKey.applyAsLong(end);
+            synchronized (this) {
+                merge();
+                final int startPosition = lowerBound(startKey);
+                final int endPosition = Math.max(startPosition, lowerBound(endKey));
+                return new ArrayGraphIndexResult(sortedElements, startPosition, endPosition - startPosition);
+            }
+        }
+
+        @Override
+        public void expandCapacity(final int newCapacity) {
+            if (newCapacity > states.length) {
+                states = Arrays.copyOf(states, newCapacity);
+            }
+        }
+
+        /**
+         * Returns the position of the first key in the sorted arrays that is
+         * not less than the specified key.
+         */
+        private int lowerBound(final long key) {
+            int low = 0;
+            int high = sortedKeys.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (sortedKeys[middle] < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Merges all queued changes into the sorted arrays. New arrays are
+         * always allocated so that results handed out earlier remain valid.
+         */
+        private void merge() {
+            if (queueLength == 0 && !stale) {
+                return;
+            }
+
+            // Collect the queued elements that are still members of the index.
+            int addedCount = 0;
+            final int[] addedElements = new int[queueLength];
+            final long[] addedKeys = new long[queueLength];
+            for (int i = 0; i < queueLength; i++) {
+                final int element = queue[i];
+                if ((states[element] & MEMBER) != 0) {
+                    addedElements[addedCount] = element;
+                    addedKeys[addedCount++] = elementKey.applyAsLong(element);
+                }
+            }
+            sort(addedKeys, addedElements, addedCount);
+
+            // Count the sorted entries that are still valid.
+            int retainedCount = 0;
+            if (stale) {
+                for (final int element : sortedElements) {
+                    if ((states[element] & SORTED) != 0) {
+                        retainedCount++;
+                    }
+                }
+            } else {
+                retainedCount = sortedElements.length;
+            }
+
+            final int[] elements = new int[retainedCount + addedCount];
+            final long[] keys = new long[retainedCount + addedCount];
+            int sortedPosition = 0;
+            int addedPosition = 0;
+            int position = 0;
+            while (true) {
+                while (sortedPosition < sortedElements.length && (states[sortedElements[sortedPosition]] & SORTED) == 0) {
+                    sortedPosition++;
+                }
+                if (sortedPosition == sortedElements.length) {
+                    break;
+                }
+                if (addedPosition < addedCount && addedKeys[addedPosition] < sortedKeys[sortedPosition]) {
+                    elements[position] = addedElements[addedPosition];
+                    keys[position++] = addedKeys[addedPosition++];
+                } else {
+                    elements[position] = sortedElements[sortedPosition];
+                    keys[position++] = sortedKeys[sortedPosition++];
+                }
+            }
+            System.arraycopy(addedElements, addedPosition, elements, position, addedCount - addedPosition);
+            System.arraycopy(addedKeys, addedPosition, keys, position, addedCount - addedPosition);
+
+            for (int i = 0; i < queueLength; i++) {
+                final int element = queue[i];
+                states[element] = (states[element] & MEMBER) != 0 ? (byte) (MEMBER | SORTED) : 0;
+            }
+
+            sortedElements = elements;
+            sortedKeys = keys;
+            queueLength = 0;
+            stale = false;
+        }
+
+        /**
+         * Sorts the first count entries of the parallel key and element arrays
+         * by key using a bottom-up merge sort.
+         */
+        private static void sort(final long[] keys, final int[] elements, final int count) {
+            long[] fromKeys = keys;
+            int[] fromElements = elements;
+            long[] toKeys = new long[count];
+            int[] toElements = new int[count];
+            for (int width = 1; width < count; width <<= 1) {
+                for (int low = 0; low < count; low += width << 1) {
+                    final int middle = Math.min(low + width, count);
+                    final int high = Math.min(low + (width << 1), count);
+                    int left = low;
+                    int right = middle;
+                    for (int position = low; position < high; position++) {
+                        if (right == high || (left < middle && fromKeys[left] <= fromKeys[right])) {
+                            toKeys[position] = fromKeys[left];
+                            toElements[position] = fromElements[left++];
+                        } else {
+                            toKeys[position] = fromKeys[right];
+                            toElements[position] = fromElements[right++];
+                        }
+                    }
+                }
+                final long[] swapKeys = fromKeys;
+                fromKeys = toKeys;
+                toKeys = swapKeys;
+                final int[] swapElements = fromElements;
+                fromElements = toElements;
+                toElements = swapElements;
+            }
+            if (fromKeys != keys) {
+                System.arraycopy(fromKeys, 0, keys, 0, count);
+                System.arraycopy(fromElements, 0, elements, 0, count);
+            }
+        }
+    }
+}
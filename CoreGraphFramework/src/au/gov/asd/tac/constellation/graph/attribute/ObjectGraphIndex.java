@@ -0,0 +1,448 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.attribute;
+
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexResult;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * An ObjectGraphIndex is a {@link GraphIndex} for attributes whose values are
+ * objects, such as strings. Keys are compared using {@link Object#equals} for
+ * unordered indices and a supplied {@link Comparator} for ordered indices.
+ * Null values are supported and are ordered before all other values.
+ * <p>
+ * The structure mirrors {@link LongGraphIndex}, which attributes with
+ * primitive values use so that their keys are never boxed: an
+ * {@link GraphIndexType#UNORDERED} index is an eagerly maintained hash index
+ * and an {@link GraphIndexType#ORDERED} index is a sorted array that merges
+ * queued changes lazily when it is next queried.
+ *
+ * @param <T> the type of the keys held by this index.
+ *
+ * @author agent
+ */
+public abstract class ObjectGraphIndex<T> implements GraphIndex {
+
+    protected final IntFunction<T> elementKey;
+    protected final Function<Object, T> valueKey;
+
+    /**
+     * Create a new ObjectGraphIndex.
+     *
+     * @param elementKey a function returning the key of the current attribute
+     * value for an element.
+     * @param valueKey a function converting a query value into a key.
+     */
+    protected ObjectGraphIndex(final IntFunction<T> elementKey, final Function<Object, T> valueKey) {
+        this.elementKey = elementKey;
+        this.valueKey = valueKey;
+    }
+
+    /**
+     * Create a new index of the specified type.
+     *
+     * @param <T> the type of the keys held by the index.
+     * @param indexType the type of index to create.
+     * @param capacity the initial element capacity of the index.
+     * @param elementKey a function returning the key of the current attribute
+     * value for an element.
+     * @param valueKey a function converting a query value into a key.
+     * @param comparator the comparator used to order non-null keys.
+     * @return a new index, or {@link AttributeDescription#NULL_GRAPH_INDEX} if
+     * the index type is {@link GraphIndexType#NONE}.
+     */
+    public static <T> GraphIndex create(final GraphIndexType indexType, final int capacity, final IntFunction<T> elementKey, final Function<Object, T> valueKey, final Comparator<? super T> comparator) {
+        switch (indexType) {
+            case UNORDERED:
+                return new Hash<>(capacity, elementKey, valueKey);
+            case ORDERED:
+                return new Sorted<>(capacity, elementKey, valueKey, Comparator.nullsFirst(comparator));
+            default:
+                return AttributeDescription.NULL_GRAPH_INDEX;
+        }
+    }
+
+    /**
+     * A hash index that chains the elements in each bucket through primitive
+     * next/previous arrays so that every update is O(1).
+     */
+    private static final class Hash<T> extends ObjectGraphIndex<T> {
+
+        private static final int END = -1;
+        private static final int ABSENT = -2;
+
+        private Object[] keys;
+        private int[] hashes;
+        private int[] next;
+        private int[] previous;
+        private int[] buckets;
+        private int mask;
+
+        private Hash(final int capacity, final IntFunction<T> elementKey, final Function<Object, T> valueKey) {
+            super(elementKey, valueKey);
+            keys = new Object[capacity];
+            hashes = new int[capacity];
+            next = new int[capacity];
+            previous = new int[capacity];
+            Arrays.fill(previous, ABSENT);
+            createBuckets(capacity);
+        }
+
+        private void createBuckets(final int capacity) {
+            final int bucketCount = Integer.highestOneBit(Math.min(Math.max(capacity, 16), 1 << 30) - 1) << 1;
+            buckets = new int[bucketCount];
+            Arrays.fill(buckets, END);
+            mask = bucketCount - 1;
+        }
+
+        private static int hash(final Object key) {
+            final int hash = Objects.hashCode(key) * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+        private void link(final int element) {
+            final int bucket = hashes[element] & mask;
+            final int head = buckets[bucket];
+            next[element] = head;
+            previous[element] = END;
+            if (head != END) {
+                previous[head] = element;
+            }
+            buckets[bucket] = element;
+        }
+
+        private void unlink(final int element) {
+            final int p = previous[element];
+            final int n = next[element];
+            if (p == END) {
+                buckets[hashes[element] & mask] = n;
+            } else {
+                next[p] = n;
+            }
+            if (n != END) {
+                previous[n] = p;
+            }
+            previous[element] = ABSENT;
+            keys[element] = null;
+        }
+
+        @Override
+        public void addElement(final int element) {
+            if (previous[element] != ABSENT) {
+                unlink(element);
+            }
+            final T key = elementKey.apply(element);
+            keys[element] = key;
+            hashes[element] = hash(key);
+            link(element);
+        }
+
+        @Override
+        public void removeElement(final int element) {
+            if (previous[element] != ABSENT) {
+                unlink(element);
+            }
+        }
+
+        @Override
+        public void updateElement(final int element) {
+            if (previous[element] != ABSENT) {
+                final T key = elementKey.apply(element);
+                if (!Objects.equals(key, keys[element])) {
+                    unlink(element);
+                    keys[element] = key;
+                    hashes[element] = hash(key);
+                    link(element);
+                }
+            }
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValue(final Object value) {
+            final T key = valueKey.apply(value);
+            final int hash = hash(key);
+            final int head = buckets[hash & mask];
+
+            int count = 0;
+            for (int element = head; element != END; element = next[element]) {
+                if (hashes[element] == hash && Objects.equals(keys[element], key)) {
+                    count++;
+                }
+            }
+
+            final int[] elements = new int[count];
+            int position = 0;
+            for (int element = head; element != END; element = next[element]) {
+                if (hashes[element] == hash && Objects.equals(keys[element], key)) {
+                    elements[position++] = element;
+                }
+            }
+
+            return new ArrayGraphIndexResult(elements, 0, count);
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValueRange(final Object start, final Object end) {
+            return null;
+        }
+
+        @Override
+        public void expandCapacity(final int newCapacity) {
+            final int oldCapacity = previous.length;
+            if (newCapacity <= oldCapacity) {
+                return;
+            }
+
+            keys = Arrays.copyOf(keys, newCapacity);
+            hashes = Arrays.copyOf(hashes, newCapacity);
+            next = Arrays.copyOf(next, newCapacity);
+            previous = Arrays.copyOf(previous, newCapacity);
+            Arrays.fill(previous, oldCapacity, newCapacity, ABSENT);
+
+            createBuckets(newCapacity);
+            for (int element = 0; element < oldCapacity; element++) {
+                if (previous[element] != ABSENT) {
+                    link(element);
+                }
+            }
+        }
+    }
+
+    /**
+     * A sorted index that holds its elements in arrays ordered by key. Changes
+     * are queued and merged into the sorted arrays lazily.
+     */
+    private static final class Sorted<T> extends ObjectGraphIndex<T> {
+
+        // The element is currently a member of the index.
+        private static final byte MEMBER = 1;
+        // The element is in the queue of elements waiting to be merged.
+        private static final byte QUEUED = 2;
+        // The entry for the element in the sorted arrays is up to date.
+        private static final byte SORTED = 4;
+
+        private final Comparator<? super T> comparator;
+
+        private byte[] states;
+        private int[] queue = new int[16];
+        private int queueLength = 0;
+        private boolean stale = false;
+
+        private int[] sortedElements = new int[0];
+        private Object[] sortedKeys = new Object[0];
+
+        private Sorted(final int capacity, final IntFunction<T> elementKey, final Function<Object, T> valueKey, final Comparator<? super T> comparator) {
+            super(elementKey, valueKey);
+            this.comparator = comparator;
+            states = new byte[capacity];
+        }
+
+        @Override
+        public void addElement(final int element) {
+            final int state = states[element];
+            if ((state & SORTED) != 0) {
+                stale = true;
+            }
+            if ((state & QUEUED) == 0) {
+                if (queueLength == queue.length) {
+                    queue = Arrays.copyOf(queue, queueLength << 1);
+                }
+                queue[queueLength++] = element;
+            }
+            states[element] = MEMBER | QUEUED;
+        }
+
+        @Override
+        public void removeElement(final int element) {
+            final int state = states[element];
+            if ((state & SORTED) != 0) {
+                stale = true;
+            }
+            states[element] = (byte) (state & QUEUED);
+        }
+
+        @Override
+        public void updateElement(final int element) {
+            if ((states[element] & MEMBER) != 0) {
+                addElement(element);
+            }
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValue(final Object value) {
+            final T key = valueKey.apply(value);
+            synchronized (this) {
+                merge();
+                final int start = bound(key, false);
+                final int end = bound(key, true);
+                return new ArrayGraphIndexResult(sortedElements, start, end - start);
+            }
+        }
+
+        @Override
+        public GraphIndexResult getElementsWithAttributeValueRange(final Object start, final Object end) {
+            final T startKey = valueKey.apply(start);
+            final T endKey = valueKey.apply(end);
+            synchronized (this) {
+                merge();
+                final int startPosition = bound(startKey, false);
+                final int endPosition = Math.max(startPosition, bound(endKey, false));
+                return new ArrayGraphIndexResult(sortedElements, startPosition, endPosition - startPosition);
+            }
+        }
+
+        @Override
+        public void expandCapacity(final int newCapacity) {
+            if (newCapacity > states.length) {
+                states = Arrays.copyOf(states, newCapacity);
+            }
+        }
+
+        /**
+         * Returns the position of the first key in the sorted arrays that is
+         * not less than (or, if upper is true, greater than) the specified key.
+         */
+        @SuppressWarnings("unchecked")
+        private int bound(final T key, final boolean upper) {
+            int low = 0;
+            int high = sortedKeys.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                final int comparison = comparator.compare((T) sortedKeys[middle], key);
+                if (comparison < 0 || (upper && comparison == 0)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Merges all queued changes into the sorted arrays. New arrays are
+         * always allocated so that results handed out earlier remain valid.
+         */
+        @SuppressWarnings("unchecked")
+        private void merge() {
+            if (queueLength == 0 && !stale) {
+                return;
+            }
+
+            // Collect the queued elements that are still members of the index.
+            int addedCount = 0;
+            final int[] addedElements = new int[queueLength];
+            final Object[] addedKeys = new Object[queueLength];
+            for (int i = 0; i < queueLength; i++) {
+                final int element = queue[i];
+                if ((states[element] & MEMBER) != 0) {
+                    addedElements[addedCount] = element;
+                    addedKeys[addedCount++] = elementKey.apply(element);
+                }
+            }
+            sort(addedKeys, addedElements, addedCount);
+
+            // Count the sorted entries that are still valid.
+            int retainedCount = 0;
+            if (stale) {
+                for (final int element : sortedElements) {
+                    if ((states[element] & SORTED) != 0) {
+                        retainedCount++;
+                    }
+                }
+            } else {
+                retainedCount = sortedElements.length;
+            }
+
+            final int[] elements = new int[retainedCount + addedCount];
+            final Object[] keys = new Object[retainedCount + addedCount];
+            int sortedPosition = 0;
+            int addedPosition = 0;
+            int position = 0;
+            while (true) {
+                while (sortedPosition < sortedElements.length && (states[sortedElements[sortedPosition]] & SORTED) == 0) {
+                    sortedPosition++;
+                }
+                if (sortedPosition == sortedElements.length) {
+                    break;
+                }
+                if (addedPosition < addedCount && comparator.compare((T) addedKeys[addedPosition], (T) sortedKeys[sortedPosition]) < 0) {
+                    elements[position] = addedElements[addedPosition];
+                    keys[position++] = addedKeys[addedPosition++];
+                } else {
+                    elements[position] = sortedElements[sortedPosition];
+                    keys[position++] = sortedKeys[sortedPosition++];
+                }
+            }
+            System.arraycopy(addedElements, addedPosition, elements, position, addedCount - addedPosition);
+            System.arraycopy(addedKeys, addedPosition, keys, position, addedCount - addedPosition);
+
+            for (int i = 0; i < queueLength; i++) {
+                final int element = queue[i];
+                states[element] = (states[element] & MEMBER) != 0 ? (byte) (MEMBER | SORTED) : 0;
+            }
+
+            sortedElements = elements;
+            sortedKeys = keys;
+            queueLength = 0;
+            stale = false;
+        }
+
+        /**
+         * Sorts the first count entries of the parallel key and element arrays
+         * by key using a bottom-up merge sort.
+         */
+        @SuppressWarnings("unchecked")
+        private void sort(final Object[] keys, final int[] elements, final int count) {
+            Object[] fromKeys = keys;
+            int[] fromElements = elements;
+            Object[] toKeys = new Object[count];
+            int[] toElements = new int[count];
+            for (int width = 1; width < count; width <<= 1) {
+                for (int low = 0; low < count; low += width << 1) {
+                    final int middle = Math.min(low + width, count);
+                    final int high = Math.min(low + (width << 1), count);
+                    int left = low;
+                    int right = middle;
+                    for (int position = low; position < high; position++) {
+                        if (right == high || (left < middle && comparator.compare((T) fromKeys[left], (T) fromKeys[right]) <= 0)) {
+                            toKeys[position] = fromKeys[left];
+                            toElements[position] = fromElements[left++];
+                        } else {
+                            toKeys[position] = fromKeys[right];
+                            toElements[position] = fromElements[right++];
+                        }
+                    }
+                }
+                final Object[] swapKeys = fromKeys;
+                fromKeys = toKeys;
+                toKeys = swapKeys;
+                final int[] swapElements = fromElements;
+                fromElements = toElements;
+                toElements = swapElements;
+            }
+            if (fromKeys != keys) {
+                System.arraycopy(fromKeys, 0, keys, 0, count);
+                System.arraycopy(fromElements, 0, elements, 0, count);
+            }
+        }
+    }
+}
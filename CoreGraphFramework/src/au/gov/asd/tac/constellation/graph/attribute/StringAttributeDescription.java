@@ -15,9 +15,12 @@
  */
 package au.gov.asd.tac.constellation.graph.attribute;
 
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import static au.gov.asd.tac.constellation.graph.attribute.AbstractAttributeDescription.equals;
 import java.util.Arrays;
+import java.util.Comparator;
 import org.openide.util.lookup.ServiceProvider;
 
 /**
@@ -221,4 +224,14 @@ public final class StringAttributeDescription extends AbstractAttributeDescripti
         final String[] sd = (String[]) savedData;
         data = Arrays.copyOf(sd, sd.length);
     }
+
+    @Override
+    public boolean supportsIndexType(final GraphIndexType indexType) {
+        return true;
+    }
+
+    @Override
+    public GraphIndex createIndex(final GraphIndexType indexType) {
+        return ObjectGraphIndex.<String>create(indexType, data.length, id -> data[id], value -> value == null ? null : String.valueOf(value), Comparator.naturalOrder());
+    }
 }
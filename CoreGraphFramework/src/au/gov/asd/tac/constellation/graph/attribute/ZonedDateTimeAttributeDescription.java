@@ -15,6 +15,8 @@
  */
 package au.gov.asd.tac.constellation.graph.attribute;
 
+import au.gov.asd.tac.constellation.graph.GraphIndex;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.NativeAttributeType;
 import au.gov.asd.tac.constellation.utilities.temporal.TemporalConstants;
@@ -270,4 +272,23 @@ public final class ZonedDateTimeAttributeDescription extends AbstractAttributeDe
     public int getVersion() {
         return DESCRIPTION_VERSION;
     }
+
+    @Override
+    public boolean supportsIndexType(final GraphIndexType indexType) {
+        return true;
+    }
+
+    /**
+     * Datetimes are indexed by instant, so values in different time zones that
+     * represent the same instant are considered equal, consistent with
+     * {@link #equals(int, int)}.
+     */
+    @Override
+    public GraphIndex createIndex(final GraphIndexType indexType) {
+        return LongGraphIndex.create(indexType, data.length, id -> getIndexKey(data[id]), value -> getIndexKey(parseObject(value)));
+    }
+
+    private static long getIndexKey(final ZonedDateTime value) {
+        return value == null ? NULL_VALUE : value.toInstant().toEpochMilli();
+    }
 }
@@ -35,14 +35,26 @@ import java.util.zip.ZipInputStream;
  */
 public class GraphByteReader {
 
-    private ZipFile zf;
+    private final ZipFile zf;
     private final Map<String, ExtendedBuffer> contents = new HashMap<>();
 
     public GraphByteReader(final ZipFile zf) {
         this.zf = zf;
     }
 
+    /**
+     * Create a GraphByteReader over ancillary files that have already been
+     * read, such as those stored in a binary graph file.
+     *
+     * @param contents The ancillary files, keyed by reference.
+     */
+    public GraphByteReader(final Map<String, ExtendedBuffer> contents) {
+        zf = null;
+        this.contents.putAll(contents);
+    }
+
     public GraphByteReader(InputStream in) throws IOException {
+        zf = null;
         ZipInputStream zin = new ZipInputStream(in);
         ZipEntry entry = zin.getNextEntry();
         while (entry != null) {
@@ -60,6 +72,10 @@ public class GraphByteReader {
     /**
      * Read the data from the specified file in the zip file and return a byte
      * array.
+     * <p>
+     * When this GraphByteReader was created from a {@link ZipFile}, the entry is
+     * read when it is requested rather than up front, and is not retained, so
+     * this method may be called from multiple threads.
      *
      * @param reference The name of the ZipEntry to read.
      *
@@ -68,6 +84,22 @@ public class GraphByteReader {
      * @throws IOException If an I/O error occurs.
      */
     public ExtendedBuffer read(final String reference) throws IOException {
-        return contents.get(reference);
+        final ExtendedBuffer buffer = contents.get(reference);
+        if (buffer != null || zf == null) {
+            return buffer;
+        }
+
+        final ZipEntry entry = zf.getEntry(reference);
+        if (entry == null) {
+            return null;
+        }
+
+        final ExtendedBuffer out = new ExtendedBuffer(1 << 16);
+        try (final InputStream in = zf.getInputStream(entry)) {
+            GraphByteWriter.copy(in, out.getOutputStream());
+        } finally {
+            out.getOutputStream().close();
+        }
+        return out;
     }
 }
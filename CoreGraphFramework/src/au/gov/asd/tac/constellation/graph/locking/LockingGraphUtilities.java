@@ -0,0 +1,95 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.locking;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.schema.Schema;
+
+/**
+ * Create graphs, choosing between a {@link DualGraph} and a
+ * {@link SingleGraph}.
+ * <p>
+ * A DualGraph holds two copies of the graph so that readers never wait for
+ * writers. A graph with at least {@link #SINGLE_GRAPH_THRESHOLD} vertices and
+ * transactions is created as a SingleGraph instead, which holds one copy. The
+ * threshold is set by the system property constellation.singleGraphThreshold:
+ * 0 creates every graph as a SingleGraph, and a negative value never does.
+ *
+ * @author agent
+ */
+public class LockingGraphUtilities {
+
+    public static final int SINGLE_GRAPH_THRESHOLD = Integer.getInteger("constellation.singleGraphThreshold", 1000000);
+
+    private LockingGraphUtilities() {
+    }
+
+    private static boolean isSingle(final int elementCount) {
+        return SINGLE_GRAPH_THRESHOLD >= 0 && elementCount >= SINGLE_GRAPH_THRESHOLD;
+    }
+
+    /**
+     * Create a new empty graph.
+     *
+     * @param schema the schema of the graph.
+     * @return the new graph.
+     */
+    public static Graph createGraph(final Schema schema) {
+        return isSingle(0) ? new SingleGraph(schema) : new DualGraph(schema);
+    }
+
+    /**
+     * Create a new graph from a StoreGraph, with the same id.
+     *
+     * @param schema the schema of the graph.
+     * @param original the StoreGraph representing the initial state of the
+     * graph.
+     * @return the new graph.
+     */
+    public static Graph createGraph(final Schema schema, final StoreGraph original) {
+        return createGraph(schema, original, false);
+    }
+
+    /**
+     * Create a new graph from a StoreGraph, with a copy of its schema.
+     *
+     * @param original the StoreGraph representing the initial state of the
+     * graph.
+     * @param newId if true then the graph gets a new id, otherwise it is copied
+     * from the original.
+     * @return the new graph.
+     */
+    public static Graph createGraph(final StoreGraph original, final boolean newId) {
+        return createGraph(original.getSchema(), original, newId);
+    }
+
+    /**
+     * Create a new graph from a StoreGraph.
+     *
+     * @param schema the schema of the graph.
+     * @param original the StoreGraph representing the initial state of the
+     * graph.
+     * @param newId if true then the graph gets a new id, otherwise it is copied
+     * from the original.
+     * @return the new graph.
+     */
+    public static Graph createGraph(final Schema schema, final StoreGraph original, final boolean newId) {
+        return isSingle(original.getVertexCount() + original.getTransactionCount())
+                ? new SingleGraph(schema, original, newId)
+                : new DualGraph(schema, original, newId);
+    }
+}
@@ -18,13 +18,21 @@ package au.gov.asd.tac.constellation.graph.locking;
 import au.gov.asd.tac.constellation.graph.DuplicateKeyException;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.undo.UndoGraphEdit;
+import au.gov.asd.tac.constellation.utilities.memory.MemoryManager;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import javax.swing.event.UndoableEditEvent;
 import javax.swing.undo.CannotRedoException;
@@ -35,13 +43,53 @@ import javax.swing.undo.UndoableEdit;
 /**
  * The LockingManager manages the locking and unlocking of a graph in response
  * to requests for read and/or write access by plugins.
+ * <p>
+ * The LockingManager normally manages a pair of targets (see
+ * {@link #setTargets}) so that readers never wait for writers, at the cost of
+ * holding two copies of the graph and replaying each committed edit onto the
+ * second copy. Alternatively it can manage a single target (see
+ * {@link #setTarget}), in which case readers and writers exclude each other
+ * through a read/write lock on the target, commits do not replay the edit and
+ * only one copy of the graph is held in memory. A single target may be given a
+ * snapshot factory, in which case readers that arrive while a write is in
+ * progress read a copy of the graph as it was last committed instead of
+ * waiting (see {@link #setTarget(LockingTarget, UnaryOperator)}).
+ * <p>
+ * The edits held by the undo manager are kept within a memory budget (see
+ * {@link #setUndoMemoryBudget}). When the history grows beyond the budget the
+ * oldest edits are spilled to compressed files in a temporary directory that
+ * is deleted on exit, and they are read back when they are next undone or
+ * redone. Spilling happens on a background thread, so edits are never
+ * compressed and written to disk while the write lock is held. The bytes of
+ * history held on the heap and spilled to disk are reported to the
+ * {@link MemoryManager} as {@link #UNDO_HEAP_USAGE} and
+ * {@link #UNDO_SPILLED_USAGE}.
  *
  * @author sirius
  * @param <T>
  */
 public class LockingManager<T extends LockingTarget> implements Serializable {
 
+    private static final Logger LOGGER = Logger.getLogger(LockingManager.class.getName());
+
     public static final boolean VERBOSE = false;
+
+    /**
+     * The default number of bytes of undo history to hold on the heap,
+     * overridden by the system property constellation.undoMemoryBudget.
+     */
+    public static final long DEFAULT_UNDO_MEMORY_BUDGET = Long.getLong("constellation.undoMemoryBudget", 256L * 1024 * 1024);
+
+    public static final String UNDO_HEAP_USAGE = "Undo History (Heap)";
+    public static final String UNDO_SPILLED_USAGE = "Undo History (Spilled)";
+
+    // spills undo history to disk away from the threads that hold the write lock
+    private static final ExecutorService UNDO_SPILL_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "Undo History Spill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final ReentrantLock globalWriteLock = new ReentrantLock(true);
     private Context a;
     private Context b;
@@ -50,6 +98,18 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
     private LockingEdit currentEdit = null;
     private LockingEdit initialEdit = null;
     private UndoManager undoManager;
+    private boolean single = false;
+
+    // with a single target, the copy of the committed graph read while a write is in progress
+    private UnaryOperator<T> snapshotFactory = null;
+    private volatile Context snapshotContext = null;
+    private volatile boolean readerContended = false;
+
+    // edits held by the undo manager, oldest first
+    private final List<LockingEdit> undoHistory = new ArrayList<>();
+    private long undoMemoryBudget = DEFAULT_UNDO_MEMORY_BUDGET;
+    private long undoHeapSize = 0;
+    private long undoSpilledSize = 0;
 
     public LockingManager() {
     }
@@ -61,10 +121,168 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
         writeContext.target.lock = writeContext.lock.readLock();
     }
 
+    /**
+     * Set a single target to be managed by this LockingManager. Writers will
+     * hold the write lock of the target for the duration of their edit, so
+     * readers will wait until the edit has been committed or rolled back. Note
+     * that this includes flushed edits: a flush announces the change but
+     * readers on other threads will not see it until the edit is committed.
+     *
+     * @param target the target.
+     */
+    public void setTarget(final T target) {
+        setTarget(target, null);
+    }
+
+    /**
+     * Set a single target to be managed by this LockingManager, with a factory
+     * to copy the target for readers.
+     * <p>
+     * Readers are only given a copy once they have had to wait for a writer:
+     * when an edit is committed (or flushed, undone or redone) after a reader
+     * has waited, the committed graph is copied with the snapshot factory, and
+     * readers arriving during the following edits read that copy rather than
+     * wait. Later edits are replayed onto the copy rather than copying the
+     * graph again, so a commit costs no more than it does with a pair of
+     * targets. The copy is discarded once an edit completes without any reader
+     * arriving, so a second copy of the graph is only held in memory while it
+     * is being read concurrently with edits.
+     *
+     * @param target the target.
+     * @param snapshotFactory creates a copy of the target, or null if readers
+     * should always wait for writers.
+     */
+    public void setTarget(final T target, final UnaryOperator<T> snapshotFactory) {
+        a = b = readContext = writeContext = new Context(target);
+        target.lock = readContext.lock.readLock();
+        single = true;
+        this.snapshotFactory = snapshotFactory;
+    }
+
     public final void setUndoManager(final UndoManager undoManager) {
         this.undoManager = undoManager;
     }
 
+    public long getUndoMemoryBudget() {
+        return undoMemoryBudget;
+    }
+
+    /**
+     * Set the number of bytes of undo history that can be held on the heap
+     * before the oldest edits are spilled to disk.
+     *
+     * @param undoMemoryBudget the number of bytes.
+     */
+    public void setUndoMemoryBudget(final long undoMemoryBudget) {
+        this.undoMemoryBudget = undoMemoryBudget;
+        scheduleUndoHistoryUpdate(null);
+    }
+
+    public long getUndoHeapSize() {
+        synchronized (undoHistory) {
+            return undoHeapSize;
+        }
+    }
+
+    public long getUndoSpilledSize() {
+        synchronized (undoHistory) {
+            return undoSpilledSize;
+        }
+    }
+
+    /**
+     * Add an edit to the undo history. This only records the edit, so it is
+     * safe to call with the write lock held; the history is brought back
+     * within budget by {@link #scheduleUndoHistoryUpdate}.
+     */
+    private void addToUndoHistory(final LockingEdit edit) {
+        synchronized (undoHistory) {
+            edit.stackSize = edit.graphEdit.getStackSize();
+            undoHistory.add(edit);
+        }
+    }
+
+    private void removeFromUndoHistory(final LockingEdit edit) {
+        synchronized (undoHistory) {
+            if (undoHistory.remove(edit)) {
+                edit.graphEdit.discard();
+            }
+        }
+        scheduleUndoHistoryUpdate(null);
+    }
+
+    /**
+     * Bring the undo history back within budget on a background thread. This
+     * should be called once the write lock has been released, or while
+     * holding it only when the current thread goes on writing, as the
+     * background thread never needs the lock.
+     *
+     * @param recentEdit an edit that has just been used and should stay on
+     * the heap, or null.
+     */
+    private void scheduleUndoHistoryUpdate(final LockingEdit recentEdit) {
+        UNDO_SPILL_EXECUTOR.execute(() -> updateUndoHistory(recentEdit));
+    }
+
+    /**
+     * Spill the oldest edits until the history held on the heap is within
+     * budget, then recalculate the size of the undo history, accounting for
+     * edits that have been read back from disk.
+     * <p>
+     * The edits are spilled without holding the lock on the undo history, so
+     * edits can be added to the history while they are being written.
+     *
+     * @param recentEdit an edit that has just been used and should stay on
+     * the heap, or null.
+     */
+    private void updateUndoHistory(final LockingEdit recentEdit) {
+        final List<LockingEdit> spillEdits = new ArrayList<>();
+        synchronized (undoHistory) {
+            long heapSize = 0;
+            for (final LockingEdit edit : undoHistory) {
+                if (!edit.graphEdit.isSpilled()) {
+                    heapSize += edit.stackSize;
+                }
+            }
+
+            for (final LockingEdit edit : undoHistory) {
+                if (heapSize <= undoMemoryBudget) {
+                    break;
+                }
+                if (edit != recentEdit && edit.stackSize > 0 && !edit.graphEdit.isSpilled()) {
+                    spillEdits.add(edit);
+                    heapSize -= edit.stackSize;
+                }
+            }
+        }
+
+        for (final LockingEdit edit : spillEdits) {
+            try {
+                edit.graphEdit.spill();
+            } catch (final IOException ex) {
+                LOGGER.log(Level.WARNING, "Unable to spill undo history to disk", ex);
+                break;
+            }
+        }
+
+        synchronized (undoHistory) {
+            long heapSize = 0;
+            long spilledSize = 0;
+            for (final LockingEdit edit : undoHistory) {
+                if (edit.graphEdit.isSpilled()) {
+                    spilledSize += edit.stackSize;
+                } else {
+                    heapSize += edit.stackSize;
+                }
+            }
+
+            MemoryManager.adjustMemoryUsage(UNDO_HEAP_USAGE, heapSize - undoHeapSize);
+            MemoryManager.adjustMemoryUsage(UNDO_SPILLED_USAGE, spilledSize - undoSpilledSize);
+            undoHeapSize = heapSize;
+            undoSpilledSize = spilledSize;
+        }
+    }
+
     private final class Context {
 
         ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
@@ -81,6 +299,14 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
         }
 
         globalWriteLock.lockInterruptibly();
+        if (single) {
+            try {
+                writeContext.lock.writeLock().lockInterruptibly();
+            } catch (InterruptedException ex) {
+                globalWriteLock.unlock();
+                throw ex;
+            }
+        }
         if (currentEdit == null) {
             currentEdit = new LockingEdit(name, significant, source);
             initialEdit = currentEdit;
@@ -108,6 +334,10 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
 
         try {
             if (globalWriteLock.tryLock(0, TimeUnit.SECONDS)) {
+                if (single && !writeContext.lock.writeLock().tryLock()) {
+                    globalWriteLock.unlock();
+                    return null;
+                }
                 if (currentEdit == null) {
                     currentEdit = new LockingEdit(name, significant, source);
                     initialEdit = currentEdit;
@@ -134,8 +364,25 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
     }
 
     public T startReading() {
-        final Context c = globalWriteLock.isHeldByCurrentThread() ? writeContext : readContext;
-        c.lock.readLock().lock();
+        final boolean writing = globalWriteLock.isHeldByCurrentThread();
+        final Context c = writing ? writeContext : readContext;
+        if (!single || snapshotFactory == null || writing) {
+            c.lock.readLock().lock();
+        } else if (!tryReadLock(c)) {
+            // A write is in progress: read the last committed copy of the graph rather than wait for it, if there is one.
+            readerContended = true;
+            final Context snapshot = snapshotContext;
+            if (snapshot != null) {
+                snapshot.lock.readLock().lock();
+
+                if (VERBOSE) {
+                    System.out.println("Snapshot read lock aquired by " + Thread.currentThread());
+                }
+
+                return snapshot.target;
+            }
+            c.lock.readLock().lock();
+        }
 
         if (VERBOSE) {
             System.out.println("Read lock aquired by " + Thread.currentThread());
@@ -144,6 +391,54 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
         return c.target;
     }
 
+    /**
+     * Acquire the read lock of a context only if no writer holds or is waiting
+     * for its write lock.
+     */
+    private boolean tryReadLock(final Context c) {
+        try {
+            // unlike tryLock(), a timed tryLock respects the fairness of the lock, so readers can't starve a waiting writer
+            return c.lock.readLock().tryLock(0, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Called with the write lock held after the committed state of a single
+     * target has changed, to bring the copy of the graph for readers up to
+     * date if any have had to wait since the last change, and otherwise
+     * discard it.
+     * <p>
+     * The graph is only copied in full when the first reader has had to wait.
+     * While readers keep arriving during writes, each change is replayed onto
+     * the existing copy once its readers have finished, in the same way that
+     * the second target of a pair is brought up to date.
+     *
+     * @param update the update to apply to the copy.
+     */
+    private void updateSnapshot(final Consumer<T> update) {
+        if (single && snapshotFactory != null) {
+            final Context snapshot = snapshotContext;
+            if (!readerContended) {
+                snapshotContext = null;
+            } else if (snapshot == null) {
+                final Context newSnapshot = new Context(snapshotFactory.apply(writeContext.target));
+                newSnapshot.target.lock = newSnapshot.lock.readLock();
+                snapshotContext = newSnapshot;
+            } else {
+                snapshot.lock.writeLock().lock();
+                try {
+                    update.accept(snapshot.target);
+                } finally {
+                    snapshot.lock.writeLock().unlock();
+                }
+            }
+            readerContended = false;
+        }
+    }
+
     protected void update(final Object description, Object editor) {
     }
 
@@ -181,6 +476,46 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
         currentEdit.rollBack();
     }
 
+    /**
+     * Makes the changes on the write target visible to readers.
+     * <p>
+     * With a pair of targets, new readers are directed to the write target and
+     * the original read target is brought up to date by applying the specified
+     * update once its readers have finished. The original read target then
+     * becomes the write target. With a single target readers already share the
+     * write target, so the update is only applied to the copy of the graph
+     * given to readers during writes.
+     *
+     * @param update the update to apply to the original read target.
+     */
+    private void switchContexts(final Consumer<T> update) {
+        if (single) {
+            updateSnapshot(update);
+            return;
+        }
+
+        // Switch the read context to the write context
+        final Context originalReadContext = readContext;
+        readContext = writeContext;
+
+        originalReadContext.lock.writeLock().lock();
+        try {
+            update.accept(originalReadContext.target);
+        } finally {
+            originalReadContext.lock.writeLock().unlock();
+        }
+
+        // Switch the write context
+        writeContext = originalReadContext;
+    }
+
+    private void unlockWriting() {
+        if (single) {
+            writeContext.lock.writeLock().unlock();
+        }
+        globalWriteLock.unlock();
+    }
+
     public final class LockingEdit implements UndoableEdit {
 
         private String name;
@@ -204,6 +539,9 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
 
         private UndoGraphEdit graphEdit = new UndoGraphEdit();
 
+        // the number of bytes of this edit that can be spilled, measured when it is added to the undo history
+        private long stackSize = 0;
+
         private void finished() {
             graphEdit.finish();
         }
@@ -245,32 +583,28 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
             new Thread(() -> {
                 // Get the global write lock because we will change the graph
                 globalWriteLock.lock();
+                if (single) {
+                    writeContext.lock.writeLock().lock();
+                }
                 try {
                     writeContext.target.setOperationMode(GraphOperationMode.UNDO);
                     undo(writeContext.target);
                     writeContext.target.validateKeys();
                     writeContext.target.setOperationMode(GraphOperationMode.EXECUTE);
 
-                    // Switch the read context to the write context
-                    final Context originalReadContext = readContext;
-                    readContext = writeContext;
-
-                    originalReadContext.lock.writeLock().lock();
-                    try {
-                        originalReadContext.target.setOperationMode(GraphOperationMode.UNDO);
-                        undo(originalReadContext.target);
-                        originalReadContext.target.validateKeys();
-                        originalReadContext.target.setOperationMode(GraphOperationMode.EXECUTE);
-                    } finally {
-                        originalReadContext.lock.writeLock().unlock();
-                    }
-
-                    // Switch the write context
-                    writeContext = originalReadContext;
+                    switchContexts(target -> {
+                        target.setOperationMode(GraphOperationMode.UNDO);
+                        undo(target);
+                        target.validateKeys();
+                        target.setOperationMode(GraphOperationMode.EXECUTE);
+                    });
                 } finally {
                     // Unlock the global write lock so new write requests can begin on the new write context
-                    globalWriteLock.unlock();
+                    unlockWriting();
                 }
+
+                // the edit may have been read back from disk
+                scheduleUndoHistoryUpdate(this);
             }).start();
 
             update(null, null);
@@ -292,32 +626,28 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
             new Thread(() -> {
                 // Get the global write lock because we will change the graph
                 globalWriteLock.lock();
+                if (single) {
+                    writeContext.lock.writeLock().lock();
+                }
                 try {
                     writeContext.target.setOperationMode(GraphOperationMode.REDO);
                     execute(writeContext.target);
                     writeContext.target.validateKeys();
                     writeContext.target.setOperationMode(GraphOperationMode.EXECUTE);
 
-                    // Switch the read context to the write context
-                    final Context originalReadContext = readContext;
-                    readContext = writeContext;
-
-                    originalReadContext.lock.writeLock().lock();
-                    try {
-                        originalReadContext.target.setOperationMode(GraphOperationMode.REDO);
-                        execute(originalReadContext.target);
-                        originalReadContext.target.validateKeys();
-                        originalReadContext.target.setOperationMode(GraphOperationMode.EXECUTE);
-                    } finally {
-                        originalReadContext.lock.writeLock().unlock();
-                    }
-
-                    // Switch the write context
-                    writeContext = originalReadContext;
+                    switchContexts(target -> {
+                        target.setOperationMode(GraphOperationMode.REDO);
+                        execute(target);
+                        target.validateKeys();
+                        target.setOperationMode(GraphOperationMode.EXECUTE);
+                    });
                 } finally {
                     // Unlock the global write lock so new write requests can begin on the new write context
-                    globalWriteLock.unlock();
+                    unlockWriting();
                 }
+
+                // the edit may have been read back from disk
+                scheduleUndoHistoryUpdate(this);
             }).start();
 
             update(null, null);
@@ -332,6 +662,10 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
         @Override
         public void die() {
             alive = false;
+            removeFromUndoHistory(this);
+            if (followingChildren != null) {
+                followingChildren.forEach(LockingEdit::die);
+            }
         }
 
         @Override
@@ -393,25 +727,22 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
 
                 writeContext.target.setGraphEdit(null);
 
-                Context originalReadContext = readContext;
-                readContext = writeContext;
-
-                originalReadContext.lock.writeLock().lock();
-                try {
-                    execute(originalReadContext.target);
-                    originalReadContext.target.validateKeys();
-                } finally {
-                    originalReadContext.lock.writeLock().unlock();
-                }
-
-                writeContext = originalReadContext;
+                switchContexts(target -> {
+                    execute(target);
+                    target.validateKeys();
+                });
 
                 if (undoManager != null) {
+                    addToUndoHistory(this);
                     SwingUtilities.invokeLater(() -> undoManager.undoableEditHappened(new UndoableEditEvent(LockingManager.this, LockingEdit.this)));
                 }
                 currentEdit = null;
                 initialEdit = null;
-                globalWriteLock.unlock();
+                unlockWriting();
+
+                if (undoManager != null) {
+                    scheduleUndoHistoryUpdate(this);
+                }
 
                 update(description, editor);
 
@@ -419,7 +750,7 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
                 parent.graphEdit.addChild(graphEdit);
                 currentEdit = parent;
                 writeContext.target.setGraphEdit(currentEdit.graphEdit);
-                globalWriteLock.unlock();
+                unlockWriting();
 
             }
         }
@@ -437,20 +768,15 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
 
             if (parent == null) {
 
-                Context originalReadContext = readContext;
-                readContext = writeContext;
-
-                originalReadContext.lock.writeLock().lock();
-                try {
-                    execute(originalReadContext.target);
-                    originalReadContext.target.validateKeys();
-                } finally {
-                    originalReadContext.lock.writeLock().unlock();
-                }
-
-                writeContext = originalReadContext;
+                switchContexts(target -> {
+                    execute(target);
+                    target.validateKeys();
+                });
 
                 if (undoManager != null) {
+                    addToUndoHistory(this);
+                    // the writer keeps the lock after a flush, but the background update doesn't need it
+                    scheduleUndoHistoryUpdate(this);
                     SwingUtilities.invokeLater(() -> undoManager.undoableEditHappened(new UndoableEditEvent(LockingManager.this, LockingEdit.this)));
                 }
                 currentEdit = new LockingEdit(name, false, editor);
@@ -489,7 +815,7 @@ public class LockingManager<T extends LockingTarget> implements Serializable {
             if (currentEdit == null) {
                 initialEdit = null;
             }
-            globalWriteLock.unlock();
+            unlockWriting();
         }
     }
 }
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.locking;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.WritableGraph;
+import au.gov.asd.tac.constellation.graph.monitor.GraphChangeEvent;
+import au.gov.asd.tac.constellation.graph.monitor.GraphChangeListener;
+import au.gov.asd.tac.constellation.graph.schema.Schema;
+import au.gov.asd.tac.constellation.utilities.memory.MemoryManager;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javax.swing.SwingUtilities;
+import javax.swing.undo.UndoManager;
+
+/**
+ * A SingleGraph manages a single graph object protected by a read/write lock.
+ * <p>
+ * It is an alternative to {@link DualGraph} for graphs that are too large to
+ * hold twice in memory, or that receive large bulk edits. A DualGraph keeps
+ * two copies of the graph and replays every committed edit onto the second
+ * copy, so its memory use is doubled and the cost of a commit grows with the
+ * size of the edit. A SingleGraph holds one copy and a commit simply releases
+ * the write lock.
+ * <p>
+ * The trade off is that a writer waits for all existing readers to release
+ * their locks, and readers that arrive while a write is in progress are given
+ * a snapshot of the graph as it was last committed instead of the graph
+ * itself. The snapshot is only made once a reader has had to wait for a
+ * writer, after which each commit is replayed onto it as it would be onto the
+ * second copy of a DualGraph. It is discarded once the graph is edited without
+ * being read at the same time, so the graph is only held twice while it is
+ * read concurrently with edits (see {@link LockingManager#setTarget(LockingTarget,
+ * java.util.function.UnaryOperator)}). A thread that holds a read lock can not
+ * start writing: this fails immediately rather than deadlocking. Edits are
+ * still recorded so that rollback, undo and redo behave exactly as they do for
+ * a DualGraph.
+ * <p>
+ * Graphs are created as a SingleGraph or a DualGraph according to their size
+ * by {@link LockingGraphUtilities}.
+ *
+ * @author agent
+ */
+public class SingleGraph implements Graph, Serializable {
+
+    private static final Logger LOGGER = Logger.getLogger(SingleGraph.class.getName());
+
+    private final ArrayList<GraphChangeListener> graphChangeListeners = new ArrayList<>();
+    private final LockingStoreGraph target;
+    private final LockingManager<LockingStoreGraph> lockingManager;
+    private final String id;
+    private GraphChangeEvent previousEvent = null;
+    private final Schema schema;
+
+    private LockingManager<LockingStoreGraph> createLockingManager() {
+        return new LockingManager<LockingStoreGraph>() {
+            @Override
+            protected void update(final Object description, Object editor) {
+                final GraphChangeEvent event = new GraphChangeEvent(previousEvent, SingleGraph.this, editor, description);
+                previousEvent = event;
+                SwingUtilities.invokeLater(() -> {
+                    synchronized (graphChangeListeners) {
+                        for (GraphChangeListener listener : graphChangeListeners) {
+                            listener.graphChanged(event);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    public SingleGraph(final Schema schema) {
+
+        lockingManager = createLockingManager();
+
+        target = new LockingStoreGraph(lockingManager, 0, schema);
+
+        lockingManager.setTarget(target, this::createSnapshot);
+
+        this.id = target.getId();
+
+        this.schema = schema;
+
+        MemoryManager.newObject(SingleGraph.class);
+    }
+
+    /**
+     * Creates a new SingleGraph from a target StoreGraph. The new SingleGraph
+     * gets a copy of the target's schema.
+     *
+     * @param original the StoreGraph representing the initial state of the
+     * SingleGraph.
+     * @param newId if true then the SingleGraph gets a new id, otherwise it is
+     * copied from the original.
+     */
+    public SingleGraph(final StoreGraph original, final boolean newId) {
+        this(original.getSchema(), original, newId);
+    }
+
+    public SingleGraph(final Schema schema, final StoreGraph original, final boolean newId) {
+
+        original.validateKeys();
+
+        lockingManager = createLockingManager();
+
+        target = new LockingStoreGraph(lockingManager, 0, original, newId);
+
+        lockingManager.setTarget(target, this::createSnapshot);
+
+        this.id = target.getId();
+
+        this.schema = schema == null ? null : schema.getFactory().createSchema();
+
+        MemoryManager.newObject(SingleGraph.class);
+    }
+
+    private LockingStoreGraph createSnapshot(final LockingStoreGraph graph) {
+        return new LockingStoreGraph(lockingManager, 1, graph, graph.getId());
+    }
+
+    @Override
+    public void finalize() throws Throwable {
+        try {
+            MemoryManager.finalizeObject(SingleGraph.class);
+        } finally {
+            super.finalize();
+        }
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void addGraphChangeListener(final GraphChangeListener listener) {
+        synchronized (graphChangeListeners) {
+            if (listener != null && !graphChangeListeners.contains(listener)) {
+                graphChangeListeners.add(listener);
+            }
+        }
+        LOGGER.log(Level.FINE, "Added GraphChangeListener, count is {0}", graphChangeListeners.size());
+    }
+
+    @Override
+    public void removeGraphChangeListener(final GraphChangeListener listener) {
+        synchronized (graphChangeListeners) {
+            graphChangeListeners.remove(listener);
+        }
+        LOGGER.log(Level.FINE, "Removed GraphChangeListener, count is {0}", graphChangeListeners.size());
+    }
+
+    @Override
+    public ReadableGraph getReadableGraph() {
+        return lockingManager.startReading();
+    }
+
+    @Deprecated
+    @Override
+    public WritableGraph getWritableGraphOnEDT(final String name, final boolean significant) throws InterruptedException {
+        LOGGER.log(Level.WARNING, "LOCKING GRAPH ON EDT: {0}", new Exception().getStackTrace()[1]);
+        return lockingManager.startWriting(name, significant, null);
+    }
+
+    @Override
+    public WritableGraph getWritableGraph(final String name, final boolean significant) throws InterruptedException {
+        return getWritableGraph(name, significant, null);
+    }
+
+    @Override
+    public WritableGraph getWritableGraph(final String name, final boolean significant, final Object editor) throws InterruptedException {
+        if (SwingUtilities.isEventDispatchThread()) {
+            throw new IllegalStateException("Attempting to write on the EDT");
+        }
+        if (Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("Attempting to write on the JavaFX Application Thread");
+        }
+        return lockingManager.startWriting(name, significant, editor);
+    }
+
+    @Override
+    public WritableGraph getWritableGraphNow(final String name, final boolean significant) {
+        return getWritableGraphNow(name, significant, null);
+    }
+
+    @Override
+    public WritableGraph getWritableGraphNow(final String name, final boolean significant, final Object editor) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            throw new IllegalStateException("Attempting to write on the EDT");
+        }
+
+        return lockingManager.tryStartWriting(name, significant, editor);
+    }
+
+    @Override
+    public void setUndoManager(final UndoManager undoManager) {
+        lockingManager.setUndoManager(undoManager);
+    }
+}
@@ -52,7 +52,7 @@ public class GraphRecordStoreUtilities {
     }
 
     private static final int NO_ELEMENT = -1;
-    private static final String TYPE_KEY = "Type<string>";
+    static final String TYPE_KEY = "Type<string>";
 
     public static final String COPY = "copy.";
     public static final String SOURCE = "source.";
@@ -71,7 +71,7 @@ public class GraphRecordStoreUtilities {
 
     private static final Charset UTF8 = StandardCharsets.UTF_8;
 
-    private static int addVertex(GraphWriteMethods graph, Map<String, String> values, Map<String, Integer> vertexMap, boolean initializeWithSchema, boolean completeWithSchema, List<Integer> newVertices, Set<Integer> ghostVertices, List<String> vertexIdAttributes) {
+    private static int addVertex(GraphWriteMethods graph, Map<String, String> values, TypedRecordStore typedRecordStore, Map<String, String> typedKeys, Map<String, Integer> vertexMap, boolean initializeWithSchema, boolean completeWithSchema, List<Integer> newVertices, Set<Integer> ghostVertices, List<String> vertexIdAttributes) {
         String idValue = values.remove(ID);
 
         // If the idValue has not been set and we have vertexIdAttributes then create an idValue automatically
@@ -139,6 +139,7 @@ public class GraphRecordStoreUtilities {
         }
 
         copyValues(graph, GraphElementType.VERTEX, vertex, values);
+        copyTypedValues(graph, GraphElementType.VERTEX, vertex, typedRecordStore, typedKeys);
 
         if (completeWithSchema && graph.getSchema() != null) {
             graph.getSchema().completeVertex(graph, vertex);
@@ -181,7 +182,7 @@ public class GraphRecordStoreUtilities {
         return vertex;
     }
 
-    private static int addTransaction(GraphWriteMethods graph, int source, int destination, Map<String, String> values, Map<String, Integer> transactionMap, boolean initializeWithSchema, boolean completeWithSchema) {
+    private static int addTransaction(GraphWriteMethods graph, int source, int destination, Map<String, String> values, TypedRecordStore typedRecordStore, Map<String, String> typedKeys, Map<String, Integer> transactionMap, boolean initializeWithSchema, boolean completeWithSchema) {
         final String type = values.get(TYPE_KEY);
         final String directedValue = values.get(DIRECTED_KEY);
         boolean directed = true;
@@ -212,6 +213,7 @@ public class GraphRecordStoreUtilities {
         }
 
         copyValues(graph, GraphElementType.TRANSACTION, transaction, values);
+        copyTypedValues(graph, GraphElementType.TRANSACTION, transaction, typedRecordStore, typedKeys);
 
         if (completeWithSchema && graph.getSchema() != null) {
             graph.getSchema().completeTransaction(graph, transaction);
@@ -291,19 +293,78 @@ public class GraphRecordStoreUtilities {
                 }
             }
 
-            // TODO: look at ensure(true/fale)
-            int attribute = graph.getAttribute(elementType, key);
-            if (attribute == Graph.NOT_FOUND) {
-                attribute = graph.getSchema() != null ? graph.getSchema().getFactory().ensureAttribute(graph, elementType, key) : Graph.NOT_FOUND;
-                if (attribute == Graph.NOT_FOUND) {
-                    attribute = graph.addAttribute(elementType, type, key, key, null, null);
-                }
-            }
-
+            final int attribute = getOrAddAttribute(graph, elementType, key, type);
             graph.setStringValue(attribute, element, entry.getValue());
         });
     }
 
+    /**
+     * Copy the typed values of the current record of a {@link TypedRecordStore}
+     * to a graph element.
+     * <p>
+     * Values are set with the setter matching their type when the attribute is
+     * of that type, so they are not formatted and parsed as Strings. Otherwise
+     * they are copied as Strings.
+     */
+    private static void copyTypedValues(GraphWriteMethods graph, GraphElementType elementType, int element, TypedRecordStore typedRecordStore, Map<String, String> typedKeys) {
+        if (typedKeys == null || typedKeys.isEmpty()) {
+            return;
+        }
+
+        final int record = typedRecordStore.index();
+        for (final Entry<String, String> entry : typedKeys.entrySet()) {
+            final String recordStoreKey = entry.getValue();
+            final TypedRecordStore.ColumnType columnType = typedRecordStore.getColumnType(recordStoreKey);
+            String key = entry.getKey();
+            final int typeStart = key.lastIndexOf('<');
+            if (key.endsWith(">") && typeStart > 0) {
+                key = key.substring(0, typeStart);
+            }
+
+            final int attribute = getOrAddAttribute(graph, elementType, key, columnType.getAttributeType());
+            if (typedRecordStore.isNull(record, recordStoreKey) || !columnType.getAttributeType().equals(graph.getAttributeType(attribute))) {
+                graph.setStringValue(attribute, element, typedRecordStore.get(record, recordStoreKey));
+                continue;
+            }
+
+            switch (columnType) {
+                case INTEGER:
+                    graph.setIntValue(attribute, element, typedRecordStore.getInt(record, recordStoreKey));
+                    break;
+                case LONG:
+                    graph.setLongValue(attribute, element, typedRecordStore.getLong(record, recordStoreKey));
+                    break;
+                case FLOAT:
+                    graph.setFloatValue(attribute, element, typedRecordStore.getFloat(record, recordStoreKey));
+                    break;
+                case DOUBLE:
+                    graph.setDoubleValue(attribute, element, typedRecordStore.getDouble(record, recordStoreKey));
+                    break;
+                case BOOLEAN:
+                    graph.setBooleanValue(attribute, element, typedRecordStore.getBoolean(record, recordStoreKey));
+                    break;
+                case DATETIME:
+                    graph.setLongValue(attribute, element, typedRecordStore.getDateTime(record, recordStoreKey));
+                    break;
+                default:
+                    graph.setStringValue(attribute, element, typedRecordStore.get(record, recordStoreKey));
+                    break;
+            }
+        }
+    }
+
+    static int getOrAddAttribute(GraphWriteMethods graph, GraphElementType elementType, String key, String type) {
+        // TODO: look at ensure(true/fale)
+        int attribute = graph.getAttribute(elementType, key);
+        if (attribute == Graph.NOT_FOUND) {
+            attribute = graph.getSchema() != null ? graph.getSchema().getFactory().ensureAttribute(graph, elementType, key) : Graph.NOT_FOUND;
+            if (attribute == Graph.NOT_FOUND) {
+                attribute = graph.addAttribute(elementType, type, key, key, null, null);
+            }
+        }
+        return attribute;
+    }
+
     /**
      * Adds the contents of the specified {@link RecordStore} to the specified
      * graph.
@@ -356,7 +417,15 @@ public class GraphRecordStoreUtilities {
         final Set<Integer> ghostVertices = new HashSet<>();
 
         recordStore.reset();
-        final List<String> keys = (recordStore instanceof GraphRecordStore) ? ((GraphRecordStore) recordStore).keysWithType() : recordStore.keys();
+        final TypedRecordStore typedRecordStore = recordStore instanceof TypedRecordStore ? (TypedRecordStore) recordStore : null;
+        final List<String> keys;
+        if (recordStore instanceof GraphRecordStore) {
+            keys = ((GraphRecordStore) recordStore).keysWithType();
+        } else if (typedRecordStore != null) {
+            keys = typedRecordStore.keysWithType();
+        } else {
+            keys = recordStore.keys();
+        }
 
         if (vertexMap == null) {
             vertexMap = new HashMap<>();
@@ -369,25 +438,45 @@ public class GraphRecordStoreUtilities {
             final Map<String, String> sourceValues = new TreeMap<>();
             final Map<String, String> destinationValues = new TreeMap<>();
             final Map<String, String> transactionValues = new TreeMap<>();
+
+            // Typed values are kept out of the String maps and copied to the graph without conversion,
+            // except for vertex values that may be needed to build a vertex id.
+            final Map<String, String> sourceTypedKeys = new TreeMap<>();
+            final Map<String, String> destinationTypedKeys = new TreeMap<>();
+            final Map<String, String> transactionTypedKeys = new TreeMap<>();
             for (String key : keys) {
                 if (recordStore.hasValue(key)) {
-                    final String value = recordStore.get(key);
                     final int dividerPosition = key.indexOf('.');
 
                     if (dividerPosition > 0) {
                         final String keyDescriptor = key.substring(0, dividerPosition).toLowerCase();
                         final String keyAttribute = key.substring(dividerPosition + 1);
                         final String[] parts = keyDescriptor.split("\\$"); // TODO: what ??
+                        final boolean typed = typedRecordStore != null
+                                && typedRecordStore.getColumnType(key) != TypedRecordStore.ColumnType.STRING
+                                && (vertexIdAttributes == null || "transaction".equals(parts[0]));
 
                         switch (parts[0]) {
                             case "source":
-                                sourceValues.put(keyAttribute, value);
+                                if (typed) {
+                                    sourceTypedKeys.put(keyAttribute, key);
+                                } else {
+                                    sourceValues.put(keyAttribute, recordStore.get(key));
+                                }
                                 break;
                             case "destination":
-                                destinationValues.put(keyAttribute, value);
+                                if (typed) {
+                                    destinationTypedKeys.put(keyAttribute, key);
+                                } else {
+                                    destinationValues.put(keyAttribute, recordStore.get(key));
+                                }
                                 break;
                             case "transaction":
-                                transactionValues.put(keyAttribute, value);
+                                if (typed) {
+                                    transactionTypedKeys.put(keyAttribute, key);
+                                } else {
+                                    transactionValues.put(keyAttribute, recordStore.get(key));
+                                }
                                 break;
                             default:
                                 break;
@@ -396,17 +485,19 @@ public class GraphRecordStoreUtilities {
                 }
             }
 
-            if (sourceValues.isEmpty() && destinationValues.isEmpty() && transactionValues.containsKey(ID)) {
+            final boolean hasSource = !sourceValues.isEmpty() || !sourceTypedKeys.isEmpty();
+            final boolean hasDestination = !destinationValues.isEmpty() || !destinationTypedKeys.isEmpty();
+            if (!hasSource && !hasDestination && transactionValues.containsKey(ID)) {
                 // This will not add a new transaction to the graph (as source and destination are both -1), but if the transaction exists already it will be returned allowing it to be selected.
-                addTransaction(graph, NO_ELEMENT, NO_ELEMENT, transactionValues, transactionMap, initializeWithSchema, completeWithSchema);
-            } else if (!sourceValues.isEmpty() && !destinationValues.isEmpty()) {
-                final int source = addVertex(graph, sourceValues, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
-                final int destination = addVertex(graph, destinationValues, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
-                addTransaction(graph, source, destination, transactionValues, transactionMap, initializeWithSchema, completeWithSchema);
-            } else if (!sourceValues.isEmpty()) {
-                addVertex(graph, sourceValues, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
-            } else if (!destinationValues.isEmpty()) {
-                addVertex(graph, destinationValues, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
+                addTransaction(graph, NO_ELEMENT, NO_ELEMENT, transactionValues, typedRecordStore, transactionTypedKeys, transactionMap, initializeWithSchema, completeWithSchema);
+            } else if (hasSource && hasDestination) {
+                final int source = addVertex(graph, sourceValues, typedRecordStore, sourceTypedKeys, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
+                final int destination = addVertex(graph, destinationValues, typedRecordStore, destinationTypedKeys, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
+                addTransaction(graph, source, destination, transactionValues, typedRecordStore, transactionTypedKeys, transactionMap, initializeWithSchema, completeWithSchema);
+            } else if (hasSource) {
+                addVertex(graph, sourceValues, typedRecordStore, sourceTypedKeys, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
+            } else if (hasDestination) {
+                addVertex(graph, destinationValues, typedRecordStore, destinationTypedKeys, vertexMap, initializeWithSchema, completeWithSchema, newVertices, ghostVertices, vertexIdAttributes);
             }
         }
 
@@ -424,6 +515,64 @@ public class GraphRecordStoreUtilities {
         return newVertices;
     }
 
+    /**
+     * Adds the contents of the specified {@link RecordStore} to the specified
+     * graph in bulk.
+     * <p>
+     * This has the same result as
+     * {@link #addRecordStoreToGraph(GraphWriteMethods, RecordStore, boolean, boolean, List)}
+     * but resolves all of the records to graph elements before any values are
+     * written, grows a {@link au.gov.asd.tac.constellation.graph.StoreGraph}
+     * once for all of the new elements and then writes each attribute column
+     * in a single pass. Records of vertices without an id are matched on the
+     * values of the vertex primary key, so vertices already on the graph are
+     * reused rather than added and merged later. Record stores that delete,
+     * ghost or change the direction of elements are added record by record.
+     *
+     * @param graph A {@link GraphWriteMethods} object to add the
+     * {@link RecordStore} contents to.
+     * @param recordStore The {@link RecordStore} to be added to the graph.
+     * @param initializeWithSchema Whether or not to initialise new elements
+     * with the graph's schema.
+     * @param completeWithSchema Whether or not to complete the added elements
+     * with the graph's schema.
+     * @return A {@link List} of {@link Integer} objects representing the vertex
+     * id's of the newly added vertices.
+     */
+    public static List<Integer> addRecordStoreToGraphInBulk(GraphWriteMethods graph, RecordStore recordStore, boolean initializeWithSchema, boolean completeWithSchema) {
+        return addRecordStoreToGraphInBulk(graph, recordStore, initializeWithSchema, completeWithSchema, null, null);
+    }
+
+    /**
+     * Adds the contents of the specified {@link RecordStore} to the specified
+     * graph in bulk.
+     *
+     * @param graph A {@link GraphWriteMethods} object to add the
+     * {@link RecordStore} contents to.
+     * @param recordStore The {@link RecordStore} to be added to the graph.
+     * @param initializeWithSchema Whether or not to initialise new elements
+     * with the graph's schema.
+     * @param completeWithSchema Whether or not to complete the added elements
+     * with the graph's schema.
+     * @param vertexMap A map which will be populated with the mappings from
+     * vertex id in the {@link RecordStore} to vertex id on the graph.
+     * @param transactionMap A map which will be populated with the mappings
+     * from transaction id in the {@link RecordStore} to transaction id on the
+     * graph.
+     * @return A {@link List} of {@link Integer} objects representing the vertex
+     * id's of the newly added vertices.
+     * @see #addRecordStoreToGraphInBulk(GraphWriteMethods, RecordStore,
+     * boolean, boolean)
+     */
+    public static List<Integer> addRecordStoreToGraphInBulk(GraphWriteMethods graph, RecordStore recordStore, boolean initializeWithSchema, boolean completeWithSchema, Map<String, Integer> vertexMap, Map<String, Integer> transactionMap) {
+        final RecordStoreBulkLoader loader = RecordStoreBulkLoader.create(graph, recordStore, initializeWithSchema, completeWithSchema);
+        if (loader == null) {
+            return addRecordStoreToGraph(graph, recordStore, initializeWithSchema, completeWithSchema, null, vertexMap, transactionMap);
+        }
+
+        return loader.load(vertexMap == null ? new HashMap<>() : vertexMap, transactionMap == null ? new HashMap<>() : transactionMap);
+    }
+
     /**
      * Populate a new {@link RecordStore} with the attribute values of vertices,
      * transactions and their endpoint vertices.
@@ -519,14 +668,37 @@ public class GraphRecordStoreUtilities {
      * @return A {@link RecordStore} representing the graph's vertices.
      */
     public static GraphRecordStore getVertices(final GraphReadMethods graph, boolean singletonsOnly, boolean selectedOnly, boolean disassociateIds, final int[] offset, final int limit) {
+        return getVertices(graph, singletonsOnly, selectedOnly, disassociateIds, offset, limit, null);
+    }
+
+    /**
+     * Populate a new {@link RecordStore} with the values of some of the
+     * attributes of the vertices from the specified graph, starting from the
+     * specified offset and collecting up to a specified number of results.
+     *
+     * @param graph A {@link GraphReadMethods} from which {@link RecordStore}
+     * will be created.
+     * @param selectedOnly A boolean value specifying whether or not to only
+     * include selected graph elements in the {@link RecordStore}.
+     * @param singletonsOnly Only include singleton vertices. This is useful
+     * when building a RecordStore that reflects the graph structure.
+     * @param disassociateIds If true, the ids of the graph elements in the
+     * created {@link RecordStore} will be distinct from the ids of the graph
+     * elements on the graph.
+     * @param offset An array of integers, where the zeroth value represents the
+     * vertex position from which to begin collection. On return it holds the
+     * position from which to collect the next page of vertices.
+     * @param limit An integer value representing the maximum number of vertices
+     * to collect.
+     * @param keys The keys to collect, without their types (for example
+     * "source.Label" or "source.[id]"), or null to collect every key.
+     * @return A {@link RecordStore} representing the graph's vertices.
+     */
+    public static GraphRecordStore getVertices(final GraphReadMethods graph, boolean singletonsOnly, boolean selectedOnly, boolean disassociateIds, final int[] offset, final int limit, final Set<String> keys) {
         final GraphRecordStore recordStore = new GraphRecordStore();
 
-        final int attributeCount = graph.getAttributeCount(GraphElementType.VERTEX);
-        final Attribute[] attributes = new Attribute[attributeCount];
-        for (int a = 0; a < attributeCount; a++) {
-            final int attributeId = graph.getAttribute(GraphElementType.VERTEX, a);
-            attributes[a] = new GraphAttribute(graph, attributeId);
-        }
+        final Attribute[] attributes = getProjectedAttributes(graph, GraphElementType.VERTEX, SOURCE, keys);
+        final boolean includeId = isProjected(keys, SOURCE + ID);
 
         final int selected = graph.getAttribute(GraphElementType.VERTEX, SELECTED_ATTRIBUTE_NAME);
         final int vertexCount = graph.getVertexCount();
@@ -542,7 +714,9 @@ public class GraphRecordStoreUtilities {
                     recordStore.set(SOURCE + attribute.getName() + "<" + type + ">", graph.getStringValue(attribute.getId(), vxId));
                 }
 
-                recordStore.set(SOURCE + ID, disassociateIds ? "id-" + vxId : String.valueOf(vxId));
+                if (includeId) {
+                    recordStore.set(SOURCE + ID, disassociateIds ? "id-" + vxId : String.valueOf(vxId));
+                }
                 if (limit > 0 && recordStore.size() >= limit) {
                     offset[0] = v + 1;
                     limitReached = true;
@@ -557,6 +731,38 @@ public class GraphRecordStoreUtilities {
         return recordStore;
     }
 
+    /**
+     * Is a key included in a projection?
+     *
+     * @param keys The keys of the projection without their types, or null if
+     * every key is included.
+     * @param key The key, with or without its type.
+     * @return True if the key is included.
+     */
+    private static boolean isProjected(final Set<String> keys, final String key) {
+        if (keys == null) {
+            return true;
+        }
+        final int typeStart = key.lastIndexOf('<');
+        return keys.contains(key.endsWith(">") && typeStart > 0 ? key.substring(0, typeStart) : key);
+    }
+
+    /**
+     * The attributes of an element type whose keys are included in a
+     * projection.
+     */
+    private static Attribute[] getProjectedAttributes(final GraphReadMethods graph, final GraphElementType elementType, final String prefix, final Set<String> keys) {
+        final int attributeCount = graph.getAttributeCount(elementType);
+        final List<Attribute> attributes = new ArrayList<>(attributeCount);
+        for (int a = 0; a < attributeCount; a++) {
+            final int attributeId = graph.getAttribute(elementType, a);
+            if (isProjected(keys, prefix + graph.getAttributeName(attributeId))) {
+                attributes.add(new GraphAttribute(graph, attributeId));
+            }
+        }
+        return attributes.toArray(new Attribute[attributes.size()]);
+    }
+
     /**
      * Populate a new {@link RecordStore} with the attribute values of the
      * selected vertices.
@@ -719,25 +925,54 @@ public class GraphRecordStoreUtilities {
      * @return A {@link RecordStore} representing the graph's transactions.
      */
     public static GraphRecordStore getTransactions(final GraphReadMethods graph, boolean selectedOnly, boolean disassociateIds) {
-        final GraphRecordStore recordStore = new GraphRecordStore();
+        return getTransactions(graph, selectedOnly, disassociateIds, new int[]{0}, -1, null);
+    }
 
-        final int transactionAttributeCount = graph.getAttributeCount(GraphElementType.TRANSACTION);
-        final Attribute[] transactionAttributes = new Attribute[transactionAttributeCount];
-        for (int a = 0; a < transactionAttributeCount; a++) {
-            final int attributeId = graph.getAttribute(GraphElementType.TRANSACTION, a);
-            transactionAttributes[a] = new GraphAttribute(graph, attributeId);
-        }
+    /**
+     * Populate a new {@link RecordStore} with the values of some of the
+     * attributes of the transactions and their endpoint vertices, starting from
+     * the specified offset and collecting up to a specified number of results -
+     * essentially allowing paginated queries.
+     *
+     * @param graph A {@link GraphReadMethods} from which the RecordStore will
+     * be created.
+     * @param selectedOnly A boolean value specifying whether or not to only
+     * include selected transactions in the {@link RecordStore}.
+     * @param disassociateIds If true, the ids of the transactions in the
+     * created {@link RecordStore} will be distinct from the ids of the
+     * transactions on the graph.
+     * @param offset An array of integers, where the zeroth value represents the
+     * transaction position from which to begin collection. On return it holds
+     * the position from which to collect the next page of transactions.
+     * @param limit An integer value representing the maximum number of
+     * transactions to collect.
+     * @param keys The keys to collect, without their types (for example
+     * "transaction.Type" or "destination.[id]"), or null to collect every key.
+     * @return A {@link RecordStore} representing the graph's transactions.
+     */
+    public static GraphRecordStore getTransactions(final GraphReadMethods graph, boolean selectedOnly, boolean disassociateIds, final int[] offset, final int limit, final Set<String> keys) {
+        final GraphRecordStore recordStore = new GraphRecordStore();
 
+        final Attribute[] transactionAttributes = getProjectedAttributes(graph, GraphElementType.TRANSACTION, TRANSACTION, keys);
         final int vertexAttributeCount = graph.getAttributeCount(GraphElementType.VERTEX);
         final Attribute[] vertexAttributes = new Attribute[vertexAttributeCount];
+        final boolean[] includeSource = new boolean[vertexAttributeCount];
+        final boolean[] includeDestination = new boolean[vertexAttributeCount];
         for (int a = 0; a < vertexAttributeCount; a++) {
             final int attributeId = graph.getAttribute(GraphElementType.VERTEX, a);
             vertexAttributes[a] = new GraphAttribute(graph, attributeId);
+            includeSource[a] = isProjected(keys, SOURCE + vertexAttributes[a].getName());
+            includeDestination[a] = isProjected(keys, DESTINATION + vertexAttributes[a].getName());
         }
+        final boolean includeDirected = isProjected(keys, TRANSACTION + DIRECTED_KEY);
+        final boolean includeTransactionId = isProjected(keys, TRANSACTION + ID);
+        final boolean includeSourceId = isProjected(keys, SOURCE + ID);
+        final boolean includeDestinationId = isProjected(keys, DESTINATION + ID);
 
         final int selected = graph.getAttribute(GraphElementType.TRANSACTION, SELECTED_ATTRIBUTE_NAME);
         final int transactionCount = graph.getTransactionCount();
-        for (int t = 0; t < transactionCount; t++) {
+        boolean limitReached = false;
+        for (int t = offset[0]; t < transactionCount; t++) {
             final int txId = graph.getTransaction(t);
             final int source = graph.getTransactionSourceVertex(txId);
             final int destination = graph.getTransactionDestinationVertex(txId);
@@ -750,19 +985,38 @@ public class GraphRecordStoreUtilities {
                     recordStore.set(TRANSACTION + transactionAttribute.getName() + "<" + type + ">", graph.getStringValue(transactionAttribute.getId(), txId));
                 }
 
-                for (final Attribute vertexAttribute : vertexAttributes) {
+                for (int a = 0; a < vertexAttributeCount; a++) {
+                    final Attribute vertexAttribute = vertexAttributes[a];
                     final String type = vertexAttribute.getAttributeType();
-                    recordStore.set(SOURCE + vertexAttribute.getName() + "<" + type + ">", graph.getStringValue(vertexAttribute.getId(), source));
-                    recordStore.set(DESTINATION + vertexAttribute.getName() + "<" + type + ">", graph.getStringValue(vertexAttribute.getId(), destination));
+                    if (includeSource[a]) {
+                        recordStore.set(SOURCE + vertexAttribute.getName() + "<" + type + ">", graph.getStringValue(vertexAttribute.getId(), source));
+                    }
+                    if (includeDestination[a]) {
+                        recordStore.set(DESTINATION + vertexAttribute.getName() + "<" + type + ">", graph.getStringValue(vertexAttribute.getId(), destination));
+                    }
                 }
-                if (graph.getTransactionDirection(txId) == Graph.UNDIRECTED) {
+                if (includeDirected && graph.getTransactionDirection(txId) == Graph.UNDIRECTED) {
                     recordStore.set(TRANSACTION + DIRECTED_KEY, FALSE);
                 }
-                recordStore.set(TRANSACTION + ID, disassociateIds ? "id-" + txId : String.valueOf(txId));
-                recordStore.set(SOURCE + ID, disassociateIds ? "id-" + source : String.valueOf(source));
-                recordStore.set(DESTINATION + ID, disassociateIds ? "id-" + destination : String.valueOf(destination));
+                if (includeTransactionId) {
+                    recordStore.set(TRANSACTION + ID, disassociateIds ? "id-" + txId : String.valueOf(txId));
+                }
+                if (includeSourceId) {
+                    recordStore.set(SOURCE + ID, disassociateIds ? "id-" + source : String.valueOf(source));
+                }
+                if (includeDestinationId) {
+                    recordStore.set(DESTINATION + ID, disassociateIds ? "id-" + destination : String.valueOf(destination));
+                }
+                if (limit > 0 && recordStore.size() >= limit) {
+                    offset[0] = t + 1;
+                    limitReached = true;
+                    break;
+                }
             }
         }
+        if (!limitReached) {
+            offset[0] = transactionCount;
+        }
 
         return recordStore;
     }
@@ -0,0 +1,529 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.processing;
+
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.schema.type.SchemaTransactionType;
+import au.gov.asd.tac.constellation.graph.schema.type.SchemaTransactionTypeUtilities;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds the records of a {@link RecordStore} to a graph a column at a time.
+ * <p>
+ * Loading happens in three passes. The first resolves every record to the
+ * graph elements it describes, looking up vertex and transaction ids, matching
+ * vertices without an id on their primary key values and counting the
+ * elements that need to be added. The second grows the graph once and adds
+ * the new elements. The third writes each attribute column to the graph in a
+ * single loop over the records, without the per-record maps used by
+ * {@link GraphRecordStoreUtilities#addRecordStoreToGraph}.
+ *
+ * @author agent
+ */
+final class RecordStoreBulkLoader {
+
+    private static final int NO_ELEMENT = -1;
+
+    private final GraphWriteMethods graph;
+    private final RecordStore recordStore;
+    private final TypedRecordStore typedRecordStore;
+    private final boolean initializeWithSchema;
+    private final boolean completeWithSchema;
+    private final int size;
+
+    private final Endpoint source = new Endpoint();
+    private final Endpoint destination = new Endpoint();
+    private final List<Column> transactionColumns = new ArrayList<>();
+    private String transactionIdKey = null;
+    private String transactionTypeKey = null;
+
+    // Resolved elements per record. New elements are encoded as -(index + 2) until they are added.
+    private int[] sources;
+    private int[] destinations;
+    private int[] transactions;
+
+    private final Map<String, Integer> newVertexIds = new HashMap<>();
+    private final Map<List<String>, Integer> newVertexKeys = new HashMap<>();
+    private Map<List<String>, Integer> vertexKeys = null;
+    private int newVertexCount = 0;
+
+    private final Map<String, Integer> newTransactionIds = new HashMap<>();
+    private final Map<String, Boolean> directedTypes = new HashMap<>();
+    private int[] newTransactionSources;
+    private int[] newTransactionDestinations;
+    private BitSet newTransactionUndirected;
+    private int newTransactionCount = 0;
+
+    private RecordStoreBulkLoader(final GraphWriteMethods graph, final RecordStore recordStore, final boolean initializeWithSchema, final boolean completeWithSchema) {
+        this.graph = graph;
+        this.recordStore = recordStore;
+        this.typedRecordStore = recordStore instanceof TypedRecordStore ? (TypedRecordStore) recordStore : null;
+        this.initializeWithSchema = initializeWithSchema;
+        this.completeWithSchema = completeWithSchema;
+        this.size = recordStore.size();
+    }
+
+    /**
+     * Create a loader for the specified {@link RecordStore}.
+     *
+     * @return the loader, or null if the record store uses keys that must be
+     * processed record by record.
+     */
+    static RecordStoreBulkLoader create(final GraphWriteMethods graph, final RecordStore recordStore, final boolean initializeWithSchema, final boolean completeWithSchema) {
+        final RecordStoreBulkLoader loader = new RecordStoreBulkLoader(graph, recordStore, initializeWithSchema, completeWithSchema);
+        return loader.readKeys() ? loader : null;
+    }
+
+    private boolean readKeys() {
+        final List<String> keys;
+        if (recordStore instanceof GraphRecordStore) {
+            keys = ((GraphRecordStore) recordStore).keysWithType();
+        } else if (typedRecordStore != null) {
+            keys = typedRecordStore.keysWithType();
+        } else {
+            keys = recordStore.keys();
+        }
+
+        for (final String key : keys) {
+            final int dividerPosition = key.indexOf('.');
+            if (dividerPosition <= 0) {
+                continue;
+            }
+
+            final String keyDescriptor = key.substring(0, dividerPosition).toLowerCase();
+            final String keyAttribute = key.substring(dividerPosition + 1);
+            if (GraphRecordStoreUtilities.DELETE_KEY.equals(keyAttribute)
+                    || GraphRecordStoreUtilities.GHOST.equals(keyAttribute)
+                    || GraphRecordStoreUtilities.COMPLETE_WITH_SCHEMA_KEY.equals(keyAttribute)
+                    || GraphRecordStoreUtilities.DIRECTED_KEY.equals(keyAttribute)) {
+                return false;
+            }
+
+            final boolean isId = GraphRecordStoreUtilities.ID.equals(keyAttribute);
+            switch (keyDescriptor.split("\\$")[0]) {
+                case "source":
+                    source.addKey(key, keyAttribute, isId);
+                    break;
+                case "destination":
+                    destination.addKey(key, keyAttribute, isId);
+                    break;
+                case "transaction":
+                    if (isId) {
+                        transactionIdKey = key;
+                    } else {
+                        if (GraphRecordStoreUtilities.TYPE_KEY.equals(keyAttribute)) {
+                            transactionTypeKey = key;
+                        }
+                        transactionColumns.add(new Column(key, keyAttribute));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Add the records to the graph.
+     *
+     * @param vertexMap the map of record store vertex ids to graph vertex ids.
+     * @param transactionMap the map of record store transaction ids to graph
+     * transaction ids.
+     * @return the ids of the vertices that were added to the graph.
+     */
+    List<Integer> load(final Map<String, Integer> vertexMap, final Map<String, Integer> transactionMap) {
+        resolve(vertexMap, transactionMap);
+        final List<Integer> newVertices = addElements(vertexMap, transactionMap);
+
+        // Source and destination values of an attribute are written in record order so the last value wins.
+        final Map<String, Column[]> vertexColumns = new LinkedHashMap<>();
+        addVertexColumns(vertexColumns, source.columns, 0);
+        addVertexColumns(vertexColumns, destination.columns, 1);
+        final int[][] vertices = {sources, destinations};
+        for (final Column[] pair : vertexColumns.values()) {
+            writeColumns(GraphElementType.VERTEX, pair, vertices);
+        }
+
+        final int[][] transactionElements = {transactions};
+        for (final Column column : transactionColumns) {
+            writeColumns(GraphElementType.TRANSACTION, new Column[]{column}, transactionElements);
+        }
+
+        if (completeWithSchema && graph.getSchema() != null) {
+            final BitSet completed = new BitSet(graph.getVertexCapacity());
+            for (int record = 0; record < size; record++) {
+                completeVertex(sources[record], completed);
+                completeVertex(destinations[record], completed);
+            }
+            completed.clear();
+            for (int record = 0; record < size; record++) {
+                final int transaction = transactions[record];
+                if (transaction != NO_ELEMENT && !completed.get(transaction)) {
+                    completed.set(transaction);
+                    graph.getSchema().completeTransaction(graph, transaction);
+                }
+            }
+        }
+
+        return newVertices;
+    }
+
+    private static void addVertexColumns(final Map<String, Column[]> vertexColumns, final List<Column> columns, final int endpoint) {
+        for (final Column column : columns) {
+            final Column[] pair = vertexColumns.computeIfAbsent(column.name, name -> new Column[2]);
+            if (pair[endpoint] == null) {
+                pair[endpoint] = column;
+            } else {
+                final Column[] other = new Column[2];
+                other[endpoint] = column;
+                vertexColumns.put(column.key, other);
+            }
+        }
+    }
+
+    private void completeVertex(final int vertex, final BitSet completed) {
+        if (vertex != NO_ELEMENT && !completed.get(vertex)) {
+            completed.set(vertex);
+            graph.getSchema().completeVertex(graph, vertex);
+        }
+    }
+
+    private void resolve(final Map<String, Integer> vertexMap, final Map<String, Integer> transactionMap) {
+        sources = new int[size];
+        destinations = new int[size];
+        transactions = new int[size];
+        Arrays.fill(sources, NO_ELEMENT);
+        Arrays.fill(destinations, NO_ELEMENT);
+        Arrays.fill(transactions, NO_ELEMENT);
+        newTransactionSources = new int[size];
+        newTransactionDestinations = new int[size];
+        newTransactionUndirected = new BitSet(size);
+
+        source.prepareKey();
+        destination.prepareKey();
+
+        for (int record = 0; record < size; record++) {
+            final boolean hasSource = source.hasValue(record);
+            final boolean hasDestination = destination.hasValue(record);
+            if (hasSource && hasDestination) {
+                sources[record] = source.resolveVertex(record, vertexMap);
+                destinations[record] = destination.resolveVertex(record, vertexMap);
+                transactions[record] = resolveTransaction(record, sources[record], destinations[record], transactionMap);
+            } else if (hasSource) {
+                sources[record] = source.resolveVertex(record, vertexMap);
+            } else if (hasDestination) {
+                destinations[record] = destination.resolveVertex(record, vertexMap);
+            } else if (transactionIdKey != null && recordStore.hasValue(record, transactionIdKey)) {
+                // As for addRecordStoreToGraph, this only finds an existing transaction so that its values can be set.
+                transactions[record] = resolveTransaction(record, NO_ELEMENT, NO_ELEMENT, transactionMap);
+            }
+        }
+    }
+
+    private int resolveTransaction(final int record, final int sourceVertex, final int destinationVertex, final Map<String, Integer> transactionMap) {
+        final String id = transactionIdKey == null ? null : recordStore.get(record, transactionIdKey);
+        if (id != null && !id.isEmpty()) {
+            try {
+                final int transaction = Integer.parseInt(id);
+                if (graph.transactionExists(transaction)) {
+                    return transaction;
+                }
+            } catch (NumberFormatException ex) {
+            }
+
+            Integer transaction = transactionMap.get(id);
+            if (transaction == null) {
+                transaction = newTransactionIds.get(id);
+            }
+            if (transaction != null) {
+                return transaction;
+            }
+            if (sourceVertex == NO_ELEMENT || destinationVertex == NO_ELEMENT) {
+                return NO_ELEMENT;
+            }
+            newTransactionIds.put(id, -(newTransactionCount + 2));
+        }
+
+        newTransactionSources[newTransactionCount] = sourceVertex;
+        newTransactionDestinations[newTransactionCount] = destinationVertex;
+        newTransactionUndirected.set(newTransactionCount, !isDirected(record));
+        return -(newTransactionCount++ + 2);
+    }
+
+    private boolean isDirected(final int record) {
+        final String type = transactionTypeKey == null ? null : recordStore.get(record, transactionTypeKey);
+        return directedTypes.computeIfAbsent(type, t -> {
+            final SchemaTransactionType transactionType = SchemaTransactionTypeUtilities.getType(t);
+            return transactionType == null || transactionType.isDirected();
+        });
+    }
+
+    private List<Integer> addElements(final Map<String, Integer> vertexMap, final Map<String, Integer> transactionMap) {
+        if (graph instanceof StoreGraph) {
+            ((StoreGraph) graph).ensureCapacity(graph.getVertexCount() + newVertexCount, graph.getTransactionCount() + newTransactionCount);
+        }
+
+        final int[] vertices = new int[newVertexCount];
+        final List<Integer> newVertices = new ArrayList<>(newVertexCount);
+        for (int i = 0; i < newVertexCount; i++) {
+            final int vertex = graph.addVertex();
+            if (initializeWithSchema) {
+                graph.getSchema().newVertex(graph, vertex);
+            }
+            vertices[i] = vertex;
+            newVertices.add(vertex);
+        }
+        newVertexIds.forEach((id, vertex) -> vertexMap.put(id, vertices[-vertex - 2]));
+
+        final int[] newTransactions = new int[newTransactionCount];
+        for (int i = 0; i < newTransactionCount; i++) {
+            final int sourceVertex = toElement(newTransactionSources[i], vertices);
+            final int destinationVertex = toElement(newTransactionDestinations[i], vertices);
+            final int transaction = graph.addTransaction(sourceVertex, destinationVertex, !newTransactionUndirected.get(i));
+            if (initializeWithSchema) {
+                graph.getSchema().newTransaction(graph, transaction);
+            }
+            newTransactions[i] = transaction;
+        }
+        newTransactionIds.forEach((id, transaction) -> transactionMap.put(id, newTransactions[-transaction - 2]));
+
+        for (int record = 0; record < size; record++) {
+            sources[record] = toElement(sources[record], vertices);
+            destinations[record] = toElement(destinations[record], vertices);
+            transactions[record] = toElement(transactions[record], newTransactions);
+        }
+
+        return newVertices;
+    }
+
+    private static int toElement(final int resolved, final int[] newElements) {
+        return resolved < NO_ELEMENT ? newElements[-resolved - 2] : resolved;
+    }
+
+    /**
+     * Write columns of the record store to an attribute of the resolved
+     * elements, using the setter for the column type where possible.
+     *
+     * @param elementType the type of the elements.
+     * @param columns the columns holding values of the attribute, which may
+     * contain nulls.
+     * @param elements the resolved elements of each record for each column.
+     */
+    private void writeColumns(final GraphElementType elementType, final Column[] columns, final int[][] elements) {
+        final TypedRecordStore.ColumnType[] columnTypes = new TypedRecordStore.ColumnType[columns.length];
+        int attribute = NO_ELEMENT;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                columnTypes[i] = typedRecordStore == null ? TypedRecordStore.ColumnType.STRING : typedRecordStore.getColumnType(columns[i].key);
+                final String attributeType = columnTypes[i] == TypedRecordStore.ColumnType.STRING ? columns[i].type : columnTypes[i].getAttributeType();
+                if (attribute == NO_ELEMENT) {
+                    attribute = GraphRecordStoreUtilities.getOrAddAttribute(graph, elementType, columns[i].name, attributeType);
+                }
+                if (!attributeType.equals(graph.getAttributeType(attribute))) {
+                    columnTypes[i] = TypedRecordStore.ColumnType.STRING;
+                }
+            }
+        }
+
+        for (int record = 0; record < size; record++) {
+            for (int i = 0; i < columns.length; i++) {
+                final int element = elements[i][record];
+                if (columns[i] != null && element != NO_ELEMENT && recordStore.hasValue(record, columns[i].key)) {
+                    writeValue(attribute, element, record, columns[i].key, columnTypes[i]);
+                }
+            }
+        }
+    }
+
+    private void writeValue(final int attribute, final int element, final int record, final String key, final TypedRecordStore.ColumnType columnType) {
+        if (columnType == TypedRecordStore.ColumnType.STRING || typedRecordStore.isNull(record, key)) {
+            graph.setStringValue(attribute, element, recordStore.get(record, key));
+            return;
+        }
+
+        switch (columnType) {
+            case INTEGER:
+                graph.setIntValue(attribute, element, typedRecordStore.getInt(record, key));
+                break;
+            case LONG:
+                graph.setLongValue(attribute, element, typedRecordStore.getLong(record, key));
+                break;
+            case FLOAT:
+                graph.setFloatValue(attribute, element, typedRecordStore.getFloat(record, key));
+                break;
+            case DOUBLE:
+                graph.setDoubleValue(attribute, element, typedRecordStore.getDouble(record, key));
+                break;
+            case BOOLEAN:
+                graph.setBooleanValue(attribute, element, typedRecordStore.getBoolean(record, key));
+                break;
+            case DATETIME:
+                graph.setLongValue(attribute, element, typedRecordStore.getDateTime(record, key));
+                break;
+            default:
+                graph.setStringValue(attribute, element, typedRecordStore.get(record, key));
+                break;
+        }
+    }
+
+    /**
+     * A record store column and the attribute it is written to.
+     */
+    private static final class Column {
+
+        private final String key;
+        private final String name;
+        private final String type;
+
+        private Column(final String key, final String keyAttribute) {
+            this.key = key;
+            final int typeStart = keyAttribute.lastIndexOf('<');
+            if (keyAttribute.endsWith(">") && typeStart > 0) {
+                this.name = keyAttribute.substring(0, typeStart);
+                this.type = keyAttribute.substring(typeStart + 1, keyAttribute.length() - 1);
+            } else {
+                this.name = keyAttribute;
+                this.type = "string";
+            }
+        }
+    }
+
+    /**
+     * The columns describing the source or destination vertex of each record.
+     */
+    private final class Endpoint {
+
+        private final List<String> keys = new ArrayList<>();
+        private final List<Column> columns = new ArrayList<>();
+        private String idKey = null;
+
+        // The columns holding the values of the vertex primary key, or null if the key can't be matched.
+        private String[] primaryKeyColumns = null;
+
+        private void addKey(final String key, final String keyAttribute, final boolean isId) {
+            keys.add(key);
+            if (isId) {
+                idKey = key;
+            } else {
+                columns.add(new Column(key, keyAttribute));
+            }
+        }
+
+        private void prepareKey() {
+            final int[] primaryKey = graph.getPrimaryKey(GraphElementType.VERTEX);
+            if (primaryKey.length == 0) {
+                return;
+            }
+
+            final String[] keyColumns = new String[primaryKey.length];
+            for (int i = 0; i < primaryKey.length; i++) {
+                final String name = graph.getAttributeName(primaryKey[i]);
+                for (final Column column : columns) {
+                    if (column.name.equals(name)) {
+                        keyColumns[i] = column.key;
+                        break;
+                    }
+                }
+                if (keyColumns[i] == null) {
+                    return;
+                }
+            }
+            primaryKeyColumns = keyColumns;
+        }
+
+        private boolean hasValue(final int record) {
+            for (final String key : keys) {
+                if (recordStore.hasValue(record, key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int resolveVertex(final int record, final Map<String, Integer> vertexMap) {
+            final String id = idKey == null ? null : recordStore.get(record, idKey);
+            if (id != null && !id.isEmpty()) {
+                try {
+                    final int vertex = Integer.parseInt(id);
+                    if (graph.vertexExists(vertex)) {
+                        return vertex;
+                    }
+                } catch (NumberFormatException ex) {
+                }
+
+                Integer vertex = vertexMap.get(id);
+                if (vertex == null) {
+                    vertex = newVertexIds.computeIfAbsent(id, i -> -(newVertexCount++ + 2));
+                }
+                return vertex;
+            }
+
+            final List<String> primaryKeyValue = getPrimaryKeyValue(record);
+            if (primaryKeyValue != null) {
+                final Integer vertex = getVertexKeys().get(primaryKeyValue);
+                return vertex != null ? vertex : newVertexKeys.computeIfAbsent(primaryKeyValue, k -> -(newVertexCount++ + 2));
+            }
+
+            return -(newVertexCount++ + 2);
+        }
+
+        private List<String> getPrimaryKeyValue(final int record) {
+            if (primaryKeyColumns == null) {
+                return null;
+            }
+
+            final String[] values = new String[primaryKeyColumns.length];
+            for (int i = 0; i < values.length; i++) {
+                if (!recordStore.hasValue(record, primaryKeyColumns[i])) {
+                    return null;
+                }
+                values[i] = recordStore.get(record, primaryKeyColumns[i]);
+            }
+            return Arrays.asList(values);
+        }
+    }
+
+    /**
+     * The primary key values of the vertices already on the graph, built the
+     * first time a record needs to be matched on its key.
+     */
+    private Map<List<String>, Integer> getVertexKeys() {
+        if (vertexKeys == null) {
+            final int[] primaryKey = graph.getPrimaryKey(GraphElementType.VERTEX);
+            final int vertexCount = graph.getVertexCount();
+            vertexKeys = new HashMap<>(Math.max(16, (int) (vertexCount / 0.75F) + 1));
+            for (int position = 0; position < vertexCount; position++) {
+                final int vertex = graph.getVertex(position);
+                final String[] values = new String[primaryKey.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = graph.getStringValue(primaryKey[i], vertex);
+                }
+                vertexKeys.putIfAbsent(Arrays.asList(values), vertex);
+            }
+        }
+        return vertexKeys;
+    }
+}
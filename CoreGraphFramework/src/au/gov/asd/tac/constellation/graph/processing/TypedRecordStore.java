@@ -0,0 +1,1071 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.processing;
+
+import au.gov.asd.tac.constellation.graph.attribute.BooleanAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.FloatAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.LongAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.StringAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.ZonedDateTimeAttributeDescription;
+import au.gov.asd.tac.constellation.utilities.temporal.TimeZoneUtilities;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An implementation of {@link RecordStore} which stores each column as an
+ * array of its own type.
+ * <p>
+ * {@link TabularRecordStore} and {@link GraphRecordStore} store every value as
+ * a String, so numbers and datetimes are formatted when they are added and
+ * parsed again when they are added to a graph. A TypedRecordStore stores
+ * integer, long, float, double and boolean columns as primitive arrays,
+ * datetimes as epoch milliseconds in UTC, and strings as codes into a
+ * dictionary of distinct values, and provides typed methods to get and set
+ * them. {@link GraphRecordStoreUtilities#addRecordStoreToGraph} copies typed
+ * values straight to attributes of the matching type.
+ * <p>
+ * The type of a column is decided when the column is created: by the typed
+ * method used to set its first value, or by the type in the key (for example
+ * "source.Count&lt;integer&gt;") when its first value is set as a String.
+ * Values set as Strings are parsed to the type of the column, and values of
+ * other types are converted. Keys may be given with or without their type.
+ *
+ * @author agent
+ */
+public class TypedRecordStore implements RecordStore {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The types of column in a TypedRecordStore.
+     */
+    public enum ColumnType {
+        INTEGER(IntegerAttributeDescription.ATTRIBUTE_NAME),
+        LONG(LongAttributeDescription.ATTRIBUTE_NAME),
+        FLOAT(FloatAttributeDescription.ATTRIBUTE_NAME),
+        // There is no double attribute type, so doubles are added to graphs as floats.
+        DOUBLE(FloatAttributeDescription.ATTRIBUTE_NAME),
+        BOOLEAN(BooleanAttributeDescription.ATTRIBUTE_NAME),
+        DATETIME(ZonedDateTimeAttributeDescription.ATTRIBUTE_NAME),
+        STRING(StringAttributeDescription.ATTRIBUTE_NAME);
+
+        private final String attributeType;
+
+        private ColumnType(final String attributeType) {
+            this.attributeType = attributeType;
+        }
+
+        /**
+         * The type of attribute that values of this column type are added to.
+         *
+         * @return The name of an attribute type.
+         */
+        public String getAttributeType() {
+            return attributeType;
+        }
+
+        /**
+         * The column type that stores values of the given attribute type.
+         *
+         * @param attributeType The name of an attribute type.
+         *
+         * @return The column type that stores the attribute type's values, or
+         * STRING if there isn't one.
+         */
+        public static ColumnType forAttributeType(final String attributeType) {
+            for (final ColumnType type : values()) {
+                if (type != DOUBLE && type.attributeType.equals(attributeType)) {
+                    return type;
+                }
+            }
+            return STRING;
+        }
+    }
+
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private int size = 0;
+    private int capacity;
+    private int currentRecord = -1;
+
+    /**
+     * Construct a TypedRecordStore.
+     */
+    public TypedRecordStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Construct a TypedRecordStore with room for the given number of records.
+     *
+     * @param initialCapacity The number of records expected.
+     */
+    public TypedRecordStore(final int initialCapacity) {
+        capacity = Math.max(initialCapacity, 1);
+    }
+
+    /**
+     * Remove the type from a key, if it has one.
+     */
+    private static String getUntypedKey(final String key) {
+        if (key.endsWith(">")) {
+            final int typeStart = key.lastIndexOf('<');
+            if (typeStart > 0) {
+                return key.substring(0, typeStart);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * The column type named by a key, or STRING if the key has no type.
+     */
+    private static ColumnType getKeyType(final String key) {
+        if (key.endsWith(">")) {
+            final int typeStart = key.lastIndexOf('<');
+            if (typeStart > 0) {
+                return ColumnType.forAttributeType(key.substring(typeStart + 1, key.length() - 1));
+            }
+        }
+        return ColumnType.STRING;
+    }
+
+    private Column getColumn(final String key) {
+        return columns.get(getUntypedKey(key));
+    }
+
+    private Column getOrCreateColumn(final String key, final ColumnType type, final int record) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null.");
+        }
+        if (record < 0 || record >= size) {
+            throw new IllegalArgumentException("Invalid record: " + record);
+        }
+
+        final String untypedKey = getUntypedKey(key);
+        Column column = columns.get(untypedKey);
+        if (column == null) {
+            column = createColumn(type);
+            column.setCapacity(capacity);
+            columns.put(untypedKey, column);
+        }
+        return column;
+    }
+
+    private static Column createColumn(final ColumnType type) {
+        switch (type) {
+            case INTEGER:
+                return new IntColumn();
+            case LONG:
+                return new LongColumn(ColumnType.LONG);
+            case FLOAT:
+                return new FloatColumn();
+            case DOUBLE:
+                return new DoubleColumn();
+            case BOOLEAN:
+                return new BooleanColumn();
+            case DATETIME:
+                return new LongColumn(ColumnType.DATETIME);
+            default:
+                return new StringColumn();
+        }
+    }
+
+    /**
+     * Get the type of a column.
+     *
+     * @param key The key of the column, with or without its type.
+     *
+     * @return The type of the column, or null if there is no such column.
+     */
+    public ColumnType getColumnType(final String key) {
+        final Column column = getColumn(key);
+        return column == null ? null : column.type;
+    }
+
+    /**
+     * Create an empty column of the given type, if the column does not
+     * already exist.
+     *
+     * @param key The key of the column.
+     * @param type The type of the column.
+     */
+    public void addColumn(final String key, final ColumnType type) {
+        final String untypedKey = getUntypedKey(key);
+        if (!columns.containsKey(untypedKey)) {
+            final Column column = createColumn(type);
+            column.setCapacity(capacity);
+            columns.put(untypedKey, column);
+        }
+    }
+
+    /**
+     * Return the keys of this TypedRecordStore, including the attribute type
+     * of each column.
+     * <p>
+     * For example Source.Count&lt;integer&gt;
+     *
+     * @return The keys of this TypedRecordStore, including their types.
+     */
+    public List<String> keysWithType() {
+        final List<String> keys = new ArrayList<>(columns.size());
+        for (final Map.Entry<String, Column> e : columns.entrySet()) {
+            keys.add(e.getKey() + "<" + e.getValue().type.getAttributeType() + ">");
+        }
+        return keys;
+    }
+
+    /**
+     * Is the value of the specified record set to null?
+     *
+     * @param record The index of the record.
+     * @param key The key to lookup.
+     *
+     * @return True if the record has a value for the key and the value is
+     * null.
+     */
+    public boolean isNull(final int record, final String key) {
+        final Column column = getColumn(key);
+        return column != null && column.nulls.get(record);
+    }
+
+    @Override
+    public int add() {
+        currentRecord = size++;
+        if (size > capacity) {
+            capacity = Math.max(capacity << 1, size);
+            for (final Column column : columns.values()) {
+                column.setCapacity(capacity);
+            }
+        }
+        return currentRecord;
+    }
+
+    @Override
+    public void add(final RecordStore recordStore) {
+        if (recordStore instanceof TypedRecordStore) {
+            final TypedRecordStore typedRecordStore = (TypedRecordStore) recordStore;
+            for (final Map.Entry<String, Column> e : typedRecordStore.columns.entrySet()) {
+                addColumn(e.getKey(), e.getValue().type);
+            }
+            for (int record = 0; record < typedRecordStore.size(); record++) {
+                final int newRecord = add();
+                for (final Map.Entry<String, Column> e : typedRecordStore.columns.entrySet()) {
+                    final Column from = e.getValue();
+                    if (from.present.get(record)) {
+                        final Column to = columns.get(e.getKey());
+                        if (from.nulls.get(record)) {
+                            to.setNull(newRecord);
+                        } else if (from.type == to.type && from.type != ColumnType.STRING) {
+                            to.copy(from, record, newRecord);
+                        } else {
+                            to.setString(newRecord, from.getString(record));
+                        }
+                    }
+                }
+            }
+        } else {
+            final List<String> keys = recordStore instanceof GraphRecordStore ? ((GraphRecordStore) recordStore).keysWithType() : recordStore.keys();
+            for (int record = 0; record < recordStore.size(); record++) {
+                final int newRecord = add();
+                for (final String key : keys) {
+                    final String value = recordStore.get(record, key);
+                    if (value != null) {
+                        set(newRecord, key, value);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int index() {
+        return currentRecord;
+    }
+
+    @Override
+    public final boolean next() {
+        if (++currentRecord >= size) {
+            currentRecord = size;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        currentRecord = -1;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release.
+    }
+
+    @Override
+    public boolean hasValue(final String key) {
+        return hasValue(currentRecord, key);
+    }
+
+    @Override
+    public boolean hasValue(final int record, final String key) {
+        final Column column = getColumn(key);
+        return column != null && record >= 0 && column.present.get(record);
+    }
+
+    @Override
+    public String get(final String key) {
+        return get(currentRecord, key);
+    }
+
+    @Override
+    public String get(final int record, final String key) {
+        final Column column = getColumn(key);
+        if (column == null || record < 0 || !column.present.get(record) || column.nulls.get(record)) {
+            return null;
+        }
+        return column.getString(record);
+    }
+
+    @Override
+    public void set(final String key, final String value) {
+        set(currentRecord, key, value);
+    }
+
+    @Override
+    public void set(final int record, final String key, final String value) {
+        final Column column = getOrCreateColumn(key, getKeyType(key), record);
+        if (value == null) {
+            column.setNull(record);
+        } else {
+            column.setString(record, value);
+        }
+    }
+
+    /**
+     * Get an integer value from the current record.
+     *
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public int getInt(final String key) {
+        return getInt(currentRecord, key);
+    }
+
+    /**
+     * Get an integer value from the specified record.
+     *
+     * @param record The index of the record.
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public int getInt(final int record, final String key) {
+        return (int) getLong(record, key);
+    }
+
+    /**
+     * Set an integer value in the current record.
+     *
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setInt(final String key, final int value) {
+        setInt(currentRecord, key, value);
+    }
+
+    /**
+     * Set an integer value in the specified record. If the column does not
+     * exist, it is created as an integer column.
+     *
+     * @param record The index of the record.
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setInt(final int record, final String key, final int value) {
+        getOrCreateColumn(key, ColumnType.INTEGER, record).setLong(record, value);
+    }
+
+    /**
+     * Get a long value from the current record.
+     *
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public long getLong(final String key) {
+        return getLong(currentRecord, key);
+    }
+
+    /**
+     * Get a long value from the specified record.
+     *
+     * @param record The index of the record.
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public long getLong(final int record, final String key) {
+        final Column column = getColumn(key);
+        return column == null || !hasNonNullValue(column, record) ? 0 : column.getLong(record);
+    }
+
+    /**
+     * Set a long value in the current record.
+     *
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setLong(final String key, final long value) {
+        setLong(currentRecord, key, value);
+    }
+
+    /**
+     * Set a long value in the specified record. If the column does not exist,
+     * it is created as a long column.
+     *
+     * @param record The index of the record.
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setLong(final int record, final String key, final long value) {
+        getOrCreateColumn(key, ColumnType.LONG, record).setLong(record, value);
+    }
+
+    /**
+     * Get a float value from the current record.
+     *
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public float getFloat(final String key) {
+        return getFloat(currentRecord, key);
+    }
+
+    /**
+     * Get a float value from the specified record.
+     *
+     * @param record The index of the record.
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public float getFloat(final int record, final String key) {
+        return (float) getDouble(record, key);
+    }
+
+    /**
+     * Set a float value in the current record.
+     *
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setFloat(final String key, final float value) {
+        setFloat(currentRecord, key, value);
+    }
+
+    /**
+     * Set a float value in the specified record. If the column does not exist,
+     * it is created as a float column.
+     *
+     * @param record The index of the record.
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setFloat(final int record, final String key, final float value) {
+        getOrCreateColumn(key, ColumnType.FLOAT, record).setDouble(record, value);
+    }
+
+    /**
+     * Get a double value from the current record.
+     *
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public double getDouble(final String key) {
+        return getDouble(currentRecord, key);
+    }
+
+    /**
+     * Get a double value from the specified record.
+     *
+     * @param record The index of the record.
+     * @param key The key to lookup.
+     *
+     * @return The value, or 0 if the record has no value for the key.
+     */
+    public double getDouble(final int record, final String key) {
+        final Column column = getColumn(key);
+        return column == null || !hasNonNullValue(column, record) ? 0 : column.getDouble(record);
+    }
+
+    /**
+     * Set a double value in the current record.
+     *
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setDouble(final String key, final double value) {
+        setDouble(currentRecord, key, value);
+    }
+
+    /**
+     * Set a double value in the specified record. If the column does not
+     * exist, it is created as a double column.
+     *
+     * @param record The index of the record.
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setDouble(final int record, final String key, final double value) {
+        getOrCreateColumn(key, ColumnType.DOUBLE, record).setDouble(record, value);
+    }
+
+    /**
+     * Get a boolean value from the current record.
+     *
+     * @param key The key to lookup.
+     *
+     * @return The value, or false if the record has no value for the key.
+     */
+    public boolean getBoolean(final String key) {
+        return getBoolean(currentRecord, key);
+    }
+
+    /**
+     * Get a boolean value from the specified record.
+     *
+     * @param record The index of the record.
+     * @param key The key to lookup.
+     *
+     * @return The value, or false if the record has no value for the key.
+     */
+    public boolean getBoolean(final int record, final String key) {
+        final Column column = getColumn(key);
+        if (column == null || !hasNonNullValue(column, record)) {
+            return false;
+        }
+        return column.type == ColumnType.STRING ? Boolean.parseBoolean(column.getString(record)) : column.getLong(record) != 0;
+    }
+
+    /**
+     * Set a boolean value in the current record.
+     *
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setBoolean(final String key, final boolean value) {
+        setBoolean(currentRecord, key, value);
+    }
+
+    /**
+     * Set a boolean value in the specified record. If the column does not
+     * exist, it is created as a boolean column.
+     *
+     * @param record The index of the record.
+     * @param key The key whose value is being set.
+     * @param value The value to set.
+     */
+    public void setBoolean(final int record, final String key, final boolean value) {
+        getOrCreateColumn(key, ColumnType.BOOLEAN, record).setLong(record, value ? 1 : 0);
+    }
+
+    /**
+     * Get a datetime value from the current record.
+     *
+     * @param key The key to lookup.
+     *
+     * @return The value in milliseconds since the epoch, or 0 if the record
+     * has no value for the key.
+     */
+    public long getDateTime(final String key) {
+        return getDateTime(currentRecord, key);
+    }
+
+    /**
+     * Get a datetime value from the specified record.
+     *
+     * @param record The index of the record.
+     * @param key The key to lookup.
+     *
+     * @return The value in milliseconds since the epoch, or 0 if the record
+     * has no value for the key.
+     */
+    public long getDateTime(final int record, final String key) {
+        return getLong(record, key);
+    }
+
+    /**
+     * Set a datetime value in the current record.
+     *
+     * @param key The key whose value is being set.
+     * @param epochMillis The value to set, in milliseconds since the epoch.
+     */
+    public void setDateTime(final String key, final long epochMillis) {
+        setDateTime(currentRecord, key, epochMillis);
+    }
+
+    /**
+     * Set a datetime value in the specified record. If the column does not
+     * exist, it is created as a datetime column.
+     * <p>
+     * Datetimes are stored in UTC.
+     *
+     * @param record The index of the record.
+     * @param key The key whose value is being set.
+     * @param epochMillis The value to set, in milliseconds since the epoch.
+     */
+    public void setDateTime(final int record, final String key, final long epochMillis) {
+        getOrCreateColumn(key, ColumnType.DATETIME, record).setLong(record, epochMillis);
+    }
+
+    private static boolean hasNonNullValue(final Column column, final int record) {
+        return record >= 0 && column.present.get(record) && !column.nulls.get(record);
+    }
+
+    @Override
+    public List<String> values() {
+        return values(currentRecord);
+    }
+
+    @Override
+    public List<String> values(final int record) {
+        final List<String> values = new ArrayList<>(columns.size());
+        for (final String key : columns.keySet()) {
+            values.add(get(record, key));
+        }
+        return values;
+    }
+
+    @Override
+    public List<String> keys() {
+        return new ArrayList<>(columns.keySet());
+    }
+
+    @Override
+    public List<String> getAll(final String key) {
+        final List<String> result = new ArrayList<>(size);
+        for (int record = 0; record < size; record++) {
+            result.add(get(record, key));
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "Typed Record Store with " + size + " rows and " + columns.size() + " columns.";
+    }
+
+    @Override
+    public String toStringVerbose() {
+        final StringBuilder out = new StringBuilder();
+        final List<String> keys = keysWithType();
+        for (int record = 0; record < size; record++) {
+            boolean first = true;
+            for (final String key : keys) {
+                if (hasValue(record, key)) {
+                    if (!first) {
+                        out.append(", ");
+                    } else {
+                        first = false;
+                    }
+                    out.append(key);
+                    out.append(" = ");
+                    out.append(get(record, key));
+                }
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * The values of a column.
+     * <p>
+     * Each column records which records have a value, and which of those
+     * values are null, separately from the values themselves.
+     */
+    private abstract static class Column {
+
+        final ColumnType type;
+        final BitSet present = new BitSet();
+        final BitSet nulls = new BitSet();
+
+        Column(final ColumnType type) {
+            this.type = type;
+        }
+
+        void setNull(final int record) {
+            present.set(record);
+            nulls.set(record);
+        }
+
+        void setLong(final int record, final long value) {
+            present.set(record);
+            nulls.clear(record);
+            putLong(record, value);
+        }
+
+        void setDouble(final int record, final double value) {
+            present.set(record);
+            nulls.clear(record);
+            putDouble(record, value);
+        }
+
+        void setString(final int record, final String value) {
+            present.set(record);
+            nulls.clear(record);
+            putString(record, value);
+        }
+
+        abstract void setCapacity(int capacity);
+
+        abstract void putLong(int record, long value);
+
+        abstract void putDouble(int record, double value);
+
+        abstract void putString(int record, String value);
+
+        abstract long getLong(int record);
+
+        abstract double getDouble(int record);
+
+        abstract String getString(int record);
+
+        /**
+         * Copy a value from a column of the same type.
+         */
+        void copy(final Column from, final int fromRecord, final int toRecord) {
+            setLong(toRecord, from.getLong(fromRecord));
+        }
+    }
+
+    private static final class IntColumn extends Column {
+
+        private int[] values = new int[0];
+
+        IntColumn() {
+            super(ColumnType.INTEGER);
+        }
+
+        @Override
+        void setCapacity(final int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void putLong(final int record, final long value) {
+            values[record] = (int) value;
+        }
+
+        @Override
+        void putDouble(final int record, final double value) {
+            values[record] = (int) value;
+        }
+
+        @Override
+        void putString(final int record, final String value) {
+            values[record] = Integer.parseInt(value);
+        }
+
+        @Override
+        long getLong(final int record) {
+            return values[record];
+        }
+
+        @Override
+        double getDouble(final int record) {
+            return values[record];
+        }
+
+        @Override
+        String getString(final int record) {
+            return String.valueOf(values[record]);
+        }
+    }
+
+    /**
+     * A column of longs, which also stores datetimes as milliseconds since the
+     * epoch.
+     */
+    private static final class LongColumn extends Column {
+
+        private long[] values = new long[0];
+
+        LongColumn(final ColumnType type) {
+            super(type);
+        }
+
+        @Override
+        void setCapacity(final int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void putLong(final int record, final long value) {
+            values[record] = value;
+        }
+
+        @Override
+        void putDouble(final int record, final double value) {
+            values[record] = (long) value;
+        }
+
+        @Override
+        void putString(final int record, final String value) {
+            if (type == ColumnType.DATETIME) {
+                final ZonedDateTime datetime = ZonedDateTimeAttributeDescription.parseString(value);
+                if (datetime == null) {
+                    throw new IllegalArgumentException("Not a valid datetime: " + value);
+                }
+                values[record] = datetime.toInstant().toEpochMilli();
+            } else {
+                values[record] = Long.parseLong(value);
+            }
+        }
+
+        @Override
+        long getLong(final int record) {
+            return values[record];
+        }
+
+        @Override
+        double getDouble(final int record) {
+            return values[record];
+        }
+
+        @Override
+        String getString(final int record) {
+            if (type == ColumnType.DATETIME) {
+                return ZonedDateTimeAttributeDescription.getAsString(ZonedDateTime.ofInstant(Instant.ofEpochMilli(values[record]), TimeZoneUtilities.UTC));
+            }
+            return String.valueOf(values[record]);
+        }
+    }
+
+    private static final class FloatColumn extends Column {
+
+        private float[] values = new float[0];
+
+        FloatColumn() {
+            super(ColumnType.FLOAT);
+        }
+
+        @Override
+        void setCapacity(final int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void putLong(final int record, final long value) {
+            values[record] = value;
+        }
+
+        @Override
+        void putDouble(final int record, final double value) {
+            values[record] = (float) value;
+        }
+
+        @Override
+        void putString(final int record, final String value) {
+            values[record] = Float.parseFloat(value);
+        }
+
+        @Override
+        long getLong(final int record) {
+            return (long) values[record];
+        }
+
+        @Override
+        double getDouble(final int record) {
+            return values[record];
+        }
+
+        @Override
+        String getString(final int record) {
+            return String.valueOf(values[record]);
+        }
+
+        @Override
+        void copy(final Column from, final int fromRecord, final int toRecord) {
+            setDouble(toRecord, from.getDouble(fromRecord));
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+
+        private double[] values = new double[0];
+
+        DoubleColumn() {
+            super(ColumnType.DOUBLE);
+        }
+
+        @Override
+        void setCapacity(final int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void putLong(final int record, final long value) {
+            values[record] = value;
+        }
+
+        @Override
+        void putDouble(final int record, final double value) {
+            values[record] = value;
+        }
+
+        @Override
+        void putString(final int record, final String value) {
+            values[record] = Double.parseDouble(value);
+        }
+
+        @Override
+        long getLong(final int record) {
+            return (long) values[record];
+        }
+
+        @Override
+        double getDouble(final int record) {
+            return values[record];
+        }
+
+        @Override
+        String getString(final int record) {
+            return String.valueOf(values[record]);
+        }
+
+        @Override
+        void copy(final Column from, final int fromRecord, final int toRecord) {
+            setDouble(toRecord, from.getDouble(fromRecord));
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+
+        private final BitSet values = new BitSet();
+
+        BooleanColumn() {
+            super(ColumnType.BOOLEAN);
+        }
+
+        @Override
+        void setCapacity(final int capacity) {
+            // A BitSet grows as required.
+        }
+
+        @Override
+        void putLong(final int record, final long value) {
+            values.set(record, value != 0);
+        }
+
+        @Override
+        void putDouble(final int record, final double value) {
+            values.set(record, value != 0);
+        }
+
+        @Override
+        void putString(final int record, final String value) {
+            values.set(record, Boolean.parseBoolean(value));
+        }
+
+        @Override
+        long getLong(final int record) {
+            return values.get(record) ? 1 : 0;
+        }
+
+        @Override
+        double getDouble(final int record) {
+            return values.get(record) ? 1 : 0;
+        }
+
+        @Override
+        String getString(final int record) {
+            return String.valueOf(values.get(record));
+        }
+    }
+
+    /**
+     * A dictionary encoded column of Strings: each distinct value is stored
+     * once, and each record stores the index of its value.
+     */
+    private static final class StringColumn extends Column {
+
+        private int[] codes = new int[0];
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+        StringColumn() {
+            super(ColumnType.STRING);
+        }
+
+        @Override
+        void setCapacity(final int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        @Override
+        void putLong(final int record, final long value) {
+            putString(record, String.valueOf(value));
+        }
+
+        @Override
+        void putDouble(final int record, final double value) {
+            putString(record, String.valueOf(value));
+        }
+
+        @Override
+        void putString(final int record, final String value) {
+            Integer code = dictionaryCodes.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryCodes.put(value, code);
+            }
+            codes[record] = code;
+        }
+
+        @Override
+        long getLong(final int record) {
+            return Long.parseLong(getString(record));
+        }
+
+        @Override
+        double getDouble(final int record) {
+            return Double.parseDouble(getString(record));
+        }
+
+        @Override
+        String getString(final int record) {
+            return dictionary.get(codes[record]);
+        }
+    }
+}
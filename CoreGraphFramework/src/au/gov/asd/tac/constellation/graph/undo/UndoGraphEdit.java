@@ -19,9 +19,17 @@ import au.gov.asd.tac.constellation.graph.GraphElementType;
 import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphOperation;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  *
@@ -33,6 +41,13 @@ public class UndoGraphEdit implements GraphEdit {
 
     private final UndoGraphEditState state;
 
+    // the compressed file holding the stacks of this edit while they are spilled from the heap
+    private File spillFile = null;
+    // true while the stacks of this edit are being written, so that they are only written once
+    private boolean spilling = false;
+    // true once the edit has been discarded, so that it is never spilled again
+    private boolean discarded = false;
+
     public UndoGraphEdit() {
         state = new UndoGraphEditState();
     }
@@ -53,15 +68,115 @@ public class UndoGraphEdit implements GraphEdit {
     }
 
     @Override
-    public void execute(GraphWriteMethods graph) {
+    public synchronized void execute(GraphWriteMethods graph) {
+        restore();
         state.execute(graph);
     }
 
     @Override
-    public void undo(GraphWriteMethods graph) {
+    public synchronized void undo(GraphWriteMethods graph) {
+        restore();
         state.undo(graph);
     }
 
+    UndoGraphEditState getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of bytes this finished edit holds on the heap that
+     * would be released by {@link #spill}.
+     *
+     * @return the number of bytes that can be spilled.
+     */
+    public synchronized long getStackSize() {
+        return state.getStackSize();
+    }
+
+    /**
+     * Is this edit currently spilled to disk?
+     *
+     * @return true if this edit is spilled to disk.
+     */
+    public synchronized boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Moves the stacks of this finished edit, and those of its children, from
+     * the heap to a compressed file in the undo spill directory. They are read
+     * back automatically the next time this edit is executed or undone.
+     * Writing the file takes time, so this should not be called while the
+     * graph is locked. The file is written without holding this edit's
+     * monitor, so the edit can be executed or undone while it is being
+     * spilled; the stacks of a finished edit never change, so the file
+     * remains valid.
+     *
+     * @throws IOException if the file could not be written, in which case
+     * the edit remains on the heap.
+     */
+    public void spill() throws IOException {
+        synchronized (this) {
+            if (spillFile != null || spilling || discarded) {
+                return;
+            }
+            spilling = true;
+        }
+
+        File file = null;
+        try {
+            file = UndoSpillDirectory.createFile();
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new FileOutputStream(file))))) {
+                state.writeSpill(out);
+            }
+        } catch (final IOException ex) {
+            if (file != null) {
+                UndoSpillDirectory.deleteFile(file);
+            }
+            synchronized (this) {
+                spilling = false;
+            }
+            throw ex;
+        }
+
+        synchronized (this) {
+            spilling = false;
+            if (discarded) {
+                UndoSpillDirectory.deleteFile(file);
+                return;
+            }
+            state.releaseStacks();
+            spillFile = file;
+        }
+    }
+
+    /**
+     * Discards the file of this edit if it has been spilled, and stops it
+     * being spilled again. The edit can no longer be executed or undone after
+     * this.
+     */
+    public synchronized void discard() {
+        discarded = true;
+        if (spillFile != null) {
+            UndoSpillDirectory.deleteFile(spillFile);
+            spillFile = null;
+        }
+    }
+
+    private void restore() {
+        if (spillFile == null) {
+            return;
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(new FileInputStream(spillFile))))) {
+            state.restore(in);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Unable to read spilled undo history from " + spillFile, ex);
+        }
+        UndoSpillDirectory.deleteFile(spillFile);
+        spillFile = null;
+    }
+
     @Override
     public void setPrimaryKey(GraphElementType elementType, int[] oldKeys, int[] newKeys) {
         if (VERBOSE) {
@@ -82,40 +82,15 @@ public class UndoGraphEditState {
     private short currentOperation = 0xFF;
     private int extraOperationsCount = 0;
 
+    // true when the primitive stacks have been spilled and released from the heap
+    private boolean spilled = false;
+
     public UndoGraphEditState() {
     }
 
     public UndoGraphEditState(DataInputStream in) throws Exception {
 
-        operationCount = in.readInt();
-        operationStack = new short[operationCount];
-        for (int i = 0; i < operationCount; i++) {
-            operationStack[i] = in.readShort();
-        }
-
-        byteCount = in.readInt();
-        byteStack = new byte[byteCount];
-        for (int i = 0; i < byteCount; i++) {
-            byteStack[i] = in.readByte();
-        }
-
-        shortCount = in.readInt();
-        shortStack = new short[shortCount];
-        for (int i = 0; i < shortCount; i++) {
-            shortStack[i] = in.readShort();
-        }
-
-        intCount = in.readInt();
-        intStack = new int[intCount];
-        for (int i = 0; i < intCount; i++) {
-            intStack[i] = in.readInt();
-        }
-
-        longCount = in.readInt();
-        longStack = new long[longCount];
-        for (int i = 0; i < longCount; i++) {
-            longStack[i] = in.readLong();
-        }
+        readStacks(in);
 
         Map<Integer, Class<?>> classMap = new HashMap<>();
         objectMap.put(0, null);
@@ -463,10 +438,114 @@ public class UndoGraphEditState {
         }
     }
 
-    private static final Charset UTF8 = StandardCharsets.UTF_8;
+    /**
+     * Returns the number of bytes held on the heap by the primitive stacks of
+     * this state and those of its child edits. This is the memory that is
+     * released by {@link #releaseStacks}.
+     *
+     * @return the number of bytes held by the primitive stacks.
+     */
+    long getStackSize() {
+        long size = 0;
+        if (!spilled) {
+            size += (long) operationStack.length * Short.BYTES + byteStack.length
+                    + (long) shortStack.length * Short.BYTES + (long) intStack.length * Integer.BYTES
+                    + (long) longStack.length * Long.BYTES;
+        }
+        for (final Object object : objectStack) {
+            if (object instanceof UndoGraphEdit) {
+                size += ((UndoGraphEdit) object).getState().getStackSize();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Reads back the primitive stacks of this state and its child edits,
+     * previously written by {@link #writeSpill}.
+     *
+     * @param in the stream to read the stacks from.
+     * @throws IOException if the stacks could not be read.
+     */
+    void restore(DataInputStream in) throws IOException {
+        readStacks(in);
+        spilled = false;
+        for (final Object object : objectStack) {
+            if (object instanceof UndoGraphEdit) {
+                ((UndoGraphEdit) object).getState().restore(in);
+            }
+        }
+    }
 
-    public void write(DataOutputStream out) throws IOException {
+    /**
+     * Writes the primitive stacks of this state and its child edits to the
+     * specified stream so that they can later be released from the heap.
+     *
+     * @param out the stream to write the stacks to.
+     * @throws IOException if the stacks could not be written.
+     */
+    void writeSpill(DataOutputStream out) throws IOException {
+        writeStacks(out);
+        for (final Object object : objectStack) {
+            if (object instanceof UndoGraphEdit) {
+                ((UndoGraphEdit) object).getState().writeSpill(out);
+            }
+        }
+    }
 
+    /**
+     * Releases the primitive stacks of this state and its child edits from
+     * the heap once they have been written by {@link #writeSpill}. They must
+     * be read back with {@link #restore} before the state is executed or
+     * undone again.
+     */
+    void releaseStacks() {
+        operationStack = null;
+        byteStack = null;
+        shortStack = null;
+        intStack = null;
+        longStack = null;
+        spilled = true;
+        for (final Object object : objectStack) {
+            if (object instanceof UndoGraphEdit) {
+                ((UndoGraphEdit) object).getState().releaseStacks();
+            }
+        }
+    }
+
+    private void readStacks(DataInputStream in) throws IOException {
+        operationCount = in.readInt();
+        operationStack = new short[operationCount];
+        for (int i = 0; i < operationCount; i++) {
+            operationStack[i] = in.readShort();
+        }
+
+        byteCount = in.readInt();
+        byteStack = new byte[byteCount];
+        for (int i = 0; i < byteCount; i++) {
+            byteStack[i] = in.readByte();
+        }
+
+        shortCount = in.readInt();
+        shortStack = new short[shortCount];
+        for (int i = 0; i < shortCount; i++) {
+            shortStack[i] = in.readShort();
+        }
+
+        intCount = in.readInt();
+        intStack = new int[intCount];
+        for (int i = 0; i < intCount; i++) {
+            intStack[i] = in.readInt();
+        }
+
+        longCount = in.readInt();
+        longStack = new long[longCount];
+        for (int i = 0; i < longCount; i++) {
+            longStack[i] = in.readLong();
+        }
+    }
+
+    private void writeStacks(DataOutputStream out) throws IOException {
         out.writeInt(operationCount);
         for (int i = 0; i < operationCount; i++) {
             out.writeShort(operationStack[i]);
@@ -491,6 +570,13 @@ public class UndoGraphEditState {
         for (int i = 0; i < longCount; i++) {
             out.writeLong(longStack[i]);
         }
+    }
+
+    private static final Charset UTF8 = StandardCharsets.UTF_8;
+
+    public void write(DataOutputStream out) throws IOException {
+
+        writeStacks(out);
 
         final Map<Class<?>, Integer> classMap = new HashMap<>();
         classMap.put(null, 0);
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.undo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The temporary directory holding the files of spilled {@link UndoGraphEdit}s.
+ * <p>
+ * Each spilled edit deletes its own file when it is read back or discarded.
+ * The directory, and any files still in it, are deleted when the application
+ * exits.
+ *
+ * @author agent
+ */
+final class UndoSpillDirectory {
+
+    private static final Logger LOGGER = Logger.getLogger(UndoSpillDirectory.class.getName());
+
+    private static File directory = null;
+    private static boolean cleanupRegistered = false;
+
+    private UndoSpillDirectory() {
+    }
+
+    /**
+     * Creates a new empty file in the spill directory, creating the directory
+     * if necessary.
+     *
+     * @return the new file.
+     * @throws IOException if the file could not be created.
+     */
+    static synchronized File createFile() throws IOException {
+        if (directory == null || !directory.isDirectory()) {
+            directory = Files.createTempDirectory("constellation-undo").toFile();
+            if (!cleanupRegistered) {
+                Runtime.getRuntime().addShutdownHook(new Thread(UndoSpillDirectory::delete, "Undo History Cleanup"));
+                cleanupRegistered = true;
+            }
+        }
+
+        return File.createTempFile("undo", ".edit", directory);
+    }
+
+    /**
+     * Deletes a spilled file.
+     *
+     * @param file the file to delete.
+     */
+    static void deleteFile(final File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (final IOException ex) {
+            LOGGER.log(Level.WARNING, "Unable to delete spilled undo history " + file, ex);
+        }
+    }
+
+    /**
+     * Deletes the spill directory and everything in it.
+     */
+    static synchronized void delete() {
+        if (directory == null) {
+            return;
+        }
+
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                deleteFile(file);
+            }
+        }
+        deleteFile(directory);
+        directory = null;
+    }
+}
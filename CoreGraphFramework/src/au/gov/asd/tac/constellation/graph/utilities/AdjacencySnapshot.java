@@ -0,0 +1,382 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.utilities;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphConstants;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable snapshot of the adjacency of a graph in compressed sparse row
+ * form.
+ * <p>
+ * Vertices are referred to by their position in the graph at the time the
+ * snapshot was taken. The neighbours of the vertex at position {@code p} are
+ * held in {@code getNeighbours()[getOffsets()[p]]} up to
+ * {@code getNeighbours()[getOffsets()[p + 1] - 1]}, sorted by position, with
+ * an optional weight for each entry held at the same index of
+ * {@code getWeights()}. Loops are never included.
+ * <p>
+ * A snapshot is built once, in parallel, from a {@link GraphReadMethods} and
+ * can then be traversed without any further calls to the graph, which makes
+ * it suitable for iterative algorithms such as the centralities that multiply
+ * a vector by the adjacency matrix many times.
+ *
+ * @author agent
+ */
+public class AdjacencySnapshot {
+
+    /**
+     * Which transactions of a vertex contribute to its neighbours.
+     */
+    public enum Direction {
+        /**
+         * Transactions leaving the vertex, so neighbours are destinations.
+         */
+        OUTGOING,
+        /**
+         * Transactions arriving at the vertex, so neighbours are sources.
+         */
+        INCOMING,
+        /**
+         * All transactions of the vertex regardless of direction.
+         */
+        ANY,
+        /**
+         * No directed transactions, so neighbours are only reached through
+         * undirected transactions when they are included.
+         */
+        NONE
+    }
+
+    private final int[] vertices;
+    private final int[] offsets;
+    private final int[] neighbours;
+    private final float[] weights;
+
+    /**
+     * Create a snapshot from arrays in compressed sparse row form. The arrays
+     * are not copied.
+     *
+     * @param vertices the vertex id at each position.
+     * @param offsets the offset of the first neighbour of each position, with
+     * the number of entries as the last element.
+     * @param neighbours the neighbour positions of each position.
+     * @param weights the weight of each entry, or null if every entry has a
+     * weight of 1.
+     */
+    public AdjacencySnapshot(final int[] vertices, final int[] offsets, final int[] neighbours, final float[] weights) {
+        this.vertices = vertices;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.weights = weights;
+    }
+
+    /**
+     * Take an unweighted snapshot of the adjacency of a graph.
+     *
+     * @param graph the graph.
+     * @param direction which transactions of a vertex lead to its neighbours.
+     * @param includeUndirected whether undirected transactions lead to a
+     * neighbour when the direction is {@link Direction#OUTGOING} or
+     * {@link Direction#INCOMING}.
+     * @param distinct if true, each neighbour appears once for a vertex;
+     * otherwise each transaction is an entry of its own.
+     * @return the adjacency snapshot.
+     */
+    public static AdjacencySnapshot create(final GraphReadMethods graph, final Direction direction, final boolean includeUndirected, final boolean distinct) {
+        return create(graph, direction, includeUndirected, distinct, Graph.NOT_FOUND);
+    }
+
+    /**
+     * Take a snapshot of the adjacency of a graph.
+     *
+     * @param graph the graph.
+     * @param direction which transactions of a vertex lead to its neighbours.
+     * @param includeUndirected whether undirected transactions lead to a
+     * neighbour when the direction is {@link Direction#OUTGOING} or
+     * {@link Direction#INCOMING}.
+     * @param distinct if true, each neighbour appears once for a vertex and its
+     * weight is the sum of the weights of the transactions leading to it;
+     * otherwise each transaction is an entry of its own.
+     * @param weightAttribute a transaction attribute holding the weight of each
+     * transaction, or {@link Graph#NOT_FOUND} to weight each transaction as 1.
+     * @return the adjacency snapshot.
+     */
+    public static AdjacencySnapshot create(final GraphReadMethods graph, final Direction direction, final boolean includeUndirected, final boolean distinct, final int weightAttribute) {
+        final int vertexCount = graph.getVertexCount();
+        final int[] vertices = new int[vertexCount];
+        for (int position = 0; position < vertexCount; position++) {
+            vertices[position] = graph.getVertex(position);
+        }
+
+        // Count the entries of each vertex so that every row can then be filled independently.
+        final int[] offsets = new int[vertexCount + 1];
+        IntStream.range(0, vertexCount).parallel().forEach(position -> offsets[position + 1] = distinct
+                ? countLinks(graph, vertices[position], direction, includeUndirected)
+                : countTransactions(graph, vertices[position], direction, includeUndirected));
+        for (int position = 0; position < vertexCount; position++) {
+            offsets[position + 1] += offsets[position];
+        }
+
+        final int[] neighbours = new int[offsets[vertexCount]];
+        final float[] weights = weightAttribute != Graph.NOT_FOUND ? new float[neighbours.length] : null;
+        IntStream.range(0, vertexCount).parallel().forEach(position -> {
+            if (distinct) {
+                fillLinks(graph, vertices[position], direction, includeUndirected, weightAttribute, offsets[position], neighbours, weights);
+            } else {
+                fillTransactions(graph, vertices[position], direction, includeUndirected, weightAttribute, offsets[position], neighbours, weights);
+            }
+            sortRow(offsets[position], offsets[position + 1], neighbours, weights);
+        });
+
+        return new AdjacencySnapshot(vertices, offsets, neighbours, weights);
+    }
+
+    /**
+     * Count the transactions of each vertex of a graph that lead to a
+     * neighbour, for instance to find the out degree of each vertex in a
+     * graph with multiple transactions between vertices. Loops are not
+     * counted.
+     *
+     * @param graph the graph.
+     * @param direction which transactions of a vertex to count.
+     * @param includeUndirected whether undirected transactions are counted when
+     * the direction is {@link Direction#OUTGOING} or
+     * {@link Direction#INCOMING}.
+     * @return the number of transactions of the vertex at each position.
+     */
+    public static int[] countTransactions(final GraphReadMethods graph, final Direction direction, final boolean includeUndirected) {
+        final int[] counts = new int[graph.getVertexCount()];
+        IntStream.range(0, counts.length).parallel().forEach(position -> counts[position] = countTransactions(graph, graph.getVertex(position), direction, includeUndirected));
+        return counts;
+    }
+
+    private static boolean isAdjacent(final GraphReadMethods graph, final int transaction, final int vertex, final Direction direction, final boolean includeUndirected) {
+        if (graph.getTransactionDirection(transaction) == GraphConstants.FLAT) {
+            return includeUndirected || direction == Direction.ANY;
+        }
+        switch (direction) {
+            case OUTGOING:
+                return graph.getTransactionSourceVertex(transaction) == vertex;
+            case INCOMING:
+                return graph.getTransactionDestinationVertex(transaction) == vertex;
+            case NONE:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static int countTransactions(final GraphReadMethods graph, final int vertex, final Direction direction, final boolean includeUndirected) {
+        int count = 0;
+        final int transactionCount = graph.getVertexTransactionCount(vertex);
+        for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
+            final int transaction = graph.getVertexTransaction(vertex, transactionPosition);
+            if (graph.getTransactionSourceVertex(transaction) != graph.getTransactionDestinationVertex(transaction)
+                    && isAdjacent(graph, transaction, vertex, direction, includeUndirected)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void fillTransactions(final GraphReadMethods graph, final int vertex, final Direction direction, final boolean includeUndirected, final int weightAttribute, int entry, final int[] neighbours, final float[] weights) {
+        final int transactionCount = graph.getVertexTransactionCount(vertex);
+        for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
+            final int transaction = graph.getVertexTransaction(vertex, transactionPosition);
+            final int source = graph.getTransactionSourceVertex(transaction);
+            final int destination = graph.getTransactionDestinationVertex(transaction);
+            if (source != destination && isAdjacent(graph, transaction, vertex, direction, includeUndirected)) {
+                neighbours[entry] = graph.getVertexPosition(source == vertex ? destination : source);
+                if (weights != null) {
+                    weights[entry] = graph.getFloatValue(weightAttribute, transaction);
+                }
+                entry++;
+            }
+        }
+    }
+
+    private static int countLinks(final GraphReadMethods graph, final int vertex, final Direction direction, final boolean includeUndirected) {
+        int count = 0;
+        final int linkCount = graph.getVertexLinkCount(vertex);
+        for (int linkPosition = 0; linkPosition < linkCount; linkPosition++) {
+            final int link = graph.getVertexLink(vertex, linkPosition);
+            if (graph.getLinkLowVertex(link) != graph.getLinkHighVertex(link)) {
+                final int transactionCount = graph.getLinkTransactionCount(link);
+                for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
+                    if (isAdjacent(graph, graph.getLinkTransaction(link, transactionPosition), vertex, direction, includeUndirected)) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void fillLinks(final GraphReadMethods graph, final int vertex, final Direction direction, final boolean includeUndirected, final int weightAttribute, int entry, final int[] neighbours, final float[] weights) {
+        final int linkCount = graph.getVertexLinkCount(vertex);
+        for (int linkPosition = 0; linkPosition < linkCount; linkPosition++) {
+            final int link = graph.getVertexLink(vertex, linkPosition);
+            final int low = graph.getLinkLowVertex(link);
+            final int high = graph.getLinkHighVertex(link);
+            if (low == high) {
+                continue;
+            }
+
+            boolean adjacent = false;
+            float weight = 0;
+            final int transactionCount = graph.getLinkTransactionCount(link);
+            for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
+                final int transaction = graph.getLinkTransaction(link, transactionPosition);
+                if (isAdjacent(graph, transaction, vertex, direction, includeUndirected)) {
+                    adjacent = true;
+                    if (weights != null) {
+                        weight += graph.getFloatValue(weightAttribute, transaction);
+                    }
+                }
+            }
+
+            if (adjacent) {
+                neighbours[entry] = graph.getVertexPosition(low == vertex ? high : low);
+                if (weights != null) {
+                    weights[entry] = weight;
+                }
+                entry++;
+            }
+        }
+    }
+
+    /**
+     * Sort the entries of a row by neighbour position, keeping each weight
+     * with its neighbour.
+     */
+    private static void sortRow(final int start, final int end, final int[] neighbours, final float[] weights) {
+        if (end - start < 2) {
+            return;
+        }
+        if (weights == null) {
+            Arrays.sort(neighbours, start, end);
+            return;
+        }
+
+        final long[] entries = new long[end - start];
+        for (int entry = start; entry < end; entry++) {
+            entries[entry - start] = ((long) neighbours[entry] << 32) | (Float.floatToRawIntBits(weights[entry]) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(entries);
+        for (int entry = start; entry < end; entry++) {
+            neighbours[entry] = (int) (entries[entry - start] >>> 32);
+            weights[entry] = Float.intBitsToFloat((int) entries[entry - start]);
+        }
+    }
+
+    /**
+     * The number of vertices in the snapshot.
+     *
+     * @return the number of vertices in the snapshot.
+     */
+    public int getVertexCount() {
+        return vertices.length;
+    }
+
+    /**
+     * The id of the vertex at the specified position.
+     *
+     * @param position the position of the vertex.
+     * @return the id of the vertex.
+     */
+    public int getVertex(final int position) {
+        return vertices[position];
+    }
+
+    /**
+     * The number of neighbour entries in the snapshot.
+     *
+     * @return the number of neighbour entries in the snapshot.
+     */
+    public int getEntryCount() {
+        return neighbours.length;
+    }
+
+    /**
+     * The number of neighbour entries of the vertex at the specified position.
+     *
+     * @param position the position of the vertex.
+     * @return the number of neighbour entries of the vertex.
+     */
+    public int getDegree(final int position) {
+        return offsets[position + 1] - offsets[position];
+    }
+
+    /**
+     * The offsets of the first entry of each vertex, followed by the number of
+     * entries. The returned array must not be modified.
+     *
+     * @return the row offsets.
+     */
+    public int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * The neighbour position of each entry. The returned array must not be
+     * modified.
+     *
+     * @return the neighbour positions.
+     */
+    public int[] getNeighbours() {
+        return neighbours;
+    }
+
+    /**
+     * The weight of each entry, or null if every entry has a weight of 1. The
+     * returned array must not be modified.
+     *
+     * @return the entry weights.
+     */
+    public float[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Multiply the adjacency matrix by a vector, so that each element of the
+     * result is the weighted sum of the values of the neighbours of that
+     * vertex. Rows are calculated in parallel.
+     *
+     * @param x the value of each vertex.
+     * @param y the array to write the result to, which must not be x.
+     */
+    public void multiply(final double[] x, final double[] y) {
+        IntStream.range(0, vertices.length).parallel().forEach(position -> {
+            double sum = 0;
+            final int end = offsets[position + 1];
+            if (weights == null) {
+                for (int entry = offsets[position]; entry < end; entry++) {
+                    sum += x[neighbours[entry]];
+                }
+            } else {
+                for (int entry = offsets[position]; entry < end; entry++) {
+                    sum += weights[entry] * x[neighbours[entry]];
+                }
+            }
+            y[position] = sum;
+        });
+    }
+}
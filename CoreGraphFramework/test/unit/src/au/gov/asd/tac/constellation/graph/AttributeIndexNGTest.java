@@ -0,0 +1,258 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph;
+
+import au.gov.asd.tac.constellation.utilities.temporal.TemporalConstants;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ * Attribute Index Test.
+ *
+ * @author agent
+ */
+public class AttributeIndexNGTest {
+
+    private static Set<Integer> toSet(final GraphIndexResult result) {
+        final Set<Integer> elements = new HashSet<>();
+        final int count = result.getCount();
+        for (int i = 0; i < count; i++) {
+            elements.add(result.getNextElement());
+        }
+        return elements;
+    }
+
+    private static Set<Integer> setOf(final int... elements) {
+        final Set<Integer> set = new HashSet<>();
+        for (final int element : elements) {
+            set.add(element);
+        }
+        return set;
+    }
+
+    @Test
+    public void integerIndexTest() {
+        for (final GraphIndexType indexType : new GraphIndexType[]{GraphIndexType.UNORDERED, GraphIndexType.ORDERED}) {
+            final StoreGraph graph = new StoreGraph();
+            final int attr = graph.addAttribute(GraphElementType.VERTEX, "integer", "number", null, null, null);
+            assertTrue(graph.attributeSupportsIndexType(attr, indexType));
+            graph.setAttributeIndexType(attr, indexType);
+
+            final int[] vertices = new int[1000];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = graph.addVertex();
+                graph.setIntValue(attr, vertices[i], i % 10);
+            }
+
+            assertEquals(graph.getElementsWithAttributeValue(attr, 3).getCount(), 100);
+
+            graph.setIntValue(attr, vertices[3], 42);
+            graph.removeVertex(vertices[13]);
+            assertEquals(graph.getElementsWithAttributeValue(attr, 3).getCount(), 98);
+            assertEquals(toSet(graph.getElementsWithAttributeValue(attr, 42)), setOf(vertices[3]));
+
+            if (indexType == GraphIndexType.ORDERED) {
+                assertEquals(graph.getElementsWithAttributeValueRange(attr, 8, 100).getCount(), 201);
+            }
+        }
+    }
+
+    @Test
+    public void floatIndexTest() {
+        final StoreGraph graph = new StoreGraph();
+        final int attr = graph.addAttribute(GraphElementType.VERTEX, "float", "weight", null, null, null);
+        graph.setAttributeIndexType(attr, GraphIndexType.ORDERED);
+
+        final int v0 = graph.addVertex();
+        final int v1 = graph.addVertex();
+        final int v2 = graph.addVertex();
+        graph.setFloatValue(attr, v0, -2.5F);
+        graph.setFloatValue(attr, v1, -0.0F);
+        graph.setFloatValue(attr, v2, 1.5F);
+
+        assertEquals(toSet(graph.getElementsWithAttributeValue(attr, 0.0F)), setOf(v1));
+        assertEquals(toSet(graph.getElementsWithAttributeValueRange(attr, -3.0F, 0.0F)), setOf(v0));
+        assertEquals(toSet(graph.getElementsWithAttributeValueRange(attr, -1.0F, 2.0F)), setOf(v1, v2));
+    }
+
+    @Test
+    public void stringIndexTest() {
+        for (final GraphIndexType indexType : new GraphIndexType[]{GraphIndexType.UNORDERED, GraphIndexType.ORDERED}) {
+            final StoreGraph graph = new StoreGraph();
+            final int attr = graph.addAttribute(GraphElementType.VERTEX, "string", "name", null, null, null);
+
+            // Add the vertices before creating the index to check the index is populated.
+            final int v0 = graph.addVertex();
+            final int v1 = graph.addVertex();
+            final int v2 = graph.addVertex();
+            graph.setStringValue(attr, v0, "apple");
+            graph.setStringValue(attr, v1, "banana");
+            graph.setStringValue(attr, v2, "apple");
+            graph.setAttributeIndexType(attr, indexType);
+
+            // Adding more vertices forces the index to expand its capacity.
+            for (int i = 0; i < 100; i++) {
+                graph.addVertex();
+            }
+
+            assertEquals(toSet(graph.getElementsWithAttributeValue(attr, "apple")), setOf(v0, v2));
+            assertEquals(graph.getElementsWithAttributeValue(attr, null).getCount(), 100);
+
+            graph.setStringValue(attr, v2, "cherry");
+            assertEquals(toSet(graph.getElementsWithAttributeValue(attr, "apple")), setOf(v0));
+            if (indexType == GraphIndexType.ORDERED) {
+                assertEquals(toSet(graph.getElementsWithAttributeValueRange(attr, "b", "d")), setOf(v1, v2));
+            }
+        }
+    }
+
+    @Test
+    public void datetimeIndexTest() {
+        final StoreGraph graph = new StoreGraph();
+        final int attr = graph.addAttribute(GraphElementType.TRANSACTION, "datetime", "when", null, null, null);
+        graph.setAttributeIndexType(attr, GraphIndexType.ORDERED);
+
+        final int v0 = graph.addVertex();
+        final int v1 = graph.addVertex();
+        final ZonedDateTime start = ZonedDateTime.of(2019, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        final int[] transactions = new int[24];
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = graph.addTransaction(v0, v1, true);
+            graph.setObjectValue(attr, transactions[i], start.plusHours(i));
+        }
+
+        final GraphIndexResult result = graph.getElementsWithAttributeValueRange(attr, start.plusHours(6), start.plusHours(12));
+        assertEquals(toSet(result), setOf(transactions[6], transactions[7], transactions[8], transactions[9], transactions[10], transactions[11]));
+
+        // The same instant in another time zone should match.
+        final ZonedDateTime other = start.plusHours(3).withZoneSameInstant(ZoneOffset.ofHours(10));
+        assertEquals(toSet(graph.getElementsWithAttributeValue(attr, other)), setOf(transactions[3]));
+    }
+
+    @Test
+    public void timeRangeTest() {
+        final StoreGraph graph = new StoreGraph();
+        final int datetimeAttr = graph.addAttribute(GraphElementType.TRANSACTION, "datetime", "when", null, null, null);
+        final int localAttr = graph.addAttribute(GraphElementType.TRANSACTION, "local_datetime", "local", null, null, null);
+        final int dateAttr = graph.addAttribute(GraphElementType.TRANSACTION, "date", "day", null, null, null);
+        for (final int attr : new int[]{datetimeAttr, localAttr, dateAttr}) {
+            assertTrue(graph.attributeSupportsIndexType(attr, GraphIndexType.ORDERED));
+            graph.setAttributeIndexType(attr, GraphIndexType.ORDERED);
+        }
+
+        final int v0 = graph.addVertex();
+        final int v1 = graph.addVertex();
+        final ZonedDateTime start = ZonedDateTime.of(2019, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        final int[] transactions = new int[10];
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = graph.addTransaction(v0, v1, true);
+            graph.setObjectValue(datetimeAttr, transactions[i], start.plusDays(i));
+            graph.setObjectValue(localAttr, transactions[i], start.plusDays(i).toLocalDateTime());
+            graph.setObjectValue(dateAttr, transactions[i], start.plusDays(i).toLocalDate());
+        }
+
+        // From midday on the second day up to and including midnight at the start of the fifth
+        final long lower = start.plusDays(1).plusHours(12).toInstant().toEpochMilli();
+        final long upper = start.plusDays(4).toInstant().toEpochMilli() + 1;
+        final Set<Integer> expected = setOf(transactions[2], transactions[3], transactions[4]);
+        for (final int attr : new int[]{datetimeAttr, localAttr, dateAttr}) {
+            assertEquals(toSet(graph.getElementsWithAttributeTimeRange(attr, lower, upper)), expected);
+        }
+
+        // Moving a value out of the range is reflected by the next query.
+        graph.setObjectValue(datetimeAttr, transactions[3], start.plusDays(9));
+        assertEquals(toSet(graph.getElementsWithAttributeTimeRange(datetimeAttr, lower, upper)), setOf(transactions[2], transactions[4]));
+    }
+
+    /**
+     * The elements whose value for a datetime-like attribute is within [start,
+     * end), found by checking every element.
+     */
+    private static Set<Integer> scanTimeRange(final StoreGraph graph, final int attribute, final long start, final long end) {
+        final boolean isDate = "date".equals(graph.getAttributeType(attribute));
+        final Set<Integer> elements = new HashSet<>();
+        for (int position = 0; position < graph.getTransactionCount(); position++) {
+            final int txId = graph.getTransaction(position);
+            if (graph.getObjectValue(attribute, txId) != null) {
+                final long time = isDate ? graph.getLongValue(attribute, txId) * TemporalConstants.MILLISECONDS_IN_DAY : graph.getLongValue(attribute, txId);
+                if (time >= start && time < end) {
+                    elements.add(txId);
+                }
+            }
+        }
+        return elements;
+    }
+
+    @Test
+    public void timeRangeLinearScanTest() {
+        final StoreGraph graph = new StoreGraph();
+        final int datetimeAttr = graph.addAttribute(GraphElementType.TRANSACTION, "datetime", "when", null, null, null);
+        final int localAttr = graph.addAttribute(GraphElementType.TRANSACTION, "local_datetime", "local", null, null, null);
+        final int dateAttr = graph.addAttribute(GraphElementType.TRANSACTION, "date", "day", null, null, null);
+        final int[] attributes = {datetimeAttr, localAttr, dateAttr};
+        for (final int attr : attributes) {
+            graph.setAttributeIndexType(attr, GraphIndexType.ORDERED);
+        }
+
+        // Times are on a coarse grid so that many transactions share a time and
+        // the windows often start or end exactly on one, with some times null.
+        final Random random = new Random(23);
+        final long origin = ZonedDateTime.of(2019, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+        final long step = TemporalConstants.MILLISECONDS_IN_DAY / 4;
+        final int v0 = graph.addVertex();
+        final int v1 = graph.addVertex();
+        for (int i = 0; i < 2000; i++) {
+            graph.addTransaction(v0, v1, true);
+        }
+        final Runnable setTimes = () -> {
+            for (int position = 0; position < graph.getTransactionCount(); position++) {
+                final int txId = graph.getTransaction(position);
+                for (final int attr : attributes) {
+                    if (random.nextInt(5) == 0) {
+                        graph.setObjectValue(attr, txId, null);
+                    } else {
+                        final ZonedDateTime time = Instant.ofEpochMilli(origin + (random.nextInt(200) - 100) * step).atZone(ZoneOffset.UTC);
+                        graph.setObjectValue(attr, txId, attr == datetimeAttr ? time : attr == localAttr ? time.toLocalDateTime() : time.toLocalDate());
+                    }
+                }
+            }
+        };
+
+        for (int round = 0; round < 3; round++) {
+            setTimes.run();
+            for (final int attr : attributes) {
+                for (int window = 0; window < 200; window++) {
+                    final long start = origin + (random.nextInt(220) - 110) * step + (window % 2 == 0 ? 0 : random.nextInt((int) step) - step / 2);
+                    final long end = start + random.nextInt(60) * step + (window % 3 == 0 ? 0 : 1);
+                    assertEquals(toSet(graph.getElementsWithAttributeTimeRange(attr, start, end)), scanTimeRange(graph, attr, start, end), graph.getAttributeName(attr) + " [" + start + ", " + end + ")");
+                }
+
+                // An empty window, and windows without an end or without a start, which must still exclude nulls
+                assertEquals(graph.getElementsWithAttributeTimeRange(attr, origin, origin).getCount(), 0);
+                assertEquals(toSet(graph.getElementsWithAttributeTimeRange(attr, origin, Long.MAX_VALUE)), scanTimeRange(graph, attr, origin, Long.MAX_VALUE));
+                assertEquals(toSet(graph.getElementsWithAttributeTimeRange(attr, Long.MIN_VALUE, origin)), scanTimeRange(graph, attr, Long.MIN_VALUE, origin));
+                assertEquals(toSet(graph.getElementsWithAttributeTimeRange(attr, Long.MIN_VALUE, Long.MAX_VALUE)), scanTimeRange(graph, attr, Long.MIN_VALUE, Long.MAX_VALUE));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph;
+
+import java.util.BitSet;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Layer Query Test.
+ *
+ * @author agent
+ */
+public class LayerQueryNGTest {
+
+    private StoreGraph graph;
+    private int labelAttribute;
+    private int countAttribute;
+    private int weightAttribute;
+    private int dateAttribute;
+    private int vertexId0;
+    private int vertexId1;
+    private int vertexId2;
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+        graph = new StoreGraph();
+        labelAttribute = graph.addAttribute(GraphElementType.VERTEX, "string", "Label", null, null, null);
+        countAttribute = graph.addAttribute(GraphElementType.VERTEX, "integer", "Count", null, 0, null);
+        weightAttribute = graph.addAttribute(GraphElementType.VERTEX, "float", "Weight", null, 0.0f, null);
+        dateAttribute = graph.addAttribute(GraphElementType.VERTEX, "date", "Date", null, null, null);
+
+        vertexId0 = graph.addVertex();
+        vertexId1 = graph.addVertex();
+        vertexId2 = graph.addVertex();
+
+        graph.setStringValue(labelAttribute, vertexId0, "alpha");
+        graph.setStringValue(labelAttribute, vertexId1, "beta");
+        graph.setIntValue(countAttribute, vertexId0, 9);
+        graph.setIntValue(countAttribute, vertexId1, 10);
+        graph.setIntValue(countAttribute, vertexId2, 100);
+        graph.setFloatValue(weightAttribute, vertexId0, 0.5f);
+        graph.setFloatValue(weightAttribute, vertexId1, 1.5f);
+        graph.setStringValue(dateAttribute, vertexId0, "2019-12-31");
+        graph.setStringValue(dateAttribute, vertexId1, "2020-01-02");
+    }
+
+    private boolean evaluate(final String query, final int vertexId) {
+        return LayerQuery.compile(query).bind(graph, GraphElementType.VERTEX).evaluate(vertexId);
+    }
+
+    @Test
+    public void testEmptyQueryShowsAll() {
+        assertTrue(evaluate("", vertexId0));
+        assertTrue(evaluate(" ", vertexId2));
+    }
+
+    @Test
+    public void testStringComparison() {
+        assertTrue(evaluate("Label == alpha", vertexId0));
+        assertFalse(evaluate("Label == alpha", vertexId1));
+        assertTrue(evaluate("Label != alpha", vertexId1));
+        assertTrue(evaluate("Label > alpha", vertexId1));
+
+        // an element without a value never satisfies a rule
+        assertFalse(evaluate("Label != alpha", vertexId2));
+    }
+
+    @Test
+    public void testNumericComparison() {
+        // numbers are compared by value rather than as text
+        assertTrue(evaluate("Count > 9", vertexId1));
+        assertTrue(evaluate("Count > 9", vertexId2));
+        assertFalse(evaluate("Count > 9", vertexId0));
+        assertTrue(evaluate("Count < 10", vertexId0));
+        assertTrue(evaluate("Weight == 1.5", vertexId1));
+        assertTrue(evaluate("Weight < 1", vertexId0));
+
+        // a value the attribute does not accept is compared as text
+        assertTrue(evaluate("Count == 10", vertexId1));
+        assertFalse(evaluate("Count == ten", vertexId1));
+    }
+
+    @Test
+    public void testDateComparison() {
+        assertTrue(evaluate("Date > 2020-01-01", vertexId1));
+        assertFalse(evaluate("Date > 2020-01-01", vertexId0));
+        assertTrue(evaluate("Date < 2020-01-01", vertexId0));
+
+        // an element without a date never satisfies a rule
+        assertFalse(evaluate("Date < 2020-01-01", vertexId2));
+    }
+
+    @Test
+    public void testCompoundQuery() {
+        final String query = "(Label == alpha)||(Count > 50)";
+        assertTrue(evaluate(query, vertexId0));
+        assertFalse(evaluate(query, vertexId1));
+        assertTrue(evaluate(query, vertexId2));
+
+        final String conjunction = "(Count > 5)&&(Weight > 1)";
+        assertFalse(evaluate(conjunction, vertexId0));
+        assertTrue(evaluate(conjunction, vertexId1));
+    }
+
+    @Test
+    public void testMissingAttribute() {
+        assertFalse(evaluate("Missing == alpha", vertexId0));
+    }
+
+    private BitSet select(final String query) {
+        return LayerQuery.compile(query).bind(graph, GraphElementType.VERTEX).select();
+    }
+
+    @Test
+    public void testIndexedSelection() {
+        // without indices a query is evaluated for each element
+        assertNull(select("Label == alpha"));
+
+        graph.setAttributeIndexType(labelAttribute, GraphIndexType.UNORDERED);
+        graph.setAttributeIndexType(countAttribute, GraphIndexType.ORDERED);
+        graph.setAttributeIndexType(weightAttribute, GraphIndexType.UNORDERED);
+
+        final String[] queries = {"Label == alpha", "Count == 10", "Weight == 1.5", "(Label == alpha)||(Count == 100)",
+            "(Label == beta)&&(Count == 10)", "(Label == alpha)&&(Count == 10)", "Missing == alpha"};
+        for (final String query : queries) {
+            final BitSet selection = select(query);
+            assertNotNull(selection, query);
+            for (final int vertexId : new int[]{vertexId0, vertexId1, vertexId2}) {
+                assertEquals(selection.get(vertexId), evaluate(query, vertexId), query);
+            }
+        }
+
+        // the index follows changes to values
+        graph.setStringValue(labelAttribute, vertexId2, "alpha");
+        assertTrue(select("Label == alpha").get(vertexId2));
+        graph.setStringValue(labelAttribute, vertexId0, "gamma");
+        assertFalse(select("Label == alpha").get(vertexId0));
+
+        // only equality can be looked up in an index
+        assertNull(select("Count > 9"));
+        assertNull(select("(Label == alpha)||(Count > 9)"));
+    }
+
+    @Test
+    public void testBinding() {
+        final LayerQuery query = LayerQuery.compile("(Label == alpha)&&(Count > 5)");
+        final LayerQuery.Binding binding = query.bind(graph, GraphElementType.VERTEX);
+        assertSame(query.bind(graph, GraphElementType.VERTEX), binding);
+        assertTrue(binding.references(labelAttribute));
+        assertTrue(binding.references(countAttribute));
+        assertFalse(binding.references(weightAttribute));
+
+        // adding an attribute rebinds the query
+        graph.addAttribute(GraphElementType.VERTEX, "integer", "Other", null, 0, null);
+        assertNotSame(query.bind(graph, GraphElementType.VERTEX), binding);
+    }
+
+    @Test
+    public void testCurrent() {
+        final LayerQuery.Binding binding = LayerQuery.compile("Count > 5").bind(graph, GraphElementType.VERTEX);
+        assertFalse(binding.isCurrent(weightAttribute));
+        binding.setCurrent(weightAttribute);
+        assertTrue(binding.isCurrent(weightAttribute));
+
+        // modifying a value the query depends on means it must be evaluated again
+        graph.setIntValue(countAttribute, vertexId2, 1);
+        assertFalse(binding.isCurrent(weightAttribute));
+        binding.setCurrent(weightAttribute);
+        assertTrue(binding.isCurrent(weightAttribute));
+
+        // as does modifying the results
+        graph.setFloatValue(weightAttribute, vertexId2, 2.0f);
+        assertFalse(binding.isCurrent(weightAttribute));
+    }
+}
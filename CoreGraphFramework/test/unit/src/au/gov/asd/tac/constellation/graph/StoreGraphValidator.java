@@ -155,6 +155,11 @@ public final class StoreGraphValidator implements GraphWriteMethods {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public int[] getValueChangesSince(final int attribute, final long valueChangeCounter) {
+        throw new UnsupportedOperationException("Not supported yet.");
+    }
+
     @Override
     public void setPrimaryKey(final GraphElementType elementType, final int... attributes) {
         throw new UnsupportedOperationException("Not supported yet.");
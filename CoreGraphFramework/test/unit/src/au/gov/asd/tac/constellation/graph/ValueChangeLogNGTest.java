@@ -0,0 +1,100 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph;
+
+import au.gov.asd.tac.constellation.graph.attribute.IntegerAttributeDescription;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import org.testng.annotations.Test;
+
+/**
+ * Value Change Log Test.
+ *
+ * @author agent
+ */
+public class ValueChangeLogNGTest {
+
+    /**
+     * Reading the changes doesn't consume them, so each reader gets the
+     * changes since its own counter.
+     */
+    @Test
+    public void readersAreIndependentTest() {
+        final StoreGraph graph = new StoreGraph();
+        final int attribute = graph.addAttribute(GraphElementType.VERTEX, IntegerAttributeDescription.ATTRIBUTE_NAME, "value", null, null, null);
+        final int[] vertices = new int[5];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = graph.addVertex();
+        }
+
+        final long first = graph.getValueChangeCounter(attribute);
+        graph.setIntValue(attribute, vertices[3], 1);
+        graph.setIntValue(attribute, vertices[1], 1);
+        final long second = graph.getValueChangeCounter(attribute);
+        graph.setIntValue(attribute, vertices[3], 2);
+
+        assertEquals(graph.getValueChangesSince(attribute, first), new int[]{vertices[1], vertices[3]});
+        assertEquals(graph.getValueChangesSince(attribute, second), new int[]{vertices[3]});
+        assertEquals(graph.getValueChangesSince(attribute, first), new int[]{vertices[1], vertices[3]});
+        assertEquals(graph.getValueChangesSince(attribute, graph.getValueChangeCounter(attribute)), new int[0]);
+    }
+
+    /**
+     * A copy of the graph reports the same changes as the original.
+     */
+    @Test
+    public void copyTest() {
+        final StoreGraph graph = new StoreGraph();
+        final int attribute = graph.addAttribute(GraphElementType.VERTEX, IntegerAttributeDescription.ATTRIBUTE_NAME, "value", null, null, null);
+        final int vertex = graph.addVertex();
+        final long counter = graph.getValueChangeCounter(attribute);
+        graph.setIntValue(attribute, vertex, 1);
+
+        final StoreGraph copy = new StoreGraph(graph);
+        assertEquals(copy.getValueChangeCounter(attribute), graph.getValueChangeCounter(attribute));
+        assertEquals(copy.getValueChangesSince(attribute, counter), new int[]{vertex});
+    }
+
+    /**
+     * Only the most recent changes are kept.
+     */
+    @Test
+    public void oldChangesForgottenTest() {
+        final ValueChangeLog log = new ValueChangeLog(10);
+        for (int i = 0; i < ValueChangeLog.MAX_CHANGES + 1; i++) {
+            log.add(i % 7);
+        }
+
+        assertNull(log.getChangesSince(10));
+        assertEquals(log.getChangesSince(10 + ValueChangeLog.MAX_CHANGES), new int[]{ValueChangeLog.MAX_CHANGES % 7});
+    }
+
+    /**
+     * Changes made before the values were replaced as a whole are not known.
+     */
+    @Test
+    public void resetTest() {
+        final ValueChangeLog log = new ValueChangeLog(0);
+        log.add(4);
+        log.reset(2);
+        log.add(5);
+
+        assertNull(log.getChangesSince(0));
+        assertNull(log.getChangesSince(1));
+        assertEquals(log.getChangesSince(2), new int[]{5});
+        assertNull(log.getChangesSince(4));
+    }
+}
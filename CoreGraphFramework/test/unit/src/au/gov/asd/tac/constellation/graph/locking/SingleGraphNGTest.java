@@ -0,0 +1,193 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.locking;
+
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.WritableGraph;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import org.testng.annotations.Test;
+
+/**
+ * Single Graph Test.
+ *
+ * @author agent
+ */
+public class SingleGraphNGTest {
+
+    @Test
+    public void commitTest() throws InterruptedException {
+        final SingleGraph g = new SingleGraph(null);
+
+        final WritableGraph wg = g.getWritableGraph("add", true);
+        wg.addVertex();
+        wg.addVertex();
+        wg.commit();
+
+        final ReadableGraph rg = g.getReadableGraph();
+        try {
+            assertEquals(rg.getVertexCount(), 2);
+            assertSame(rg, wg);
+        } finally {
+            rg.release();
+        }
+    }
+
+    @Test
+    public void rollBackTest() throws InterruptedException {
+        final SingleGraph g = new SingleGraph(null);
+
+        final WritableGraph wg1 = g.getWritableGraph("add", true);
+        wg1.addVertex();
+        wg1.commit();
+
+        final WritableGraph wg2 = g.getWritableGraph("add more", true);
+        final long modCount = wg2.getGlobalModificationCounter();
+        wg2.addVertex();
+        wg2.addVertex();
+        wg2.rollBack();
+
+        final ReadableGraph rg = g.getReadableGraph();
+        try {
+            assertEquals(rg.getVertexCount(), 1);
+            assertEquals(rg.getGlobalModificationCounter(), modCount);
+        } finally {
+            rg.release();
+        }
+    }
+
+    @Test
+    public void nestedCommitTest() throws InterruptedException {
+        final SingleGraph g = new SingleGraph(null);
+
+        final WritableGraph wg1 = g.getWritableGraph("outer", true);
+        wg1.addVertex();
+
+        final WritableGraph wg2 = g.getWritableGraph("inner", true);
+        wg2.addVertex();
+        wg2.commit();
+
+        // The writing thread can read its own uncommitted changes
+        final ReadableGraph rg1 = g.getReadableGraph();
+        try {
+            assertEquals(rg1.getVertexCount(), 2);
+        } finally {
+            rg1.release();
+        }
+
+        wg1.commit();
+
+        final ReadableGraph rg2 = g.getReadableGraph();
+        try {
+            assertEquals(rg2.getVertexCount(), 2);
+        } finally {
+            rg2.release();
+        }
+    }
+
+    @Test
+    public void writeWhileReadingTest() throws InterruptedException {
+        final SingleGraph g = new SingleGraph(null);
+
+        final ReadableGraph rg = g.getReadableGraph();
+        try {
+            // Another thread can not start writing while a read lock is held
+            final WritableGraph[] wg = new WritableGraph[1];
+            final Thread writer = new Thread(() -> wg[0] = g.getWritableGraphNow("add", true));
+            writer.start();
+            writer.join();
+            assertNull(wg[0]);
+        } finally {
+            rg.release();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalMonitorStateException.class)
+    public void writeWhileHoldingReadLockTest() throws InterruptedException {
+        final SingleGraph g = new SingleGraph(null);
+
+        final ReadableGraph rg = g.getReadableGraph();
+        try {
+            // Upgrading a read lock to a write lock fails rather than deadlocking
+            g.getWritableGraph("add", true);
+        } finally {
+            rg.release();
+        }
+    }
+
+    private static int countVertices(final SingleGraph g, final ReadableGraph[] read) {
+        final ReadableGraph rg = g.getReadableGraph();
+        try {
+            read[0] = rg;
+            return rg.getVertexCount();
+        } finally {
+            rg.release();
+        }
+    }
+
+    @Test
+    public void snapshotReadTest() throws InterruptedException {
+        final SingleGraph g = new SingleGraph(null);
+        final ReadableGraph[] read = new ReadableGraph[1];
+        final int[] count = new int[1];
+
+        // The first reader to arrive during a write waits for it
+        final WritableGraph wg1 = g.getWritableGraph("add", true);
+        wg1.addVertex();
+        final Thread reader1 = new Thread(() -> count[0] = countVertices(g, read));
+        reader1.start();
+        while (reader1.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        wg1.commit();
+        reader1.join();
+        assertEquals(count[0], 1);
+        assertSame(read[0], wg1);
+
+        // so later readers read a snapshot of the committed graph instead of waiting
+        final WritableGraph wg2 = g.getWritableGraph("add more", true);
+        wg2.addVertex();
+        final Thread reader2 = new Thread(() -> count[0] = countVertices(g, read));
+        reader2.start();
+        reader2.join(10000);
+        assertFalse(reader2.isAlive());
+        assertEquals(count[0], 1);
+        assertNotSame(read[0], wg2);
+        final ReadableGraph snapshot = read[0];
+
+        // and the snapshot is brought up to date by the commit rather than copied again
+        wg2.commit();
+        final WritableGraph wg3 = g.getWritableGraph("add even more", true);
+        wg3.addVertex();
+        final Thread reader3 = new Thread(() -> count[0] = countVertices(g, read));
+        reader3.start();
+        reader3.join(10000);
+        assertFalse(reader3.isAlive());
+        assertEquals(count[0], 2);
+        assertSame(read[0], snapshot);
+        wg3.rollBack();
+
+        // The writing thread reads the graph itself
+        final WritableGraph wg4 = g.getWritableGraph("add again", true);
+        wg4.addVertex();
+        assertEquals(countVertices(g, read), 3);
+        assertSame(read[0], wg4);
+        wg4.commit();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.locking;
+
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.schema.Schema;
+import java.util.function.BooleanSupplier;
+import javax.swing.SwingUtilities;
+import javax.swing.undo.UndoManager;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Undo History Test.
+ *
+ * @author agent
+ */
+public class UndoHistoryNGTest {
+
+    private static final long TIMEOUT = 10000;
+
+    private LockingManager<LockingStoreGraph> lockingManager;
+    private UndoManager undoManager;
+
+    @BeforeMethod
+    public void setUpMethod() {
+        lockingManager = new LockingManager<>();
+        final LockingStoreGraph a = new LockingStoreGraph(lockingManager, 0, (Schema) null);
+        final LockingStoreGraph b = new LockingStoreGraph(lockingManager, 1, (Schema) null, a.getId());
+        lockingManager.setTargets(a, b);
+        undoManager = new UndoManager();
+        lockingManager.setUndoManager(undoManager);
+    }
+
+    private int getVertexCount() {
+        final LockingStoreGraph rg = lockingManager.startReading();
+        try {
+            return rg.getVertexCount();
+        } finally {
+            rg.release();
+        }
+    }
+
+    private float getX(final int vxId) {
+        final LockingStoreGraph rg = lockingManager.startReading();
+        try {
+            return rg.getFloatValue(rg.getAttribute(GraphElementType.VERTEX, "x"), vxId);
+        } finally {
+            rg.release();
+        }
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private void undo(final int expectedVertexCount) throws Exception {
+        SwingUtilities.invokeAndWait(undoManager::undo);
+        waitFor(() -> getVertexCount() == expectedVertexCount);
+    }
+
+    private void redo(final int expectedVertexCount) throws Exception {
+        SwingUtilities.invokeAndWait(undoManager::redo);
+        waitFor(() -> getVertexCount() == expectedVertexCount);
+    }
+
+    @Test
+    public void spilledUndoRedoTest() throws Exception {
+        lockingManager.setUndoMemoryBudget(0);
+
+        LockingStoreGraph wg = lockingManager.startWriting("Add Vertices", true, null);
+        final int xAttribute = wg.addAttribute(GraphElementType.VERTEX, "float", "x", null, 0.0f, null);
+        final int[] vertices = new int[1000];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = wg.addVertex();
+            wg.setFloatValue(xAttribute, vertices[i], i);
+        }
+        wg.commit();
+
+        wg = lockingManager.startWriting("Add Vertex", true, null);
+        wg.addVertex();
+        wg.commit();
+
+        // the edits reach the undo manager on the event dispatch thread
+        SwingUtilities.invokeAndWait(() -> {
+        });
+
+        // the older edit is spilled in the background, and the recent edit stays on the heap
+        waitFor(() -> lockingManager.getUndoSpilledSize() > 0);
+        assertTrue(lockingManager.getUndoHeapSize() > 0);
+
+        undo(vertices.length);
+        undo(0);
+
+        // the undone edit is read back, and the other is now spilled
+        waitFor(() -> lockingManager.getUndoSpilledSize() > 0 && lockingManager.getUndoHeapSize() > 0);
+
+        redo(vertices.length);
+        assertEquals(getX(vertices[0]), 0.0f);
+        assertEquals(getX(vertices[999]), 999.0f);
+        redo(vertices.length + 1);
+    }
+}
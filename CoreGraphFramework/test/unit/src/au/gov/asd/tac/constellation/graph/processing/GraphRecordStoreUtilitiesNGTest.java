@@ -21,7 +21,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
@@ -35,6 +38,8 @@ import org.testng.annotations.Test;
  */
 public class GraphRecordStoreUtilitiesNGTest {
 
+    private static final Logger LOGGER = Logger.getLogger(GraphRecordStoreUtilitiesNGTest.class.getName());
+
     private static final int NUMBER_OF_VERTICES = 6;
     private static final int NUMBER_OF_TRANSACTIONS = 2;
 
@@ -277,4 +282,105 @@ public class GraphRecordStoreUtilitiesNGTest {
         assertEquals(vx1, graph.getTransactionSourceVertex(tx1));
     }
 
+    @Test
+    public void addRecordStoreToGraphInBulkMatchesAddRecordStoreToGraph() {
+        final RecordStore recordStore = createRecordStore(1000, 100);
+
+        final StoreGraph expected = new StoreGraph();
+        final Map<String, Integer> expectedVertexMap = new HashMap<>();
+        final List<Integer> expectedVertices = GraphRecordStoreUtilities.addRecordStoreToGraph(expected, recordStore, false, false, null, expectedVertexMap, null);
+
+        final StoreGraph actual = new StoreGraph();
+        final Map<String, Integer> actualVertexMap = new HashMap<>();
+        final List<Integer> actualVertices = GraphRecordStoreUtilities.addRecordStoreToGraphInBulk(actual, recordStore, false, false, actualVertexMap, null);
+
+        assertEquals(actualVertices.size(), expectedVertices.size());
+        assertEquals(actual.getVertexCount(), expected.getVertexCount());
+        assertEquals(actual.getTransactionCount(), expected.getTransactionCount());
+        assertEquals(actualVertexMap.keySet(), expectedVertexMap.keySet());
+        assertSameValues(expected, actual, GraphElementType.VERTEX);
+        assertSameValues(expected, actual, GraphElementType.TRANSACTION);
+    }
+
+    @Test
+    public void addRecordStoreToGraphInBulkMatchesPrimaryKey() {
+        final StoreGraph graph = new StoreGraph();
+        final int identifierAttribute = graph.addAttribute(GraphElementType.VERTEX, "string", "Identifier", "", null, null);
+        final int countAttribute = graph.addAttribute(GraphElementType.VERTEX, "integer", "Count", "", 0, null);
+        graph.setPrimaryKey(GraphElementType.VERTEX, identifierAttribute);
+        final int vx0 = graph.addVertex();
+        graph.setStringValue(identifierAttribute, vx0, "vx0");
+
+        final RecordStore recordStore = new GraphRecordStore();
+        for (int i = 0; i < 3; i++) {
+            recordStore.add();
+            recordStore.set(GraphRecordStoreUtilities.SOURCE + "Identifier", "vx0");
+            recordStore.set(GraphRecordStoreUtilities.SOURCE + "Count<integer>", String.valueOf(i));
+            recordStore.set(GraphRecordStoreUtilities.DESTINATION + "Identifier", "vx1");
+        }
+
+        final List<Integer> newVertices = GraphRecordStoreUtilities.addRecordStoreToGraphInBulk(graph, recordStore, false, false);
+        assertEquals(newVertices.size(), 1);
+        assertEquals(graph.getVertexCount(), 2);
+        assertEquals(graph.getTransactionCount(), 3);
+        assertEquals(graph.getIntValue(countAttribute, vx0), 2);
+        assertEquals(graph.getStringValue(identifierAttribute, newVertices.get(0)), "vx1");
+    }
+
+    @Test
+    public void addRecordStoreToGraphInBulkWithOneMillionRecords() {
+        final int records = 1_000_000;
+        final RecordStore recordStore = createRecordStore(records, records / 10);
+
+        long start = System.currentTimeMillis();
+        final StoreGraph recordGraph = new StoreGraph();
+        GraphRecordStoreUtilities.addRecordStoreToGraph(recordGraph, recordStore, false, false, null);
+        final long recordTime = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        final StoreGraph bulkGraph = new StoreGraph();
+        GraphRecordStoreUtilities.addRecordStoreToGraphInBulk(bulkGraph, recordStore, false, false);
+        final long bulkTime = System.currentTimeMillis() - start;
+
+        LOGGER.log(Level.INFO, "Added {0} records one at a time in {1}ms, in bulk in {2}ms", new Object[]{records, recordTime, bulkTime});
+
+        assertEquals(bulkGraph.getVertexCount(), recordGraph.getVertexCount());
+        assertEquals(bulkGraph.getTransactionCount(), records);
+        assertTrue(bulkGraph.getTransactionCapacity() >= records);
+    }
+
+    /**
+     * Create a record store of transactions between a number of vertices with
+     * ids.
+     */
+    private static RecordStore createRecordStore(final int records, final int vertices) {
+        final TypedRecordStore recordStore = new TypedRecordStore(records);
+        for (int i = 0; i < records; i++) {
+            final int source = i % vertices;
+            final int destination = (i * 7 + 1) % vertices;
+            recordStore.add();
+            recordStore.set(GraphRecordStoreUtilities.SOURCE + GraphRecordStoreUtilities.ID, "vx" + source);
+            recordStore.set(GraphRecordStoreUtilities.SOURCE + "Identifier", "vx" + source);
+            recordStore.setInt(GraphRecordStoreUtilities.SOURCE + "Count", i);
+            recordStore.set(GraphRecordStoreUtilities.DESTINATION + GraphRecordStoreUtilities.ID, "vx" + destination);
+            recordStore.set(GraphRecordStoreUtilities.DESTINATION + "Identifier", "vx" + destination);
+            recordStore.setInt(GraphRecordStoreUtilities.DESTINATION + "Count", -i);
+            recordStore.setDouble(GraphRecordStoreUtilities.TRANSACTION + "Weight", i / 2.0);
+        }
+        return recordStore;
+    }
+
+    private static void assertSameValues(final StoreGraph expected, final StoreGraph actual, final GraphElementType elementType) {
+        final int expectedCount = elementType == GraphElementType.VERTEX ? expected.getVertexCount() : expected.getTransactionCount();
+        for (int i = 0; i < expected.getAttributeCount(elementType); i++) {
+            final int expectedAttribute = expected.getAttribute(elementType, i);
+            final int actualAttribute = actual.getAttribute(elementType, expected.getAttributeName(expectedAttribute));
+            assertEquals(actual.getAttributeType(actualAttribute), expected.getAttributeType(expectedAttribute));
+            for (int position = 0; position < expectedCount; position++) {
+                final int expectedElement = elementType == GraphElementType.VERTEX ? expected.getVertex(position) : expected.getTransaction(position);
+                final int actualElement = elementType == GraphElementType.VERTEX ? actual.getVertex(position) : actual.getTransaction(position);
+                assertEquals(actual.getStringValue(actualAttribute, actualElement), expected.getStringValue(expectedAttribute, expectedElement));
+            }
+        }
+    }
 }
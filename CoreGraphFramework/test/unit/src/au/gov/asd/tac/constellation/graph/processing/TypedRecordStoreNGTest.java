@@ -0,0 +1,169 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.processing;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.attribute.ZonedDateTimeAttributeDescription;
+import java.util.Arrays;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Typed RecordStore Test.
+ *
+ * @author agent
+ */
+public class TypedRecordStoreNGTest {
+
+    private static final long DATETIME = 1577836800123L; // 2020-01-01T00:00:00.123Z
+
+    private TypedRecordStore instance;
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+        instance = new TypedRecordStore(1);
+        for (int i = 0; i < 3; i++) {
+            instance.add();
+            instance.set(GraphRecordStoreUtilities.SOURCE + GraphRecordStoreUtilities.ID, "vertex" + i);
+            instance.set(GraphRecordStoreUtilities.SOURCE + "Identifier", "vertex" + i);
+            instance.setInt(GraphRecordStoreUtilities.SOURCE + "Count", i);
+            instance.set(GraphRecordStoreUtilities.DESTINATION + GraphRecordStoreUtilities.ID, "vertex" + (i + 1));
+            instance.set(GraphRecordStoreUtilities.DESTINATION + "Identifier", "vertex" + (i + 1));
+            instance.setDouble(GraphRecordStoreUtilities.TRANSACTION + "Weight", i / 4.0);
+            instance.setDateTime(GraphRecordStoreUtilities.TRANSACTION + "DateTime", DATETIME + i);
+            instance.setBoolean(GraphRecordStoreUtilities.TRANSACTION + "Flag", i % 2 == 0);
+        }
+    }
+
+    /**
+     * Test of the typed getters and setters, of class TypedRecordStore.
+     */
+    @Test
+    public void testTypedValues() {
+        assertEquals(instance.size(), 3);
+        assertEquals(instance.getColumnType(GraphRecordStoreUtilities.SOURCE + "Count"), TypedRecordStore.ColumnType.INTEGER);
+        assertEquals(instance.getColumnType(GraphRecordStoreUtilities.SOURCE + "Count<integer>"), TypedRecordStore.ColumnType.INTEGER);
+        assertEquals(instance.getColumnType(GraphRecordStoreUtilities.SOURCE + "Identifier"), TypedRecordStore.ColumnType.STRING);
+        assertEquals(instance.getInt(2, GraphRecordStoreUtilities.SOURCE + "Count"), 2);
+        assertEquals(instance.getDouble(2, GraphRecordStoreUtilities.TRANSACTION + "Weight"), 0.5);
+        assertEquals(instance.getDateTime(1, GraphRecordStoreUtilities.TRANSACTION + "DateTime"), DATETIME + 1);
+        assertTrue(instance.getBoolean(0, GraphRecordStoreUtilities.TRANSACTION + "Flag"));
+        assertFalse(instance.getBoolean(1, GraphRecordStoreUtilities.TRANSACTION + "Flag"));
+
+        assertEquals(instance.keysWithType(), Arrays.asList(
+                "source.[id]<string>",
+                "source.Identifier<string>",
+                "source.Count<integer>",
+                "destination.[id]<string>",
+                "destination.Identifier<string>",
+                "transaction.Weight<float>",
+                "transaction.DateTime<datetime>",
+                "transaction.Flag<boolean>"));
+    }
+
+    /**
+     * Test of the String getters and setters, of class TypedRecordStore.
+     */
+    @Test
+    public void testStringValues() {
+        assertEquals(instance.get(1, GraphRecordStoreUtilities.SOURCE + "Count"), "1");
+        final String datetime = instance.get(0, GraphRecordStoreUtilities.TRANSACTION + "DateTime<datetime>");
+        assertEquals(ZonedDateTimeAttributeDescription.parseString(datetime).toInstant().toEpochMilli(), DATETIME);
+
+        // Strings set on a typed column are parsed.
+        instance.set(0, GraphRecordStoreUtilities.SOURCE + "Count", "42");
+        assertEquals(instance.getInt(0, GraphRecordStoreUtilities.SOURCE + "Count"), 42);
+        instance.set(0, GraphRecordStoreUtilities.TRANSACTION + "DateTime", "2020-01-01 00:00:01.000 +00:00");
+        assertEquals(instance.getDateTime(0, GraphRecordStoreUtilities.TRANSACTION + "DateTime"), DATETIME - 123 + 1000);
+
+        // The type in a key decides the type of a new column.
+        instance.set(0, GraphRecordStoreUtilities.SOURCE + "Size<long>", "12345678901");
+        assertEquals(instance.getColumnType(GraphRecordStoreUtilities.SOURCE + "Size"), TypedRecordStore.ColumnType.LONG);
+        assertEquals(instance.getLong(0, GraphRecordStoreUtilities.SOURCE + "Size"), 12345678901L);
+        assertFalse(instance.hasValue(1, GraphRecordStoreUtilities.SOURCE + "Size"));
+
+        // Null values are recorded.
+        instance.set(1, GraphRecordStoreUtilities.SOURCE + "Count", null);
+        assertTrue(instance.hasValue(1, GraphRecordStoreUtilities.SOURCE + "Count"));
+        assertTrue(instance.isNull(1, GraphRecordStoreUtilities.SOURCE + "Count"));
+        assertNull(instance.get(1, GraphRecordStoreUtilities.SOURCE + "Count"));
+        assertEquals(instance.getInt(1, GraphRecordStoreUtilities.SOURCE + "Count"), 0);
+    }
+
+    /**
+     * Test of add method, of class TypedRecordStore.
+     */
+    @Test
+    public void testAdd() {
+        final TypedRecordStore copy = new TypedRecordStore();
+        copy.add(instance);
+        assertEquals(copy.size(), instance.size());
+        assertEquals(copy.keysWithType(), instance.keysWithType());
+        assertEquals(copy.toStringVerbose(), instance.toStringVerbose());
+
+        final GraphRecordStore graphRecordStore = new GraphRecordStore();
+        graphRecordStore.add();
+        graphRecordStore.set(GraphRecordStoreUtilities.SOURCE + "Count<integer>", "7");
+        final TypedRecordStore fromGraphRecordStore = new TypedRecordStore();
+        fromGraphRecordStore.add(graphRecordStore);
+        assertEquals(fromGraphRecordStore.getColumnType(GraphRecordStoreUtilities.SOURCE + "Count"), TypedRecordStore.ColumnType.INTEGER);
+        assertEquals(fromGraphRecordStore.getInt(0, GraphRecordStoreUtilities.SOURCE + "Count"), 7);
+    }
+
+    /**
+     * Typed values should be added to a graph as attributes of their type.
+     */
+    @Test
+    public void testAddRecordStoreToGraph() {
+        final StoreGraph graph = new StoreGraph();
+        GraphRecordStoreUtilities.addRecordStoreToGraph(graph, instance, false, false, null);
+        assertEquals(graph.getVertexCount(), 4);
+        assertEquals(graph.getTransactionCount(), 3);
+
+        final int countAttribute = graph.getAttribute(GraphElementType.VERTEX, "Count");
+        final int weightAttribute = graph.getAttribute(GraphElementType.TRANSACTION, "Weight");
+        final int datetimeAttribute = graph.getAttribute(GraphElementType.TRANSACTION, "DateTime");
+        final int flagAttribute = graph.getAttribute(GraphElementType.TRANSACTION, "Flag");
+        assertTrue(countAttribute != Graph.NOT_FOUND);
+        assertEquals(graph.getAttributeType(countAttribute), "integer");
+        assertEquals(graph.getAttributeType(weightAttribute), "float");
+        assertEquals(graph.getAttributeType(datetimeAttribute), "datetime");
+        assertEquals(graph.getAttributeType(flagAttribute), "boolean");
+
+        final int identifierAttribute = graph.getAttribute(GraphElementType.VERTEX, "Identifier");
+        for (int position = 0; position < graph.getVertexCount(); position++) {
+            final int vertex = graph.getVertex(position);
+            final String identifier = graph.getStringValue(identifierAttribute, vertex);
+            if (!"vertex3".equals(identifier)) {
+                assertEquals(graph.getIntValue(countAttribute, vertex), Integer.parseInt(identifier.substring(6)));
+            }
+        }
+        for (int position = 0; position < graph.getTransactionCount(); position++) {
+            final int transaction = graph.getTransaction(position);
+            final String source = graph.getStringValue(identifierAttribute, graph.getTransactionSourceVertex(transaction));
+            final int i = Integer.parseInt(source.substring(6));
+            assertEquals(graph.getFloatValue(weightAttribute, transaction), i / 4F);
+            assertEquals(graph.getStringValue(datetimeAttribute, transaction), instance.get(i, GraphRecordStoreUtilities.TRANSACTION + "DateTime"));
+            assertEquals(graph.getBooleanValue(flagAttribute, transaction), i % 2 == 0);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.undo;
+
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ * Undo Graph Edit Test.
+ *
+ * @author agent
+ */
+public class UndoGraphEditNGTest {
+
+    @Test
+    public void spillTest() throws Exception {
+        final StoreGraph graph = new StoreGraph();
+        final int xAttribute = graph.addAttribute(GraphElementType.VERTEX, "float", "x", null, 0.0f, null);
+        final int nameAttribute = graph.addAttribute(GraphElementType.VERTEX, "string", "name", null, null, null);
+
+        final UndoGraphEdit edit = new UndoGraphEdit();
+        graph.setGraphEdit(edit);
+        final int[] vertices = new int[1000];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = graph.addVertex();
+            graph.setFloatValue(xAttribute, vertices[i], i);
+            graph.setStringValue(nameAttribute, vertices[i], "vertex " + i);
+        }
+
+        // record a nested edit as a child, as the locking manager does
+        final UndoGraphEdit childEdit = new UndoGraphEdit();
+        graph.setGraphEdit(childEdit);
+        graph.setFloatValue(xAttribute, vertices[0], -1.0f);
+        childEdit.finish();
+        edit.addChild(childEdit);
+
+        graph.setGraphEdit(null);
+        edit.finish();
+
+        final long stackSize = edit.getStackSize();
+        assertTrue(stackSize > 0);
+
+        edit.spill();
+        assertTrue(edit.isSpilled());
+        assertEquals(edit.getStackSize(), 0L);
+
+        // undoing reads the edit back from disk
+        edit.undo(graph);
+        assertFalse(edit.isSpilled());
+        assertEquals(edit.getStackSize(), stackSize);
+        assertEquals(graph.getVertexCount(), 0);
+
+        edit.spill();
+        edit.execute(graph);
+        assertFalse(edit.isSpilled());
+        assertEquals(graph.getVertexCount(), vertices.length);
+        assertEquals(graph.getFloatValue(xAttribute, vertices[0]), -1.0f);
+        assertEquals(graph.getFloatValue(xAttribute, vertices[999]), 999.0f);
+        assertEquals(graph.getStringValue(nameAttribute, vertices[999]), "vertex 999");
+    }
+
+    @Test
+    public void discardTest() throws Exception {
+        final StoreGraph graph = new StoreGraph();
+        final UndoGraphEdit edit = new UndoGraphEdit();
+        graph.setGraphEdit(edit);
+        for (int i = 0; i < 100; i++) {
+            graph.addVertex();
+        }
+        graph.setGraphEdit(null);
+        edit.finish();
+
+        edit.spill();
+        assertTrue(edit.isSpilled());
+
+        // a discarded edit deletes its file and is never spilled again
+        edit.discard();
+        assertFalse(edit.isSpilled());
+        edit.spill();
+        assertFalse(edit.isSpilled());
+    }
+}
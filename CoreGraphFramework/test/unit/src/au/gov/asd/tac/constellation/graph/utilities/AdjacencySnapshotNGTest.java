@@ -0,0 +1,114 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.utilities;
+
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import java.util.Arrays;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Adjacency Snapshot Test.
+ *
+ * @author agent
+ */
+public class AdjacencySnapshotNGTest {
+
+    private StoreGraph graph;
+    private int weightAttribute;
+    private int vxId0, vxId1, vxId2, vxId3;
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+        graph = new StoreGraph();
+        weightAttribute = graph.addAttribute(GraphElementType.TRANSACTION, "float", "weight", "", 1F, null);
+
+        // remove a vertex so that vertex ids and positions differ
+        final int removed = graph.addVertex();
+        vxId0 = graph.addVertex();
+        vxId1 = graph.addVertex();
+        vxId2 = graph.addVertex();
+        vxId3 = graph.addVertex();
+        graph.removeVertex(removed);
+
+        graph.addTransaction(vxId0, vxId1, true);
+        final int txId1 = graph.addTransaction(vxId0, vxId1, true);
+        graph.setFloatValue(weightAttribute, txId1, 2F);
+        graph.addTransaction(vxId2, vxId1, true);
+        graph.addTransaction(vxId1, vxId3, false);
+        graph.addTransaction(vxId3, vxId3, true);
+    }
+
+    @Test
+    public void testIncoming() {
+        final AdjacencySnapshot snapshot = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.INCOMING, false, false);
+        assertEquals(snapshot.getVertexCount(), 4);
+        assertEquals(snapshot.getEntryCount(), 3);
+        assertNull(snapshot.getWeights());
+
+        final int position1 = graph.getVertexPosition(vxId1);
+        assertEquals(snapshot.getVertex(position1), vxId1);
+        assertEquals(snapshot.getDegree(position1), 3);
+        assertEquals(neighbours(snapshot, position1), new int[]{graph.getVertexPosition(vxId0), graph.getVertexPosition(vxId0), graph.getVertexPosition(vxId2)});
+        assertEquals(snapshot.getDegree(graph.getVertexPosition(vxId3)), 0);
+    }
+
+    @Test
+    public void testDistinctWeighted() {
+        final AdjacencySnapshot snapshot = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.ANY, true, true, weightAttribute);
+        final int position1 = graph.getVertexPosition(vxId1);
+        assertEquals(neighbours(snapshot, position1), new int[]{graph.getVertexPosition(vxId0), graph.getVertexPosition(vxId2), graph.getVertexPosition(vxId3)});
+
+        final int offset = snapshot.getOffsets()[position1];
+        assertEquals(snapshot.getWeights()[offset], 3F);
+        assertEquals(snapshot.getWeights()[offset + 1], 1F);
+
+        // the loop on vxId3 is not included
+        assertEquals(snapshot.getDegree(graph.getVertexPosition(vxId3)), 1);
+    }
+
+    @Test
+    public void testCountTransactions() {
+        final int[] counts = AdjacencySnapshot.countTransactions(graph, AdjacencySnapshot.Direction.OUTGOING, true);
+        assertEquals(counts[graph.getVertexPosition(vxId0)], 2);
+        assertEquals(counts[graph.getVertexPosition(vxId1)], 1);
+        assertEquals(counts[graph.getVertexPosition(vxId2)], 1);
+        assertEquals(counts[graph.getVertexPosition(vxId3)], 1);
+    }
+
+    @Test
+    public void testMultiply() {
+        final AdjacencySnapshot snapshot = AdjacencySnapshot.create(graph, AdjacencySnapshot.Direction.OUTGOING, false, true, weightAttribute);
+        final double[] x = new double[snapshot.getVertexCount()];
+        Arrays.fill(x, 1);
+        x[graph.getVertexPosition(vxId1)] = 5;
+        final double[] y = new double[snapshot.getVertexCount()];
+        snapshot.multiply(x, y);
+
+        assertEquals(y[graph.getVertexPosition(vxId0)], 15.0);
+        assertEquals(y[graph.getVertexPosition(vxId1)], 0.0);
+        assertEquals(y[graph.getVertexPosition(vxId2)], 5.0);
+        assertEquals(y[graph.getVertexPosition(vxId3)], 0.0);
+    }
+
+    private static int[] neighbours(final AdjacencySnapshot snapshot, final int position) {
+        final int offset = snapshot.getOffsets()[position];
+        return Arrays.copyOfRange(snapshot.getNeighbours(), offset, offset + snapshot.getDegree(position));
+    }
+}
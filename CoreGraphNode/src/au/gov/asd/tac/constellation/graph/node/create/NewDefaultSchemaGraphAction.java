@@ -18,7 +18,7 @@ package au.gov.asd.tac.constellation.graph.node.create;
 import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.WritableGraph;
 import au.gov.asd.tac.constellation.graph.file.opener.GraphOpener;
-import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.locking.LockingGraphUtilities;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactory;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactoryUtilities;
 import au.gov.asd.tac.constellation.preferences.ApplicationPreferenceKeys;
@@ -100,7 +100,7 @@ public class NewDefaultSchemaGraphAction extends AbstractAction implements Prefe
                 @Override
                 public void run() {
                     setName(GRAPH_ACTION_THREAD_NAME);
-                    final Graph graph = new DualGraph(schemaFactory.createSchema());
+                    final Graph graph = LockingGraphUtilities.createGraph(schemaFactory.createSchema());
                     final WritableGraph wg = graph.getWritableGraphNow("New " + schemaFactory.getLabel(), false);
                     try {
                         graph.getSchema().newGraph(wg);
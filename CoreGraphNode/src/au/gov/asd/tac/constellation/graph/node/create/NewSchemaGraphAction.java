@@ -18,7 +18,7 @@ package au.gov.asd.tac.constellation.graph.node.create;
 import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.WritableGraph;
 import au.gov.asd.tac.constellation.graph.file.opener.GraphOpener;
-import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.locking.LockingGraphUtilities;
 import au.gov.asd.tac.constellation.graph.node.GraphNodePluginRegistry;
 import au.gov.asd.tac.constellation.graph.node.templates.LoadTemplatePlugin;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactory;
@@ -98,7 +98,7 @@ public class NewSchemaGraphAction extends AbstractAction implements DynamicMenuC
                         @Override
                         public void run() {
                             setName(GRAPH_ACTION_THREAD_NAME);
-                            final Graph graph = new DualGraph(schemaFactory.createSchema());
+                            final Graph graph = LockingGraphUtilities.createGraph(schemaFactory.createSchema());
                             final WritableGraph wg = graph.getWritableGraphNow("New " + schemaFactory.getName(), false);
                             try {
                                 graph.getSchema().newGraph(wg);
@@ -15,6 +15,7 @@
  */
 package au.gov.asd.tac.constellation.views.histogram;
 
+import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.GraphElementType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
@@ -43,6 +44,15 @@ public class BinCollection {
     private int[] binElements;
     private int maxElementCount = -1;
 
+    // The state needed to re-bin the elements when the binned attribute changes
+    private String attribute;
+    private BinCreator binCreator;
+    private ElementSet filter;
+    private BinFormatter formatter;
+    private PluginParameters binFormatterParameters;
+    private Map<Bin, Bin> binMap;
+    private Bin[] elementBins;
+
     private final BinSelector binSelector = new BinSelector();
 
     /**
@@ -85,18 +95,64 @@ public class BinCollection {
 
         binSelector.setElementType(graph, elementType);
 
-        for (Bin bin : bins) {
-            bin.selectedCount = 0;
-
+        // each bin counts its own elements so the bins can be counted in parallel
+        Arrays.stream(bins).parallel().forEach(bin -> {
+            int selectedCount = 0;
             int position = bin.firstElement;
             while (position >= 0) {
                 final int element = elementType.getElement(graph, position);
                 if (binSelector.isSelected(graph, element)) {
-                    bin.selectedCount++;
+                    selectedCount++;
                 }
                 position = binElements[position];
             }
+            bin.selectedCount = selectedCount;
+        });
+    }
+
+    /**
+     * Re-bins the elements after the values of the binned attribute have
+     * changed. Elements are moved between the existing bins, so bins whose
+     * values are still present keep their identity, with new bins only being
+     * created for new values and bins left empty being removed.
+     * <p>
+     * This requires that the structure of the graph has not changed since the
+     * bins were created.
+     *
+     * @param graph the graph providing the data points for the histogram.
+     */
+    public void updateBins(GraphReadMethods graph) {
+        binCreator.createBins(graph, elementType, attribute, binMap, elementBins, filter, formatter, binFormatterParameters);
+        countBins(graph);
+    }
+
+    /**
+     * Count the elements in each bin and link them together, removing any bins
+     * that no longer hold any elements.
+     */
+    private void countBins(GraphReadMethods graph) {
+        for (Bin bin : binMap.keySet()) {
+            bin.elementCount = 0;
+            bin.selectedCount = 0;
+            bin.firstElement = -1;
         }
+
+        final int selectedAttributeId = graph.getAttribute(elementType.getSelectionElementType(), "selected");
+        for (int position = 0; position < elementBins.length; position++) {
+            final Bin bin = elementBins[position];
+            if (bin != null) {
+                bin.elementCount++;
+                if (selectedAttributeId != Graph.NOT_FOUND && elementType.isSelected(graph, elementType.getElement(graph, position), selectedAttributeId)) {
+                    bin.selectedCount++;
+                }
+                binElements[position] = bin.firstElement;
+                bin.firstElement = position;
+            }
+        }
+
+        binMap.keySet().removeIf(bin -> bin.elementCount == 0);
+        bins = binMap.keySet().toArray(new Bin[binMap.size()]);
+        maxElementCount = -1;
     }
 
     public void selectOnlyBins(GraphWriteMethods graph, int firstBin, int lastBin) {
@@ -220,15 +276,17 @@ public class BinCollection {
 
         final int elementCount = elementType.getElementCount(graph);
 
-        final int[] binElements = new int[elementCount];
-        Map<Bin, Bin> bins = new HashMap<>();
-
-        binCreator.createBins(graph, elementType, attribute, bins, binElements, filter, formatter, binFormatterParameters);
-
         BinCollection binCollection = new BinCollection();
         binCollection.elementType = elementType;
-        binCollection.bins = bins.keySet().toArray(new Bin[bins.size()]);
-        binCollection.binElements = binElements;
+        binCollection.attribute = attribute;
+        binCollection.binCreator = binCreator;
+        binCollection.filter = filter;
+        binCollection.formatter = formatter;
+        binCollection.binFormatterParameters = binFormatterParameters;
+        binCollection.binMap = new HashMap<>();
+        binCollection.elementBins = new Bin[elementCount];
+        binCollection.binElements = new int[elementCount];
+        binCollection.updateBins(graph);
 
         return binCollection;
     }
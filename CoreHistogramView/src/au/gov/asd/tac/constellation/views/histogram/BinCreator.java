@@ -21,7 +21,10 @@ import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.utilities.ElementSet;
 import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
 import au.gov.asd.tac.constellation.views.histogram.formats.BinFormatter;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * A BinCreator is the class that actually creates a collection of bins from the
@@ -55,42 +58,110 @@ public class BinCreator {
         return bin;
     }
 
-    public void createBins(GraphReadMethods graph, GraphElementType elementType, String attribute, Map<Bin, Bin> bins, int[] binElements, ElementSet filter, BinFormatter formatter, PluginParameters binFormatterParameters) {
+    /**
+     * Assigns each element of the graph to a bin, reusing any bins that
+     * already exist in the specified map and adding any new bins that are
+     * needed. Elements excluded by the filter are assigned no bin.
+     * <p>
+     * The element and selection counts of the bins are left to the caller,
+     * which allows the same method to be used both when a histogram is first
+     * created and when the binned attribute values change.
+     *
+     * @param graph the graph providing the data points for the histogram.
+     * @param elementType the type of element being binned.
+     * @param attribute the name of the binned attribute.
+     * @param bins the existing bins, to which any new bins will be added.
+     * @param elementBins the bin of each element, indexed by element position.
+     * @param filter the elements to include, or null to include all elements.
+     * @param formatter the formatter applied to the bins.
+     * @param binFormatterParameters the parameters of the formatter.
+     */
+    public void createBins(GraphReadMethods graph, GraphElementType elementType, String attribute, Map<Bin, Bin> bins, Bin[] elementBins, ElementSet filter, BinFormatter formatter, PluginParameters binFormatterParameters) {
         if (representative != null) {
-            createElementBins(graph, representative, bin.create(), elementType, attribute, bins, binElements, filter, formatter, binFormatterParameters);
+            createElementBins(graph, representative, bin.create(), elementType, attribute, bins, elementBins, filter, formatter, binFormatterParameters);
         }
     }
 
-    private static void createElementBins(GraphReadMethods graph, ElementRepresentative representative, Bin bin, GraphElementType elementType, String binnedAttribute, Map<Bin, Bin> bins, int[] binElements, ElementSet filter, BinFormatter formatter, PluginParameters binFormatterParameters) {
+    private static void createElementBins(GraphReadMethods graph, ElementRepresentative representative, Bin bin, GraphElementType elementType, String binnedAttribute, Map<Bin, Bin> bins, Bin[] elementBins, ElementSet filter, BinFormatter formatter, PluginParameters binFormatterParameters) {
         final GraphElementType representativeElementType = representative.getRepresentativeElementType(elementType);
         final int binnedAttributeId = binnedAttribute == null ? Graph.NOT_FOUND : graph.getAttribute(representativeElementType, binnedAttribute);
         bin.init(graph, binnedAttributeId);
 
-        final int selectedAttributeId = graph.getAttribute(elementType.getSelectionElementType(), "selected");
         final int elementCount = elementType.getElementCount(graph);
 
-        if (formatter != null) {
-            bin = formatter.createBin(graph, binnedAttributeId, binFormatterParameters, bin);
+        // Formatted bins wrap a single bin which they share with the bins they
+        // create, so only unformatted bins can be keyed on several threads.
+        final Bin keyBin = formatter != null ? formatter.createBin(graph, binnedAttributeId, binFormatterParameters, bin) : bin;
+        IntStream positions = IntStream.range(0, elementCount);
+        if (keyBin == bin) {
+            positions = positions.parallel();
         }
 
-        for (int position = 0; position < elementCount; position++) {
-            final int element = elementType.getElement(graph, position);
+        final BinKeyer keyer = positions.collect(() -> new BinKeyer(keyBin.create(), bins),
+                (worker, position) -> {
+                    final int element = elementType.getElement(graph, position);
+                    elementBins[position] = filter == null || filter.contains(graph, element)
+                            ? worker.findBin(graph, binnedAttributeId, representative.findRepresentative(graph, elementType, element))
+                            : null;
+                },
+                BinKeyer::merge);
 
-            if (filter == null || filter.contains(graph, element)) {
-                bin.setKey(graph, binnedAttributeId, representative.findRepresentative(graph, elementType, element));
-                Bin currentBin = bins.get(bin);
+        for (final Bin newBin : keyer.newBins.keySet()) {
+            newBin.prepareForPresentation();
+            bins.put(newBin, newBin);
+        }
+
+        if (!keyer.duplicateBins.isEmpty()) {
+            for (int position = 0; position < elementCount; position++) {
+                final Bin duplicateOf = keyer.duplicateBins.get(elementBins[position]);
+                if (duplicateOf != null) {
+                    elementBins[position] = duplicateOf;
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of a single worker finding the bins of elements. Bins that a
+     * worker has not seen before are kept to itself until the workers are
+     * merged, at which point bins found by more than one worker are recorded
+     * as duplicates so the elements referring to them can be corrected.
+     */
+    private static final class BinKeyer {
+
+        private final Map<Bin, Bin> existingBins;
+        private final Map<Bin, Bin> newBins = new HashMap<>();
+        private final Map<Bin, Bin> duplicateBins = new IdentityHashMap<>();
+        private Bin keyBin;
+
+        private BinKeyer(final Bin keyBin, final Map<Bin, Bin> existingBins) {
+            this.keyBin = keyBin;
+            this.existingBins = existingBins;
+        }
+
+        private Bin findBin(final GraphReadMethods graph, final int attribute, final int element) {
+            keyBin.setKey(graph, attribute, element);
+            Bin currentBin = existingBins.get(keyBin);
+            if (currentBin == null) {
+                currentBin = newBins.get(keyBin);
                 if (currentBin == null) {
-                    currentBin = bin;
-                    currentBin.prepareForPresentation();
-                    bin = currentBin.create();
-                    bins.put(currentBin, currentBin);
+                    currentBin = keyBin;
+                    newBins.put(currentBin, currentBin);
+                    keyBin = currentBin.create();
                 }
-                currentBin.elementCount++;
-                if (selectedAttributeId != Graph.NOT_FOUND && elementType.isSelected(graph, element, selectedAttributeId)) {
-                    currentBin.selectedCount++;
+            }
+            return currentBin;
+        }
+
+        private void merge(final BinKeyer other) {
+            for (final Bin otherBin : other.newBins.keySet()) {
+                final Bin currentBin = newBins.putIfAbsent(otherBin, otherBin);
+                if (currentBin != null) {
+                    duplicateBins.put(otherBin, currentBin);
                 }
-                binElements[position] = currentBin.firstElement < 0 ? -1 : currentBin.firstElement;
-                currentBin.firstElement = position;
+            }
+            for (final Map.Entry<Bin, Bin> duplicate : other.duplicateBins.entrySet()) {
+                duplicateBins.put(duplicate.getKey(), newBins.get(duplicate.getValue()));
             }
         }
     }
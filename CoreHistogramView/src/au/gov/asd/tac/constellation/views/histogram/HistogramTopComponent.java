@@ -102,6 +102,7 @@ public final class HistogramTopComponent extends TopComponent implements GraphMa
     private HistogramState currentHistogramState = new HistogramState();
     private int binnedAttribute = Graph.NOT_FOUND;
     private BinCollection currentBinCollection = null;
+    private BinIconMode currentBinIconMode = BinIconMode.NONE;
     private int selectedAttribute = Graph.NOT_FOUND;
     private long latestGraphChangeID = 0;
     private ElementSet currentFilter;
@@ -185,6 +186,7 @@ public final class HistogramTopComponent extends TopComponent implements GraphMa
             if (currentGraph != null) {
 
                 boolean binCollectionModified = false;
+                boolean binsModified = false;
 
                 ReadableGraph rg = currentGraph.getReadableGraph();
                 try {
@@ -216,8 +218,15 @@ public final class HistogramTopComponent extends TopComponent implements GraphMa
                             long oldBinnedModificationCount = currentBinnedModificationCount;
                             currentBinnedModificationCount = rg.getValueModificationCounter(binnedAttribute);
                             if (currentBinnedModificationCount != oldBinnedModificationCount) {
-                                reset();
-                                return;
+                                if (currentBinCollection == null) {
+                                    reset(rg);
+                                    return;
+                                }
+
+                                // the elements are unchanged so only their bins need updating
+                                currentBinCollection.updateBins(rg);
+                                currentBinCollection.sort(currentHistogramState.getBinComparator());
+                                binsModified = true;
                             }
                         }
 
@@ -281,7 +290,9 @@ public final class HistogramTopComponent extends TopComponent implements GraphMa
                             }
                         }
 
-                        if (binCollectionModified) {
+                        if (binsModified) {
+                            display.setBinCollection(currentBinCollection, currentBinIconMode);
+                        } else if (binCollectionModified) {
                             display.updateBinCollection();
                         }
                     }
@@ -313,6 +324,7 @@ public final class HistogramTopComponent extends TopComponent implements GraphMa
         if (graph == null) {
             currentHistogramState = null;
             controls.setHistogramState(null, null);
+            currentBinIconMode = BinIconMode.NONE;
             display.setBinCollection(null, BinIconMode.NONE);
             currentFilter = null;
             return;
@@ -376,6 +388,7 @@ public final class HistogramTopComponent extends TopComponent implements GraphMa
                 currentBinCollection.sort(currentHistogramState.getBinComparator());
             }
         }
+        currentBinIconMode = binIconMode;
         display.setBinCollection(currentBinCollection, binIconMode);
     }
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.histogram;
+
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.StoreGraph;
+import au.gov.asd.tac.constellation.graph.attribute.BooleanAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.FloatAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.StringAttributeDescription;
+import au.gov.asd.tac.constellation.graph.utilities.ElementSet;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.views.histogram.formats.BinFormatter;
+import au.gov.asd.tac.constellation.views.histogram.formats.IntegerRangeBinFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Bin Collection Test.
+ *
+ * @author agent
+ */
+public class BinCollectionNGTest {
+
+    private static final int VERTEX_COUNT = 5000;
+
+    private StoreGraph graph;
+    private int nameAttribute;
+    private int countAttribute;
+    private int weightAttribute;
+    private int selectedAttribute;
+
+    @BeforeMethod
+    public void setUpMethod() {
+        graph = new StoreGraph();
+        nameAttribute = graph.addAttribute(GraphElementType.VERTEX, StringAttributeDescription.ATTRIBUTE_NAME, "name", null, null, null);
+        countAttribute = graph.addAttribute(GraphElementType.VERTEX, IntegerAttributeDescription.ATTRIBUTE_NAME, "count", null, null, null);
+        weightAttribute = graph.addAttribute(GraphElementType.VERTEX, FloatAttributeDescription.ATTRIBUTE_NAME, "weight", null, null, null);
+        selectedAttribute = graph.addAttribute(GraphElementType.VERTEX, BooleanAttributeDescription.ATTRIBUTE_NAME, "selected", null, null, null);
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            graph.addVertex();
+        }
+        setInitialValues();
+    }
+
+    private void setInitialValues() {
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            final int vxId = graph.getVertex(i);
+            graph.setStringValue(nameAttribute, vxId, i % 7 == 0 ? null : "name" + (i % 50));
+            graph.setIntValue(countAttribute, vxId, i % 37);
+            graph.setFloatValue(weightAttribute, vxId, (i % 11) / 4F);
+            graph.setBooleanValue(selectedAttribute, vxId, i % 3 == 0);
+        }
+    }
+
+    private BinCollection createBinCollection(final String attribute, final ElementSet filter, final BinFormatter formatter, final PluginParameters parameters) {
+        final Map<String, BinCreator> binCreators = new HashMap<>();
+        AttributeType.ATTRIBUTE.addBinCreators(graph, GraphElementType.VERTEX, binCreators);
+        return BinCollection.createBinCollection(graph, GraphElementType.VERTEX, attribute, binCreators.get(attribute), filter, formatter, parameters);
+    }
+
+    /**
+     * Describe each bin of a collection by its label, counts and elements, in
+     * a form that does not depend on the order of the bins or their elements.
+     */
+    private Map<String, String> describe(final BinCollection binCollection) {
+        final Map<String, String> description = new TreeMap<>();
+        int elementCount = 0;
+        for (final Bin bin : binCollection.getBins()) {
+            final TreeSet<Integer> elements = new TreeSet<>();
+            int position = bin.firstElement;
+            while (position >= 0) {
+                elements.add(graph.getVertex(position));
+                position = binCollection.getBinElements()[position];
+            }
+            assertEquals(elements.size(), bin.elementCount, bin.toString());
+            assertTrue(bin.elementCount > 0, bin.toString());
+            elementCount += bin.elementCount;
+            final String previous = description.put(String.valueOf(bin.getLabel()), bin.selectedCount + "/" + bin.elementCount + " " + elements);
+            assertNull(previous, "duplicate bin " + bin);
+        }
+        description.put("<elements>", String.valueOf(elementCount));
+        description.put("<max>", String.valueOf(binCollection.getMaxElementCount()));
+        return description;
+    }
+
+    /**
+     * Change the values of the binned attributes, replacing some values with
+     * new ones, removing others entirely and moving elements between the
+     * remaining bins.
+     */
+    private void changeValues() {
+        for (int i = 0; i < VERTEX_COUNT; i += 3) {
+            final int vxId = graph.getVertex(i);
+            graph.setStringValue(nameAttribute, vxId, i % 2 == 0 ? "new" + (i % 5) : null);
+            graph.setIntValue(countAttribute, vxId, i % 2 == 0 ? 100 + (i % 4) : i % 5);
+            graph.setFloatValue(weightAttribute, vxId, -i % 3);
+        }
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            final int vxId = graph.getVertex(i);
+            if (graph.getIntValue(countAttribute, vxId) == 36) {
+                graph.setIntValue(countAttribute, vxId, 35);
+            }
+            if ("name49".equals(graph.getStringValue(nameAttribute, vxId))) {
+                graph.setStringValue(nameAttribute, vxId, "name48");
+            }
+            graph.setBooleanValue(selectedAttribute, vxId, i % 5 == 0);
+        }
+    }
+
+    private void checkUpdate(final String attribute, final ElementSet filter, final BinFormatter formatter, final PluginParameters parameters) {
+        final BinCollection binCollection = createBinCollection(attribute, filter, formatter, parameters);
+        assertEquals(describe(binCollection), describe(createBinCollection(attribute, filter, formatter, parameters)), attribute);
+
+        changeValues();
+        binCollection.updateBins(graph);
+        assertEquals(describe(binCollection), describe(createBinCollection(attribute, filter, formatter, parameters)), attribute);
+
+        // and back again, so bins removed by the first change are needed again
+        setInitialValues();
+        binCollection.updateBins(graph);
+        assertEquals(describe(binCollection), describe(createBinCollection(attribute, filter, formatter, parameters)), attribute);
+    }
+
+    @Test
+    public void updateStringBinsTest() {
+        checkUpdate("name", null, BinFormatter.DEFAULT_BIN_FORMATTER, null);
+    }
+
+    @Test
+    public void updateIntegerBinsTest() {
+        checkUpdate("count", null, BinFormatter.DEFAULT_BIN_FORMATTER, null);
+    }
+
+    @Test
+    public void updateFloatBinsTest() {
+        checkUpdate("weight", null, BinFormatter.DEFAULT_BIN_FORMATTER, null);
+    }
+
+    @Test
+    public void updateFormattedBinsTest() {
+        final IntegerRangeBinFormatter formatter = new IntegerRangeBinFormatter();
+        checkUpdate("count", null, formatter, formatter.createParameters());
+    }
+
+    @Test
+    public void updateFilteredBinsTest() {
+        final ElementSet filter = new ElementSet(GraphElementType.VERTEX);
+        for (int i = 0; i < VERTEX_COUNT; i += 2) {
+            filter.add(graph, graph.getVertex(i));
+        }
+        checkUpdate("count", filter, BinFormatter.DEFAULT_BIN_FORMATTER, null);
+    }
+
+    @Test
+    public void updateSelectionTest() {
+        final BinCollection binCollection = createBinCollection("name", null, BinFormatter.DEFAULT_BIN_FORMATTER, null);
+        for (int i = 0; i < VERTEX_COUNT; i++) {
+            graph.setBooleanValue(selectedAttribute, graph.getVertex(i), i % 4 == 1);
+        }
+        binCollection.updateSelection(graph);
+        assertEquals(describe(binCollection), describe(createBinCollection("name", null, BinFormatter.DEFAULT_BIN_FORMATTER, null)));
+    }
+}
@@ -125,28 +125,35 @@ public class ImportDelimitedPlugin extends SimpleEditPlugin {
 
         for (final File file : files) {
             interaction.setProgress(0, 0, "Reading File: " + file.getName(), true);
-            List<String[]> data = null;
-            try {
-                data = parser.parse(new InputSource(file), parserParameters);
-            } catch (IOException ex) {
-                throw new PluginException(this, PluginNotificationLevel.ERROR, "Error reading file: " + file.getName(), ex);
-            }
 
             for (final ImportDefinition definition : definitions) {
-                if (definition.getDefinitions(AttributeType.SOURCE_VERTEX).isEmpty()) {
-                    if (!definition.getDefinitions(AttributeType.DESTINATION_VERTEX).isEmpty()) {
-                        processVertices(definition, graph, data, AttributeType.DESTINATION_VERTEX, initialiseWithSchema, interaction, file.getName(), newVertices);
-                    }
-                } else if (definition.getDefinitions(AttributeType.DESTINATION_VERTEX).isEmpty()) {
-                    processVertices(definition, graph, data, AttributeType.SOURCE_VERTEX, initialiseWithSchema, interaction, file.getName(), newVertices);
-                } else {
-                    processTransactions(definition, graph, data, initialiseWithSchema, interaction, file.getName());
-                }
+                addAttributes(graph, definition);
 
                 // Determine if a positional attribute has been defined, if so update the overall flag
                 final boolean isPositional = attributeDefintionIsPositional(definition.getDefinitions(AttributeType.SOURCE_VERTEX), definition.getDefinitions(AttributeType.DESTINATION_VERTEX));
                 positionalAtrributesExist = (positionalAtrributesExist || isPositional);
             }
+
+            // The rows are read and added to the graph a batch at a time so
+            // that the whole file is never held in memory.
+            try {
+                parser.parse(new InputSource(file), parserParameters, ImportFileParser.DEFAULT_BATCH_SIZE, (rows, firstRow) -> {
+                    for (final ImportDefinition definition : definitions) {
+                        if (definition.getDefinitions(AttributeType.SOURCE_VERTEX).isEmpty()) {
+                            if (!definition.getDefinitions(AttributeType.DESTINATION_VERTEX).isEmpty()) {
+                                processVertices(definition, graph, rows, firstRow, AttributeType.DESTINATION_VERTEX, initialiseWithSchema, newVertices);
+                            }
+                        } else if (definition.getDefinitions(AttributeType.DESTINATION_VERTEX).isEmpty()) {
+                            processVertices(definition, graph, rows, firstRow, AttributeType.SOURCE_VERTEX, initialiseWithSchema, newVertices);
+                        } else {
+                            processTransactions(definition, graph, rows, firstRow, initialiseWithSchema);
+                        }
+                    }
+                    interaction.setProgress(0, 0, String.format("Importing %s: %,d rows", file.getName(), firstRow + rows.size()), true);
+                });
+            } catch (IOException ex) {
+                throw new PluginException(this, PluginNotificationLevel.ERROR, "Error reading file: " + file.getName(), ex);
+            }
         }
 
         ConstellationLoggerHelper.importPropertyBuilder(
@@ -187,26 +194,40 @@ public class ImportDelimitedPlugin extends SimpleEditPlugin {
         return destAttributeDefinitions.stream().map(attribute -> attribute.getAttribute().getName()).anyMatch(name -> (VisualConcept.VertexAttribute.X.getName().equals(name) || VisualConcept.VertexAttribute.Y.getName().equals(name) || VisualConcept.VertexAttribute.Z.getName().equals(name)));
     }
 
-    private static void processVertices(ImportDefinition definition, GraphWriteMethods graph, List<String[]> data, AttributeType attributeType, boolean initialiseWithSchema, PluginInteraction interaction, String source, final List<Integer> newVertices) throws InterruptedException {
-        final List<ImportAttributeDefinition> attributeDefinitions = definition.getDefinitions(attributeType);
-
-        addAttributes(graph, GraphElementType.VERTEX, attributeDefinitions);
+    /**
+     * Add the attributes required by an import definition to the graph.
+     *
+     * @param graph
+     * @param definition
+     */
+    private static void addAttributes(final GraphWriteMethods graph, final ImportDefinition definition) {
+        final List<ImportAttributeDefinition> sourceVertexDefinitions = definition.getDefinitions(AttributeType.SOURCE_VERTEX);
+        final List<ImportAttributeDefinition> destinationVertexDefinitions = definition.getDefinitions(AttributeType.DESTINATION_VERTEX);
+        if (sourceVertexDefinitions.isEmpty()) {
+            addAttributes(graph, GraphElementType.VERTEX, destinationVertexDefinitions);
+        } else if (destinationVertexDefinitions.isEmpty()) {
+            addAttributes(graph, GraphElementType.VERTEX, sourceVertexDefinitions);
+        } else {
+            addAttributes(graph, GraphElementType.VERTEX, sourceVertexDefinitions);
+            addAttributes(graph, GraphElementType.VERTEX, destinationVertexDefinitions);
+            addAttributes(graph, GraphElementType.TRANSACTION, definition.getDefinitions(AttributeType.TRANSACTION));
+        }
+    }
 
-        int currentRow = 0;
-        final int totalRows = data.size() - definition.getFirstRow();
+    private static void processVertices(ImportDefinition definition, GraphWriteMethods graph, List<String[]> rows, int firstRow, AttributeType attributeType, boolean initialiseWithSchema, final List<Integer> newVertices) {
+        final List<ImportAttributeDefinition> attributeDefinitions = definition.getDefinitions(attributeType);
 
         final RowFilter filter = definition.getRowFilter();
 
-        for (int i = definition.getFirstRow(); i < data.size(); i++) {
-            interaction.setProgress(++currentRow, totalRows, "Importing Vertices: " + source, true);
-
-            final String[] row = data.get(i);
-            if (filter == null || filter.passesFilter(i, row)) {
+        for (int i = Math.max(0, definition.getFirstRow() - firstRow); i < rows.size(); i++) {
+            final int rowIndex = firstRow + i;
+            final String[] row = rows.get(i);
+            if (filter == null || filter.passesFilter(rowIndex, row)) {
                 final int vertexId = graph.addVertex();
                 newVertices.add(vertexId);
 
                 for (final ImportAttributeDefinition attributeDefinition : attributeDefinitions) {
-                    attributeDefinition.setValue(graph, vertexId, row, (i - 1));
+                    attributeDefinition.setValue(graph, vertexId, row, (rowIndex - 1));
                 }
 
                 if (initialiseWithSchema && graph.getSchema() != null) {
@@ -216,7 +237,7 @@ public class ImportDelimitedPlugin extends SimpleEditPlugin {
         }
     }
 
-    private static void processTransactions(ImportDefinition definition, GraphWriteMethods graph, List<String[]> data, boolean initialiseWithSchema, PluginInteraction interaction, String source) throws InterruptedException {
+    private static void processTransactions(ImportDefinition definition, GraphWriteMethods graph, List<String[]> rows, int firstRow, boolean initialiseWithSchema) {
         final List<ImportAttributeDefinition> sourceVertexDefinitions = definition.getDefinitions(AttributeType.SOURCE_VERTEX);
         final List<ImportAttributeDefinition> destinationVertexDefinitions = definition.getDefinitions(AttributeType.DESTINATION_VERTEX);
         final List<ImportAttributeDefinition> transactionDefinitions = definition.getDefinitions(AttributeType.TRANSACTION);
@@ -229,24 +250,16 @@ public class ImportDelimitedPlugin extends SimpleEditPlugin {
             }
         }
 
-        addAttributes(graph, GraphElementType.VERTEX, sourceVertexDefinitions);
-        addAttributes(graph, GraphElementType.VERTEX, destinationVertexDefinitions);
-        addAttributes(graph, GraphElementType.TRANSACTION, transactionDefinitions);
-
-        int currentRow = 0;
-        final int totalRows = data.size() - definition.getFirstRow();
-
         final RowFilter filter = definition.getRowFilter();
 
-        for (int i = definition.getFirstRow(); i < data.size(); i++) {
-            interaction.setProgress(++currentRow, totalRows, "Importing Transactions: " + source, true);
-
-            final String[] row = data.get(i);
+        for (int i = Math.max(0, definition.getFirstRow() - firstRow); i < rows.size(); i++) {
+            final int rowIndex = firstRow + i;
+            final String[] row = rows.get(i);
 
-            if (filter == null || filter.passesFilter(i, row)) {
+            if (filter == null || filter.passesFilter(rowIndex, row)) {
                 final int sourceVertexId = graph.addVertex();
                 for (final ImportAttributeDefinition attributeDefinition : sourceVertexDefinitions) {
-                    attributeDefinition.setValue(graph, sourceVertexId, row, (i - 1));
+                    attributeDefinition.setValue(graph, sourceVertexId, row, (rowIndex - 1));
                 }
                 if (initialiseWithSchema && graph.getSchema() != null) {
                     graph.getSchema().completeVertex(graph, sourceVertexId);
@@ -254,7 +267,7 @@ public class ImportDelimitedPlugin extends SimpleEditPlugin {
 
                 final int destinationVertexId = graph.addVertex();
                 for (final ImportAttributeDefinition attributeDefinition : destinationVertexDefinitions) {
-                    attributeDefinition.setValue(graph, destinationVertexId, row, (i - 1));
+                    attributeDefinition.setValue(graph, destinationVertexId, row, (rowIndex - 1));
                 }
                 if (initialiseWithSchema && graph.getSchema() != null) {
                     graph.getSchema().completeVertex(graph, destinationVertexId);
@@ -264,7 +277,7 @@ public class ImportDelimitedPlugin extends SimpleEditPlugin {
                 final int transactionId = graph.addTransaction(sourceVertexId, destinationVertexId, isDirected);
                 for (final ImportAttributeDefinition attributeDefinition : transactionDefinitions) {
                     if (attributeDefinition.getOverriddenAttributeId() != Graph.NOT_FOUND) {
-                        attributeDefinition.setValue(graph, transactionId, row, (i - 1));
+                        attributeDefinition.setValue(graph, transactionId, row, (rowIndex - 1));
                     }
                 }
                 if (initialiseWithSchema && graph.getSchema() != null) {
@@ -17,7 +17,7 @@ package au.gov.asd.tac.constellation.plugins.importexport.delimited;
 
 import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.WritableGraph;
-import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.locking.LockingGraphUtilities;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactory;
 
 /**
@@ -41,7 +41,7 @@ public class SchemaDestination extends ImportDestination<SchemaFactory> {
     public Graph getGraph() {
         SchemaFactory schemaFactory = getDestination();
 
-        Graph graph = new DualGraph(schemaFactory.createSchema());
+        Graph graph = LockingGraphUtilities.createGraph(schemaFactory.createSchema());
 
         WritableGraph wg = graph.getWritableGraphNow("New Graph", true);
         try {
@@ -44,33 +44,32 @@ public class CSVImportFileParser extends ImportFileParser {
     public List<String[]> parse(final InputSource input, final PluginParameters parameters) throws IOException {
         final ArrayList<String[]> results = new ArrayList<>();
         try (final CSVParser csvFileParser = CSVFormat.RFC4180.parse(new InputStreamReader(input.getInputStream(), StandardCharsets.UTF_8.name()))) {
-            final List<CSVRecord> records = csvFileParser.getRecords();
-            for (final CSVRecord record : records) {
-                final String[] line = new String[record.size()];
-                for (int i = 0; i < record.size(); i++) {
-                    line[i] = record.get(i);
-                }
-                results.add(line);
+            for (final CSVRecord record : csvFileParser) {
+                results.add(getLine(record));
             }
         }
         return results;
     }
 
+    @Override
+    public void parse(final InputSource input, final PluginParameters parameters, final int batchSize, final RowHandler handler) throws IOException, InterruptedException {
+        final RowBatcher batcher = new RowBatcher(batchSize, handler);
+        try (final CSVParser csvFileParser = CSVFormat.RFC4180.parse(new InputStreamReader(input.getInputStream(), StandardCharsets.UTF_8.name()))) {
+            for (final CSVRecord record : csvFileParser) {
+                batcher.add(getLine(record));
+            }
+        }
+        batcher.flush();
+    }
+
     @Override
     public List<String[]> preview(final InputSource input, final PluginParameters parameters, final int limit) throws IOException {
         // Leave the header on, as the importer expects this as the first entry.
         final ArrayList<String[]> results = new ArrayList<>();
         try (final CSVParser csvFileParser = CSVFormat.RFC4180.parse(new InputStreamReader(input.getInputStream(), StandardCharsets.UTF_8.name()))) {
-            int count = 0;
-            final List<CSVRecord> records = csvFileParser.getRecords();
-            for (final CSVRecord record : records) {
-                final String[] line = new String[record.size()];
-                for (int i = 0; i < record.size(); i++) {
-                    line[i] = record.get(i);
-                }
-                results.add(line);
-                count += 1;
-                if (count >= limit) {
+            for (final CSVRecord record : csvFileParser) {
+                results.add(getLine(record));
+                if (results.size() >= limit) {
                     return results;
                 }
             }
@@ -78,6 +77,14 @@ public class CSVImportFileParser extends ImportFileParser {
         return results;
     }
 
+    private static String[] getLine(final CSVRecord record) {
+        final String[] line = new String[record.size()];
+        for (int i = 0; i < record.size(); i++) {
+            line[i] = record.get(i);
+        }
+        return line;
+    }
+
     @Override
     public ExtensionFilter getExtensionFilter() {
         return new ExtensionFilter("CSV Files", "*.csv");
@@ -28,6 +28,8 @@ import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
@@ -131,6 +133,52 @@ public class ExcelImportFileParser extends ImportFileParser {
         return results;
     }
 
+    @Override
+    public void parse(final InputSource input, final PluginParameters parameters, final int batchSize, final RowHandler handler) throws IOException, InterruptedException {
+        final RowBatcher batcher = new RowBatcher(batchSize, handler);
+        if (input.getFile().getName().endsWith("xlsx")) {
+            try (XSSFWorkbook wb = new XSSFWorkbook(input.getInputStream())) {
+                parseSheet(wb.getSheetAt(0), batcher);
+            }
+        } else if (input.getFile().getName().endsWith("xls")) {
+            try (HSSFWorkbook wb = new HSSFWorkbook(input.getInputStream())) {
+                parseSheet(wb.getSheetAt(0), batcher);
+            }
+        }
+        batcher.flush();
+    }
+
+    /**
+     * Pass each row of a sheet to a RowBatcher as it is read rather than
+     * collecting them into a list first.
+     */
+    private void parseSheet(final Sheet sheet, final RowBatcher batcher) throws InterruptedException {
+        final int rows = sheet.getPhysicalNumberOfRows();
+
+        // This trick ensures that we get the data properly even if it doesn't start from first few rows
+        int cols = 0;
+        for (int i = 0; i < 10 || i < rows; i++) {
+            final Row row = sheet.getRow(i);
+            if (row != null) {
+                cols = Math.max(cols, row.getPhysicalNumberOfCells());
+            }
+        }
+
+        for (int r = 0; r < rows; r++) {
+            final Row row = sheet.getRow(r);
+            if (row != null) {
+                final String[] line = new String[cols];
+                for (int c = 0; c < cols; c++) {
+                    final Cell cell = row.getCell(c);
+                    if (cell != null) {
+                        line[c] = getCellStringValue(cell);
+                    }
+                }
+                batcher.add(line);
+            }
+        }
+    }
+
     @Override
     public List<String[]> preview(final InputSource input, final PluginParameters parameters, final int limit) throws IOException {
         // Leave the header on, as the importer expects this as the first entry.
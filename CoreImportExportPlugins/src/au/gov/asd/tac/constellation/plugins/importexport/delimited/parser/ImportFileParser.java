@@ -32,6 +32,11 @@ import org.openide.util.lookup.ServiceProvider;
  * An ImportFileParser is responsible for converting a file into a table of
  * data. Current implementations include converting from CSV, TSV and SQLLite.
  * <p>
+ * Large files should be read with
+ * {@link #parse(InputSource, PluginParameters, int, RowHandler)}, which passes
+ * the rows to a {@link RowHandler} in batches so that the whole table never
+ * needs to be held in memory.
+ * <p>
  * New parsers can be created by extending this class and registering the
  * subclass as a {@link ServiceProvider}.
  *
@@ -42,6 +47,11 @@ public abstract class ImportFileParser {
     private static final Map<String, ImportFileParser> PARSERS = new LinkedHashMap<>();
     private static final Map<String, ImportFileParser> UNMODIFIABLE_PARSERS = Collections.unmodifiableMap(PARSERS);
 
+    /**
+     * The default number of rows passed to a {@link RowHandler} at a time.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 10000;
+
     public static final ImportFileParser DEFAULT_PARSER = getParsers().values().iterator().next();
 
     private static synchronized void init() {
@@ -159,6 +169,31 @@ public abstract class ImportFileParser {
      */
     public abstract List<String[]> parse(final InputSource input, final PluginParameters parameters) throws IOException;
 
+    /**
+     * Reads the entire file, passing the rows to the specified handler in
+     * batches of at most {@code batchSize} rows.
+     * <p>
+     * The default implementation calls
+     * {@link #parse(InputSource, PluginParameters)} and splits the result into
+     * batches. Parsers that are able to read a file incrementally should
+     * override this method so that the memory required is bounded by the batch
+     * size rather than the size of the file.
+     *
+     * @param input Input file
+     * @param parameters the parameters that configure the parse operation.
+     * @param batchSize the maximum number of rows in each batch.
+     * @param handler the handler that receives each batch of rows.
+     * @throws IOException if an error occurred while reading the file.
+     * @throws InterruptedException if the handler was cancelled.
+     */
+    public void parse(final InputSource input, final PluginParameters parameters, final int batchSize, final RowHandler handler) throws IOException, InterruptedException {
+        final RowBatcher batcher = new RowBatcher(batchSize, handler);
+        for (final String[] row : parse(input, parameters)) {
+            batcher.add(row);
+        }
+        batcher.flush();
+    }
+
     /**
      * Reads only {@code limit} lines and returns a List of String arrays, each
      * of which represents a row in the resulting table.
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.importexport.delimited.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A RowBatcher collects rows into batches of a fixed size and passes each
+ * batch to a {@link RowHandler} as soon as it is full.
+ *
+ * @author agent
+ */
+public final class RowBatcher {
+
+    private final int batchSize;
+    private final RowHandler handler;
+    private final List<String[]> batch;
+    private int firstRow = 0;
+
+    /**
+     * Create a new RowBatcher.
+     *
+     * @param batchSize the maximum number of rows in a batch.
+     * @param handler the handler that receives each batch.
+     */
+    public RowBatcher(final int batchSize, final RowHandler handler) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.handler = handler;
+        this.batch = new ArrayList<>(Math.min(batchSize, 1024));
+    }
+
+    /**
+     * Add a row, passing the current batch to the handler if it is now full.
+     *
+     * @param row the row to add.
+     * @throws InterruptedException if the handler was cancelled.
+     */
+    public void add(final String[] row) throws InterruptedException {
+        batch.add(row);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Pass any remaining rows to the handler.
+     *
+     * @throws InterruptedException if the handler was cancelled.
+     */
+    public void flush() throws InterruptedException {
+        if (!batch.isEmpty()) {
+            handler.handleRows(batch, firstRow);
+            firstRow += batch.size();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Returns the number of rows that have been added to this RowBatcher.
+     *
+     * @return the number of rows that have been added to this RowBatcher.
+     */
+    public int getRowCount() {
+        return firstRow + batch.size();
+    }
+}
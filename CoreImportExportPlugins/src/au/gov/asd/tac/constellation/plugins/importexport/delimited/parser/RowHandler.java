@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins.importexport.delimited.parser;
+
+import java.util.List;
+
+/**
+ * A RowHandler receives the rows of a table from an {@link ImportFileParser}
+ * in batches as they are read.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Process a batch of rows.
+     * <p>
+     * The list is only valid for the duration of the call; the parser is free
+     * to reuse or discard it afterwards.
+     *
+     * @param rows the rows in this batch.
+     * @param firstRow the index of the first row of this batch in the table.
+     * @throws InterruptedException if the operation is cancelled.
+     */
+    public void handleRows(final List<String[]> rows, final int firstRow) throws InterruptedException;
+}
@@ -134,6 +134,16 @@ public class SQLiteImportFileParser extends ImportFileParser {
         }
     }
 
+    @Override
+    public void parse(final InputSource input, final PluginParameters parameters, final int batchSize, final RowHandler handler) throws IOException, InterruptedException {
+        final String tableName = parameters.getParameters().get(TABLE_PARAMETER_ID).getStringValue();
+        if (tableName != null) {
+            final RowBatcher batcher = new RowBatcher(batchSize, handler);
+            readTable(input, tableName, -1, batcher);
+            batcher.flush();
+        }
+    }
+
     @Override
     public List<String[]> preview(final InputSource input, final PluginParameters parameters, final int limit) throws IOException {
         final String tableName = parameters.getParameters().get(TABLE_PARAMETER_ID).getStringValue();
@@ -146,7 +156,18 @@ public class SQLiteImportFileParser extends ImportFileParser {
 
     private static List<String[]> readTable(final InputSource input, final String tableName, final int limit) {
         final List<String[]> result = new ArrayList<>();
+        try {
+            final RowBatcher batcher = new RowBatcher(Integer.MAX_VALUE, (rows, firstRow) -> result.addAll(rows));
+            readTable(input, tableName, limit, batcher);
+            batcher.flush();
+        } catch (InterruptedException ex) {
+            // The handler above never throws.
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
 
+    private static void readTable(final InputSource input, final String tableName, final int limit, final RowBatcher batcher) throws InterruptedException {
         try {
             Class.forName("org.sqlite.JDBC");
 
@@ -165,14 +186,14 @@ public class SQLiteImportFileParser extends ImportFileParser {
                             for (int i = 1; i <= metaData.getColumnCount(); i++) {
                                 columnNames.add(metaData.getColumnLabel(i));
                             }
-                            result.add(columnNames.toArray(new String[columnNames.size()]));
+                            batcher.add(columnNames.toArray(new String[columnNames.size()]));
 
                             while (resultSet.next()) {
                                 final String[] row = new String[columnNames.size()];
                                 for (int i = 1; i <= row.length; i++) {
                                     row[i - 1] = resultSet.getString(i);
                                 }
-                                result.add(row);
+                                batcher.add(row);
                             }
                         }
                     }
@@ -182,7 +203,5 @@ public class SQLiteImportFileParser extends ImportFileParser {
         } catch (IOException | ClassNotFoundException | SQLException ex) {
             LOGGER.log(Level.SEVERE, ex.getLocalizedMessage(), ex);
         }
-
-        return result;
     }
 }
@@ -55,6 +55,21 @@ public class TSVImportFileParser extends ImportFileParser {
         return result;
     }
 
+    @Override
+    public void parse(final InputSource input, final PluginParameters parameters, final int batchSize, final RowHandler handler) throws IOException, InterruptedException {
+        final RowBatcher batcher = new RowBatcher(batchSize, handler);
+        try (InputStream in = input.getInputStream()) {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8.name()));
+
+            String line = reader.readLine();
+            while (line != null) {
+                batcher.add(line.split("\t", -1));
+                line = reader.readLine();
+            }
+        }
+        batcher.flush();
+    }
+
     @Override
     public List<String[]> preview(final InputSource input, final PluginParameters parameters, final int limit) throws IOException {
         final List<String[]> result = new ArrayList<>();
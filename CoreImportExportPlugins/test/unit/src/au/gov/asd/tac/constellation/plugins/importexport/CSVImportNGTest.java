@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
@@ -62,4 +63,24 @@ public class CSVImportNGTest {
         }
 
     }
+
+    @Test
+    public void checkCSVStreamingLoadTest() throws InterruptedException {
+        final CSVImportFileParser parser = new CSVImportFileParser();
+        final int[] rowCount = new int[1];
+        final int[] batchCount = new int[1];
+        try {
+            parser.parse(new InputSource(new File(this.getClass().getResource("./resources/large.csv").getFile())), null, 10000, (rows, firstRow) -> {
+                assertEquals(firstRow, rowCount[0]);
+                assertTrue(rows.size() <= 10000);
+                assertEquals(rows.get(0)[0], "test line " + firstRow);
+                rowCount[0] += rows.size();
+                batchCount[0]++;
+            });
+            assertEquals(rowCount[0], 53000);
+            assertEquals(batchCount[0], 6);
+        } catch (IOException ex) {
+            fail("IO Exception : " + ex.getLocalizedMessage());
+        }
+    }
 }
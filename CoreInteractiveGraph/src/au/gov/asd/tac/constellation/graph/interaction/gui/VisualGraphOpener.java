@@ -22,6 +22,7 @@ import au.gov.asd.tac.constellation.graph.file.GraphObjectUtilities;
 import au.gov.asd.tac.constellation.graph.file.io.GraphJsonReader;
 import au.gov.asd.tac.constellation.graph.file.io.GraphParseException;
 import au.gov.asd.tac.constellation.graph.file.opener.GraphOpener;
+import au.gov.asd.tac.constellation.graph.file.save.AutosaveJournal;
 import au.gov.asd.tac.constellation.graph.file.save.AutosaveUtilities;
 import au.gov.asd.tac.constellation.plugins.PluginException;
 import au.gov.asd.tac.constellation.plugins.PluginExecution;
@@ -110,11 +111,11 @@ public final class VisualGraphOpener extends GraphOpener {
                     final NotifyDescriptor nd = new NotifyDescriptor(msg, "Open autosaved file?", NotifyDescriptor.YES_NO_OPTION, NotifyDescriptor.QUESTION_MESSAGE, null, null);
                     if (DialogDisplayer.getDefault().notify(nd) == NotifyDescriptor.YES_OPTION) {
                         // The user wants the more recent autosaved version.
-                        // Rename the actual file (to .bak), copy the autosaved version to the actual name, and delete the bak file.
+                        // Rename the actual file (to .bak), copy the autosaved version (with its journal applied) to the actual name, and delete the bak file.
                         final File autosaved = new File(AutosaveUtilities.getAutosaveDir(), props.getProperty(AutosaveUtilities.ID) + GraphDataObject.FILE_EXTENSION);
                         try {
-                            AutosaveUtilities.copyFile(autosaved, f);
-                        } catch (IOException ex) {
+                            AutosaveJournal.copyGraphFile(autosaved, f, new HandleIoProgress("Recovering autosaved graph..."));
+                        } catch (GraphParseException | IOException ex) {
                             LOGGER.log(Level.WARNING, "Copying autosaved file", ex);
                         }
                     }
@@ -22,7 +22,7 @@ import au.gov.asd.tac.constellation.graph.GraphElementType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.WritableGraph;
 import au.gov.asd.tac.constellation.graph.file.opener.GraphOpener;
-import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.locking.LockingGraphUtilities;
 import au.gov.asd.tac.constellation.graph.node.GraphNode;
 import au.gov.asd.tac.constellation.graph.schema.Schema;
 import au.gov.asd.tac.constellation.graph.schema.SchemaFactoryUtilities;
@@ -127,7 +127,7 @@ public class CopyToNewGraphPlugin extends SimpleReadPlugin {
      */
     public static Graph makeGraph(final GraphReadMethods original, final String newSchemaName, final boolean copyKeys, final boolean copyAll) throws InterruptedException {
         final Schema schema = newSchemaName != null && !newSchemaName.isEmpty() ? SchemaFactoryUtilities.getSchemaFactory(newSchemaName).createSchema() : original.getSchema();
-        final Graph dualGraph = new DualGraph(schema == null ? null : schema.getFactory().createSchema());
+        final Graph dualGraph = LockingGraphUtilities.createGraph(schema == null ? null : schema.getFactory().createSchema());
 
         final WritableGraph graph = dualGraph.getWritableGraph("Make Graph", true);
 
@@ -20,8 +20,9 @@ import au.gov.asd.tac.constellation.graph.GraphReadMethods;
 import au.gov.asd.tac.constellation.graph.ReadableGraph;
 import au.gov.asd.tac.constellation.graph.attribute.ZonedDateTimeAttributeDescription;
 import au.gov.asd.tac.constellation.graph.file.GraphDataObject;
+import au.gov.asd.tac.constellation.graph.file.io.GraphBinaryWriter;
+import au.gov.asd.tac.constellation.graph.file.save.AutosaveJournal;
 import au.gov.asd.tac.constellation.graph.file.save.AutosaveUtilities;
-import au.gov.asd.tac.constellation.graph.file.io.GraphJsonWriter;
 import au.gov.asd.tac.constellation.graph.node.GraphNode;
 import au.gov.asd.tac.constellation.graph.processing.GraphRecordStoreUtilities;
 import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
@@ -41,6 +42,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.List;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -73,29 +75,43 @@ public final class AutosaveGraphPlugin extends SimplePlugin {
 
             interaction.setProgress(-1, -1, "Autosaving: " + graphId, true);
 
-            // We don't want to hold the user up while we're reading from a graph they might be using.
-            // Make a copy of the graph so that we can release the read lock as soon as possible.
-            GraphReadMethods copy;
-            ReadableGraph rg = graph.getReadableGraph();
-            try {
-                copy = rg.copy();
-            } finally {
-                rg.release();
-            }
-
-            interaction.setProgress(1, 0, "Finished", true);
-
             final File saveDir = AutosaveUtilities.getAutosaveDir();
+            final String gname = graph.getId() + GraphDataObject.FILE_EXTENSION;
+            final File saveFile = new File(saveDir, gname);
+            final AutosaveJournal journal = AutosaveUtilities.getJournal(graphId);
 
             try {
-                final String gname = graph.getId() + GraphDataObject.FILE_EXTENSION;
                 StatusDisplayer.getDefault().setStatusText(String.format("Auto saving %s as %s at %s...", graphId, gname, new Date()));
-                final File saveFile = new File(saveDir, gname);
-                new GraphJsonWriter().writeGraphToZip(copy, saveFile.getPath(), new HandleIoProgress("Autosaving..."));
+
+                // A snapshot needs the whole graph, so make a copy of the graph so that we can release the read lock as soon as possible.
+                // A change only needs what has been modified since the last autosave, so capture just that and write it after releasing the lock.
+                GraphReadMethods copy = null;
+                GraphBinaryWriter.Change change = null;
+                List<String> labels = null;
+                final ReadableGraph rg = graph.getReadableGraph();
+                try {
+                    if (journal.needsSnapshot()) {
+                        copy = rg.copy();
+                    } else {
+                        change = journal.captureChanges(rg);
+                        labels = getLabels(rg);
+                    }
+                } finally {
+                    rg.release();
+                }
+
+                interaction.setProgress(1, 0, "Finished", true);
+
+                if (copy != null) {
+                    journal.writeSnapshot(copy, new HandleIoProgress("Autosaving..."));
+                    labels = getLabels(copy);
+                } else {
+                    journal.writeChanges(change, new HandleIoProgress("Autosaving..."));
+                }
 
                 ConstellationLoggerHelper.exportPropertyBuilder(
                         this,
-                        GraphRecordStoreUtilities.getVertices(copy, false, false, false).getAll(GraphRecordStoreUtilities.SOURCE + VisualConcept.VertexAttribute.LABEL),
+                        labels,
                         saveFile,
                         ConstellationLoggerHelper.SUCCESS
                 );
@@ -114,4 +130,8 @@ public final class AutosaveGraphPlugin extends SimplePlugin {
             }
         }
     }
+
+    private static List<String> getLabels(final GraphReadMethods graph) {
+        return GraphRecordStoreUtilities.getVertices(graph, false, false, false).getAll(GraphRecordStoreUtilities.SOURCE + VisualConcept.VertexAttribute.LABEL);
+    }
 }
@@ -16,6 +16,7 @@
 package au.gov.asd.tac.constellation.visual.opengl.renderer;
 
 import au.gov.asd.tac.constellation.visual.opengl.renderer.GLRenderable.GLRenderableUpdateTask;
+import au.gov.asd.tac.constellation.visual.opengl.renderer.batcher.BatchFill;
 import au.gov.asd.tac.constellation.visual.opengl.renderer.batcher.SceneBatcher;
 import au.gov.asd.tac.constellation.visual.opengl.utilities.ByteTextureBuffer;
 import au.gov.asd.tac.constellation.utilities.visual.VisualAccess;
@@ -59,11 +60,15 @@ public class VertexFlagsTexturiser {
     }
 
     public GLRenderableUpdateTask createTexture(final VisualAccess access) {
-        final ByteBuffer flagsBuffer = Buffers.newDirectByteBuffer(access.getVertexCount());
-        for (int i = 0; i < access.getVertexCount(); i++) {
-            bufferFlagsInfo(i, flagsBuffer, access);
-        }
-        flagsBuffer.flip();
+        // The texture keeps hold of its buffer, so a new buffer is filled each time
+        final ByteBuffer flagsBuffer = Buffers.newDirectByteBuffer(FLAGS_BUFFER_WIDTH * access.getVertexCount());
+        BatchFill.forEachRange(access.getVertexCount(), (start, end) -> {
+            final ByteBuffer range = flagsBuffer.duplicate();
+            range.position(start * FLAGS_BUFFER_WIDTH);
+            for (int i = start; i < end; i++) {
+                bufferFlagsInfo(i, range, access);
+            }
+        });
         return gl -> vertexFlagsTexture = new ByteTextureBuffer(gl, flagsBuffer);
     }
 
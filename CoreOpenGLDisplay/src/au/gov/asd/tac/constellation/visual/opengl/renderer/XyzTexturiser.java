@@ -16,6 +16,7 @@
 package au.gov.asd.tac.constellation.visual.opengl.renderer;
 
 import au.gov.asd.tac.constellation.visual.opengl.renderer.GLRenderable.GLRenderableUpdateTask;
+import au.gov.asd.tac.constellation.visual.opengl.renderer.batcher.BatchFill;
 import au.gov.asd.tac.constellation.visual.opengl.renderer.batcher.SceneBatcher;
 import au.gov.asd.tac.constellation.visual.opengl.utilities.FloatTextureBuffer;
 import au.gov.asd.tac.constellation.utilities.visual.VisualAccess;
@@ -51,11 +52,15 @@ public class XyzTexturiser {
     }
 
     public GLRenderableUpdateTask createTexture(final VisualAccess access) {
+        // The texture keeps hold of its buffer, so a new buffer is filled each time
         final FloatBuffer xyzBuffer = Buffers.newDirectFloatBuffer(XYZ_BUFFER_WIDTH * access.getVertexCount());
-        for (int i = 0; i < access.getVertexCount(); i++) {
-            bufferXyzInfo(i, xyzBuffer, access);
-        }
-        xyzBuffer.flip();
+        BatchFill.forEachRange(access.getVertexCount(), (start, end) -> {
+            final FloatBuffer range = xyzBuffer.duplicate();
+            range.position(start * XYZ_BUFFER_WIDTH);
+            for (int i = start; i < end; i++) {
+                bufferXyzInfo(i, range, access);
+            }
+        });
         return gl -> xyzTexture = new FloatTextureBuffer(gl, xyzBuffer);
     }
 
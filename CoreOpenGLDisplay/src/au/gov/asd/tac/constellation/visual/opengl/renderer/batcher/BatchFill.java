@@ -0,0 +1,168 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.visual.opengl.renderer.batcher;
+
+import au.gov.asd.tac.constellation.utilities.visual.VisualAccess;
+import java.nio.Buffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+/**
+ * Utilities for filling the buffers of a {@link Batch} in parallel before they
+ * are handed to the GL thread.
+ * <p>
+ * The elements of a batch are split into contiguous ranges which are filled
+ * on a shared pool of threads, with each range writing to its own part of the
+ * buffers through a duplicate positioned at the start of its elements. The
+ * {@link VisualAccess} being batched is therefore read from several threads
+ * at once while the calling thread waits for the ranges to complete.
+ * <p>
+ * Once a buffer has been uploaded on the GL thread it is no longer needed, so
+ * a {@link ReusableBuffer} can hand it back to be filled by the next batch.
+ *
+ * @author agent
+ */
+public final class BatchFill {
+
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    // Ranges smaller than this aren't worth handing to another thread
+    private static final int MINIMUM_RANGE = 1024;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM, pool -> {
+        final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("Batch Fill " + worker.getPoolIndex());
+        return worker;
+    }, null, false);
+
+    private BatchFill() {
+    }
+
+    /**
+     * Fills a contiguous range of the elements of a batch.
+     */
+    @FunctionalInterface
+    public interface RangeFill {
+
+        /**
+         * Fill the elements in the range [start, end).
+         *
+         * @param start the first element of the range.
+         * @param end one past the last element of the range.
+         */
+        void fill(final int start, final int end);
+    }
+
+    /**
+     * Fill the elements [0, count) of a batch in parallel ranges, waiting for
+     * all of the ranges to be filled.
+     *
+     * @param count the number of elements.
+     * @param fill fills a range of the elements.
+     */
+    public static void forEachRange(final int count, final RangeFill fill) {
+        if (count <= MINIMUM_RANGE) {
+            fill.fill(0, count);
+        } else {
+            POOL.invoke(new RangeTask(0, count, Math.max(MINIMUM_RANGE, count / (PARALLELISM * 4)), fill));
+        }
+    }
+
+    /**
+     * A range of elements which is split in half until it is no larger than
+     * the grain size.
+     */
+    private static final class RangeTask extends RecursiveAction {
+
+        private final int start;
+        private final int end;
+        private final int grain;
+        private final RangeFill fill;
+
+        private RangeTask(final int start, final int end, final int grain, final RangeFill fill) {
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+            this.fill = fill;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= grain) {
+                fill.fill(start, end);
+            } else {
+                final int middle = (start + end) >>> 1;
+                invokeAll(new RangeTask(start, middle, grain, fill), new RangeTask(middle, end, grain, fill));
+            }
+        }
+    }
+
+    /**
+     * Holds the buffer for a single target of a batch between uploads.
+     * <p>
+     * A buffer is taken to be filled, and then released once the GL thread
+     * has uploaded it. A buffer that is still waiting to be uploaded when the
+     * next batch is filled is never handed out again, so the next batch is
+     * filled into a new buffer instead.
+     *
+     * @param <B> the type of buffer.
+     */
+    public static final class ReusableBuffer<B extends Buffer> {
+
+        private final IntFunction<B> allocator;
+        private final AtomicReference<B> spare = new AtomicReference<>();
+
+        /**
+         * Create a holder for buffers of a single type.
+         *
+         * @param allocator allocates a new direct buffer of the given size.
+         */
+        public ReusableBuffer(final IntFunction<B> allocator) {
+            this.allocator = allocator;
+        }
+
+        /**
+         * Take a buffer to fill.
+         *
+         * @param size the number of values that will be filled.
+         * @return a buffer with its position at zero and its limit at the
+         * given size.
+         */
+        public B take(final int size) {
+            B buffer = spare.getAndSet(null);
+
+            // Don't hold on to much larger buffers after a batch shrinks
+            if (buffer == null || buffer.capacity() < size || buffer.capacity() / 4 > size + MINIMUM_RANGE) {
+                buffer = allocator.apply(size + size / 8);
+            }
+            buffer.clear();
+            buffer.limit(size);
+            return buffer;
+        }
+
+        /**
+         * Release a buffer once its contents have been uploaded.
+         *
+         * @param buffer the buffer.
+         */
+        public void release(final B buffer) {
+            spare.set(buffer);
+        }
+    }
+}
@@ -17,14 +17,13 @@ package au.gov.asd.tac.constellation.visual.opengl.renderer.batcher;
 
 import au.gov.asd.tac.constellation.utilities.camera.Camera;
 import au.gov.asd.tac.constellation.utilities.color.ConstellationColor;
-import au.gov.asd.tac.constellation.utilities.graphics.FloatArray;
-import au.gov.asd.tac.constellation.utilities.graphics.IntArray;
 import au.gov.asd.tac.constellation.utilities.graphics.Matrix44f;
 import au.gov.asd.tac.constellation.utilities.visual.VisualAccess;
 import au.gov.asd.tac.constellation.utilities.visual.VisualChange;
 import au.gov.asd.tac.constellation.visual.opengl.renderer.GLRenderable.GLRenderableUpdateTask;
 import au.gov.asd.tac.constellation.visual.opengl.renderer.TextureUnits;
 import au.gov.asd.tac.constellation.visual.opengl.utilities.SharedDrawable;
+import com.jogamp.common.nio.Buffers;
 import com.jogamp.opengl.GL3;
 import java.io.IOException;
 import java.nio.FloatBuffer;
@@ -56,8 +55,11 @@ public class BlazeBatcher implements SceneBatcher {
     private int shaderScale;
     private int shaderOpacity;
 
-    private FloatArray blazeColors;
-    private IntArray blazeInfo;
+    private final BatchFill.ReusableBuffer<FloatBuffer> colorBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectFloatBuffer);
+    private final BatchFill.ReusableBuffer<IntBuffer> infoBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectIntBuffer);
+
+    // The position in the batch of each vertex, or -1 for vertices without a blaze
+    private int[] vertexBlazes = new int[0];
 
     private final int colorTarget;
     private final int infoTarget;
@@ -105,28 +107,16 @@ public class BlazeBatcher implements SceneBatcher {
 
     public GLRenderableUpdateTask updateBlazes(final VisualAccess access, final VisualChange change) {
         // We build the whole batch again - can't update blazes in place at this stage.
-        blazeColors.clear();
-        blazeInfo.clear();
-        fillBatch(access);
-
+        final GLRenderableUpdateTask upload = fillBatch(access);
         return gl -> {
             batch.dispose(gl);
-            batch.initialise(blazeInfo.size() / INFO_BUFFER_WIDTH);
-            batch.buffer(gl, colorTarget, FloatBuffer.wrap(blazeColors.rawArray()));
-            batch.buffer(gl, infoTarget, IntBuffer.wrap(blazeInfo.rawArray()));
-            batch.finalise(gl);
+            upload.run(gl);
         };
     }
 
     @Override
     public GLRenderableUpdateTask createBatch(final VisualAccess access) {
-        fillBatch(access);
-        return gl -> {
-            batch.initialise(blazeInfo.size() / INFO_BUFFER_WIDTH);
-            batch.buffer(gl, colorTarget, FloatBuffer.wrap(blazeColors.rawArray()));
-            batch.buffer(gl, infoTarget, IntBuffer.wrap(blazeInfo.rawArray()));
-            batch.finalise(gl);
-        };
+        return fillBatch(access);
     }
 
     public GLRenderableUpdateTask updateSizeAndOpacity(final VisualAccess access) {
@@ -138,25 +128,75 @@ public class BlazeBatcher implements SceneBatcher {
         };
     }
 
-    private void fillBatch(final VisualAccess access) {
-        blazeColors = new FloatArray();
-        blazeInfo = new IntArray();
-        for (int pos = 0; pos < access.getVertexCount(); pos++) {
-            bufferBlaze(pos, blazeColors, blazeInfo, access);
-        }
-        blazeColors.trimToSize();
-        blazeInfo.trimToSize();
+    private GLRenderableUpdateTask fillBatch(final VisualAccess access) {
+        final int numBlazes = layoutBlazes(access);
+        final FloatBuffer colorBuffer = colorBuffers.take(numBlazes * COLOR_BUFFER_WIDTH);
+        final IntBuffer infoBuffer = infoBuffers.take(numBlazes * INFO_BUFFER_WIDTH);
+        fillBlazes(access, colorBuffer, infoBuffer);
+        return gl -> {
+            batch.initialise(numBlazes);
+            batch.buffer(gl, colorTarget, colorBuffer);
+            batch.buffer(gl, infoTarget, infoBuffer);
+            batch.finalise(gl);
+            colorBuffers.release(colorBuffer);
+            infoBuffers.release(infoBuffer);
+        };
     }
 
-    private void bufferBlaze(final int pos, final FloatArray colorBuffer, final IntArray infoBuffer, final VisualAccess access) {
-        if (access.getBlazed(pos)) {
-            final ConstellationColor blazeColor = access.getBlazeColor(pos);
-            final int blazeAngle = access.getBlazeAngle(pos);
-            final float visibility = access.getVertexVisibility(pos);
+    /**
+     * Assign a position in the batch to each vertex with a blaze.
+     *
+     * @param access the access to the graph being batched.
+     * @return the number of blazes.
+     */
+    int layoutBlazes(final VisualAccess access) {
+        final int vertexCount = access.getVertexCount();
+        if (vertexBlazes.length < vertexCount) {
+            vertexBlazes = new int[vertexCount];
+        }
 
-            colorBuffer.add(blazeColor.getRed(), blazeColor.getGreen(), blazeColor.getBlue(), visibility);
-            infoBuffer.add(pos, -1, blazeAngle, 0);
+        int blazeCounter = 0;
+        for (int pos = 0; pos < vertexCount; pos++) {
+            vertexBlazes[pos] = access.getBlazed(pos) ? blazeCounter++ : -1;
         }
+        return blazeCounter;
+    }
+
+    /**
+     * Fill the color and info of every blaze assigned by
+     * {@link #layoutBlazes}, filling ranges of vertices in parallel.
+     *
+     * @param access the access to the graph being batched.
+     * @param colorBuffer the buffer to fill with the color of each blaze.
+     * @param infoBuffer the buffer to fill with the info of each blaze.
+     */
+    void fillBlazes(final VisualAccess access, final FloatBuffer colorBuffer, final IntBuffer infoBuffer) {
+        BatchFill.forEachRange(access.getVertexCount(), (start, end) -> {
+            final FloatBuffer colors = colorBuffer.duplicate();
+            final IntBuffer info = infoBuffer.duplicate();
+            for (int pos = start; pos < end; pos++) {
+                if (vertexBlazes[pos] >= 0) {
+                    colors.position(vertexBlazes[pos] * COLOR_BUFFER_WIDTH);
+                    info.position(vertexBlazes[pos] * INFO_BUFFER_WIDTH);
+                    bufferBlaze(pos, colors, info, access);
+                }
+            }
+        });
+    }
+
+    private void bufferBlaze(final int pos, final FloatBuffer colorBuffer, final IntBuffer infoBuffer, final VisualAccess access) {
+        final ConstellationColor blazeColor = access.getBlazeColor(pos);
+        final int blazeAngle = access.getBlazeAngle(pos);
+        final float visibility = access.getVertexVisibility(pos);
+
+        colorBuffer.put(blazeColor.getRed());
+        colorBuffer.put(blazeColor.getGreen());
+        colorBuffer.put(blazeColor.getBlue());
+        colorBuffer.put(visibility);
+        infoBuffer.put(pos);
+        infoBuffer.put(-1);
+        infoBuffer.put(blazeAngle);
+        infoBuffer.put(0);
     }
 
     @Override
@@ -48,10 +48,10 @@ public class ConnectionLabelBatcher implements GlyphManager.GlyphStream, SceneBa
     // Batch and shader
     private final Batch attributeLabelBatch;
     private final Batch summaryLabelBatch;
-    private FloatArray attributeLabelFloats;
-    private IntArray attributeLabelInts;
-    private FloatArray summaryLabelFloats;
-    private IntArray summaryLabelInts;
+    private FloatArray attributeLabelFloats = new FloatArray();
+    private IntArray attributeLabelInts = new IntArray();
+    private FloatArray summaryLabelFloats = new FloatArray();
+    private IntArray summaryLabelInts = new IntArray();
     private FloatArray currentFloats;
     private IntArray currentInts;
     private int shader;
@@ -181,45 +181,47 @@ public class ConnectionLabelBatcher implements GlyphManager.GlyphStream, SceneBa
 
     @Override
     public GLRenderableUpdateTask createBatch(final VisualAccess access) {
-
-        attributeLabelFloats = new FloatArray();
-        attributeLabelInts = new IntArray();
-        summaryLabelFloats = new FloatArray();
-        summaryLabelInts = new IntArray();
         fillLabels(access);
-
+        final FloatArray attributeFloats = attributeLabelFloats;
+        final IntArray attributeInts = attributeLabelInts;
+        final FloatArray summaryFloats = summaryLabelFloats;
+        final IntArray summaryInts = summaryLabelInts;
         return gl -> {
-            attributeLabelBatch.initialise(attributeLabelFloats.size() / FLOAT_BUFFER_WIDTH);
-            attributeLabelBatch.buffer(gl, intsTarget, IntBuffer.wrap(attributeLabelInts.rawArray()));
-            attributeLabelBatch.buffer(gl, floatsTarget, FloatBuffer.wrap(attributeLabelFloats.rawArray()));
-            attributeLabelBatch.finalise(gl);
-            summaryLabelBatch.initialise(summaryLabelFloats.size() / FLOAT_BUFFER_WIDTH);
-            summaryLabelBatch.buffer(gl, intsTarget, IntBuffer.wrap(summaryLabelInts.rawArray()));
-            summaryLabelBatch.buffer(gl, floatsTarget, FloatBuffer.wrap(summaryLabelFloats.rawArray()));
-            summaryLabelBatch.finalise(gl);
+            bufferLabels(gl, attributeLabelBatch, attributeFloats, attributeInts);
+            bufferLabels(gl, summaryLabelBatch, summaryFloats, summaryInts);
         };
     }
 
     public GLRenderableUpdateTask updateLabels(final VisualAccess access) {
         // We build the whole batch again - can't update labels in place at this stage.
-        attributeLabelFloats.clear();
-        attributeLabelInts.clear();
         fillLabels(access);
+        final FloatArray attributeFloats = attributeLabelFloats;
+        final IntArray attributeInts = attributeLabelInts;
+        final FloatArray summaryFloats = summaryLabelFloats;
+        final IntArray summaryInts = summaryLabelInts;
         return gl -> {
             attributeLabelBatch.dispose(gl);
-            attributeLabelBatch.initialise(attributeLabelFloats.size() / FLOAT_BUFFER_WIDTH);
-            attributeLabelBatch.buffer(gl, intsTarget, IntBuffer.wrap(attributeLabelInts.rawArray()));
-            attributeLabelBatch.buffer(gl, floatsTarget, FloatBuffer.wrap(attributeLabelFloats.rawArray()));
-            attributeLabelBatch.finalise(gl);
+            bufferLabels(gl, attributeLabelBatch, attributeFloats, attributeInts);
             summaryLabelBatch.dispose(gl);
-            summaryLabelBatch.initialise(summaryLabelFloats.size() / FLOAT_BUFFER_WIDTH);
-            summaryLabelBatch.buffer(gl, intsTarget, IntBuffer.wrap(summaryLabelInts.rawArray()));
-            summaryLabelBatch.buffer(gl, floatsTarget, FloatBuffer.wrap(summaryLabelFloats.rawArray()));
-            summaryLabelBatch.finalise(gl);
+            bufferLabels(gl, summaryLabelBatch, summaryFloats, summaryInts);
         };
     }
 
+    private void bufferLabels(final GL3 gl, final Batch batch, final FloatArray labelFloats, final IntArray labelInts) {
+        batch.initialise(labelFloats.size() / FLOAT_BUFFER_WIDTH);
+        batch.buffer(gl, intsTarget, IntBuffer.wrap(labelInts.rawArray(), 0, labelInts.size()));
+        batch.buffer(gl, floatsTarget, FloatBuffer.wrap(labelFloats.rawArray(), 0, labelFloats.size()));
+        batch.finalise(gl);
+    }
+
+    // The arrays from the previous fill may still be waiting to be uploaded,
+    // so each fill starts new arrays, sized to hold the labels of the last.
     private void fillLabels(final VisualAccess access) {
+        attributeLabelFloats = new FloatArray(attributeLabelFloats.size());
+        attributeLabelInts = new IntArray(attributeLabelInts.size());
+        summaryLabelFloats = new FloatArray(summaryLabelFloats.size());
+        summaryLabelInts = new IntArray(summaryLabelInts.size());
+        final GlyphRunCache glyphRuns = new GlyphRunCache();
         for (int link = 0; link < access.getLinkCount(); link++) {
             final int connectionCount = access.getLinkConnectionCount(link);
             setCurrentConnection(access.getLinkLowVertex(link), access.getLinkHighVertex(link), connectionCount);
@@ -229,16 +231,12 @@ public class ConnectionLabelBatcher implements GlyphManager.GlyphStream, SceneBa
                 currentFloats = access.getIsLabelSummary(connection) ? summaryLabelFloats : attributeLabelFloats;
                 currentInts = access.getIsLabelSummary(connection) ? summaryLabelInts : attributeLabelInts;
                 currentLabelInfo = access.getIsLabelSummary(connection) ? summaryLabelInfo : attributeLabelInfoReference;
-                bufferLabel(connection, access);
+                bufferLabel(connection, access, glyphRuns);
             }
         }
-        attributeLabelFloats.trimToSize();
-        attributeLabelInts.trimToSize();
-        summaryLabelFloats.trimToSize();
-        summaryLabelInts.trimToSize();
     }
 
-    private void bufferLabel(final int pos, final VisualAccess access) {
+    private void bufferLabel(final int pos, final VisualAccess access, final GlyphRunCache glyphRuns) {
         int totalScale = 0;
         final float visibility = access.getConnectionVisibility(pos);
         for (int label = 0; label < access.getConnectionLabelCount(pos); label++) {
@@ -246,7 +244,7 @@ public class ConnectionLabelBatcher implements GlyphManager.GlyphStream, SceneBa
             ArrayList<String> lines = LabelUtilities.splitTextIntoLines(text);
             for (final String line : lines) {
                 setCurrentContext(totalScale, visibility, label);
-                SharedDrawable.getGlyphManager().renderTextAsLigatures(line, this);
+                glyphRuns.renderLine(line, this);
                 totalScale += currentLabelInfo.get(label, 3);
             }
         }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.visual.opengl.renderer.batcher;
+
+import au.gov.asd.tac.constellation.utilities.graphics.FloatArray;
+import au.gov.asd.tac.constellation.utilities.graphics.IntArray;
+import au.gov.asd.tac.constellation.visual.opengl.utilities.SharedDrawable;
+import au.gov.asd.tac.constellation.visual.opengl.utilities.glyphs.GlyphManager;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers the glyphs of each line of label text laid out while filling a
+ * label batch.
+ * <p>
+ * The glyph manager draws each line into a single shared image to lay it out,
+ * so labels can't be laid out in parallel. Many elements of a graph share the
+ * same label text however, so each distinct line is laid out once and its
+ * glyphs are replayed for every other element with the same line.
+ * <p>
+ * The glyphs of a line depend on the fonts of the glyph manager, so a cache
+ * should only be kept for the duration of a single fill.
+ *
+ * @author agent
+ */
+final class GlyphRunCache implements GlyphManager.GlyphStream {
+
+    private static final int NEW_LINE = -1;
+
+    private final Map<String, GlyphRun> runs = new HashMap<>();
+    private final IntArray recordedPositions = new IntArray();
+    private final FloatArray recordedCoordinates = new FloatArray();
+
+    /**
+     * Send the glyphs of a line of text to a stream, laying out the line with
+     * the glyph manager the first time it is seen.
+     *
+     * @param line the line of text.
+     * @param stream the stream to send the glyphs to.
+     */
+    void renderLine(final String line, final GlyphManager.GlyphStream stream) {
+        GlyphRun run = runs.get(line);
+        if (run == null) {
+            recordedPositions.clear();
+            recordedCoordinates.clear();
+            SharedDrawable.getGlyphManager().renderTextAsLigatures(line, this);
+            run = new GlyphRun(Arrays.copyOf(recordedPositions.rawArray(), recordedPositions.size()),
+                    Arrays.copyOf(recordedCoordinates.rawArray(), recordedCoordinates.size()));
+            runs.put(line, run);
+        }
+
+        for (int i = 0; i < run.positions.length; i++) {
+            if (run.positions[i] == NEW_LINE) {
+                stream.newLine(run.coordinates[i * 2]);
+            } else {
+                stream.addGlyph(run.positions[i], run.coordinates[i * 2], run.coordinates[i * 2 + 1]);
+            }
+        }
+    }
+
+    @Override
+    public void newLine(final float width) {
+        recordedPositions.add(NEW_LINE);
+        recordedCoordinates.add(width);
+        recordedCoordinates.add(0);
+    }
+
+    @Override
+    public void addGlyph(final int glyphPosition, final float x, final float y) {
+        recordedPositions.add(glyphPosition);
+        recordedCoordinates.add(x);
+        recordedCoordinates.add(y);
+    }
+
+    private static final class GlyphRun {
+
+        private final int[] positions;
+        private final float[] coordinates;
+
+        private GlyphRun(final int[] positions, final float[] coordinates) {
+            this.positions = positions;
+            this.coordinates = coordinates;
+        }
+    }
+}
@@ -69,6 +69,9 @@ public class IconBatcher implements SceneBatcher {
     private static final int ICON_BUFFER_WIDTH = 4;
     private static final int COLOR_BUFFER_WIDTH = 4;
 
+    private final BatchFill.ReusableBuffer<FloatBuffer> colorBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectFloatBuffer);
+    private final BatchFill.ReusableBuffer<IntBuffer> iconBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectIntBuffer);
+
     public IconBatcher() {
 
         // Create the batch
@@ -128,14 +131,9 @@ public class IconBatcher implements SceneBatcher {
     @Override
     public GLRenderableUpdateTask createBatch(final VisualAccess access) {
         final int numVertices = access.getVertexCount();
-        final FloatBuffer colorBuffer = Buffers.newDirectFloatBuffer(COLOR_BUFFER_WIDTH * numVertices);
-        final IntBuffer iconBuffer = Buffers.newDirectIntBuffer(ICON_BUFFER_WIDTH * numVertices);
-        for (int pos = 0; pos < numVertices; pos++) {
-            bufferColorInfo(pos, colorBuffer, access);
-            bufferIconInfo(pos, iconBuffer, access);
-        }
-        colorBuffer.flip();
-        iconBuffer.flip();
+        final FloatBuffer colorBuffer = colorBuffers.take(COLOR_BUFFER_WIDTH * numVertices);
+        final IntBuffer iconBuffer = iconBuffers.take(ICON_BUFFER_WIDTH * numVertices);
+        fillIcons(access, colorBuffer, iconBuffer);
         return gl -> {
             if (numVertices > 0) {
                 batch.initialise(numVertices);
@@ -143,9 +141,32 @@ public class IconBatcher implements SceneBatcher {
                 batch.buffer(gl, iconTarget, iconBuffer);
                 batch.finalise(gl);
             }
+            colorBuffers.release(colorBuffer);
+            iconBuffers.release(iconBuffer);
         };
     }
 
+    /**
+     * Fill the color and icon info of every vertex, filling ranges of
+     * vertices in parallel.
+     *
+     * @param access the access to the graph being batched.
+     * @param colorBuffer the buffer to fill with the color of each vertex.
+     * @param iconBuffer the buffer to fill with the icons of each vertex.
+     */
+    void fillIcons(final VisualAccess access, final FloatBuffer colorBuffer, final IntBuffer iconBuffer) {
+        BatchFill.forEachRange(access.getVertexCount(), (start, end) -> {
+            final FloatBuffer colors = colorBuffer.duplicate();
+            final IntBuffer icons = iconBuffer.duplicate();
+            colors.position(start * COLOR_BUFFER_WIDTH);
+            icons.position(start * ICON_BUFFER_WIDTH);
+            for (int pos = start; pos < end; pos++) {
+                bufferColorInfo(pos, colors, access);
+                bufferIconInfo(pos, icons, access);
+            }
+        });
+    }
+
     private int bufferIconInfo(final int pos, final IntBuffer iconBuffer, final VisualAccess access) {
         final String foregroundIconName = access.getForegroundIcon(pos);
         final String backgroundIconName = access.getBackgroundIcon(pos);
@@ -30,10 +30,7 @@ import com.jogamp.opengl.GL3;
 import java.io.IOException;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
  *
@@ -45,7 +42,6 @@ public class LineBatcher implements SceneBatcher {
     private static final int LINE_INFO_ARROW = 1;
     private static final int LINE_INFO_BITS_AVOID = 4;
     private static final int FLOAT_MULTIPLIER = 1024;
-    private static final int NEW_LINK = -345;
     private static final String COLOR_SHADER_NAME = "vColor";
     private static final String CONNECTION_INFO_SHADER_NAME = "data";
 
@@ -84,6 +80,13 @@ public class LineBatcher implements SceneBatcher {
     private static final int COLOR_BUFFER_WIDTH = 4;
     private static final int CONNECTION_INFO_BUFFER_WIDTH = 4;
 
+    private final BatchFill.ReusableBuffer<FloatBuffer> colorBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectFloatBuffer);
+    private final BatchFill.ReusableBuffer<IntBuffer> dataBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectIntBuffer);
+
+    // The first line of each link, or -1 for loops, and the line of each connection, or -1 for loops
+    private int[] linkLines = new int[0];
+    private int[] connectionLines = new int[0];
+
     public LineBatcher() {
 
         // Create the batch
@@ -129,45 +132,18 @@ public class LineBatcher implements SceneBatcher {
 
     @Override
     public GLRenderableUpdateTask disposeBatch() {
-        connections.clear();
-        connectionPosToBufferPos.clear();
+        Arrays.fill(connectionLines, -1);
         return gl -> {
             batch.dispose(gl);
         };
     }
 
-    private final SortedMap<Integer, Integer> connectionPosToBufferPos = new TreeMap<>();
-    private final List<Integer> connections = new ArrayList<>();
-
     @Override
     public GLRenderableUpdateTask createBatch(final VisualAccess access) {
-
-        int lineCounter = 0;
-
-        for (int link = 0; link < access.getLinkCount(); link++) {
-            if (access.getLinkSource(link) != access.getLinkDestination(link)) {
-                connections.add(NEW_LINK);
-                for (int pos = 0; pos < access.getLinkConnectionCount(link); pos++) {
-                    final int connection = access.getLinkConnection(link, pos);
-                    connectionPosToBufferPos.put(connection, lineCounter++);
-                    connections.add(connection);
-                }
-            }
-        }
-
-        final int numLines = lineCounter;
-        FloatBuffer colorBuffer = Buffers.newDirectFloatBuffer(numLines * 2 * COLOR_BUFFER_WIDTH);
-        IntBuffer dataBuffer = Buffers.newDirectIntBuffer(numLines * 2 * CONNECTION_INFO_BUFFER_WIDTH);
-        connections.forEach(pos -> {
-            if (pos == NEW_LINK) {
-                leftOffset = 0;
-            } else {
-                bufferColorInfo(pos, colorBuffer, access);
-                bufferConnectionInfo(pos, dataBuffer, access);
-            }
-        });
-        colorBuffer.flip();
-        dataBuffer.flip();
+        final int numLines = layoutLines(access);
+        final FloatBuffer colorBuffer = colorBuffers.take(numLines * 2 * COLOR_BUFFER_WIDTH);
+        final IntBuffer dataBuffer = dataBuffers.take(numLines * 2 * CONNECTION_INFO_BUFFER_WIDTH);
+        fillLines(access, colorBuffer, dataBuffer);
 
         return gl -> {
             if (numLines > 0) {
@@ -176,15 +152,76 @@ public class LineBatcher implements SceneBatcher {
                 batch.buffer(gl, connectionInfoTarget, dataBuffer);
                 batch.finalise(gl);
             }
+            colorBuffers.release(colorBuffer);
+            dataBuffers.release(dataBuffer);
         };
     }
 
-    private float leftOffset;
-    private float rightOffset;
+    /**
+     * Assign a line in the batch to each connection that isn't a loop, with
+     * the lines of each link kept together.
+     *
+     * @param access the access to the graph being batched.
+     * @return the number of lines.
+     */
+    int layoutLines(final VisualAccess access) {
+        final int linkCount = access.getLinkCount();
+        final int connectionCount = access.getConnectionCount();
+        if (linkLines.length < linkCount) {
+            linkLines = new int[linkCount];
+        }
+        if (connectionLines.length < connectionCount) {
+            connectionLines = new int[connectionCount];
+        }
+        Arrays.fill(connectionLines, -1);
 
-    private int bufferConnectionInfo(final int pos, final IntBuffer dataBuffer, final VisualAccess access) {
-        if (connectionPosToBufferPos.containsKey(pos)) {
-            final float width = Math.min(LabelUtilities.MAX_TRANSACTION_WIDTH, access.getConnectionWidth(pos));
+        int lineCounter = 0;
+        for (int link = 0; link < linkCount; link++) {
+            if (access.getLinkSource(link) != access.getLinkDestination(link)) {
+                linkLines[link] = lineCounter;
+                for (int pos = 0; pos < access.getLinkConnectionCount(link); pos++) {
+                    connectionLines[access.getLinkConnection(link, pos)] = lineCounter++;
+                }
+            } else {
+                linkLines[link] = -1;
+            }
+        }
+        return lineCounter;
+    }
+
+    /**
+     * Fill the color and connection info of every line assigned by
+     * {@link #layoutLines}, filling ranges of links in parallel.
+     *
+     * @param access the access to the graph being batched.
+     * @param colorBuffer the buffer to fill with the color of each line.
+     * @param dataBuffer the buffer to fill with the connection info of each
+     * line.
+     */
+    void fillLines(final VisualAccess access, final FloatBuffer colorBuffer, final IntBuffer dataBuffer) {
+        BatchFill.forEachRange(access.getLinkCount(), (start, end) -> {
+            final FloatBuffer colors = colorBuffer.duplicate();
+            final IntBuffer data = dataBuffer.duplicate();
+            for (int link = start; link < end; link++) {
+                if (linkLines[link] >= 0) {
+                    colors.position(linkLines[link] * 2 * COLOR_BUFFER_WIDTH);
+                    data.position(linkLines[link] * 2 * CONNECTION_INFO_BUFFER_WIDTH);
+                    bufferLink(link, colors, data, access);
+                }
+            }
+        });
+    }
+
+    /**
+     * Buffer the lines of a link, offsetting each parallel connection
+     * alternately to the left and right of those before it.
+     */
+    private void bufferLink(final int link, final FloatBuffer colorBuffer, final IntBuffer dataBuffer, final VisualAccess access) {
+        float leftOffset = 0;
+        float rightOffset = 0;
+        for (int pos = 0; pos < access.getLinkConnectionCount(link); pos++) {
+            final int connection = access.getLinkConnection(link, pos);
+            final float width = Math.min(LabelUtilities.MAX_TRANSACTION_WIDTH, access.getConnectionWidth(connection));
             final float offset;
             if (leftOffset == 0) {
                 offset = 0;
@@ -197,29 +234,31 @@ public class LineBatcher implements SceneBatcher {
                 offset = rightOffset + width / 2 + 1;
                 rightOffset += width + 1;
             }
-
-            final int representativeTransactionId = access.getConnectionId(pos);
-            final int lowVertex = access.getConnectionLowVertex(pos);
-            final int highVertex = access.getConnectionHighVertex(pos);
-            final int flags = (access.getConnectionDimmed(pos) ? 2 : 0) | (access.getConnectionSelected(pos) ? 1 : 0);
-            final int lineStyle = access.getConnectionLineStyle(pos).ordinal();
-            final ConnectionDirection connectionDirection = access.getConnectionDirection(pos);
-
-            dataBuffer.put(representativeTransactionId);
-            dataBuffer.put(lowVertex * LINE_INFO_BITS_AVOID + ((connectionDirection == ConnectionDirection.LOW_TO_HIGH || connectionDirection == ConnectionDirection.BIDIRECTED) ? LINE_INFO_ARROW : 0));
-            dataBuffer.put(flags);
-            dataBuffer.put((int) (offset * FLOAT_MULTIPLIER));
-            dataBuffer.put(representativeTransactionId);
-            dataBuffer.put(highVertex * LINE_INFO_BITS_AVOID + ((connectionDirection == ConnectionDirection.HIGH_TO_LOW || connectionDirection == ConnectionDirection.BIDIRECTED) ? LINE_INFO_ARROW : 0));
-            dataBuffer.put(flags);
-            dataBuffer.put(((int) (width * FLOAT_MULTIPLIER)) << 2 | lineStyle);
-            return connectionPosToBufferPos.get(pos);
+            bufferColorInfo(connection, colorBuffer, access);
+            bufferConnectionInfo(connection, width, offset, dataBuffer, access);
         }
-        return -1;
+    }
+
+    private void bufferConnectionInfo(final int pos, final float width, final float offset, final IntBuffer dataBuffer, final VisualAccess access) {
+        final int representativeTransactionId = access.getConnectionId(pos);
+        final int lowVertex = access.getConnectionLowVertex(pos);
+        final int highVertex = access.getConnectionHighVertex(pos);
+        final int flags = (access.getConnectionDimmed(pos) ? 2 : 0) | (access.getConnectionSelected(pos) ? 1 : 0);
+        final int lineStyle = access.getConnectionLineStyle(pos).ordinal();
+        final ConnectionDirection connectionDirection = access.getConnectionDirection(pos);
+
+        dataBuffer.put(representativeTransactionId);
+        dataBuffer.put(lowVertex * LINE_INFO_BITS_AVOID + ((connectionDirection == ConnectionDirection.LOW_TO_HIGH || connectionDirection == ConnectionDirection.BIDIRECTED) ? LINE_INFO_ARROW : 0));
+        dataBuffer.put(flags);
+        dataBuffer.put((int) (offset * FLOAT_MULTIPLIER));
+        dataBuffer.put(representativeTransactionId);
+        dataBuffer.put(highVertex * LINE_INFO_BITS_AVOID + ((connectionDirection == ConnectionDirection.HIGH_TO_LOW || connectionDirection == ConnectionDirection.BIDIRECTED) ? LINE_INFO_ARROW : 0));
+        dataBuffer.put(flags);
+        dataBuffer.put(((int) (width * FLOAT_MULTIPLIER)) << 2 | lineStyle);
     }
 
     private int updateConnectionInfo(final int pos, final IntBuffer dataBuffer, final VisualAccess access) {
-        if (connectionPosToBufferPos.containsKey(pos)) {
+        if (pos < connectionLines.length && connectionLines[pos] >= 0) {
             final float width = Math.min(LabelUtilities.MAX_TRANSACTION_WIDTH, access.getConnectionWidth(pos));
             final int representativeTransactionId = access.getConnectionId(pos);
             final int lowVertex = access.getConnectionLowVertex(pos);
@@ -244,13 +283,13 @@ public class LineBatcher implements SceneBatcher {
             dataBuffer.put(highVertex * LINE_INFO_BITS_AVOID + ((connectionDirection == ConnectionDirection.HIGH_TO_LOW || connectionDirection == ConnectionDirection.BIDIRECTED) ? LINE_INFO_ARROW : 0));
             dataBuffer.put(flags);
             dataBuffer.put(((int) (width * FLOAT_MULTIPLIER)) << 2 | lineStyle);
-            return connectionPosToBufferPos.get(pos);
+            return connectionLines[pos];
         }
         return -1;
     }
 
     private int bufferColorInfo(final int pos, final FloatBuffer colorBuffer, final VisualAccess access) {
-        if (connectionPosToBufferPos.containsKey(pos)) {
+        if (pos < connectionLines.length && connectionLines[pos] >= 0) {
             final ConstellationColor color = access.getConnectionColor(pos);
             colorBuffer.put(color.getRed());
             colorBuffer.put(color.getGreen());
@@ -260,7 +299,7 @@ public class LineBatcher implements SceneBatcher {
             colorBuffer.put(color.getGreen());
             colorBuffer.put(color.getBlue());
             colorBuffer.put(access.getConnectionVisibility(pos));
-            return connectionPosToBufferPos.get(pos);
+            return connectionLines[pos];
         }
         return -1;
     }
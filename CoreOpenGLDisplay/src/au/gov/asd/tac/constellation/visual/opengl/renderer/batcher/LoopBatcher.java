@@ -29,8 +29,7 @@ import com.jogamp.opengl.GL3;
 import java.io.IOException;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.Arrays;
 
 /**
  *
@@ -63,6 +62,12 @@ public class LoopBatcher implements SceneBatcher {
     private static final int COLOR_BUFFER_WIDTH = 4;
     private static final int LOOP_INFO_BUFFER_WIDTH = 4;
 
+    private final BatchFill.ReusableBuffer<FloatBuffer> colorBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectFloatBuffer);
+    private final BatchFill.ReusableBuffer<IntBuffer> dataBuffers = new BatchFill.ReusableBuffer<>(Buffers::newDirectIntBuffer);
+
+    // The position in the batch of each connection, or -1 for connections that aren't loops
+    private int[] connectionLoops = new int[0];
+
     public LoopBatcher() {
 
         // create the batch
@@ -95,34 +100,18 @@ public class LoopBatcher implements SceneBatcher {
 
     @Override
     public GLRenderableUpdateTask disposeBatch() {
-        loopPosToBufferPos.clear();
+        Arrays.fill(connectionLoops, -1);
         return gl -> {
             batch.dispose(gl);
         };
     }
 
-    private final SortedMap<Integer, Integer> loopPosToBufferPos = new TreeMap<>();
-
     @Override
     public GLRenderableUpdateTask createBatch(final VisualAccess access) {
-
-        int loopCounter = 0;
-
-        for (int i = 0; i < access.getConnectionCount(); i++) {
-            if (access.getConnectionLowVertex(i) == access.getConnectionHighVertex(i)) {
-                loopPosToBufferPos.put(i, loopCounter++);
-            }
-        }
-
-        final int numLoops = loopCounter;
-        FloatBuffer colorBuffer = Buffers.newDirectFloatBuffer(numLoops * COLOR_BUFFER_WIDTH);
-        IntBuffer dataBuffer = Buffers.newDirectIntBuffer(numLoops * LOOP_INFO_BUFFER_WIDTH);
-        loopPosToBufferPos.keySet().forEach(pos -> {
-            bufferColorInfo(pos, colorBuffer, access);
-            bufferLoopInfo(pos, dataBuffer, access);
-        });
-        colorBuffer.flip();
-        dataBuffer.flip();
+        final int numLoops = layoutLoops(access);
+        final FloatBuffer colorBuffer = colorBuffers.take(numLoops * COLOR_BUFFER_WIDTH);
+        final IntBuffer dataBuffer = dataBuffers.take(numLoops * LOOP_INFO_BUFFER_WIDTH);
+        fillLoops(access, colorBuffer, dataBuffer);
 
         return gl -> {
             if (numLoops > 0) {
@@ -131,11 +120,58 @@ public class LoopBatcher implements SceneBatcher {
                 batch.buffer(gl, loopInfoTarget, dataBuffer);
                 batch.finalise(gl);
             }
+            colorBuffers.release(colorBuffer);
+            dataBuffers.release(dataBuffer);
         };
     }
 
+    /**
+     * Assign a position in the batch to each connection that is a loop.
+     *
+     * @param access the access to the graph being batched.
+     * @return the number of loops.
+     */
+    int layoutLoops(final VisualAccess access) {
+        final int connectionCount = access.getConnectionCount();
+        if (connectionLoops.length < connectionCount) {
+            connectionLoops = new int[connectionCount];
+        }
+        Arrays.fill(connectionLoops, -1);
+
+        int loopCounter = 0;
+        for (int i = 0; i < connectionCount; i++) {
+            if (access.getConnectionLowVertex(i) == access.getConnectionHighVertex(i)) {
+                connectionLoops[i] = loopCounter++;
+            }
+        }
+        return loopCounter;
+    }
+
+    /**
+     * Fill the color and loop info of every loop assigned by
+     * {@link #layoutLoops}, filling ranges of connections in parallel.
+     *
+     * @param access the access to the graph being batched.
+     * @param colorBuffer the buffer to fill with the color of each loop.
+     * @param dataBuffer the buffer to fill with the loop info of each loop.
+     */
+    void fillLoops(final VisualAccess access, final FloatBuffer colorBuffer, final IntBuffer dataBuffer) {
+        BatchFill.forEachRange(access.getConnectionCount(), (start, end) -> {
+            final FloatBuffer colors = colorBuffer.duplicate();
+            final IntBuffer data = dataBuffer.duplicate();
+            for (int pos = start; pos < end; pos++) {
+                if (connectionLoops[pos] >= 0) {
+                    colors.position(connectionLoops[pos] * COLOR_BUFFER_WIDTH);
+                    data.position(connectionLoops[pos] * LOOP_INFO_BUFFER_WIDTH);
+                    bufferColorInfo(pos, colors, access);
+                    bufferLoopInfo(pos, data, access);
+                }
+            }
+        });
+    }
+
     private int bufferLoopInfo(final int pos, final IntBuffer dataBuffer, final VisualAccess access) {
-        if (loopPosToBufferPos.containsKey(pos)) {
+        if (pos < connectionLoops.length && connectionLoops[pos] >= 0) {
             final int representativeTransactionId = access.getConnectionId(pos);
             final int loopIconIndex = access.getConnectionDirected(pos) ? GLTools.LOOP_DIRECTED_ICON_INDEX : GLTools.LOOP_UNDIRECTED_ICON_INDEX;
             final int flags = (access.getConnectionDimmed(pos) ? 2 : 0) | (access.getConnectionSelected(pos) ? 1 : 0);
@@ -145,20 +181,20 @@ public class LoopBatcher implements SceneBatcher {
             dataBuffer.put(xyzTexturePosition);
             dataBuffer.put(flags);
             dataBuffer.put(loopIconIndex);
-            return loopPosToBufferPos.get(pos);
+            return connectionLoops[pos];
         }
         return -1;
     }
 
     private int bufferColorInfo(final int pos, final FloatBuffer colorBuffer, final VisualAccess access) {
-        if (loopPosToBufferPos.containsKey(pos)) {
+        if (pos < connectionLoops.length && connectionLoops[pos] >= 0) {
             final ConstellationColor color = access.getConnectionColor(pos);
 
             colorBuffer.put(color.getRed());
             colorBuffer.put(color.getGreen());
             colorBuffer.put(color.getBlue());
             colorBuffer.put(access.getConnectionVisibility(pos));
-            return loopPosToBufferPos.get(pos);
+            return connectionLoops[pos];
         }
         return -1;
     }
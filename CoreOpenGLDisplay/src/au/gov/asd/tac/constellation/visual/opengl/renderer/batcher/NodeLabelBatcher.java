@@ -46,10 +46,10 @@ public class NodeLabelBatcher implements GlyphManager.GlyphStream, SceneBatcher
     // Batch and shader
     private final Batch topBatch;
     private final Batch bottomBatch;
-    private FloatArray topLabelFloats;
-    private IntArray topLabelInts;
-    private FloatArray bottomLabelFloats;
-    private IntArray bottomLabelInts;
+    private FloatArray topLabelFloats = new FloatArray();
+    private IntArray topLabelInts = new IntArray();
+    private FloatArray bottomLabelFloats = new FloatArray();
+    private IntArray bottomLabelInts = new IntArray();
     private FloatArray currentFloats;
     private IntArray currentInts;
     private int shader;
@@ -150,74 +150,72 @@ public class NodeLabelBatcher implements GlyphManager.GlyphStream, SceneBatcher
 
     @Override
     public GLRenderableUpdateTask createBatch(final VisualAccess access) {
-        topLabelFloats = new FloatArray();
-        topLabelInts = new IntArray();
-        bottomLabelFloats = new FloatArray();
-        bottomLabelInts = new IntArray();
-        fillTopLabels(access);
-        fillBottomLabels(access);
-
+        final GlyphRunCache glyphRuns = new GlyphRunCache();
+        fillTopLabels(access, glyphRuns);
+        fillBottomLabels(access, glyphRuns);
+
+        final FloatArray topFloats = topLabelFloats;
+        final IntArray topInts = topLabelInts;
+        final FloatArray bottomFloats = bottomLabelFloats;
+        final IntArray bottomInts = bottomLabelInts;
         return gl -> {
-            topBatch.initialise(topLabelFloats.size() / FLOAT_BUFFERS_WIDTH);
-            topBatch.buffer(gl, labelFloatsTarget, FloatBuffer.wrap(topLabelFloats.rawArray()));
-            topBatch.buffer(gl, labelIntsTarget, IntBuffer.wrap(topLabelInts.rawArray()));
-            topBatch.finalise(gl);
-            bottomBatch.initialise(bottomLabelFloats.size() / FLOAT_BUFFERS_WIDTH);
-            bottomBatch.buffer(gl, labelFloatsTarget, FloatBuffer.wrap(bottomLabelFloats.rawArray()));
-            bottomBatch.buffer(gl, labelIntsTarget, IntBuffer.wrap(bottomLabelInts.rawArray()));
-            bottomBatch.finalise(gl);
+            bufferLabels(gl, topBatch, topFloats, topInts);
+            bufferLabels(gl, bottomBatch, bottomFloats, bottomInts);
         };
     }
 
     public GLRenderableUpdateTask updateTopLabels(final VisualAccess access) {
         // We build the whole batch again - can't update labels in place at this stage.
-        topLabelFloats.clear();
-        topLabelInts.clear();
-        fillTopLabels(access);
+        fillTopLabels(access, new GlyphRunCache());
+        final FloatArray topFloats = topLabelFloats;
+        final IntArray topInts = topLabelInts;
         return gl -> {
             topBatch.dispose(gl);
-            topBatch.initialise(topLabelFloats.size() / FLOAT_BUFFERS_WIDTH);
-            topBatch.buffer(gl, labelFloatsTarget, FloatBuffer.wrap(topLabelFloats.rawArray()));
-            topBatch.buffer(gl, labelIntsTarget, IntBuffer.wrap(topLabelInts.rawArray()));
-            topBatch.finalise(gl);
+            bufferLabels(gl, topBatch, topFloats, topInts);
         };
     }
 
     public GLRenderableUpdateTask updateBottomLabels(final VisualAccess access) {
         // We build the whole batch again - can't update labels in place at this stage.
-        bottomLabelFloats.clear();
-        bottomLabelInts.clear();
-        fillBottomLabels(access);
+        fillBottomLabels(access, new GlyphRunCache());
+        final FloatArray bottomFloats = bottomLabelFloats;
+        final IntArray bottomInts = bottomLabelInts;
         return gl -> {
             bottomBatch.dispose(gl);
-            bottomBatch.initialise(bottomLabelFloats.size() / FLOAT_BUFFERS_WIDTH);
-            bottomBatch.buffer(gl, labelFloatsTarget, FloatBuffer.wrap(bottomLabelFloats.rawArray()));
-            bottomBatch.buffer(gl, labelIntsTarget, IntBuffer.wrap(bottomLabelInts.rawArray()));
-            bottomBatch.finalise(gl);
+            bufferLabels(gl, bottomBatch, bottomFloats, bottomInts);
         };
     }
 
-    private void fillTopLabels(final VisualAccess access) {
+    private void bufferLabels(final GL3 gl, final Batch batch, final FloatArray labelFloats, final IntArray labelInts) {
+        batch.initialise(labelFloats.size() / FLOAT_BUFFERS_WIDTH);
+        batch.buffer(gl, labelFloatsTarget, FloatBuffer.wrap(labelFloats.rawArray(), 0, labelFloats.size()));
+        batch.buffer(gl, labelIntsTarget, IntBuffer.wrap(labelInts.rawArray(), 0, labelInts.size()));
+        batch.finalise(gl);
+    }
+
+    // The arrays from the previous fill may still be waiting to be uploaded,
+    // so each fill starts new arrays, sized to hold the labels of the last.
+    private void fillTopLabels(final VisualAccess access, final GlyphRunCache glyphRuns) {
+        topLabelFloats = new FloatArray(topLabelFloats.size());
+        topLabelInts = new IntArray(topLabelInts.size());
         currentFloats = topLabelFloats;
         currentInts = topLabelInts;
         for (int pos = 0; pos < access.getVertexCount(); pos++) {
-            bufferTopLabel(pos, access);
+            bufferTopLabel(pos, access, glyphRuns);
         }
-        topLabelFloats.trimToSize();
-        topLabelInts.trimToSize();
     }
 
-    private void fillBottomLabels(final VisualAccess access) {
+    private void fillBottomLabels(final VisualAccess access, final GlyphRunCache glyphRuns) {
+        bottomLabelFloats = new FloatArray(bottomLabelFloats.size());
+        bottomLabelInts = new IntArray(bottomLabelInts.size());
         currentFloats = bottomLabelFloats;
         currentInts = bottomLabelInts;
         for (int pos = 0; pos < access.getVertexCount(); pos++) {
-            bufferBottomLabel(pos, access);
+            bufferBottomLabel(pos, access, glyphRuns);
         }
-        bottomLabelFloats.trimToSize();
-        bottomLabelInts.trimToSize();
     }
 
-    private void bufferBottomLabel(final int pos, final VisualAccess access) {
+    private void bufferBottomLabel(final int pos, final VisualAccess access, final GlyphRunCache glyphRuns) {
         final float visibility = access.getVertexVisibility(pos);
         int totalScale = LabelUtilities.NRADIUS_TO_LABEL_UNITS;
         for (int label = 0; label < access.getBottomLabelCount(); label++) {
@@ -225,13 +223,13 @@ public class NodeLabelBatcher implements GlyphManager.GlyphStream, SceneBatcher
             ArrayList<String> lines = LabelUtilities.splitTextIntoLines(labelText);
             for (final String line : lines) {
                 setCurrentContext(pos, -totalScale, visibility, label);
-                SharedDrawable.getGlyphManager().renderTextAsLigatures(line, this);
+                glyphRuns.renderLine(line, this);
                 totalScale += labelBottomInfoReference.get(label, 3);
             }
         }
     }
 
-    private void bufferTopLabel(final int pos, final VisualAccess access) {
+    private void bufferTopLabel(final int pos, final VisualAccess access, final GlyphRunCache glyphRuns) {
         final float visibility = access.getVertexVisibility(pos);
         int totalScale = LabelUtilities.NRADIUS_TO_LABEL_UNITS;
         for (int label = 0; label < access.getTopLabelCount(); label++) {
@@ -240,7 +238,7 @@ public class NodeLabelBatcher implements GlyphManager.GlyphStream, SceneBatcher
             Collections.reverse(lines);
             for (final String line : lines) {
                 setCurrentContext(pos, totalScale, visibility, label);
-                SharedDrawable.getGlyphManager().renderTextAsLigatures(line, this);
+                glyphRuns.renderLine(line, this);
                 totalScale += labelTopInfoReference.get(label, 3);
             }
         }
@@ -37,7 +37,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -680,11 +680,16 @@ public final class GLTools {
      * example) can't have that icon changing due to a different drawable being
      * created. Therefore, whenever new icons are added, they are always
      * appended.
+     * <p>
+     * Icons are added from each of the threads filling a batch at once, so
+     * the labels already seen are also held in a concurrent map which can be
+     * read without taking the lock that guards the addition of new icons.
      */
     public static final class LoadedIconHelper {
 
         private final LinkedHashMap<String, Integer> loadedIcons;
-        private boolean requiresReload;
+        private final ConcurrentHashMap<String, Integer> iconIndices;
+        private volatile boolean requiresReload;
 
         // We use a texture array to store icons.
         // If we have too many icons (more than GL_MAX_ARRAY_TEXTURE_LAYERS), then OpenGL won't like it.
@@ -697,6 +702,7 @@ public final class GLTools {
         private LoadedIconHelper() {
             maxNIcons = Integer.MAX_VALUE;
             loadedIcons = new LinkedHashMap<>();
+            iconIndices = new ConcurrentHashMap<>();
 
             // These icons are guaranteed to be in the iconMap in this order.
             // They must be at these pre-defined indices so other code (in particular the shaders) can use them.
@@ -719,6 +725,12 @@ public final class GLTools {
          * @return the index of the icon.
          */
         public int addIcon(final String label) {
+            // The concurrent map can't hold a null label, so those always take the lock.
+            final Integer knownIndex = label == null ? null : iconIndices.get(label);
+            return knownIndex != null ? knownIndex : addNewIcon(label);
+        }
+
+        private synchronized int addNewIcon(final String label) {
             final Integer iconIndex = loadedIcons.get(label);
             if (iconIndex == null) {
                 final int index = loadedIcons.size();
@@ -728,6 +740,9 @@ public final class GLTools {
                 }
 
                 loadedIcons.put(label, index);
+                if (label != null) {
+                    iconIndices.put(label, index);
+                }
                 requiresReload = true;
                 return index;
             }
@@ -735,16 +750,17 @@ public final class GLTools {
             return iconIndex;
         }
 
-        public boolean isEmpty() {
+        public synchronized boolean isEmpty() {
             return loadedIcons.isEmpty();
         }
 
-        public int size() {
+        public synchronized int size() {
             return loadedIcons.size();
         }
 
-        public void reset() {
+        public synchronized void reset() {
             loadedIcons.clear();
+            iconIndices.clear();
             requiresReload = false;
         }
 
@@ -775,26 +791,23 @@ public final class GLTools {
         // Do we have new icons to be loaded?
         // If so, reload the lot.
         if (LOADED_ICON_HELPER.requiresReload) {
-            final int nIcons = LOADED_ICON_HELPER.loadedIcons.size();
-            final List<ConstellationIcon> iconList = new ArrayList<>(nIcons);
-            for (int i = 0; i < nIcons; i++) {
-                iconList.add(null);
+            final List<String> iconLabels;
+            synchronized (LOADED_ICON_HELPER) {
+                iconLabels = new ArrayList<>(LOADED_ICON_HELPER.loadedIcons.keySet());
+                LOADED_ICON_HELPER.requiresReload = false;
             }
 
-            for (final Map.Entry<String, Integer> entry : LOADED_ICON_HELPER.loadedIcons.entrySet()) {
-                final String iconLabel = entry.getKey();
-                final int iconIndex = entry.getValue();
-
+            // Labels are only ever appended, so each label's position is its index.
+            final List<ConstellationIcon> iconList = new ArrayList<>(iconLabels.size());
+            for (final String iconLabel : iconLabels) {
                 ConstellationIcon icon = IconManager.getIcon(iconLabel);
                 if (icon == null) {
                     icon = DefaultIconProvider.UNKNOWN;
                 }
 
-                iconList.set(iconIndex, icon);
+                iconList.add(icon);
             }
 
-            LOADED_ICON_HELPER.requiresReload = false;
-
             final long t0 = System.currentTimeMillis();
             final int iconTextureArray = loadSharedIconTextures(glCurrent, iconList, width, height);
             final long t1 = System.currentTimeMillis();
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.visual.opengl.renderer.batcher;
+
+import au.gov.asd.tac.constellation.visual.opengl.DummyVisualAccess;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ * Line Batcher Test.
+ * <p>
+ * Only the fill stage of the batcher is tested, as uploading the batch needs
+ * an OpenGL context.
+ *
+ * @author agent
+ */
+public class LineBatcherNGTest {
+
+    private static final int WIDTH = 4;
+    private static final int FLOAT_MULTIPLIER = 1024;
+
+    /**
+     * Loops are left out of the batch, and the parallel connections of a link
+     * are offset to either side of the first.
+     */
+    @Test
+    public void testFillLines() {
+        final LineBatcher batcher = new LineBatcher();
+        final DummyVisualAccess access = new DummyVisualAccess();
+
+        final int numLines = batcher.layoutLines(access);
+        assertEquals(numLines, 3);
+
+        final FloatBuffer colors = FloatBuffer.allocate(numLines * 2 * WIDTH);
+        final IntBuffer data = IntBuffer.allocate(numLines * 2 * WIDTH);
+        batcher.fillLines(access, colors, data);
+
+        for (int line = 0; line < numLines; line++) {
+            assertEquals(data.get(line * 2 * WIDTH), line + 1);
+            assertEquals(data.get(line * 2 * WIDTH + WIDTH), line + 1);
+        }
+        assertEquals(data.get(3), 0);
+        assertEquals(data.get(2 * WIDTH + 3), (int) (2.75f * FLOAT_MULTIPLIER));
+        assertEquals(data.get(4 * WIDTH + 3), (int) (-3f * FLOAT_MULTIPLIER));
+        assertEquals(colors.get(WIDTH - 1), 1f);
+    }
+
+    /**
+     * A graph large enough to be filled in parallel ranges fills every line
+     * in the same place as it would be filled in order.
+     */
+    @Test
+    public void testFillLinesInParallel() {
+        final int linkCount = 100_000;
+        final LineBatcher batcher = new LineBatcher();
+        final DummyVisualAccess access = new ManyLinkVisualAccess(linkCount);
+
+        final int numLines = batcher.layoutLines(access);
+        assertEquals(numLines, linkCount * 2);
+
+        final FloatBuffer colors = FloatBuffer.allocate(numLines * 2 * WIDTH);
+        final IntBuffer data = IntBuffer.allocate(numLines * 2 * WIDTH);
+        batcher.fillLines(access, colors, data);
+
+        for (int line = 0; line < numLines; line++) {
+            assertEquals(data.get(line * 2 * WIDTH), line);
+            assertEquals(data.get(line * 2 * WIDTH + WIDTH + 1) / 4, line / 2 + 1);
+            if (line % 2 == 0) {
+                assertEquals(data.get(line * 2 * WIDTH + 3), 0);
+            } else {
+                assertTrue(data.get(line * 2 * WIDTH + 3) != 0);
+            }
+        }
+    }
+
+    /**
+     * A star of links from the first vertex, each with two connections.
+     */
+    private static class ManyLinkVisualAccess extends DummyVisualAccess {
+
+        private final int linkCount;
+
+        private ManyLinkVisualAccess(final int linkCount) {
+            this.linkCount = linkCount;
+        }
+
+        @Override
+        public int getVertexCount() {
+            return linkCount + 1;
+        }
+
+        @Override
+        public int getConnectionCount() {
+            return linkCount * 2;
+        }
+
+        @Override
+        public int getConnectionHighVertex(final int connection) {
+            return connection / 2 + 1;
+        }
+
+        @Override
+        public int getLinkCount() {
+            return linkCount;
+        }
+
+        @Override
+        public int getLinkHighVertex(final int link) {
+            return link + 1;
+        }
+
+        @Override
+        public int getLinkDestination(final int link) {
+            return link + 1;
+        }
+
+        @Override
+        public int getLinkConnectionCount(final int link) {
+            return 2;
+        }
+
+        @Override
+        public int getLinkConnection(final int link, final int pos) {
+            return link * 2 + pos;
+        }
+    }
+}
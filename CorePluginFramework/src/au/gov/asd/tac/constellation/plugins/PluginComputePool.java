@@ -0,0 +1,197 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * A shared pool of threads on which plugins can perform parallel computations.
+ * <p>
+ * Plugins that split their work over a range of elements should use this pool
+ * rather than starting threads of their own, so that repeated executions reuse
+ * the same bounded set of threads. Ranges are split recursively and balanced
+ * between the threads by work stealing, with each part accumulating its
+ * results into its own container before the containers are combined in range
+ * order.
+ * <p>
+ * Cancellation is cooperative: when the thread waiting on a computation is
+ * interrupted, which is how a plugin is cancelled through its
+ * {@link PluginInteraction}, the computation stops starting new elements and
+ * the wait ends with an {@link InterruptedException}.
+ *
+ * @author agent
+ */
+public class PluginComputePool {
+
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM, pool -> {
+        final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("Plugin Compute Pool " + worker.getPoolIndex());
+        return worker;
+    }, null, false);
+
+    private PluginComputePool() {
+    }
+
+    /**
+     * Returns the pool shared by all plugins.
+     *
+     * @return the pool shared by all plugins.
+     */
+    public static ForkJoinPool getPool() {
+        return POOL;
+    }
+
+    /**
+     * An action performed on a single element of a range.
+     */
+    @FunctionalInterface
+    public interface IndexAction {
+
+        void apply(final int index) throws InterruptedException;
+    }
+
+    /**
+     * An action which adds the result of a single element of a range to a
+     * container of results.
+     *
+     * @param <R> the type of the container.
+     */
+    @FunctionalInterface
+    public interface IndexAccumulator<R> {
+
+        void accumulate(final R result, final int index) throws InterruptedException;
+    }
+
+    /**
+     * Performs an action on each element of the range [0, size) in parallel,
+     * waiting for all elements to complete.
+     *
+     * @param size the number of elements in the range.
+     * @param grain the number of elements below which a range is no longer
+     * split.
+     * @param action the action to perform on each element.
+     * @throws InterruptedException if the calling thread is interrupted or an
+     * action throws an InterruptedException.
+     */
+    public static void forEach(final int size, final int grain, final IndexAction action) throws InterruptedException {
+        reduce(size, grain, () -> null, (result, index) -> action.apply(index), (left, right) -> null);
+    }
+
+    /**
+     * Accumulates the results of each element of the range [0, size) in
+     * parallel and combines them into a single result.
+     * <p>
+     * Each part of the range accumulates into a new container from the
+     * supplier, and the containers of adjacent parts are combined with the
+     * container of the lower part as the left argument, so results can be
+     * kept in range order.
+     *
+     * @param <R> the type of the container.
+     * @param size the number of elements in the range.
+     * @param grain the number of elements below which a range is no longer
+     * split.
+     * @param supplier creates a new empty container.
+     * @param accumulator adds the result of an element to a container.
+     * @param combiner combines two containers.
+     * @return the combined result.
+     * @throws InterruptedException if the calling thread is interrupted or the
+     * accumulator throws an InterruptedException.
+     */
+    public static <R> R reduce(final int size, final int grain, final Supplier<R> supplier, final IndexAccumulator<R> accumulator, final BinaryOperator<R> combiner) throws InterruptedException {
+        final AtomicBoolean cancelled = new AtomicBoolean(false);
+        final ForkJoinTask<R> task = POOL.submit(new RangeTask<>(0, size, Math.max(1, grain), supplier, accumulator, combiner, cancelled));
+        final R result;
+        try {
+            result = task.get();
+        } catch (final InterruptedException ex) {
+            cancelled.set(true);
+            throw ex;
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        // an accumulator was interrupted so the result is incomplete
+        if (cancelled.get()) {
+            throw new InterruptedException();
+        }
+
+        return result;
+    }
+
+    /**
+     * A part of a range, which is split in half until it is no larger than
+     * the grain size.
+     */
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+
+        private final int start;
+        private final int end;
+        private final int grain;
+        private final Supplier<R> supplier;
+        private final IndexAccumulator<R> accumulator;
+        private final BinaryOperator<R> combiner;
+        private final AtomicBoolean cancelled;
+
+        private RangeTask(final int start, final int end, final int grain, final Supplier<R> supplier,
+                final IndexAccumulator<R> accumulator, final BinaryOperator<R> combiner, final AtomicBoolean cancelled) {
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        protected R compute() {
+            if (end - start <= grain) {
+                final R result = supplier.get();
+                try {
+                    for (int index = start; index < end && !cancelled.get(); index++) {
+                        accumulator.accumulate(result, index);
+                    }
+                } catch (final InterruptedException ex) {
+                    cancelled.set(true);
+                }
+                return result;
+            }
+
+            final int middle = (start + end) >>> 1;
+            final RangeTask<R> lower = new RangeTask<>(start, middle, grain, supplier, accumulator, combiner, cancelled);
+            final RangeTask<R> upper = new RangeTask<>(middle, end, grain, supplier, accumulator, combiner, cancelled);
+            upper.fork();
+            final R lowerResult = lower.compute();
+            return combiner.apply(lowerResult, upper.join());
+        }
+    }
+}
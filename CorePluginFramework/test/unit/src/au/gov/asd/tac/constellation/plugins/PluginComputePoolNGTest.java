@@ -0,0 +1,101 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.plugins;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+/**
+ * Plugin Compute Pool Test.
+ *
+ * @author agent
+ */
+public class PluginComputePoolNGTest {
+
+    /**
+     * Test of reduce method, of class PluginComputePool, keeps the results in
+     * range order.
+     */
+    @Test
+    public void testReduce() throws InterruptedException {
+        final int size = 10000;
+        final List<Integer> result = PluginComputePool.reduce(size, 7, ArrayList::new,
+                (list, index) -> list.add(index),
+                (left, right) -> {
+                    left.addAll(right);
+                    return left;
+                });
+
+        assertEquals(result.size(), size);
+        for (int index = 0; index < size; index++) {
+            assertEquals((int) result.get(index), index);
+        }
+    }
+
+    /**
+     * Test of forEach method, of class PluginComputePool, visits each element
+     * exactly once.
+     */
+    @Test
+    public void testForEach() throws InterruptedException {
+        final int size = 10000;
+        final AtomicIntegerArray visits = new AtomicIntegerArray(size);
+        PluginComputePool.forEach(size, 13, visits::incrementAndGet);
+
+        for (int index = 0; index < size; index++) {
+            assertEquals(visits.get(index), 1);
+        }
+    }
+
+    /**
+     * Test of forEach method, of class PluginComputePool, with an empty range.
+     */
+    @Test
+    public void testForEachEmpty() throws InterruptedException {
+        PluginComputePool.forEach(0, 10, index -> {
+            throw new IllegalStateException("No elements should be visited");
+        });
+    }
+
+    /**
+     * Test of forEach method, of class PluginComputePool, when an action is
+     * interrupted.
+     */
+    @Test(expectedExceptions = InterruptedException.class)
+    public void testForEachInterrupted() throws InterruptedException {
+        PluginComputePool.forEach(1000, 10, index -> {
+            if (index == 500) {
+                throw new InterruptedException();
+            }
+        });
+    }
+
+    /**
+     * Test of forEach method, of class PluginComputePool, when an action
+     * throws a runtime exception.
+     */
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testForEachException() throws InterruptedException {
+        PluginComputePool.forEach(1000, 10, index -> {
+            if (index == 500) {
+                throw new IllegalArgumentException();
+            }
+        });
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.tableview2;
+
+import au.gov.asd.tac.constellation.graph.Attribute;
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.attribute.interaction.AbstractAttributeInteraction;
+import au.gov.asd.tac.constellation.graph.processing.GraphRecordStoreUtilities;
+import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
+import au.gov.asd.tac.constellation.utilities.datastructure.ThreeTuple;
+import au.gov.asd.tac.constellation.views.tableview2.state.TableViewState;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.TableColumn;
+
+/**
+ * The data displayed by the Table View, stored by column rather than by row.
+ * <p>
+ * The model records which graph elements are displayed when it is built, but
+ * the displayable text of a column is only read from the graph when that
+ * column is visible or is first asked for a value. Each row is a lightweight
+ * view onto the model rather than a list of its own, so a model for a large
+ * graph costs a few arrays rather than a list per element.
+ * <p>
+ * The model remembers the modification counters of the graph at the time it
+ * was read, which allows the Table View to reuse it after a graph change that
+ * leaves the displayed rows untouched, reloading only those columns whose
+ * attribute values have since changed.
+ *
+ * @author agent
+ */
+final class TableViewModel {
+
+    private final Graph graph;
+    private final GraphElementType elementType;
+    private final boolean selectedOnly;
+    private final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns;
+
+    private final long structureModificationCounter;
+    private final long selectedModificationCounter;
+
+    private final int[] elementIds;
+    private final int[] sourceVertexIds;
+    private final int[] destinationVertexIds;
+    private final List<ObservableList<String>> rows;
+
+    private final int[] attributeIds;
+    private final long[] valueModificationCounters;
+    private final AtomicReferenceArray<String[]> cells;
+
+    /**
+     * Build a model of the elements currently displayed by the Table View.
+     * <p>
+     * Only the element ids are read here, callers are expected to follow this
+     * with calls to {@link #ensureLoaded} for the columns they need at once.
+     *
+     * @param graph the graph the model reads from.
+     * @param readableGraph a read lock on the graph.
+     * @param state the current table view state.
+     * @param columns the columns of the table, in the order values are
+     * returned by each row.
+     */
+    TableViewModel(final Graph graph, final GraphReadMethods readableGraph, final TableViewState state,
+            final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns) {
+        this.graph = graph;
+        this.elementType = state.getElementType();
+        this.selectedOnly = state.isSelectedOnly();
+        this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+
+        this.structureModificationCounter = readableGraph.getStructureModificationCounter();
+        final int selectedAttributeId = getSelectedAttribute(readableGraph, elementType);
+        this.selectedModificationCounter = selectedAttributeId == Graph.NOT_FOUND
+                ? Graph.NOT_FOUND : readableGraph.getValueModificationCounter(selectedAttributeId);
+
+        final boolean isVertex = elementType == GraphElementType.VERTEX;
+        final int elementCount = isVertex ? readableGraph.getVertexCount() : readableGraph.getTransactionCount();
+        int[] ids = new int[elementCount];
+        int rowCount = 0;
+        for (int elementPosition = 0; elementPosition < elementCount; elementPosition++) {
+            final int elementId = isVertex
+                    ? readableGraph.getVertex(elementPosition)
+                    : readableGraph.getTransaction(elementPosition);
+            if (!selectedOnly || (selectedAttributeId != Graph.NOT_FOUND && readableGraph.getBooleanValue(selectedAttributeId, elementId))) {
+                ids[rowCount++] = elementId;
+            }
+        }
+        this.elementIds = rowCount == elementCount ? ids : Arrays.copyOf(ids, rowCount);
+
+        if (isVertex) {
+            this.sourceVertexIds = null;
+            this.destinationVertexIds = null;
+        } else {
+            this.sourceVertexIds = new int[rowCount];
+            this.destinationVertexIds = new int[rowCount];
+            for (int row = 0; row < rowCount; row++) {
+                sourceVertexIds[row] = readableGraph.getTransactionSourceVertex(elementIds[row]);
+                destinationVertexIds[row] = readableGraph.getTransactionDestinationVertex(elementIds[row]);
+            }
+        }
+
+        final List<ObservableList<String>> modelRows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            modelRows.add(new TableViewRow(this, row));
+        }
+        this.rows = Collections.unmodifiableList(modelRows);
+
+        final int columnCount = this.columns.size();
+        this.attributeIds = new int[columnCount];
+        this.valueModificationCounters = new long[columnCount];
+        this.cells = new AtomicReferenceArray<>(columnCount);
+        for (int column = 0; column < columnCount; column++) {
+            final Attribute attribute = this.columns.get(column).getSecond();
+            attributeIds[column] = readableGraph.getAttribute(attribute.getElementType(), attribute.getName());
+        }
+    }
+
+    /**
+     * The rows of the model, in graph element order.
+     *
+     * @return an unmodifiable list of rows.
+     */
+    List<ObservableList<String>> getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the id of the graph element displayed in a row of this model.
+     *
+     * @param row a row returned by {@link #getRows()}.
+     * @return the graph element id of the row, or {@link Graph#NOT_FOUND} if
+     * the row does not belong to this model.
+     */
+    int getElementId(final ObservableList<String> row) {
+        if (row instanceof TableViewRow && ((TableViewRow) row).model == this) {
+            return elementIds[((TableViewRow) row).row];
+        }
+        return Graph.NOT_FOUND;
+    }
+
+    /**
+     * Get the ids of the graph elements which are currently selected.
+     *
+     * @param readableGraph a read lock on the graph.
+     * @param elementType the type of element to check.
+     * @return the ids of the selected elements.
+     */
+    static BitSet getSelectedElements(final GraphReadMethods readableGraph, final GraphElementType elementType) {
+        final BitSet selected = new BitSet();
+        final int selectedAttributeId = getSelectedAttribute(readableGraph, elementType);
+        if (selectedAttributeId != Graph.NOT_FOUND) {
+            final boolean isVertex = elementType == GraphElementType.VERTEX;
+            final int elementCount = isVertex ? readableGraph.getVertexCount() : readableGraph.getTransactionCount();
+            for (int elementPosition = 0; elementPosition < elementCount; elementPosition++) {
+                final int elementId = isVertex
+                        ? readableGraph.getVertex(elementPosition)
+                        : readableGraph.getTransaction(elementPosition);
+                if (readableGraph.getBooleanValue(selectedAttributeId, elementId)) {
+                    selected.set(elementId);
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Determine whether this model still describes the rows the Table View
+     * should display, in which case it can be brought up to date by
+     * {@link #refresh} rather than being rebuilt.
+     *
+     * @param graph the graph the Table View is displaying.
+     * @param readableGraph a read lock on the graph.
+     * @param state the current table view state.
+     * @param columns the current columns of the table.
+     * @return true if the rows of this model are still current.
+     */
+    boolean isCurrent(final Graph graph, final GraphReadMethods readableGraph, final TableViewState state,
+            final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns) {
+        if (this.graph != graph || elementType != state.getElementType() || selectedOnly != state.isSelectedOnly()
+                || structureModificationCounter != readableGraph.getStructureModificationCounter()
+                || !this.columns.equals(columns)) {
+            return false;
+        }
+
+        if (selectedOnly) {
+            final int selectedAttributeId = getSelectedAttribute(readableGraph, elementType);
+            final long selectedCounter = selectedAttributeId == Graph.NOT_FOUND
+                    ? Graph.NOT_FOUND : readableGraph.getValueModificationCounter(selectedAttributeId);
+            return selectedModificationCounter == selectedCounter;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reload any loaded columns whose attribute values have changed since they
+     * were read.
+     *
+     * @param readableGraph a read lock on the graph.
+     * @return true if any column was reloaded.
+     */
+    synchronized boolean refresh(final GraphReadMethods readableGraph) {
+        boolean changed = false;
+        for (int column = 0; column < attributeIds.length; column++) {
+            if (cells.get(column) != null && attributeIds[column] != Graph.NOT_FOUND
+                    && valueModificationCounters[column] != readableGraph.getValueModificationCounter(attributeIds[column])) {
+                load(readableGraph, column);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Read the displayable text of a column from the graph, unless it has
+     * already been read.
+     *
+     * @param readableGraph a read lock on the graph.
+     * @param column the index of the column.
+     */
+    synchronized void ensureLoaded(final GraphReadMethods readableGraph, final int column) {
+        if (cells.get(column) == null) {
+            load(readableGraph, column);
+        }
+    }
+
+    /**
+     * Has the displayable text of a column been read from the graph?
+     *
+     * @param column the index of the column.
+     * @return true if the column has been loaded.
+     */
+    boolean isLoaded(final int column) {
+        return cells.get(column) != null;
+    }
+
+    private String getCell(final int row, final int column) {
+        String[] values = cells.get(column);
+        if (values == null) {
+            values = loadLazily(column);
+        }
+        return values[row];
+    }
+
+    private synchronized String[] loadLazily(final int column) {
+        if (cells.get(column) == null) {
+            final ReadableGraph readableGraph = graph.getReadableGraph();
+            try {
+                load(readableGraph, column);
+            } finally {
+                readableGraph.release();
+            }
+        }
+        return cells.get(column);
+    }
+
+    private void load(final GraphReadMethods readableGraph, final int column) {
+        final ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>> columnTuple = columns.get(column);
+        final int attributeId = attributeIds[column];
+        final int[] ids;
+        switch (elementType == GraphElementType.VERTEX ? "" : columnTuple.getFirst()) {
+            case GraphRecordStoreUtilities.SOURCE:
+                ids = sourceVertexIds;
+                break;
+            case GraphRecordStoreUtilities.DESTINATION:
+                ids = destinationVertexIds;
+                break;
+            default:
+                ids = elementIds;
+        }
+
+        final String[] values = new String[elementIds.length];
+        if (attributeId != Graph.NOT_FOUND) {
+            final AbstractAttributeInteraction<?> interaction = AbstractAttributeInteraction.getInteraction(columnTuple.getSecond().getAttributeType());
+            for (int row = 0; row < values.length; row++) {
+                values[row] = interaction.getDisplayText(readableGraph.getObjectValue(attributeId, ids[row]));
+            }
+            valueModificationCounters[column] = readableGraph.getValueModificationCounter(attributeId);
+        }
+
+        // the array is replaced rather than updated so that rows being read
+        // on the JavaFX thread never see a partially loaded column
+        cells.set(column, values);
+    }
+
+    private static int getSelectedAttribute(final GraphReadMethods readableGraph, final GraphElementType elementType) {
+        return elementType == GraphElementType.VERTEX
+                ? VisualConcept.VertexAttribute.SELECTED.get(readableGraph)
+                : VisualConcept.TransactionAttribute.SELECTED.get(readableGraph);
+    }
+
+    /**
+     * A row of the table, which reads its values from the model.
+     * <p>
+     * Rows are compared by identity so that two elements with the same
+     * displayed values remain distinct rows.
+     */
+    private static final class TableViewRow extends ObservableListBase<String> {
+
+        private final TableViewModel model;
+        private final int row;
+
+        private TableViewRow(final TableViewModel model, final int row) {
+            this.model = model;
+            this.row = row;
+        }
+
+        @Override
+        public String get(final int index) {
+            return model.getCell(row, index);
+        }
+
+        @Override
+        public int size() {
+            return model.columns.size();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
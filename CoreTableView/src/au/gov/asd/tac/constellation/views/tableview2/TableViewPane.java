@@ -34,8 +34,8 @@ import au.gov.asd.tac.constellation.utilities.color.ConstellationColor;
 import au.gov.asd.tac.constellation.utilities.icon.UserInterfaceIconProvider;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +45,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -129,8 +130,7 @@ public final class TableViewPane extends BorderPane {
 
     private final TableViewTopComponent parent;
     private final CopyOnWriteArrayList<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columnIndex;
-    private final Map<Integer, ObservableList<String>> elementIdToRowIndex;
-    private final Map<ObservableList<String>, Integer> rowToElementIdIndex;
+    private volatile TableViewModel model;
     private Change<? extends TableColumn<ObservableList<String>, ?>> lastChange;
 
     private final TableView<ObservableList<String>> table;
@@ -160,8 +160,7 @@ public final class TableViewPane extends BorderPane {
     public TableViewPane(final TableViewTopComponent parent) {
         this.parent = parent;
         this.columnIndex = new CopyOnWriteArrayList<>();
-        this.elementIdToRowIndex = new HashMap<>();
-        this.rowToElementIdIndex = new HashMap<>();
+        this.model = null;
         this.lastChange = null;
 
         final ToolBar toolbar = initToolbar();
@@ -183,7 +182,7 @@ public final class TableViewPane extends BorderPane {
 
         this.tableSelectionListener = (v, o, n) -> {
             if (parent.getCurrentState() != null && !parent.getCurrentState().isSelectedOnly()) {
-                TableViewUtilities.copySelectionToGraph(table, rowToElementIdIndex,
+                TableViewUtilities.copySelectionToGraph(table, model,
                         parent.getCurrentState().getElementType(), parent.getCurrentGraph());
             }
         };
@@ -868,79 +867,49 @@ public final class TableViewPane extends BorderPane {
                     setCenter(progress);
                 });
 
-                // update data on a new thread so as to not interrupt the progress indicator
-                elementIdToRowIndex.clear();
-                rowToElementIdIndex.clear();
-
-                // build table data based on attribute values on the graph
-                final List<ObservableList<String>> rows = new ArrayList<>();
+                // reuse the current model if the displayed rows are unchanged,
+                // otherwise build a new one, loading only the visible columns
+                final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns = new ArrayList<>(columnIndex);
+                final TableViewModel currentModel = model;
+                final TableViewModel updatedModel;
+                final boolean rowsChanged;
+                final boolean valuesChanged;
                 final ReadableGraph readableGraph = graph.getReadableGraph();
                 try {
-                    if (state.getElementType() == GraphElementType.TRANSACTION) {
-                        final int selectedAttributeId = VisualConcept.TransactionAttribute.SELECTED.get(readableGraph);
-                        final int transactionCount = readableGraph.getTransactionCount();
-                        for (int transactionPosition = 0; transactionPosition < transactionCount; transactionPosition++) {
-                            final int transactionId = readableGraph.getTransaction(transactionPosition);
-                            boolean isSelected = false;
-                            if (selectedAttributeId != Graph.NOT_FOUND) {
-                                isSelected = readableGraph.getBooleanValue(selectedAttributeId, transactionId);
-                            }
-                            if (!state.isSelectedOnly() || isSelected) {
-                                final ObservableList<String> rowData = FXCollections.observableArrayList();
-                                columnIndex.forEach(columnTuple -> {
-                                    final int attributeId = readableGraph.getAttribute(columnTuple.getSecond().getElementType(), columnTuple.getSecond().getName());
-                                    final AbstractAttributeInteraction<?> interaction = AbstractAttributeInteraction.getInteraction(columnTuple.getSecond().getAttributeType());
-                                    final Object attributeValue;
-                                    switch (columnTuple.getFirst()) {
-                                        case GraphRecordStoreUtilities.SOURCE:
-                                            final int sourceVertexId = readableGraph.getTransactionSourceVertex(transactionId);
-                                            attributeValue = readableGraph.getObjectValue(attributeId, sourceVertexId);
-                                            break;
-                                        case GraphRecordStoreUtilities.TRANSACTION:
-                                            attributeValue = readableGraph.getObjectValue(attributeId, transactionId);
-                                            break;
-                                        case GraphRecordStoreUtilities.DESTINATION:
-                                            final int destinationVertexId = readableGraph.getTransactionDestinationVertex(transactionId);
-                                            attributeValue = readableGraph.getObjectValue(attributeId, destinationVertexId);
-                                            break;
-                                        default:
-                                            attributeValue = null;
-                                    }
-                                    final String displayableValue = interaction.getDisplayText(attributeValue);
-                                    rowData.add(displayableValue);
-                                });
-                                elementIdToRowIndex.put(transactionId, rowData);
-                                rowToElementIdIndex.put(rowData, transactionId);
-                                rows.add(rowData);
-                            }
-                        }
+                    if (currentModel != null && filter != null && currentModel.isCurrent(graph, readableGraph, state, columns)) {
+                        updatedModel = currentModel;
+                        rowsChanged = false;
                     } else {
-                        final int selectedAttributeId = VisualConcept.VertexAttribute.SELECTED.get(readableGraph);
-                        final int vertexCount = readableGraph.getVertexCount();
-                        for (int vertexPosition = 0; vertexPosition < vertexCount; vertexPosition++) {
-                            final int vertexId = readableGraph.getVertex(vertexPosition);
-                            boolean isSelected = false;
-                            if (selectedAttributeId != Graph.NOT_FOUND) {
-                                isSelected = readableGraph.getBooleanValue(selectedAttributeId, vertexId);
-                            }
-                            if (!state.isSelectedOnly() || isSelected) {
-                                final ObservableList<String> rowData = FXCollections.observableArrayList();
-                                columnIndex.forEach(columnTuple -> {
-                                    final int attributeId = readableGraph.getAttribute(columnTuple.getSecond().getElementType(), columnTuple.getSecond().getName());
-                                    final AbstractAttributeInteraction<?> interaction = AbstractAttributeInteraction.getInteraction(columnTuple.getSecond().getAttributeType());
-                                    final Object attributeValue = readableGraph.getObjectValue(attributeId, vertexId);
-                                    final String displayableValue = interaction.getDisplayText(attributeValue);
-                                    rowData.add(displayableValue);
-                                });
-                                elementIdToRowIndex.put(vertexId, rowData);
-                                rowToElementIdIndex.put(rowData, vertexId);
-                                rows.add(rowData);
-                            }
+                        updatedModel = new TableViewModel(graph, readableGraph, state, columns);
+                        rowsChanged = true;
+                    }
+                    for (int column = 0; column < columns.size(); column++) {
+                        final ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>> columnTuple = columns.get(column);
+                        if (state.getColumnAttributes() != null
+                                && state.getColumnAttributes().contains(Tuple.create(columnTuple.getFirst(), columnTuple.getSecond()))) {
+                            updatedModel.ensureLoaded(readableGraph, column);
                         }
                     }
+                    valuesChanged = updatedModel.refresh(readableGraph);
                 } finally {
                     readableGraph.release();
                 }
+                model = updatedModel;
+
+                if (!rowsChanged) {
+                    Platform.runLater(() -> {
+                        selectedProperty.removeListener(tableSelectionListener);
+
+                        // re-apply the user defined filter and sort over the new values
+                        if (valuesChanged) {
+                            filter.getBackingList().setAll(updatedModel.getRows());
+                        }
+                        setCenter(table);
+
+                        selectedProperty.addListener(tableSelectionListener);
+                    });
+                    return;
+                }
 
                 final CountDownLatch updateDataLatch = new CountDownLatch(1);
 
@@ -948,7 +917,7 @@ public final class TableViewPane extends BorderPane {
                     selectedProperty.removeListener(tableSelectionListener);
 
                     // add table data to table
-                    table.setItems(FXCollections.observableArrayList(rows));
+                    table.setItems(FXCollections.observableArrayList(updatedModel.getRows()));
                     setCenter(table);
 
                     // add user defined filter to the table
@@ -999,40 +968,30 @@ public final class TableViewPane extends BorderPane {
 
                 // get graph selection
                 if (!state.isSelectedOnly()) {
-                    final List<Integer> selectedIds = new ArrayList<>();
+                    final BitSet selectedIds;
                     final ReadableGraph readableGraph = graph.getReadableGraph();
                     try {
-                        final boolean isVertex = state.getElementType() == GraphElementType.VERTEX;
-                        final int selectedAttributeId = isVertex
-                                ? VisualConcept.VertexAttribute.SELECTED.get(readableGraph)
-                                : VisualConcept.TransactionAttribute.SELECTED.get(readableGraph);
-                        final int elementCount = isVertex
-                                ? readableGraph.getVertexCount()
-                                : readableGraph.getTransactionCount();
-                        for (int elementPosition = 0; elementPosition < elementCount; elementPosition++) {
-                            final int elementId = isVertex
-                                    ? readableGraph.getVertex(elementPosition)
-                                    : readableGraph.getTransaction(elementPosition);
-                            boolean isSelected = false;
-                            if (selectedAttributeId != Graph.NOT_FOUND) {
-                                isSelected = readableGraph.getBooleanValue(selectedAttributeId, elementId);
-                            }
-                            if (isSelected) {
-                                selectedIds.add(elementId);
-                            }
-                        }
+                        selectedIds = TableViewModel.getSelectedElements(readableGraph, state.getElementType());
                     } finally {
                         readableGraph.release();
                     }
 
-                    // update table selection
-                    final int[] selectedIndices = selectedIds.stream().map(id -> elementIdToRowIndex.get(id))
-                            .map(row -> table.getItems().indexOf(row)).mapToInt(i -> i).toArray();
-
+                    final TableViewModel currentModel = model;
                     Platform.runLater(() -> {
+                        // find the selected rows in a single pass over the
+                        // table, which may be filtered and sorted
+                        final ObservableList<ObservableList<String>> items = table.getItems();
+                        final int[] selectedIndices = currentModel == null ? new int[0]
+                                : IntStream.range(0, items.size())
+                                        .filter(index -> {
+                                            final int elementId = currentModel.getElementId(items.get(index));
+                                            return elementId != Graph.NOT_FOUND && selectedIds.get(elementId);
+                                        })
+                                        .toArray();
+
                         selectedProperty.removeListener(tableSelectionListener);
                         table.getSelectionModel().clearSelection();
-                        if (!selectedIds.isEmpty()) {
+                        if (selectedIndices.length > 0) {
                             table.getSelectionModel().selectIndices(selectedIndices[0], selectedIndices);
                         }
                         selectedProperty.addListener(tableSelectionListener);
@@ -34,10 +34,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
 import java.util.stream.Collectors;
 import javafx.application.Platform;
 import javafx.collections.ObservableList;
@@ -168,13 +167,13 @@ public class TableViewUtilities {
      * Copy selection information from a table to a graph.
      *
      * @param table the table to retrieve data from.
-     * @param index the index of the selection.
+     * @param model the model mapping rows of the table to graph elements.
      * @param elementType the element type of the selection.
      * @param graph the graph to copy to.
      */
-    public static void copySelectionToGraph(final TableView<ObservableList<String>> table,
-            final Map<ObservableList<String>, Integer> index, final GraphElementType elementType, final Graph graph) {
-        PluginExecution.withPlugin(new SelectionToGraphPlugin(table, index, elementType)).executeLater(graph);
+    static void copySelectionToGraph(final TableView<ObservableList<String>> table,
+            final TableViewModel model, final GraphElementType elementType, final Graph graph) {
+        PluginExecution.withPlugin(new SelectionToGraphPlugin(table, model, elementType)).executeLater(graph);
     }
 
     private static class ExportToCsvFilePlugin extends SimplePlugin {
@@ -294,26 +293,31 @@ public class TableViewUtilities {
     private static class SelectionToGraphPlugin extends SimpleEditPlugin {
 
         private final TableView<ObservableList<String>> table;
-        private final Map<ObservableList<String>, Integer> index;
+        private final TableViewModel model;
         private final GraphElementType elementType;
 
         public SelectionToGraphPlugin(final TableView<ObservableList<String>> table,
-                final Map<ObservableList<String>, Integer> index, final GraphElementType elementType) {
+                final TableViewModel model, final GraphElementType elementType) {
             this.table = table;
-            this.index = index;
+            this.model = model;
             this.elementType = elementType;
         }
 
         @Override
         public void edit(final GraphWriteMethods graph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException, PluginException {
-            final Set<Integer> selectedElements = table.getSelectionModel().getSelectedItems().stream()
-                    .map(selectedItem -> index.get(selectedItem)).collect(Collectors.toSet());
+            final BitSet selectedElements = new BitSet();
+            if (model != null) {
+                table.getSelectionModel().getSelectedItems().stream()
+                        .mapToInt(selectedItem -> model.getElementId(selectedItem))
+                        .filter(elementId -> elementId != Graph.NOT_FOUND)
+                        .forEach(selectedElements::set);
+            }
             final boolean isVertex = elementType == GraphElementType.VERTEX;
             final int selectedAttributeId = isVertex ? VisualConcept.VertexAttribute.SELECTED.ensure(graph) : VisualConcept.TransactionAttribute.SELECTED.ensure(graph);
             final int elementCount = isVertex ? graph.getVertexCount() : graph.getTransactionCount();
             for (int elementPosition = 0; elementPosition < elementCount; elementPosition++) {
                 final int elementId = isVertex ? graph.getVertex(elementPosition) : graph.getTransaction(elementPosition);
-                graph.setBooleanValue(selectedAttributeId, elementId, selectedElements.contains(elementId));
+                graph.setBooleanValue(selectedAttributeId, elementId, selectedElements.get(elementId));
             }
         }
 
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.tableview2;
+
+import au.gov.asd.tac.constellation.graph.Attribute;
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphAttribute;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.WritableGraph;
+import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.processing.GraphRecordStoreUtilities;
+import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
+import au.gov.asd.tac.constellation.utilities.datastructure.ThreeTuple;
+import au.gov.asd.tac.constellation.views.tableview2.state.TableViewState;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.scene.control.TableColumn;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Table View Model Test.
+ *
+ * @author agent
+ */
+public class TableViewModelNGTest {
+
+    private static final int VERTEX_COUNT = 2500;
+
+    private Graph graph;
+    private int nameAttribute;
+    private int countAttribute;
+    private int selectedAttribute;
+    private int transactionNameAttribute;
+
+    @BeforeMethod
+    public void setUpMethod() throws InterruptedException {
+        graph = new DualGraph(null);
+        final WritableGraph wg = graph.getWritableGraph("Set Up", true);
+        try {
+            nameAttribute = wg.addAttribute(GraphElementType.VERTEX, "string", "name", null, null, null);
+            countAttribute = wg.addAttribute(GraphElementType.VERTEX, "integer", "count", null, 0, null);
+            selectedAttribute = VisualConcept.VertexAttribute.SELECTED.ensure(wg);
+            transactionNameAttribute = wg.addAttribute(GraphElementType.TRANSACTION, "string", "name", null, null, null);
+            for (int i = 0; i < VERTEX_COUNT; i++) {
+                final int vxId = wg.addVertex();
+                wg.setStringValue(nameAttribute, vxId, "v" + vxId);
+                wg.setIntValue(countAttribute, vxId, (vxId * 7) % 10);
+                wg.setBooleanValue(selectedAttribute, vxId, vxId % 3 == 0);
+            }
+            for (int i = 0; i < VERTEX_COUNT - 1; i++) {
+                final int txId = wg.addTransaction(wg.getVertex(i), wg.getVertex(i + 1), true);
+                wg.setStringValue(transactionNameAttribute, txId, "t" + txId);
+            }
+        } finally {
+            wg.commit();
+        }
+    }
+
+    private List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> getColumns(final String prefix, final int... attributes) {
+        final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns = new ArrayList<>();
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            for (final int attribute : attributes) {
+                columns.add(ThreeTuple.create(prefix, new GraphAttribute(rg, attribute), null));
+            }
+        } finally {
+            rg.release();
+        }
+        return columns;
+    }
+
+    private static TableViewState getState(final GraphElementType elementType, final boolean selectedOnly) {
+        final TableViewState state = new TableViewState();
+        state.setElementType(elementType);
+        state.setSelectedOnly(selectedOnly);
+        return state;
+    }
+
+    private TableViewModel createModel(final TableViewState state,
+            final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns, final int... loadedColumns) {
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            final TableViewModel model = new TableViewModel(graph, rg, state, columns);
+            for (final int column : loadedColumns) {
+                model.ensureLoaded(rg, column);
+            }
+            return model;
+        } finally {
+            rg.release();
+        }
+    }
+
+    @Test
+    public void scrollTest() {
+        final TableViewModel model = createModel(getState(GraphElementType.VERTEX, false), getColumns("", nameAttribute, countAttribute), 0);
+        final List<ObservableList<String>> rows = model.getRows();
+        assertEquals(rows.size(), VERTEX_COUNT);
+        assertTrue(model.isLoaded(0));
+        assertFalse(model.isLoaded(1));
+
+        // scroll down and back up, reading the unloaded column as it comes into view
+        for (int row = 0; row < rows.size(); row++) {
+            final int vxId = model.getElementId(rows.get(row));
+            assertEquals(rows.get(row).get(0), "v" + vxId);
+            assertEquals(Integer.parseInt(rows.get(row).get(1)), (vxId * 7) % 10);
+        }
+        assertTrue(model.isLoaded(1));
+        for (int row = rows.size() - 1; row >= 0; row--) {
+            assertEquals(rows.get(row).get(0), "v" + model.getElementId(rows.get(row)));
+        }
+
+        // rows that jump from one end of the table to the other
+        assertEquals(rows.get(0).get(0), "v0");
+        assertEquals(rows.get(VERTEX_COUNT - 1).get(0), "v" + (VERTEX_COUNT - 1));
+        assertEquals(rows.get(0).size(), 2);
+
+        // a row is only recognised by its own model
+        final TableViewModel otherModel = createModel(getState(GraphElementType.VERTEX, false), getColumns("", nameAttribute));
+        assertEquals(otherModel.getElementId(rows.get(0)), Graph.NOT_FOUND);
+    }
+
+    @Test
+    public void transactionScrollTest() {
+        final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns = getColumns(GraphRecordStoreUtilities.TRANSACTION, transactionNameAttribute);
+        columns.addAll(getColumns(GraphRecordStoreUtilities.SOURCE, nameAttribute));
+        columns.addAll(getColumns(GraphRecordStoreUtilities.DESTINATION, nameAttribute));
+        final TableViewModel model = createModel(getState(GraphElementType.TRANSACTION, false), columns);
+        final List<ObservableList<String>> rows = model.getRows();
+        assertEquals(rows.size(), VERTEX_COUNT - 1);
+
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            for (int row = rows.size() - 1; row >= 0; row--) {
+                final int txId = model.getElementId(rows.get(row));
+                assertEquals(rows.get(row).get(0), "t" + txId);
+                assertEquals(rows.get(row).get(1), "v" + rg.getTransactionSourceVertex(txId));
+                assertEquals(rows.get(row).get(2), "v" + rg.getTransactionDestinationVertex(txId));
+            }
+        } finally {
+            rg.release();
+        }
+    }
+
+    @Test
+    public void sortAndFilterTest() {
+        final TableViewModel model = createModel(getState(GraphElementType.VERTEX, false), getColumns("", nameAttribute, countAttribute));
+        assertFalse(model.isLoaded(0));
+        assertFalse(model.isLoaded(1));
+
+        // sorting reads the column it sorts by, and nothing else
+        final Comparator<ObservableList<String>> byCount = Comparator.comparing(row -> Integer.parseInt(row.get(1)));
+        final SortedList<ObservableList<String>> sorted = new SortedList<>(FXCollections.observableArrayList(model.getRows()), byCount);
+        assertTrue(model.isLoaded(1));
+        assertFalse(model.isLoaded(0));
+        assertEquals(sorted.size(), VERTEX_COUNT);
+        for (int row = 1; row < sorted.size(); row++) {
+            assertTrue(byCount.compare(sorted.get(row - 1), sorted.get(row)) <= 0);
+        }
+
+        // filtering the sorted rows reads the column it filters by
+        final FilteredList<ObservableList<String>> filtered = new FilteredList<>(sorted, row -> row.get(0).endsWith("7"));
+        assertTrue(model.isLoaded(0));
+        assertEquals(filtered.size(), VERTEX_COUNT / 10);
+        for (final ObservableList<String> row : filtered) {
+            final int vxId = model.getElementId(row);
+            assertEquals(vxId % 10, 7);
+            assertEquals(row.get(0), "v" + vxId);
+            assertEquals(Integer.parseInt(row.get(1)), 9);
+        }
+    }
+
+    @Test
+    public void refreshTest() throws InterruptedException {
+        final TableViewState state = getState(GraphElementType.VERTEX, false);
+        final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns = getColumns("", nameAttribute, countAttribute);
+        final TableViewModel model = createModel(state, columns, 0);
+
+        WritableGraph wg = graph.getWritableGraph("Rename", true);
+        try {
+            wg.setStringValue(nameAttribute, 5, "renamed");
+        } finally {
+            wg.commit();
+        }
+
+        // a value change keeps the rows, and only reloads the loaded columns
+        ReadableGraph rg = graph.getReadableGraph();
+        try {
+            assertTrue(model.isCurrent(graph, rg, state, columns));
+            assertTrue(model.refresh(rg));
+            assertFalse(model.refresh(rg));
+        } finally {
+            rg.release();
+        }
+        assertEquals(model.getRows().get(5).get(0), "renamed");
+        assertFalse(model.isLoaded(1));
+
+        // a change of structure or columns needs a new model
+        wg = graph.getWritableGraph("Add Vertex", true);
+        try {
+            wg.addVertex();
+        } finally {
+            wg.commit();
+        }
+        rg = graph.getReadableGraph();
+        try {
+            assertFalse(model.isCurrent(graph, rg, state, columns));
+            assertFalse(createModel(state, columns).isCurrent(graph, rg, state, getColumns("", nameAttribute)));
+        } finally {
+            rg.release();
+        }
+    }
+
+    @Test
+    public void selectedOnlyRefreshTest() throws InterruptedException {
+        final TableViewState state = getState(GraphElementType.VERTEX, true);
+        final List<ThreeTuple<String, Attribute, TableColumn<ObservableList<String>, String>>> columns = getColumns("", nameAttribute);
+        final TableViewModel model = createModel(state, columns, 0);
+        assertEquals(model.getRows().size(), (VERTEX_COUNT + 2) / 3);
+        for (final ObservableList<String> row : model.getRows()) {
+            assertEquals(model.getElementId(row) % 3, 0);
+        }
+
+        // a change of another attribute keeps the rows
+        WritableGraph wg = graph.getWritableGraph("Rename", true);
+        try {
+            wg.setStringValue(nameAttribute, 3, "renamed");
+        } finally {
+            wg.commit();
+        }
+        ReadableGraph rg = graph.getReadableGraph();
+        try {
+            assertTrue(model.isCurrent(graph, rg, state, columns));
+            assertFalse(model.isCurrent(graph, rg, getState(GraphElementType.VERTEX, false), columns));
+            assertTrue(model.refresh(rg));
+        } finally {
+            rg.release();
+        }
+        assertEquals(model.getRows().get(1).get(0), "renamed");
+
+        // a change of selection changes the rows to display
+        wg = graph.getWritableGraph("Select", true);
+        try {
+            wg.setBooleanValue(selectedAttribute, 1, true);
+        } finally {
+            wg.commit();
+        }
+        rg = graph.getReadableGraph();
+        try {
+            assertFalse(model.isCurrent(graph, rg, state, columns));
+        } finally {
+            rg.release();
+        }
+        assertEquals(createModel(state, columns).getRows().size(), (VERTEX_COUNT + 2) / 3 + 1);
+    }
+}
@@ -124,6 +124,11 @@ public final class MemoryManagerTopComponent extends TopComponent implements Mem
         updateObjectCounts();
     }
 
+    @Override
+    public void memoryUsageChanged(String name) {
+        updateObjectCounts();
+    }
+
     private void updateObjectCounts() {
 
         StringBuilder result = new StringBuilder();
@@ -142,6 +147,14 @@ public final class MemoryManagerTopComponent extends TopComponent implements Mem
             result.append("\n");
         }
 
+        Map<String, Long> usage = MemoryManager.getMemoryUsage();
+        for (Entry<String, Long> e : usage.entrySet()) {
+            result.append(e.getKey());
+            result.append(": bytes = ");
+            result.append(e.getValue());
+            result.append("\n");
+        }
+
         objectCountsTextArea.setText(result.toString());
     }
 }
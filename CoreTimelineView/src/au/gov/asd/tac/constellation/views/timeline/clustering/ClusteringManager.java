@@ -17,7 +17,10 @@ package au.gov.asd.tac.constellation.views.timeline.clustering;
 
 import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphIndexResult;
+import au.gov.asd.tac.constellation.graph.GraphIndexType;
 import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.GraphWriteMethods;
 import au.gov.asd.tac.constellation.graph.WritableGraph;
 import au.gov.asd.tac.constellation.graph.attribute.DateAttributeDescription;
 import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
@@ -32,12 +35,12 @@ import au.gov.asd.tac.constellation.views.timeline.TimeExtents;
 import au.gov.asd.tac.constellation.views.timeline.TimelineTopComponent;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 /**
  * Clustering Manager
@@ -49,12 +52,16 @@ public class ClusteringManager {
     List<TreeLeaf> leaves = new ArrayList<>();
     private TreeElement tree;
     private Set<TreeElement> elementsToDraw = new HashSet<>();
-    private Set<TreeElement> elementsToUndim = new HashSet<>();
-    private Set<TreeElement> oldElementsToUndim;
-    private final Map<Integer, Integer> undimmedVerticesOnGraph = new HashMap<>();
-    private Set<TreeElement> elementsToUnhide = new HashSet<>();
-    private Set<TreeElement> oldElementsToUnhide;
-    private final Map<Integer, Integer> unhiddenVerticesOnGraph = new HashMap<>();
+
+    // The transactions represented by the leaves of the tree
+    private BitSet treeTransactions = new BitSet();
+
+    // The time window last applied to the graph, and the number of transactions
+    // within the window attached to each vertex
+    private String windowAttribute;
+    private long windowLower;
+    private long windowUpper;
+    private int[] vertexWindowCounts = new int[0];
 
     public TimeExtents generateTree(final GraphReadMethods graph, final String datetimeAttribute,
             final boolean selectedOnly) {
@@ -93,6 +100,7 @@ public class ClusteringManager {
                         final boolean nodesSelected = graph.getBooleanValue(selectedNodeAttributeId, vertexA) || graph.getBooleanValue(selectedNodeAttributeId, vertexB);
 
                         System.out.println("ADDING::" + datetimeAttributeType + "::" + transactionValue);
+                        treeTransactions.set(transactionID);
                         leaves.add(new TreeLeaf(transactionID, transactionValue, isSelected, nodesSelected, lowerY, upperY, Math.min(vertexA, vertexB), Math.max(vertexA, vertexB)));
                     }
                 }
@@ -180,39 +188,6 @@ public class ClusteringManager {
         }
     }
 
-    public void dimOrHideTree(final long lowerTimeExtent, final long upperTimeExtent, int exclusionState) {
-        ArrayList<TreeElement> stack = new ArrayList<>();
-
-        stack.add(tree);
-
-        oldElementsToUndim = elementsToUndim;
-        elementsToUndim = new HashSet<>();
-        oldElementsToUnhide = elementsToUnhide;
-        elementsToUnhide = new HashSet<>();
-
-        if (tree != null) {
-            while (!stack.isEmpty()) {
-                final TreeElement te = stack.remove(stack.size() - 1);
-
-                if (te.getUpperTimeExtent() < lowerTimeExtent || te.getLowerTimeExtent() > upperTimeExtent) {
-                    continue;
-                }
-
-                if (te.getUpperTimeExtent() <= upperTimeExtent && te.getLowerTimeExtent() >= lowerTimeExtent) {
-                    if (exclusionState == 1) {
-                        elementsToUndim.add(te);
-                    } else if (exclusionState == 2) {
-                        elementsToUnhide.add(te);
-                    }
-                } else {
-                    final TreeNode node = (TreeNode) te;
-                    stack.add(node.firstChild);
-                    stack.add(node.lastChild);
-                }
-            }
-        }
-    }
-
     public long getLowestObservedTime() {
         return tree.getLowerTimeExtent();
     }
@@ -228,6 +203,58 @@ public class ClusteringManager {
     public void clearTree() {
         tree = null;
         leaves.clear();
+        treeTransactions = new BitSet();
+    }
+
+    /**
+     * Make sure the datetime attribute has an ordered index so that the
+     * transactions within a time window can be found with a range query.
+     */
+    private static void ensureTimeIndex(final GraphWriteMethods graph, final int datetimeAttributeId) {
+        if (graph.getAttributeIndexType(datetimeAttributeId) != GraphIndexType.ORDERED
+                && graph.attributeSupportsIndexType(datetimeAttributeId, GraphIndexType.ORDERED)) {
+            graph.setAttributeIndexType(datetimeAttributeId, GraphIndexType.ORDERED);
+        }
+    }
+
+    /**
+     * Perform an action for each transaction of the tree whose datetime lies
+     * within the inclusive range [lower, upper].
+     */
+    private void forEachTransactionInRange(final GraphWriteMethods graph, final int datetimeAttributeId,
+            final long lower, final long upper, final IntConsumer action) {
+        if (lower > upper) {
+            return;
+        }
+        final GraphIndexResult result = graph.getElementsWithAttributeTimeRange(datetimeAttributeId, lower, upper == Long.MAX_VALUE ? upper : upper + 1);
+        if (result != null) {
+            final int count = result.getCount();
+            for (int i = 0; i < count; i++) {
+                final int txID = result.getNextElement();
+                if (treeTransactions.get(txID)) {
+                    action.accept(txID);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a transaction entering the window (or remove one leaving it) to the
+     * counts of its vertices, marking the vertices as touched.
+     */
+    private void countTransaction(final GraphWriteMethods graph, final int txID, final int change, final BitSet touchedVertices) {
+        final int vxA = graph.getTransactionSourceVertex(txID);
+        final int vxB = graph.getTransactionDestinationVertex(txID);
+        vertexWindowCounts[vxA] += change;
+        vertexWindowCounts[vxB] += change;
+        touchedVertices.set(vxA);
+        touchedVertices.set(vxB);
+    }
+
+    private static void setExcluded(final GraphWriteMethods graph, final int dimAttr, final int hideAttr,
+            final int id, final boolean inWindow, final int exclusionState) {
+        graph.setBooleanValue(dimAttr, id, !inWindow && exclusionState == 1);
+        graph.setIntValue(hideAttr, id, (!inWindow && exclusionState == 2) ? 0 : 1);
     }
 
     @FunctionalInterface
@@ -268,129 +295,30 @@ public class ClusteringManager {
                 final int transDimAttr = VisualConcept.TransactionAttribute.DIMMED.ensure(wg);
                 final int vertHideAttr = VisualConcept.VertexAttribute.VISIBILITY.ensure(wg);
                 final int transHideAttr = VisualConcept.TransactionAttribute.VISIBILITY.ensure(wg);
-
-                elementsToUndim = null;
-                elementsToUnhide = null;
-                dimOrHideTree(lowerTimeExtent, upperTimeExtent, exclusionState);
-
-                Set<Integer> transactionsToUndim = new HashSet<>();
-                Set<Integer> transactionsToUnhide = new HashSet<>();
-
-                undimmedVerticesOnGraph.clear();
-                unhiddenVerticesOnGraph.clear();
-
-                ArrayList<TreeElement> stack = new ArrayList<>();
-                if (exclusionState == 1) {
-
-                    for (TreeElement te : elementsToUndim) {
-                        if (te instanceof TreeLeaf) {
-                            TreeLeaf leaf = (TreeLeaf) te;
-                            //wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-
-                            transactionsToUndim.add(leaf.getId());
-                            Integer countA = undimmedVerticesOnGraph.get(leaf.vertexIdA);
-                            Integer countB = undimmedVerticesOnGraph.get(leaf.vertexIdB);
-                            if (countA == null) {
-                                undimmedVerticesOnGraph.put(leaf.vertexIdA, 1);
-                            } else {
-                                undimmedVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                            }
-                            if (countB == null) {
-                                undimmedVerticesOnGraph.put(leaf.vertexIdB, 1);
-                            } else {
-                                undimmedVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                            }
-                        } else {
-                            stack.add(te);
-                            while (!stack.isEmpty()) {
-                                TreeElement element = stack.remove(stack.size() - 1);
-
-                                if (element instanceof TreeLeaf) {
-                                    TreeLeaf leaf = (TreeLeaf) element;
-                                    transactionsToUndim.add(leaf.getId());
-
-                                    Integer countA = undimmedVerticesOnGraph.get(leaf.vertexIdA);
-                                    Integer countB = undimmedVerticesOnGraph.get(leaf.vertexIdB);
-                                    if (countA == null) {
-                                        undimmedVerticesOnGraph.put(leaf.vertexIdA, 1);
-                                    } else {
-                                        undimmedVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                                    }
-                                    if (countB == null) {
-                                        undimmedVerticesOnGraph.put(leaf.vertexIdB, 1);
-                                    } else {
-                                        undimmedVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                                    }
-                                } else {
-                                    TreeNode node = (TreeNode) element;
-
-                                    stack.add(node.firstChild);
-                                    stack.add(node.lastChild);
-                                }
-                            }
-                        }
-                    }
-                } else if (exclusionState == 2) {
-
-                    for (TreeElement te : elementsToUnhide) {
-                        if (te instanceof TreeLeaf) {
-                            TreeLeaf leaf = (TreeLeaf) te;
-                            //wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-
-                            transactionsToUnhide.add(leaf.getId());
-                            Integer countA = unhiddenVerticesOnGraph.get(leaf.vertexIdA);
-                            Integer countB = unhiddenVerticesOnGraph.get(leaf.vertexIdB);
-                            if (countA == null) {
-                                unhiddenVerticesOnGraph.put(leaf.vertexIdA, 1);
-                            } else {
-                                unhiddenVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                            }
-                            if (countB == null) {
-                                unhiddenVerticesOnGraph.put(leaf.vertexIdB, 1);
-                            } else {
-                                unhiddenVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                            }
-                        } else {
-                            stack.add(te);
-                            while (!stack.isEmpty()) {
-                                TreeElement element = stack.remove(stack.size() - 1);
-
-                                if (element instanceof TreeLeaf) {
-                                    TreeLeaf leaf = (TreeLeaf) element;
-                                    transactionsToUnhide.add(leaf.getId());
-
-                                    Integer countA = unhiddenVerticesOnGraph.get(leaf.vertexIdA);
-                                    Integer countB = unhiddenVerticesOnGraph.get(leaf.vertexIdB);
-                                    if (countA == null) {
-                                        unhiddenVerticesOnGraph.put(leaf.vertexIdA, 1);
-                                    } else {
-                                        unhiddenVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                                    }
-                                    if (countB == null) {
-                                        unhiddenVerticesOnGraph.put(leaf.vertexIdB, 1);
-                                    } else {
-                                        unhiddenVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                                    }
-                                } else {
-                                    TreeNode node = (TreeNode) element;
-
-                                    stack.add(node.firstChild);
-                                    stack.add(node.lastChild);
-                                }
-                            }
-                        }
-                    }
+                final int datetimeAttributeId = wg.getAttribute(GraphElementType.TRANSACTION, dateTimeAttr);
+
+                windowAttribute = dateTimeAttr;
+                windowLower = lowerTimeExtent;
+                windowUpper = upperTimeExtent;
+                vertexWindowCounts = new int[wg.getVertexCapacity()];
+
+                final BitSet transactionsInWindow = new BitSet();
+                if (datetimeAttributeId != Graph.NOT_FOUND) {
+                    ensureTimeIndex(wg, datetimeAttributeId);
+                    final BitSet touchedVertices = new BitSet();
+                    forEachTransactionInRange(wg, datetimeAttributeId, lowerTimeExtent, upperTimeExtent, txID -> {
+                        transactionsInWindow.set(txID);
+                        countTransaction(wg, txID, 1, touchedVertices);
+                    });
                 }
 
                 for (int pos = 0; pos < wg.getTransactionCount(); pos++) {
-                    int txID = wg.getTransaction(pos);
-                    wg.setBooleanValue(transDimAttr, txID, !transactionsToUndim.contains(txID) && exclusionState == 1);
-                    wg.setIntValue(transHideAttr, txID, (!transactionsToUnhide.contains(txID) && exclusionState == 2) ? 0 : 1);
+                    final int txID = wg.getTransaction(pos);
+                    setExcluded(wg, transDimAttr, transHideAttr, txID, transactionsInWindow.get(txID), exclusionState);
                 }
                 for (int pos = 0; pos < wg.getVertexCount(); pos++) {
-                    int vxID = wg.getVertex(pos);
-                    wg.setBooleanValue(vertDimAttr, vxID, !undimmedVerticesOnGraph.containsKey(vxID) && exclusionState == 1);
-                    wg.setIntValue(vertHideAttr, vxID, (!unhiddenVerticesOnGraph.containsKey(vxID) && exclusionState == 2) ? 0 : 1);
+                    final int vxID = wg.getVertex(pos);
+                    setExcluded(wg, vertDimAttr, vertHideAttr, vxID, vertexWindowCounts[vxID] > 0, exclusionState);
                 }
                 exclusionStateNotifier.exclusionStateNotify(wg.getValueModificationCounter(vertDimAttr), wg.getValueModificationCounter(transDimAttr));
             } finally {
@@ -419,284 +347,56 @@ public class ClusteringManager {
             return "Timeline: Update Dimming or Hiding";
         }
 
+        /**
+         * Only the transactions entering or leaving the window are found, by
+         * querying the parts of the old and new windows that don't overlap,
+         * and only they and their vertices are changed.
+         */
         @Override
         protected void execute(final PluginGraphs graph, final PluginInteraction interaction,
                 final PluginParameters parameters) throws InterruptedException {
-            Set<Integer> verticesToBeUndimmed = new HashSet<>();
-            Set<Integer> verticesToBeDimmed = new HashSet<>();
-            Set<Integer> verticesToBeUnhidden = new HashSet<>();
-            Set<Integer> verticesToBeHidden = new HashSet<>();
-
             final WritableGraph wg = graph.getGraph().getWritableGraph(getName(), false, this);
             try {
-                dimOrHideTree(lowerTimeExtent, upperTimeExtent, exclusionState);
-
                 final int vertDimAttr = VisualConcept.VertexAttribute.DIMMED.ensure(wg);
                 final int transDimAttr = VisualConcept.TransactionAttribute.DIMMED.ensure(wg);
                 final int vertHideAttr = VisualConcept.VertexAttribute.VISIBILITY.ensure(wg);
                 final int transHideAttr = VisualConcept.TransactionAttribute.VISIBILITY.ensure(wg);
+                final int datetimeAttributeId = windowAttribute == null ? Graph.NOT_FOUND : wg.getAttribute(GraphElementType.TRANSACTION, windowAttribute);
 
-                ArrayList<TreeElement> stack = new ArrayList<>();
-
-                if (exclusionState == 1) {
-                    for (TreeElement te : oldElementsToUndim) {
-                        if (!elementsToUndim.contains(te)) {
-                            if (te instanceof TreeLeaf) {
-                                TreeLeaf leaf = (TreeLeaf) te;
-
-                                int countA = undimmedVerticesOnGraph.get(leaf.vertexIdA) - 1;
-                                int countB = undimmedVerticesOnGraph.get(leaf.vertexIdB) - 1;
-
-                                if (countA == 0) {
-                                    verticesToBeDimmed.add(leaf.vertexIdA);
-                                    undimmedVerticesOnGraph.remove(leaf.vertexIdA);
-                                } else {
-                                    undimmedVerticesOnGraph.put(leaf.vertexIdA, countA);
-                                }
-                                if (countB == 0) {
-                                    verticesToBeDimmed.add(leaf.vertexIdB);
-                                    undimmedVerticesOnGraph.remove(leaf.vertexIdB);
-                                } else {
-                                    undimmedVerticesOnGraph.put(leaf.vertexIdB, countB);
-                                }
-
-                                wg.setBooleanValue(transDimAttr, leaf.getId(), true);
-                                wg.setIntValue(transHideAttr, leaf.getId(), 1);
-                            } else {
-                                stack.add(te);
-                                while (!stack.isEmpty()) {
-                                    TreeElement element = stack.remove(stack.size() - 1);
-
-                                    if (element instanceof TreeLeaf) {
-                                        TreeLeaf leaf = (TreeLeaf) element;
-
-                                        int countA = undimmedVerticesOnGraph.get(leaf.vertexIdA) - 1;
-                                        int countB = undimmedVerticesOnGraph.get(leaf.vertexIdB) - 1;
-
-                                        if (countA == 0) {
-                                            verticesToBeDimmed.add(leaf.vertexIdA);
-                                            undimmedVerticesOnGraph.remove(leaf.vertexIdA);
-                                        } else {
-                                            undimmedVerticesOnGraph.put(leaf.vertexIdA, countA);
-                                        }
-                                        if (countB == 0) {
-                                            verticesToBeDimmed.add(leaf.vertexIdB);
-                                            undimmedVerticesOnGraph.remove(leaf.vertexIdB);
-                                        } else {
-                                            undimmedVerticesOnGraph.put(leaf.vertexIdB, countB);
-                                        }
-
-                                        wg.setBooleanValue(transDimAttr, leaf.getId(), true);
-                                        wg.setIntValue(transHideAttr, leaf.getId(), 1);
-                                    } else {
-                                        TreeNode node = (TreeNode) element;
-
-                                        stack.add(node.firstChild);
-                                        stack.add(node.lastChild);
-                                    }
-                                }
-                            }
-                        }
+                if (datetimeAttributeId != Graph.NOT_FOUND) {
+                    ensureTimeIndex(wg, datetimeAttributeId);
+                    if (vertexWindowCounts.length < wg.getVertexCapacity()) {
+                        vertexWindowCounts = Arrays.copyOf(vertexWindowCounts, wg.getVertexCapacity());
                     }
 
-                    for (TreeElement te : elementsToUndim) {
-                        if (!oldElementsToUndim.contains(te)) {
-                            if (te instanceof TreeLeaf) {
-                                TreeLeaf leaf = (TreeLeaf) te;
-                                wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-                                wg.setIntValue(transHideAttr, leaf.getId(), 1);
-
-                                Integer countA = undimmedVerticesOnGraph.get(leaf.vertexIdA);
-                                Integer countB = undimmedVerticesOnGraph.get(leaf.vertexIdB);
-                                if (countA == null) {
-                                    undimmedVerticesOnGraph.put(leaf.vertexIdA, 1);
-                                    verticesToBeUndimmed.add(leaf.vertexIdA);
-                                } else {
-                                    undimmedVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                                }
-                                if (countB == null) {
-                                    undimmedVerticesOnGraph.put(leaf.vertexIdB, 1);
-                                    verticesToBeUndimmed.add(leaf.vertexIdB);
-                                } else {
-                                    undimmedVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                                }
-                            } else {
-                                stack.add(te);
-                                while (!stack.isEmpty()) {
-                                    TreeElement element = stack.remove(stack.size() - 1);
-
-                                    if (element instanceof TreeLeaf) {
-                                        TreeLeaf leaf = (TreeLeaf) element;
-                                        wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-                                        wg.setIntValue(transHideAttr, leaf.getId(), 1);
-
-                                        Integer countA = undimmedVerticesOnGraph.get(leaf.vertexIdA);
-                                        Integer countB = undimmedVerticesOnGraph.get(leaf.vertexIdB);
-                                        if (countA == null) {
-                                            undimmedVerticesOnGraph.put(leaf.vertexIdA, 1);
-                                            verticesToBeUndimmed.add(leaf.vertexIdA);
-                                        } else {
-                                            undimmedVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                                        }
-                                        if (countB == null) {
-                                            undimmedVerticesOnGraph.put(leaf.vertexIdB, 1);
-                                            verticesToBeUndimmed.add(leaf.vertexIdB);
-                                        } else {
-                                            undimmedVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                                        }
-                                    } else {
-                                        TreeNode node = (TreeNode) element;
-
-                                        stack.add(node.firstChild);
-                                        stack.add(node.lastChild);
-                                    }
-                                }
-                            }
+                    final boolean applying = exclusionState == 1 || exclusionState == 2;
+                    final BitSet touchedVertices = new BitSet();
+                    final IntConsumer leaving = txID -> {
+                        countTransaction(wg, txID, -1, touchedVertices);
+                        if (applying) {
+                            setExcluded(wg, transDimAttr, transHideAttr, txID, false, exclusionState);
                         }
-                    }
-                } else if (exclusionState == 2) {
-                    for (TreeElement te : oldElementsToUnhide) {
-                        if (!elementsToUnhide.contains(te)) {
-                            if (te instanceof TreeLeaf) {
-                                TreeLeaf leaf = (TreeLeaf) te;
-
-                                int countA = unhiddenVerticesOnGraph.get(leaf.vertexIdA) - 1;
-                                int countB = unhiddenVerticesOnGraph.get(leaf.vertexIdB) - 1;
-
-                                if (countA == 0) {
-                                    verticesToBeHidden.add(leaf.vertexIdA);
-                                    unhiddenVerticesOnGraph.remove(leaf.vertexIdA);
-                                } else {
-                                    unhiddenVerticesOnGraph.put(leaf.vertexIdA, countA);
-                                }
-                                if (countB == 0) {
-                                    verticesToBeHidden.add(leaf.vertexIdB);
-                                    unhiddenVerticesOnGraph.remove(leaf.vertexIdB);
-                                } else {
-                                    unhiddenVerticesOnGraph.put(leaf.vertexIdB, countB);
-                                }
-
-                                wg.setIntValue(transHideAttr, leaf.getId(), 0);
-                                wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-                            } else {
-                                stack.add(te);
-                                while (!stack.isEmpty()) {
-                                    TreeElement element = stack.remove(stack.size() - 1);
-
-                                    if (element instanceof TreeLeaf) {
-                                        TreeLeaf leaf = (TreeLeaf) element;
-
-                                        int countA = unhiddenVerticesOnGraph.get(leaf.vertexIdA) - 1;
-                                        int countB = unhiddenVerticesOnGraph.get(leaf.vertexIdB) - 1;
-
-                                        if (countA == 0) {
-                                            verticesToBeHidden.add(leaf.vertexIdA);
-                                            unhiddenVerticesOnGraph.remove(leaf.vertexIdA);
-                                        } else {
-                                            unhiddenVerticesOnGraph.put(leaf.vertexIdA, countA);
-                                        }
-                                        if (countB == 0) {
-                                            verticesToBeHidden.add(leaf.vertexIdB);
-                                            unhiddenVerticesOnGraph.remove(leaf.vertexIdB);
-                                        } else {
-                                            unhiddenVerticesOnGraph.put(leaf.vertexIdB, countB);
-                                        }
-
-                                        wg.setIntValue(transHideAttr, leaf.getId(), 0);
-                                        wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-                                    } else {
-                                        TreeNode node = (TreeNode) element;
-
-                                        stack.add(node.firstChild);
-                                        stack.add(node.lastChild);
-                                    }
-                                }
-                            }
+                    };
+                    final IntConsumer entering = txID -> {
+                        countTransaction(wg, txID, 1, touchedVertices);
+                        if (applying) {
+                            setExcluded(wg, transDimAttr, transHideAttr, txID, true, exclusionState);
                         }
-                    }
-
-                    for (TreeElement te : elementsToUnhide) {
-                        if (!oldElementsToUnhide.contains(te)) {
-                            if (te instanceof TreeLeaf) {
-                                TreeLeaf leaf = (TreeLeaf) te;
-                                wg.setIntValue(transHideAttr, leaf.getId(), 1);
-                                wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-
-                                Integer countA = unhiddenVerticesOnGraph.get(leaf.vertexIdA);
-                                Integer countB = unhiddenVerticesOnGraph.get(leaf.vertexIdB);
-                                if (countA == null) {
-                                    unhiddenVerticesOnGraph.put(leaf.vertexIdA, 1);
-                                    verticesToBeUnhidden.add(leaf.vertexIdA);
-                                } else {
-                                    unhiddenVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                                }
-                                if (countB == null) {
-                                    unhiddenVerticesOnGraph.put(leaf.vertexIdB, 1);
-                                    verticesToBeUnhidden.add(leaf.vertexIdB);
-                                } else {
-                                    unhiddenVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                                }
-                            } else {
-                                stack.add(te);
-                                while (!stack.isEmpty()) {
-                                    TreeElement element = stack.remove(stack.size() - 1);
-
-                                    if (element instanceof TreeLeaf) {
-                                        TreeLeaf leaf = (TreeLeaf) element;
-                                        wg.setIntValue(transHideAttr, leaf.getId(), 1);
-                                        wg.setBooleanValue(transDimAttr, leaf.getId(), false);
-
-                                        Integer countA = unhiddenVerticesOnGraph.get(leaf.vertexIdA);
-                                        Integer countB = unhiddenVerticesOnGraph.get(leaf.vertexIdB);
-                                        if (countA == null) {
-                                            unhiddenVerticesOnGraph.put(leaf.vertexIdA, 1);
-                                            verticesToBeUnhidden.add(leaf.vertexIdA);
-                                        } else {
-                                            unhiddenVerticesOnGraph.put(leaf.vertexIdA, countA + 1);
-                                        }
-                                        if (countB == null) {
-                                            unhiddenVerticesOnGraph.put(leaf.vertexIdB, 1);
-                                            verticesToBeUnhidden.add(leaf.vertexIdB);
-                                        } else {
-                                            unhiddenVerticesOnGraph.put(leaf.vertexIdB, countB + 1);
-                                        }
-                                    } else {
-                                        TreeNode node = (TreeNode) element;
-
-                                        stack.add(node.firstChild);
-                                        stack.add(node.lastChild);
-                                    }
-                                }
-                            }
+                    };
+
+                    forEachTransactionInRange(wg, datetimeAttributeId, windowLower, Math.min(windowUpper, lowerTimeExtent - 1), leaving);
+                    forEachTransactionInRange(wg, datetimeAttributeId, Math.max(windowLower, upperTimeExtent + 1), windowUpper, leaving);
+                    forEachTransactionInRange(wg, datetimeAttributeId, lowerTimeExtent, Math.min(upperTimeExtent, windowLower - 1), entering);
+                    forEachTransactionInRange(wg, datetimeAttributeId, Math.max(lowerTimeExtent, windowUpper + 1), upperTimeExtent, entering);
+                    windowLower = lowerTimeExtent;
+                    windowUpper = upperTimeExtent;
+
+                    if (applying) {
+                        for (int vxID = touchedVertices.nextSetBit(0); vxID >= 0; vxID = touchedVertices.nextSetBit(vxID + 1)) {
+                            setExcluded(wg, vertDimAttr, vertHideAttr, vxID, vertexWindowCounts[vxID] > 0, exclusionState);
                         }
                     }
                 }
-
-                for (Integer vertexId : verticesToBeUndimmed) {
-                    if (!verticesToBeDimmed.contains(vertexId)) {
-                        wg.setBooleanValue(vertDimAttr, vertexId, false);
-                        wg.setIntValue(vertHideAttr, vertexId, 1);
-                    }
-                }
-                for (Integer vertexId : verticesToBeDimmed) {
-                    if (!verticesToBeUndimmed.contains(vertexId)) {
-                        wg.setBooleanValue(vertDimAttr, vertexId, true);
-                        wg.setIntValue(vertHideAttr, vertexId, 1);
-                    }
-                }
-
-                for (Integer vertexId : verticesToBeUnhidden) {
-                    if (!verticesToBeHidden.contains(vertexId)) {
-                        wg.setIntValue(vertHideAttr, vertexId, 1);
-                        wg.setBooleanValue(vertDimAttr, vertexId, false);
-                    }
-                }
-                for (Integer vertexId : verticesToBeHidden) {
-                    if (!verticesToBeUnhidden.contains(vertexId)) {
-                        wg.setIntValue(vertHideAttr, vertexId, 0);
-                        wg.setBooleanValue(vertDimAttr, vertexId, false);
-                    }
-                }
                 exclusionStateNotifier.exclusionStateNotify(wg.getValueModificationCounter(vertDimAttr), wg.getValueModificationCounter(transDimAttr));
             } finally {
                 wg.commit();
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2010-2019 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.views.timeline.clustering;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.GraphReadMethods;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.WritableGraph;
+import au.gov.asd.tac.constellation.graph.attribute.DateAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.ZonedDateTimeAttributeDescription;
+import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
+import au.gov.asd.tac.constellation.plugins.PluginException;
+import au.gov.asd.tac.constellation.plugins.PluginExecution;
+import au.gov.asd.tac.constellation.utilities.temporal.TemporalConstants;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+/**
+ * Clustering Manager Test.
+ *
+ * @author agent
+ */
+public class ClusteringManagerNGTest {
+
+    private static final String DATETIME = "DateTime";
+    private static final int DIM = 1;
+    private static final int HIDE = 2;
+
+    private static final long ORIGIN = ZonedDateTime.of(2019, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+    private static final long STEP = TemporalConstants.MILLISECONDS_IN_DAY / 4;
+
+    /**
+     * Create a graph whose transactions have times on a coarse grid, so that
+     * windows often start or end exactly on a time, with some times null and
+     * some transactions selected.
+     */
+    private static Graph createGraph(final String attributeType, final Random random) throws InterruptedException {
+        final Graph graph = new DualGraph(null);
+        final WritableGraph wg = graph.getWritableGraph("Set Up", true);
+        try {
+            final int datetimeAttribute = wg.addAttribute(GraphElementType.TRANSACTION, attributeType, DATETIME, null, null, null);
+            VisualConcept.VertexAttribute.SELECTED.ensure(wg);
+            final int selectedAttribute = VisualConcept.TransactionAttribute.SELECTED.ensure(wg);
+            final int[] vertices = new int[200];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = wg.addVertex();
+            }
+            for (int i = 0; i < 3000; i++) {
+                final int txId = wg.addTransaction(vertices[random.nextInt(vertices.length)], vertices[random.nextInt(vertices.length)], true);
+                if (random.nextInt(6) != 0) {
+                    final ZonedDateTime time = Instant.ofEpochMilli(ORIGIN + random.nextInt(400) * STEP).atZone(ZoneOffset.UTC);
+                    wg.setObjectValue(datetimeAttribute, txId, DateAttributeDescription.ATTRIBUTE_NAME.equals(attributeType) ? time.toLocalDate() : time);
+                }
+                wg.setBooleanValue(selectedAttribute, txId, random.nextInt(3) == 0);
+            }
+        } finally {
+            wg.commit();
+        }
+        return graph;
+    }
+
+    /**
+     * Is a transaction within the inclusive time window of the timeline,
+     * found by looking at its value directly rather than through an index.
+     */
+    private static boolean isInWindow(final GraphReadMethods graph, final int txId, final long lower, final long upper, final boolean selectedOnly) {
+        final int datetimeAttribute = graph.getAttribute(GraphElementType.TRANSACTION, DATETIME);
+        if (graph.getObjectValue(datetimeAttribute, txId) == null
+                || (selectedOnly && !graph.getBooleanValue(VisualConcept.TransactionAttribute.SELECTED.get(graph), txId))) {
+            return false;
+        }
+        long time = graph.getLongValue(datetimeAttribute, txId);
+        if (DateAttributeDescription.ATTRIBUTE_NAME.equals(graph.getAttributeType(datetimeAttribute))) {
+            time *= TemporalConstants.MILLISECONDS_IN_DAY;
+        }
+        return time >= lower && time <= upper;
+    }
+
+    /**
+     * Check the dimmed or hidden state of every element against a linear scan
+     * of the transactions.
+     */
+    private static void checkWindow(final Graph graph, final long lower, final long upper, final int exclusionState, final boolean selectedOnly) {
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            final String window = "[" + lower + ", " + upper + "]";
+            final int transactionDimmed = VisualConcept.TransactionAttribute.DIMMED.get(rg);
+            final int transactionVisibility = VisualConcept.TransactionAttribute.VISIBILITY.get(rg);
+            final int vertexDimmed = VisualConcept.VertexAttribute.DIMMED.get(rg);
+            final int vertexVisibility = VisualConcept.VertexAttribute.VISIBILITY.get(rg);
+
+            final boolean[] vertexInWindow = new boolean[rg.getVertexCapacity()];
+            for (int position = 0; position < rg.getTransactionCount(); position++) {
+                final int txId = rg.getTransaction(position);
+                final boolean inWindow = isInWindow(rg, txId, lower, upper, selectedOnly);
+                if (inWindow) {
+                    vertexInWindow[rg.getTransactionSourceVertex(txId)] = true;
+                    vertexInWindow[rg.getTransactionDestinationVertex(txId)] = true;
+                }
+                assertEquals(rg.getBooleanValue(transactionDimmed, txId), !inWindow && exclusionState == DIM, "transaction " + txId + " " + window);
+                assertEquals(rg.getIntValue(transactionVisibility, txId), !inWindow && exclusionState == HIDE ? 0 : 1, "transaction " + txId + " " + window);
+            }
+            for (int position = 0; position < rg.getVertexCount(); position++) {
+                final int vxId = rg.getVertex(position);
+                assertEquals(rg.getBooleanValue(vertexDimmed, vxId), !vertexInWindow[vxId] && exclusionState == DIM, "vertex " + vxId + " " + window);
+                assertEquals(rg.getIntValue(vertexVisibility, vxId), !vertexInWindow[vxId] && exclusionState == HIDE ? 0 : 1, "vertex " + vxId + " " + window);
+            }
+        } finally {
+            rg.release();
+        }
+    }
+
+    /**
+     * Initialise a window and then move it around the graph, checking the
+     * graph after each move.
+     */
+    private static void checkWindows(final String attributeType, final int exclusionState, final boolean selectedOnly) throws InterruptedException, PluginException {
+        final Random random = new Random(23);
+        final Graph graph = createGraph(attributeType, random);
+        final ClusteringManager clusteringManager = new ClusteringManager();
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            clusteringManager.generateTree(rg, DATETIME, selectedOnly);
+        } finally {
+            rg.release();
+        }
+
+        long lower = ORIGIN + 100 * STEP;
+        long upper = ORIGIN + 200 * STEP;
+        PluginExecution.withPlugin(clusteringManager.new InitDimOrHidePlugin(DATETIME, lower, upper, exclusionState, (vxModCount, txModCount) -> {
+        })).executeNow(graph);
+        checkWindow(graph, lower, upper, exclusionState, selectedOnly);
+
+        for (int move = 0; move < 50; move++) {
+            switch (move % 5) {
+                case 0:
+                    // a window starting and ending exactly on times
+                    lower = ORIGIN + random.nextInt(400) * STEP;
+                    upper = lower + random.nextInt(100) * STEP;
+                    break;
+                case 1:
+                    // a window ending just before a time
+                    upper = lower + random.nextInt(100) * STEP - 1;
+                    break;
+                case 2:
+                    // a window starting just after a time
+                    lower = upper - random.nextInt(100) * STEP + 1;
+                    break;
+                case 3:
+                    // a window slid along, overlapping the last
+                    final long shift = (random.nextInt(40) - 20) * STEP + random.nextInt(3) - 1;
+                    lower += shift;
+                    upper += shift;
+                    break;
+                default:
+                    // a window between times, or away from them all
+                    lower = ORIGIN + (random.nextInt(440) - 20) * STEP + 1;
+                    upper = lower + random.nextInt(2) * (STEP - 2);
+                    break;
+            }
+            PluginExecution.withPlugin(clusteringManager.new UpdateDimOrHidePlugin(lower, upper, exclusionState, (vxModCount, txModCount) -> {
+            })).executeNow(graph);
+            checkWindow(graph, lower, upper, exclusionState, selectedOnly);
+        }
+    }
+
+    @Test
+    public void dimDateTimeWindowTest() throws InterruptedException, PluginException {
+        checkWindows(ZonedDateTimeAttributeDescription.ATTRIBUTE_NAME, DIM, false);
+    }
+
+    @Test
+    public void hideDateTimeWindowTest() throws InterruptedException, PluginException {
+        checkWindows(ZonedDateTimeAttributeDescription.ATTRIBUTE_NAME, HIDE, false);
+    }
+
+    @Test
+    public void dimSelectedDateTimeWindowTest() throws InterruptedException, PluginException {
+        checkWindows(ZonedDateTimeAttributeDescription.ATTRIBUTE_NAME, DIM, true);
+    }
+
+    @Test
+    public void dimDateWindowTest() throws InterruptedException, PluginException {
+        checkWindows(DateAttributeDescription.ATTRIBUTE_NAME, DIM, false);
+    }
+}
@@ -25,6 +25,10 @@ import java.util.Map;
  * instances of participating classes. This is mainly of use to developers
  * interested in detecting memory leaks. It is up to a specific class to send
  * new and finalize information to the MemoryManager.
+ * <p>
+ * The MemoryManager also records named memory usage figures, such as the
+ * number of bytes of undo history held on the heap, which participating
+ * classes adjust as the memory they hold grows and shrinks.
  *
  * @author sirius
  */
@@ -51,6 +55,8 @@ public class MemoryManager {
 
     private static final Map<Class<?>, ClassStats> OBJECT_COUNTS = new HashMap<>();
 
+    private static final Map<String, Long> MEMORY_USAGE = new HashMap<>();
+
     // The listeners currently registered
     private static final List<MemoryManagerListener> LISTENERS = new ArrayList<>();
 
@@ -111,6 +117,39 @@ public class MemoryManager {
         }
     }
 
+    /**
+     * Registers a change in a named memory usage figure.
+     *
+     * @param name the name of the memory usage figure.
+     * @param delta the amount to add to the figure, which may be negative.
+     */
+    public static void adjustMemoryUsage(final String name, final long delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        synchronized (MEMORY_USAGE) {
+            MEMORY_USAGE.merge(name, delta, Long::sum);
+        }
+
+        synchronized (LISTENERS) {
+            LISTENERS.stream().forEach(listener -> listener.memoryUsageChanged(name));
+        }
+    }
+
+    /**
+     * Returns the current value of all named memory usage figures. The
+     * returned Map is a copy meaning that it can be mutated as required with
+     * out effecting the MemoryManager.
+     *
+     * @return the current value of all named memory usage figures.
+     */
+    public static Map<String, Long> getMemoryUsage() {
+        synchronized (MEMORY_USAGE) {
+            return new HashMap<>(MEMORY_USAGE);
+        }
+    }
+
     /**
      * Adds a new listener to this MemoryManager.
      *
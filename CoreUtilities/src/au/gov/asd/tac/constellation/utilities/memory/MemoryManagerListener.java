@@ -41,4 +41,13 @@ public interface MemoryManagerListener {
      */
     public void finalizeObject(Class<?> c);
 
+    /**
+     * Called by the {@link MemoryManager} when a named memory usage figure
+     * changes.
+     *
+     * @param name the name of the memory usage figure that has changed.
+     */
+    public default void memoryUsageChanged(String name) {
+    }
+
 }
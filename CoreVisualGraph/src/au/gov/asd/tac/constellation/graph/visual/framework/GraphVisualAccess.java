@@ -38,6 +38,7 @@ import au.gov.asd.tac.constellation.utilities.visual.VisualChangeBuilder;
 import au.gov.asd.tac.constellation.utilities.visual.VisualProperty;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,12 +58,22 @@ import java.util.Objects;
  * <p>
  * The handling of certain properties like label text, are a little more tricky,
  * but the aforementioned basic principles still apply in theory.
+ * <p>
+ * When the values of a vertex or transaction attribute have changed, the
+ * elements that changed since the attribute was last read are requested from
+ * the graph (see {@link GraphReadMethods#getValueChangesSince}) so that the
+ * visual change only lists the affected vertices or connections. Every element is listed instead
+ * when the changed elements are not known, when the structure or attributes
+ * of the graph have changed, or when more than a quarter of the elements have
+ * changed.
  *
  * @author twilight_sparkle
  * @author antares
  */
 public final class GraphVisualAccess implements VisualAccess {
 
+    private static final int PARTIAL_CHANGE_FRACTION = 4;
+
     //TODO: Determine whether this field is needed
     private int[] visualAttributes = new int[VisualProperty.values().length];
 
@@ -138,6 +149,7 @@ public final class GraphVisualAccess implements VisualAccess {
     private long neDecoratorModCount = -1;
     private long swDecoratorModCount = -1;
     private long seDecoratorModCount = -1;
+    private final Map<Integer, Long> valueChangeCounters = new HashMap<>();
 
     private GraphElementType[] connectionElementTypes = new GraphElementType[0];
     private int[] connectionElementIds = new int[0];
@@ -198,6 +210,7 @@ public final class GraphVisualAccess implements VisualAccess {
                 recalculateVisualAttributes(accessGraph);
                 if (recordChanges) {
                     attributeModCount = count;
+                    valueChangeCounters.clear();
                 }
             }
 
@@ -220,6 +233,10 @@ public final class GraphVisualAccess implements VisualAccess {
                 connectionsRebuilding = true;
             }
 
+            // Changes to individual elements can only be used while the elements and attributes stay the same
+            final boolean verticesIncremental = !verticesRebuilding && !attributesChanged;
+            final boolean connectionsIncremental = !connectionsRebuilding && !attributesChanged;
+
             // Handle changes to the graph's decorators attribute
             count = graphDecorators == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(graphDecorators);
             if (!Objects.equals(count, modCounts.get(VisualConcept.GraphAttribute.DECORATORS)) || attributesChanged) {
@@ -400,7 +417,8 @@ public final class GraphVisualAccess implements VisualAccess {
             if (recordChanges) {
                 count = vertexColor == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexColor);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.COLOR, count)) || vertexColorChanged) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_COLOR).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexColor, verticesIncremental && !vertexColorChanged);
+                    changes.add(buildChange(VisualProperty.VERTEX_COLOR, changedVertices, accessGraph.getVertexCount()));
                 }
             }
 
@@ -420,7 +438,8 @@ public final class GraphVisualAccess implements VisualAccess {
             if (recordChanges) {
                 count = transactionColor == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionColor);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.COLOR, count)) || transactionColorChanged) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_COLOR).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionColor, connectionsIncremental && !transactionColorChanged);
+                    changes.add(buildChange(VisualProperty.CONNECTION_COLOR, changedConnections, connectionElementTypes.length));
                 }
             }
 
@@ -481,99 +500,216 @@ public final class GraphVisualAccess implements VisualAccess {
                 // Handle stand-alone changes to vertex visual attributes
                 count = vertexX == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexX);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.X, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_X).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexX, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_X, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexY == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexY);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.Y, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_Y).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexY, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_Y, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexZ == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexZ);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.Z, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_Z).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexZ, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_Z, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexX2 == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexX2);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.X2, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_X2).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexX2, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_X2, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexY2 == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexY2);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.Y2, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_Y2).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexY2, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_Y2, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexZ2 == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexZ2);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.Z2, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_Z2).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexZ2, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_Z2, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexBackgroundIcon == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexBackgroundIcon);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.BACKGROUND_ICON, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_BACKGROUND_ICON).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexBackgroundIcon, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_BACKGROUND_ICON, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexForegroundIcon == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexForegroundIcon);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.FOREGROUND_ICON, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_FOREGROUND_ICON).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexForegroundIcon, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_FOREGROUND_ICON, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexSelected == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexSelected);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.SELECTED, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_SELECTED).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexSelected, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_SELECTED, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexVisibility == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexVisibility);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.VISIBILITY, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_VISIBILITY).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexVisibility, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_VISIBILITY, changedVertices, accessGraph.getVertexCount()));
                 }
                 // TODO Start
                 count = vertexLayerVisibility == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexLayerVisibility);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.LAYER_VISIBILITY, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_VISIBILITY).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexLayerVisibility, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_VISIBILITY, changedVertices, accessGraph.getVertexCount()));
                 }
                 // TODO endXXXX
                 count = vertexDimmed == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexDimmed);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.DIMMED, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_DIM).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexDimmed, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_DIM, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexRadius == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexRadius);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.NODE_RADIUS, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_RADIUS).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexRadius, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_RADIUS, changedVertices, accessGraph.getVertexCount()));
                 }
                 count = vertexBlaze == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(vertexBlaze);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.VertexAttribute.BLAZE, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_BLAZED).forItems(accessGraph.getVertexCount()).build());
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_BLAZE_ANGLE).forItems(accessGraph.getVertexCount()).build());
-                    changes.add(new VisualChangeBuilder(VisualProperty.VERTEX_BLAZE_COLOR).forItems(accessGraph.getVertexCount()).build());
+                    final int[] changedVertices = getChangedVertices(vertexBlaze, verticesIncremental);
+                    changes.add(buildChange(VisualProperty.VERTEX_BLAZED, changedVertices, accessGraph.getVertexCount()));
+                    changes.add(buildChange(VisualProperty.VERTEX_BLAZE_ANGLE, changedVertices, accessGraph.getVertexCount()));
+                    changes.add(buildChange(VisualProperty.VERTEX_BLAZE_COLOR, changedVertices, accessGraph.getVertexCount()));
                 }
 
                 // Handle stand-alone changes to transaction visual attributes
                 count = transactionSelected == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionSelected);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.SELECTED, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_SELECTED).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionSelected, connectionsIncremental);
+                    changes.add(buildChange(VisualProperty.CONNECTION_SELECTED, changedConnections, connectionElementTypes.length));
                 }
                 count = transactionDirected == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionDirected);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.DIRECTED, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_DIRECTED).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionDirected, connectionsIncremental);
+                    changes.add(buildChange(VisualProperty.CONNECTION_DIRECTED, changedConnections, connectionElementTypes.length));
                 }
                 count = transactionVisibility == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionVisibility);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.VISIBILITY, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_VISIBILITY).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionVisibility, connectionsIncremental);
+                    changes.add(buildChange(VisualProperty.CONNECTION_VISIBILITY, changedConnections, connectionElementTypes.length));
                 }
                 count = transactionLayerVisibility == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionLayerVisibility);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.LAYER_VISIBILITY, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_VISIBILITY).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionLayerVisibility, connectionsIncremental);
+                    changes.add(buildChange(VisualProperty.CONNECTION_VISIBILITY, changedConnections, connectionElementTypes.length));
                 }
                 count = transactionDimmed == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionDimmed);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.DIMMED, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_DIM).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionDimmed, connectionsIncremental);
+                    changes.add(buildChange(VisualProperty.CONNECTION_DIM, changedConnections, connectionElementTypes.length));
                 }
                 count = transactionLineStyle == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionLineStyle);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.LINE_STYLE, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_LINESTYLE).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionLineStyle, connectionsIncremental);
+                    changes.add(buildChange(VisualProperty.CONNECTION_LINESTYLE, changedConnections, connectionElementTypes.length));
                 }
                 count = transactionWidth == Graph.NOT_FOUND ? -1 : accessGraph.getValueModificationCounter(transactionWidth);
                 if (!Objects.equals(count, modCounts.put(VisualConcept.TransactionAttribute.WIDTH, count))) {
-                    changes.add(new VisualChangeBuilder(VisualProperty.CONNECTION_WIDTH).forItems(connectionElementTypes.length).build());
+                    final int[] changedConnections = getChangedConnections(transactionWidth, connectionsIncremental);
+                    changes.add(buildChange(VisualProperty.CONNECTION_WIDTH, changedConnections, connectionElementTypes.length));
                 }
             }
         }
         return changes;
     }
 
+    /**
+     * Build a change to the specified items, or to every item if the changed
+     * items are not known.
+     */
+    private static VisualChange buildChange(final VisualProperty property, final int[] changedItems, final int itemCount) {
+        final VisualChangeBuilder builder = new VisualChangeBuilder(property);
+        return (changedItems != null ? builder.forItems(changedItems) : builder.forItems(itemCount)).build();
+    }
+
+    /**
+     * Get the ids of the elements whose values of an attribute have changed
+     * since the attribute was last read, and record the change counter of the
+     * attribute for the next read.
+     *
+     * @param attribute the attribute.
+     * @return the ids of the changed elements, or null if they are not known.
+     */
+    private int[] getValueChanges(final int attribute) {
+        if (attribute == Graph.NOT_FOUND) {
+            return null;
+        }
+        final Long valueChangeCounter = valueChangeCounters.put(attribute, accessGraph.getValueChangeCounter(attribute));
+        return valueChangeCounter == null ? null : accessGraph.getValueChangesSince(attribute, valueChangeCounter);
+    }
+
+    /**
+     * Get the positions of the vertices whose values of a vertex attribute
+     * have changed since the attribute was last read.
+     *
+     * @param attribute the vertex attribute.
+     * @param incremental whether the vertices can be updated individually.
+     * @return the positions of the changed vertices, or null if every vertex
+     * should be updated.
+     */
+    private int[] getChangedVertices(final int attribute, final boolean incremental) {
+        final int[] changed = getValueChanges(attribute);
+        if (!incremental || changed == null || changed.length > accessGraph.getVertexCount() / PARTIAL_CHANGE_FRACTION) {
+            return null;
+        }
+
+        final int[] positions = new int[changed.length];
+        int positionCount = 0;
+        for (final int vertex : changed) {
+            if (accessGraph.vertexExists(vertex)) {
+                positions[positionCount++] = accessGraph.getVertexPosition(vertex);
+            }
+        }
+        return Arrays.copyOf(positions, positionCount);
+    }
+
+    /**
+     * Get the indices of the connections holding the transactions whose
+     * values of a transaction attribute have changed since the attribute was
+     * last read.
+     *
+     * @param attribute the transaction attribute.
+     * @param incremental whether the connections can be updated individually.
+     * @return the indices of the changed connections, or null if every
+     * connection should be updated.
+     */
+    private int[] getChangedConnections(final int attribute, final boolean incremental) {
+        final int[] changed = getValueChanges(attribute);
+        if (!incremental || changed == null || changed.length > connectionElementTypes.length / PARTIAL_CHANGE_FRACTION) {
+            return null;
+        }
+
+        // The connections of each link are contiguous, starting at the link's starting position
+        final BitSet connections = new BitSet(connectionElementTypes.length);
+        for (final int transaction : changed) {
+            if (!accessGraph.transactionExists(transaction)) {
+                continue;
+            }
+            final int linkPosition = accessGraph.getLinkPosition(accessGraph.getTransactionLink(transaction));
+            final int start = linkStartingPositions[linkPosition];
+            final int end = linkPosition + 1 < linkStartingPositions.length ? linkStartingPositions[linkPosition + 1] : connectionElementTypes.length;
+            for (int connection = start; connection < end; connection++) {
+                switch (connectionElementTypes[connection]) {
+                    case TRANSACTION:
+                        if (connectionElementIds[connection] == transaction) {
+                            connections.set(connection);
+                        }
+                        break;
+                    case EDGE:
+                        if (connectionElementIds[connection] == accessGraph.getTransactionEdge(transaction)) {
+                            connections.set(connection);
+                        }
+                        break;
+                    default:
+                        connections.set(connection);
+                        break;
+                }
+            }
+        }
+        return connections.stream().toArray();
+    }
+
     private void recalculateVisualAttributes(final GraphReadMethods rg) {
         graphBackgroundColor = VisualConcept.GraphAttribute.BACKGROUND_COLOR.get(rg);
         graphHighlightColor = VisualConcept.GraphAttribute.HIGHLIGHT_COLOR.get(rg);
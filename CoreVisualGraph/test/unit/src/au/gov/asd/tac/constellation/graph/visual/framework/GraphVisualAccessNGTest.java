@@ -0,0 +1,195 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.graph.visual.framework;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.WritableGraph;
+import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.schema.visual.concept.VisualConcept;
+import au.gov.asd.tac.constellation.utilities.visual.VisualChange;
+import au.gov.asd.tac.constellation.utilities.visual.VisualProperty;
+import java.util.List;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Graph Visual Access Test.
+ *
+ * @author agent
+ */
+public class GraphVisualAccessNGTest {
+
+    private static final int VERTEX_COUNT = 100;
+
+    private Graph graph;
+    private GraphVisualAccess access;
+    private int vertexSelectedAttribute;
+    private int transactionSelectedAttribute;
+    private int[] vertices;
+    private int[] transactions;
+
+    @BeforeMethod
+    public void setUpMethod() throws Exception {
+        graph = new DualGraph(null);
+        vertices = new int[VERTEX_COUNT];
+        transactions = new int[VERTEX_COUNT - 1];
+
+        final WritableGraph wg = graph.getWritableGraph("", true);
+        try {
+            VisualConcept.VertexAttribute.X.ensure(wg);
+            VisualConcept.VertexAttribute.Y.ensure(wg);
+            VisualConcept.VertexAttribute.Z.ensure(wg);
+            vertexSelectedAttribute = VisualConcept.VertexAttribute.SELECTED.ensure(wg);
+            transactionSelectedAttribute = VisualConcept.TransactionAttribute.SELECTED.ensure(wg);
+            for (int i = 0; i < VERTEX_COUNT; i++) {
+                vertices[i] = wg.addVertex();
+            }
+            for (int i = 0; i < VERTEX_COUNT - 1; i++) {
+                transactions[i] = wg.addTransaction(vertices[i], vertices[i + 1], true);
+            }
+        } finally {
+            wg.commit();
+        }
+
+        access = new GraphVisualAccess(graph);
+        update(access);
+    }
+
+    @AfterMethod
+    public void tearDownMethod() throws Exception {
+        access = null;
+        graph = null;
+    }
+
+    /**
+     * Selecting a single vertex changes only that vertex.
+     */
+    @Test
+    public void testVertexValueChange() throws InterruptedException {
+        setSelected(vertexSelectedAttribute, vertices[10], true);
+        final VisualChange change = getChange(update(access), VisualProperty.VERTEX_SELECTED);
+
+        assertEquals(change.getSize(), 1);
+        assertEquals(change.getElement(0), getVertexPosition(vertices[10]));
+    }
+
+    /**
+     * Selecting a single transaction changes only its connection.
+     */
+    @Test
+    public void testTransactionValueChange() throws InterruptedException {
+        setSelected(transactionSelectedAttribute, transactions[5], true);
+        final VisualChange change = getChange(update(access), VisualProperty.CONNECTION_SELECTED);
+
+        assertEquals(change.getSize(), 1);
+    }
+
+    /**
+     * Each visual access reads the changes made since it last updated, so a
+     * second access doesn't take changes away from the first.
+     */
+    @Test
+    public void testIndependentAccesses() throws InterruptedException {
+        final GraphVisualAccess otherAccess = new GraphVisualAccess(graph);
+        update(otherAccess);
+
+        setSelected(vertexSelectedAttribute, vertices[10], true);
+        assertEquals(getChange(update(otherAccess), VisualProperty.VERTEX_SELECTED).getSize(), 1);
+
+        setSelected(vertexSelectedAttribute, vertices[20], true);
+        final VisualChange change = getChange(update(access), VisualProperty.VERTEX_SELECTED);
+        assertEquals(change.getSize(), 2);
+        assertEquals(change.getElement(0), getVertexPosition(vertices[10]));
+        assertEquals(change.getElement(1), getVertexPosition(vertices[20]));
+        assertEquals(getChange(update(otherAccess), VisualProperty.VERTEX_SELECTED).getSize(), 1);
+    }
+
+    /**
+     * Selecting most vertices changes every vertex.
+     */
+    @Test
+    public void testManyVertexValueChanges() throws InterruptedException {
+        final WritableGraph wg = graph.getWritableGraph("", true);
+        try {
+            for (final int vertex : vertices) {
+                wg.setBooleanValue(vertexSelectedAttribute, vertex, true);
+            }
+        } finally {
+            wg.commit();
+        }
+        final VisualChange change = getChange(update(access), VisualProperty.VERTEX_SELECTED);
+
+        assertEquals(change.getSize(), VERTEX_COUNT);
+    }
+
+    /**
+     * Selecting a vertex while the structure changes changes every vertex.
+     */
+    @Test
+    public void testVertexValueChangeWithStructureChange() throws InterruptedException {
+        final WritableGraph wg = graph.getWritableGraph("", true);
+        try {
+            wg.addVertex();
+            wg.setBooleanValue(vertexSelectedAttribute, vertices[10], true);
+        } finally {
+            wg.commit();
+        }
+        final VisualChange change = getChange(update(access), VisualProperty.VERTEX_SELECTED);
+
+        assertEquals(change.getSize(), VERTEX_COUNT + 1);
+    }
+
+    private void setSelected(final int attribute, final int id, final boolean selected) throws InterruptedException {
+        final WritableGraph wg = graph.getWritableGraph("", true);
+        try {
+            wg.setBooleanValue(attribute, id, selected);
+        } finally {
+            wg.commit();
+        }
+    }
+
+    private int getVertexPosition(final int vertex) {
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            return rg.getVertexPosition(vertex);
+        } finally {
+            rg.release();
+        }
+    }
+
+    private static List<VisualChange> update(final GraphVisualAccess access) {
+        access.beginUpdate();
+        try {
+            return access.getIndigenousChanges();
+        } finally {
+            access.endUpdate();
+        }
+    }
+
+    private static VisualChange getChange(final List<VisualChange> changes, final VisualProperty property) {
+        for (final VisualChange change : changes) {
+            if (change.property == property) {
+                return change;
+            }
+        }
+        fail("No change to " + property);
+        return null;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.webserver.api;
+
+import au.gov.asd.tac.constellation.graph.processing.TypedRecordStore;
+import au.gov.asd.tac.constellation.webserver.restapi.RestServiceException;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read a RecordStore written in the binary columnar REST format described by
+ * {@link RecordStoreBinaryWriter}.
+ * <p>
+ * The stream is read a chunk at a time, and each column of a chunk is copied
+ * straight into a {@link TypedRecordStore} column of the matching type, so
+ * numbers and datetimes are never converted to and from text. The attribute
+ * type of each column in the stream is not used: the types of the attributes
+ * the values are added to are decided when the RecordStore is added to a
+ * graph, as they are for JSON.
+ *
+ * @author agent
+ */
+public final class RecordStoreBinaryReader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private RecordStoreBinaryReader() {
+    }
+
+    /**
+     * Read a RecordStore from a stream.
+     * <p>
+     * Records without a value for a column are left without a value.
+     *
+     * @param stream The stream to read from. It is not closed.
+     *
+     * @return A new TypedRecordStore holding the records that were read.
+     *
+     * @throws IOException If the stream can't be read.
+     */
+    public static TypedRecordStore readRecordStore(final InputStream stream) throws IOException {
+        final InputStream in = new BufferedInputStream(stream, BUFFER_SIZE);
+        final ByteBuffer header = read(in, 3 * Integer.BYTES);
+        if (header.getInt() != RecordStoreBinaryWriter.MAGIC) {
+            throw new RestServiceException("The data is not a binary RecordStore");
+        }
+        final int version = header.getInt();
+        if (version > RecordStoreBinaryWriter.VERSION) {
+            throw new RestServiceException(String.format("Can't read binary RecordStore version %d", version));
+        }
+
+        final int columnCount = header.getInt();
+        final String[] keys = new String[columnCount];
+        final byte[] encodings = new byte[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            keys[i] = readString(in);
+            // The attribute type is not needed to read the values.
+            readString(in);
+            encodings[i] = read(in, 1).get();
+        }
+
+        final TypedRecordStore recordStore = new TypedRecordStore();
+        while (true) {
+            final int count = read(in, Integer.BYTES).getInt();
+            if (count == 0) {
+                break;
+            }
+
+            final int start = recordStore.size();
+            for (int i = 0; i < count; i++) {
+                recordStore.add();
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                readColumn(in, recordStore, keys[i], encodings[i], start, count);
+            }
+        }
+
+        return recordStore;
+    }
+
+    private static void readColumn(final InputStream in, final TypedRecordStore recordStore, final String key, final byte encoding, final int start, final int count) throws IOException {
+        final byte[] validity = new byte[(count + 7) / 8];
+        read(in, validity);
+
+        switch (encoding) {
+            case RecordStoreBinaryWriter.INT_COLUMN: {
+                final ByteBuffer values = read(in, count * Integer.BYTES);
+                for (int i = 0; i < count; i++) {
+                    final int value = values.getInt();
+                    if (isValid(validity, i)) {
+                        recordStore.setInt(start + i, key, value);
+                    }
+                }
+                break;
+            }
+            case RecordStoreBinaryWriter.LONG_COLUMN:
+            case RecordStoreBinaryWriter.DATETIME_COLUMN: {
+                final ByteBuffer values = read(in, count * Long.BYTES);
+                for (int i = 0; i < count; i++) {
+                    final long value = values.getLong();
+                    if (isValid(validity, i)) {
+                        if (encoding == RecordStoreBinaryWriter.DATETIME_COLUMN) {
+                            recordStore.setDateTime(start + i, key, value);
+                        } else {
+                            recordStore.setLong(start + i, key, value);
+                        }
+                    }
+                }
+                break;
+            }
+            case RecordStoreBinaryWriter.FLOAT_COLUMN: {
+                final ByteBuffer values = read(in, count * Float.BYTES);
+                for (int i = 0; i < count; i++) {
+                    final float value = values.getFloat();
+                    if (isValid(validity, i)) {
+                        recordStore.setFloat(start + i, key, value);
+                    }
+                }
+                break;
+            }
+            case RecordStoreBinaryWriter.DOUBLE_COLUMN: {
+                final ByteBuffer values = read(in, count * Double.BYTES);
+                for (int i = 0; i < count; i++) {
+                    final double value = values.getDouble();
+                    if (isValid(validity, i)) {
+                        recordStore.setDouble(start + i, key, value);
+                    }
+                }
+                break;
+            }
+            case RecordStoreBinaryWriter.BOOLEAN_COLUMN: {
+                final ByteBuffer values = read(in, count);
+                for (int i = 0; i < count; i++) {
+                    final byte value = values.get();
+                    if (isValid(validity, i)) {
+                        recordStore.setBoolean(start + i, key, value != 0);
+                    }
+                }
+                break;
+            }
+            case RecordStoreBinaryWriter.STRING_COLUMN: {
+                final ByteBuffer offsets = read(in, (count + 1) * Integer.BYTES);
+                final byte[] bytes = new byte[offsets.getInt(count * Integer.BYTES)];
+                read(in, bytes);
+                int offset = offsets.getInt();
+                for (int i = 0; i < count; i++) {
+                    final int next = offsets.getInt();
+                    if (isValid(validity, i)) {
+                        recordStore.set(start + i, key, new String(bytes, offset, next - offset, StandardCharsets.UTF_8));
+                    }
+                    offset = next;
+                }
+                break;
+            }
+            default:
+                throw new RestServiceException(String.format("Unknown encoding %d for column %s", encoding, key));
+        }
+    }
+
+    private static boolean isValid(final byte[] validity, final int i) {
+        return (validity[i >>> 3] & (1 << (i & 7))) != 0;
+    }
+
+    private static String readString(final InputStream in) throws IOException {
+        final int length = read(in, Integer.BYTES).getInt();
+        final byte[] b = new byte[length];
+        read(in, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer read(final InputStream in, final int length) throws IOException {
+        final byte[] b = new byte[length];
+        read(in, b);
+        return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void read(final InputStream in, final byte[] b) throws IOException {
+        int n = 0;
+        while (n < b.length) {
+            final int r = in.read(b, n, b.length - n);
+            if (r < 0) {
+                throw new EOFException("The binary RecordStore ended unexpectedly");
+            }
+            n += r;
+        }
+    }
+}
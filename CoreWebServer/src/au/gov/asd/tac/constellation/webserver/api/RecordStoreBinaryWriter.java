@@ -0,0 +1,275 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.webserver.api;
+
+import au.gov.asd.tac.constellation.graph.attribute.BooleanAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.BooleanObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.FloatAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.FloatObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.LongAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.LongObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.ZonedDateTimeAttributeDescription;
+import au.gov.asd.tac.constellation.graph.processing.RecordStore;
+import au.gov.asd.tac.constellation.webserver.restapi.RestServiceException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Write a RecordStore in the binary columnar REST format.
+ * <p>
+ * JSON sent to and from the REST API holds every value as text in a row, so
+ * large RecordStores are slow to build and parse on both sides. The binary
+ * format instead sends the records in chunks, each holding one column of
+ * values per key, so a chunk can be written as soon as its records have been
+ * read and a client such as numpy can use each column of a chunk as an array
+ * without parsing it. Services choose the format by its MIME type,
+ * {@link au.gov.asd.tac.constellation.webserver.restapi.RestServiceUtilities#APPLICATION_RECORDSTORE}.
+ * <p>
+ * All numbers are little-endian. A string is an int byte count followed by
+ * its UTF-8 bytes. The stream is laid out as:
+ * <pre>
+ * int     MAGIC
+ * int     VERSION
+ * int     column count, then per column:
+ *             string name, string attribute type, byte encoding
+ * per chunk:
+ *     int     record count (0 ends the stream)
+ *     per column:
+ *         byte[]  validity, (count + 7) / 8 bytes, where bit i % 8 of byte
+ *                 i / 8 is set if record i has a value
+ *         values  count values of the column's encoding:
+ *                 INT_COLUMN       int
+ *                 LONG_COLUMN      long
+ *                 FLOAT_COLUMN     float
+ *                 DOUBLE_COLUMN    double
+ *                 BOOLEAN_COLUMN   byte, 1 for true and 0 for false
+ *                 DATETIME_COLUMN  long milliseconds since the epoch in UTC
+ *                 STRING_COLUMN    int[count + 1] offsets into the UTF-8
+ *                                  bytes that follow, the last offset being
+ *                                  their length
+ * </pre>
+ * Records without a value hold 0 (or an empty string). Boolean values are
+ * always present, with null written as false, as they are in the JSON the
+ * REST API returns.
+ *
+ * @author agent
+ */
+public final class RecordStoreBinaryWriter {
+
+    /**
+     * The first bytes of the binary format, "CRSB".
+     */
+    public static final int MAGIC = 0x42535243;
+
+    /**
+     * The current binary format version.
+     */
+    public static final int VERSION = 1;
+
+    // Column encodings.
+    static final byte INT_COLUMN = 1;
+    static final byte LONG_COLUMN = 2;
+    static final byte FLOAT_COLUMN = 3;
+    static final byte DOUBLE_COLUMN = 4;
+    static final byte BOOLEAN_COLUMN = 5;
+    static final byte DATETIME_COLUMN = 6;
+    static final byte STRING_COLUMN = 7;
+
+    static final int CHUNK_SIZE = 1 << 16;
+
+    private RecordStoreBinaryWriter() {
+    }
+
+    /**
+     * The encoding used to write the values of an attribute type.
+     *
+     * @param attributeType The name of an attribute type.
+     *
+     * @return A column encoding.
+     */
+    static byte getEncoding(final String attributeType) {
+        switch (attributeType) {
+            case IntegerAttributeDescription.ATTRIBUTE_NAME:
+            case IntegerObjectAttributeDescription.ATTRIBUTE_NAME:
+                return INT_COLUMN;
+            case LongAttributeDescription.ATTRIBUTE_NAME:
+            case LongObjectAttributeDescription.ATTRIBUTE_NAME:
+                return LONG_COLUMN;
+            case FloatAttributeDescription.ATTRIBUTE_NAME:
+            case FloatObjectAttributeDescription.ATTRIBUTE_NAME:
+                return FLOAT_COLUMN;
+            case BooleanAttributeDescription.ATTRIBUTE_NAME:
+            case BooleanObjectAttributeDescription.ATTRIBUTE_NAME:
+                return BOOLEAN_COLUMN;
+            case ZonedDateTimeAttributeDescription.ATTRIBUTE_NAME:
+                return DATETIME_COLUMN;
+            default:
+                return STRING_COLUMN;
+        }
+    }
+
+    /**
+     * Write the given columns of a RecordStore to a stream.
+     * <p>
+     * The stream is not closed.
+     *
+     * @param recordStore The RecordStore to write.
+     * @param keysWithType The keys of the columns to write, each including its
+     * attribute type, for example "source.Count&lt;integer&gt;".
+     * @param out The stream to write to.
+     *
+     * @throws IOException If the stream can't be written to.
+     */
+    public static void writeRecordStore(final RecordStore recordStore, final List<String> keysWithType, final OutputStream out) throws IOException {
+        final int columnCount = keysWithType.size();
+        final byte[][] names = new byte[columnCount][];
+        final byte[][] types = new byte[columnCount][];
+        final byte[] encodings = new byte[columnCount];
+        int headerLength = 3 * Integer.BYTES;
+        for (int i = 0; i < columnCount; i++) {
+            final String kt = keysWithType.get(i);
+            final int ix = kt.lastIndexOf('<');
+            final String type = kt.substring(ix + 1, kt.length() - 1);
+            names[i] = kt.substring(0, ix).getBytes(StandardCharsets.UTF_8);
+            types[i] = type.getBytes(StandardCharsets.UTF_8);
+            encodings[i] = getEncoding(type);
+            headerLength += 2 * Integer.BYTES + names[i].length + types[i].length + 1;
+        }
+
+        final ByteBuffer header = ByteBuffer.allocate(headerLength).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putInt(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            putString(header, names[i]);
+            putString(header, types[i]);
+            header.put(encodings[i]);
+        }
+        write(header, out);
+
+        final int size = recordStore.size();
+        for (int start = 0; start < size; start += CHUNK_SIZE) {
+            final int count = Math.min(CHUNK_SIZE, size - start);
+            final ByteBuffer chunkHeader = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            chunkHeader.putInt(count);
+            write(chunkHeader, out);
+
+            for (int i = 0; i < columnCount; i++) {
+                writeColumn(recordStore, keysWithType.get(i), encodings[i], start, count, out);
+            }
+        }
+
+        final ByteBuffer end = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        end.putInt(0);
+        write(end, out);
+        out.flush();
+    }
+
+    private static void writeColumn(final RecordStore recordStore, final String key, final byte encoding, final int start, final int count, final OutputStream out) throws IOException {
+        final String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = recordStore.get(start + i, key);
+        }
+
+        final byte[] validity = new byte[(count + 7) / 8];
+        for (int i = 0; i < count; i++) {
+            if (values[i] != null || encoding == BOOLEAN_COLUMN) {
+                validity[i >>> 3] |= 1 << (i & 7);
+            }
+        }
+
+        final ByteBuffer buffer;
+        try {
+            switch (encoding) {
+                case INT_COLUMN:
+                    buffer = allocate(validity, count * Integer.BYTES);
+                    for (final String value : values) {
+                        buffer.putInt(value == null ? 0 : Integer.parseInt(value));
+                    }
+                    break;
+                case LONG_COLUMN:
+                    buffer = allocate(validity, count * Long.BYTES);
+                    for (final String value : values) {
+                        buffer.putLong(value == null ? 0 : Long.parseLong(value));
+                    }
+                    break;
+                case FLOAT_COLUMN:
+                    buffer = allocate(validity, count * Float.BYTES);
+                    for (final String value : values) {
+                        buffer.putFloat(value == null ? 0 : Float.parseFloat(value));
+                    }
+                    break;
+                case BOOLEAN_COLUMN:
+                    buffer = allocate(validity, count);
+                    for (final String value : values) {
+                        buffer.put(Boolean.parseBoolean(value) ? (byte) 1 : (byte) 0);
+                    }
+                    break;
+                case DATETIME_COLUMN:
+                    buffer = allocate(validity, count * Long.BYTES);
+                    for (final String value : values) {
+                        final ZonedDateTime datetime = value == null ? null : ZonedDateTimeAttributeDescription.parseString(value);
+                        buffer.putLong(datetime == null ? 0 : datetime.toInstant().toEpochMilli());
+                    }
+                    break;
+                default:
+                    final byte[][] bytes = new byte[count][];
+                    int length = 0;
+                    for (int i = 0; i < count; i++) {
+                        bytes[i] = values[i] == null ? new byte[0] : values[i].getBytes(StandardCharsets.UTF_8);
+                        length += bytes[i].length;
+                    }
+                    buffer = allocate(validity, (count + 1) * Integer.BYTES + length);
+                    int offset = 0;
+                    buffer.putInt(offset);
+                    for (final byte[] b : bytes) {
+                        offset += b.length;
+                        buffer.putInt(offset);
+                    }
+                    for (final byte[] b : bytes) {
+                        buffer.put(b);
+                    }
+                    break;
+            }
+        } catch (final NumberFormatException ex) {
+            throw new RestServiceException(String.format("Can't write the values of %s: %s", key, ex.getMessage()));
+        }
+
+        write(buffer, out);
+    }
+
+    private static ByteBuffer allocate(final byte[] validity, final int valuesLength) {
+        final ByteBuffer buffer = ByteBuffer.allocate(validity.length + valuesLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(validity);
+        return buffer;
+    }
+
+    private static void putString(final ByteBuffer buffer, final byte[] b) {
+        buffer.putInt(b.length);
+        buffer.put(b);
+    }
+
+    private static void write(final ByteBuffer buffer, final OutputStream out) throws IOException {
+        out.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+    }
+}
@@ -97,6 +97,10 @@ public class RestServiceServlet extends ConstellationApiServlet {
             }
         });
 
+        // Let the service know what it's being given and what the client wants back.
+        //
+        rs.setRequestMimeTypes(request.getContentType(), request.getHeader("Accept"));
+
         // Call the service.
         //
         try {
@@ -27,7 +27,9 @@ import au.gov.asd.tac.constellation.graph.attribute.ZonedDateTimeAttributeDescri
 import au.gov.asd.tac.constellation.graph.manager.GraphManager;
 import au.gov.asd.tac.constellation.graph.schema.visual.attribute.ColorAttributeDescription;
 import au.gov.asd.tac.constellation.utilities.color.ConstellationColor;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.io.IOException;
 
 /**
  * A collection of utilities for the REST API.
@@ -107,4 +109,65 @@ public class RestUtilities {
                 break;
         }
     }
+
+    /**
+     * Write a value to a row being streamed by a JsonGenerator.
+     * <p>
+     * The value is written in the same way as {@link #addData} adds it to a
+     * row.
+     *
+     * @param generator The generator writing the row.
+     * @param type The type of the value.
+     * @param value The (possibly null) value.
+     *
+     * @throws IOException If the value can't be written.
+     */
+    public static void writeData(final JsonGenerator generator, final String type, final String value) throws IOException {
+        switch (type) {
+            case BooleanAttributeDescription.ATTRIBUTE_NAME:
+            case BooleanObjectAttributeDescription.ATTRIBUTE_NAME:
+                generator.writeBoolean(Boolean.parseBoolean(value));
+                break;
+            case ColorAttributeDescription.ATTRIBUTE_NAME:
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    final ConstellationColor cv = ConstellationColor.getColorValue(value);
+                    generator.writeStartArray();
+                    generator.writeNumber(cv.getRed());
+                    generator.writeNumber(cv.getGreen());
+                    generator.writeNumber(cv.getBlue());
+                    generator.writeNumber(cv.getAlpha());
+                    generator.writeEndArray();
+                }
+                break;
+            case ZonedDateTimeAttributeDescription.ATTRIBUTE_NAME:
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    final int ix = value.lastIndexOf(" [");
+                    generator.writeString(ix == -1 ? value : value.substring(0, ix));
+                }
+                break;
+            case FloatAttributeDescription.ATTRIBUTE_NAME:
+            case FloatObjectAttributeDescription.ATTRIBUTE_NAME:
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(Float.parseFloat(value));
+                }
+                break;
+            case IntegerAttributeDescription.ATTRIBUTE_NAME:
+            case IntegerObjectAttributeDescription.ATTRIBUTE_NAME:
+                if (value == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(Integer.parseInt(value));
+                }
+                break;
+            default:
+                generator.writeString(value);
+                break;
+        }
+    }
 }
@@ -9,6 +9,7 @@ import os
 import requests
 import pandas as pd
 from pathlib import Path
+import struct
 import subprocess
 import sys
 import tempfile
@@ -20,7 +21,7 @@ import time
 # For example, if a new function is added, clients that require that function
 # to be present can check the version.
 #
-__version__ = 20200326
+__version__ = 20201019
 
 # The HTTP header to be used to convey the server secret (if HTTP is used).
 #
@@ -33,6 +34,34 @@ _DEFAULT_PORT = 1517
 #
 ENV_VAR = 'CONSTELLATION_TRANSPORT'
 
+# The MIME type of CONSTELLATION's binary columnar RecordStore format.
+# See RecordStoreBinaryWriter.java for a description of the format.
+#
+RECORDSTORE_MIME = 'application/vnd.constellation.recordstore'
+
+_RS_MAGIC = b'CRSB'
+_RS_VERSION = 1
+_RS_CHUNK_SIZE = 1 << 16
+
+# Column encodings.
+#
+_RS_INT = 1
+_RS_LONG = 2
+_RS_FLOAT = 3
+_RS_DOUBLE = 4
+_RS_BOOLEAN = 5
+_RS_DATETIME = 6
+_RS_STRING = 7
+
+_RS_DTYPES = {
+    _RS_INT: np.dtype('<i4'),
+    _RS_LONG: np.dtype('<i8'),
+    _RS_FLOAT: np.dtype('<f4'),
+    _RS_DOUBLE: np.dtype('<f8'),
+    _RS_BOOLEAN: np.dtype('u1'),
+    _RS_DATETIME: np.dtype('<i8')
+}
+
 REQUESTS = {
     'get': requests.get,
     'post': requests.post,
@@ -249,12 +278,14 @@ class Constellation:
 
         return r
 
-    def _write_files(self, td, verb='get', endpoint=None, path=None, params=None, json_=None, data=None):
+    def _write_files(self, td, verb='get', endpoint=None, path=None, params=None, json_=None, data=None, headers=None):
         """Write the request and content files for CONSTELLATION's REST over files API.
 
         Ensure that content.in exists before request.json, and that request.json
         is renamed, not created, so it exists atomically.
 
+        The data may be bytes, or an iterable of bytes that are written in turn.
+
         The HTTP request GET http://localhost/v1/plugin/run?name=selectall
         becomes the request.json JSON document
         {
@@ -283,7 +314,14 @@ class Constellation:
         if data is not None:
             c = td / 'content.in'
             with open(str(c), 'wb') as f:
-                f.write(data)
+                if isinstance(data, (bytes, bytearray)):
+                    f.write(data)
+                else:
+                    for chunk in data:
+                        f.write(chunk)
+
+        if headers:
+            rd['headers'] = headers
 
         r_ = td / 'request.json_'
         with open(str(r_), 'w') as f:
@@ -301,7 +339,7 @@ class Constellation:
         """
 
         td = Path(self.file_dest)
-        self._write_files(td, verb=verb, endpoint=endpoint, path=path, params=params, json_=json_, data=data)
+        self._write_files(td, verb=verb, endpoint=endpoint, path=path, params=params, json_=json_, data=data, headers=headers)
 
         json_response = 'response.json'
 
@@ -332,7 +370,7 @@ class Constellation:
         """
 
         td = Path(self.tmpdir.name)
-        r, c = self._write_files(td, verb=verb, endpoint=endpoint, path=path, params=params, json_=json_, data=data)
+        r, c = self._write_files(td, verb=verb, endpoint=endpoint, path=path, params=params, json_=json_, data=data, headers=headers)
 
         sftp_batch = str(td / 'sftp.batch')
         with open(sftp_batch, 'w') as f:
@@ -376,21 +414,23 @@ class Constellation:
 
         return FileResponse(str(response), str(content))
 
-    def get_data(self, params):
+    def get_data(self, params, headers=None):
         """Get data from the graph as specified by the params dictionary.
 
         :param params: Parameters to be passed to requests.get().
         See the external scripting documentation for individual parameters.
+        :param headers: Extra HTTP headers; for example, an Accept header
+        of RECORDSTORE_MIME gets the data in the binary RecordStore format.
 
         Raises requests.exceptions.ConnectionError if the CONSTELLATION
         external scripting server is not running.
 
-        :returns: The data as a string.
+        :returns: The data as bytes.
         """
 
         # Fetch the graph data.
         #
-        return self.call_service('get_recordstore', args=params).content
+        return self.call_service('get_recordstore', args=params, headers=headers).content
 
     def get_json(self, params):
         """Get a Python data structure from the graph as specified by
@@ -443,6 +483,10 @@ class Constellation:
         :param attrs: A list of attribute names. If specified, only the
             listed attributes will be fetched.
         :param graph_id: The id of the graph to get data from.
+        :param binary: If True, fetch the data in CONSTELLATION's binary
+            columnar format instead of JSON. This is much faster for large
+            graphs. Datetimes are returned in UTC, and colors are returned
+            as strings.
 
         :returns: A DataFrame containing the requested data.
         """
@@ -455,7 +499,14 @@ class Constellation:
                     value = ','.join(value)
                 args[arg] = value
 
-        data = self.get_data(args)
+        headers = {'Accept': RECORDSTORE_MIME} if kwargs.get('binary', False) else None
+        data = self.get_data(args, headers=headers)
+
+        # A server that doesn't know the binary format returns JSON anyway.
+        #
+        if data[:len(_RS_MAGIC)]==_RS_MAGIC:
+            df, self.types = _read_recordstore(data)
+            return df
 
         # We can't create a DataFrame if there is no data.
         #
@@ -467,6 +518,46 @@ class Constellation:
             self.types = {}
             return pd.DataFrame()
 
+    def get_dataframe_pages(self, page_size=100000, **kwargs):
+        """Get Pandas DataFrames from the current or specified graph,
+        a page of elements at a time.
+
+        This is a generator: each DataFrame holds up to page_size vertices
+        (or transactions if tx is True) in graph order. CONSTELLATION only
+        reads the elements of a page from the graph when the page is
+        requested, so large graphs can be fetched without holding the
+        graph for long or holding all of its data at once.
+
+        Because the graph can change between pages, elements may be missed
+        or repeated if the graph is changed while the pages are fetched.
+
+        :param page_size: The maximum number of elements in each DataFrame.
+        :param selected: If True, include only selected graph elements.
+        :param tx: If True, get transactions instead of vertices.
+        :param attrs: A list of attribute names. If specified, only the
+            listed attributes will be fetched.
+        :param graph_id: The id of the graph to get data from.
+
+        :returns: A generator of DataFrames containing the requested data.
+        """
+
+        args = {'limit': page_size}
+        for arg in ['graph_id', 'selected', 'tx', 'attrs']:
+            if arg in kwargs:
+                value = kwargs[arg]
+                if arg=='attrs' and isinstance(value, list):
+                    value = ','.join(value)
+                args[arg] = value
+
+        offset = 0
+        while offset>=0:
+            args['offset'] = offset
+            page = self.call_service('stream_recordstore', args=args).json()
+            offset = page['next_offset']
+            df = pd.DataFrame(page['data'], columns=page['columns'])
+            df, self.types = self._fix_types(df)
+            yield df
+
     def _fix_types(self, df):
         """Collect the type names and prepare them for renaming the columns.
 
@@ -501,6 +592,10 @@ class Constellation:
         :param reset_view: By default, CONSTELLATION will reset the view.
         Specify False to not do this.
         :param graph_id: The id of the graph to be updated.
+        :param binary: If True, send the data in CONSTELLATION's binary
+            columnar format instead of JSON. This is much faster for large
+            DataFrames. The data is sent a chunk of rows at a time, and
+            list values are sent as strings.
         """
 
         args = {}
@@ -508,8 +603,11 @@ class Constellation:
             if arg in kwargs:
                 args[arg] = kwargs[arg]
 
-        j = df.to_json(orient='split', date_format='iso')
-        self.call_service('add_recordstore', verb='post', args=args, data=j.encode('utf-8'), headers={'Content-Type': 'application/json'})
+        if kwargs.get('binary', False):
+            self.call_service('add_recordstore', verb='post', args=args, data=_write_recordstore(df), headers={'Content-Type': RECORDSTORE_MIME})
+        else:
+            j = df.to_json(orient='split', date_format='iso')
+            self.call_service('add_recordstore', verb='post', args=args, data=j.encode('utf-8'), headers={'Content-Type': 'application/json'})
 
     def get_attributes(self, graph_id=None):
         """Get the graph, node, and transaction attributes of the current or specified graph.
@@ -715,6 +813,160 @@ class Constellation:
 
         return r
 
+def _read_recordstore(data):
+    """Read a DataFrame from CONSTELLATION's binary columnar RecordStore format.
+
+    Each column of each chunk is read straight from the data as a numpy
+    array. As with JSON, integer columns containing nulls become float64
+    columns containing NaNs.
+
+    :param data: The bytes of the RecordStore.
+
+    :returns: A tuple of (DataFrame, dictionary mapping column names to
+        CONSTELLATION type names).
+    """
+
+    mv = memoryview(data)
+    if bytes(mv[:len(_RS_MAGIC)])!=_RS_MAGIC:
+        raise ValueError('The data is not a binary RecordStore')
+    version, ncols = struct.unpack_from('<ii', mv, 4)
+    if version>_RS_VERSION:
+        raise ValueError(f'Unsupported binary RecordStore version {version}')
+    pos = 12
+
+    def read_string():
+        nonlocal pos
+        n, = struct.unpack_from('<i', mv, pos)
+        pos += 4
+        s = bytes(mv[pos:pos+n]).decode('utf-8')
+        pos += n
+        return s
+
+    names = []
+    types = {}
+    encodings = []
+    for _ in range(ncols):
+        name = read_string()
+        names.append(name)
+        types[name] = read_string()
+        encodings.append(mv[pos])
+        pos += 1
+
+    values = [[] for _ in range(ncols)]
+    valids = [[] for _ in range(ncols)]
+    while True:
+        count, = struct.unpack_from('<i', mv, pos)
+        pos += 4
+        if count==0:
+            break
+
+        for c in range(ncols):
+            nbytes = (count+7)//8
+            valid = np.unpackbits(np.frombuffer(mv, np.uint8, nbytes, pos), count=count, bitorder='little').astype(bool)
+            pos += nbytes
+            valids[c].append(valid)
+
+            encoding = encodings[c]
+            if encoding==_RS_STRING:
+                offsets = np.frombuffer(mv, '<i4', count+1, pos)
+                pos += 4*(count+1)
+                raw = bytes(mv[pos:pos+offsets[-1]])
+                pos += int(offsets[-1])
+                strings = np.empty(count, dtype=object)
+                for i in np.flatnonzero(valid):
+                    strings[i] = raw[offsets[i]:offsets[i+1]].decode('utf-8')
+                values[c].append(strings)
+            else:
+                dtype = _RS_DTYPES[encoding]
+                values[c].append(np.frombuffer(mv, dtype, count, pos))
+                pos += dtype.itemsize*count
+
+    columns = {}
+    for c, name in enumerate(names):
+        encoding = encodings[c]
+        if values[c]:
+            v = np.concatenate(values[c])
+            valid = np.concatenate(valids[c])
+        else:
+            v = np.empty(0, dtype=_RS_DTYPES.get(encoding, object))
+            valid = np.empty(0, dtype=bool)
+
+        if encoding==_RS_BOOLEAN:
+            v = v.astype(bool)
+        elif encoding==_RS_DATETIME:
+            v = v.astype('datetime64[ms]')
+            v[~valid] = np.datetime64('NaT')
+            v = pd.to_datetime(v, utc=True)
+        elif encoding!=_RS_STRING and not valid.all():
+            v = v.astype(np.float64)
+            v[~valid] = np.nan
+
+        columns[name] = v
+
+    return pd.DataFrame(columns, columns=names), types
+
+def _write_recordstore(df):
+    """Write a DataFrame in CONSTELLATION's binary columnar RecordStore format.
+
+    This is a generator that yields the header, then each chunk of rows in
+    turn, so the whole DataFrame is never encoded at once. Integer columns
+    are sent as 32 bit integers if their values fit, floats as doubles,
+    datetimes as UTC, and everything else as strings.
+
+    :param df: The DataFrame to write.
+    """
+
+    cols = []
+    for name in df.columns:
+        series = df[name]
+        kind = series.dtype.kind
+        if kind=='b':
+            encoding = _RS_BOOLEAN
+        elif kind in 'iu':
+            fits = len(series)==0 or (series.min()>=-2**31 and series.max()<2**31)
+            encoding = _RS_INT if fits else _RS_LONG
+        elif kind=='f':
+            encoding = _RS_DOUBLE
+        elif kind=='M':
+            encoding = _RS_DATETIME
+            if getattr(series.dtype, 'tz', None) is not None:
+                series = series.dt.tz_convert('UTC').dt.tz_localize(None)
+        else:
+            encoding = _RS_STRING
+        cols.append((str(name), series, encoding))
+
+    header = [_RS_MAGIC, struct.pack('<ii', _RS_VERSION, len(cols))]
+    for name, _, encoding in cols:
+        b = name.encode('utf-8')
+        header.append(struct.pack('<i', len(b)))
+        header.append(b)
+        header.append(struct.pack('<i', 0))
+        header.append(struct.pack('<B', encoding))
+    yield b''.join(header)
+
+    for start in range(0, len(df), _RS_CHUNK_SIZE):
+        count = min(_RS_CHUNK_SIZE, len(df)-start)
+        chunk = [struct.pack('<i', count)]
+        for _, series, encoding in cols:
+            s = series.iloc[start:start+count]
+            valid = s.notna().to_numpy()
+            chunk.append(np.packbits(valid, bitorder='little').tobytes())
+            if encoding==_RS_STRING:
+                encoded = [str(v).encode('utf-8') if ok else b'' for v, ok in zip(s, valid)]
+                offsets = np.zeros(count+1, dtype='<i4')
+                offsets[1:] = np.cumsum([len(b) for b in encoded])
+                chunk.append(offsets.tobytes())
+                chunk.append(b''.join(encoded))
+            else:
+                v = s.to_numpy()
+                if encoding==_RS_DATETIME:
+                    v = v.astype('datetime64[ms]').astype(np.int64)
+                v = np.where(valid, v, 0).astype(_RS_DTYPES[encoding])
+                chunk.append(v.tobytes())
+        yield b''.join(chunk)
+
+    yield struct.pack('<i', 0)
+
 def _get_rest(rest=None):
     """Get data from the file created by the CONSTELLATION HTTP REST server.
 
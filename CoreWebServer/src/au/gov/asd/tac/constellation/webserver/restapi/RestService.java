@@ -92,6 +92,23 @@ public abstract class RestService {
         return new PluginParameters();
     }
 
+    /**
+     * Tell the service the MIME type of the body of the request, and the MIME
+     * types the client accepts.
+     * <p>
+     * This is called before getMimeType() and callService(), so a service
+     * that can read or write more than one format can choose which to use.
+     * The default does nothing.
+     *
+     * @param contentType The MIME type of the request body, or null if it
+     * wasn't given.
+     * @param accept The MIME types the client accepts, as they would be given
+     * in an HTTP Accept header, or null if they weren't given.
+     */
+    public void setRequestMimeTypes(final String contentType, final String accept) {
+        // Most services only read and write one format.
+    }
+
     /**
      * A generic REST service.
      *
@@ -68,6 +68,33 @@ public class RestServiceUtilities {
 
     public static final String APPLICATION_JSON = "application/json";
     public static final String IMAGE_PNG = "image/png";
+    public static final String APPLICATION_RECORDSTORE = "application/vnd.constellation.recordstore";
+
+    /**
+     * Does an HTTP Content-Type or Accept header name a MIME type?
+     * <p>
+     * Parameters such as charset and q are ignored, as are wildcards: a
+     * service that can return more than one type only returns a type other
+     * than its default if the client asks for it by name.
+     *
+     * @param header The value of the header (may be null).
+     * @param mimeType The MIME type to look for.
+     *
+     * @return True if the header names the MIME type.
+     */
+    public static boolean hasMimeType(final String header, final String mimeType) {
+        if (header != null) {
+            for (final String range : header.split(",")) {
+                final int ix = range.indexOf(';');
+                final String type = ix == -1 ? range : range.substring(0, ix);
+                if (type.trim().equalsIgnoreCase(mimeType)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
 
     /**
      * Convert a JSON ArrayNode to a Java List.
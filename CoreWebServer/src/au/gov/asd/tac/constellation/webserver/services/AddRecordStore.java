@@ -36,6 +36,7 @@ import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterTyp
 import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterType;
 import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterValue;
 import au.gov.asd.tac.constellation.plugins.templates.SimpleEditPlugin;
+import au.gov.asd.tac.constellation.webserver.api.RecordStoreBinaryReader;
 import au.gov.asd.tac.constellation.webserver.api.RestUtilities;
 import au.gov.asd.tac.constellation.webserver.restapi.RestService;
 import au.gov.asd.tac.constellation.webserver.restapi.RestServiceException;
@@ -53,6 +54,11 @@ import org.openide.util.lookup.ServiceProvider;
 
 /**
  * Add a RecordStore to a graph.
+ * <p>
+ * The RecordStore is read as JSON, unless the body of the request is
+ * {@link RestServiceUtilities#APPLICATION_RECORDSTORE}, in which case it is
+ * read a chunk at a time in the binary columnar format read by
+ * {@link RecordStoreBinaryReader}.
  *
  * @author algol
  */
@@ -69,7 +75,9 @@ public class AddRecordStore extends RestService {
     private static final String TX_SOURCE = GraphRecordStoreUtilities.TRANSACTION + AnalyticConcept.TransactionAttribute.SOURCE;
 
     private static final String COLUMNS = "columns";
-    
+
+    private boolean binary = false;
+
     @Override
     public String getName() {
         return NAME;
@@ -118,12 +126,17 @@ public class AddRecordStore extends RestService {
 
         final PluginParameter<StringParameterValue> dataParam = StringParameterType.build(DATA_PARAMETER_ID);
         dataParam.setName("Data (body)");
-        dataParam.setDescription("A JSON representation of the RecordStore data, in the form {\"columns\": [\"COL1\",\"COL2\",\"COL3\"], \"data\": [[r1c1, r1c2, r1c3],[r2c1,r2c2,r2c3]]. This is the same as the output of pandas.DataFrame.to_json(orient='split', date_format='iso').");
+        dataParam.setDescription("A JSON representation of the RecordStore data, in the form {\"columns\": [\"COL1\",\"COL2\",\"COL3\"], \"data\": [[r1c1, r1c2, r1c3],[r2c1,r2c2,r2c3]]. This is the same as the output of pandas.DataFrame.to_json(orient='split', date_format='iso'). If the Content-Type is " + RestServiceUtilities.APPLICATION_RECORDSTORE + ", the binary columnar RecordStore format.");
         parameters.addParameter(dataParam);
 
         return parameters;
     }
 
+    @Override
+    public void setRequestMimeTypes(final String contentType, final String accept) {
+        binary = RestServiceUtilities.hasMimeType(contentType, RestServiceUtilities.APPLICATION_RECORDSTORE);
+    }
+
     @Override
     public void callService(final PluginParameters parameters, final InputStream in, final OutputStream out) throws IOException {
         final String graphId = parameters.getStringValue(GRAPH_ID_PARAMETER_ID);
@@ -131,6 +144,31 @@ public class AddRecordStore extends RestService {
         final String arrange = parameters.getStringValue(ARRANGE_PARAMETER_ID);
         final boolean resetView = parameters.getBooleanValue(RESET_PARAMETER_ID);
 
+        final RecordStore rs = binary ? readBinary(in) : readJson(in);
+
+        addToGraph(graphId, rs, completeWithSchema, arrange, resetView);
+    }
+
+    private static RecordStore readBinary(final InputStream in) throws IOException {
+        final RecordStore rs = RecordStoreBinaryReader.readRecordStore(in);
+
+        boolean txFound = false;
+        boolean txSourceFound = false;
+        for (final String h : rs.keys()) {
+            txFound |= h.startsWith(GraphRecordStoreUtilities.TRANSACTION);
+            txSourceFound |= TX_SOURCE.equals(h);
+        }
+
+        if (txFound && !txSourceFound) {
+            for (int record = 0; record < rs.size(); record++) {
+                rs.set(record, TX_SOURCE, API_SOURCE);
+            }
+        }
+
+        return rs;
+    }
+
+    private static RecordStore readJson(final InputStream in) throws IOException {
         final RecordStore rs = new GraphRecordStore();
         final ObjectMapper mapper = new ObjectMapper();
         final JsonNode json = mapper.readTree(in);
@@ -180,7 +218,7 @@ public class AddRecordStore extends RestService {
             }
         }
 
-        addToGraph(graphId, rs, completeWithSchema, arrange, resetView);
+        return rs;
     }
 
     private static void addToGraph(final String graphId, final RecordStore recordStore, final boolean completeWithSchema, final String arrange, final boolean resetView) {
@@ -189,7 +227,7 @@ public class AddRecordStore extends RestService {
         final Plugin p = new SimpleEditPlugin("Import from REST API") {
             @Override
             protected void edit(final GraphWriteMethods graph, final PluginInteraction interaction, final PluginParameters parameters) throws InterruptedException {
-                GraphRecordStoreUtilities.addRecordStoreToGraph(graph, recordStore, false, completeWithSchema, null);
+                GraphRecordStoreUtilities.addRecordStoreToGraphInBulk(graph, recordStore, false, completeWithSchema);
 
                 // Do the optional arrangement inside this anonymous "addRecordStoreToGraph" plugin.
                 // This way, any extra nodes are added and arranged in one go.
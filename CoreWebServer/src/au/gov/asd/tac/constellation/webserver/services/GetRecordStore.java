@@ -29,8 +29,10 @@ import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterValu
 import au.gov.asd.tac.constellation.utilities.gui.HandleIoProgress;
 import au.gov.asd.tac.constellation.utilities.gui.IoProgress;
 import au.gov.asd.tac.constellation.webserver.restapi.RestServiceException;
+import au.gov.asd.tac.constellation.webserver.api.RecordStoreBinaryWriter;
 import au.gov.asd.tac.constellation.webserver.api.RestUtilities;
 import au.gov.asd.tac.constellation.webserver.restapi.RestService;
+import au.gov.asd.tac.constellation.webserver.restapi.RestServiceUtilities;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -38,9 +40,11 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringJoiner;
@@ -48,6 +52,11 @@ import org.openide.util.lookup.ServiceProvider;
 
 /**
  * Get (parts of) the specified graph (default is the active graph) as a RecordStore.
+ * <p>
+ * The RecordStore is returned as JSON, unless the client accepts
+ * {@link RestServiceUtilities#APPLICATION_RECORDSTORE}, in which case it is
+ * streamed in the binary columnar format written by
+ * {@link RecordStoreBinaryWriter}.
  *
  * @author algol
  */
@@ -60,6 +69,8 @@ public class GetRecordStore extends RestService {
     private static final String TX_PARAMETER_ID = "tx";
     private static final String ATTRS_PARAMETER_ID = "attrs";
 
+    private boolean binary = false;
+
     @Override
     public String getName() {
         return NAME;
@@ -110,6 +121,16 @@ public class GetRecordStore extends RestService {
         return parameters;
     }
 
+    @Override
+    public void setRequestMimeTypes(final String contentType, final String accept) {
+        binary = RestServiceUtilities.hasMimeType(accept, RestServiceUtilities.APPLICATION_RECORDSTORE);
+    }
+
+    @Override
+    public String getMimeType() {
+        return binary ? RestServiceUtilities.APPLICATION_RECORDSTORE : RestServiceUtilities.APPLICATION_JSON;
+    }
+
     @Override
     public void callService(final PluginParameters parameters, final InputStream in, final OutputStream out) throws IOException {
         final String graphId = parameters.getStringValue(GRAPH_ID_PARAMETER_ID);
@@ -178,6 +199,22 @@ public class GetRecordStore extends RestService {
             attrs.addAll(attrToTypedAttr.keySet());
         }
 
+        if (binary) {
+            // The binary format is written a chunk of records at a time,
+            // so there's no need to build the whole document first.
+            ioph.progress("Writing RecordStore...");
+            final List<String> keysWithType = new ArrayList<>();
+            if (recordStore.size() > 0) {
+                for (final String attr : attrs) {
+                    keysWithType.add(attrToTypedAttr.get(attr));
+                }
+            }
+            RecordStoreBinaryWriter.writeRecordStore(recordStore, keysWithType, out);
+
+            ioph.finish();
+            return;
+        }
+
         final ObjectMapper mapper = new ObjectMapper();
         mapper.configure(SerializationFeature.INDENT_OUTPUT, false);
         mapper.configure(SerializationFeature.CLOSE_CLOSEABLE, false);
@@ -18,7 +18,7 @@ package au.gov.asd.tac.constellation.webserver.services;
 import au.gov.asd.tac.constellation.graph.Graph;
 import au.gov.asd.tac.constellation.graph.StoreGraph;
 import au.gov.asd.tac.constellation.graph.file.opener.GraphOpener;
-import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import au.gov.asd.tac.constellation.graph.locking.LockingGraphUtilities;
 import au.gov.asd.tac.constellation.graph.manager.GraphManager;
 import au.gov.asd.tac.constellation.graph.node.GraphNode;
 import au.gov.asd.tac.constellation.graph.schema.Schema;
@@ -106,7 +106,7 @@ public class NewGraph extends RestService {
         final Schema schema = SchemaFactoryUtilities.getSchemaFactory(schemaName).createSchema();
         final StoreGraph sg = new StoreGraph(schema);
         schema.newGraph(sg);
-        final Graph dualGraph = new DualGraph(sg, false);
+        final Graph dualGraph = LockingGraphUtilities.createGraph(sg, false);
 
         final String graphName = SchemaFactoryUtilities.getSchemaFactory(schemaName).getLabel().replace(" ", "").toLowerCase();
         GraphOpener.getDefault().openGraph(dualGraph, graphName);
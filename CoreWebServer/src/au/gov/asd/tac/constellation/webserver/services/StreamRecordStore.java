@@ -0,0 +1,293 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.webserver.services;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.node.GraphNode;
+import au.gov.asd.tac.constellation.graph.processing.GraphRecordStore;
+import au.gov.asd.tac.constellation.graph.processing.GraphRecordStoreUtilities;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameter;
+import au.gov.asd.tac.constellation.plugins.parameters.PluginParameters;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.BooleanParameterType.BooleanParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.IntegerParameterType.IntegerParameterValue;
+import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterType;
+import au.gov.asd.tac.constellation.plugins.parameters.types.StringParameterValue;
+import au.gov.asd.tac.constellation.webserver.api.RestUtilities;
+import au.gov.asd.tac.constellation.webserver.restapi.RestService;
+import au.gov.asd.tac.constellation.webserver.restapi.RestServiceException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import org.openide.util.lookup.ServiceProvider;
+
+/**
+ * Stream the vertices or transactions of the specified graph (default is the
+ * active graph) as a RecordStore.
+ * <p>
+ * Unlike get_recordstore, the RecordStore is never built in full. The elements
+ * are read from the graph a page at a time, holding the read lock only while
+ * each page is read, and each page is written to the response with a
+ * {@link JsonGenerator} before the next page is read. Because the graph may
+ * change between pages, elements added or removed while the response is being
+ * written may be missed.
+ * <p>
+ * The offset and limit parameters allow a client to fetch a large graph in
+ * several requests: the response includes the offset to use for the next
+ * request, or -1 if there are no more elements.
+ *
+ * @author agent
+ */
+@ServiceProvider(service=RestService.class)
+public class StreamRecordStore extends RestService {
+    private static final String NAME = "stream_recordstore";
+    private static final String GRAPH_ID_PARAMETER_ID = "graph_id";
+    private static final String SELECTED_PARAMETER_ID = "selected";
+    private static final String TX_PARAMETER_ID = "tx";
+    private static final String ATTRS_PARAMETER_ID = "attrs";
+    private static final String OFFSET_PARAMETER_ID = "offset";
+    private static final String LIMIT_PARAMETER_ID = "limit";
+
+    private static final int PAGE_SIZE = 10000;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Stream the vertices or transactions of the specified graph (default is the active graph) as a RecordStore, a page at a time.";
+    }
+
+    @Override
+    public String[] getTags() {
+        return new String[]{"recordstore"};
+    }
+
+    @Override
+    public PluginParameters createParameters() {
+        final PluginParameters parameters = new PluginParameters();
+
+        final PluginParameter<StringParameterValue> graphIdParam = StringParameterType.build(GRAPH_ID_PARAMETER_ID);
+        graphIdParam.setName("Graph id");
+        graphIdParam.setDescription("The id of a graph to get data from.");
+        parameters.addParameter(graphIdParam);
+
+        final PluginParameter<BooleanParameterValue> selectedParam = BooleanParameterType.build(SELECTED_PARAMETER_ID);
+        selectedParam.setName("Selected elements only");
+        selectedParam.setDescription("If false (the default), return all elements, else return only the selected elements.");
+        selectedParam.setObjectValue(false);
+        parameters.addParameter(selectedParam);
+
+        final PluginParameter<BooleanParameterValue> txParam = BooleanParameterType.build(TX_PARAMETER_ID);
+        txParam.setName("Transactions");
+        txParam.setDescription("If true, return transactions (and the vertices at their ends), else return vertices (default false).");
+        txParam.setObjectValue(false);
+        parameters.addParameter(txParam);
+
+        final PluginParameter<StringParameterValue> attrsParam = StringParameterType.build(ATTRS_PARAMETER_ID);
+        attrsParam.setName("Attribute list");
+        attrsParam.setDescription("Include only these comma-separated attributes in the recordstore. Only these attributes are read from the graph.");
+        parameters.addParameter(attrsParam);
+
+        final PluginParameter<IntegerParameterValue> offsetParam = IntegerParameterType.build(OFFSET_PARAMETER_ID);
+        offsetParam.setName("Offset");
+        offsetParam.setDescription("The position of the element to start from (default 0). Use the next_offset of a previous response to get the next elements.");
+        offsetParam.setIntegerValue(0);
+        parameters.addParameter(offsetParam);
+
+        final PluginParameter<IntegerParameterValue> limitParam = IntegerParameterType.build(LIMIT_PARAMETER_ID);
+        limitParam.setName("Limit");
+        limitParam.setDescription("The maximum number of elements to return. If 0 (the default), return all of the remaining elements.");
+        limitParam.setIntegerValue(0);
+        parameters.addParameter(limitParam);
+
+        return parameters;
+    }
+
+    @Override
+    public void callService(final PluginParameters parameters, final InputStream in, final OutputStream out) throws IOException {
+        final String graphId = parameters.getStringValue(GRAPH_ID_PARAMETER_ID);
+        final boolean selected = parameters.getBooleanValue(SELECTED_PARAMETER_ID);
+        final boolean tx = parameters.getBooleanValue(TX_PARAMETER_ID);
+        final String attrsParam = parameters.getStringValue(ATTRS_PARAMETER_ID);
+        final int offset = parameters.getIntegerValue(OFFSET_PARAMETER_ID);
+        final int limit = parameters.getIntegerValue(LIMIT_PARAMETER_ID);
+
+        if (offset < 0) {
+            throw new RestServiceException("The offset must not be negative");
+        }
+
+        // Only the attributes the user asks for are read from the graph.
+        final String[] attrsArray = attrsParam != null ? attrsParam.split(",") : new String[0];
+        final Set<String> attrs = new LinkedHashSet<>(); // Maintain the order specified by the user.
+        Collections.addAll(attrs, attrsArray);
+
+        final Graph graph = graphId == null ? RestUtilities.getActiveGraph() : GraphNode.getGraph(graphId);
+
+        writeRecordStore(graph, selected, tx, attrs, offset, limit, PAGE_SIZE, out);
+    }
+
+    /**
+     * Write the vertices or transactions of a graph, reading them from the
+     * graph a page at a time.
+     *
+     * @param graph The graph to read from.
+     * @param selected If true, only write the selected elements.
+     * @param tx If true, write transactions, else write vertices.
+     * @param attrs The attributes to write, in order, or an empty set to write
+     * every attribute.
+     * @param offset The position of the element to start from.
+     * @param limit The maximum number of elements to write, or 0 to write all
+     * of the remaining elements.
+     * @param pageSize The maximum number of elements to read under each read
+     * lock.
+     * @param out The stream to write to.
+     *
+     * @throws IOException If the response can't be written.
+     */
+    static void writeRecordStore(final Graph graph, final boolean selected, final boolean tx, final Set<String> attrs,
+            final int offset, final int limit, final int pageSize, final OutputStream out) throws IOException {
+        final Set<String> keys = attrs.isEmpty() ? null : attrs;
+
+        final JsonGenerator generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        // We write the same JSON document as get_recordstore, with the
+        // offset of the next page of elements:
+        //
+        // {"columns":["A","B"],"data":[[1,"a"],[2,"b"],[3,"c"]],"next_offset":3}
+        //
+        // The columns are those of the first page: the attributes of the
+        // elements only change between pages if the graph changes.
+        List<String> columns = null;
+        final int[] position = {offset};
+        int remaining = limit;
+        boolean more;
+        do {
+            final int pageLimit = limit > 0 ? Math.min(pageSize, remaining) : pageSize;
+            final GraphRecordStore page;
+            final ReadableGraph rg = graph.getReadableGraph();
+            try {
+                page = tx
+                        ? GraphRecordStoreUtilities.getTransactions(rg, selected, false, position, pageLimit, keys)
+                        : GraphRecordStoreUtilities.getVertices(rg, false, selected, false, position, pageLimit, keys);
+                more = position[0] < (tx ? rg.getTransactionCount() : rg.getVertexCount());
+            } finally {
+                rg.release();
+            }
+
+            if (columns == null) {
+                columns = getColumns(page, attrs);
+
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("columns");
+                for (final String kt : columns) {
+                    generator.writeString(keyedName(kt));
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("data");
+            }
+
+            writeRows(generator, page, columns);
+
+            remaining -= page.size();
+        } while (more && (limit <= 0 || remaining > 0));
+
+        // Elements may remain once the limit is reached, so the next offset
+        // depends only on whether the end of the graph was reached.
+        generator.writeEndArray();
+        generator.writeNumberField("next_offset", more ? position[0] : -1);
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * Get the keys (with their types) of the columns to write, in the order
+     * the user specified them.
+     */
+    private static List<String> getColumns(final GraphRecordStore recordStore, final Set<String> attrs) {
+        // Create a mapping from "attrname" to "attrname<type>" for
+        // all of the RecordStore attributes.
+        final Map<String, String> attrToTypedAttr = new HashMap<>();
+        for (final String kt : recordStore.keysWithType()) {
+            final int ix = kt.lastIndexOf('<');
+            attrToTypedAttr.put(kt.substring(0, ix), kt);
+        }
+
+        final List<String> columns = new ArrayList<>();
+        if (!attrs.isEmpty() && recordStore.size() > 0) {
+            // Check that all of the user-specified attributes exist.
+            final StringJoiner buf = new StringJoiner(",");
+            for (final String key : attrs) {
+                if (attrToTypedAttr.containsKey(key)) {
+                    columns.add(attrToTypedAttr.get(key));
+                } else {
+                    buf.add(key);
+                }
+            }
+
+            if (buf.length() != 0) {
+                throw new RestServiceException("The following attributes do not exist in the record store: " + buf.toString());
+            }
+        } else if (recordStore.size() > 0) {
+            columns.addAll(attrToTypedAttr.values());
+        }
+
+        return columns;
+    }
+
+    private static void writeRows(final JsonGenerator generator, final GraphRecordStore recordStore, final List<String> columns) throws IOException {
+        final String[] types = new String[columns.size()];
+        for (int i = 0; i < types.length; i++) {
+            final String kt = columns.get(i);
+            types[i] = kt.substring(kt.lastIndexOf('<') + 1, kt.length() - 1);
+        }
+
+        final int size = recordStore.size();
+        for (int record = 0; record < size; record++) {
+            generator.writeStartArray();
+            for (int i = 0; i < types.length; i++) {
+                RestUtilities.writeData(generator, types[i], recordStore.get(record, columns.get(i)));
+            }
+            generator.writeEndArray();
+        }
+        generator.flush();
+    }
+
+    /**
+     * Convert a "key&lt;type&gt;" to "key|type", as get_recordstore does.
+     */
+    private static String keyedName(final String attrWithType) {
+        final int ix = attrWithType.lastIndexOf('<');
+
+        return attrWithType.substring(0, ix) + "|" + attrWithType.substring(ix + 1, attrWithType.length() - 1);
+    }
+}
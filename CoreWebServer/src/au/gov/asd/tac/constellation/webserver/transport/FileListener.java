@@ -62,6 +62,7 @@ public class FileListener implements Runnable {
     private static final String CONTENT_OUT = "content.out";        // The file containing ioutput data (may be JSON / binary / anything).
     
     private static final String ENDPOINT = "endpoint";
+    private static final String HEADERS = "headers";
 
     private final Path restPath;
     private volatile boolean running;
@@ -159,18 +160,21 @@ public class FileListener implements Runnable {
                             // }
                             //
                             // If content (JSON or otherwise) is required, it gets delivered in a separate CONTENT_DATA file.
+                            // The request may also contain the HTTP Content-Type and Accept headers, as in
+                            // "headers": { "Content-Type": "application/json" }.
                             if (json.hasNonNull("verb") && json.hasNonNull(ENDPOINT) && json.hasNonNull("path")) {
                                 final String verb = json.get("verb").textValue();
                                 final String endpoint = json.get(ENDPOINT).textValue();
                                 final String path = json.get("path").textValue();
 
                                 final JsonNode args = json.get("args");
+                                final JsonNode headers = json.get(HEADERS);
                                 try {
                                     // Display the incoming REST request to provide some confidence to the user and debugging for the developer :-).
                                     final String msg = String.format("File REST API: %s %s %s", verb, endpoint, path);
                                     StatusDisplayer.getDefault().setStatusText(msg);
 
-                                    parseAndExecute(verb, endpoint, path, args);
+                                    parseAndExecute(verb, endpoint, path, args, headers);
                                     response();
                                 } catch (final RestServiceException ex) {
                                     response(ex.getMessage());
@@ -206,10 +210,11 @@ public class FileListener implements Runnable {
      * Execute a REST endpoint.
      *
      * @param node A JSON node representing the input parameters.
+     * @param headers A JSON node containing the request's HTTP headers (may be null).
      *
      * @throws Exception because of AutoCloseable
      */
-    private void parseAndExecute(final String verb, final String endpoint, final String path, final JsonNode args) throws Exception {
+    private void parseAndExecute(final String verb, final String endpoint, final String path, final JsonNode args, final JsonNode headers) throws Exception {
         if ("/v2/service".equals(endpoint)) {
             final HttpMethod httpMethod = HttpMethod.getValue(verb);
             // Get an instance of the service (if it exists).
@@ -221,6 +226,12 @@ public class FileListener implements Runnable {
             final PluginParameters parameters = rs.createParameters();
             RestServiceUtilities.parametersFromJson((ObjectNode)args, parameters);
 
+            // Let the service know what it's being given and what the client wants back.
+            //
+            if (headers != null) {
+                rs.setRequestMimeTypes(headers.path("Content-Type").textValue(), headers.path("Accept").textValue());
+            }
+
             try(final InStream ins = new InStream(restPath, CONTENT_IN, true); final OutputStream out = outStream(restPath, CONTENT_OUT)) {
                 rs.callService(parameters, ins.in, out);
             } catch(final IOException | RuntimeException ex) {
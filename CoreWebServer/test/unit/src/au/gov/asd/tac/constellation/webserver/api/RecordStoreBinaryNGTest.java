@@ -0,0 +1,98 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.webserver.api;
+
+import au.gov.asd.tac.constellation.graph.processing.GraphRecordStore;
+import au.gov.asd.tac.constellation.graph.processing.TypedRecordStore;
+import au.gov.asd.tac.constellation.graph.processing.TypedRecordStore.ColumnType;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+/**
+ * Binary RecordStore Test.
+ *
+ * @author agent
+ */
+public class RecordStoreBinaryNGTest {
+
+    private static final List<String> KEYS = Arrays.asList(
+            "source.Count<integer>",
+            "source.Weight<float>",
+            "source.Selected<boolean>",
+            "transaction.DateTime<datetime>",
+            "source.Label<string>");
+
+    /**
+     * Values written as text are read back as typed columns, across more than
+     * one chunk, and records without a value are left without one.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final int size = RecordStoreBinaryWriter.CHUNK_SIZE + 10;
+        final GraphRecordStore recordStore = new GraphRecordStore();
+        for (int i = 0; i < size; i++) {
+            recordStore.add();
+            recordStore.set(KEYS.get(0), i % 3 == 0 ? null : String.valueOf(i));
+            recordStore.set(KEYS.get(1), String.valueOf(i * 0.5f));
+            recordStore.set(KEYS.get(2), String.valueOf(i % 2 == 0));
+            recordStore.set(KEYS.get(3), "2020-01-01 00:00:00.000 +00:00 [UTC]");
+            recordStore.set(KEYS.get(4), "vertex é " + i);
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordStoreBinaryWriter.writeRecordStore(recordStore, KEYS, out);
+        final TypedRecordStore read = RecordStoreBinaryReader.readRecordStore(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(read.size(), size);
+        assertEquals(read.getColumnType("source.Count"), ColumnType.INTEGER);
+        assertEquals(read.getColumnType("source.Weight"), ColumnType.FLOAT);
+        assertEquals(read.getColumnType("source.Selected"), ColumnType.BOOLEAN);
+        assertEquals(read.getColumnType("transaction.DateTime"), ColumnType.DATETIME);
+        assertEquals(read.getColumnType("source.Label"), ColumnType.STRING);
+
+        for (final int record : new int[]{0, 1, RecordStoreBinaryWriter.CHUNK_SIZE - 1, RecordStoreBinaryWriter.CHUNK_SIZE + 1, size - 1}) {
+            assertEquals(read.hasValue(record, "source.Count"), record % 3 != 0);
+            if (record % 3 != 0) {
+                assertEquals(read.getInt(record, "source.Count"), record);
+            }
+            assertEquals(read.getFloat(record, "source.Weight"), record * 0.5f);
+            assertEquals(read.getBoolean(record, "source.Selected"), record % 2 == 0);
+            assertEquals(read.getDateTime(record, "transaction.DateTime"), 1577836800000L);
+            assertEquals(read.get(record, "source.Label"), "vertex é " + record);
+        }
+    }
+
+    /**
+     * A RecordStore without records is written as its columns alone.
+     */
+    @Test
+    public void testEmpty() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RecordStoreBinaryWriter.writeRecordStore(new GraphRecordStore(), KEYS.subList(0, 0), out);
+        final TypedRecordStore read = RecordStoreBinaryReader.readRecordStore(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(read.size(), 0);
+        assertTrue(read.keys().isEmpty());
+        assertFalse(out.size() == 0);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.webserver.api;
+
+import au.gov.asd.tac.constellation.graph.attribute.BooleanAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.BooleanObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.FloatAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.FloatObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.StringAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.ZonedDateTimeAttributeDescription;
+import au.gov.asd.tac.constellation.graph.schema.visual.attribute.ColorAttributeDescription;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.io.IOException;
+import java.io.StringWriter;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+/**
+ * Rest Utilities Test.
+ *
+ * @author agent
+ */
+public class RestUtilitiesNGTest {
+
+    private static final String[][] VALUES = {
+        {BooleanAttributeDescription.ATTRIBUTE_NAME, "true", "false", null},
+        {BooleanObjectAttributeDescription.ATTRIBUTE_NAME, "true", null},
+        {ColorAttributeDescription.ATTRIBUTE_NAME, "Red", "#102030", null},
+        {ZonedDateTimeAttributeDescription.ATTRIBUTE_NAME, "2020-01-01 00:00:00.000 +10:00 [Australia/Sydney]", "2020-01-01 00:00:00.000 +00:00", null},
+        {FloatAttributeDescription.ATTRIBUTE_NAME, "1.5", "-0.0", null},
+        {FloatObjectAttributeDescription.ATTRIBUTE_NAME, "3.25", null},
+        {IntegerAttributeDescription.ATTRIBUTE_NAME, "42", "-7", null},
+        {IntegerObjectAttributeDescription.ATTRIBUTE_NAME, "0", null},
+        {StringAttributeDescription.ATTRIBUTE_NAME, "text \"quoted\" é", "", null}
+    };
+
+    /**
+     * Each value streamed by writeData is the same as the value added to a row
+     * by addData.
+     */
+    @Test
+    public void testWriteData() throws IOException {
+        final ObjectMapper mapper = new ObjectMapper();
+        for (final String[] values : VALUES) {
+            final String type = values[0];
+            final ArrayNode expected = mapper.createArrayNode();
+            final StringWriter actual = new StringWriter();
+            try (final JsonGenerator generator = mapper.getFactory().createGenerator(actual)) {
+                generator.writeStartArray();
+                for (int i = 1; i < values.length; i++) {
+                    RestUtilities.addData(expected, type, values[i]);
+                    RestUtilities.writeData(generator, type, values[i]);
+                }
+                generator.writeEndArray();
+            }
+            assertEquals(actual.toString(), mapper.writeValueAsString(expected), type);
+        }
+    }
+}
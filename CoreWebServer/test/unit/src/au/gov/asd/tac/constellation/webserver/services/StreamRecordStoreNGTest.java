@@ -0,0 +1,219 @@
+/*
+ * Copyright 2010-2020 Australian Signals Directorate
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package au.gov.asd.tac.constellation.webserver.services;
+
+import au.gov.asd.tac.constellation.graph.Graph;
+import au.gov.asd.tac.constellation.graph.GraphElementType;
+import au.gov.asd.tac.constellation.graph.ReadableGraph;
+import au.gov.asd.tac.constellation.graph.WritableGraph;
+import au.gov.asd.tac.constellation.graph.attribute.BooleanAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.IntegerObjectAttributeDescription;
+import au.gov.asd.tac.constellation.graph.attribute.StringAttributeDescription;
+import au.gov.asd.tac.constellation.graph.locking.DualGraph;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Stream RecordStore Test.
+ *
+ * @author agent
+ */
+public class StreamRecordStoreNGTest {
+
+    private static final int VERTEX_COUNT = 95;
+    private static final int[] PAGE_SIZES = {1, 7, 10, VERTEX_COUNT, 200};
+    private static final int[] LIMITS = {0, 1, 7, 10, VERTEX_COUNT - 1, VERTEX_COUNT, VERTEX_COUNT + 1};
+
+    private Graph graph;
+
+    @BeforeMethod
+    public void setUpMethod() throws InterruptedException {
+        graph = new DualGraph(null);
+        final WritableGraph wg = graph.getWritableGraph("Set Up", true);
+        try {
+            final int labelAttribute = wg.addAttribute(GraphElementType.VERTEX, StringAttributeDescription.ATTRIBUTE_NAME, "Label", null, null, null);
+            final int countAttribute = wg.addAttribute(GraphElementType.VERTEX, IntegerObjectAttributeDescription.ATTRIBUTE_NAME, "Count", null, null, null);
+            final int vertexSelectedAttribute = wg.addAttribute(GraphElementType.VERTEX, BooleanAttributeDescription.ATTRIBUTE_NAME, "selected", null, null, null);
+            final int transactionSelectedAttribute = wg.addAttribute(GraphElementType.TRANSACTION, BooleanAttributeDescription.ATTRIBUTE_NAME, "selected", null, null, null);
+            for (int i = 0; i < VERTEX_COUNT; i++) {
+                final int vxId = wg.addVertex();
+                wg.setStringValue(labelAttribute, vxId, "v" + vxId);
+                wg.setObjectValue(countAttribute, vxId, i % 4 == 0 ? null : i);
+                wg.setBooleanValue(vertexSelectedAttribute, vxId, i % 3 == 0);
+            }
+            for (int i = 0; i < VERTEX_COUNT; i++) {
+                final int txId = wg.addTransaction(wg.getVertex(i), wg.getVertex((i + 1) % VERTEX_COUNT), true);
+                wg.setBooleanValue(transactionSelectedAttribute, txId, i % 5 == 0);
+            }
+        } finally {
+            wg.commit();
+        }
+    }
+
+    private static Set<String> attrs(final String... attrs) {
+        return new LinkedHashSet<>(Arrays.asList(attrs));
+    }
+
+    private JsonNode getPage(final boolean selected, final boolean tx, final Set<String> attrs, final int offset, final int limit, final int pageSize) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamRecordStore.writeRecordStore(graph, selected, tx, attrs, offset, limit, pageSize, out);
+        return new ObjectMapper().readTree(out.toByteArray());
+    }
+
+    /**
+     * The ids of the elements that should be returned, found without paging.
+     */
+    private List<String> getExpectedIds(final boolean selected, final boolean tx) {
+        final List<String> ids = new ArrayList<>();
+        final ReadableGraph rg = graph.getReadableGraph();
+        try {
+            final GraphElementType elementType = tx ? GraphElementType.TRANSACTION : GraphElementType.VERTEX;
+            final int selectedAttribute = rg.getAttribute(elementType, "selected");
+            final int count = elementType.getElementCount(rg);
+            for (int position = 0; position < count; position++) {
+                final int element = elementType.getElement(rg, position);
+                if (!selected || rg.getBooleanValue(selectedAttribute, element)) {
+                    ids.add(String.valueOf(element));
+                }
+            }
+        } finally {
+            rg.release();
+        }
+        return ids;
+    }
+
+    /**
+     * Fetch every page the way a client does, following next_offset, and
+     * check that each element is returned exactly once, in order.
+     */
+    private void checkPages(final boolean selected, final boolean tx) throws IOException {
+        final String idKey = tx ? "transaction.[id]" : "source.[id]";
+        final List<String> expectedIds = getExpectedIds(selected, tx);
+        for (final int pageSize : PAGE_SIZES) {
+            for (final int limit : LIMITS) {
+                final String message = "selected=" + selected + " tx=" + tx + " pageSize=" + pageSize + " limit=" + limit;
+                final List<String> ids = new ArrayList<>();
+                int offset = 0;
+                int requests = 0;
+                while (offset >= 0) {
+                    final JsonNode page = getPage(selected, tx, attrs(idKey), offset, limit, pageSize);
+                    final int nextOffset = page.get("next_offset").asInt();
+                    final JsonNode data = page.get("data");
+                    if (limit > 0) {
+                        assertTrue(data.size() <= limit, message);
+                        // only the last page may be short
+                        assertTrue(nextOffset == -1 || data.size() == limit, message);
+                    }
+                    assertTrue(nextOffset == -1 || nextOffset > offset, message);
+                    for (final JsonNode row : data) {
+                        ids.add(row.get(0).asText());
+                    }
+                    offset = nextOffset;
+                    assertTrue(++requests <= VERTEX_COUNT + 1, message);
+                }
+                assertEquals(ids, expectedIds, message);
+            }
+        }
+    }
+
+    @Test
+    public void vertexPagesTest() throws IOException {
+        checkPages(false, false);
+    }
+
+    @Test
+    public void selectedVertexPagesTest() throws IOException {
+        checkPages(true, false);
+    }
+
+    @Test
+    public void transactionPagesTest() throws IOException {
+        checkPages(false, true);
+    }
+
+    @Test
+    public void selectedTransactionPagesTest() throws IOException {
+        checkPages(true, true);
+    }
+
+    @Test
+    public void lastPageTest() throws IOException {
+        // a limit reaching exactly the last element leaves no further page
+        JsonNode page = getPage(false, false, attrs("source.[id]"), VERTEX_COUNT - 10, 10, 3);
+        assertEquals(page.get("data").size(), 10);
+        assertEquals(page.get("next_offset").asInt(), -1);
+
+        // one less leaves a page holding the last element
+        page = getPage(false, false, attrs("source.[id]"), VERTEX_COUNT - 10, 9, 3);
+        assertEquals(page.get("data").size(), 9);
+        assertEquals(page.get("next_offset").asInt(), VERTEX_COUNT - 1);
+        page = getPage(false, false, attrs("source.[id]"), VERTEX_COUNT - 1, 9, 3);
+        assertEquals(page.get("data").size(), 1);
+        assertEquals(page.get("data").get(0).get(0).asText(), getExpectedIds(false, false).get(VERTEX_COUNT - 1));
+        assertEquals(page.get("next_offset").asInt(), -1);
+
+        // without a limit every page is written in one response
+        page = getPage(false, false, attrs("source.[id]"), 0, 0, 7);
+        assertEquals(page.get("data").size(), VERTEX_COUNT);
+        assertEquals(page.get("next_offset").asInt(), -1);
+    }
+
+    @Test
+    public void emptyPageTest() throws IOException {
+        // at or beyond the end of the graph
+        for (final int offset : new int[]{VERTEX_COUNT, VERTEX_COUNT + 5}) {
+            for (final int limit : new int[]{0, 10}) {
+                final JsonNode page = getPage(false, false, Collections.emptySet(), offset, limit, 10);
+                assertEquals(page.get("columns").size(), 0);
+                assertEquals(page.get("data").size(), 0);
+                assertEquals(page.get("next_offset").asInt(), -1);
+            }
+        }
+
+        // an empty graph
+        graph = new DualGraph(null);
+        final JsonNode page = getPage(true, true, Collections.emptySet(), 0, 10, 10);
+        assertEquals(page.get("columns").size(), 0);
+        assertEquals(page.get("data").size(), 0);
+        assertEquals(page.get("next_offset").asInt(), -1);
+    }
+
+    @Test
+    public void columnsTest() throws IOException {
+        final JsonNode page = getPage(false, false, attrs("source.Count", "source.Label", "source.[id]"), 0, 5, 2);
+        assertEquals(page.get("columns").toString(), "[\"source.Count|integer_or_null\",\"source.Label|string\",\"source.[id]|string\"]");
+        assertEquals(page.get("data").size(), 5);
+        for (final JsonNode row : page.get("data")) {
+            final int vxId = row.get(2).asInt();
+            assertEquals(row.get(1).asText(), "v" + vxId);
+            assertEquals(row.size(), 3);
+        }
+        assertTrue(page.get("data").get(0).get(0).isNull());
+        assertEquals(page.get("data").get(1).get(0).asInt(), 1);
+    }
+}